@@ -3,8 +3,11 @@ package rocks.inspectit.server.diagnosis.engine.session;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -17,10 +20,17 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
 
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleDefinitionException;
 import rocks.inspectit.server.diagnosis.engine.rule.factory.Rules;
+import rocks.inspectit.server.diagnosis.service.DiagnosisFairness;
+import rocks.inspectit.server.diagnosis.service.DiagnosisService;
+import rocks.inspectit.server.diagnosis.service.DiagnosisServiceStatistics;
+import rocks.inspectit.server.diagnosis.service.rules.InvocationTreeView;
 import rocks.inspectit.server.diagnosis.service.rules.RuleConstants;
 import rocks.inspectit.server.diagnosis.service.rules.impl.CauseStructureRule;
 import rocks.inspectit.server.diagnosis.service.rules.impl.GlobalContextRule;
@@ -70,6 +80,12 @@ public class SessionPerfTest {
 	 */
 	private static final double DIAGNOSIS_BASELINE = 1000;
 
+	/**
+	 * Number of threads concurrently submitting invocations to the {@link DiagnosisService}. Each
+	 * thread simulates a different agent.
+	 */
+	private static final int NUMBER_OF_PRODUCERS = 4;
+
 	/**
 	 * Number of calls.
 	 */
@@ -94,7 +110,55 @@ public class SessionPerfTest {
 	/**
 	 * {@link InvocationSequenceData} with n+1 sql database calls.
 	 */
-	private InvocationSequenceData rootNplusOneAwareInvocationSequenceData;;
+	private InvocationSequenceData rootNplusOneAwareInvocationSequenceData;
+
+	/**
+	 * State holding the {@link DiagnosisService} shared by all benchmark threads.
+	 */
+	@State(Scope.Benchmark)
+	public static class DiagnosisServiceState {
+
+		/**
+		 * Number of dispatcher threads of the service.
+		 */
+		@Param({ "1", "2", "4" })
+		private int dispatcherThreads;
+
+		/**
+		 * {@link DiagnosisService} under test.
+		 */
+		private DiagnosisService diagnosisService;
+
+		/**
+		 * Starts the diagnosis service with the production rules.
+		 */
+		@Setup(Level.Trial)
+		public void init() {
+			diagnosisService = new DiagnosisService(problemOccurrence -> {
+			}, Collections.singletonList(RuleConstants.class.getPackage().getName() + ".impl"), NUMBER_OF_PRODUCERS, dispatcherThreads, 1000, 100,
+					DiagnosisFairness.AGENT);
+			diagnosisService.init();
+		}
+
+		/**
+		 * Shuts the diagnosis service down.
+		 */
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			diagnosisService.shutdown(true);
+		}
+
+		/**
+		 * Waits until all invocations accepted by the service so far are diagnosed.
+		 */
+		void awaitDiagnosed() {
+			DiagnosisServiceStatistics statistics = diagnosisService.getStatistics();
+			while ((statistics.getAnalyzedCount() + statistics.getFailedCount()) < (statistics.getSubmittedCount() - statistics.getDroppedCount())) {
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+				statistics = diagnosisService.getStatistics();
+			}
+		}
+	}
 
 	/**
 	 * Prepare diagnosis engine.
@@ -125,6 +189,50 @@ public class SessionPerfTest {
 				new DefaultSessionResultCollector<InvocationSequenceData>());
 	}
 
+	/**
+	 * Assigns a different agent to the invocations of each benchmark thread.
+	 *
+	 * @param threadParams
+	 *            Parameters of the benchmark thread.
+	 */
+	@Setup(Level.Trial)
+	public void initAgent(ThreadParams threadParams) {
+		rootIterativeInvocationSequence.setPlatformIdent(threadParams.getThreadIndex());
+		rootNplusOneAwareInvocationSequenceData.setPlatformIdent(threadParams.getThreadIndex());
+	}
+
+	/**
+	 * Tests the end-to-end throughput of the {@link DiagnosisService} with several agents
+	 * concurrently submitting invocations. Each thread waits until its invocation is diagnosed
+	 * before submitting the next one, thus the score is the amount of diagnosed invocations.
+	 *
+	 * @param state
+	 *            State holding the diagnosis service.
+	 */
+	@Benchmark
+	@Threads(NUMBER_OF_PRODUCERS)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void testDiagnosisServiceThroughputUnderConcurrentLoad(DiagnosisServiceState state) {
+		if (state.diagnosisService.diagnose(rootNplusOneAwareInvocationSequenceData, DIAGNOSIS_BASELINE)) {
+			state.awaitDiagnosed();
+		}
+	}
+
+	/**
+	 * Creates the session variables the {@link DiagnosisService} passes to the session.
+	 *
+	 * @param invocation
+	 *            Analyzed invocation.
+	 * @return Session variables.
+	 */
+	private static Map<String, Object> sessionVariables(InvocationSequenceData invocation) {
+		Map<String, Object> sessionVariables = new HashMap<>(4);
+		sessionVariables.put(RuleConstants.DIAGNOSIS_VAR_BASELINE, DIAGNOSIS_BASELINE);
+		sessionVariables.put(RuleConstants.DIAGNOSIS_VAR_INVOCATION_TREE, InvocationTreeView.lazy(invocation));
+		return sessionVariables;
+	}
+
 	/**
 	 * Tests the rules with an iterative call.
 	 *
@@ -133,8 +241,7 @@ public class SessionPerfTest {
 	 */
 	@Benchmark
 	public void testDiagnosisServiceWithIterativeInvocationSequences() throws Exception {
-		session.activate(rootIterativeInvocationSequence,
-				Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, DIAGNOSIS_BASELINE));
+		session.activate(rootIterativeInvocationSequence, sessionVariables(rootIterativeInvocationSequence));
 		session.call();
 		session.passivate();
 	}
@@ -148,8 +255,7 @@ public class SessionPerfTest {
 	@Benchmark
 	public void testDiagnosisServiceWithRecursiveInvocationSequences() throws Exception {
 
-		session.activate(rootRecursiveInvocationSequence,
-				Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, DIAGNOSIS_BASELINE));
+		session.activate(rootRecursiveInvocationSequence, sessionVariables(rootRecursiveInvocationSequence));
 		session.call();
 		session.passivate();
 	}
@@ -162,8 +268,7 @@ public class SessionPerfTest {
 	 */
 	@Benchmark
 	public void testDiagnosisServiceWithNplusOneProblem() throws Exception {
-		session.activate(rootNplusOneAwareInvocationSequenceData,
-				Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, DIAGNOSIS_BASELINE));
+		session.activate(rootNplusOneAwareInvocationSequenceData, sessionVariables(rootNplusOneAwareInvocationSequenceData));
 		DefaultSessionResult<InvocationSequenceData> sdfsdf = session.call();
 		sdfsdf.getEndTags();
 		session.passivate();
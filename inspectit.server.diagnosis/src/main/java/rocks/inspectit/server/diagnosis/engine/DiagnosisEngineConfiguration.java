@@ -9,12 +9,14 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.collections.CollectionUtils;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
+import rocks.inspectit.server.diagnosis.engine.rule.store.ConcurrentRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.rule.store.DefaultRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.rule.store.IRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.session.ISessionCallback;
@@ -71,6 +73,18 @@ public class DiagnosisEngineConfiguration<I, R> {
 	 */
 	private ISessionResultCollector<I, R> resultCollector;
 
+	/**
+	 * The {@link ForkJoinPool} to execute the rules of a session in parallel. If not provided, the
+	 * rules are executed sequentially by the session worker thread.
+	 */
+	private ForkJoinPool ruleExecutionPool;
+
+	/**
+	 * Max amount of inputs of one rule executed as one task when the rules are executed in
+	 * parallel.
+	 */
+	private int ruleInputPartitionSize = 256;
+
 	/**
 	 * Sets {@link #numSessionWorkers}.
 	 *
@@ -160,6 +174,35 @@ public class DiagnosisEngineConfiguration<I, R> {
 		return this;
 	}
 
+	/**
+	 * Sets {@link #ruleExecutionPool}. If the storage class is the default one, it is changed to
+	 * the {@link ConcurrentRuleOutputStorage}.
+	 *
+	 * @param ruleExecutionPool
+	 *            New value for {@link #ruleExecutionPool}
+	 * @return DiagnosisEngineConfiguration itself
+	 */
+	public DiagnosisEngineConfiguration<I, R> setRuleExecutionPool(ForkJoinPool ruleExecutionPool) {
+		this.ruleExecutionPool = ruleExecutionPool;
+		if ((null != ruleExecutionPool) && DefaultRuleOutputStorage.class.equals(storageClass)) {
+			this.storageClass = ConcurrentRuleOutputStorage.class;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets {@link #ruleInputPartitionSize}.
+	 *
+	 * @param ruleInputPartitionSize
+	 *            New value for {@link #ruleInputPartitionSize}
+	 * @return DiagnosisEngineConfiguration itself
+	 */
+	public DiagnosisEngineConfiguration<I, R> setRuleInputPartitionSize(int ruleInputPartitionSize) {
+		checkArgument(ruleInputPartitionSize > 0, "ruleInputPartitionSize must be at least 1.");
+		this.ruleInputPartitionSize = ruleInputPartitionSize;
+		return this;
+	}
+
 	/**
 	 * Sets {@link #resultCollector}.
 	 *
@@ -285,4 +328,22 @@ public class DiagnosisEngineConfiguration<I, R> {
 	public List<ISessionCallback<R>> getSessionCallbacks() {
 		return callbacks;
 	}
+
+	/**
+	 * Gets {@link #ruleExecutionPool}.
+	 *
+	 * @return {@link #ruleExecutionPool}. Can be <code>null</code>.
+	 */
+	public ForkJoinPool getRuleExecutionPool() {
+		return ruleExecutionPool;
+	}
+
+	/**
+	 * Gets {@link #ruleInputPartitionSize}.
+	 *
+	 * @return {@link #ruleInputPartitionSize}
+	 */
+	public int getRuleInputPartitionSize() {
+		return ruleInputPartitionSize;
+	}
 }
@@ -2,6 +2,8 @@ package rocks.inspectit.server.diagnosis.engine.rule;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -16,7 +18,6 @@ import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleDefinitionExce
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleExecutionException;
 import rocks.inspectit.server.diagnosis.engine.tag.Tag;
 import rocks.inspectit.server.diagnosis.engine.tag.Tags;
-import rocks.inspectit.server.diagnosis.engine.util.ReflectionUtils;
 
 /**
  * Represents the action method of a rule. An <code>ActionMethod</code> reflects the {@link Action}
@@ -46,6 +47,11 @@ public class ActionMethod {
 	 */
 	private final Action.Quantity resultQuantity;
 
+	/**
+	 * Invoker of the {@link #method} with the <code>(Object)Object</code> type.
+	 */
+	private final MethodHandle invoker;
+
 	/**
 	 * Default Constructor.
 	 *
@@ -64,6 +70,7 @@ public class ActionMethod {
 		this.resultTag = checkNotNull(resultTag, "The result tag must not be null.");
 		this.resultQuantity = checkNotNull(resultQuantity, "The output quantity must not be null.");
 		validate();
+		this.invoker = ConditionMethod.createInvoker(method, MethodType.methodType(Object.class, Object.class));
 	}
 
 	// -------------------------------------------------------------
@@ -82,12 +89,13 @@ public class ActionMethod {
 	 * @see Tag
 	 */
 	public Collection<Tag> execute(ExecutionContext context) throws RuleExecutionException {
+		Object result;
 		try {
-			Object result = ReflectionUtils.invokeMethod(getMethod(), context.getInstance());
-			return transform(result, context);
-		} catch (Exception e) {
+			result = invoker.invokeExact(context.getInstance());
+		} catch (Throwable e) { // NOPMD method handles declare Throwable
 			throw new RuleExecutionException("Failed to invoke action method (" + getMethod().getName() + ")", context, e);
 		}
+		return transform(result, context);
 	}
 
 	/**
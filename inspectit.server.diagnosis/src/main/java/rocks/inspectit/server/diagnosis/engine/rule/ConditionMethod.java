@@ -2,6 +2,9 @@ package rocks.inspectit.server.diagnosis.engine.rule;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
@@ -10,7 +13,6 @@ import org.apache.commons.lang.StringUtils;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Condition;
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleDefinitionException;
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleExecutionException;
-import rocks.inspectit.server.diagnosis.engine.util.ReflectionUtils;
 
 /**
  * Defines a condition method of a rule implementation. A <code>ConditionMethod</code> reflects the
@@ -51,6 +53,11 @@ public class ConditionMethod {
 	 */
 	private final Method method;
 
+	/**
+	 * Invoker of the {@link #method} with the <code>(Object)boolean</code> type.
+	 */
+	private final MethodHandle invoker;
+
 	/**
 	 * Default Constructor.
 	 *
@@ -69,6 +76,28 @@ public class ConditionMethod {
 		this.name = StringUtils.defaultIfEmpty(name, this.method.getName());
 		this.hint = hint;
 		validate();
+		this.invoker = createInvoker(method, MethodType.methodType(boolean.class, Object.class));
+	}
+
+	/**
+	 * Creates the {@link MethodHandle} invoking the given rule method on the rule instance passed
+	 * as the only argument.
+	 *
+	 * @param method
+	 *            Rule method.
+	 * @param type
+	 *            Type of the resulting handle.
+	 * @return {@link MethodHandle} of the given type.
+	 * @throws RuleDefinitionException
+	 *             If the method can not be accessed.
+	 */
+	static MethodHandle createInvoker(Method method, MethodType type) throws RuleDefinitionException {
+		try {
+			method.setAccessible(true);
+			return MethodHandles.lookup().unreflect(method).asType(type);
+		} catch (IllegalAccessException | SecurityException e) {
+			throw new RuleDefinitionException(method.getDeclaringClass().getName() + " defines an inaccessible method with name: " + method.getName(), e);
+		}
 	}
 
 	/**
@@ -85,13 +114,13 @@ public class ConditionMethod {
 	 */
 	public ConditionFailure execute(ExecutionContext context) throws RuleExecutionException {
 		try {
-			boolean valid = (boolean) ReflectionUtils.invokeMethod(getMethod(), context.getInstance());
+			boolean valid = (boolean) invoker.invokeExact(context.getInstance());
 			if (!valid) {
 				// Store information about the failed condition for later usage
 				return new ConditionFailure(getName(), getHint());
 			}
 			return null;
-		} catch (Exception e) {
+		} catch (Throwable e) { // NOPMD method handles declare Throwable
 			throw new RuleExecutionException("Invocation of condition method failed.", context, e);
 		}
 	}
@@ -2,6 +2,9 @@ package rocks.inspectit.server.diagnosis.engine.rule;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
@@ -9,7 +12,9 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleExecutionException;
 
 /**
- * Base class for classes which need to inject a value to a field.
+ * Base class for classes which need to inject a value to a field. The setter of the field is
+ * resolved to a {@link MethodHandle} once when the rule is defined, so that no reflective access
+ * is needed during the rule execution.
  *
  * @author Claudio Waldvogel, Alexander Wert
  */
@@ -20,6 +25,11 @@ public abstract class FieldInjection {
 	 */
 	private final Field injectee;
 
+	/**
+	 * Setter of the {@link #injectee} with the <code>(Object, Object)void</code> type.
+	 */
+	private final MethodHandle setter;
+
 	/**
 	 * Default constructor.
 	 *
@@ -30,6 +40,11 @@ public abstract class FieldInjection {
 		this.injectee = checkNotNull(injectee, "The injectee must not be null.");
 		// Ensure that field is accessible
 		this.injectee.setAccessible(true);
+		try {
+			this.setter = MethodHandles.lookup().unreflectSetter(injectee).asType(MethodType.methodType(void.class, Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Field " + injectee.getName() + " can not be injected.", e);
+		}
 	}
 
 	/**
@@ -44,8 +59,8 @@ public abstract class FieldInjection {
 	public void execute(ExecutionContext context) throws RuleExecutionException {
 		Object toInject = determineValueToInject(context);
 		try {
-			getInjectee().set(context.getInstance(), toInject);
-		} catch (IllegalAccessException e) {
+			setter.invokeExact(context.getInstance(), toInject);
+		} catch (Throwable e) { // NOPMD method handles declare Throwable
 			throw new RuleExecutionException("Failed to injected \'" + toInject + "\' to \'" + getInjectee().getName() + "\'", context, e);
 		}
 	}
@@ -2,6 +2,12 @@ package rocks.inspectit.server.diagnosis.engine.rule;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -17,7 +23,6 @@ import com.google.common.collect.Sets;
 
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleExecutionException;
 import rocks.inspectit.server.diagnosis.engine.tag.Tag;
-import rocks.inspectit.server.diagnosis.engine.util.ReflectionUtils;
 
 /**
  * A {@link RuleDefinition} is an abstracted and generalized view of a rule implementation. Each
@@ -39,6 +44,11 @@ import rocks.inspectit.server.diagnosis.engine.util.ReflectionUtils;
  *      <li>The {@link ConditionMethod}s of a rule</li>
  *  </ul>
  * </pre>
+ * <p>
+ * The rule implementation is instantiated through a constructor {@link MethodHandle} resolved when
+ * the definition is built. A rule implementation whose instance fields are all either injected or
+ * final is considered as reusable: one instance can execute any number of {@link RuleInput}s, as
+ * all of its state is overwritten by the injections.
  *
  * @author Claudio Waldvogel, Alexander Wert
  * @see FireCondition
@@ -100,6 +110,17 @@ public class RuleDefinition {
 	 */
 	private ActionMethod actionMethod;
 
+	/**
+	 * Handle of the no-args constructor of the {@link #implementation} with the
+	 * <code>()Object</code> type.
+	 */
+	private MethodHandle constructor;
+
+	/**
+	 * If one instance of the {@link #implementation} can be used for several executions.
+	 */
+	private boolean reusable;
+
 	/**
 	 * Private constructor.
 	 */
@@ -110,11 +131,40 @@ public class RuleDefinition {
 	// Methods: RuleExecution
 	// -------------------------------------------------------------
 
+	/**
+	 * Creates a new instance of the rule {@link #implementation}.
+	 *
+	 * @return New rule instance.
+	 */
+	public Object newInstance() {
+		try {
+			return (Object) constructor.invokeExact();
+		} catch (Throwable e) { // NOPMD method handles declare Throwable
+			throw new RuntimeException("Failed to instantiate clazz.", e);
+		}
+	}
+
+	/**
+	 * Executes this {@link RuleDefinition} with a new instance of the rule implementation.
+	 *
+	 * @param input
+	 *            The {@link RuleInput} to be processed. Must not null.
+	 * @param variables
+	 *            The session variables. Must not be null.
+	 * @return A new {@link RuleOutput}
+	 * @throws RuleExecutionException
+	 *             If rule execution fails.
+	 * @see #execute(RuleInput, Map, Object)
+	 */
+	public RuleOutput execute(RuleInput input, Map<String, Object> variables) throws RuleExecutionException {
+		return execute(input, variables, newInstance());
+	}
+
 	/**
 	 * Executes this {@link RuleDefinition} in 6 steps.
 	 *
 	 * <pre>
-	 * 1. The raw class which implements this <code>RuleDefinition</code> is instantiated and wrapped in a new {@link ExecutionContext}.
+	 * 1. The given instance of the class which implements this <code>RuleDefinition</code> is wrapped in a new {@link ExecutionContext}.
 	 * 2. All {@link TagInjection}s are executed.
 	 * 3. All {@link SessionVariableInjection}s are executed
 	 * 4. All {@link ConditionMethod}s are executed.
@@ -126,6 +176,9 @@ public class RuleDefinition {
 	 *            The {@link RuleInput} to be processed. Must not null.
 	 * @param variables
 	 *            The session variables. Must not be null.
+	 * @param instance
+	 *            Instance of the rule implementation. Must be a new instance, unless the
+	 *            definition is {@link #isReusable()}.
 	 * @return A new {@link RuleOutput}
 	 * @throws RuleExecutionException
 	 *             If rule execution fails.
@@ -133,12 +186,12 @@ public class RuleDefinition {
 	 * @see RuleInput
 	 * @see RuleOutput
 	 */
-	public RuleOutput execute(RuleInput input, Map<String, Object> variables) throws RuleExecutionException {
+	public RuleOutput execute(RuleInput input, Map<String, Object> variables, Object instance) throws RuleExecutionException {
 		checkNotNull(input, "The RuleInput must not be null!");
 		checkNotNull(variables, "The Session Variables must not be null!");
 
 		// Create a new ExecutionContext for this run
-		ExecutionContext ctx = new ExecutionContext(this, ReflectionUtils.tryInstantiate(getImplementation()), input, variables);
+		ExecutionContext ctx = new ExecutionContext(this, instance, input, variables);
 
 		// Inject tags
 		for (TagInjection injection : getTagInjections()) {
@@ -193,13 +246,33 @@ public class RuleDefinition {
 	 * @see RuleOutput
 	 */
 	public Collection<RuleOutput> execute(Collection<RuleInput> inputs, Map<String, Object> variables) throws RuleExecutionException {
+		return execute(inputs, variables, reusable ? newInstance() : null);
+	}
+
+	/**
+	 * Executes this <code>RuleDefinition</code> for several {@link RuleInput}s using the given
+	 * pooled instance of the rule implementation. The pooled instance is only used if the
+	 * definition is {@link #isReusable()}, otherwise a new instance is created for each input.
+	 *
+	 * @param inputs
+	 *            A collection of {@link RuleInput} to be processed.
+	 * @param variables
+	 *            The session variables.
+	 * @param pooledInstance
+	 *            Instance of the rule implementation to reuse, can be <code>null</code>.
+	 * @return A collection of {@link RuleOutput}s.
+	 * @throws RuleExecutionException
+	 *             If rule execution fails.
+	 */
+	public Collection<RuleOutput> execute(Collection<RuleInput> inputs, Map<String, Object> variables, Object pooledInstance) throws RuleExecutionException {
 		checkNotNull(inputs, "The RuleInputs must not be null!");
 
 		Iterator<RuleInput> iterator = inputs.iterator();
 		Set<RuleOutput> outputs = Sets.newHashSet();
 
 		while (iterator.hasNext()) {
-			outputs.add(execute(iterator.next(), variables));
+			Object instance = (reusable && (null != pooledInstance)) ? pooledInstance : newInstance();
+			outputs.add(execute(iterator.next(), variables, instance));
 		}
 		return outputs;
 	}
@@ -280,6 +353,15 @@ public class RuleDefinition {
 		return conditionMethods;
 	}
 
+	/**
+	 * Gets {@link #reusable}.
+	 *
+	 * @return {@link #reusable}
+	 */
+	public boolean isReusable() {
+		return reusable;
+	}
+
 	/**
 	 * Sets {@link #variableInjections}.
 	 *
@@ -360,6 +442,38 @@ public class RuleDefinition {
 		this.actionMethod = actionMethod;
 	}
 
+	/**
+	 * Resolves the {@link #constructor} of the {@link #implementation} and checks if the
+	 * implementation is {@link #reusable}.
+	 */
+	protected void compile() {
+		try {
+			Constructor<?> noArgsConstructor = implementation.getDeclaredConstructor();
+			noArgsConstructor.setAccessible(true);
+			constructor = MethodHandles.lookup().unreflectConstructor(noArgsConstructor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException("Cannot create a RuleDefinition. Rule Implementation can not be instantiated!", e);
+		}
+
+		Set<Field> injectedFields = Sets.newHashSet();
+		for (FieldInjection injection : tagInjections) {
+			injectedFields.add(injection.getInjectee());
+		}
+		for (FieldInjection injection : variableInjections) {
+			injectedFields.add(injection.getInjectee());
+		}
+		reusable = true;
+		for (Class<?> clazz = implementation; (null != clazz) && !Object.class.equals(clazz); clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic() && !injectedFields.contains(field)) {
+					reusable = false;
+					return;
+				}
+			}
+		}
+	}
+
 	// -------------------------------------------------------------
 	// Methods: Generated
 	// -------------------------------------------------------------
@@ -602,6 +716,7 @@ public class RuleDefinition {
 
 			objectUnderConstruction.setName(StringUtils.defaultIfEmpty(objectUnderConstruction.getName(), objectUnderConstruction.getImplementation().getName()));
 			objectUnderConstruction.setDescription(StringUtils.defaultIfEmpty(objectUnderConstruction.getDescription(), EMPTY_DESCRIPTION));
+			objectUnderConstruction.compile();
 
 			return objectUnderConstruction;
 		}
@@ -0,0 +1,187 @@
+package rocks.inspectit.server.diagnosis.engine.rule.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+
+import rocks.inspectit.server.diagnosis.engine.rule.RuleOutput;
+import rocks.inspectit.server.diagnosis.engine.tag.Tag;
+import rocks.inspectit.server.diagnosis.engine.tag.TagState;
+
+/**
+ * Thread-safe implementation of {@link IRuleOutputStorage} to be used when the rules of a session
+ * are executed in parallel. It keeps the same semantics as the {@link DefaultRuleOutputStorage}:
+ * outputs are de-duplicated per tag type and kept in the insertion order, tag types are kept in
+ * the order they were first stored. Reading methods return snapshots of the storage.
+ *
+ * @author Ivan Senic
+ */
+public class ConcurrentRuleOutputStorage implements IRuleOutputStorage {
+
+	/**
+	 * All {@link RuleOutput}s without condition failures indexed by the tag type.
+	 */
+	private final ConcurrentMap<String, Set<RuleOutput>> allOutputs = new ConcurrentHashMap<>();
+
+	/**
+	 * Tag types of {@link #allOutputs} in the order they were first stored.
+	 */
+	private final List<String> tagTypes = new CopyOnWriteArrayList<>();
+
+	/**
+	 * All {@link RuleOutput}s where one or more condition failed indexed by the tag type.
+	 */
+	private final Multimap<String, RuleOutput> conditionFailures = ArrayListMultimap.create();
+
+	// -------------------------------------------------------------
+	// Interface Implementation: IRuleOutputStorage
+	// -------------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void store(Collection<RuleOutput> output) {
+		for (RuleOutput single : output) {
+			store(single);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void store(RuleOutput output) {
+		String tagType = output.getEmbeddedTagType();
+		if (output.hasConditionFailures()) {
+			synchronized (conditionFailures) {
+				conditionFailures.put(tagType, output);
+			}
+		} else {
+			Set<RuleOutput> outputs = allOutputs.get(tagType);
+			if (null == outputs) {
+				synchronized (tagTypes) {
+					outputs = allOutputs.get(tagType);
+					if (null == outputs) {
+						outputs = Collections.synchronizedSet(new LinkedHashSet<RuleOutput>());
+						allOutputs.put(tagType, outputs);
+						tagTypes.add(tagType);
+					}
+				}
+			}
+			outputs.add(output);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Set<String> getAvailableTagTypes() {
+		return Collections.unmodifiableSet(allOutputs.keySet());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Multimap<String, RuleOutput> getAllOutputsWithConditionFailures() {
+		synchronized (conditionFailures) {
+			return ArrayListMultimap.create(conditionFailures);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Multimap<String, RuleOutput> getAllOutputs() {
+		Multimap<String, RuleOutput> outputs = LinkedHashMultimap.create();
+		for (String tagType : tagTypes) {
+			outputs.putAll(tagType, getOutputs(tagType));
+		}
+		return outputs;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Multimap<String, Tag> mapTags(TagState state) {
+		Multimap<String, Tag> tags = ArrayListMultimap.create();
+		for (String tagType : tagTypes) {
+			for (RuleOutput output : getOutputs(tagType)) {
+				if (output.hasResultTags()) {
+					for (Tag tag : output.getTags()) {
+						if (tag.getState().equals(state)) {
+							tags.put(tag.getType(), tag);
+						}
+					}
+				}
+			}
+		}
+		return tags;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Collection<RuleOutput> findLatestResultsByTagType(Set<String> requestedTypes) {
+		List<RuleOutput> result = null;
+		List<String> types = new ArrayList<>(tagTypes);
+		ListIterator<String> iterator = types.listIterator(types.size());
+		while (iterator.hasPrevious()) {
+			String previous = iterator.previous();
+			if (requestedTypes.contains(previous)) {
+				if (null == result) {
+					result = new ArrayList<>();
+				}
+				result.addAll(getOutputs(previous));
+			}
+		}
+		return null == result ? Collections.<RuleOutput> emptyList() : result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		synchronized (tagTypes) {
+			allOutputs.clear();
+			tagTypes.clear();
+		}
+		synchronized (conditionFailures) {
+			conditionFailures.clear();
+		}
+	}
+
+	/**
+	 * Returns the snapshot of the outputs stored for the given tag type.
+	 *
+	 * @param tagType
+	 *            Tag type.
+	 * @return Outputs in the insertion order.
+	 */
+	private List<RuleOutput> getOutputs(String tagType) {
+		Set<RuleOutput> outputs = allOutputs.get(tagType);
+		if (null == outputs) {
+			return Collections.emptyList();
+		}
+		synchronized (outputs) {
+			return new ArrayList<>(outputs);
+		}
+	}
+}
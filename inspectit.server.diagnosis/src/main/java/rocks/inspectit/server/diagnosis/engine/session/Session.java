@@ -5,12 +5,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -26,6 +32,7 @@ import rocks.inspectit.server.diagnosis.engine.rule.FireCondition;
 import rocks.inspectit.server.diagnosis.engine.rule.RuleDefinition;
 import rocks.inspectit.server.diagnosis.engine.rule.RuleInput;
 import rocks.inspectit.server.diagnosis.engine.rule.RuleOutput;
+import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleExecutionException;
 import rocks.inspectit.server.diagnosis.engine.rule.factory.Rules;
 import rocks.inspectit.server.diagnosis.engine.rule.store.DefaultRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.rule.store.IRuleOutputStorage;
@@ -56,6 +63,12 @@ import rocks.inspectit.server.diagnosis.engine.tag.Tags;
  * In order to facilitate compliance with the life cycle it is strongly recommended to use the
  * provided {@link SessionPool} in combination with {@link ExecutorService}.
  * <p>
+ * If a rule execution {@link ForkJoinPool} is given, the rules are executed in rounds: all rules
+ * that can fire with the outputs available at the start of a round are executed in parallel,
+ * and the inputs of one rule are split in partitions executed in parallel as well. The outputs of
+ * a round are stored only after all its rules are executed, ordered by the rule name and the
+ * input partition, so the results do not depend on the thread scheduling.
+ * <p>
  *
  * <pre>
  * {
@@ -108,6 +121,16 @@ public final class Session<I, R> implements Callable<R> {
 	 */
 	private ISessionResultCollector<I, R> resultCollector;
 
+	/**
+	 * The pool to execute rules in parallel, <code>null</code> for the sequential execution.
+	 */
+	private ForkJoinPool ruleExecutionPool;
+
+	/**
+	 * Max amount of inputs of one rule executed as one task in the parallel execution.
+	 */
+	private int ruleInputPartitionSize;
+
 	// -------------------------------------------------------------
 	// Methods: Construction
 	// -------------------------------------------------------------
@@ -135,12 +158,35 @@ public final class Session<I, R> implements Callable<R> {
 	 *            The storage for the rule outputs.
 	 */
 	public Session(Set<RuleDefinition> ruleDefinitions, ISessionResultCollector<I, R> sessionResultCollector, IRuleOutputStorage storage) {
+		this(ruleDefinitions, sessionResultCollector, storage, null, 1);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ruleDefinitions
+	 *            Set of {@link RuleDefinition} instances.
+	 * @param sessionResultCollector
+	 *            The {@link ISessionResultCollector} for the results of the session.
+	 * @param storage
+	 *            The storage for the rule outputs. Must be thread-safe if rules are executed in
+	 *            parallel.
+	 * @param ruleExecutionPool
+	 *            The pool to execute rules in parallel, <code>null</code> for the sequential
+	 *            execution.
+	 * @param ruleInputPartitionSize
+	 *            Max amount of inputs of one rule executed as one task in the parallel execution.
+	 */
+	public Session(Set<RuleDefinition> ruleDefinitions, ISessionResultCollector<I, R> sessionResultCollector, IRuleOutputStorage storage, ForkJoinPool ruleExecutionPool,
+			int ruleInputPartitionSize) {
 		checkNotNull(ruleDefinitions);
 		checkNotNull(storage);
 		checkNotNull(sessionResultCollector);
 
 		this.sessionContext = new SessionContext<>(ruleDefinitions, storage);
 		this.resultCollector = sessionResultCollector;
+		this.ruleExecutionPool = ruleExecutionPool;
+		this.ruleInputPartitionSize = Math.max(1, ruleInputPartitionSize);
 	}
 
 	/**
@@ -181,7 +227,11 @@ public final class Session<I, R> implements Callable<R> {
 		switch (state) {
 		case ACTIVATED:
 			sessionContext.getStorage().store(Rules.triggerRuleOutput(sessionContext.getInput()));
-			doProcess();
+			if (null == ruleExecutionPool) {
+				doProcess();
+			} else {
+				doProcessParallel();
+			}
 			state = State.PROCESSED;
 			break;
 		default:
@@ -304,7 +354,7 @@ public final class Session<I, R> implements Callable<R> {
 					if (CollectionUtils.isNotEmpty(inputs)) {
 						// Execute selected rule for each input and collect corresponding rule
 						// outputs
-						Collection<RuleOutput> outputs = ruleDef.execute(inputs, Session.this.sessionContext.getSessionVariables());
+						Collection<RuleOutput> outputs = ruleDef.execute(inputs, Session.this.sessionContext.getSessionVariables(), sessionContext.getRuleInstance(ruleDef));
 						// store results
 						sessionContext.getStorage().store(outputs);
 						anyRuleExecuted = true;
@@ -328,6 +378,85 @@ public final class Session<I, R> implements Callable<R> {
 		}
 	}
 
+	/**
+	 * Internal processing routine to execute all rules in parallel. Works in rounds like
+	 * {@link #doProcess()}, but the rules of one round are executed in parallel in the
+	 * {@link #ruleExecutionPool} and their outputs are stored at the end of the round.
+	 *
+	 * @throws SessionException
+	 *             If processing fails.
+	 */
+	private void doProcessParallel() throws SessionException {
+		Collection<RuleDefinition> nextRules = findNextRules(sessionContext.getStorage().getAvailableTagTypes(), sessionContext.getRuleSet());
+
+		while (!nextRules.isEmpty()) {
+			// fixed order of the rules, so that outputs are stored in the same order every time
+			List<RuleDefinition> roundRules = new ArrayList<>(nextRules);
+			Collections.sort(roundRules, RULE_ORDER);
+
+			List<RuleTask> tasks = new ArrayList<>(roundRules.size());
+			for (RuleDefinition ruleDef : roundRules) {
+				tasks.add(new RuleTask(ruleDef));
+			}
+			for (RuleTask task : tasks) {
+				ruleExecutionPool.execute(task);
+			}
+
+			boolean anyRuleExecuted = false;
+			try {
+				for (RuleTask task : tasks) {
+					List<RuleOutput> outputs = getTaskResult(task);
+					if (CollectionUtils.isNotEmpty(task.inputs)) {
+						sessionContext.getStorage().store(outputs);
+						anyRuleExecuted = true;
+						for (RuleInput ruleInput : task.inputs) {
+							sessionContext.addExecution(task.ruleDefinition, ruleInput);
+						}
+					}
+				}
+			} catch (DiagnosisEngineException ex) {
+				for (RuleTask task : tasks) {
+					task.cancel(true);
+				}
+				failure(ex);
+			}
+
+			if (anyRuleExecuted) {
+				nextRules = findNextRules(sessionContext.getStorage().getAvailableTagTypes(), sessionContext.getRuleSet());
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Waits for the result of the task and unwraps the {@link RuleExecutionException} the task
+	 * failed with.
+	 *
+	 * @param task
+	 *            Task to get result from.
+	 * @return Result of the task.
+	 * @throws DiagnosisEngineException
+	 *             If task failed or waiting was interrupted.
+	 */
+	private <T> T getTaskResult(ForkJoinTask<T> task) throws DiagnosisEngineException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SessionException("Interrupted while executing rules.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			while (null != cause) {
+				if (cause instanceof RuleExecutionException) {
+					throw (RuleExecutionException) cause;
+				}
+				cause = cause.getCause();
+			}
+			throw new SessionException("Parallel rule execution failed.", e.getCause());
+		}
+	}
+
 	/**
 	 * Marks the session as failed and passivates it.
 	 *
@@ -467,6 +596,151 @@ public final class Session<I, R> implements Callable<R> {
 	// Inner classes
 	// -------------------------------------------------------------
 
+	/**
+	 * Orders the rules by name and implementation class.
+	 */
+	private static final Comparator<RuleDefinition> RULE_ORDER = new Comparator<RuleDefinition>() {
+		@Override
+		public int compare(RuleDefinition o1, RuleDefinition o2) {
+			int result = o1.getName().compareTo(o2.getName());
+			if (0 == result) {
+				result = o1.getImplementation().getName().compareTo(o2.getImplementation().getName());
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * Task collecting the not yet processed inputs of one rule and executing the rule for them.
+	 * Only reads the session context, the outputs are stored by the session thread.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private final class RuleTask extends RecursiveTask<List<RuleOutput>> {
+
+		/**
+		 * Generated UID.
+		 */
+		private static final long serialVersionUID = 2960405578104359004L;
+
+		/**
+		 * Rule to execute.
+		 */
+		private final RuleDefinition ruleDefinition;
+
+		/**
+		 * Inputs the rule was executed for, available after the task is done.
+		 */
+		private List<RuleInput> inputs;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param ruleDefinition
+		 *            Rule to execute.
+		 */
+		RuleTask(RuleDefinition ruleDefinition) {
+			this.ruleDefinition = ruleDefinition;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected List<RuleOutput> compute() {
+			Collection<RuleInput> collected = collectInputs(ruleDefinition, sessionContext.getStorage());
+			inputs = new ArrayList<>(filterProcessedInputs(sessionContext.getExecutions(), ruleDefinition, collected));
+			if (inputs.isEmpty()) {
+				return Collections.emptyList();
+			}
+			return new PartitionTask(ruleDefinition, inputs, 0, inputs.size()).compute();
+		}
+	}
+
+	/**
+	 * Task executing one rule for a partition of its inputs. Partitions larger than
+	 * {@link Session#ruleInputPartitionSize} are split in halves. Each partition uses its own rule
+	 * instance, outputs are returned in the order of the inputs.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private final class PartitionTask extends RecursiveTask<List<RuleOutput>> {
+
+		/**
+		 * Generated UID.
+		 */
+		private static final long serialVersionUID = -6166469040574767416L;
+
+		/**
+		 * Rule to execute.
+		 */
+		private final RuleDefinition ruleDefinition;
+
+		/**
+		 * All inputs of the rule.
+		 */
+		private final List<RuleInput> inputs;
+
+		/**
+		 * Index of the first input of the partition.
+		 */
+		private final int from;
+
+		/**
+		 * Index after the last input of the partition.
+		 */
+		private final int to;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param ruleDefinition
+		 *            Rule to execute.
+		 * @param inputs
+		 *            All inputs of the rule.
+		 * @param from
+		 *            Index of the first input of the partition.
+		 * @param to
+		 *            Index after the last input of the partition.
+		 */
+		PartitionTask(RuleDefinition ruleDefinition, List<RuleInput> inputs, int from, int to) {
+			this.ruleDefinition = ruleDefinition;
+			this.inputs = inputs;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected List<RuleOutput> compute() {
+			if ((to - from) > ruleInputPartitionSize) {
+				int middle = (from + to) >>> 1;
+				PartitionTask left = new PartitionTask(ruleDefinition, inputs, from, middle);
+				PartitionTask right = new PartitionTask(ruleDefinition, inputs, middle, to);
+				right.fork();
+				List<RuleOutput> outputs = new ArrayList<>(left.compute());
+				outputs.addAll(right.join());
+				return outputs;
+			}
+
+			Object pooledInstance = ruleDefinition.isReusable() ? ruleDefinition.newInstance() : null;
+			List<RuleOutput> outputs = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				Object instance = (null != pooledInstance) ? pooledInstance : ruleDefinition.newInstance();
+				try {
+					outputs.add(ruleDefinition.execute(inputs.get(i), sessionContext.getSessionVariables(), instance));
+				} catch (RuleExecutionException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return outputs;
+		}
+	}
+
 	/**
 	 * Internal enum representing the current state of this session.
 	 */
@@ -10,7 +10,7 @@ import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 
-import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 
@@ -73,6 +73,11 @@ public class SessionContext<I> {
 	 */
 	private final Multimap<RuleDefinition, RuleInput> executions;
 
+	/**
+	 * Instances of the reusable {@link RuleDefinition}s pooled for the current session execution.
+	 */
+	private final Map<RuleDefinition, Object> ruleInstances = new HashMap<>();
+
 	/**
 	 * Default constructor to create new <code>SessionContext</code>s.
 	 *
@@ -89,7 +94,7 @@ public class SessionContext<I> {
 		this.backupRules = ImmutableSet.copyOf(rules);
 		this.ruleSet = new HashSet<>();
 		this.storage = checkNotNull(storage, "Storage must not be null.");
-		this.executions = ArrayListMultimap.create();
+		this.executions = HashMultimap.create();
 	}
 
 	// -------------------------------------------------------------
@@ -118,7 +123,8 @@ public class SessionContext<I> {
 
 	/**
 	 * Passivates the <code>SessionContext</code> by clearing th {@link #ruleSet}, the
-	 * {@link #sessionVariables}, the {@link #storage}, and the {@link #input}.
+	 * {@link #sessionVariables}, the {@link #storage}, the {@link #ruleInstances} and the
+	 * {@link #input}.
 	 *
 	 * @return The SessionContext itself.
 	 * @see Session
@@ -129,6 +135,7 @@ public class SessionContext<I> {
 		this.ruleSet.clear();
 		this.storage.clear();
 		this.executions.clear();
+		this.ruleInstances.clear();
 		this.sessionVariables.clear(); // NOPMD
 		return this;
 	}
@@ -145,6 +152,27 @@ public class SessionContext<I> {
 		executions.put(ruleDefinition, input);
 	}
 
+	/**
+	 * Returns the pooled instance of the rule implementation for the given rule definition. The
+	 * instance is created with the first request and reused until the context is passivated.
+	 *
+	 * @param ruleDefinition
+	 *            {@link RuleDefinition} to be executed.
+	 * @return Pooled rule instance or <code>null</code> if the rule definition is not reusable.
+	 * @see RuleDefinition#isReusable()
+	 */
+	public Object getRuleInstance(RuleDefinition ruleDefinition) {
+		if (!ruleDefinition.isReusable()) {
+			return null;
+		}
+		Object instance = ruleInstances.get(ruleDefinition);
+		if (null == instance) {
+			instance = ruleDefinition.newInstance();
+			ruleInstances.put(ruleDefinition, instance);
+		}
+		return instance;
+	}
+
 	// -------------------------------------------------------------
 	// Methods: Accessors
 	// -------------------------------------------------------------
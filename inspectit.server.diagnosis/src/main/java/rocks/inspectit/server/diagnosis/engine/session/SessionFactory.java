@@ -62,7 +62,8 @@ public class SessionFactory<I, R> extends BasePoolableObjectFactory<Session<I, R
 
 	@Override
 	public Session<I, R> makeObject() throws Exception {
-		return new Session<>(ruleDefinitions, configuration.getResultCollector(), ReflectionUtils.tryInstantiate(configuration.getStorageClass()));
+		return new Session<>(ruleDefinitions, configuration.getResultCollector(), ReflectionUtils.tryInstantiate(configuration.getStorageClass()), configuration.getRuleExecutionPool(),
+				configuration.getRuleInputPartitionSize());
 	}
 
 	@Override
@@ -0,0 +1,63 @@
+package rocks.inspectit.server.diagnosis.service;
+
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Defines how the invocations waiting for the diagnosis are grouped into tenants of the
+ * {@link TenantFairQueue}. Each tenant gets the same share of the diagnosis, so that one noisy
+ * agent or application can not starve the diagnosis of the others.
+ *
+ * @author Ivan Senic
+ *
+ */
+public enum DiagnosisFairness {
+
+	/**
+	 * All invocations share one queue, they are diagnosed in the order they arrive.
+	 */
+	NONE {
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object getTenant(InvocationSequenceData invocation) {
+			return NONE;
+		}
+	},
+
+	/**
+	 * Invocations are fairly queued per agent.
+	 */
+	AGENT {
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object getTenant(InvocationSequenceData invocation) {
+			return Long.valueOf(invocation.getPlatformIdent());
+		}
+	},
+
+	/**
+	 * Invocations are fairly queued per application and business transaction.
+	 */
+	BUSINESS_TRANSACTION {
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object getTenant(InvocationSequenceData invocation) {
+			return Long.valueOf(((long) invocation.getApplicationId() << 32) | (invocation.getBusinessTransactionId() & 0xFFFFFFFFL));
+		}
+	};
+
+	/**
+	 * Returns the tenant the invocation belongs to.
+	 *
+	 * @param invocation
+	 *            Invocation to diagnose.
+	 * @return Tenant key, never <code>null</code>.
+	 */
+	public abstract Object getTenant(InvocationSequenceData invocation);
+
+}
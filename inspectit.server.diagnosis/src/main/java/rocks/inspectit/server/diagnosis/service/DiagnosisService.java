@@ -1,15 +1,16 @@
 package rocks.inspectit.server.diagnosis.service;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
@@ -28,6 +29,7 @@ import rocks.inspectit.server.diagnosis.engine.DiagnosisEngineException;
 import rocks.inspectit.server.diagnosis.engine.IDiagnosisEngine;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Rule;
 import rocks.inspectit.server.diagnosis.engine.session.ISessionCallback;
+import rocks.inspectit.server.diagnosis.service.rules.InvocationTreeView;
 import rocks.inspectit.server.diagnosis.service.rules.RuleConstants;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.util.ExecutorServiceUtils;
@@ -35,8 +37,13 @@ import rocks.inspectit.shared.cs.communication.data.diagnosis.ProblemOccurrence;
 
 /**
  * The implementation of the IDiagnosisService. First the {@link #DiagnosisEngine} is initialized.
- * Then the {@link #InvocationSequenceData} are offered to a BlockingQueue. The DiagnosisEngine
- * takes the InvocationSequenceData from the queue and analyzes them.
+ * Then the {@link #InvocationSequenceData} are offered to a {@link TenantFairQueue}. The
+ * dispatcher threads take the InvocationSequenceData from the queue and pass them to the
+ * DiagnosisEngine for the analysis.
+ * <p>
+ * Offering never blocks the caller: if the queue or the share of the tenant (as defined by the
+ * {@link DiagnosisFairness}) is full, the invocation is dropped and counted in the
+ * {@link DiagnosisServiceStatistics}.
  *
  * @author Alexander Wert, Christian Voegele, Ivan Senic
  *
@@ -60,24 +67,35 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	private static final boolean THREAD_DEAMON = false;
 
 	/**
-	 * Number of diagnosisService threads in the executor.
+	 * The logger of this class.
 	 */
-	private static final int NR_OF_EXECUTOR_THREADS = 1;
+	private static final Logger LOG = LoggerFactory.getLogger(DiagnosisService.class);
 
 	/**
-	 * The logger of this class.
+	 * Number of threads that runs within the diagnosis engine.
 	 */
-	private static final Logger LOG = LoggerFactory.getLogger(DiagnosisService.class);
+	private int numberOfSessionWorker;
 
 	/**
-	 * How long to wait before the queue gives up, in units of unit.
+	 * Number of threads taking the invocations from the queue and passing them to the engine.
 	 */
-	private long timeOut;
+	private int numberOfDispatcherThreads;
 
 	/**
-	 * Number of threads that runs within the diagnosis engine.
+	 * Defines the tenants the queue is fair to.
 	 */
-	private int numberOfSessionWorker;
+	private DiagnosisFairness fairness;
+
+	/**
+	 * Number of threads executing the rules of one invocation in parallel. Value of 0 means that
+	 * the rules are executed sequentially by the session worker.
+	 */
+	private int ruleExecutionParallelism;
+
+	/**
+	 * Pool executing the rules in parallel, <code>null</code> if rules are executed sequentially.
+	 */
+	private ForkJoinPool ruleExecutionPool;
 
 	/**
 	 * Consumer interface to perform operations in the problem occurrences after diagnose.
@@ -93,10 +111,10 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	 * The used queue for InvocationSequenceData which are the input for the diagnosis engine. The
 	 * queue will be initialized in the constructor method.
 	 */
-	private BlockingQueue<DiagnosisInput> queue;
+	private TenantFairQueue<DiagnosisInput> queue;
 
 	/**
-	 * Executor thread of DiagnosisService.
+	 * Executor with the dispatcher threads of DiagnosisService.
 	 */
 	private ExecutorService diagnosisServiceExecutor;
 
@@ -105,6 +123,58 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	 */
 	private final List<String> rulesPackages;
 
+	/**
+	 * Amount of invocations submitted for the diagnosis.
+	 */
+	private final AtomicLong submittedCount = new AtomicLong();
+
+	/**
+	 * Amount of invocations dropped because the queue was full.
+	 */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * Amount of invocations successfully diagnosed.
+	 */
+	private final AtomicLong analyzedCount = new AtomicLong();
+
+	/**
+	 * Amount of invocations the diagnosis failed for.
+	 */
+	private final AtomicLong failedCount = new AtomicLong();
+
+	/**
+	 * Amount of invocations taken from the queue.
+	 */
+	private final AtomicLong dequeuedCount = new AtomicLong();
+
+	/**
+	 * Sum of the time in nanoseconds the invocations taken from the queue waited in it.
+	 */
+	private final AtomicLong totalQueueLatency = new AtomicLong();
+
+	/**
+	 * Max time in nanoseconds an invocation waited in the queue.
+	 */
+	private final AtomicLong maxQueueLatency = new AtomicLong();
+
+	/**
+	 * Constructor for DiagnosisService with one dispatcher thread and no fairness between the
+	 * tenants.
+	 *
+	 * @param consumer
+	 *            Consumer interface in order to accept the data after successfully diagnose.
+	 * @param rulesPackages
+	 *            List of PackageNames
+	 * @param numberOfSessionWorker
+	 *            Number of parallel session worker
+	 * @param queueCapacity
+	 *            Capacity of the queue
+	 */
+	public DiagnosisService(Consumer<ProblemOccurrence> consumer, List<String> rulesPackages, int numberOfSessionWorker, int queueCapacity) {
+		this(consumer, rulesPackages, numberOfSessionWorker, 1, queueCapacity, queueCapacity, DiagnosisFairness.NONE);
+	}
+
 	/**
 	 * Constructor for DiagnosisService.
 	 *
@@ -114,18 +184,27 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	 *            List of PackageNames
 	 * @param numberOfSessionWorker
 	 *            Number of parallel session worker
-	 * @param timeOut
-	 *            Timeout of queue
+	 * @param numberOfDispatcherThreads
+	 *            Number of threads passing the queued invocations to the engine
 	 * @param queueCapacity
 	 *            Capacity of the queue
+	 * @param tenantQueueCapacity
+	 *            Capacity of the queue for one tenant
+	 * @param fairness
+	 *            Defines the tenants the queue is fair to
 	 */
-	public DiagnosisService(Consumer<ProblemOccurrence> consumer, List<String> rulesPackages, int numberOfSessionWorker, long timeOut, int queueCapacity) {
+	public DiagnosisService(Consumer<ProblemOccurrence> consumer, List<String> rulesPackages, int numberOfSessionWorker, int numberOfDispatcherThreads, int queueCapacity, int tenantQueueCapacity,
+			DiagnosisFairness fairness) {
+		if (numberOfDispatcherThreads <= 0) {
+			throw new IllegalArgumentException("Number of dispatcher threads must be positive.");
+		}
 		this.rulesPackages = rulesPackages;
 		this.numberOfSessionWorker = numberOfSessionWorker;
-		this.timeOut = timeOut;
-		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.numberOfDispatcherThreads = numberOfDispatcherThreads;
+		this.fairness = fairness;
+		this.queue = new TenantFairQueue<>(queueCapacity, tenantQueueCapacity);
 		ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(THREAD_NAME_PREFIX).setDaemon(THREAD_DEAMON).build();
-		this.diagnosisServiceExecutor = Executors.newFixedThreadPool(NR_OF_EXECUTOR_THREADS, threadFactory);
+		this.diagnosisServiceExecutor = Executors.newFixedThreadPool(numberOfDispatcherThreads, threadFactory);
 		this.problemOccurrenceConsumer = consumer;
 	}
 
@@ -134,12 +213,17 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	 */
 	@Override
 	public boolean diagnose(InvocationSequenceData invocation, double baseline) {
-		try {
-			return queue.offer(new DiagnosisInput(invocation, baseline), timeOut, TimeUnit.MILLISECONDS);
-		} catch (InterruptedException e) {
-			LOG.info("Specified waiting of time of BlockingQueue for DiagnosisService elapses before space is available");
-			return false;
+		DiagnosisInput diagnosisInput = new DiagnosisInput(invocation, baseline);
+		submittedCount.incrementAndGet();
+		if (queue.offer(fairness.getTenant(invocation), diagnosisInput)) {
+			return true;
 		}
+
+		long dropped = droppedCount.incrementAndGet();
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Diagnosis queue is full, invocation " + invocation.getId() + " will not be diagnosed (" + dropped + " dropped in total).");
+		}
+		return false;
 	}
 
 	/**
@@ -149,8 +233,13 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	public void run() {
 		try {
 			DiagnosisInput diagnosisInput = queue.take();
-			engine.analyze(diagnosisInput.getInvocation(), Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, diagnosisInput.getBaseline()));
+			updateQueueLatency(System.nanoTime() - diagnosisInput.getEnqueueTime());
+			Map<String, Object> sessionVariables = new HashMap<>(4);
+			sessionVariables.put(RuleConstants.DIAGNOSIS_VAR_BASELINE, diagnosisInput.getBaseline());
+			sessionVariables.put(RuleConstants.DIAGNOSIS_VAR_INVOCATION_TREE, InvocationTreeView.lazy(diagnosisInput.getInvocation()));
+			engine.analyze(diagnosisInput.getInvocation(), sessionVariables);
 		} catch (DiagnosisEngineException e) {
+			failedCount.incrementAndGet();
 			LOG.warn("During analyzing of DiagnosisEngine an exception occurred", e);
 		} catch (InterruptedException e) {
 			Thread.interrupted();
@@ -177,6 +266,10 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 		} else {
 			DiagnosisEngineConfiguration<InvocationSequenceData, List<ProblemOccurrence>> configuration = new DiagnosisEngineConfiguration<InvocationSequenceData, List<ProblemOccurrence>>();
 			configuration.setNumSessionWorkers(numberOfSessionWorker);
+			if (ruleExecutionParallelism > 0) {
+				ruleExecutionPool = new ForkJoinPool(ruleExecutionParallelism);
+				configuration.setRuleExecutionPool(ruleExecutionPool);
+			}
 			configuration.addRuleClasses(ruleClasses);
 			configuration.setResultCollector(new ProblemOccurrenceResultCollector());
 			configuration.addSessionCallback(new DelegatingResultHandler());
@@ -187,14 +280,31 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 				LOG.info("DiagnosisEngine could not be initialized.");
 				return false;
 			}
-			diagnosisServiceExecutor.execute(this);
+			for (int i = 0; i < numberOfDispatcherThreads; i++) {
+				diagnosisServiceExecutor.execute(this);
+			}
 			if (LOG.isInfoEnabled()) {
-				LOG.info("|-Diagnosis Service active...");
+				LOG.info("|-Diagnosis Service active with " + numberOfDispatcherThreads + " dispatcher thread(s) and " + fairness + " fairness...");
 			}
 			return true;
 		}
 	}
 
+	/**
+	 * Adds the queue latency of one invocation to the statistics.
+	 *
+	 * @param latency
+	 *            Time in nanoseconds the invocation waited in the queue.
+	 */
+	private void updateQueueLatency(long latency) {
+		dequeuedCount.incrementAndGet();
+		totalQueueLatency.addAndGet(latency);
+		long max = maxQueueLatency.get();
+		while ((latency > max) && !maxQueueLatency.compareAndSet(max, latency)) {
+			max = maxQueueLatency.get();
+		}
+	}
+
 	/**
 	 * This method derives the classes that represent the diagnosis rules.
 	 *
@@ -219,6 +329,16 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 		return ruleClasses;
 	}
 
+	/**
+	 * Sets {@link #ruleExecutionParallelism}. Must be set before the {@link #init()}.
+	 *
+	 * @param ruleExecutionParallelism
+	 *            New value for {@link #ruleExecutionParallelism}
+	 */
+	public void setRuleExecutionParallelism(int ruleExecutionParallelism) {
+		this.ruleExecutionParallelism = ruleExecutionParallelism;
+	}
+
 	/**
 	 * Checks whether the {@link DiagnosisService} is shut down.
 	 *
@@ -234,6 +354,21 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 	@Override
 	public void shutdown(boolean awaitShutdown) {
 		ExecutorServiceUtils.shutdownExecutor(diagnosisServiceExecutor, SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+		if (null != ruleExecutionPool) {
+			ExecutorServiceUtils.shutdownExecutor(ruleExecutionPool, SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+		}
+		if (LOG.isInfoEnabled()) {
+			LOG.info("|-Diagnosis Service shut down " + getStatistics());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public DiagnosisServiceStatistics getStatistics() {
+		return new DiagnosisServiceStatistics(submittedCount.get(), droppedCount.get(), analyzedCount.get(), failedCount.get(), queue.size(), dequeuedCount.get(), totalQueueLatency.get(),
+				maxQueueLatency.get());
 	}
 
 	/**
@@ -254,6 +389,11 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 		 */
 		private final double baseline;
 
+		/**
+		 * Value of {@link System#nanoTime()} when the input was created.
+		 */
+		private final long enqueueTime;
+
 		/**
 		 * Constructor for DiagnosisInput.
 		 *
@@ -272,6 +412,7 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 
 			this.invocation = invocation;
 			this.baseline = baseline;
+			this.enqueueTime = System.nanoTime();
 		}
 
 		/**
@@ -291,6 +432,15 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 		public double getBaseline() {
 			return baseline;
 		}
+
+		/**
+		 * Gets {@link #enqueueTime}.
+		 *
+		 * @return {@link #enqueueTime}
+		 */
+		public long getEnqueueTime() {
+			return enqueueTime;
+		}
 	}
 
 	/**
@@ -305,6 +455,7 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 		 */
 		@Override
 		public void onSuccess(List<ProblemOccurrence> result) {
+			analyzedCount.incrementAndGet();
 			for (ProblemOccurrence problemOccurrence : result) {
 				problemOccurrenceConsumer.accept(problemOccurrence);
 			}
@@ -315,6 +466,7 @@ public class DiagnosisService implements IDiagnosisService, Runnable {
 		 */
 		@Override
 		public void onFailure(Throwable t) {
+			failedCount.incrementAndGet();
 			LOG.warn("Failed conducting diagnosis!", t);
 		}
 	}
@@ -0,0 +1,178 @@
+package rocks.inspectit.server.diagnosis.service;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Snapshot of the {@link DiagnosisService} counters. The counters describe how many invocations
+ * were submitted to the diagnosis, how many of them were dropped because the queue was full and
+ * how long the diagnosed invocations waited in the queue.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class DiagnosisServiceStatistics {
+
+	/**
+	 * Amount of invocations submitted for the diagnosis.
+	 */
+	private final long submittedCount;
+
+	/**
+	 * Amount of invocations dropped because the queue was full.
+	 */
+	private final long droppedCount;
+
+	/**
+	 * Amount of invocations successfully diagnosed.
+	 */
+	private final long analyzedCount;
+
+	/**
+	 * Amount of invocations the diagnosis failed for.
+	 */
+	private final long failedCount;
+
+	/**
+	 * Amount of invocations waiting in the queue.
+	 */
+	private final int queuedCount;
+
+	/**
+	 * Amount of invocations taken from the queue.
+	 */
+	private final long dequeuedCount;
+
+	/**
+	 * Sum of the time in nanoseconds the invocations taken from the queue waited in it.
+	 */
+	private final long totalQueueLatency;
+
+	/**
+	 * Max time in nanoseconds an invocation waited in the queue.
+	 */
+	private final long maxQueueLatency;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param submittedCount
+	 *            Amount of invocations submitted for the diagnosis.
+	 * @param droppedCount
+	 *            Amount of invocations dropped because the queue was full.
+	 * @param analyzedCount
+	 *            Amount of invocations successfully diagnosed.
+	 * @param failedCount
+	 *            Amount of invocations the diagnosis failed for.
+	 * @param queuedCount
+	 *            Amount of invocations waiting in the queue.
+	 * @param dequeuedCount
+	 *            Amount of invocations taken from the queue.
+	 * @param totalQueueLatency
+	 *            Sum of the time in nanoseconds the invocations taken from the queue waited in it.
+	 * @param maxQueueLatency
+	 *            Max time in nanoseconds an invocation waited in the queue.
+	 */
+	public DiagnosisServiceStatistics(long submittedCount, long droppedCount, long analyzedCount, long failedCount, int queuedCount, long dequeuedCount, long totalQueueLatency,
+			long maxQueueLatency) {
+		this.submittedCount = submittedCount;
+		this.droppedCount = droppedCount;
+		this.analyzedCount = analyzedCount;
+		this.failedCount = failedCount;
+		this.queuedCount = queuedCount;
+		this.dequeuedCount = dequeuedCount;
+		this.totalQueueLatency = totalQueueLatency;
+		this.maxQueueLatency = maxQueueLatency;
+	}
+
+	/**
+	 * Gets {@link #submittedCount}.
+	 *
+	 * @return {@link #submittedCount}
+	 */
+	public long getSubmittedCount() {
+		return this.submittedCount;
+	}
+
+	/**
+	 * Gets {@link #droppedCount}.
+	 *
+	 * @return {@link #droppedCount}
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount;
+	}
+
+	/**
+	 * Gets {@link #analyzedCount}.
+	 *
+	 * @return {@link #analyzedCount}
+	 */
+	public long getAnalyzedCount() {
+		return this.analyzedCount;
+	}
+
+	/**
+	 * Gets {@link #failedCount}.
+	 *
+	 * @return {@link #failedCount}
+	 */
+	public long getFailedCount() {
+		return this.failedCount;
+	}
+
+	/**
+	 * Gets {@link #queuedCount}.
+	 *
+	 * @return {@link #queuedCount}
+	 */
+	public int getQueuedCount() {
+		return this.queuedCount;
+	}
+
+	/**
+	 * Gets {@link #dequeuedCount}.
+	 *
+	 * @return {@link #dequeuedCount}
+	 */
+	public long getDequeuedCount() {
+		return this.dequeuedCount;
+	}
+
+	/**
+	 * Returns the average time in milliseconds the invocations taken from the queue waited in it.
+	 *
+	 * @return Average queue latency in milliseconds.
+	 */
+	public double getAverageQueueLatency() {
+		if (0 == dequeuedCount) {
+			return 0d;
+		}
+		return (totalQueueLatency / (double) dequeuedCount) / 1000000d;
+	}
+
+	/**
+	 * Returns the max time in milliseconds an invocation waited in the queue.
+	 *
+	 * @return Max queue latency in milliseconds.
+	 */
+	public double getMaxQueueLatency() {
+		return maxQueueLatency / 1000000d;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("submittedCount", submittedCount);
+		toStringBuilder.append("droppedCount", droppedCount);
+		toStringBuilder.append("analyzedCount", analyzedCount);
+		toStringBuilder.append("failedCount", failedCount);
+		toStringBuilder.append("queuedCount", queuedCount);
+		toStringBuilder.append("averageQueueLatency", getAverageQueueLatency());
+		toStringBuilder.append("maxQueueLatency", getMaxQueueLatency());
+		return toStringBuilder.toString();
+	}
+
+}
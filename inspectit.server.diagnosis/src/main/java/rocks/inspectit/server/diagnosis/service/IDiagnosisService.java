@@ -19,8 +19,8 @@ public interface IDiagnosisService {
 	 *            InvocationSequenceData to diagnose
 	 * @param baseline
 	 *            baseline defines the minimum duration of InvocationSequenceData
-	 * @return true if successful, or false if the specified waiting time elapses before space is
-	 *         available
+	 * @return true if the invocation is queued for the diagnosis, or false if it was dropped
+	 *         because there is no space available in the queue
 	 */
 	boolean diagnose(InvocationSequenceData invocation, double baseline);
 
@@ -31,4 +31,11 @@ public interface IDiagnosisService {
 	 *            The flat to indicate if method will block until shutdown is complete.
 	 */
 	void shutdown(boolean awaitShutdown);
+
+	/**
+	 * Returns the snapshot of the submission, drop and queue latency counters of the service.
+	 *
+	 * @return {@link DiagnosisServiceStatistics}
+	 */
+	DiagnosisServiceStatistics getStatistics();
 }
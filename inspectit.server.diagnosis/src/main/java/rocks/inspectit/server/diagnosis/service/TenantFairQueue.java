@@ -0,0 +1,202 @@
+package rocks.inspectit.server.diagnosis.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue that keeps a separate FIFO sub-queue for each tenant and hands out the elements
+ * in the round-robin order of the tenants. A tenant that offers much more elements than others
+ * can only fill its own sub-queue, thus it can not starve the other tenants.
+ * <p>
+ * Offering never blocks: the element is rejected if the sub-queue of the tenant or the complete
+ * queue is full. Taking blocks until an element is available.
+ *
+ * @param <E>
+ *            Type of the elements.
+ * @author Ivan Senic
+ *
+ */
+public class TenantFairQueue<E> {
+
+	/**
+	 * Max amount of elements in the queue.
+	 */
+	private final int capacity;
+
+	/**
+	 * Max amount of elements of one tenant in the queue.
+	 */
+	private final int tenantCapacity;
+
+	/**
+	 * Sub-queues of the tenants having elements in the queue.
+	 */
+	private final Map<Object, Queue<E>> tenantQueues = new HashMap<>();
+
+	/**
+	 * Tenants having elements in the queue in the order they will be served.
+	 */
+	private final Queue<Object> tenants = new ArrayDeque<>();
+
+	/**
+	 * Lock guarding the queue.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Condition signaled when elements are added.
+	 */
+	private final Condition notEmpty = lock.newCondition();
+
+	/**
+	 * Amount of elements in the queue.
+	 */
+	private int size;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param capacity
+	 *            Max amount of elements in the queue.
+	 * @param tenantCapacity
+	 *            Max amount of elements of one tenant in the queue.
+	 */
+	public TenantFairQueue(int capacity, int tenantCapacity) {
+		if ((capacity <= 0) || (tenantCapacity <= 0)) {
+			throw new IllegalArgumentException("Queue capacities must be positive.");
+		}
+		this.capacity = capacity;
+		this.tenantCapacity = Math.min(capacity, tenantCapacity);
+	}
+
+	/**
+	 * Adds the element to the sub-queue of the tenant if there is space available.
+	 *
+	 * @param tenant
+	 *            Tenant the element belongs to.
+	 * @param element
+	 *            Element to add.
+	 * @return <code>true</code> if element was added, <code>false</code> if the queue or the
+	 *         sub-queue of the tenant is full.
+	 */
+	public boolean offer(Object tenant, E element) {
+		lock.lock();
+		try {
+			if (size >= capacity) {
+				return false;
+			}
+			Queue<E> tenantQueue = tenantQueues.get(tenant);
+			if (null == tenantQueue) {
+				tenantQueue = new ArrayDeque<>();
+				tenantQueues.put(tenant, tenantQueue);
+				tenants.add(tenant);
+			} else if (tenantQueue.size() >= tenantCapacity) {
+				return false;
+			}
+			tenantQueue.add(element);
+			size++;
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the next element, waiting if the queue is empty.
+	 *
+	 * @return Next element.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	public E take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (0 == size) {
+				notEmpty.await();
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the next element, waiting up to the given time if the queue is empty.
+	 *
+	 * @param timeout
+	 *            Time to wait.
+	 * @param unit
+	 *            Unit of the time.
+	 * @return Next element or <code>null</code> if no element became available.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (0 == size) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the amount of elements in the queue.
+	 *
+	 * @return Amount of elements in the queue.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the amount of tenants having elements in the queue.
+	 *
+	 * @return Amount of tenants having elements in the queue.
+	 */
+	public int getTenantCount() {
+		lock.lock();
+		try {
+			return tenants.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the head of the sub-queue of the next tenant. Tenant is moved to the end of the
+	 * round if it has more elements. Must be called with the lock held and a non-empty queue.
+	 *
+	 * @return Element.
+	 */
+	private E dequeue() {
+		Object tenant = tenants.poll();
+		Queue<E> tenantQueue = tenantQueues.get(tenant);
+		E element = tenantQueue.poll();
+		if (tenantQueue.isEmpty()) {
+			tenantQueues.remove(tenant);
+		} else {
+			tenants.add(tenant);
+		}
+		size--;
+		return element;
+	}
+}
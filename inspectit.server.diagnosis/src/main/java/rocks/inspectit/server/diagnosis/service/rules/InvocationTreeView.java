@@ -0,0 +1,377 @@
+package rocks.inspectit.server.diagnosis.service.rules;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+import rocks.inspectit.server.diagnosis.service.aggregation.DiagnosisDataAggregator;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.cs.communication.data.InvocationSequenceDataHelper;
+
+/**
+ * Flat, read-only view of the invocation tree of an {@link InvocationSequenceData}. The tree is
+ * traversed once and the invocations are stored in the top-down order of the
+ * {@link InvocationSequenceDataIterator}. For each invocation the parent index, the depth, the end
+ * of its sub-tree, the exclusive duration and the id of the aggregation key are kept in primitive
+ * arrays, so that the rules can work with indexes instead of walking the tree again.
+ * <p>
+ * The sub-tree of the invocation at index <code>i</code> are all invocations in the index range
+ * <code>[i, getSubtreeEnd(i))</code>. Aggregation keys are the ones of the
+ * {@link DiagnosisDataAggregator}, mapped to the dense ids starting from <code>0</code>.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class InvocationTreeView {
+
+	/**
+	 * Initial capacity of the arrays if the size of the tree is not known.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * Aggregator to determine the aggregation keys.
+	 */
+	private static final DiagnosisDataAggregator DIAGNOSIS_DATA_AGGREGATOR = DiagnosisDataAggregator.getInstance();
+
+	/**
+	 * Invocations in the top-down order.
+	 */
+	private InvocationSequenceData[] invocations;
+
+	/**
+	 * Index of the parent invocation, <code>-1</code> for the root.
+	 */
+	private int[] parents;
+
+	/**
+	 * Depth of the invocation, <code>0</code> for the root of the tree.
+	 */
+	private int[] depths;
+
+	/**
+	 * Index after the last invocation in the sub-tree of the invocation.
+	 */
+	private int[] subtreeEnds;
+
+	/**
+	 * Exclusive duration of the invocation or <code>0</code> if not available.
+	 */
+	private double[] exclusiveDurations;
+
+	/**
+	 * If the exclusive time data of the invocation is available.
+	 */
+	private boolean[] exclusiveTimeAvailable;
+
+	/**
+	 * Id of the aggregation key of the invocation.
+	 */
+	private int[] aggregationKeyIds;
+
+	/**
+	 * Amount of invocations in the view.
+	 */
+	private int size;
+
+	/**
+	 * Index of each invocation.
+	 */
+	private final Map<InvocationSequenceData, Integer> indexes;
+
+	/**
+	 * Ids of the aggregation keys.
+	 */
+	private final Map<Object, Integer> aggregationKeys = new HashMap<>();
+
+	/**
+	 * Creates the view of the complete tree the given invocation belongs to. If the invocation is
+	 * not reachable from the root of the tree, only the sub-tree of the invocation is included.
+	 *
+	 * @param invocation
+	 *            Any invocation of the tree.
+	 */
+	public InvocationTreeView(InvocationSequenceData invocation) {
+		if (null == invocation) {
+			throw new IllegalArgumentException("Cannot create view on a null invocation sequence.");
+		}
+
+		InvocationSequenceData root = invocation;
+		int depth = 0;
+		while (null != root.getParentSequence()) {
+			root = root.getParentSequence();
+			depth++;
+		}
+
+		int capacity = (int) Math.min(Math.max(root.getChildCount() + 1, 1), INITIAL_CAPACITY);
+		invocations = new InvocationSequenceData[capacity];
+		parents = new int[capacity];
+		depths = new int[capacity];
+		subtreeEnds = new int[capacity];
+		exclusiveDurations = new double[capacity];
+		exclusiveTimeAvailable = new boolean[capacity];
+		aggregationKeyIds = new int[capacity];
+		indexes = new IdentityHashMap<>(capacity);
+
+		build(root, 0);
+		if (!contains(invocation)) {
+			size = 0;
+			indexes.clear();
+			aggregationKeys.clear();
+			build(invocation, depth);
+		}
+	}
+
+	/**
+	 * Returns the supplier creating the view of the given invocation when first needed and
+	 * returning the same view afterwards. Can be safely shared between threads.
+	 *
+	 * @param invocation
+	 *            Any invocation of the tree.
+	 * @return Lazy view supplier.
+	 */
+	public static Supplier<InvocationTreeView> lazy(final InvocationSequenceData invocation) {
+		return Suppliers.memoize(new Supplier<InvocationTreeView>() {
+			@Override
+			public InvocationTreeView get() {
+				return new InvocationTreeView(invocation);
+			}
+		});
+	}
+
+	/**
+	 * Returns the shared view if it contains the given invocation, otherwise creates a new view
+	 * for the tree of the invocation.
+	 *
+	 * @param sharedView
+	 *            Supplier of the shared view, can be <code>null</code>.
+	 * @param invocation
+	 *            Invocation the view must contain.
+	 * @return View containing the invocation.
+	 */
+	public static InvocationTreeView of(Supplier<InvocationTreeView> sharedView, InvocationSequenceData invocation) {
+		if (null != sharedView) {
+			InvocationTreeView view = sharedView.get();
+			if ((null != view) && view.contains(invocation)) {
+				return view;
+			}
+		}
+		return new InvocationTreeView(invocation);
+	}
+
+	/**
+	 * Traverses the tree top-down without recursion and fills the arrays.
+	 *
+	 * @param root
+	 *            Root of the tree.
+	 * @param rootDepth
+	 *            Depth of the root.
+	 */
+	private void build(InvocationSequenceData root, int rootDepth) {
+		int[] stack = new int[INITIAL_CAPACITY];
+		int[] nextChild = new int[INITIAL_CAPACITY];
+		int stackSize = 1;
+		stack[0] = add(root, -1, rootDepth);
+
+		while (stackSize > 0) {
+			int current = stack[stackSize - 1];
+			List<InvocationSequenceData> children = invocations[current].getNestedSequences();
+			int childIndex = nextChild[stackSize - 1];
+			if ((null != children) && (childIndex < children.size())) {
+				nextChild[stackSize - 1]++;
+				int child = add(children.get(childIndex), current, depths[current] + 1);
+				if (stackSize == stack.length) {
+					stack = Arrays.copyOf(stack, stackSize << 1);
+					nextChild = Arrays.copyOf(nextChild, stackSize << 1);
+				}
+				stack[stackSize] = child;
+				nextChild[stackSize] = 0;
+				stackSize++;
+			} else {
+				subtreeEnds[current] = size;
+				stackSize--;
+			}
+		}
+	}
+
+	/**
+	 * Adds one invocation to the view.
+	 *
+	 * @param invocation
+	 *            Invocation to add.
+	 * @param parent
+	 *            Index of the parent.
+	 * @param depth
+	 *            Depth of the invocation.
+	 * @return Index of the added invocation.
+	 */
+	private int add(InvocationSequenceData invocation, int parent, int depth) {
+		if (size == invocations.length) {
+			int capacity = size << 1;
+			invocations = Arrays.copyOf(invocations, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			depths = Arrays.copyOf(depths, capacity);
+			subtreeEnds = Arrays.copyOf(subtreeEnds, capacity);
+			exclusiveDurations = Arrays.copyOf(exclusiveDurations, capacity);
+			exclusiveTimeAvailable = Arrays.copyOf(exclusiveTimeAvailable, capacity);
+			aggregationKeyIds = Arrays.copyOf(aggregationKeyIds, capacity);
+		}
+
+		int index = size++;
+		invocations[index] = invocation;
+		parents[index] = parent;
+		depths[index] = depth;
+		indexes.put(invocation, index);
+
+		TimerData timerData = InvocationSequenceDataHelper.getTimerDataOrSQLData(invocation);
+		exclusiveTimeAvailable[index] = (null != timerData) && timerData.isExclusiveTimeDataAvailable();
+		exclusiveDurations[index] = exclusiveTimeAvailable[index] ? timerData.getExclusiveDuration() : 0d;
+
+		Object key = DIAGNOSIS_DATA_AGGREGATOR.getAggregationKey(invocation);
+		Integer keyId = aggregationKeys.get(key);
+		if (null == keyId) {
+			keyId = aggregationKeys.size();
+			aggregationKeys.put(key, keyId);
+		}
+		aggregationKeyIds[index] = keyId;
+		return index;
+	}
+
+	/**
+	 * Returns the amount of invocations in the view.
+	 *
+	 * @return Amount of invocations in the view.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns if the invocation is part of the view.
+	 *
+	 * @param invocation
+	 *            Invocation.
+	 * @return <code>true</code> if the invocation is part of the view.
+	 */
+	public boolean contains(InvocationSequenceData invocation) {
+		return indexes.containsKey(invocation);
+	}
+
+	/**
+	 * Returns the index of the invocation.
+	 *
+	 * @param invocation
+	 *            Invocation.
+	 * @return Index of the invocation or <code>-1</code> if the invocation is not part of the
+	 *         view.
+	 */
+	public int indexOf(InvocationSequenceData invocation) {
+		Integer index = indexes.get(invocation);
+		return (null == index) ? -1 : index.intValue();
+	}
+
+	/**
+	 * Returns the invocation at the given index.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return Invocation.
+	 */
+	public InvocationSequenceData getInvocation(int index) {
+		return invocations[index];
+	}
+
+	/**
+	 * Returns the index of the parent invocation.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return Index of the parent or <code>-1</code> for the root.
+	 */
+	public int getParent(int index) {
+		return parents[index];
+	}
+
+	/**
+	 * Returns the depth of the invocation in the tree.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return Depth, <code>0</code> for the root of the tree.
+	 */
+	public int getDepth(int index) {
+		return depths[index];
+	}
+
+	/**
+	 * Returns the index after the last invocation in the sub-tree of the invocation.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return Sub-tree end index (exclusive).
+	 */
+	public int getSubtreeEnd(int index) {
+		return subtreeEnds[index];
+	}
+
+	/**
+	 * Returns the exclusive duration of the invocation.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return Exclusive duration or <code>0</code> if not available.
+	 */
+	public double getExclusiveDuration(int index) {
+		return exclusiveDurations[index];
+	}
+
+	/**
+	 * Returns if the exclusive time data of the invocation is available.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return If the exclusive time data is available.
+	 */
+	public boolean isExclusiveTimeAvailable(int index) {
+		return exclusiveTimeAvailable[index];
+	}
+
+	/**
+	 * Returns the id of the aggregation key of the invocation.
+	 *
+	 * @param index
+	 *            Index.
+	 * @return Aggregation key id.
+	 */
+	public int getAggregationKeyId(int index) {
+		return aggregationKeyIds[index];
+	}
+
+	/**
+	 * Returns the id of the given aggregation key.
+	 *
+	 * @param aggregationKey
+	 *            Aggregation key as provided by the {@link DiagnosisDataAggregator}.
+	 * @return Aggregation key id or <code>-1</code> if no invocation in the view has such key.
+	 */
+	public int getAggregationKeyId(Object aggregationKey) {
+		Integer keyId = aggregationKeys.get(aggregationKey);
+		return (null == keyId) ? -1 : keyId.intValue();
+	}
+
+	/**
+	 * Returns the amount of distinct aggregation keys in the view.
+	 *
+	 * @return Amount of distinct aggregation keys.
+	 */
+	public int getAggregationKeyCount() {
+		return aggregationKeys.size();
+	}
+
+}
@@ -11,6 +11,10 @@ public interface RuleConstants {
 	 * VAR_BASELINE name.
 	 */
 	String DIAGNOSIS_VAR_BASELINE = "baseline";
+	/**
+	 * VAR_INVOCATION_TREE name.
+	 */
+	String DIAGNOSIS_VAR_INVOCATION_TREE = "invocationTree";
 	/**
 	 * TAG_GLOBAL_CONTEXT name.
 	 */
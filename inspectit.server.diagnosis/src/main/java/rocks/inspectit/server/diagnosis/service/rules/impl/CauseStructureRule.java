@@ -1,16 +1,15 @@
 package rocks.inspectit.server.diagnosis.service.rules.impl;
 
-import java.util.Stack;
+import com.google.common.base.Supplier;
 
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Action;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Rule;
+import rocks.inspectit.server.diagnosis.engine.rule.annotation.SessionVariable;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.TagValue;
 import rocks.inspectit.server.diagnosis.service.aggregation.AggregatedDiagnosisData;
-import rocks.inspectit.server.diagnosis.service.aggregation.DiagnosisDataAggregator;
 import rocks.inspectit.server.diagnosis.service.data.CauseCluster;
-import rocks.inspectit.server.diagnosis.service.rules.InvocationSequenceDataIterator;
+import rocks.inspectit.server.diagnosis.service.rules.InvocationTreeView;
 import rocks.inspectit.server.diagnosis.service.rules.RuleConstants;
-import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.cs.communication.data.diagnosis.CauseStructure;
 import rocks.inspectit.shared.cs.communication.data.diagnosis.CauseStructure.CauseType;
 
@@ -29,11 +28,6 @@ public class CauseStructureRule {
 	 */
 	private static final int MAX_CALLS_TO_CHECK = 100;
 
-	/**
-	 * DiagnosisDataAggregator is needed to determine key of InvocationSequenceData objects.
-	 */
-	private DiagnosisDataAggregator diagnosisDataAggregator = DiagnosisDataAggregator.getInstance();
-
 	/**
 	 * Injection of the <code>Root Causes</code>.
 	 */
@@ -46,6 +40,12 @@ public class CauseStructureRule {
 	@TagValue(type = RuleConstants.DIAGNOSIS_TAG_PROBLEM_CONTEXT)
 	private CauseCluster problemContext;
 
+	/**
+	 * Shared view of the analyzed invocation tree.
+	 */
+	@SessionVariable(name = RuleConstants.DIAGNOSIS_VAR_INVOCATION_TREE, optional = true)
+	Supplier<InvocationTreeView> invocationTree;
+
 	/**
 	 * Rule execution.
 	 *
@@ -75,23 +75,25 @@ public class CauseStructureRule {
 	 */
 	private int calculateMaxRecursionDepth() {
 		// The Root Causes can only be in the invocation tree with the Problem Context as root node.
-		InvocationSequenceDataIterator iterator = new InvocationSequenceDataIterator(problemContext.getCommonContext());
+		InvocationTreeView view = InvocationTreeView.of(invocationTree, problemContext.getCommonContext());
+		int rootCauseKeyId = view.getAggregationKeyId(rootCause.getAggregationKey());
 
 		// Checks if a Root Cause method is called by another Root Cause method. If so, there is
 		// recursion.
-		Stack<Integer> recursionStack = new Stack<>();
+		int[] recursionStack = new int[MAX_CALLS_TO_CHECK];
+		int recursionStackSize = 0;
 		int maxRecursionDepth = 0;
 		int maxIterationsToCheck = 0;
-		while (iterator.hasNext() && (maxIterationsToCheck < MAX_CALLS_TO_CHECK) && (maxRecursionDepth < 2)) {
-			InvocationSequenceData invocation = iterator.next();
-			if (!recursionStack.isEmpty() && (recursionStack.peek() >= iterator.currentDepth())) {
-				recursionStack.pop();
+		for (int i = view.indexOf(problemContext.getCommonContext()); (i < view.size()) && (maxIterationsToCheck < MAX_CALLS_TO_CHECK) && (maxRecursionDepth < 2); i++) {
+			int depth = view.getDepth(i);
+			if ((recursionStackSize > 0) && (recursionStack[recursionStackSize - 1] >= depth)) {
+				recursionStackSize--;
 			}
 
-			if (isCauseInvocation(invocation)) {
-				recursionStack.push(iterator.currentDepth());
-				if (recursionStack.size() > maxRecursionDepth) {
-					maxRecursionDepth = recursionStack.size();
+			if (view.getAggregationKeyId(i) == rootCauseKeyId) {
+				recursionStack[recursionStackSize++] = depth;
+				if (recursionStackSize > maxRecursionDepth) {
+					maxRecursionDepth = recursionStackSize;
 				}
 				maxIterationsToCheck++;
 			}
@@ -99,20 +101,4 @@ public class CauseStructureRule {
 		return maxRecursionDepth;
 	}
 
-	/**
-	 * Checks whether the passed {@link #InvocationSequenceData} is a <code>Root
-	 * Cause</code>.
-	 *
-	 * @param invocation
-	 *            The {@link InvocationSequenceData} that is investigated.
-	 * @return Whether the {@link InvocationSequenceData} is a <code>Root Cause</code>.
-	 */
-	private boolean isCauseInvocation(InvocationSequenceData invocation) {
-		Object key = diagnosisDataAggregator.getAggregationKey(invocation);
-		if (key.equals(rootCause.getAggregationKey())) {
-			return true;
-		}
-		return false;
-	}
-
 }
@@ -61,7 +61,7 @@ public class ProblemCauseRule {
 	/**
 	 * Instance of a {@link DiagnosisDataAggregator} to aggregate the invocations to the rootCause.
 	 */
-	private DiagnosisDataAggregator diagnosisDataAggregator = DiagnosisDataAggregator.getInstance();
+	private final DiagnosisDataAggregator diagnosisDataAggregator = DiagnosisDataAggregator.getInstance();
 
 	/**
 	 * Rule execution.
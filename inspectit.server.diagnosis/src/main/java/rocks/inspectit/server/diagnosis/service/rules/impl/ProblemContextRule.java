@@ -1,15 +1,19 @@
 package rocks.inspectit.server.diagnosis.service.rules.impl;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import com.google.common.base.Supplier;
+
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Action;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Rule;
+import rocks.inspectit.server.diagnosis.engine.rule.annotation.SessionVariable;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.TagValue;
 import rocks.inspectit.server.diagnosis.service.aggregation.AggregatedDiagnosisData;
 import rocks.inspectit.server.diagnosis.service.data.CauseCluster;
 import rocks.inspectit.server.diagnosis.service.data.DiagnosisHelper;
-import rocks.inspectit.server.diagnosis.service.rules.InvocationSequenceDataIterator;
+import rocks.inspectit.server.diagnosis.service.rules.InvocationTreeView;
 import rocks.inspectit.server.diagnosis.service.rules.RuleConstants;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 
@@ -37,11 +41,6 @@ public class ProblemContextRule {
 	 */
 	private static final double PROPORTION = 0.8;
 
-	/**
-	 * In case the clustering does not find a significant cluster the clustering will be stopped.
-	 */
-	private static boolean stopClustering = false;
-
 	/**
 	 * Injection of the <code>Global Context</code>.
 	 */
@@ -55,6 +54,12 @@ public class ProblemContextRule {
 	@TagValue(type = RuleConstants.DIAGNOSIS_TAG_TIME_WASTING_OPERATIONS)
 	private AggregatedDiagnosisData timeWastingOperation;
 
+	/**
+	 * Shared view of the analyzed invocation tree.
+	 */
+	@SessionVariable(name = RuleConstants.DIAGNOSIS_VAR_INVOCATION_TREE, optional = true)
+	Supplier<InvocationTreeView> invocationTree;
+
 	/**
 	 * Rule execution.
 	 *
@@ -69,7 +74,8 @@ public class ProblemContextRule {
 		List<InvocationSequenceData> causeInvocations = timeWastingOperation.getRawInvocationsSequenceElements();
 
 		if (causeInvocations.size() > 1) {
-			return getSignificantCluster(populateCauseCluster());
+			Clustering clustering = new Clustering(InvocationTreeView.of(invocationTree, globalContext));
+			return clustering.getSignificantCluster(causeInvocations);
 		} else if (causeInvocations.size() == 1) {
 			return getCauseCluster(causeInvocations.get(0));
 		} else {
@@ -98,108 +104,161 @@ public class ProblemContextRule {
 	}
 
 	/**
-	 * Creates list with clusters. For each InvocationSequenceData in the Time Wasting Operation a
-	 * cluster is build initially.
+	 * Clustering of the cause invocations of one <code>Time Wasting Operation</code>. Clusters are
+	 * kept in the top-down order of their common contexts. The index of the common context in the
+	 * {@link InvocationTreeView} and the summed up exclusive time are kept with each cluster, so
+	 * that a clustering step does not need to traverse the invocation tree or the cause
+	 * invocations again.
+	 *
+	 * @author Ivan Senic
 	 *
-	 * @return Returns a list of causeCluster.
 	 */
-	private List<CauseCluster> populateCauseCluster() {
-		List<InvocationSequenceData> causeInvocations = timeWastingOperation.getRawInvocationsSequenceElements();
-		List<CauseCluster> causeClusters = new LinkedList<>();
+	private final class Clustering {
 
-		for (InvocationSequenceData invocation : causeInvocations) {
-			causeClusters.add(new CauseCluster(invocation));
-		}
-		return causeClusters;
-	}
+		/**
+		 * View of the invocation tree.
+		 */
+		private final InvocationTreeView view;
 
-	/**
-	 * Gets the most significant cluster in the list.
-	 *
-	 * @param causeClusters
-	 *            List of clusters to get the most significant.
-	 * @return Returns the most significant cluster in the list.
-	 */
-	private CauseCluster getSignificantCluster(List<CauseCluster> causeClusters) {
-		// Checks if there is already a cluster with higher duration ratio
-		// from overallExclusiveDuration.
-		CauseCluster significantCluster = getHighDurationCluster(causeClusters, timeWastingOperation.getAggregatedDiagnosisTimerData().getExclusiveDuration());
-
-		// Iterates as long as there is no significantCluster.
-		while ((null == significantCluster) && !stopClustering) {
-			calculateDistancesToNextCluster(causeClusters);
-			causeClusters = mergeClusters(causeClusters);
-			significantCluster = getHighDurationCluster(causeClusters, timeWastingOperation.getAggregatedDiagnosisTimerData().getExclusiveDuration());
+		/**
+		 * In case the clustering does not find a significant cluster the clustering will be
+		 * stopped.
+		 */
+		private boolean stopClustering;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param view
+		 *            View of the invocation tree.
+		 */
+		Clustering(InvocationTreeView view) {
+			this.view = view;
 		}
 
-		// This rule does not return the Problem Context directly, but the significant cluster.
-		// The Problem Context is the deepest node in the invocation tree that subsumes all
-		// InvocationSequenceData the significant cluster holds and can be accessed via
-		// cluster.getCommonContext().
-		return significantCluster;
-	}
+		/**
+		 * Gets the most significant cluster for the cause invocations. For each cause invocation
+		 * a cluster is build initially, clusters are merged until there is one with a significant
+		 * high exclusive time.
+		 *
+		 * @param causeInvocations
+		 *            Cause invocations of the <code>Time Wasting Operation</code>.
+		 * @return Returns the most significant cluster.
+		 */
+		CauseCluster getSignificantCluster(List<InvocationSequenceData> causeInvocations) {
+			List<IndexedCluster> causeClusters = new ArrayList<>(causeInvocations.size());
+			for (InvocationSequenceData invocation : causeInvocations) {
+				int index = view.indexOf(invocation);
+				double exclusiveDuration = (index >= 0) ? view.getExclusiveDuration(index) : DiagnosisHelper.getExclusiveDuration(invocation);
+				causeClusters.add(new IndexedCluster(new CauseCluster(invocation), index, exclusiveDuration));
+			}
 
-	/**
-	 * Identifies after each merge if there is a {@link #CauseCluster} with a significant high
-	 * exclusive time. If so, the {@link #CauseCluster} is returned. Otherwise returns
-	 * <code>null</code>.
-	 *
-	 * @param causeClusters
-	 *            List with clusters.
-	 * @param overallExclusiveDuration
-	 *            The summed up exclusive time of all {@link InvocationSequenceData} the
-	 *            <code>Time Wasting Operation</code> holds.
-	 * @return Significant cluster.
-	 */
-	private CauseCluster getHighDurationCluster(List<CauseCluster> causeClusters, double overallExclusiveDuration) {
-		CauseCluster maxExclusiveDurationCluster = causeClusters.get(0);
-		double maxExclusiveDurationSum = 0;
-		for (CauseCluster cluster : causeClusters) {
-			double exclusiveDurationSum = 0.0;
-			for (InvocationSequenceData invocation : cluster.getCauseInvocations()) {
-				exclusiveDurationSum += DiagnosisHelper.getExclusiveDuration(invocation);
+			double overallExclusiveDuration = timeWastingOperation.getAggregatedDiagnosisTimerData().getExclusiveDuration();
+			// Checks if there is already a cluster with higher duration ratio
+			// from overallExclusiveDuration.
+			IndexedCluster significantCluster = getHighDurationCluster(causeClusters, overallExclusiveDuration);
+
+			// Iterates as long as there is no significantCluster.
+			while ((null == significantCluster) && !stopClustering) {
+				calculateDistancesToNextCluster(causeClusters);
+				causeClusters = mergeClusters(causeClusters);
+				significantCluster = getHighDurationCluster(causeClusters, overallExclusiveDuration);
 			}
 
-			if (exclusiveDurationSum > maxExclusiveDurationSum) {
-				maxExclusiveDurationSum = exclusiveDurationSum;
-				maxExclusiveDurationCluster = cluster;
+			// This rule does not return the Problem Context directly, but the significant cluster.
+			// The Problem Context is the deepest node in the invocation tree that subsumes all
+			// InvocationSequenceData the significant cluster holds and can be accessed via
+			// cluster.getCommonContext().
+			return significantCluster.causeCluster;
+		}
+
+		/**
+		 * Identifies after each merge if there is a {@link #CauseCluster} with a significant high
+		 * exclusive time. If so, the {@link #CauseCluster} is returned. Otherwise returns
+		 * <code>null</code>.
+		 *
+		 * @param causeClusters
+		 *            List with clusters.
+		 * @param overallExclusiveDuration
+		 *            The summed up exclusive time of all {@link InvocationSequenceData} the
+		 *            <code>Time Wasting Operation</code> holds.
+		 * @return Significant cluster.
+		 */
+		private IndexedCluster getHighDurationCluster(List<IndexedCluster> causeClusters, double overallExclusiveDuration) {
+			IndexedCluster maxExclusiveDurationCluster = causeClusters.get(0);
+			double maxExclusiveDurationSum = 0;
+			for (IndexedCluster cluster : causeClusters) {
+				if (cluster.exclusiveDuration > maxExclusiveDurationSum) {
+					maxExclusiveDurationSum = cluster.exclusiveDuration;
+					maxExclusiveDurationCluster = cluster;
+				}
+
+				if (cluster.exclusiveDuration > (PROPORTION * overallExclusiveDuration)) {
+					return cluster;
+				}
 			}
 
-			if (exclusiveDurationSum > (PROPORTION * overallExclusiveDuration)) {
-				return cluster;
+			// in case no significant cluster can be found the cluster with the highest duration
+			// will be returned.
+			if (stopClustering) {
+				return maxExclusiveDurationCluster;
+			} else {
+				return null;
 			}
 		}
 
-		// in case no significant cluster can be found the cluster with the highest duration will be
-		// returned.
-		if (stopClustering) {
-			return maxExclusiveDurationCluster;
-		} else {
-			return null;
-		}
-	}
+		/**
+		 * Merges {@link #CauseCluster}. Consecutive clusters are merged if their distance to the
+		 * next cluster is not bigger than the merge distance. The merge distance is the smallest
+		 * distance for which at least one merge happens. Only the distances of the clusters are
+		 * checked as candidates, as the result does not change for the distances in between.
+		 *
+		 * @param causeClusters
+		 *            List with clusters.
+		 * @return List with merged clusters.
+		 */
+		private List<IndexedCluster> mergeClusters(List<IndexedCluster> causeClusters) {
+			int[] distances = new int[causeClusters.size()];
+			for (int i = 0; i < distances.length; i++) {
+				distances[i] = causeClusters.get(i).causeCluster.getDistanceToNextCluster();
+			}
+			Arrays.sort(distances);
 
+			int lastDistance = MAX_CLUSTER_CONTEXT_DISTANCE - 1;
+			for (int i = 0; (i < distances.length) && (distances[i] < lastDistance); i++) {
+				if ((i > 0) && (distances[i] == distances[i - 1])) {
+					continue;
+				}
+				List<IndexedCluster> newClusters = mergeClusters(causeClusters, Math.max(distances[i], 0));
+				if (null != newClusters) {
+					return newClusters;
+				}
+			}
 
-	/**
-	 * Merges {@link #CauseCluster}.
-	 *
-	 * @param causeClusters
-	 *            List with clusters.
-	 * @return List with merged clusters.
-	 */
-	private List<CauseCluster> mergeClusters(List<CauseCluster> causeClusters) {
-		boolean merged = false;
-		int distance = 0;
-		List<CauseCluster> newClusters = new LinkedList<>();
-		List<CauseCluster> clustersToMerge = new LinkedList<>();
-		while (!merged && !stopClustering) {
-			clustersToMerge.clear();
-			newClusters.clear();
-			for (CauseCluster cluster : causeClusters) {
+			stopClustering = true;
+			List<IndexedCluster> newClusters = mergeClusters(causeClusters, lastDistance);
+			return (null != newClusters) ? newClusters : closeAll(causeClusters, lastDistance);
+		}
+
+		/**
+		 * Merges the consecutive clusters with the distance to the next cluster not bigger than
+		 * the given distance.
+		 *
+		 * @param causeClusters
+		 *            List with clusters.
+		 * @param distance
+		 *            Merge distance.
+		 * @return List with merged clusters or <code>null</code> if no cluster was merged.
+		 */
+		private List<IndexedCluster> mergeClusters(List<IndexedCluster> causeClusters, int distance) {
+			boolean merged = false;
+			List<IndexedCluster> newClusters = new ArrayList<>(causeClusters.size());
+			List<IndexedCluster> clustersToMerge = new ArrayList<>();
+			for (IndexedCluster cluster : causeClusters) {
 				clustersToMerge.add(cluster);
-				if (cluster.getDistanceToNextCluster() > distance) {
+				if (cluster.causeCluster.getDistanceToNextCluster() > distance) {
 					if (clustersToMerge.size() > 1) {
-						newClusters.add(new CauseCluster(clustersToMerge));
+						newClusters.add(merge(clustersToMerge));
 						merged = true;
 					} else {
 						newClusters.add(cluster);
@@ -207,48 +266,116 @@ public class ProblemContextRule {
 					clustersToMerge.clear();
 				}
 			}
-			distance++;
+			return merged ? newClusters : null;
+		}
+
+		/**
+		 * Returns the clusters that have the distance to the next cluster bigger than the given
+		 * distance, without merging any of them.
+		 *
+		 * @param causeClusters
+		 *            List with clusters.
+		 * @param distance
+		 *            Merge distance.
+		 * @return Not merged clusters.
+		 */
+		private List<IndexedCluster> closeAll(List<IndexedCluster> causeClusters, int distance) {
+			List<IndexedCluster> newClusters = new ArrayList<>(causeClusters.size());
+			for (IndexedCluster cluster : causeClusters) {
+				if (cluster.causeCluster.getDistanceToNextCluster() > distance) {
+					newClusters.add(cluster);
+				}
+			}
+			return newClusters;
+		}
 
-			if (distance == MAX_CLUSTER_CONTEXT_DISTANCE) {
-				stopClustering = true;
+		/**
+		 * Merges the given clusters into one.
+		 *
+		 * @param clustersToMerge
+		 *            Clusters to merge.
+		 * @return Merged cluster.
+		 */
+		private IndexedCluster merge(List<IndexedCluster> clustersToMerge) {
+			List<CauseCluster> causeClusters = new ArrayList<>(clustersToMerge.size());
+			double exclusiveDuration = 0;
+			for (IndexedCluster cluster : clustersToMerge) {
+				causeClusters.add(cluster.causeCluster);
+				exclusiveDuration += cluster.exclusiveDuration;
+			}
+			CauseCluster merged = new CauseCluster(causeClusters);
+			return new IndexedCluster(merged, view.indexOf(merged.getCommonContext()), exclusiveDuration);
+		}
+
+		/**
+		 * Calculates for each {@link #CauseCluster} the distance to the next cluster. With the
+		 * calculated distances it is decided which clusters will be merged. The common contexts
+		 * are matched in the top-down order starting from the <code>Global Context</code>.
+		 *
+		 * @param causeClusters
+		 *            List with clusters from which the distances are calculated.
+		 */
+		private void calculateDistancesToNextCluster(List<IndexedCluster> causeClusters) {
+			IndexedCluster currentCluster = null;
+			int lastIndex = view.indexOf(globalContext) - 1;
+
+			for (IndexedCluster nextCluster : causeClusters) {
+				if (nextCluster.contextIndex <= lastIndex) {
+					break;
+				}
+
+				if (null != currentCluster) {
+					int minDepth = Math.min(view.getDepth(nextCluster.contextIndex), MAX_CLUSTER_CONTEXT_DISTANCE);
+					int depthDistance = Math.max((view.getDepth(currentCluster.contextIndex) - minDepth) + 1, 0);
+					currentCluster.causeCluster.setDistanceToNextCluster(depthDistance);
+				}
+				currentCluster = nextCluster;
+				lastIndex = nextCluster.contextIndex;
+			}
+
+			if (null != currentCluster) {
+				currentCluster.causeCluster.setDistanceToNextCluster(MAX_CLUSTER_CONTEXT_DISTANCE);
 			}
 		}
-		return newClusters;
 	}
 
 	/**
-	 * Calculates for each {@link #CauseCluster} the distance to the next cluster. With the
-	 * calculated distances it is decided which clusters will be merged.
+	 * {@link CauseCluster} with the index of its common context and its exclusive time.
+	 *
+	 * @author Ivan Senic
 	 *
-	 * @param causeClusters
-	 *            List with clusters from which the distances are calculated.
 	 */
-	private void calculateDistancesToNextCluster(List<CauseCluster> causeClusters) {
-		int nextClusterIndex = 0;
-		CauseCluster nextCluster = causeClusters.get(nextClusterIndex);
-		CauseCluster currentCluster = null;
-		InvocationSequenceDataIterator iterator = new InvocationSequenceDataIterator(globalContext);
-		int currentCauseDepth = -1;
-
-		InvocationSequenceData invocation;
-		while (iterator.hasNext() && (nextClusterIndex < causeClusters.size())) {
-			invocation = iterator.next();
-			int minDepth = Math.min(iterator.currentDepth(), MAX_CLUSTER_CONTEXT_DISTANCE);
-			if (nextCluster.getCommonContext() == invocation) {
-				if (null != currentCluster) {
-					int depthDistance = Math.max((currentCauseDepth - minDepth) + 1, 0);
-					currentCluster.setDistanceToNextCluster(depthDistance);
-				}
+	private static final class IndexedCluster {
 
-				// reset
-				currentCluster = nextCluster;
-				nextClusterIndex++;
-				if (nextClusterIndex < causeClusters.size()) {
-					nextCluster = causeClusters.get(nextClusterIndex);
-				}
-				currentCauseDepth = iterator.currentDepth();
-			}
+		/**
+		 * The cluster.
+		 */
+		private final CauseCluster causeCluster;
+
+		/**
+		 * Index of the common context in the view or <code>-1</code> if not in the view.
+		 */
+		private final int contextIndex;
+
+		/**
+		 * The summed up exclusive time of all invocations in the cluster.
+		 */
+		private final double exclusiveDuration;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param causeCluster
+		 *            The cluster.
+		 * @param contextIndex
+		 *            Index of the common context in the view.
+		 * @param exclusiveDuration
+		 *            The summed up exclusive time of all invocations in the cluster.
+		 */
+		IndexedCluster(CauseCluster causeCluster, int contextIndex, double exclusiveDuration) {
+			this.causeCluster = causeCluster;
+			this.contextIndex = contextIndex;
+			this.exclusiveDuration = exclusiveDuration;
 		}
-		currentCluster.setDistanceToNextCluster(MAX_CLUSTER_CONTEXT_DISTANCE);
 	}
 }
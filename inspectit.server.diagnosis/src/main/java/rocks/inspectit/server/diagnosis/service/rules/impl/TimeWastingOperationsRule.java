@@ -5,16 +5,17 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import com.google.common.base.Supplier;
+
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Action;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.Rule;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.SessionVariable;
 import rocks.inspectit.server.diagnosis.engine.rule.annotation.TagValue;
 import rocks.inspectit.server.diagnosis.service.aggregation.AggregatedDiagnosisData;
-import rocks.inspectit.server.diagnosis.service.aggregation.DiagnosisDataAggregationPerformer;
+import rocks.inspectit.server.diagnosis.service.aggregation.DiagnosisDataAggregator;
+import rocks.inspectit.server.diagnosis.service.rules.InvocationTreeView;
 import rocks.inspectit.server.diagnosis.service.rules.RuleConstants;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
-import rocks.inspectit.shared.all.communication.data.TimerData;
-import rocks.inspectit.shared.cs.communication.data.InvocationSequenceDataHelper;
 
 /**
  * Rule for detecting <code>Time Wasting Operations</code> within an {@link InvocationSequenceData}.
@@ -59,6 +60,17 @@ public class TimeWastingOperationsRule {
 	@SessionVariable(name = RuleConstants.DIAGNOSIS_VAR_BASELINE, optional = false)
 	double baseline;
 
+	/**
+	 * Shared view of the analyzed invocation tree.
+	 */
+	@SessionVariable(name = RuleConstants.DIAGNOSIS_VAR_INVOCATION_TREE, optional = true)
+	Supplier<InvocationTreeView> invocationTree;
+
+	/**
+	 * Aggregator for the invocations with the same key.
+	 */
+	private final DiagnosisDataAggregator diagnosisDataAggregator = DiagnosisDataAggregator.getInstance();
+
 	/**
 	 * The search for <code>Time Wasting Operations</code> starts from the
 	 * <code>Global Context</code>.
@@ -115,12 +127,7 @@ public class TimeWastingOperationsRule {
 	 *         the same key.
 	 */
 	private List<AggregatedDiagnosisData> getTimeWastingOperationsCandidatesSorted() {
-		List<InvocationSequenceData> invocationSequenceDataList = asInvocationSequenceDataList(Collections.singletonList(globalContext),
-				new ArrayList<InvocationSequenceData>(globalContext.getNestedSequences().size()));
-
-		DiagnosisDataAggregationPerformer diagnosisDataAggregationPerformer = new DiagnosisDataAggregationPerformer();
-		diagnosisDataAggregationPerformer.aggregateInvocationSequenceDataList(invocationSequenceDataList);
-		List<AggregatedDiagnosisData> timeWastingOperationsTmp = diagnosisDataAggregationPerformer.getAggregationResultList();
+		List<AggregatedDiagnosisData> timeWastingOperationsTmp = aggregateGlobalContext(InvocationTreeView.of(invocationTree, globalContext));
 
 		Collections.sort(timeWastingOperationsTmp, new Comparator<AggregatedDiagnosisData>() {
 			/**
@@ -137,26 +144,34 @@ public class TimeWastingOperationsRule {
 	}
 
 	/**
-	 * Saves beside the <code>Global Context</code> all reachable {@link InvocationSequenceData}
-	 * from the <code>Global Context</code> in {@link resultList} when ExclusiveTimeData is
-	 * available.
+	 * Aggregates the <code>Global Context</code> and all {@link InvocationSequenceData} reachable
+	 * from it when ExclusiveTimeData is available. The sub-tree of the <code>Global Context</code>
+	 * is a continuous index range in the view, the aggregations are indexed by the aggregation key
+	 * id.
 	 *
-	 * @param invocationSequences
-	 *            List that only holds the <code>Global Context</code>.
-	 * @param resultList
-	 *            List with <code>Global Context</code> and invocation sequences reachable from the
-	 *            <code>Global Context</code>.
-	 * @return List with {@link InvocationSequenceData}.
+	 * @param view
+	 *            View of the invocation tree containing the <code>Global Context</code>.
+	 * @return List of {@link AggregatedDiagnosisData} in the order the keys first appear.
 	 */
-	private List<InvocationSequenceData> asInvocationSequenceDataList(List<InvocationSequenceData> invocationSequences, final List<InvocationSequenceData> resultList) {
-		for (InvocationSequenceData invocationSequence : invocationSequences) {
-			TimerData timerData = InvocationSequenceDataHelper.getTimerDataOrSQLData(invocationSequence);
-			if ((timerData != null) && timerData.isExclusiveTimeDataAvailable()) {
-				resultList.add(invocationSequence);
+	private List<AggregatedDiagnosisData> aggregateGlobalContext(InvocationTreeView view) {
+		int from = view.indexOf(globalContext);
+		int to = view.getSubtreeEnd(from);
+		AggregatedDiagnosisData[] aggregations = new AggregatedDiagnosisData[view.getAggregationKeyCount()];
+		List<AggregatedDiagnosisData> result = new ArrayList<>();
+
+		for (int i = from; i < to; i++) {
+			if (view.isExclusiveTimeAvailable(i)) {
+				InvocationSequenceData invocation = view.getInvocation(i);
+				int keyId = view.getAggregationKeyId(i);
+				if (null == aggregations[keyId]) {
+					aggregations[keyId] = diagnosisDataAggregator.getAggregatedDiagnosisData(invocation);
+					result.add(aggregations[keyId]);
+				} else {
+					diagnosisDataAggregator.aggregate(aggregations[keyId], invocation);
+				}
 			}
-			asInvocationSequenceDataList(invocationSequence.getNestedSequences(), resultList);
 		}
-		return resultList;
+		return result;
 	}
 
 	/**
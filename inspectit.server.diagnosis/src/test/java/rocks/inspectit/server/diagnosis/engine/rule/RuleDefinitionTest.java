@@ -4,8 +4,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 
 import org.mockito.InjectMocks;
@@ -13,6 +15,9 @@ import org.mockito.Mock;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.server.diagnosis.engine.rule.RuleDefinition.RuleDefinitionBuilder;
+import rocks.inspectit.server.diagnosis.engine.rule.annotation.Action;
+import rocks.inspectit.server.diagnosis.engine.rule.annotation.Rule;
+import rocks.inspectit.server.diagnosis.engine.rule.annotation.TagValue;
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleDefinitionException;
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleExecutionException;
 import rocks.inspectit.server.diagnosis.engine.rule.factory.Rules;
@@ -97,6 +102,71 @@ public class RuleDefinitionTest extends TestBase {
 		}
 	}
 
+	/**
+	 * Tests the reuse of the rule instances.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	public class Reuse extends RuleDefinitionTest {
+
+		@Test
+		public void injectedFieldsOnlyRuleIsReusable() throws RuleDefinitionException {
+			RuleDefinition ruleDefinition = Rules.define(RuleA.class);
+
+			assertThat(ruleDefinition.isReusable(), is(true));
+		}
+
+		@Test
+		public void statefulRuleIsNotReusable() throws RuleDefinitionException {
+			RuleDefinition ruleDefinition = Rules.define(StatefulRule.class);
+
+			assertThat(ruleDefinition.isReusable(), is(false));
+		}
+
+		@Test
+		public void pooledInstance() throws RuleDefinitionException, RuleExecutionException {
+			RuleDefinition ruleDefinition = Rules.define(RuleA.class);
+			RuleA pooled = new RuleA();
+
+			Collection<RuleOutput> outputs = ruleDefinition.execute(Arrays.asList(new RuleInput(Tags.tag(Tags.ROOT_TAG, "a")), new RuleInput(Tags.tag(Tags.ROOT_TAG, "b"))),
+					Collections.<String, Object> emptyMap(), pooled);
+
+			assertThat(outputs, hasSize(2));
+			assertThat(pooled.action(), is("bb"));
+		}
+
+		@Test
+		public void pooledInstanceIgnoredForStatefulRule() throws RuleDefinitionException, RuleExecutionException {
+			RuleDefinition ruleDefinition = Rules.define(StatefulRule.class);
+			StatefulRule pooled = new StatefulRule();
+
+			Collection<RuleOutput> outputs = ruleDefinition.execute(Arrays.asList(new RuleInput(Tags.tag(Tags.ROOT_TAG, "a")), new RuleInput(Tags.tag(Tags.ROOT_TAG, "b"))),
+					Collections.<String, Object> emptyMap(), pooled);
+
+			assertThat(outputs, hasSize(2));
+			for (RuleOutput output : outputs) {
+				assertThat(output.getTags().iterator().next().getValue(), is((Object) Integer.valueOf(1)));
+			}
+			assertThat(pooled.executions, is(0));
+		}
+	}
+
+	@Rule(name = "StatefulRule")
+	public static class StatefulRule {
+
+		@TagValue(type = Tags.ROOT_TAG)
+		String input;
+
+		int executions;
+
+		@Action(resultTag = "S")
+		public Integer action() {
+			executions++;
+			return executions;
+		}
+	}
+
 	/**
 	 * Tests the {@link RuleDefinition.RuleDefinitionBuilder#build()} method.
 	 *
@@ -0,0 +1,161 @@
+package rocks.inspectit.server.diagnosis.engine.rule.store;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Multimap;
+
+import rocks.inspectit.server.diagnosis.engine.rule.ConditionFailure;
+import rocks.inspectit.server.diagnosis.engine.rule.RuleOutput;
+import rocks.inspectit.server.diagnosis.engine.tag.Tag;
+import rocks.inspectit.server.diagnosis.engine.tag.TagState;
+import rocks.inspectit.server.diagnosis.engine.tag.Tags;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link ConcurrentRuleOutputStorage} class.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class ConcurrentRuleOutputStorageTest extends TestBase {
+
+	ConcurrentRuleOutputStorage storage;
+
+	@BeforeMethod
+	public void init() {
+		storage = new ConcurrentRuleOutputStorage();
+	}
+
+	public class Store extends ConcurrentRuleOutputStorageTest {
+
+		@Test
+		public void storeWithAndWithoutConditionFailures() {
+			Tag rootTag = Tags.tag(Tags.ROOT_TAG, "root");
+			Tag tagA = Tags.tag("A", "inputA", rootTag);
+			RuleOutput output = new RuleOutput("RuleA", "A", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagA));
+			RuleOutput failed = new RuleOutput("RuleB", "B", Collections.singleton(new ConditionFailure("ConditionX", "SomeHint")), Collections.<Tag> emptySet());
+
+			storage.store(Arrays.asList(output, failed));
+
+			assertThat(storage.getAvailableTagTypes(), containsInAnyOrder("A"));
+			assertThat(storage.getAllOutputs().get("A"), contains(output));
+			assertThat(storage.getAllOutputsWithConditionFailures().get("B"), contains(failed));
+		}
+
+		@Test
+		public void duplicatesIgnored() {
+			Tag rootTag = Tags.tag(Tags.ROOT_TAG, "root");
+			Tag tagA = Tags.tag("A", "inputA", rootTag);
+			RuleOutput output = new RuleOutput("RuleA", "A", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagA));
+
+			storage.store(output);
+			storage.store(output);
+
+			assertThat(storage.getAllOutputs().get("A"), hasSize(1));
+		}
+
+		@Test
+		public void concurrentStore() throws Exception {
+			final Tag rootTag = Tags.tag(Tags.ROOT_TAG, "root");
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int i = 0; i < 4; i++) {
+					final String type = String.valueOf((char) ('A' + i));
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							for (int j = 0; j < 500; j++) {
+								Tag tag = Tags.tag(type, j, rootTag);
+								storage.store(new RuleOutput("Rule" + type, type, Collections.<ConditionFailure> emptySet(), Collections.singleton(tag)));
+							}
+							return null;
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+
+			assertThat(storage.getAvailableTagTypes(), containsInAnyOrder("A", "B", "C", "D"));
+			assertThat(storage.getAllOutputs().size(), is(2000));
+		}
+
+		@Test
+		public void clear() {
+			Tag rootTag = Tags.tag(Tags.ROOT_TAG, "root");
+			Tag tagA = Tags.tag("A", "inputA", rootTag);
+			storage.store(new RuleOutput("RuleA", "A", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagA)));
+
+			storage.clear();
+
+			assertThat(storage.getAvailableTagTypes(), empty());
+			assertThat(storage.getAllOutputs().isEmpty(), is(true));
+		}
+	}
+
+	public class MapTags extends ConcurrentRuleOutputStorageTest {
+
+		@Test
+		public void leafTags() {
+			Tag rootTag = Tags.tag(Tags.ROOT_TAG, "root");
+			Tag tagA = Tags.tag("A", "inputA", rootTag);
+			Tag tagB = Tags.tag("B", "inputB", tagA);
+			storage.store(new RuleOutput("RuleA", "A", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagA)));
+			storage.store(new RuleOutput("RuleB", "B", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagB)));
+
+			Multimap<String, Tag> tags = storage.mapTags(TagState.LEAF);
+
+			assertThat(tags.size(), equalTo(1));
+			assertThat(tags.get("B"), contains(tagB));
+		}
+	}
+
+	public class FindLatestResultsByTagType extends ConcurrentRuleOutputStorageTest {
+
+		@Test
+		public void latestTypeFirst() {
+			Tag rootTag = Tags.tag(Tags.ROOT_TAG, "root");
+			Tag tagC = Tags.tag("C", "inputC", rootTag);
+			Tag tagD = Tags.tag("D", "inputD", rootTag);
+			RuleOutput outputC = new RuleOutput("RuleC", "C", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagC));
+			RuleOutput outputD = new RuleOutput("RuleD", "D", Collections.<ConditionFailure> emptySet(), Collections.singleton(tagD));
+			storage.store(Arrays.asList(outputC, outputD));
+
+			Collection<RuleOutput> outputs = storage.findLatestResultsByTagType(new HashSet<>(Arrays.asList("C", "D")));
+
+			assertThat(outputs, contains(outputD, outputC));
+		}
+
+		@Test
+		public void notExisting() {
+			Collection<RuleOutput> outputs = storage.findLatestResultsByTagType(new HashSet<>(Arrays.asList("X")));
+
+			assertThat(outputs, empty());
+		}
+	}
+}
@@ -18,9 +18,11 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -35,6 +37,7 @@ import rocks.inspectit.server.diagnosis.engine.rule.RuleInput;
 import rocks.inspectit.server.diagnosis.engine.rule.RuleOutput;
 import rocks.inspectit.server.diagnosis.engine.rule.exception.RuleDefinitionException;
 import rocks.inspectit.server.diagnosis.engine.rule.factory.Rules;
+import rocks.inspectit.server.diagnosis.engine.rule.store.ConcurrentRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.rule.store.IRuleOutputStorage;
 import rocks.inspectit.server.diagnosis.engine.session.Session.State;
 import rocks.inspectit.server.diagnosis.engine.session.exception.SessionException;
@@ -518,4 +521,65 @@ public class SessionTest extends TestBase {
 			session.call();
 		}
 	}
+
+	/**
+	 * Test the {@link Session#call()} method with the parallel rule execution.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	public static class CallParallel extends SessionTest {
+
+		ForkJoinPool pool;
+
+		@BeforeMethod
+		public void initPool() {
+			pool = new ForkJoinPool(4);
+		}
+
+		@AfterMethod
+		public void shutdownPool() {
+			pool.shutdownNow();
+		}
+
+		@Test
+		public void fromActivated() throws Exception {
+			session = new Session<>(Rules.define(RuleA.class, RuleB.class, RuleC.class), new DefaultSessionResultCollector<String>(), new ConcurrentRuleOutputStorage(), pool, 1);
+			String input = "input";
+			session.activate(input, Session.EMPTY_SESSION_VARIABLES);
+
+			DefaultSessionResult<String> result = session.call();
+
+			assertThat(session.getState(), equalTo(State.PROCESSED));
+			assertThat(result.getConditionFailures().keys(), empty());
+			assertThat(result.getEndTags().keySet(), containsInAnyOrder("C"));
+			assertThat(result.getEndTags().get("C"), hasSize(1));
+			assertThat(((Integer) result.getEndTags().get("C").iterator().next().getValue()), equalTo((input.length() * 2) + 2));
+		}
+
+		@Test
+		public void sameResultAsSequential() throws Exception {
+			Session<String, DefaultSessionResult<String>> sequential = new Session<>(Rules.define(RuleA.class, RuleE.class, RuleF.class, RuleG.class),
+					new DefaultSessionResultCollector<String>());
+			sequential.activate("input", Session.EMPTY_SESSION_VARIABLES);
+			DefaultSessionResult<String> expected = sequential.call();
+
+			session = new Session<>(Rules.define(RuleA.class, RuleE.class, RuleF.class, RuleG.class), new DefaultSessionResultCollector<String>(), new ConcurrentRuleOutputStorage(), pool, 1);
+			session.activate("input", Session.EMPTY_SESSION_VARIABLES);
+			DefaultSessionResult<String> result = session.call();
+
+			assertThat(session.getState(), equalTo(State.PROCESSED));
+			assertThat(result.getEndTags(), equalTo(expected.getEndTags()));
+			assertThat(result.getConditionFailures(), equalTo(expected.getConditionFailures()));
+		}
+
+		@Test(expectedExceptions = { SessionException.class })
+		public void withRuleException() throws Exception {
+			session = new Session<>(Rules.define(RuleA.class, RuleD.class), new DefaultSessionResultCollector<String>(), new ConcurrentRuleOutputStorage(), pool, 1);
+			String input = "input";
+			session.activate(input, Session.EMPTY_SESSION_VARIABLES);
+
+			session.call();
+		}
+	}
 }
@@ -1,15 +1,22 @@
 package rocks.inspectit.server.diagnosis.service;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
@@ -45,7 +52,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
 			invocationSequenceData.setDuration(5000d);
 
@@ -62,7 +69,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			diagnosisService.diagnose(null, baseline);
 		}
 
@@ -73,7 +80,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
 			invocationSequenceData.setDuration(5000d);
 
@@ -87,9 +94,52 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			diagnosisService.diagnose(null, -1);
 		}
+
+		@Test
+		public void droppedWhenQueueFull() {
+			double baseline = 1000;
+			diagnosisService = new DiagnosisService(problemOccurrenceConsumer, new ArrayList<String>() {
+				private static final long serialVersionUID = 1L;
+				{
+					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
+				}
+			}, 2, 1);
+			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
+			invocationSequenceData.setDuration(5000d);
+
+			assertThat(diagnosisService.diagnose(invocationSequenceData, baseline), is(true));
+			assertThat(diagnosisService.diagnose(invocationSequenceData, baseline), is(false));
+
+			DiagnosisServiceStatistics statistics = diagnosisService.getStatistics();
+			assertThat(statistics.getSubmittedCount(), is(2L));
+			assertThat(statistics.getDroppedCount(), is(1L));
+			assertThat(statistics.getQueuedCount(), is(1));
+		}
+
+		@Test
+		public void noisyAgentDoesNotStarveOthers() {
+			double baseline = 1000;
+			diagnosisService = new DiagnosisService(problemOccurrenceConsumer, new ArrayList<String>() {
+				private static final long serialVersionUID = 1L;
+				{
+					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
+				}
+			}, 2, 1, 10, 2, DiagnosisFairness.AGENT);
+			InvocationSequenceData noisy = new InvocationSequenceData();
+			noisy.setPlatformIdent(1L);
+			InvocationSequenceData other = new InvocationSequenceData();
+			other.setPlatformIdent(2L);
+
+			assertThat(diagnosisService.diagnose(noisy, baseline), is(true));
+			assertThat(diagnosisService.diagnose(noisy, baseline), is(true));
+			assertThat(diagnosisService.diagnose(noisy, baseline), is(false));
+			assertThat(diagnosisService.diagnose(other, baseline), is(true));
+
+			assertThat(diagnosisService.getStatistics().getDroppedCount(), is(1L));
+		}
 	}
 
 	public static class Init extends DiagnosisServiceTest {
@@ -100,7 +150,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 
 			assertThat(diagnosisService.init(), is(true));
 		}
@@ -112,7 +162,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.shared.all");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
 			invocationSequenceData.setDuration(5000d);
 
@@ -126,7 +176,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, -2, 50L, 2);
+			}, -2, 2);
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
 			invocationSequenceData.setDuration(5000d);
 
@@ -140,7 +190,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.engine.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
 			invocationSequenceData.setDuration(5000d);
 
@@ -156,6 +206,11 @@ public class DiagnosisServiceTest extends TestBase {
 		@Mock
 		ExecutorService diagnosisServiceExecutor;
 
+		@SuppressWarnings("unchecked")
+		private Map<String, ?> sessionVariables(double baseline) {
+			return (Map<String, ?>) argThat(allOf(hasEntry(equalTo(RuleConstants.DIAGNOSIS_VAR_BASELINE), equalTo((Object) baseline)), hasKey(RuleConstants.DIAGNOSIS_VAR_INVOCATION_TREE)));
+		}
+
 		@BeforeMethod
 		private void init() throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
@@ -165,7 +220,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 3);
+			}, 2, 3);
 
 			Field fieldEngine;
 			fieldEngine = DiagnosisService.class.getDeclaredField("engine");
@@ -182,7 +237,7 @@ public class DiagnosisServiceTest extends TestBase {
 			double baseline = 1000;
 			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
 			invocationSequenceData.setDuration(5000d);
-			verify(engine, times(0)).analyze(invocationSequenceData, Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, baseline));
+			verify(engine, times(0)).analyze(eq(invocationSequenceData), sessionVariables(baseline));
 			verify(diagnosisServiceExecutor, times(0)).execute(diagnosisService);
 			diagnosisService.diagnose(invocationSequenceData, baseline);
 			diagnosisService.diagnose(invocationSequenceData, baseline);
@@ -192,7 +247,7 @@ public class DiagnosisServiceTest extends TestBase {
 			diagnosisService.run();
 			diagnosisService.run();
 
-			verify(engine, times(3)).analyze(invocationSequenceData, Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, baseline));
+			verify(engine, times(3)).analyze(eq(invocationSequenceData), sessionVariables(baseline));
 			verify(diagnosisServiceExecutor, times(3)).execute(diagnosisService);
 		}
 
@@ -205,9 +260,27 @@ public class DiagnosisServiceTest extends TestBase {
 
 			diagnosisService.run();
 
-			verify(engine, times(1)).analyze(invocationSequenceData, Collections.singletonMap(RuleConstants.DIAGNOSIS_VAR_BASELINE, baseline));
+			verify(engine, times(1)).analyze(eq(invocationSequenceData), sessionVariables(baseline));
 			verify(diagnosisServiceExecutor, times(0)).execute(diagnosisService);
 		}
+
+		@Test
+		public void statistics() throws DiagnosisEngineException {
+			double baseline = 1000;
+			InvocationSequenceData invocationSequenceData = new InvocationSequenceData();
+			doThrow(new DiagnosisEngineException("Test")).when(engine).analyze(eq(invocationSequenceData), sessionVariables(baseline));
+			diagnosisService.diagnose(invocationSequenceData, baseline);
+			diagnosisService.diagnose(invocationSequenceData, baseline);
+
+			diagnosisService.run();
+
+			DiagnosisServiceStatistics statistics = diagnosisService.getStatistics();
+			assertThat(statistics.getSubmittedCount(), is(2L));
+			assertThat(statistics.getDequeuedCount(), is(1L));
+			assertThat(statistics.getFailedCount(), is(1L));
+			assertThat(statistics.getQueuedCount(), is(1));
+			assertThat(statistics.getMaxQueueLatency(), is(greaterThanOrEqualTo(statistics.getAverageQueueLatency())));
+		}
 	}
 
 	public static class Shutdown extends DiagnosisServiceTest {
@@ -218,7 +291,7 @@ public class DiagnosisServiceTest extends TestBase {
 				{
 					add("rocks.inspectit.server.diagnosis.service.rules.testrules");
 				}
-			}, 2, 50L, 2);
+			}, 2, 2);
 			diagnosisService.init();
 
 			diagnosisService.shutdown(true);
@@ -0,0 +1,97 @@
+package rocks.inspectit.server.diagnosis.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link TenantFairQueue}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class TenantFairQueueTest extends TestBase {
+
+	TenantFairQueue<String> queue;
+
+	@BeforeMethod
+	public void init() {
+		queue = new TenantFairQueue<>(5, 3);
+	}
+
+	public class Offer extends TenantFairQueueTest {
+
+		@Test
+		public void tenantCapacity() {
+			assertThat(queue.offer("a", "a1"), is(true));
+			assertThat(queue.offer("a", "a2"), is(true));
+			assertThat(queue.offer("a", "a3"), is(true));
+			assertThat(queue.offer("a", "a4"), is(false));
+			assertThat(queue.offer("b", "b1"), is(true));
+
+			assertThat(queue.size(), is(4));
+			assertThat(queue.getTenantCount(), is(2));
+		}
+
+		@Test
+		public void capacity() {
+			queue.offer("a", "a1");
+			queue.offer("b", "b1");
+			queue.offer("c", "c1");
+			queue.offer("d", "d1");
+			queue.offer("e", "e1");
+
+			assertThat(queue.offer("f", "f1"), is(false));
+			assertThat(queue.size(), is(5));
+		}
+
+		@Test(expectedExceptions = IllegalArgumentException.class)
+		public void capacityNotPositive() {
+			new TenantFairQueue<String>(0, 1);
+		}
+	}
+
+	public class Take extends TenantFairQueueTest {
+
+		@Test
+		public void roundRobin() throws InterruptedException {
+			queue.offer("a", "a1");
+			queue.offer("a", "a2");
+			queue.offer("a", "a3");
+			queue.offer("b", "b1");
+			queue.offer("c", "c1");
+
+			assertThat(queue.take(), is("a1"));
+			assertThat(queue.take(), is("b1"));
+			assertThat(queue.take(), is("c1"));
+			assertThat(queue.take(), is("a2"));
+			assertThat(queue.take(), is("a3"));
+			assertThat(queue.size(), is(0));
+			assertThat(queue.getTenantCount(), is(0));
+		}
+
+		@Test
+		public void tenantRejoinsAtEnd() throws InterruptedException {
+			queue.offer("a", "a1");
+			queue.offer("b", "b1");
+			assertThat(queue.take(), is("a1"));
+			queue.offer("a", "a2");
+
+			assertThat(queue.take(), is("b1"));
+			assertThat(queue.take(), is("a2"));
+		}
+
+		@Test
+		public void pollEmpty() throws InterruptedException {
+			assertThat(queue.poll(10, TimeUnit.MILLISECONDS), is(nullValue()));
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package rocks.inspectit.server.diagnosis.service.rules;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link InvocationTreeView}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class InvocationTreeViewTest extends TestBase {
+
+	private static final Timestamp DEF_DATE = new Timestamp(new Date().getTime());
+
+	InvocationSequenceData root;
+
+	InvocationSequenceData first;
+
+	InvocationSequenceData second;
+
+	InvocationSequenceData secondChild;
+
+	InvocationSequenceData third;
+
+	@BeforeMethod
+	public void init() {
+		root = new InvocationSequenceData(DEF_DATE, 1L, 1L, 0L);
+		first = child(root, 1L);
+		second = child(root, 2L);
+		secondChild = child(second, 1L);
+		third = child(root, 3L);
+		TimerData timerData = new TimerData(DEF_DATE, 1L, 1L, 1L);
+		timerData.calculateExclusiveMin(10d);
+		timerData.setExclusiveDuration(10d);
+		secondChild.setTimerData(timerData);
+	}
+
+	private static InvocationSequenceData child(InvocationSequenceData parent, long methodIdent) {
+		InvocationSequenceData child = new InvocationSequenceData(DEF_DATE, 1L, 1L, methodIdent);
+		child.setParentSequence(parent);
+		parent.getNestedSequences().add(child);
+		return child;
+	}
+
+	public static class Constructor extends InvocationTreeViewTest {
+
+		@Test
+		public void topDownOrder() {
+			InvocationTreeView view = new InvocationTreeView(root);
+
+			assertThat(view.size(), is(5));
+			assertThat(view.getInvocation(0), is(root));
+			assertThat(view.getInvocation(1), is(first));
+			assertThat(view.getInvocation(2), is(second));
+			assertThat(view.getInvocation(3), is(secondChild));
+			assertThat(view.getInvocation(4), is(third));
+		}
+
+		@Test
+		public void structure() {
+			InvocationTreeView view = new InvocationTreeView(secondChild);
+
+			assertThat(view.indexOf(second), is(2));
+			assertThat(view.getParent(3), is(2));
+			assertThat(view.getParent(0), is(-1));
+			assertThat(view.getDepth(0), is(0));
+			assertThat(view.getDepth(3), is(2));
+			assertThat(view.getSubtreeEnd(0), is(5));
+			assertThat(view.getSubtreeEnd(2), is(4));
+			assertThat(view.getSubtreeEnd(1), is(2));
+		}
+
+		@Test
+		public void exclusiveDurations() {
+			InvocationTreeView view = new InvocationTreeView(root);
+
+			assertThat(view.isExclusiveTimeAvailable(3), is(true));
+			assertThat(view.getExclusiveDuration(3), is(10d));
+			assertThat(view.isExclusiveTimeAvailable(1), is(false));
+			assertThat(view.getExclusiveDuration(1), is(0d));
+		}
+
+		@Test
+		public void aggregationKeys() {
+			InvocationTreeView view = new InvocationTreeView(root);
+
+			assertThat(view.getAggregationKeyCount(), is(4));
+			assertThat(view.getAggregationKeyId(1), is(view.getAggregationKeyId(3)));
+			assertThat(view.getAggregationKeyId(1), is(not(view.getAggregationKeyId(2))));
+			assertThat(view.getAggregationKeyId((Object) Long.valueOf(2L)), is(view.getAggregationKeyId(2)));
+			assertThat(view.getAggregationKeyId((Object) Long.valueOf(99L)), is(-1));
+		}
+
+		@Test
+		public void deepTree() {
+			InvocationSequenceData parent = root;
+			for (int i = 0; i < 100000; i++) {
+				parent = child(parent, i);
+			}
+
+			InvocationTreeView view = new InvocationTreeView(root);
+
+			assertThat(view.size(), is(100005));
+			assertThat(view.getDepth(view.indexOf(parent)), is(100000));
+		}
+
+		@Test(expectedExceptions = IllegalArgumentException.class)
+		public void nullInvocation() {
+			new InvocationTreeView(null);
+		}
+	}
+
+	public static class Of extends InvocationTreeViewTest {
+
+		@Test
+		public void sharedViewReused() {
+			Supplier<InvocationTreeView> shared = InvocationTreeView.lazy(root);
+
+			assertThat(InvocationTreeView.of(shared, secondChild), is(sameInstance(shared.get())));
+		}
+
+		@Test
+		public void notContainedInSharedView() {
+			InvocationSequenceData other = new InvocationSequenceData(DEF_DATE, 1L, 1L, 1L);
+			Supplier<InvocationTreeView> shared = InvocationTreeView.lazy(root);
+
+			InvocationTreeView view = InvocationTreeView.of(shared, other);
+
+			assertThat(view, is(not(sameInstance(shared.get()))));
+			assertThat(view.contains(other), is(true));
+		}
+
+		@Test
+		public void noSharedView() {
+			InvocationTreeView view = InvocationTreeView.of(null, root);
+
+			assertThat(view.size(), is(5));
+		}
+	}
+}
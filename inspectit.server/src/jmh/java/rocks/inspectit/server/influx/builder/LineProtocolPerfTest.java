@@ -0,0 +1,323 @@
+package rocks.inspectit.server.influx.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ConsistencyLevel;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point.Builder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
+import rocks.inspectit.shared.all.cmr.model.JmxDefinitionDataIdent;
+import rocks.inspectit.shared.all.cmr.model.MethodIdent;
+import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
+import rocks.inspectit.shared.all.cmr.model.SensorTypeIdent;
+import rocks.inspectit.shared.all.cmr.service.ICachedDataService;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.communication.data.cmr.ApplicationData;
+import rocks.inspectit.shared.all.communication.data.cmr.BusinessTransactionData;
+
+/**
+ * Measures the throughput of writing timer data to influx in points per millisecond. Writing the
+ * points created by the point builders in batches is compared to encoding the data directly to the
+ * line protocol. Requests go to a local HTTP stand-in of the influx that discards the payload.
+ *
+ * @author Ivan Senic
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class LineProtocolPerfTest {
+
+	/**
+	 * Amount of points written in one benchmark invocation.
+	 */
+	private static final int POINTS = 20000;
+
+	/**
+	 * Database name.
+	 */
+	private static final String DATABASE = "inspectit";
+
+	/**
+	 * Retention policy.
+	 */
+	private static final String RETENTION_POLICY = "autogen";
+
+	/**
+	 * Points in one request.
+	 */
+	@Param({ "2000", "5000" })
+	private int batchSize;
+
+	/**
+	 * If requests are gzip compressed.
+	 */
+	@Param({ "false", "true" })
+	private boolean gzip;
+
+	/**
+	 * Number of different methods to simulate.
+	 */
+	@Param({ "100" })
+	private int methods;
+
+	/**
+	 * Local stand-in of the influx.
+	 */
+	private HttpServer server;
+
+	/**
+	 * Client connected to the stand-in.
+	 */
+	private InfluxDB influxDB;
+
+	/**
+	 * Builder under test.
+	 */
+	private TimerPointBuilder builder;
+
+	/**
+	 * Reused encoder.
+	 */
+	private LineProtocolEncoder encoder;
+
+	/**
+	 * Data to write.
+	 */
+	private List<TimerData> data;
+
+	/**
+	 * Starts the stand-in and prepares the data.
+	 *
+	 * @throws IOException
+	 *             If the stand-in can not be started.
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new DiscardingHandler());
+		server.start();
+
+		influxDB = InfluxDBFactory.connect("http://127.0.0.1:" + server.getAddress().getPort(), "user", "password");
+		if (gzip) {
+			influxDB.enableGzip();
+		}
+
+		StubCachedDataService cachedDataService = new StubCachedDataService();
+		builder = new TimerPointBuilder();
+		builder.cachedDataService = cachedDataService;
+		encoder = new LineProtocolEncoder(batchSize * 512);
+
+		Random random = new Random(0);
+		data = new ArrayList<>(POINTS);
+		long time = System.currentTimeMillis();
+		for (int i = 0; i < POINTS; i++) {
+			long methodId = random.nextInt(methods);
+			cachedDataService.add(methodId);
+			TimerData timerData = new TimerData(new Timestamp(time + i), 1L, 1L, methodId);
+			for (int j = 0; j < 5; j++) {
+				double duration = random.nextDouble() * 100;
+				timerData.calculateMin(duration);
+				timerData.calculateMax(duration);
+				timerData.addDuration(duration);
+				timerData.calculateCpuMin(duration / 2);
+				timerData.calculateCpuMax(duration / 2);
+				timerData.addCpuDuration(duration / 2);
+				timerData.increaseCount();
+			}
+			data.add(timerData);
+		}
+	}
+
+	/**
+	 * Stops the stand-in.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	/**
+	 * Points created by the point builder and written in batches.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void points() {
+		BatchPoints batch = BatchPoints.database(DATABASE).retentionPolicy(RETENTION_POLICY).build();
+		for (TimerData timerData : data) {
+			for (Builder pointBuilder : builder.createBuilders(timerData)) {
+				batch.point(pointBuilder.build());
+			}
+			if (batch.getPoints().size() >= batchSize) {
+				influxDB.write(batch);
+				batch = BatchPoints.database(DATABASE).retentionPolicy(RETENTION_POLICY).build();
+			}
+		}
+		if (!batch.getPoints().isEmpty()) {
+			influxDB.write(batch);
+		}
+	}
+
+	/**
+	 * Data encoded directly to the line protocol and written in batches.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void lineProtocol() {
+		encoder.reset();
+		for (TimerData timerData : data) {
+			builder.encode(timerData, encoder);
+			if (encoder.getLineCount() >= batchSize) {
+				influxDB.write(DATABASE, RETENTION_POLICY, ConsistencyLevel.ONE, encoder.toString());
+				encoder.reset();
+			}
+		}
+		if (!encoder.isEmpty()) {
+			influxDB.write(DATABASE, RETENTION_POLICY, ConsistencyLevel.ONE, encoder.toString());
+		}
+	}
+
+	/**
+	 * Handler reading and discarding the request body and answering with no content.
+	 */
+	private static class DiscardingHandler implements HttpHandler {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			byte[] buffer = new byte[8192];
+			try (InputStream in = exchange.getRequestBody()) {
+				while (in.read(buffer) >= 0) { // NOPMD discard
+				}
+			}
+			exchange.getResponseHeaders().add("X-Influxdb-Version", "stand-in");
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Cached data service knowing one platform and the added methods.
+	 */
+	private static class StubCachedDataService implements ICachedDataService {
+
+		/**
+		 * The platform ident.
+		 */
+		private final PlatformIdent platformIdent = new PlatformIdent();
+
+		/**
+		 * Method idents by id.
+		 */
+		private final Map<Long, MethodIdent> methodIdents = new HashMap<>();
+
+		/**
+		 * Default constructor.
+		 */
+		StubCachedDataService() {
+			platformIdent.setAgentName("Benchmark Agent");
+		}
+
+		/**
+		 * Adds the method ident with the given id.
+		 *
+		 * @param methodId
+		 *            Method ident id.
+		 */
+		void add(long methodId) {
+			if (!methodIdents.containsKey(methodId)) {
+				MethodIdent methodIdent = new MethodIdent();
+				methodIdent.setPackageName("rocks.inspectit.benchmark");
+				methodIdent.setClassName("Service" + methodId);
+				methodIdent.setMethodName("execute");
+				methodIdent.setParameters(Collections.singletonList("java.lang.String"));
+				methodIdent.setReturnType("void");
+				methodIdents.put(methodId, methodIdent);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public PlatformIdent getPlatformIdentForId(long platformId) {
+			return platformIdent;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public SensorTypeIdent getSensorTypeIdentForId(long sensorTypeId) {
+			return null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public MethodIdent getMethodIdentForId(long methodId) {
+			return methodIdents.get(methodId);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public JmxDefinitionDataIdent getJmxDefinitionDataIdentForId(long jmxDefinitionDataId) {
+			return null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ApplicationData getApplicationForId(int id) {
+			return null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public BusinessTransactionData getBusinessTransactionForId(int appId, int businessTxId) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package rocks.inspectit.server.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.cs.storage.export.ColumnarExportReader;
+import rocks.inspectit.shared.cs.storage.export.ColumnarExportWriter;
+import rocks.inspectit.shared.cs.storage.export.ColumnarRowGroup;
+import rocks.inspectit.shared.cs.storage.export.ColumnarRowGroupMetadata;
+
+/**
+ * Measures the throughput of the columnar export in rows per millisecond. Data is a mix of timer,
+ * SQL and HTTP data of several platforms and methods, as in the CMR buffer.
+ *
+ * @author Ivan Senic
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class ColumnarExportPerfTest {
+
+	/**
+	 * Amount of rows exported in one benchmark invocation.
+	 */
+	private static final int ROWS = 100000;
+
+	/**
+	 * Rows in one row group.
+	 */
+	@Param({ "4096", "65536" })
+	private int rowGroupSize;
+
+	/**
+	 * Number of different platforms to simulate.
+	 */
+	@Param({ "2" })
+	private int platforms;
+
+	/**
+	 * Number of different methods to simulate.
+	 */
+	@Param({ "100" })
+	private int methods;
+
+	/**
+	 * Data to export.
+	 */
+	private List<DefaultData> data;
+
+	/**
+	 * File the data is exported to in the file benchmarks.
+	 */
+	private Path exportFile;
+
+	/**
+	 * File with the exported data used in the read benchmark.
+	 */
+	private Path readFile;
+
+	/**
+	 * Prepares the data.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws IOException {
+		Random random = new Random(1);
+		long time = System.currentTimeMillis();
+		data = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			long platformIdent = 1 + random.nextInt(platforms);
+			long methodIdent = 1 + random.nextInt(methods);
+			Timestamp timestamp = new Timestamp(time + (i * 10));
+			TimerData timerData;
+			switch (i % 3) {
+			case 0:
+				timerData = new TimerData(timestamp, platformIdent, 1L, methodIdent);
+				break;
+			case 1:
+				timerData = new SqlStatementData(timestamp, platformIdent, 2L, methodIdent, "SELECT * FROM TABLE_" + random.nextInt(50) + " WHERE ID = ?");
+				((SqlStatementData) timerData).setPreparedStatement(true);
+				break;
+			default:
+				HttpTimerData httpTimerData = new HttpTimerData(timestamp, platformIdent, 3L, methodIdent);
+				httpTimerData.setHttpInfo(new HttpInfo("/app/page/" + random.nextInt(200), "GET", null));
+				httpTimerData.setHttpResponseStatus(200);
+				timerData = httpTimerData;
+				break;
+			}
+			double duration = random.nextDouble() * 100;
+			timerData.setCount(1);
+			timerData.setDuration(duration);
+			timerData.calculateMin(duration);
+			timerData.calculateMax(duration);
+			timerData.setExclusiveDuration(duration / 2);
+			data.add(timerData);
+		}
+
+		exportFile = Files.createTempFile("columnar-export-perf", ".itcol");
+		readFile = Files.createTempFile("columnar-export-perf-read", ".itcol");
+		write(new ColumnarExportWriter(Files.newOutputStream(readFile), rowGroupSize));
+	}
+
+	/**
+	 * Deletes the files.
+	 */
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		Files.deleteIfExists(exportFile);
+		Files.deleteIfExists(readFile);
+	}
+
+	/**
+	 * Encoding and compression only.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long exportToMemory() throws IOException {
+		return write(new ColumnarExportWriter(new NullOutputStream(), rowGroupSize));
+	}
+
+	/**
+	 * Complete export to the file.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long exportToFile() throws IOException {
+		return write(new ColumnarExportWriter(Files.newOutputStream(exportFile), rowGroupSize));
+	}
+
+	/**
+	 * Reading and decoding all row groups.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long readAll() throws IOException {
+		long sum = 0;
+		try (ColumnarExportReader reader = new ColumnarExportReader(readFile)) {
+			for (ColumnarRowGroupMetadata metadata : reader.getRowGroups()) {
+				ColumnarRowGroup rowGroup = reader.read(metadata);
+				sum += rowGroup.getLongColumn("methodIdent")[0];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Writes all data with the writer.
+	 *
+	 * @param writer
+	 *            Writer to use.
+	 * @return Amount of bytes written.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	private long write(ColumnarExportWriter writer) throws IOException {
+		try {
+			for (DefaultData defaultData : data) {
+				writer.write(defaultData);
+			}
+		} finally {
+			writer.close();
+		}
+		return writer.getBytesWritten();
+	}
+}
@@ -1,7 +1,12 @@
 package rocks.inspectit.server.alerting;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
@@ -20,6 +25,9 @@ import org.springframework.stereotype.Component;
 
 import rocks.inspectit.server.alerting.state.AlertingState;
 import rocks.inspectit.server.ci.event.AbstractAlertingDefinitionEvent;
+import rocks.inspectit.server.influx.ILineProtocolListener;
+import rocks.inspectit.server.influx.util.LineProtocolParser;
+import rocks.inspectit.server.influx.util.LineProtocolParser.ParsedLine;
 import rocks.inspectit.shared.all.cmr.property.spring.PropertyUpdate;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.ci.AlertingDefinition;
@@ -27,18 +35,20 @@ import rocks.inspectit.shared.cs.communication.data.cmr.AlertClosingReason;
 
 /**
  * Scheduler for the {@link ThresholdChecker} to check the threshold specified by the
- * {@link AlertingDefinition}.
+ * {@link AlertingDefinition}. The scheduler listens to the line protocol records written to the
+ * influxDB and passes the values matching an alerting definition to the threshold checker, so that
+ * thresholds are evaluated on the streamed data within seconds.
  *
  * @author Marius Oehler
  *
  */
 @Component
-public class AlertingScheduler implements Runnable, ApplicationListener<AbstractAlertingDefinitionEvent> {
+public class AlertingScheduler implements Runnable, ApplicationListener<AbstractAlertingDefinitionEvent>, ILineProtocolListener {
 
 	/**
-	 * The execution interval in minutes of this runnable.
+	 * The execution interval in seconds of this runnable.
 	 */
-	static final long CHECK_INTERVAL = 1L;
+	static final long CHECK_INTERVAL = 5L;
 
 	/**
 	 * Logger for the class.
@@ -75,6 +85,12 @@ public class AlertingScheduler implements Runnable, ApplicationListener<Abstract
 	 */
 	private List<AlertingState> alertingStates = new CopyOnWriteArrayList<>();
 
+	/**
+	 * The {@link AlertingState}s by the measurement of their {@link AlertingDefinition}. Rebuilt on
+	 * each change of the {@link #alertingStates}.
+	 */
+	private volatile Map<String, List<AlertingState>> alertingStatesByMeasurement = Collections.emptyMap();
+
 	/**
 	 * Updates the state of this {@link AlertingDefinition} instance. It is getting enabled or
 	 * disabled according to the {@link #active} field.
@@ -84,7 +100,7 @@ public class AlertingScheduler implements Runnable, ApplicationListener<Abstract
 	public void updateState() {
 		if (active) {
 			if ((scheduledFuture == null) || scheduledFuture.isDone()) {
-				scheduledFuture = executorService.scheduleAtFixedRate(this, 0L, CHECK_INTERVAL, TimeUnit.MINUTES);
+				scheduledFuture = executorService.scheduleAtFixedRate(this, 0L, CHECK_INTERVAL, TimeUnit.SECONDS);
 			}
 			if (log.isInfoEnabled()) {
 				log.info("|-Alerting scheduler has been started..");
@@ -108,15 +124,21 @@ public class AlertingScheduler implements Runnable, ApplicationListener<Abstract
 			log.debug("|-Checking alert definitions...");
 		}
 
-		long currentTime = System.currentTimeMillis();
+		if (alertingStates.isEmpty()) {
+			return;
+		}
+
+		try {
+			thresholdChecker.seedThresholds(alertingStates);
+		} catch (Exception e) {
+			if (log.isErrorEnabled()) {
+				log.error("Unexpected exception occured.", e);
+			}
+		}
 
 		for (AlertingState alertingState : alertingStates) {
 			try {
-				long nextCheckTime = alertingState.getLastCheckTime() + alertingState.getAlertingDefinition().getTimeRange(TimeUnit.MILLISECONDS);
-
-				if (nextCheckTime <= currentTime) {
-					thresholdChecker.checkThreshold(alertingState);
-				}
+				thresholdChecker.checkThreshold(alertingState);
 			} catch (Exception e) {
 				if (log.isErrorEnabled()) {
 					log.error("Unexpected exception occured.", e);
@@ -125,6 +147,76 @@ public class AlertingScheduler implements Runnable, ApplicationListener<Abstract
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isListening() {
+		return active && !alertingStatesByMeasurement.isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onRecords(String records) {
+		Map<String, List<AlertingState>> statesByMeasurement = alertingStatesByMeasurement;
+		if (!active || statesByMeasurement.isEmpty()) {
+			return;
+		}
+
+		for (ParsedLine line : LineProtocolParser.parse(records, statesByMeasurement.keySet())) {
+			for (AlertingState alertingState : statesByMeasurement.get(line.getMeasurement())) {
+				AlertingDefinition definition = alertingState.getAlertingDefinition();
+				Double value = line.getFields().get(definition.getField());
+				if ((null != value) && matchesTags(definition, line.getTags())) {
+					thresholdChecker.addValue(alertingState, value.doubleValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the tags of a line contain all tags of the given {@link AlertingDefinition}.
+	 *
+	 * @param definition
+	 *            the {@link AlertingDefinition}
+	 * @param tags
+	 *            tags of the line
+	 * @return Returns <code>true</code> if all tags of the definition are matched.
+	 */
+	private boolean matchesTags(AlertingDefinition definition, Map<String, String> tags) {
+		if (null == definition.getTags()) {
+			return true;
+		}
+		for (Entry<String, String> entry : definition.getTags().entrySet()) {
+			if (!Objects.equals(entry.getValue(), tags.get(entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Rebuilds the {@link #alertingStatesByMeasurement} index from the current
+	 * {@link #alertingStates}.
+	 */
+	private void updateIndex() {
+		Map<String, List<AlertingState>> statesByMeasurement = new HashMap<>();
+		for (AlertingState alertingState : alertingStates) {
+			String measurement = alertingState.getAlertingDefinition().getMeasurement();
+			if (null != measurement) {
+				List<AlertingState> states = statesByMeasurement.get(measurement);
+				if (null == states) {
+					states = new ArrayList<>(1);
+					statesByMeasurement.put(measurement, states);
+				}
+				states.add(alertingState);
+			}
+		}
+		alertingStatesByMeasurement = statesByMeasurement;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -151,6 +243,8 @@ public class AlertingScheduler implements Runnable, ApplicationListener<Abstract
 		default:
 			break;
 		}
+
+		updateIndex();
 	}
 
 	/**
@@ -1,22 +1,41 @@
 package rocks.inspectit.server.alerting;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Series;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import rocks.inspectit.server.alerting.state.AlertingState;
+import rocks.inspectit.server.alerting.state.ThresholdWindow;
+import rocks.inspectit.server.alerting.state.ThresholdWindow.Evaluation;
 import rocks.inspectit.server.influx.dao.InfluxDBDao;
 import rocks.inspectit.server.influx.util.InfluxQueryFactory;
 import rocks.inspectit.server.influx.util.QueryResultWrapper;
+import rocks.inspectit.server.tsdb.Aggregation;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
+import rocks.inspectit.shared.all.externalservice.ExternalServiceStatus;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.ci.AlertingDefinition;
+import rocks.inspectit.shared.cs.ci.AlertingDefinition.ThresholdType;
 
 /**
  * The threshold checker component. It is used to check the status of a given threshold defined by
- * an {@link AlertingDefinition}.
+ * an {@link AlertingDefinition}. Thresholds are checked incrementally on the values streamed to the
+ * CMR, the influxDB is only queried once per definition to seed the initial state.
  *
  * @author Marius Oehler
  *
@@ -42,10 +61,22 @@ public class ThresholdChecker {
 	@Autowired
 	private AlertingStateLifecycleManager stateManager;
 
+	/**
+	 * {@link TimeSeriesStore} instance, used for seeding if the influxDB is not connected.
+	 */
+	@Autowired
+	private TimeSeriesStore timeSeriesStore;
+
 	/**
 	 * Checks whether the threshold defined by the {@link AlertingDefinition} contained in the given
-	 * {@link AlertingState} has been violated. The result is given to the
-	 * {@link AlertingStateLifecycleManager}.
+	 * {@link AlertingState} has been violated. The values aggregated in the
+	 * {@link ThresholdWindow} of the state are evaluated, violations are reported as soon as they
+	 * are seen, valid and no data results once the time range of the definition has passed. The
+	 * result is given to the {@link AlertingStateLifecycleManager}.
+	 * <p>
+	 * On the first check the window is seeded with the data of the last time range stored in the
+	 * influxDB or, if it's not connected, in the embedded {@link TimeSeriesStore}, so that the first
+	 * result is available immediately.
 	 *
 	 * @param alertingState
 	 *            the {@link AlertingState} containing the threshold to check
@@ -55,39 +86,264 @@ public class ThresholdChecker {
 			log.debug("||-Check threshold defined by alerting definition '{}'.", alertingState.getAlertingDefinition().toString());
 		}
 
-		if (!influxDao.isConnected()) {
+		if ((influxDao.getServiceStatus() == ExternalServiceStatus.DISABLED) && !timeSeriesStore.isActive()) {
 			if (log.isDebugEnabled()) {
-				log.debug("||-Cannot check threshold without connected influxDB.");
+				log.debug("||-Cannot check threshold without active influxDB or embedded time series store.");
+			}
+			return;
+		}
+
+		long currentTime = System.currentTimeMillis();
+		long timeRange = alertingState.getAlertingDefinition().getTimeRange(TimeUnit.MILLISECONDS);
+		ThresholdWindow window = alertingState.getThresholdWindow();
+
+		if (!window.isStarted()) {
+			seed(alertingState, currentTime, timeRange);
+		}
+
+		Evaluation evaluation = window.evaluate(currentTime, timeRange);
+		switch (evaluation.getOutcome()) {
+		case VIOLATION:
+			stateManager.violation(alertingState, evaluation.getValue());
+			break;
+		case VALID:
+			stateManager.valid(alertingState);
+			break;
+		case NO_DATA:
+			stateManager.noData(alertingState);
+			break;
+		case NONE:
+		default:
+			break;
+		}
+
+		if (evaluation.isCompleted()) {
+			alertingState.setLastCheckTime(currentTime);
+		}
+	}
+
+	/**
+	 * Seeds all not yet started {@link ThresholdWindow}s of the given {@link AlertingState}s with
+	 * the data of the last time range stored in the influxDB. States sharing the measurement, field,
+	 * threshold type and time range are seeded with a single grouped query, the results per tag
+	 * group are fanned out to the states. If the influxDB is not connected, the states are seeded
+	 * from the embedded {@link TimeSeriesStore} if it's active, otherwise the windows are started on
+	 * the first check.
+	 *
+	 * @param alertingStates
+	 *            the {@link AlertingState}s to seed
+	 */
+	public void seedThresholds(Collection<AlertingState> alertingStates) {
+		Map<List<Object>, List<AlertingState>> groups = new LinkedHashMap<>();
+		for (AlertingState alertingState : alertingStates) {
+			if (!alertingState.getThresholdWindow().isStarted()) {
+				AlertingDefinition definition = alertingState.getAlertingDefinition();
+				List<Object> key = Arrays.<Object> asList(definition.getMeasurement(), definition.getField(), definition.getThresholdType(), definition.getTimeRange(TimeUnit.MILLISECONDS));
+				List<AlertingState> group = groups.get(key);
+				if (null == group) {
+					group = new ArrayList<>();
+					groups.put(key, group);
+				}
+				group.add(alertingState);
 			}
+		}
+
+		if (groups.isEmpty()) {
 			return;
 		}
 
 		long currentTime = System.currentTimeMillis();
+		if (!influxDao.isConnected()) {
+			if (timeSeriesStore.isActive()) {
+				for (List<AlertingState> group : groups.values()) {
+					for (AlertingState alertingState : group) {
+						seedFromStore(alertingState, currentTime);
+					}
+				}
+			}
+			return;
+		}
+
+		for (List<AlertingState> group : groups.values()) {
+			if (log.isDebugEnabled()) {
+				log.debug("||-Seeding {} alerting state(s) with a grouped query.", group.size());
+			}
+
+			String queryString = InfluxQueryFactory.buildGroupedThresholdCheckQuery(group, currentTime);
+			QueryResult queryResult = influxDao.query(queryString);
+			List<Series> seriesList = getSeries(queryResult);
+
+			for (AlertingState alertingState : group) {
+				AlertingDefinition definition = alertingState.getAlertingDefinition();
+				double extremeValue = Double.NaN;
+				for (Series series : seriesList) {
+					Double value = getValue(series);
+					if ((null != value) && matchesTags(definition, series.getTags())) {
+						extremeValue = extreme(definition, extremeValue, value.doubleValue());
+					}
+				}
+
+				alertingState.setLastCheckTime(currentTime);
+				if (!Double.isNaN(extremeValue)) {
+					addValue(alertingState, extremeValue);
+				}
+				alertingState.getThresholdWindow().start(currentTime - definition.getTimeRange(TimeUnit.MILLISECONDS));
+			}
+		}
+	}
+
+	/**
+	 * Adds the value to the {@link ThresholdWindow} of the given {@link AlertingState}. The value
+	 * must belong to the measurement, field and tags of the alerting definition.
+	 *
+	 * @param alertingState
+	 *            the {@link AlertingState} to add the value to
+	 * @param value
+	 *            the value
+	 */
+	public void addValue(AlertingState alertingState, double value) {
+		AlertingDefinition definition = alertingState.getAlertingDefinition();
+		boolean upperThreshold = definition.getThresholdType() != ThresholdType.LOWER_THRESHOLD;
+		alertingState.getThresholdWindow().add(value, isViolating(definition, value), upperThreshold);
+	}
+
+	/**
+	 * Starts the {@link ThresholdWindow} of the given {@link AlertingState}. If the influxDB is
+	 * connected, the window starts one time range in the past and is seeded with the extreme value
+	 * stored in the influxDB for this range. If not, the window is seeded from the embedded
+	 * {@link TimeSeriesStore} the same way as by {@link #seedThresholds(Collection)}, and only if
+	 * the store is not active either, the window starts now.
+	 *
+	 * @param alertingState
+	 *            the {@link AlertingState} to seed
+	 * @param currentTime
+	 *            the current time
+	 * @param timeRange
+	 *            time range of the alerting definition in milliseconds
+	 */
+	private void seed(AlertingState alertingState, long currentTime, long timeRange) {
+		ThresholdWindow window = alertingState.getThresholdWindow();
 
-		long lastCheckTime = alertingState.getLastCheckTime();
-		if (lastCheckTime < 0) {
-			lastCheckTime = currentTime - alertingState.getAlertingDefinition().getTimeRange(TimeUnit.MILLISECONDS);
-			alertingState.setLastCheckTime(lastCheckTime);
+		if (!influxDao.isConnected()) {
+			if (timeSeriesStore.isActive()) {
+				seedFromStore(alertingState, currentTime);
+			} else {
+				window.start(currentTime);
+			}
+			return;
 		}
 
+		alertingState.setLastCheckTime(currentTime);
 		String queryString = InfluxQueryFactory.buildThresholdCheckForAlertingStateQuery(alertingState, currentTime);
 		QueryResult queryResult = influxDao.query(queryString);
 
 		QueryResultWrapper resultWrapper = new QueryResultWrapper(queryResult);
+		if (!resultWrapper.isEmpty()) {
+			addValue(alertingState, resultWrapper.getDouble(0, 1));
+		}
+		window.start(currentTime - timeRange);
+	}
 
-		if (resultWrapper.isEmpty()) {
-			stateManager.noData(alertingState);
-		} else {
-			double extremeValue = resultWrapper.getDouble(0, 1);
+	/**
+	 * Seeds the {@link ThresholdWindow} of the given {@link AlertingState} with the data of the
+	 * last time range held by the embedded {@link TimeSeriesStore}.
+	 *
+	 * @param alertingState
+	 *            the {@link AlertingState} to seed
+	 * @param currentTime
+	 *            the current time
+	 */
+	private void seedFromStore(AlertingState alertingState, long currentTime) {
+		AlertingDefinition definition = alertingState.getAlertingDefinition();
+		long timeRange = definition.getTimeRange(TimeUnit.MILLISECONDS);
+		Aggregation aggregation = (definition.getThresholdType() == ThresholdType.LOWER_THRESHOLD) ? Aggregation.MIN : Aggregation.MAX;
 
-			if (isViolating(alertingState.getAlertingDefinition(), extremeValue)) {
-				stateManager.violation(alertingState, extremeValue);
-			} else {
-				stateManager.valid(alertingState);
+		QueryResult queryResult = timeSeriesStore.query(definition.getMeasurement(), definition.getField(), definition.getTags(), (currentTime - timeRange) + 1, currentTime, aggregation, 0L);
+		QueryResultWrapper resultWrapper = new QueryResultWrapper(queryResult);
+
+		alertingState.setLastCheckTime(currentTime);
+		if (!resultWrapper.isEmpty()) {
+			addValue(alertingState, resultWrapper.getDouble(0, 1));
+		}
+		alertingState.getThresholdWindow().start(currentTime - timeRange);
+	}
+
+	/**
+	 * Returns all series of the first result of the query.
+	 *
+	 * @param queryResult
+	 *            the {@link QueryResult}
+	 * @return the series, never <code>null</code>
+	 */
+	private List<Series> getSeries(QueryResult queryResult) {
+		if ((null == queryResult) || CollectionUtils.isEmpty(queryResult.getResults()) || CollectionUtils.isEmpty(queryResult.getResults().get(0).getSeries())) {
+			return Collections.emptyList();
+		}
+		return queryResult.getResults().get(0).getSeries();
+	}
+
+	/**
+	 * Returns the aggregated value of a series with a single row of time and value.
+	 *
+	 * @param series
+	 *            the {@link Series}
+	 * @return the value or <code>null</code> if the series has no numeric value
+	 */
+	private Double getValue(Series series) {
+		if (CollectionUtils.isEmpty(series.getValues())) {
+			return null;
+		}
+		List<Object> row = series.getValues().get(0);
+		if ((row.size() < 2) || !(row.get(1) instanceof Number)) {
+			return null;
+		}
+		return ((Number) row.get(1)).doubleValue();
+	}
+
+	/**
+	 * Checks whether the tags of a series contain all tags of the given
+	 * {@link AlertingDefinition}.
+	 *
+	 * @param definition
+	 *            the {@link AlertingDefinition}
+	 * @param tags
+	 *            tags of the series, can be <code>null</code>
+	 * @return Returns <code>true</code> if all tags of the definition are matched.
+	 */
+	private boolean matchesTags(AlertingDefinition definition, Map<String, String> tags) {
+		if (MapUtils.isEmpty(definition.getTags())) {
+			return true;
+		}
+		if (null == tags) {
+			return false;
+		}
+		for (Entry<String, String> entry : definition.getTags().entrySet()) {
+			if (!Objects.equals(entry.getValue(), tags.get(entry.getKey()))) {
+				return false;
 			}
 		}
+		return true;
+	}
 
-		alertingState.setLastCheckTime(currentTime);
+	/**
+	 * Returns the value with the larger deviation in the direction of the threshold type.
+	 *
+	 * @param definition
+	 *            the {@link AlertingDefinition} defining the threshold type
+	 * @param current
+	 *            the current extreme value, can be {@link Double#NaN}
+	 * @param value
+	 *            the value to compare
+	 * @return the new extreme value
+	 */
+	private double extreme(AlertingDefinition definition, double current, double value) {
+		if (Double.isNaN(current)) {
+			return value;
+		}
+		if (definition.getThresholdType() == ThresholdType.LOWER_THRESHOLD) {
+			return Math.min(current, value);
+		}
+		return Math.max(current, value);
 	}
 
 	/**
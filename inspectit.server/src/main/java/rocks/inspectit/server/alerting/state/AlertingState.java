@@ -37,6 +37,11 @@ public class AlertingState {
 	 */
 	private double extremeValue = Double.NaN;
 
+	/**
+	 * The window aggregating the values of the interval currently being checked.
+	 */
+	private final ThresholdWindow thresholdWindow = new ThresholdWindow();
+
 	/**
 	 * @param alertingDefinition
 	 *            the {@link AlertingDefinition} which state is represented by this instance
@@ -102,6 +107,15 @@ public class AlertingState {
 		this.lastCheckTime = lastCheckTime;
 	}
 
+	/**
+	 * Gets {@link #thresholdWindow}.
+	 *
+	 * @return {@link #thresholdWindow}
+	 */
+	public ThresholdWindow getThresholdWindow() {
+		return this.thresholdWindow;
+	}
+
 	/**
 	 * Gets {@link #alert}.
 	 *
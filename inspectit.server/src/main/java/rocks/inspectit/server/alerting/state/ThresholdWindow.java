@@ -0,0 +1,221 @@
+package rocks.inspectit.server.alerting.state;
+
+/**
+ * Window aggregating the values of an alerting definition between two threshold checks. Values are
+ * added as they arrive at the CMR, the window is evaluated and rolled over by the
+ * {@link rocks.inspectit.server.alerting.ThresholdChecker}. A violation is reported as soon as it
+ * is seen, at most once per interval. The valid or no data outcome is reported when the interval
+ * is completed.
+ * <p>
+ * The window is thread-safe, as values are added by the processing threads while it is evaluated
+ * by the alerting scheduler.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ThresholdWindow {
+
+	/**
+	 * Start of the current interval. Negative if the window has not been started yet.
+	 */
+	private long intervalStart = -1L;
+
+	/**
+	 * Amount of values added in the current interval.
+	 */
+	private long count;
+
+	/**
+	 * The value with the largest deviation in the current interval.
+	 */
+	private double extremeValue = Double.NaN;
+
+	/**
+	 * If a value violating the threshold was added in the current interval.
+	 */
+	private boolean violated;
+
+	/**
+	 * If the violation of the current interval has already been reported.
+	 */
+	private boolean violationReported;
+
+	/**
+	 * Starts the window with the interval beginning at the given time. Values added before the
+	 * start are kept. Has no effect if the window is already started.
+	 *
+	 * @param time
+	 *            Start of the first interval.
+	 */
+	public synchronized void start(long time) {
+		if (intervalStart < 0) {
+			intervalStart = time;
+		}
+	}
+
+	/**
+	 * Returns if the window has been started.
+	 *
+	 * @return If the window has been started.
+	 */
+	public synchronized boolean isStarted() {
+		return intervalStart >= 0;
+	}
+
+	/**
+	 * Adds the value to the current interval.
+	 *
+	 * @param value
+	 *            Value to add.
+	 * @param violating
+	 *            If the value violates the threshold.
+	 * @param upperThreshold
+	 *            If the threshold is an upper threshold, thus larger values deviate more.
+	 */
+	public synchronized void add(double value, boolean violating, boolean upperThreshold) {
+		count++;
+		if (Double.isNaN(extremeValue) || (upperThreshold ? (value > extremeValue) : (value < extremeValue))) {
+			extremeValue = value;
+		}
+		if (violating) {
+			violated = true;
+		}
+	}
+
+	/**
+	 * Evaluates the window at the given time. If the current interval is completed, the window is
+	 * rolled over to the interval containing the given time.
+	 *
+	 * @param currentTime
+	 *            Current time.
+	 * @param timeRange
+	 *            Length of the interval.
+	 * @return Result of the evaluation.
+	 */
+	public synchronized Evaluation evaluate(long currentTime, long timeRange) {
+		boolean completed = (timeRange <= 0) || ((currentTime - intervalStart) >= timeRange);
+
+		Evaluation evaluation;
+		if (violated && !violationReported) {
+			violationReported = true;
+			evaluation = new Evaluation(Outcome.VIOLATION, extremeValue, completed);
+		} else if (completed && !violated) {
+			evaluation = new Evaluation((count > 0) ? Outcome.VALID : Outcome.NO_DATA, extremeValue, true);
+		} else {
+			evaluation = new Evaluation(Outcome.NONE, extremeValue, completed);
+		}
+
+		if (completed) {
+			if (timeRange <= 0) {
+				intervalStart = currentTime;
+			} else {
+				intervalStart += ((currentTime - intervalStart) / timeRange) * timeRange;
+			}
+			count = 0;
+			extremeValue = Double.NaN;
+			violated = false;
+			violationReported = false;
+		}
+
+		return evaluation;
+	}
+
+	/**
+	 * Gets {@link #intervalStart}.
+	 *
+	 * @return {@link #intervalStart}
+	 */
+	public synchronized long getIntervalStart() {
+		return this.intervalStart;
+	}
+
+	/**
+	 * Outcome of a window evaluation.
+	 */
+	public enum Outcome {
+
+		/**
+		 * Nothing to report.
+		 */
+		NONE,
+
+		/**
+		 * The threshold has been violated in the current interval.
+		 */
+		VIOLATION,
+
+		/**
+		 * The completed interval had data and no violation.
+		 */
+		VALID,
+
+		/**
+		 * The completed interval had no data.
+		 */
+		NO_DATA;
+	}
+
+	/**
+	 * Result of a window evaluation.
+	 */
+	public static final class Evaluation {
+
+		/**
+		 * Outcome.
+		 */
+		private final Outcome outcome;
+
+		/**
+		 * The extreme value of the evaluated interval.
+		 */
+		private final double value;
+
+		/**
+		 * If the evaluated interval has been completed.
+		 */
+		private final boolean completed;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param outcome
+		 *            Outcome.
+		 * @param value
+		 *            The extreme value of the evaluated interval.
+		 * @param completed
+		 *            If the evaluated interval has been completed.
+		 */
+		Evaluation(Outcome outcome, double value, boolean completed) {
+			this.outcome = outcome;
+			this.value = value;
+			this.completed = completed;
+		}
+
+		/**
+		 * Gets {@link #outcome}.
+		 *
+		 * @return {@link #outcome}
+		 */
+		public Outcome getOutcome() {
+			return this.outcome;
+		}
+
+		/**
+		 * Gets {@link #value}.
+		 *
+		 * @return {@link #value}
+		 */
+		public double getValue() {
+			return this.value;
+		}
+
+		/**
+		 * Gets {@link #completed}.
+		 *
+		 * @return {@link #completed}
+		 */
+		public boolean isCompleted() {
+			return this.completed;
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package rocks.inspectit.server.cache;
 
+import java.util.function.Consumer;
+
 /**
  * Interface for Buffer functionality.
  *
@@ -107,4 +109,29 @@ public interface IBuffer<E> {
 	 * @return Returns the newest element in the buffer.
 	 */
 	E getNewestElement();
+
+	/**
+	 * Returns the number of elements that are inserted into the buffer, but still not indexed.
+	 * These elements are not visible to the queries yet.
+	 *
+	 * @return Indexing lag in number of elements.
+	 */
+	long getIndexingLagElements();
+
+	/**
+	 * Returns the time difference between the newest element in the buffer and the last indexed
+	 * element. Returns <code>0</code> if all elements are indexed.
+	 *
+	 * @return Indexing lag in milliseconds.
+	 */
+	long getIndexingLagMillis();
+
+	/**
+	 * Passes every object currently in the buffer to the given consumer, starting with the oldest
+	 * one. Elements inserted after the iteration started are not passed to the consumer.
+	 *
+	 * @param consumer
+	 *            Consumer to receive the buffer objects.
+	 */
+	void forEachElement(Consumer<? super E> consumer);
 }
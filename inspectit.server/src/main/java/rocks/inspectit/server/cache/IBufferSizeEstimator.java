@@ -0,0 +1,75 @@
+package rocks.inspectit.server.cache;
+
+/**
+ * Strategy for estimating the heap occupancy of the elements placed in the buffer. The buffer uses
+ * the estimated sizes to calculate its current size and to decide when eviction should start.
+ *
+ * @author Ivan Senic
+ *
+ */
+public interface IBufferSizeEstimator {
+
+	/**
+	 * Estimates the size of the given buffer element in bytes. The returned size should already
+	 * include the object security expansion rate.
+	 *
+	 * @param element
+	 *            Element to estimate the size for.
+	 * @return Size in bytes.
+	 */
+	long estimateSize(IBufferElement<?> element);
+
+	/**
+	 * Passes the result of the comparison between the estimated buffer size and the buffer size
+	 * measured on the heap to the estimator. Estimators that support calibration can use this
+	 * information to correct future estimations.
+	 *
+	 * @param estimatedSize
+	 *            Size of the buffer as estimated.
+	 * @param measuredSize
+	 *            Size of the buffer as measured on the heap.
+	 */
+	void calibrate(long estimatedSize, long measuredSize);
+
+	/**
+	 * Returns the factor the estimated sizes are currently multiplied with. Estimators that do not
+	 * support calibration always return <code>1</code>.
+	 *
+	 * @return Current correction factor.
+	 */
+	double getCorrectionFactor();
+
+	/**
+	 * Returns the strategy this estimator implements.
+	 *
+	 * @return {@link BufferSizeEstimationStrategy}
+	 */
+	BufferSizeEstimationStrategy getStrategy();
+
+	/**
+	 * Available strategies for the buffer size estimation.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	enum BufferSizeEstimationStrategy {
+
+		/**
+		 * Size is calculated with the {@link rocks.inspectit.shared.all.communication.Sizeable}
+		 * implementation of each data object.
+		 */
+		OBJECT_SIZES,
+
+		/**
+		 * Size is calculated from the length of the serialized object multiplied by a calibrated
+		 * factor.
+		 */
+		SERIALIZED,
+
+		/**
+		 * Size is calculated like with {@link #OBJECT_SIZES} and periodically corrected by
+		 * comparing the buffer size with the heap usage reported by the JVM.
+		 */
+		HEAP_CALIBRATED;
+	}
+}
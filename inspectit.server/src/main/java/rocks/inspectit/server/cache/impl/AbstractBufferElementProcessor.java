@@ -58,9 +58,12 @@ abstract class AbstractBufferElementProcessor<E extends DefaultData> {
 	}
 
 	/**
-	 * Processes next element to be processed. Note that this method passes the element to the
-	 * {@link #process(IBufferElement, IBufferElement)} method so that sub-classes can execute the
-	 * real processing. This method handles waiting of element to be available for processing.
+	 * Processes next chunk of elements to be processed. The chunk is claimed by moving the last
+	 * processed reference to the last element of the chunk with the compare and set, thus several
+	 * threads can process different chunks in parallel. Note that this method passes the claimed
+	 * chunk to the {@link #processChunk(IBufferElement, int)} method so that sub-classes can
+	 * execute the real processing. This method handles waiting of element to be available for
+	 * processing.
 	 *
 	 * @throws InterruptedException
 	 *             If {@link InterruptedException} occurs.
@@ -69,18 +72,14 @@ abstract class AbstractBufferElementProcessor<E extends DefaultData> {
 		// wait until there are elements to process
 		// we wait if:
 		// 1) queue is empty -> last points to empty element
-		// 2) all are analyzed -> last to process is not empty element, but points to the empty
+		// 2) all are processed -> last processed is not empty element, but points to the empty
 		// one
 		while (true) {
-			IBufferElement<E> lastProcessedElement = lastProcessed.get();
-			if ((this.atomicBuffer.emptyBufferElement == this.atomicBuffer.last.get())
-					|| ((this.atomicBuffer.emptyBufferElement != lastProcessedElement) && (this.atomicBuffer.emptyBufferElement == lastProcessedElement.getNextElement()))) { // NOPMD
+			if (isNothingToProcess(lastProcessed.get())) {
 				lock.lock();
 				try {
 					// check again with lock
-					lastProcessedElement = this.atomicBuffer.lastAnalyzed.get();
-					if ((this.atomicBuffer.emptyBufferElement == this.atomicBuffer.last.get())
-							|| ((this.atomicBuffer.emptyBufferElement != lastProcessedElement) && (this.atomicBuffer.emptyBufferElement == lastProcessedElement.getNextElement()))) { // NOPMD
+					if (isNothingToProcess(lastProcessed.get())) {
 						condition.await();
 					} else {
 						break;
@@ -93,42 +92,105 @@ abstract class AbstractBufferElementProcessor<E extends DefaultData> {
 			}
 		}
 
+		int chunkSize = getChunkSize();
 		while (true) {
+			boolean waitForProcessable = false;
 			this.atomicBuffer.clearReadLock.lock();
 			try {
-				IBufferElement<E> elementToProcess = null;
+				IBufferElement<E> chunkStart = null;
 				IBufferElement<E> lastProcessElement = lastProcessed.get();
-				// if last analyzed points to empty then we take the first added element
+				// if last processed points to empty then we take the first added element
 				if (this.atomicBuffer.emptyBufferElement == lastProcessElement) { // NOPMD
-					elementToProcess = this.atomicBuffer.last.get();
+					chunkStart = this.atomicBuffer.last.get();
 				} else {
-					elementToProcess = lastProcessElement.getNextElement();
+					chunkStart = lastProcessElement.getNextElement();
 				}
 
-				// if there is nothing to analyze any more break
-				if (this.atomicBuffer.emptyBufferElement == elementToProcess) { // NOPMD
+				// if there is nothing to process any more break
+				if (this.atomicBuffer.emptyBufferElement == chunkStart) { // NOPMD
 					break;
 				}
 
-				if (process(elementToProcess, lastProcessElement)) {
+				// find the end of the chunk
+				IBufferElement<E> chunkEnd = null;
+				IBufferElement<E> candidate = chunkStart;
+				int chunkLength = 0;
+				while ((chunkLength < chunkSize) && (this.atomicBuffer.emptyBufferElement != candidate) && isProcessable(candidate)) { // NOPMD
+					chunkEnd = candidate;
+					chunkLength++;
+					candidate = candidate.getNextElement();
+				}
+
+				if (0 == chunkLength) {
+					waitForProcessable = true;
+				} else if (lastProcessed.compareAndSet(lastProcessElement, chunkEnd)) {
+					// only thread that execute compare and set successfully owns the chunk
+					processChunk(chunkStart, chunkLength);
 					break;
 				}
 			} finally {
 				this.atomicBuffer.clearReadLock.unlock();
 			}
+
+			// we go back to the while loop after waiting, because we want to check if the next
+			// element to process has changed
+			if (waitForProcessable) {
+				waitForProcessable();
+			}
 		}
 	}
 
 	/**
-	 * Sub-classes should implement this method with the real processing.
+	 * Returns if there is nothing to process for the given last processed element.
 	 *
-	 * @param elementToProcess
-	 *            Element to be processed.
 	 * @param lastProcessedElement
-	 *            Last successfully processed element.
-	 * @return This method should return <code>true</code> if element was processed and
-	 *         <code>false</code> otherwise.
+	 *            Last processed element.
+	 * @return <code>true</code> if buffer is empty or all elements are already processed.
+	 */
+	private boolean isNothingToProcess(IBufferElement<E> lastProcessedElement) {
+		return (this.atomicBuffer.emptyBufferElement == this.atomicBuffer.last.get())
+				|| ((this.atomicBuffer.emptyBufferElement != lastProcessedElement) && (this.atomicBuffer.emptyBufferElement == lastProcessedElement.getNextElement())); // NOPMD
+	}
+
+	/**
+	 * Returns the maximum amount of elements that one thread can claim for processing at once.
+	 *
+	 * @return Chunk size, always at least <code>1</code>.
+	 */
+	private int getChunkSize() {
+		return Math.max(1, this.atomicBuffer.bufferProperties.getProcessingChunkSize());
+	}
+
+	/**
+	 * Defines if the element can be included into the chunk to be processed. Sub-classes can
+	 * override to define the elements that have to wait before being processed. Default
+	 * implementation returns <code>true</code>.
+	 *
+	 * @param element
+	 *            Element to check.
+	 * @return <code>true</code> if element can be processed now.
+	 */
+	protected boolean isProcessable(IBufferElement<E> element) {
+		return true;
+	}
+
+	/**
+	 * Called when the next element in line is not processable. Sub-classes can override to
+	 * define the waiting strategy. Default implementation does nothing.
+	 */
+	protected void waitForProcessable() {
+	}
+
+	/**
+	 * Sub-classes should implement this method with the real processing. When this method is
+	 * called, the chunk is already claimed by the calling thread and no other thread will process
+	 * the elements in it.
+	 *
+	 * @param chunkStart
+	 *            First element of the chunk.
+	 * @param chunkLength
+	 *            Number of elements in the chunk, including the first one.
 	 */
-	public abstract boolean process(IBufferElement<E> elementToProcess, IBufferElement<E> lastProcessedElement);
+	protected abstract void processChunk(IBufferElement<E> chunkStart, int chunkLength);
 
 }
\ No newline at end of file
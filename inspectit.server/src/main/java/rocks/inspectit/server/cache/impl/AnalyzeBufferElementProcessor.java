@@ -37,20 +37,26 @@ class AnalyzeBufferElementProcessor<E extends DefaultData> extends AbstractBuffe
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * Sizes of all elements in the chunk are added to the buffer size at once. The evicting thread
+	 * waiting for the analysis is notified afterwards.
 	 */
 	@Override
-	public boolean process(IBufferElement<E> elementToProcess, IBufferElement<E> lastProcessedElement) {
-		// only thread that execute compare and set successfully can perform changes
-		if (lastProcessed.compareAndSet(lastProcessedElement, elementToProcess)) {
+	protected void processChunk(IBufferElement<E> chunkStart, int chunkLength) {
+		long chunkSize = 0;
+		IBufferElement<E> element = chunkStart;
+		for (int i = 0; i < chunkLength; i++) {
 			// perform analysis
-			elementToProcess.calculateAndSetBufferElementSize(atomicBuffer.objectSizes);
-			elementToProcess.setBufferElementState(BufferElementState.ANALYZED);
-			atomicBuffer.addToCurrentSize(elementToProcess.getBufferElementSize(), true);
-			atomicBuffer.elementsAnalyzed.incrementAndGet();
-			return true;
+			long size = atomicBuffer.sizeEstimator.estimateSize(element);
+			element.setBufferElementSize(size);
+			element.setBufferElementState(BufferElementState.ANALYZED);
+			chunkSize += size;
+			element = element.getNextElement();
 		}
 
-		return false;
+		atomicBuffer.addToCurrentSize(chunkSize, true);
+		atomicBuffer.elementsAnalyzed.addAndGet(chunkLength);
+		atomicBuffer.notifyElementsAnalyzed();
 	}
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package rocks.inspectit.server.cache.impl;
 import java.text.NumberFormat;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -11,6 +12,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
 
@@ -21,6 +23,7 @@ import org.springframework.stereotype.Component;
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.cache.IBufferElement.BufferElementState;
+import rocks.inspectit.server.cache.IBufferSizeEstimator;
 import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
 import rocks.inspectit.shared.all.cmr.property.spring.PropertyUpdate;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -40,6 +43,12 @@ import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
 @Component
 public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 
+	/**
+	 * Max time in milliseconds the evicting thread waits for the oldest element to be analyzed.
+	 * The wait is bounded so that a missed signal can only delay the eviction.
+	 */
+	private static final long ANALYSIS_WAIT_TIME = 100;
+
 	/** The logger of this class. */
 	@Log
 	Logger log;
@@ -56,6 +65,12 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 	@Autowired
 	IObjectSizes objectSizes;
 
+	/**
+	 * Estimator for the sizes of the buffer elements.
+	 */
+	@Autowired
+	IBufferSizeEstimator sizeEstimator;
+
 	/**
 	 * Indexing tree where the elements will be indexed.
 	 */
@@ -124,6 +139,18 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 	 */
 	private Condition nothingToEvict = evictLock.newCondition();
 
+	/**
+	 * Condition that states that the oldest element is not analyzed yet, thus it can not be
+	 * evicted.
+	 */
+	private Condition oldestNotAnalyzed = evictLock.newCondition();
+
+	/**
+	 * If the evicting thread waits on the {@link #oldestNotAnalyzed} condition. Lets the analyzing
+	 * threads skip the locking when nobody waits.
+	 */
+	private volatile boolean waitingForAnalysis;
+
 	/**
 	 * Analyze lock.
 	 */
@@ -283,6 +310,10 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 	 * smaller than eviction occupancy percentage. This method also sets the cleaning flag after
 	 * every {@value #elementsCountForMaintenance}th element evicted.
 	 * <p>
+	 * If the oldest element is not analyzed yet, nothing is evicted and the executing thread waits
+	 * until the analyzing threads signal analyzed elements, but at most {@value #ANALYSIS_WAIT_TIME}
+	 * milliseconds.
+	 * <p>
 	 * This method is designed for multiply thread access.
 	 */
 	@Override
@@ -300,6 +331,7 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 			}
 		}
 
+		boolean nothingAnalyzed = false;
 		while (true) {
 			clearReadLock.lock();
 			try {
@@ -319,7 +351,9 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 				int elementsInFragment = 0;
 
 				// iterate until size of the eviction fragment is reached
-				while (fragmentSize < evictionFragmentMaxSize) {
+				// we never evict elements that are not analyzed yet, as analyzing threads process
+				// chunks in parallel and the size of such element is still not known
+				while ((fragmentSize < evictionFragmentMaxSize) && newLastElement.isAnalyzed()) {
 					fragmentSize += newLastElement.getBufferElementSize();
 					newLastElement.setBufferElementState(BufferElementState.EVICTED);
 					elementsInFragment++;
@@ -331,6 +365,12 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 					}
 				}
 
+				// the oldest element is not analyzed yet, wait outside of the clear lock
+				if (0 == elementsInFragment) {
+					nothingAnalyzed = true;
+					break;
+				}
+
 				// change the last element to the right one
 				// only thread that execute compare and set successfully can perform changes
 				if (last.compareAndSet(currentLastElement, newLastElement)) {
@@ -356,6 +396,46 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 			}
 		}
 
+		if (nothingAnalyzed) {
+			waitForAnalysis();
+		}
+	}
+
+	/**
+	 * Waits until the oldest element in the buffer is analyzed, but at most
+	 * {@value #ANALYSIS_WAIT_TIME} milliseconds.
+	 *
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting.
+	 */
+	private void waitForAnalysis() throws InterruptedException {
+		evictLock.lock();
+		try {
+			waitingForAnalysis = true;
+			// check again after setting the flag so that the signal can not be missed
+			IBufferElement<E> oldest = last.get();
+			if (!emptyBufferElement.equals(oldest) && !oldest.isAnalyzed()) {
+				oldestNotAnalyzed.await(ANALYSIS_WAIT_TIME, TimeUnit.MILLISECONDS);
+			}
+		} finally {
+			waitingForAnalysis = false;
+			evictLock.unlock();
+		}
+	}
+
+	/**
+	 * Notifies the evicting thread waiting for the oldest element to be analyzed. Called by the
+	 * analyzing threads after a chunk of elements is analyzed.
+	 */
+	void notifyElementsAnalyzed() {
+		if (waitingForAnalysis) {
+			evictLock.lock();
+			try {
+				oldestNotAnalyzed.signalAll();
+			} finally {
+				evictLock.unlock();
+			}
+		}
 	}
 
 	/**
@@ -554,6 +634,40 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 		return elementsAnalyzed.get();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getIndexingLagElements() {
+		return Math.max(0, elementsAdded.get() - elementsIndexed.get());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getIndexingLagMillis() {
+		E newest = first.get().getObject();
+		if ((null == newest) || (null == newest.getTimeStamp())) {
+			return 0;
+		}
+
+		IBufferElement<E> lastIndexedElement = lastIndexed.get();
+		if (lastIndexedElement == first.get()) {
+			return 0;
+		}
+
+		// if nothing is indexed compare to the oldest element in the buffer
+		E indexed = lastIndexedElement.getObject();
+		if (null == indexed) {
+			indexed = last.get().getObject();
+		}
+		if ((null == indexed) || (null == indexed.getTimeStamp())) {
+			return 0;
+		}
+		return Math.max(0, newest.getTimeStamp().getTime() - indexed.getTimeStamp().getTime());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -578,6 +692,34 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Iteration is done under the clear read lock, so the buffer can not be cleared while the
+	 * elements are passed to the consumer. Eviction only moves the reference to the last element,
+	 * thus the chain of elements stays valid even if elements are evicted in the meantime.
+	 */
+	@Override
+	public void forEachElement(Consumer<? super E> consumer) {
+		clearReadLock.lock();
+		try {
+			IBufferElement<E> newest = first.get();
+			if (emptyBufferElement.equals(newest)) {
+				return;
+			}
+			IBufferElement<E> element = last.get();
+			while (!emptyBufferElement.equals(element)) {
+				consumer.accept(element.getObject());
+				if (element == newest) {
+					break;
+				}
+				element = element.getNextElement();
+			}
+		} finally {
+			clearReadLock.unlock();
+		}
+	}
+
 	/**
 	 * Is executed after dependency injection is done to perform any initialization.
 	 *
@@ -665,6 +807,12 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 
 		msg.append("\n-Elements evicted: ");
 		msg.append(NumberFormat.getInstance().format(elementsEvicted.get()));
+
+		msg.append("\n-Indexing lag: ");
+		msg.append(NumberFormat.getInstance().format(getIndexingLagElements()));
+		msg.append(" elements / ");
+		msg.append(NumberFormat.getInstance().format(getIndexingLagMillis()));
+		msg.append(" ms");
 		msg.append('\n');
 		return msg.toString();
 	}
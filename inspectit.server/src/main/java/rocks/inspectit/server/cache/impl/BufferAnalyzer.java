@@ -1,10 +1,5 @@
 package rocks.inspectit.server.cache.impl;
 
-import javax.annotation.PostConstruct;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
-
 import rocks.inspectit.server.cache.IBuffer;
 
 /**
@@ -13,35 +8,36 @@ import rocks.inspectit.server.cache.IBuffer;
  * @author Ivan Senic
  *
  */
-@Component
 public class BufferAnalyzer extends BufferWorker {
 
 	/**
-	 * Default constructor. Just calls super class constructor.
+	 * Default constructor. Uses the default thread name.
 	 *
 	 * @param buffer
 	 *            Buffer to work on.
 	 */
-	@Autowired
 	public BufferAnalyzer(IBuffer<?> buffer) {
-		super(buffer, "buffer-analyzing-thread");
+		this(buffer, "buffer-analyzing-thread");
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Constructor that allows definition of the thread name.
+	 *
+	 * @param buffer
+	 *            Buffer to work on.
+	 * @param threadName
+	 *            How to name the thread.
 	 */
-	@Override
-	public void work() throws InterruptedException {
-		getBuffer().analyzeNext();
+	public BufferAnalyzer(IBuffer<?> buffer, String threadName) {
+		super(buffer, threadName);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	@PostConstruct
-	public synchronized void start() {
-		super.start();
+	public void work() throws InterruptedException {
+		getBuffer().analyzeNext();
 	}
 
 }
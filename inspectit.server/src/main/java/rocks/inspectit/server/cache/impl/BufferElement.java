@@ -31,7 +31,7 @@ public class BufferElement<E extends DefaultData> implements IBufferElement<E> {
 	/**
 	 * Buffer element state.
 	 */
-	private BufferElementState bufferElementState;
+	private volatile BufferElementState bufferElementState;
 
 	/**
 	 * Default constructor.
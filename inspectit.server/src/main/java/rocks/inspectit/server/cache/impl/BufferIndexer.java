@@ -1,10 +1,5 @@
 package rocks.inspectit.server.cache.impl;
 
-import javax.annotation.PostConstruct;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
-
 import rocks.inspectit.server.cache.IBuffer;
 
 /**
@@ -13,36 +8,37 @@ import rocks.inspectit.server.cache.IBuffer;
  * @author Ivan Senic
  *
  */
-@Component
 public class BufferIndexer extends BufferWorker {
 
 	/**
-	 * Default constructor. Just calls super class constructor.
+	 * Default constructor. Uses the default thread name.
 	 *
 	 * @param buffer
 	 *            Buffer to work on.
 	 */
-	@Autowired
 	public BufferIndexer(IBuffer<?> buffer) {
-		super(buffer, "buffer-indexing-thread");
-		setPriority(NORM_PRIORITY);
+		this(buffer, "buffer-indexing-thread");
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Constructor that allows definition of the thread name.
+	 *
+	 * @param buffer
+	 *            Buffer to work on.
+	 * @param threadName
+	 *            How to name the thread.
 	 */
-	@Override
-	public void work() throws InterruptedException {
-		getBuffer().indexNext();
+	public BufferIndexer(IBuffer<?> buffer, String threadName) {
+		super(buffer, threadName);
+		setPriority(NORM_PRIORITY);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	@PostConstruct
-	public synchronized void start() {
-		super.start();
+	public void work() throws InterruptedException {
+		getBuffer().indexNext();
 	}
 
 }
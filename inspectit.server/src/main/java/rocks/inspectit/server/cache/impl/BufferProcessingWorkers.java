@@ -0,0 +1,90 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Component that starts the {@link BufferAnalyzer} and {@link BufferIndexer} threads. Number of
+ * threads of each kind is defined in the {@link BufferProperties}. As every thread claims a chunk
+ * of elements to process, several threads can analyze and index in parallel.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class BufferProcessingWorkers {
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * Buffer to work on.
+	 */
+	@Autowired
+	IBuffer<?> buffer;
+
+	/**
+	 * Buffer properties.
+	 */
+	@Autowired
+	BufferProperties bufferProperties;
+
+	/**
+	 * All started workers.
+	 */
+	private final List<BufferWorker> workers = new ArrayList<>();
+
+	/**
+	 * Creates and starts the workers.
+	 */
+	@PostConstruct
+	public void start() {
+		int analyzingThreads = bufferProperties.getAnalyzingThreads();
+		for (int i = 0; i < analyzingThreads; i++) {
+			startWorker(new BufferAnalyzer(buffer, "buffer-analyzing-thread-" + i));
+		}
+
+		int indexingThreads = bufferProperties.getIndexingThreads();
+		for (int i = 0; i < indexingThreads; i++) {
+			startWorker(new BufferIndexer(buffer, "buffer-indexing-thread-" + i));
+		}
+
+		if (log.isInfoEnabled()) {
+			log.info("|-Buffer started with " + analyzingThreads + " analyzing and " + indexingThreads + " indexing threads...");
+		}
+	}
+
+	/**
+	 * Interrupts all started workers.
+	 */
+	@PreDestroy
+	public void stop() {
+		for (BufferWorker worker : workers) {
+			worker.interrupt();
+		}
+		workers.clear();
+	}
+
+	/**
+	 * Starts the worker and remembers it.
+	 *
+	 * @param worker
+	 *            Worker to start.
+	 */
+	private void startWorker(BufferWorker worker) {
+		worker.start();
+		workers.add(worker);
+	}
+
+}
@@ -107,6 +107,24 @@ public class BufferProperties {
 	@Value(value = "${buffer.indexingWaitTime}")
 	long indexingWaitTime;
 
+	/**
+	 * Maximum number of elements one analyzing or indexing thread claims for processing at once.
+	 */
+	@Value(value = "${buffer.processingChunkSize}")
+	int processingChunkSize;
+
+	/**
+	 * Number of threads that are analyzing the buffer elements.
+	 */
+	@Value(value = "${buffer.analyzingThreads}")
+	int analyzingThreads;
+
+	/**
+	 * Number of threads that are indexing the buffer elements.
+	 */
+	@Value(value = "${buffer.indexingThreads}")
+	int indexingThreads;
+
 	/**
 	 * Size of old space occupancy till which min occupancy will be active.
 	 */
@@ -237,6 +255,27 @@ public class BufferProperties {
 		return indexingWaitTime;
 	}
 
+	/**
+	 * @return the processingChunkSize
+	 */
+	public int getProcessingChunkSize() {
+		return processingChunkSize;
+	}
+
+	/**
+	 * @return Number of analyzing threads.
+	 */
+	public int getAnalyzingThreads() {
+		return analyzingThreads;
+	}
+
+	/**
+	 * @return Number of indexing threads.
+	 */
+	public int getIndexingThreads() {
+		return indexingThreads;
+	}
+
 	/**
 	 * @return the minOldSpaceOccupancyActiveTillOldGenSize
 	 */
@@ -392,6 +431,22 @@ public class BufferProperties {
 		}
 	}
 
+	/**
+	 * Returns the memory pool bean of the old generation.
+	 *
+	 * @return Returns the memory pool bean of the old generation or <code>null</code> if such pool
+	 *         can not be found.
+	 */
+	MemoryPoolMXBean getOldGenMemoryPool() {
+		List<MemoryPoolMXBean> memBeans = ManagementFactory.getMemoryPoolMXBeans();
+		for (MemoryPoolMXBean memBean : memBeans) {
+			if ((memBean.getName().indexOf(OLD_GEN_POOL_NAME) != -1) || (memBean.getName().indexOf(TENURED_GEN_POOL_NAME) != -1)) {
+				return memBean;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Tries to find out the old space generation size.
 	 *
@@ -403,13 +458,10 @@ public class BufferProperties {
 
 		// try with Memory pool beans
 		try {
-			List<MemoryPoolMXBean> memBeans = ManagementFactory.getMemoryPoolMXBeans();
-			for (MemoryPoolMXBean memBean : memBeans) {
-				if ((memBean.getName().indexOf(OLD_GEN_POOL_NAME) != -1) || (memBean.getName().indexOf(TENURED_GEN_POOL_NAME) != -1)) {
-					MemoryUsage memUsage = memBean.getUsage();
-					oldGenMax = memUsage.getMax();
-					break;
-				}
+			MemoryPoolMXBean memBean = getOldGenMemoryPool();
+			if (null != memBean) {
+				MemoryUsage memUsage = memBean.getUsage();
+				oldGenMax = memUsage.getMax();
 			}
 		} catch (Exception e) {
 			oldGenMax = 0;
@@ -459,6 +511,9 @@ public class BufferProperties {
 			log.info("||-Eviction fragment size percentage: " + NumberFormat.getInstance().format(evictionFragmentSizePercentage * 100) + "%");
 			log.info("||-Indexing tree cleaning threads: " + NumberFormat.getInstance().format(indexingTreeCleaningThreads));
 			log.info("||-Indexing waiting time: " + NumberFormat.getInstance().format(indexingWaitTime) + " ms");
+			log.info("||-Processing chunk size: " + NumberFormat.getInstance().format(processingChunkSize) + " elements");
+			log.info("||-Analyzing threads: " + NumberFormat.getInstance().format(analyzingThreads));
+			log.info("||-Indexing threads: " + NumberFormat.getInstance().format(indexingThreads));
 			log.info("||-Min old generation occupancy percentage active till: " + NumberFormat.getInstance().format(minOldSpaceOccupancyActiveTillOldGenSize) + " bytes");
 			log.info("||-Max old generation occupancy percentage active from: " + NumberFormat.getInstance().format(maxOldSpaceOccupancyActiveFromOldGenSize) + " bytes");
 			log.info("||-Min old generation occupancy percentage: " + NumberFormat.getInstance().format(minOldSpaceOccupancy * 100) + "%");
@@ -519,6 +574,18 @@ public class BufferProperties {
 			throw new BeanInitializationException(
 					"Buffer properties initialization error: The indexing wait time can not be less or equal than zero. Initialization value is: " + this.indexingWaitTime);
 		}
+		if (this.processingChunkSize <= 0) {
+			throw new BeanInitializationException(
+					"Buffer properties initialization error: The processing chunk size can not be less or equal than zero. Initialization value is: " + this.processingChunkSize);
+		}
+		if (this.analyzingThreads <= 0) {
+			throw new BeanInitializationException(
+					"Buffer properties initialization error: The number of analyzing threads can not be less or equal than zero. Initialization value is: " + this.analyzingThreads);
+		}
+		if (this.indexingThreads <= 0) {
+			throw new BeanInitializationException(
+					"Buffer properties initialization error: The number of indexing threads can not be less or equal than zero. Initialization value is: " + this.indexingThreads);
+		}
 
 		// old space settings
 		if (this.minOldSpaceOccupancyActiveTillOldGenSize <= 0) {
@@ -0,0 +1,169 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.text.NumberFormat;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.cache.IBufferSizeEstimator;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Self-check of the buffer size estimation. Periodically compares the estimated buffer size with
+ * the heap occupied by the buffer and reports the divergence. The heap occupied by the buffer is
+ * the old generation usage after the last garbage collection minus the baseline usage recorded
+ * while the buffer was (almost) empty. The result of each check is passed to the
+ * {@link IBufferSizeEstimator} for calibration.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class BufferSizeEstimationCheck {
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * The fixed rate of the check.
+	 */
+	private static final int FIXED_RATE = 60000;
+
+	/**
+	 * Buffer occupancy till which the heap usage is considered as the baseline.
+	 */
+	private static final float BASELINE_OCCUPANCY = 0.01f;
+
+	/**
+	 * Divergence from which a warning is logged.
+	 */
+	private static final double WARN_DIVERGENCE = 0.25d;
+
+	/**
+	 * Buffer to check.
+	 */
+	@Autowired
+	IBuffer<?> buffer;
+
+	/**
+	 * Estimator to calibrate.
+	 */
+	@Autowired
+	IBufferSizeEstimator bufferSizeEstimator;
+
+	/**
+	 * Buffer properties for locating the old generation pool.
+	 */
+	@Autowired
+	BufferProperties bufferProperties;
+
+	/**
+	 * The memory mx bean used as a fallback if old generation pool is not available.
+	 */
+	private MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * Heap usage when the buffer was (almost) empty. Negative value means baseline is not yet
+	 * known, in which case no calibration is done.
+	 */
+	private long baselineHeapUsage = -1;
+
+	/**
+	 * Divergence of the last check, calculated as <code>(estimated - measured) / measured</code>.
+	 */
+	private volatile double lastDivergence;
+
+	/**
+	 * Performs the check.
+	 */
+	@Scheduled(fixedRate = FIXED_RATE)
+	public void check() {
+		long heapUsage = getHeapUsage();
+		if (heapUsage <= 0) {
+			return;
+		}
+
+		long estimatedSize = buffer.getCurrentSize();
+		if (buffer.getOccupancyPercentage() < BASELINE_OCCUPANCY) {
+			baselineHeapUsage = heapUsage - estimatedSize;
+			return;
+		}
+
+		if (baselineHeapUsage < 0) {
+			// buffer was never seen (almost) empty, the baseline derived from the estimated size
+			// would assume the estimation is correct, thus nothing can be checked
+			return;
+		}
+
+		long measuredSize = heapUsage - baselineHeapUsage;
+		if (measuredSize <= 0) {
+			return;
+		}
+
+		lastDivergence = (double) (estimatedSize - measuredSize) / measuredSize;
+		bufferSizeEstimator.calibrate(estimatedSize, measuredSize);
+
+		if (Math.abs(lastDivergence) > WARN_DIVERGENCE) {
+			if (log.isWarnEnabled()) {
+				log.warn(getReport(estimatedSize, measuredSize));
+			}
+		} else if (log.isDebugEnabled()) {
+			log.debug(getReport(estimatedSize, measuredSize));
+		}
+	}
+
+	/**
+	 * Returns the divergence of the last check, calculated as
+	 * <code>(estimated - measured) / measured</code>. Positive values mean that the buffer size is
+	 * overestimated.
+	 *
+	 * @return Divergence of the last check.
+	 */
+	public double getLastDivergence() {
+		return lastDivergence;
+	}
+
+	/**
+	 * Returns the heap usage to compare with. This is the usage of the old generation after the
+	 * last garbage collection, or the complete heap usage if this is not available.
+	 *
+	 * @return Heap usage in bytes.
+	 */
+	private long getHeapUsage() {
+		try {
+			MemoryPoolMXBean oldGenPool = bufferProperties.getOldGenMemoryPool();
+			if (null != oldGenPool) {
+				MemoryUsage collectionUsage = oldGenPool.getCollectionUsage();
+				if ((null != collectionUsage) && (collectionUsage.getUsed() > 0)) {
+					return collectionUsage.getUsed();
+				}
+			}
+		} catch (Exception e) { // NOPMD
+			// fall back to the memory bean
+		}
+		return memoryMXBean.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Creates the report message.
+	 *
+	 * @param estimatedSize
+	 *            Estimated buffer size.
+	 * @param measuredSize
+	 *            Measured buffer size.
+	 * @return Message.
+	 */
+	private String getReport(long estimatedSize, long measuredSize) {
+		NumberFormat format = NumberFormat.getInstance();
+		return "Buffer size estimation (" + bufferSizeEstimator.getStrategy() + ") diverges " + format.format(lastDivergence * 100) + "% from the heap usage: estimated "
+				+ format.format(estimatedSize) + " bytes, measured " + format.format(measuredSize) + " bytes, correction factor " + format.format(bufferSizeEstimator.getCorrectionFactor());
+	}
+}
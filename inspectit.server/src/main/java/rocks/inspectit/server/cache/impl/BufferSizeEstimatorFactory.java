@@ -0,0 +1,110 @@
+package rocks.inspectit.server.cache.impl;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.server.cache.IBufferSizeEstimator;
+import rocks.inspectit.server.cache.IBufferSizeEstimator.BufferSizeEstimationStrategy;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Factory for returning the {@link IBufferSizeEstimator} defined with the
+ * <code>buffer.sizeEstimationStrategy</code> property. If the property value does not denote any
+ * of the {@link BufferSizeEstimationStrategy} values, the
+ * {@link BufferSizeEstimationStrategy#OBJECT_SIZES} strategy is used.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class BufferSizeEstimatorFactory implements FactoryBean<IBufferSizeEstimator> {
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * Object sizes.
+	 */
+	@Autowired
+	IObjectSizes objectSizes;
+
+	/**
+	 * Serialization manager provider for the serialized size estimation.
+	 */
+	@Autowired
+	SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Name of the strategy to use.
+	 */
+	@Value("${buffer.sizeEstimationStrategy}")
+	String sizeEstimationStrategy;
+
+	/**
+	 * Initial factor for the serialized size estimation.
+	 */
+	@Value("${buffer.serializedSizeFactor}")
+	float serializedSizeFactor;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IBufferSizeEstimator getObject() throws Exception {
+		BufferSizeEstimationStrategy strategy = getStrategy();
+		if (log.isInfoEnabled()) {
+			log.info("|-Using buffer size estimation strategy " + strategy);
+		}
+
+		switch (strategy) {
+		case SERIALIZED:
+			return new SerializedBufferSizeEstimator(objectSizes, serializationManagerProvider, serializedSizeFactor);
+		case HEAP_CALIBRATED:
+			return new HeapCalibratedBufferSizeEstimator(objectSizes);
+		case OBJECT_SIZES:
+		default:
+			return new ObjectSizesBufferSizeEstimator(objectSizes);
+		}
+	}
+
+	/**
+	 * Returns the strategy defined in the property.
+	 *
+	 * @return {@link BufferSizeEstimationStrategy}
+	 */
+	private BufferSizeEstimationStrategy getStrategy() {
+		if (null == sizeEstimationStrategy) {
+			return BufferSizeEstimationStrategy.OBJECT_SIZES;
+		}
+
+		try {
+			return BufferSizeEstimationStrategy.valueOf(sizeEstimationStrategy.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			log.warn("|-Unknown buffer size estimation strategy " + sizeEstimationStrategy + ", falling back to " + BufferSizeEstimationStrategy.OBJECT_SIZES);
+			return BufferSizeEstimationStrategy.OBJECT_SIZES;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Class<IBufferSizeEstimator> getObjectType() {
+		return IBufferSizeEstimator.class;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSingleton() {
+		return true;
+	}
+
+}
@@ -0,0 +1,627 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.esotericsoftware.kryo.io.ByteBufferInputStream;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.util.CacheIdGenerator;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.ExceptionSensorData;
+import rocks.inspectit.shared.all.communication.data.InvocationAwareData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.serializer.ISerializer;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+
+/**
+ * Writes the content of the buffer to the disk when the CMR is shut down (and optionally
+ * periodically) and restores it on the next start, so that the monitoring data collected before
+ * the restart stays available.
+ * <p>
+ * Each snapshot is a folder holding the buffer elements serialized in the segment files (same
+ * format as storage data files) and a small index file that is written last and thus marks the
+ * snapshot as complete. On restore the segments are memory mapped and de-serialized in parallel.
+ * The restored elements are put directly to the buffer without passing the CMR processors, as they
+ * have already been processed before the snapshot was written. The buffer indexing tree is rebuilt
+ * by the buffer workers, while the data found only in the invocations is indexed directly.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class BufferSnapshotManager implements ApplicationListener<ContextClosedEvent> {
+
+	/**
+	 * Name of the index file in the snapshot folder.
+	 */
+	static final String INDEX_FILE_NAME = "snapshot" + StorageFileType.INDEX_FILE.getExtension();
+
+	/**
+	 * Prefix of the segment files.
+	 */
+	static final String SEGMENT_FILE_PREFIX = "segment-";
+
+	/**
+	 * Version of the index file format.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Size in bytes after which a new segment file is started.
+	 */
+	private static final long SEGMENT_MAX_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * Initial size of the buffer used to serialize one element.
+	 */
+	private static final int ELEMENT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Size of the input buffer used when reading the segments.
+	 */
+	private static final int INPUT_BUFFER_SIZE = 65536;
+
+	/**
+	 * Rate of the check if the periodic snapshot should be written.
+	 */
+	private static final int CHECK_RATE = 60000;
+
+	/**
+	 * The logger of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * If snapshot is active.
+	 */
+	@Value("${buffer.snapshotActive}")
+	boolean snapshotActive;
+
+	/**
+	 * Folder where snapshots are written.
+	 */
+	@Value("${buffer.snapshotFolder}")
+	String snapshotFolder;
+
+	/**
+	 * Period in minutes for writing the snapshot during runtime. Zero or less means only on
+	 * shutdown.
+	 */
+	@Value("${buffer.snapshotPeriod}")
+	long snapshotPeriod;
+
+	/**
+	 * Buffer to snapshot.
+	 */
+	@Autowired
+	IBuffer<MethodSensorData> buffer;
+
+	/**
+	 * Indexing tree for the data only found in invocations.
+	 */
+	@Autowired
+	IBufferTreeComponent<DefaultData> indexingTree;
+
+	/**
+	 * Id generator to keep in sync with the restored elements.
+	 */
+	@Autowired
+	CacheIdGenerator cacheIdGenerator;
+
+	/**
+	 * Serialization manager provider.
+	 */
+	@Autowired
+	SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Time when the last snapshot was written or restored.
+	 */
+	private volatile long lastSnapshotTime;
+
+	/**
+	 * Writes the snapshot when the application context is closed.
+	 *
+	 * @param event
+	 *            {@link ContextClosedEvent}
+	 */
+	@Override
+	public void onApplicationEvent(ContextClosedEvent event) {
+		if (snapshotActive) {
+			writeSnapshot();
+		}
+	}
+
+	/**
+	 * Writes the snapshot if the snapshot period has passed since the last snapshot.
+	 */
+	@Scheduled(fixedRate = CHECK_RATE)
+	public void writePeriodicSnapshot() {
+		if (snapshotActive && (snapshotPeriod > 0) && ((System.currentTimeMillis() - lastSnapshotTime) >= (snapshotPeriod * 60000))) {
+			writeSnapshot();
+		}
+	}
+
+	/**
+	 * Writes the current content of the buffer to a new snapshot. Older snapshots are deleted
+	 * after the new one has been successfully written.
+	 *
+	 * @return Number of written elements or <code>-1</code> if the snapshot could not be written.
+	 */
+	public synchronized int writeSnapshot() {
+		long startTime = System.currentTimeMillis();
+		final List<MethodSensorData> elements = new ArrayList<>();
+		buffer.forEachElement(elements::add);
+
+		Path snapshotPath = Paths.get(snapshotFolder).resolve(String.valueOf(startTime)).toAbsolutePath();
+		ISerializer serializer = serializationManagerProvider.createSerializer();
+		List<String> segmentNames = new ArrayList<>();
+		List<Integer> segmentCounts = new ArrayList<>();
+		int written = 0;
+		OutputStream segmentStream = null;
+		try {
+			Files.createDirectories(snapshotPath);
+
+			Output elementOutput = new Output(ELEMENT_BUFFER_SIZE, -1);
+			long segmentSize = 0;
+			int segmentCount = 0;
+			for (MethodSensorData element : elements) {
+				elementOutput.clear();
+				try {
+					serializer.serialize(element, elementOutput);
+				} catch (SerializationException e) {
+					log.warn("|-Element " + element + " can not be serialized for the buffer snapshot.", e);
+					continue;
+				}
+
+				if (null == segmentStream) {
+					String segmentName = SEGMENT_FILE_PREFIX + segmentNames.size() + StorageFileType.DATA_FILE.getExtension();
+					segmentNames.add(segmentName);
+					segmentStream = new BufferedOutputStream(Files.newOutputStream(snapshotPath.resolve(segmentName)), INPUT_BUFFER_SIZE);
+					segmentSize = 0;
+					segmentCount = 0;
+				}
+				segmentStream.write(elementOutput.getBuffer(), 0, elementOutput.position());
+				segmentSize += elementOutput.position();
+				segmentCount++;
+				written++;
+
+				if (segmentSize >= SEGMENT_MAX_SIZE) {
+					segmentStream.close();
+					segmentStream = null;
+					segmentCounts.add(segmentCount);
+				}
+			}
+			if (null != segmentStream) {
+				segmentStream.close();
+				segmentStream = null;
+				segmentCounts.add(segmentCount);
+			}
+
+			writeIndex(snapshotPath, startTime, segmentNames, segmentCounts);
+		} catch (IOException e) {
+			log.error("|-Buffer snapshot could not be written to " + snapshotPath + ".", e);
+			closeQuietly(segmentStream);
+			deleteSnapshot(snapshotPath);
+			return -1;
+		}
+
+		deleteOtherSnapshots(snapshotPath);
+		lastSnapshotTime = System.currentTimeMillis();
+		log.info("|-Buffer snapshot with " + written + " elements written to " + snapshotPath + " in " + (lastSnapshotTime - startTime) + " ms.");
+		return written;
+	}
+
+	/**
+	 * Restores the newest complete snapshot into the buffer.
+	 *
+	 * @return Number of restored elements.
+	 */
+	public synchronized int restoreSnapshot() {
+		Path snapshotPath = getNewestSnapshot();
+		if (null == snapshotPath) {
+			return 0;
+		}
+
+		long startTime = System.currentTimeMillis();
+		List<List<MethodSensorData>> segments;
+		try {
+			segments = readSegments(snapshotPath);
+		} catch (IOException e) {
+			log.error("|-Buffer snapshot could not be restored from " + snapshotPath + ".", e);
+			return 0;
+		}
+
+		// make sure no restored id is assigned again, before the elements become visible
+		long maxId = 0;
+		for (List<MethodSensorData> segment : segments) {
+			for (MethodSensorData element : segment) {
+				maxId = Math.max(maxId, getMaxId(element));
+			}
+		}
+		cacheIdGenerator.ensureNextIdAbove(maxId);
+
+		int restored = 0;
+		for (List<MethodSensorData> segment : segments) {
+			for (MethodSensorData element : segment) {
+				if (element instanceof InvocationSequenceData) {
+					InvocationSequenceData invocation = (InvocationSequenceData) element;
+					invocation.updateOverviewProjection();
+					indexInvocationData(invocation);
+				}
+				buffer.put(new BufferElement<>(element));
+				restored++;
+			}
+		}
+
+		lastSnapshotTime = System.currentTimeMillis();
+		log.info("|-Buffer snapshot with " + restored + " elements restored from " + snapshotPath + " in " + (lastSnapshotTime - startTime) + " ms.");
+		return restored;
+	}
+
+	/**
+	 * Reads all segments of the snapshot in parallel.
+	 *
+	 * @param snapshotPath
+	 *            Snapshot folder.
+	 * @return Elements of each segment in the segment order.
+	 * @throws IOException
+	 *             If index or segments can not be read.
+	 */
+	private List<List<MethodSensorData>> readSegments(final Path snapshotPath) throws IOException {
+		final List<String> segmentNames = new ArrayList<>();
+		final List<Integer> segmentCounts = new ArrayList<>();
+		readIndex(snapshotPath, segmentNames, segmentCounts);
+
+		List<List<MethodSensorData>> segments = new ArrayList<>(segmentNames.size());
+		if (segmentNames.isEmpty()) {
+			return segments;
+		}
+
+		int threads = Math.min(segmentNames.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<MethodSensorData>>> futures = new ArrayList<>(segmentNames.size());
+			for (int i = 0; i < segmentNames.size(); i++) {
+				final Path segmentPath = snapshotPath.resolve(segmentNames.get(i));
+				final int count = segmentCounts.get(i);
+				futures.add(executorService.submit(new Callable<List<MethodSensorData>>() {
+					@Override
+					public List<MethodSensorData> call() throws Exception {
+						return readSegment(segmentPath, count);
+					}
+				}));
+			}
+
+			for (Future<List<MethodSensorData>> future : futures) {
+				segments.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading buffer snapshot segments.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Buffer snapshot segment could not be read.", e.getCause());
+		} finally {
+			executorService.shutdownNow();
+		}
+		return segments;
+	}
+
+	/**
+	 * Reads one memory mapped segment.
+	 *
+	 * @param segmentPath
+	 *            Segment file.
+	 * @param count
+	 *            Number of elements in the segment.
+	 * @return Elements in the segment.
+	 * @throws IOException
+	 *             If segment can not be mapped.
+	 * @throws SerializationException
+	 *             If element can not be de-serialized.
+	 */
+	List<MethodSensorData> readSegment(Path segmentPath, int count) throws IOException, SerializationException {
+		ISerializer serializer = serializationManagerProvider.createSerializer();
+		List<MethodSensorData> elements = new ArrayList<>(count);
+		try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+			MappedByteBuffer mappedByteBuffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			Input input = new Input(new ByteBufferInputStream(mappedByteBuffer), INPUT_BUFFER_SIZE);
+			for (int i = 0; i < count; i++) {
+				Object object = serializer.deserialize(input);
+				if (object instanceof MethodSensorData) {
+					elements.add((MethodSensorData) object);
+				}
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Directly indexes the data that is only found in the invocation, as done by the
+	 * {@link rocks.inspectit.server.processor.impl.IndexerCmrProcessor} when the data is received.
+	 *
+	 * @param invocation
+	 *            Invocation to index the data of.
+	 */
+	private void indexInvocationData(InvocationSequenceData invocation) {
+		indexIfOnlyInInvocations(invocation.getTimerData());
+		indexIfOnlyInInvocations(invocation.getSqlStatementData());
+		if (null != invocation.getExceptionSensorDataObjects()) {
+			for (ExceptionSensorData exceptionSensorData : invocation.getExceptionSensorDataObjects()) {
+				indexIfOnlyInInvocations(exceptionSensorData);
+			}
+		}
+		if (null != invocation.getNestedSequences()) {
+			for (InvocationSequenceData child : invocation.getNestedSequences()) {
+				indexInvocationData(child);
+			}
+		}
+	}
+
+	/**
+	 * Puts the data to the indexing tree if it's only found in invocations.
+	 *
+	 * @param data
+	 *            Data, can be <code>null</code>.
+	 */
+	private void indexIfOnlyInInvocations(InvocationAwareData data) {
+		if ((null != data) && data.isOnlyFoundInInvocations()) {
+			try {
+				indexingTree.put(data);
+			} catch (Exception e) {
+				log.warn("|-Restored element " + data + " could not be indexed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the maximum id of the element and all data nested in it.
+	 *
+	 * @param data
+	 *            Data.
+	 * @return Maximum id.
+	 */
+	private long getMaxId(DefaultData data) {
+		if (null == data) {
+			return 0;
+		}
+		long maxId = data.getId();
+		if (data instanceof InvocationSequenceData) {
+			InvocationSequenceData invocation = (InvocationSequenceData) data;
+			maxId = Math.max(maxId, getMaxId(invocation.getTimerData()));
+			maxId = Math.max(maxId, getMaxId(invocation.getSqlStatementData()));
+			maxId = Math.max(maxId, getMaxId(invocation.getExceptionSensorDataObjects()));
+			maxId = Math.max(maxId, getMaxId(invocation.getNestedSequences()));
+		}
+		return maxId;
+	}
+
+	/**
+	 * Returns the maximum id of the given data.
+	 *
+	 * @param dataCollection
+	 *            Data collection, can be <code>null</code>.
+	 * @return Maximum id.
+	 */
+	private long getMaxId(Collection<? extends DefaultData> dataCollection) {
+		long maxId = 0;
+		if (null != dataCollection) {
+			for (DefaultData data : dataCollection) {
+				maxId = Math.max(maxId, getMaxId(data));
+			}
+		}
+		return maxId;
+	}
+
+	/**
+	 * Writes the index file of the snapshot.
+	 *
+	 * @param snapshotPath
+	 *            Snapshot folder.
+	 * @param creationTime
+	 *            Snapshot creation time.
+	 * @param segmentNames
+	 *            Names of the segment files.
+	 * @param segmentCounts
+	 *            Number of elements in each segment.
+	 * @throws IOException
+	 *             If file can not be written.
+	 */
+	private void writeIndex(Path snapshotPath, long creationTime, List<String> segmentNames, List<Integer> segmentCounts) throws IOException {
+		try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(snapshotPath.resolve(INDEX_FILE_NAME))))) {
+			outputStream.writeInt(FORMAT_VERSION);
+			outputStream.writeLong(creationTime);
+			outputStream.writeInt(segmentNames.size());
+			for (int i = 0; i < segmentNames.size(); i++) {
+				outputStream.writeUTF(segmentNames.get(i));
+				outputStream.writeInt(segmentCounts.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Reads the index file of the snapshot.
+	 *
+	 * @param snapshotPath
+	 *            Snapshot folder.
+	 * @param segmentNames
+	 *            List to add the segment names to.
+	 * @param segmentCounts
+	 *            List to add the element count of each segment to.
+	 * @throws IOException
+	 *             If file can not be read or has unknown format.
+	 */
+	private void readIndex(Path snapshotPath, List<String> segmentNames, List<Integer> segmentCounts) throws IOException {
+		try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath.resolve(INDEX_FILE_NAME))))) {
+			int version = inputStream.readInt();
+			if (FORMAT_VERSION != version) {
+				throw new IOException("Unknown buffer snapshot format version " + version + ".");
+			}
+			inputStream.readLong();
+			int segments = inputStream.readInt();
+			for (int i = 0; i < segments; i++) {
+				segmentNames.add(inputStream.readUTF());
+				segmentCounts.add(inputStream.readInt());
+			}
+		}
+	}
+
+	/**
+	 * Returns the newest complete snapshot folder.
+	 *
+	 * @return Snapshot folder or <code>null</code> if no complete snapshot exists.
+	 */
+	private Path getNewestSnapshot() {
+		Path folder = Paths.get(snapshotFolder).toAbsolutePath();
+		if (!Files.isDirectory(folder)) {
+			return null;
+		}
+
+		Path newest = null;
+		long newestTime = Long.MIN_VALUE;
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(folder)) {
+			for (Path path : directoryStream) {
+				if (isSnapshotFolder(path) && Files.exists(path.resolve(INDEX_FILE_NAME))) {
+					long time = NumberUtils.toLong(path.getFileName().toString(), Long.MIN_VALUE);
+					if (time > newestTime) {
+						newestTime = time;
+						newest = path;
+					}
+				}
+			}
+		} catch (IOException e) {
+			log.warn("|-Buffer snapshot folder " + folder + " could not be listed.", e);
+		}
+		return newest;
+	}
+
+	/**
+	 * Returns if the path is a snapshot folder, thus a folder named with the snapshot start time.
+	 *
+	 * @param path
+	 *            Path to check.
+	 * @return If the path is a snapshot folder.
+	 */
+	private boolean isSnapshotFolder(Path path) {
+		return Files.isDirectory(path) && NumberUtils.isDigits(path.getFileName().toString());
+	}
+
+	/**
+	 * Deletes all snapshot folders except the given one. Files and folders not following the
+	 * snapshot folder naming are never deleted.
+	 *
+	 * @param snapshotPath
+	 *            Snapshot to keep.
+	 */
+	private void deleteOtherSnapshots(Path snapshotPath) {
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(snapshotPath.getParent())) {
+			for (Path path : directoryStream) {
+				if (isSnapshotFolder(path) && !path.equals(snapshotPath)) {
+					deleteSnapshot(path);
+				}
+			}
+		} catch (IOException e) {
+			log.warn("|-Old buffer snapshots could not be deleted.", e);
+		}
+	}
+
+	/**
+	 * Deletes the snapshot folder.
+	 *
+	 * @param snapshotPath
+	 *            Snapshot folder.
+	 */
+	private void deleteSnapshot(Path snapshotPath) {
+		if (!Files.exists(snapshotPath)) {
+			return;
+		}
+		try {
+			Files.walkFileTree(snapshotPath, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					Files.delete(file);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+					Files.delete(dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			log.warn("|-Buffer snapshot " + snapshotPath + " could not be deleted.", e);
+		}
+	}
+
+	/**
+	 * Closes the stream ignoring any exception.
+	 *
+	 * @param outputStream
+	 *            Stream, can be <code>null</code>.
+	 */
+	private void closeQuietly(OutputStream outputStream) {
+		if (null != outputStream) {
+			try {
+				outputStream.close();
+			} catch (IOException e) { // NOPMD
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Restores the snapshot if active.
+	 */
+	@PostConstruct
+	public void postConstruct() {
+		if (snapshotActive) {
+			restoreSnapshot();
+		}
+		lastSnapshotTime = System.currentTimeMillis();
+	}
+
+}
@@ -0,0 +1,88 @@
+package rocks.inspectit.server.cache.impl;
+
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+
+/**
+ * Estimator that calculates the sizes like {@link ObjectSizesBufferSizeEstimator} and multiplies
+ * them with the correction factor. The factor is calibrated from the comparison of the estimated
+ * buffer size and the heap usage measured by the {@link BufferSizeEstimationCheck}.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class HeapCalibratedBufferSizeEstimator extends ObjectSizesBufferSizeEstimator {
+
+	/**
+	 * Minimum correction factor.
+	 */
+	private static final double MIN_CORRECTION_FACTOR = 0.5d;
+
+	/**
+	 * Maximum correction factor.
+	 */
+	private static final double MAX_CORRECTION_FACTOR = 3d;
+
+	/**
+	 * Weight of the new measurement when the correction factor is updated. Smoothing prevents
+	 * single measurements to change the factor too much.
+	 */
+	private static final double CALIBRATION_WEIGHT = 0.5d;
+
+	/**
+	 * Current correction factor.
+	 */
+	private volatile double correctionFactor = 1d;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param objectSizes
+	 *            Object sizes to use.
+	 */
+	public HeapCalibratedBufferSizeEstimator(IObjectSizes objectSizes) {
+		super(objectSizes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize(IBufferElement<?> element) {
+		return (long) (super.estimateSize(element) * correctionFactor);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The estimated size is the size calculated with the current correction factor, thus the new
+	 * factor is relative to the current one.
+	 */
+	@Override
+	public synchronized void calibrate(long estimatedSize, long measuredSize) {
+		if ((estimatedSize <= 0) || (measuredSize <= 0)) {
+			return;
+		}
+
+		double measuredFactor = (correctionFactor * measuredSize) / estimatedSize;
+		double newFactor = ((1 - CALIBRATION_WEIGHT) * correctionFactor) + (CALIBRATION_WEIGHT * measuredFactor);
+		correctionFactor = Math.min(MAX_CORRECTION_FACTOR, Math.max(MIN_CORRECTION_FACTOR, newFactor));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getCorrectionFactor() {
+		return correctionFactor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BufferSizeEstimationStrategy getStrategy() {
+		return BufferSizeEstimationStrategy.HEAP_CALIBRATED;
+	}
+
+}
@@ -75,70 +75,77 @@ class IndexBufferElementProcessor<E extends DefaultData> extends AbstractBufferE
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * We wait until element is analyzed to index it.
+	 * We only index the elements that have already been analyzed.
+	 */
+	@Override
+	protected boolean isProcessable(IBufferElement<E> element) {
+		return element.isAnalyzed();
+	}
+
+	/**
+	 * {@inheritDoc}
 	 * <p>
-	 * After successful indexing we check if update of indexing tree size is needed and if so update
-	 * it.
-	 *
+	 * Waits for the {@link BufferProperties#getIndexingWaitTime()} so that analyzing can catch up.
 	 */
 	@Override
-	public boolean process(IBufferElement<E> elementToProcess, IBufferElement<E> lastProcessedElement) {
-		// we only index when the element has already been analyzed
-		if (!elementToProcess.isAnalyzed()) {
-			try {
-				Thread.sleep(atomicBuffer.bufferProperties.getIndexingWaitTime());
-			} catch (InterruptedException e) {
-				Thread.interrupted();
-			}
-			// we go back to the while loop, because we want to check if the nextForIndexing
-			// element has changed
-			return false;
+	protected void waitForProcessable() {
+		try {
+			Thread.sleep(atomicBuffer.bufferProperties.getIndexingWaitTime());
+		} catch (InterruptedException e) {
+			Thread.interrupted();
 		}
+	}
 
-		// only thread that execute compare and set successfully can perform changes
-		if (lastProcessed.compareAndSet(lastProcessedElement, elementToProcess)) {
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * After successful indexing of the chunk we check if update of indexing tree size is needed
+	 * and if so update it.
+	 */
+	@Override
+	protected void processChunk(IBufferElement<E> chunkStart, int chunkLength) {
+		IBufferElement<E> element = chunkStart;
+		for (int i = 0; i < chunkLength; i++) {
 			try {
 				// index element
-				atomicBuffer.indexingTree.put(elementToProcess.getObject());
-				elementToProcess.setBufferElementState(BufferElementState.INDEXED);
+				atomicBuffer.indexingTree.put(element.getObject());
+				element.setBufferElementState(BufferElementState.INDEXED);
+			} catch (IndexingException e) {
+				// indexing exception should not happen
+				atomicBuffer.log.error(e.getMessage(), e);
+			}
+			element = element.getNextElement();
+		}
 
-				// increase number of indexed elements, and perform calculation of the
-				// indexing tree size if enough elements have been indexed
-				atomicBuffer.elementsIndexed.incrementAndGet();
+		// increase number of indexed elements, and perform calculation of the
+		// indexing tree size if enough elements have been indexed
+		atomicBuffer.elementsIndexed.addAndGet(chunkLength);
 
-				long dataAddedInBytesCurrent = atomicBuffer.dataAddedInBytes.get();
-				if (dataAddedInBytesCurrent > atomicBuffer.flagsSetOnBytes) {
-					if (atomicBuffer.dataAddedInBytes.compareAndSet(dataAddedInBytesCurrent, 0)) {
-						long time = 0;
+		long dataAddedInBytesCurrent = atomicBuffer.dataAddedInBytes.get();
+		if (dataAddedInBytesCurrent > atomicBuffer.flagsSetOnBytes) {
+			if (atomicBuffer.dataAddedInBytes.compareAndSet(dataAddedInBytesCurrent, 0)) {
+				long time = 0;
+				if (atomicBuffer.log.isDebugEnabled()) {
+					time = System.nanoTime();
+				}
+				while (true) {
+					// calculation of new size has to be repeated if old size
+					// compare and set fails
+					long newSize = atomicBuffer.indexingTree.getComponentSize(atomicBuffer.objectSizes);
+					newSize += newSize * atomicBuffer.objectSizes.getObjectSecurityExpansionRate();
+					long oldSize = atomicBuffer.indexingTreeSize.get();
+					if (atomicBuffer.indexingTreeSize.compareAndSet(oldSize, newSize)) {
+						atomicBuffer.addToCurrentSize(newSize - oldSize, false);
 						if (atomicBuffer.log.isDebugEnabled()) {
-							time = System.nanoTime();
-						}
-						while (true) {
-							// calculation of new size has to be repeated if old size
-							// compare and set fails
-							long newSize = atomicBuffer.indexingTree.getComponentSize(atomicBuffer.objectSizes);
-							newSize += newSize * atomicBuffer.objectSizes.getObjectSecurityExpansionRate();
-							long oldSize = atomicBuffer.indexingTreeSize.get();
-							if (atomicBuffer.indexingTreeSize.compareAndSet(oldSize, newSize)) {
-								atomicBuffer.addToCurrentSize(newSize - oldSize, false);
-								if (atomicBuffer.log.isDebugEnabled()) {
-									atomicBuffer.log.debug("Indexing tree size update duration: " + Converter.nanoToMilliseconds(System.nanoTime() - time));
-									atomicBuffer.log.debug("Indexing tree delta: " + (newSize - oldSize));
-									atomicBuffer.log.debug("Indexing tree new size: " + newSize);
-								}
-								break;
-							}
+							atomicBuffer.log.debug("Indexing tree size update duration: " + Converter.nanoToMilliseconds(System.nanoTime() - time));
+							atomicBuffer.log.debug("Indexing tree delta: " + (newSize - oldSize));
+							atomicBuffer.log.debug("Indexing tree new size: " + newSize);
 						}
+						break;
 					}
 				}
-			} catch (IndexingException e) {
-				// indexing exception should not happen
-				atomicBuffer.log.error(e.getMessage(), e);
 			}
-			return true;
 		}
-
-		return false;
 	}
 
 }
\ No newline at end of file
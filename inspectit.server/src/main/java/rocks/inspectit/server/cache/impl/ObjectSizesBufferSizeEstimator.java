@@ -0,0 +1,66 @@
+package rocks.inspectit.server.cache.impl;
+
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.server.cache.IBufferSizeEstimator;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+
+/**
+ * Estimator that uses the {@link IObjectSizes} and the
+ * {@link rocks.inspectit.shared.all.communication.Sizeable} implementation of each data object.
+ * This is the default estimation strategy.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ObjectSizesBufferSizeEstimator implements IBufferSizeEstimator {
+
+	/**
+	 * Object sizes to use.
+	 */
+	protected final IObjectSizes objectSizes;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param objectSizes
+	 *            Object sizes to use.
+	 */
+	public ObjectSizesBufferSizeEstimator(IObjectSizes objectSizes) {
+		this.objectSizes = objectSizes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize(IBufferElement<?> element) {
+		element.calculateAndSetBufferElementSize(objectSizes);
+		return element.getBufferElementSize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This estimator does not support calibration.
+	 */
+	@Override
+	public void calibrate(long estimatedSize, long measuredSize) {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getCorrectionFactor() {
+		return 1d;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BufferSizeEstimationStrategy getStrategy() {
+		return BufferSizeEstimationStrategy.OBJECT_SIZES;
+	}
+
+}
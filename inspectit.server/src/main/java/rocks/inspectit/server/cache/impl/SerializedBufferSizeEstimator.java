@@ -0,0 +1,161 @@
+package rocks.inspectit.server.cache.impl;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.serializer.ISerializer;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+
+/**
+ * Estimator that calculates the size of the element from the length of the serialized object,
+ * multiplied by the serialized size factor. The factor describes how many bytes an object occupies
+ * on the heap for every byte of its serialized form. It is initially set from the configuration and
+ * can be calibrated with the heap measurements.
+ * <p>
+ * If the object can not be serialized, the size is calculated like with
+ * {@link ObjectSizesBufferSizeEstimator}.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class SerializedBufferSizeEstimator extends ObjectSizesBufferSizeEstimator {
+
+	/**
+	 * Initial size of the serialization output buffer.
+	 */
+	private static final int OUTPUT_BUFFER_SIZE = 4096;
+
+	/**
+	 * Minimum serialized size factor.
+	 */
+	private static final double MIN_FACTOR = 1d;
+
+	/**
+	 * Maximum serialized size factor.
+	 */
+	private static final double MAX_FACTOR = 20d;
+
+	/**
+	 * Weight of the new measurement when the factor is updated.
+	 */
+	private static final double CALIBRATION_WEIGHT = 0.5d;
+
+	/**
+	 * Serialization manager provider for creating the serializers.
+	 */
+	private final SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Configured serialized size factor, used to report the correction relative to it.
+	 */
+	private final double initialFactor;
+
+	/**
+	 * Current serialized size factor.
+	 */
+	private volatile double serializedSizeFactor;
+
+	/**
+	 * Serializer per thread as serializers are not thread safe and several analyzing threads can
+	 * estimate sizes in parallel.
+	 */
+	private final ThreadLocal<ISerializer> serializer = new ThreadLocal<ISerializer>() {
+		@Override
+		protected ISerializer initialValue() {
+			return serializationManagerProvider.createSerializer();
+		}
+	};
+
+	/**
+	 * Output per thread that is reused for every serialization.
+	 */
+	private final ThreadLocal<Output> output = new ThreadLocal<Output>() {
+		@Override
+		protected Output initialValue() {
+			return new Output(OUTPUT_BUFFER_SIZE, -1);
+		}
+	};
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param objectSizes
+	 *            Object sizes to use.
+	 * @param serializationManagerProvider
+	 *            Serialization manager provider for creating the serializers.
+	 * @param serializedSizeFactor
+	 *            Initial serialized size factor.
+	 */
+	public SerializedBufferSizeEstimator(IObjectSizes objectSizes, SerializationManagerProvider serializationManagerProvider, double serializedSizeFactor) {
+		super(objectSizes);
+		this.serializationManagerProvider = serializationManagerProvider;
+		this.initialFactor = serializedSizeFactor;
+		this.serializedSizeFactor = serializedSizeFactor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long estimateSize(IBufferElement<?> element) {
+		Object object = element.getObject();
+		if (null == object) {
+			return super.estimateSize(element);
+		}
+
+		Output threadOutput = output.get();
+		threadOutput.clear();
+		try {
+			serializer.get().serialize(object, threadOutput);
+		} catch (SerializationException e) {
+			return super.estimateSize(element);
+		}
+
+		long size = objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(2, 0, 0, 0, 1, 0);
+		size += (long) (threadOutput.total() * serializedSizeFactor);
+		size += size * objectSizes.getObjectSecurityExpansionRate();
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void calibrate(long estimatedSize, long measuredSize) {
+		if ((estimatedSize <= 0) || (measuredSize <= 0)) {
+			return;
+		}
+
+		double measuredFactor = (serializedSizeFactor * measuredSize) / estimatedSize;
+		double newFactor = ((1 - CALIBRATION_WEIGHT) * serializedSizeFactor) + (CALIBRATION_WEIGHT * measuredFactor);
+		serializedSizeFactor = Math.min(MAX_FACTOR, Math.max(MIN_FACTOR, newFactor));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getCorrectionFactor() {
+		return serializedSizeFactor / initialFactor;
+	}
+
+	/**
+	 * Returns the current serialized size factor.
+	 *
+	 * @return Current serialized size factor.
+	 */
+	public double getSerializedSizeFactor() {
+		return serializedSizeFactor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BufferSizeEstimationStrategy getStrategy() {
+		return BufferSizeEstimationStrategy.SERIALIZED;
+	}
+
+}
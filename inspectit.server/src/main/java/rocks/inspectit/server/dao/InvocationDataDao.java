@@ -6,6 +6,7 @@ import java.util.Date;
 import java.util.List;
 
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.cs.indexing.cursor.IQueryCursor;
 
 /**
  * This layer is used to access the stored invocations.
@@ -77,6 +78,31 @@ public interface InvocationDataDao {
 	 */
 	List<InvocationSequenceData> getInvocationSequenceOverview(long platformId, long methodId, int limit, Date fromDate, Date toDate, Comparator<? super InvocationSequenceData> comparator);
 
+	/**
+	 * Returns the {@link IQueryCursor} over the {@link InvocationSequenceData} objects which
+	 * contain no associations to other objects in given time frame. Compared to the
+	 * {@link #getInvocationSequenceOverview(long, long, int, Date, Date, Comparator)} the results
+	 * are not copied at once, but only when they are read from the cursor.
+	 *
+	 * @param platformId
+	 *            The ID of the platform.
+	 * @param methodId
+	 *            The ID of the method. If the zero value is passed, invocations of all methods are
+	 *            included.
+	 * @param limit
+	 *            The limit/size of the result.
+	 * @param fromDate
+	 *            Date include invocation from. Can be <code>null</code>.
+	 * @param toDate
+	 *            Date include invocation to. Can be <code>null</code>.
+	 * @param comparator
+	 *            Comparator to compare results with. If <code>null</code> is passed default
+	 *            comparator will be used (in this case Timestamp comparator).
+	 *
+	 * @return Returns the cursor over the invocation sequences.
+	 */
+	IQueryCursor<InvocationSequenceData> getInvocationSequenceOverviewCursor(long platformId, long methodId, int limit, Date fromDate, Date toDate, Comparator<? super InvocationSequenceData> comparator);
+
 	/**
 	 * Returns a list of {@link InvocationSequenceData} objects which contain no associations to
 	 * other objects in given time frame. Thus this list can be used to get an overview of the
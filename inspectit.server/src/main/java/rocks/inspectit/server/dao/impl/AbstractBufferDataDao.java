@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -14,6 +15,8 @@ import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
 import rocks.inspectit.shared.cs.indexing.aggregation.impl.AggregationPerformer;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.indexing.cursor.IQueryCursor;
+import rocks.inspectit.shared.cs.indexing.cursor.ListQueryCursor;
 
 /**
  * Abstract class for all buffer data DAO service.
@@ -196,6 +199,34 @@ public abstract class AbstractBufferDataDao<E extends DefaultData> {
 		return data;
 	}
 
+	/**
+	 * Executes the query on the indexing tree and returns the {@link IQueryCursor} over the
+	 * results instead of the list. Results can be sorted by comparator and limited. The
+	 * transformer is applied to the elements only when they are read from the cursor, thus copies
+	 * of the elements are created only for the pages that are really requested.
+	 *
+	 * @param indexQuery
+	 *            Index query to execute.
+	 * @param comparator
+	 *            If supplied the final result list will be sorted by this comparator.
+	 * @param limit
+	 *            Limit the number of results by given number. Value <code>-1</code> means no limit.
+	 * @param useForkJoin
+	 *            true, if forkJoinPool should be used
+	 * @param transformer
+	 *            Transformer to apply to each element when read from the cursor. Can be
+	 *            <code>null</code>.
+	 * @return Cursor over the results.
+	 */
+	protected IQueryCursor<E> executeCursorQuery(IIndexQuery indexQuery, Comparator<? super E> comparator, int limit, boolean useForkJoin, Function<? super E, ? extends E> transformer) {
+		List<E> data = this.executeQuery(indexQuery, null, comparator, -1, useForkJoin);
+		if ((limit > -1) && (data.size() > limit)) {
+			// cursor only holds the references, no need to copy the sub-list
+			data = data.subList(0, limit);
+		}
+		return new ListQueryCursor<>(data, transformer);
+	}
+
 	/**
 	 * Gets {@link #indexingTree}.
 	 *
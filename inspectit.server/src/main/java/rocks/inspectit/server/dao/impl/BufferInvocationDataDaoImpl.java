@@ -14,6 +14,7 @@ import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.cs.communication.comparator.DefaultDataComparatorEnum;
 import rocks.inspectit.shared.cs.indexing.AbstractBranch;
+import rocks.inspectit.shared.cs.indexing.cursor.IQueryCursor;
 import rocks.inspectit.shared.cs.indexing.query.factory.impl.InvocationSequenceDataQueryFactory;
 
 /**
@@ -72,12 +73,26 @@ public class BufferInvocationDataDaoImpl extends AbstractBufferDataDao<Invocatio
 		}
 		List<InvocationSequenceData> realResults = new ArrayList<>(resultWithChildren.size());
 		for (InvocationSequenceData invocationSequenceData : resultWithChildren) {
-			realResults.add(invocationSequenceData.getClonedInvocationSequence());
+			realResults.add(invocationSequenceData.getOverviewProjection());
 		}
 		return realResults;
 
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IQueryCursor<InvocationSequenceData> getInvocationSequenceOverviewCursor(long platformId, long methodId, int limit, Date fromDate, Date toDate,
+			Comparator<? super InvocationSequenceData> comparator) {
+		IIndexQuery query = invocationDataQueryFactory.getInvocationSequences(platformId, methodId, fromDate, toDate);
+		if (null != comparator) {
+			return super.executeCursorQuery(query, comparator, limit, false, InvocationSequenceData::getOverviewProjection);
+		} else {
+			return super.executeCursorQuery(query, DefaultDataComparatorEnum.TIMESTAMP, limit, false, InvocationSequenceData::getOverviewProjection);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -92,7 +107,7 @@ public class BufferInvocationDataDaoImpl extends AbstractBufferDataDao<Invocatio
 		}
 		List<InvocationSequenceData> realResults = new ArrayList<>(resultWithChildren.size());
 		for (InvocationSequenceData invocationSequenceData : resultWithChildren) {
-			realResults.add(invocationSequenceData.getClonedInvocationSequence());
+			realResults.add(invocationSequenceData.getOverviewProjection());
 		}
 		return realResults;
 	}
@@ -17,6 +17,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import rocks.inspectit.server.dao.jdbc.JdbcBatchWriter;
 import rocks.inspectit.shared.all.communication.data.DatabaseAggregatedTimerData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
 
@@ -49,6 +50,12 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 	@Value("${cmr.cacheCleanSleepingPeriod}")
 	long cacheCleanSleepingPeriod;
 
+	/**
+	 * {@link JdbcBatchWriter} writing the aggregated objects asynchronously.
+	 */
+	@Autowired
+	JdbcBatchWriter jdbcBatchWriter;
+
 	/**
 	 * Current element count in cache.
 	 */
@@ -158,7 +165,7 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 						TimerData oldest = queue.poll();
 						while (oldest != null) {
 							map.remove(getCacheHash(oldest.getPlatformIdent(), oldest.getMethodIdent(), oldest.getTimeStamp().getTime()));
-							TimerDataAggregator.super.create(oldest);
+							persist(oldest);
 							elementCount.decrementAndGet();
 
 							oldest = queue.poll();
@@ -181,7 +188,7 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 				protected void doInTransactionWithoutResult(TransactionStatus status) {
 					TimerData last = persistList.poll();
 					while (last != null) {
-						TimerDataAggregator.super.create(last);
+						persist(last);
 						last = persistList.poll();
 					}
 				}
@@ -189,6 +196,19 @@ public class TimerDataAggregator extends AbstractJpaDao<TimerData> {
 		}
 	}
 
+	/**
+	 * Passes the aggregated object to the {@link JdbcBatchWriter} or persists it in the current
+	 * transaction if the writer rejects it.
+	 *
+	 * @param timerData
+	 *            Aggregated object.
+	 */
+	private void persist(TimerData timerData) {
+		if (!jdbcBatchWriter.write(timerData)) {
+			super.create(timerData);
+		}
+	}
+
 	/**
 	 * Returns the cache hash code.
 	 *
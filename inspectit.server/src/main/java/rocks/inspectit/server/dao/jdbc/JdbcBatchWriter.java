@@ -0,0 +1,428 @@
+package rocks.inspectit.server.dao.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.HibernateException;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.util.ExecutorServiceUtils;
+
+/**
+ * Asynchronous persistence stage for the data written to the relational database. Data objects are
+ * put into a bounded queue and written by a dedicated thread in batches, when either the
+ * configured batch size is reached or the flush interval passes. Each batch is written in one
+ * transaction of a stateless session, grouped by the table, with one batched prepared insert
+ * statement per table. Statements are created from the Hibernate mapping by the
+ * {@link JdbcInsertMapping}, thus no entity persistence is involved.
+ * <p>
+ * Data that can not be written by the stage, because the writer is not active, the queue is full
+ * or the data class is not supported, is rejected and has to be persisted by the caller.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class JdbcBatchWriter {
+
+	/**
+	 * Seconds to wait for the writing thread to write the remaining data on shutdown.
+	 */
+	private static final long SHUTDOWN_TIMEOUT = 10L;
+
+	/**
+	 * Logger for the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Entity manager factory to get the Hibernate session factory from.
+	 */
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * Executor running the writing thread.
+	 */
+	@Autowired
+	@Resource(name = "databaseWriterExecutorService")
+	ExecutorService executorService;
+
+	/**
+	 * If the batch writer is active.
+	 */
+	@Value("${database.writer.active}")
+	boolean active;
+
+	/**
+	 * Maximum amount of the data waiting in the queue.
+	 */
+	@Value("${database.writer.queueCapacity}")
+	int queueCapacity;
+
+	/**
+	 * Amount of data written in one batch.
+	 */
+	@Value("${database.writer.batchSize}")
+	int batchSize;
+
+	/**
+	 * Maximum time in milliseconds data waits in an incomplete batch.
+	 */
+	@Value("${database.writer.flushInterval}")
+	long flushInterval;
+
+	/**
+	 * Insert mappings per data class.
+	 */
+	final ConcurrentMap<Class<?>, JdbcInsertMapping> mappings = new ConcurrentHashMap<>();
+
+	/**
+	 * Data classes that can not be written by this writer.
+	 */
+	private final Set<Class<?>> unsupportedClasses = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+	/**
+	 * Session factory.
+	 */
+	private SessionFactoryImplementor sessionFactory;
+
+	/**
+	 * Queue of the data to write.
+	 */
+	private BlockingQueue<DefaultData> queue;
+
+	/**
+	 * If the writer is running.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Future of the writing task.
+	 */
+	private Future<?> writingFuture;
+
+	/**
+	 * Amount of written data.
+	 */
+	private final AtomicLong writtenCount = new AtomicLong();
+
+	/**
+	 * Amount of data that could not be written due to the database errors.
+	 */
+	private final AtomicLong failedCount = new AtomicLong();
+
+	/**
+	 * Amount of data rejected because the queue was full.
+	 */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Amount of written batches.
+	 */
+	private final AtomicLong batchCount = new AtomicLong();
+
+	/**
+	 * Duration of the last batch write in milliseconds.
+	 */
+	private volatile long lastFlushDuration;
+
+	/**
+	 * Starts the writing thread if the writer is active.
+	 */
+	@PostConstruct
+	public void start() {
+		if (!active) {
+			return;
+		}
+
+		sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		running = true;
+		writingFuture = executorService.submit(new WritingTask());
+	}
+
+	/**
+	 * Queues the data for writing.
+	 *
+	 * @param defaultData
+	 *            Data to write.
+	 * @return <code>true</code> if the data was queued, <code>false</code> if the data was
+	 *         rejected and has to be persisted by the caller.
+	 */
+	public boolean write(DefaultData defaultData) {
+		if (!running) {
+			return false;
+		}
+
+		JdbcInsertMapping mapping = getMapping(defaultData.getClass());
+		if ((null == mapping) || !mapping.canInsert(defaultData)) {
+			return false;
+		}
+
+		if (!queue.offer(defaultData)) {
+			rejectedCount.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns if the writer is running.
+	 *
+	 * @return If the writer is running.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the amount of written data.
+	 *
+	 * @return Returns the amount of written data.
+	 */
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	/**
+	 * Returns the amount of data that could not be written due to the database errors.
+	 *
+	 * @return Returns the amount of data that could not be written due to the database errors.
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * Returns the amount of data rejected because the queue was full.
+	 *
+	 * @return Returns the amount of data rejected because the queue was full.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Returns the amount of written batches.
+	 *
+	 * @return Returns the amount of written batches.
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/**
+	 * Returns the duration of the last batch write in milliseconds.
+	 *
+	 * @return Returns the duration of the last batch write in milliseconds.
+	 */
+	public long getLastFlushDuration() {
+		return lastFlushDuration;
+	}
+
+	/**
+	 * Returns the amount of data waiting to be written.
+	 *
+	 * @return Returns the amount of data waiting to be written.
+	 */
+	public int getQueueSize() {
+		return (null != queue) ? queue.size() : 0;
+	}
+
+	/**
+	 * Stops the writing thread. The thread writes the data still in the queue before stopping.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		if (null != writingFuture) {
+			try {
+				writingFuture.get(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException | TimeoutException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("Database batch writer did not write all queued data before shutdown.", e);
+				}
+			}
+		}
+		ExecutorServiceUtils.shutdownExecutor(executorService, 5L, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Returns the insert mapping for the data class.
+	 *
+	 * @param dataClass
+	 *            Data class.
+	 * @return Insert mapping or <code>null</code> if the class is not supported.
+	 */
+	JdbcInsertMapping getMapping(Class<?> dataClass) {
+		JdbcInsertMapping mapping = mappings.get(dataClass);
+		if ((null != mapping) || unsupportedClasses.contains(dataClass)) {
+			return mapping;
+		}
+
+		mapping = JdbcInsertMapping.create(sessionFactory, dataClass);
+		if (null == mapping) {
+			unsupportedClasses.add(dataClass);
+			return null;
+		}
+		JdbcInsertMapping existing = mappings.putIfAbsent(dataClass, mapping);
+		return (null != existing) ? existing : mapping;
+	}
+
+	/**
+	 * Writes the batch in one transaction, grouped by the table.
+	 *
+	 * @param batch
+	 *            Data to write.
+	 */
+	void flush(List<DefaultData> batch) {
+		Map<JdbcInsertMapping, List<DefaultData>> tables = new LinkedHashMap<>();
+		for (DefaultData defaultData : batch) {
+			JdbcInsertMapping mapping = mappings.get(defaultData.getClass());
+			List<DefaultData> tableData = tables.get(mapping);
+			if (null == tableData) {
+				tableData = new ArrayList<>();
+				tables.put(mapping, tableData);
+			}
+			tableData.add(defaultData);
+		}
+
+		long start = System.currentTimeMillis();
+		StatelessSession session = sessionFactory.openStatelessSession();
+		Transaction transaction = null;
+		try {
+			transaction = session.beginTransaction();
+			for (Entry<JdbcInsertMapping, List<DefaultData>> entry : tables.entrySet()) {
+				insert((SessionImplementor) session, entry.getKey(), entry.getValue());
+			}
+			transaction.commit();
+
+			writtenCount.addAndGet(batch.size());
+			batchCount.incrementAndGet();
+		} catch (HibernateException | SQLException e) {
+			failedCount.addAndGet(batch.size());
+			if (null != transaction) {
+				try {
+					transaction.rollback();
+				} catch (HibernateException re) { // NOPMD
+					// nothing more to do, batch is already lost
+				}
+			}
+			if (log.isWarnEnabled()) {
+				log.warn("|-" + batch.size() + " data objects could not be written to the database.", e);
+			}
+		} finally {
+			session.close();
+			lastFlushDuration = System.currentTimeMillis() - start;
+		}
+	}
+
+	/**
+	 * Inserts the data to one table with a batched prepared statement.
+	 *
+	 * @param session
+	 *            Session to use.
+	 * @param mapping
+	 *            Insert mapping of the table.
+	 * @param tableData
+	 *            Data to insert.
+	 * @throws SQLException
+	 *             If insert fails.
+	 */
+	private void insert(SessionImplementor session, JdbcInsertMapping mapping, List<DefaultData> tableData) throws SQLException {
+		try (PreparedStatement statement = session.connection().prepareStatement(mapping.getSql())) {
+			for (DefaultData defaultData : tableData) {
+				mapping.bind(statement, defaultData, session);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	/**
+	 * Task draining the queue and writing the batches.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private class WritingTask implements Runnable {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			List<DefaultData> batch = new ArrayList<>(batchSize);
+			long batchStart = 0;
+
+			try {
+				while (running || !queue.isEmpty()) {
+					long wait = batch.isEmpty() ? flushInterval : Math.max(0L, (batchStart + flushInterval) - System.currentTimeMillis());
+
+					DefaultData defaultData = queue.poll(wait, TimeUnit.MILLISECONDS);
+					while (null != defaultData) {
+						if (batch.isEmpty()) {
+							batchStart = System.currentTimeMillis();
+						}
+						batch.add(defaultData);
+						if (batch.size() >= batchSize) {
+							break;
+						}
+						defaultData = queue.poll();
+					}
+
+					if ((batch.size() >= batchSize) || (!batch.isEmpty() && ((System.currentTimeMillis() - batchStart) >= flushInterval))) {
+						flush(batch);
+						batch = new ArrayList<>(batchSize);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				queue.drainTo(batch);
+				if (!batch.isEmpty()) {
+					flush(batch);
+				}
+			}
+		}
+	}
+}
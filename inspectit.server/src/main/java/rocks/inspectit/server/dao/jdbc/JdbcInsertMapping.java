@@ -0,0 +1,206 @@
+package rocks.inspectit.server.dao.jdbc;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+
+/**
+ * Mapping of one entity class to the prepared insert statement of its table. The table, the
+ * columns and the binding of the values are taken from the Hibernate mapping metadata, thus the
+ * rows written are the same as the ones Hibernate would write when persisting the entity.
+ * Identifiers are created by the identifier generator of the entity, but are not set to the
+ * entity.
+ * <p>
+ * Only entities mapped to a single table with a pre-insert identifier generator are supported.
+ * Collection properties are not written, thus entities having non-empty collections can not be
+ * inserted.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class JdbcInsertMapping {
+
+	/**
+	 * Persister of the entity.
+	 */
+	private final AbstractEntityPersister persister;
+
+	/**
+	 * Insert statement.
+	 */
+	private final String sql;
+
+	/**
+	 * Indexes of the written properties.
+	 */
+	private final int[] properties;
+
+	/**
+	 * Column span of each property.
+	 */
+	private final int[] columnSpans;
+
+	/**
+	 * Indexes of the collection properties.
+	 */
+	private final int[] collectionProperties;
+
+	/**
+	 * Column span of the identifier.
+	 */
+	private final int identifierColumnSpan;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param persister
+	 *            Persister of the entity.
+	 */
+	JdbcInsertMapping(AbstractEntityPersister persister) {
+		this.persister = persister;
+
+		Type[] types = persister.getPropertyTypes();
+		boolean[] insertability = persister.getPropertyInsertability();
+		String[] identifierColumns = persister.getIdentifierColumnNames();
+		List<String> columns = new ArrayList<>(Arrays.asList(identifierColumns));
+		List<Integer> written = new ArrayList<>();
+		List<Integer> collections = new ArrayList<>();
+		columnSpans = new int[types.length];
+		for (int i = 0; i < types.length; i++) {
+			if (types[i].isCollectionType()) {
+				collections.add(i);
+			} else if (insertability[i]) {
+				String[] propertyColumns = persister.getPropertyColumnNames(i);
+				if (propertyColumns.length > 0) {
+					written.add(i);
+					columnSpans[i] = propertyColumns.length;
+					columns.addAll(Arrays.asList(propertyColumns));
+				}
+			}
+		}
+
+		this.identifierColumnSpan = identifierColumns.length;
+		this.properties = toArray(written);
+		this.collectionProperties = toArray(collections);
+
+		String[] parameters = new String[columns.size()];
+		Arrays.fill(parameters, "?");
+		this.sql = "insert into " + persister.getTableName() + " (" + StringUtils.join(columns, ", ") + ") values (" + StringUtils.join(parameters, ", ") + ")";
+	}
+
+	/**
+	 * Creates the mapping for the given entity class.
+	 *
+	 * @param sessionFactory
+	 *            Session factory holding the mapping metadata.
+	 * @param entityClass
+	 *            Entity class.
+	 * @return Mapping or <code>null</code> if the class is not an entity or the entity can not be
+	 *         inserted with a single statement.
+	 */
+	public static JdbcInsertMapping create(SessionFactoryImplementor sessionFactory, Class<?> entityClass) {
+		EntityPersister persister;
+		try {
+			persister = sessionFactory.getEntityPersister(entityClass.getName());
+		} catch (MappingException e) {
+			return null;
+		}
+
+		if (!(persister instanceof AbstractEntityPersister) || ((AbstractEntityPersister) persister).isMultiTable()
+				|| (persister.getIdentifierGenerator() instanceof PostInsertIdentifierGenerator)) {
+			return null;
+		}
+		return new JdbcInsertMapping((AbstractEntityPersister) persister);
+	}
+
+	/**
+	 * Returns if the entity can be written with this mapping. This is not the case when the entity
+	 * has values in the collection properties.
+	 *
+	 * @param entity
+	 *            Entity.
+	 * @return If the entity can be written with this mapping.
+	 */
+	public boolean canInsert(Object entity) {
+		for (int property : collectionProperties) {
+			Object value = persister.getPropertyValue(entity, property);
+			if (((value instanceof Collection) && !((Collection<?>) value).isEmpty()) || ((value instanceof Map) && !((Map<?, ?>) value).isEmpty())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Generates the identifier and binds it together with the property values of the entity to
+	 * the statement created with {@link #getSql()}.
+	 *
+	 * @param statement
+	 *            Statement.
+	 * @param entity
+	 *            Entity.
+	 * @param session
+	 *            Session to generate the identifier with.
+	 * @throws SQLException
+	 *             If binding fails.
+	 */
+	public void bind(PreparedStatement statement, Object entity, SessionImplementor session) throws SQLException {
+		Serializable id = persister.getIdentifierGenerator().generate(session, entity);
+		Object[] values = persister.getPropertyValues(entity);
+		Type[] types = persister.getPropertyTypes();
+
+		persister.getIdentifierType().nullSafeSet(statement, id, 1, session);
+		int index = 1 + identifierColumnSpan;
+		for (int property : properties) {
+			types[property].nullSafeSet(statement, values[property], index, session);
+			index += columnSpans[property];
+		}
+	}
+
+	/**
+	 * Returns the insert statement.
+	 *
+	 * @return Returns the insert statement.
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Returns the table name.
+	 *
+	 * @return Returns the table name.
+	 */
+	public String getTableName() {
+		return persister.getTableName();
+	}
+
+	/**
+	 * Converts the list to an array.
+	 *
+	 * @param list
+	 *            List of integers.
+	 * @return Array.
+	 */
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+}
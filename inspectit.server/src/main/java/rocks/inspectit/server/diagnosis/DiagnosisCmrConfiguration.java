@@ -6,9 +6,11 @@ import java.util.function.Consumer;
 
 import org.influxdb.dto.Point.Builder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import rocks.inspectit.server.diagnosis.service.DiagnosisFairness;
 import rocks.inspectit.server.diagnosis.service.DiagnosisService;
 import rocks.inspectit.server.diagnosis.service.IDiagnosisService;
 import rocks.inspectit.server.influx.builder.ProblemOccurrencePointBuilder;
@@ -40,6 +42,43 @@ public class DiagnosisCmrConfiguration implements Consumer<ProblemOccurrence> {
 	@Autowired
 	ProblemOccurrencePointBuilder problemOccurrencePointBuilder;
 
+	/**
+	 * Number of threads passing the invocations from the queue to the diagnosis engine.
+	 */
+	@Value("${diagnosis.dispatcherThreads}")
+	int dispatcherThreads;
+
+	/**
+	 * Number of sessions the diagnosis engine runs in parallel.
+	 */
+	@Value("${diagnosis.sessionWorkers}")
+	int sessionWorkers;
+
+	/**
+	 * Max amount of invocations waiting for the diagnosis.
+	 */
+	@Value("${diagnosis.queueCapacity}")
+	int queueCapacity;
+
+	/**
+	 * Max amount of invocations of one agent or business transaction waiting for the diagnosis.
+	 */
+	@Value("${diagnosis.tenantQueueCapacity}")
+	int tenantQueueCapacity;
+
+	/**
+	 * Defines if the invocations are fairly queued per agent or business transaction.
+	 */
+	@Value("${diagnosis.fairness}")
+	DiagnosisFairness fairness;
+
+	/**
+	 * Number of threads executing the rules of one invocation in parallel, 0 for the sequential
+	 * execution.
+	 */
+	@Value("${diagnosis.ruleExecutionParallelism}")
+	int ruleExecutionParallelism;
+
 	/**
 	 * Gets the diagnosis service initializing it with the configurations established.
 	 *
@@ -52,7 +91,8 @@ public class DiagnosisCmrConfiguration implements Consumer<ProblemOccurrence> {
 	public IDiagnosisService getDiagnosisService(DiagnosisCmrProcessor processor) {
 		List<String> rulesPackages = new ArrayList<>();
 		rulesPackages.add(RULES_PACKAGE);
-		IDiagnosisService diagnosisService = new DiagnosisService(this, rulesPackages, 2, 10L, 2);
+		DiagnosisService diagnosisService = new DiagnosisService(this, rulesPackages, sessionWorkers, dispatcherThreads, queueCapacity, tenantQueueCapacity, fairness);
+		diagnosisService.setRuleExecutionParallelism(ruleExecutionParallelism);
 		processor.setDiagnosisService(diagnosisService);
 		return diagnosisService;
 	}
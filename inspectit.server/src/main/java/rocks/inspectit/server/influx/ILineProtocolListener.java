@@ -0,0 +1,30 @@
+package rocks.inspectit.server.influx;
+
+/**
+ * Listener notified about the line protocol records created for the influx. Listeners are called
+ * synchronously by the processing threads, thus implementations must be thread-safe and must not
+ * block.
+ *
+ * @author Ivan Senic
+ *
+ */
+public interface ILineProtocolListener {
+
+	/**
+	 * Returns if the listener is currently interested in records. If at least one listener is
+	 * listening, data is encoded to the line protocol even when it can not be written to the
+	 * influx.
+	 *
+	 * @return If the listener is currently interested in records.
+	 */
+	boolean isListening();
+
+	/**
+	 * Notifies the listener about the records written to the influx. Only called if the listener
+	 * is {@link #isListening()}.
+	 *
+	 * @param records
+	 *            Line protocol records, each terminated with the new line character.
+	 */
+	void onRecords(String records);
+}
@@ -0,0 +1,28 @@
+package rocks.inspectit.server.influx.builder;
+
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Point builder that can encode the data objects directly to the influx line protocol, without
+ * creating the intermediate point builders. Used for the data types with the highest volume.
+ *
+ * @author Ivan Senic
+ * @param <E>
+ *            the base type supported by this builder
+ *
+ */
+public interface ILineProtocolPointBuilder<E extends DefaultData> extends IPointBuilder<E> {
+
+	/**
+	 * Encodes the given data object to the line protocol. The resulting lines must describe the
+	 * same points as the ones created with {@link #createBuilders(DefaultData)}.
+	 *
+	 * @param dataObject
+	 *            the data object to add to the DB.
+	 * @param encoder
+	 *            Encoder to write the lines to.
+	 */
+	void encode(E dataObject, LineProtocolEncoder encoder);
+
+}
@@ -2,23 +2,50 @@ package rocks.inspectit.server.influx.builder;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.influxdb.dto.Point.Builder;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import rocks.inspectit.server.influx.constants.Series;
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
 import rocks.inspectit.shared.all.cmr.model.MethodIdent;
+import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.util.Pair;
 
 /**
- * Point builder for the {@link TimerData}.
+ * Point builder for the {@link TimerData}. Besides the point builders, the timer data can be
+ * directly encoded to the line protocol. In this case the escaped tag set of each platform and
+ * method combination is resolved only once and cached.
  *
  * @author Ivan Senic
  * @author Alexander Wert
  *
  */
 @Component
-public class TimerPointBuilder extends SinglePointBuilder<TimerData> {
+public class TimerPointBuilder extends SinglePointBuilder<TimerData> implements ILineProtocolPointBuilder<TimerData> {
+
+	/**
+	 * Maximum amount of cached tag sets.
+	 */
+	private static final int TAG_SET_CACHE_SIZE = 10000;
+
+	/**
+	 * Minutes after the last access a tag set is removed from the cache.
+	 */
+	private static final int TAG_SET_CACHE_EXPIRE_MINUTES = 10;
+
+	/**
+	 * Pre-escaped tag sets by the platform and method ident ids.
+	 */
+	private final Cache<Pair<Long, Long>, String> tagSetCache = CacheBuilder.newBuilder().maximumSize(TAG_SET_CACHE_SIZE)
+			.expireAfterAccess(TAG_SET_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
 
 	/**
 	 * {@inheritDoc}
@@ -67,4 +94,59 @@ public class TimerPointBuilder extends SinglePointBuilder<TimerData> {
 		builder.addField(Series.Methods.FIELD_COUNT, data.getCount());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void encode(TimerData data, LineProtocolEncoder encoder) {
+		encoder.measurement(getSeriesName());
+		encoder.tagSet(getTagSet(data.getPlatformIdent(), data.getMethodIdent()));
+		encoder.field(Series.Methods.FIELD_CPU_TIME, data.getCpuAverage());
+		encoder.field(Series.Methods.FIELD_DURATION, data.getAverage());
+		encoder.field(Series.Methods.FIELD_COUNT, data.getCount());
+		encoder.field(Series.Methods.FIELD_MAX_CPU_TIME, data.getCpuMax());
+		encoder.field(Series.Methods.FIELD_MAX_DURATION, data.getMax());
+		encoder.field(Series.Methods.FIELD_MIN_CPU_TIME, data.getCpuMin());
+		encoder.field(Series.Methods.FIELD_MIN_DURATION, data.getMin());
+		encoder.time(data.getTimeStamp().getTime(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the pre-escaped tag set for the given platform and method ident. The tag set is
+	 * cached only when both idents are known, otherwise it's resolved again the next time.
+	 *
+	 * @param platformId
+	 *            Platform ident id.
+	 * @param methodId
+	 *            Method ident id.
+	 * @return Pre-escaped tag set.
+	 */
+	private String getTagSet(long platformId, long methodId) {
+		Pair<Long, Long> key = new Pair<>(platformId, methodId);
+		String tagSet = tagSetCache.getIfPresent(key);
+		if (null != tagSet) {
+			return tagSet;
+		}
+
+		PlatformIdent platformIdent = cachedDataService.getPlatformIdentForId(platformId);
+		MethodIdent methodIdent = cachedDataService.getMethodIdentForId(methodId);
+
+		Map<String, String> tags = new HashMap<>();
+		tags.put(Series.TAG_AGENT_ID, String.valueOf(platformId));
+		if (null != platformIdent) {
+			tags.put(Series.TAG_AGENT_NAME, platformIdent.getAgentName());
+		}
+		if (null != methodIdent) {
+			tags.put(Series.Methods.TAG_METHOD_NAME, methodIdent.getMethodName());
+			tags.put(Series.Methods.TAG_CLASS_FQN, methodIdent.getFQN());
+			tags.put(Series.Methods.TAG_METHOD_SIGNATURE, methodIdent.getFullyQualifiedMethodSignature());
+		}
+		tagSet = LineProtocolEncoder.tagSet(tags);
+
+		if ((null != platformIdent) && (null != methodIdent)) {
+			tagSetCache.put(key, tagSet);
+		}
+		return tagSet;
+	}
+
 }
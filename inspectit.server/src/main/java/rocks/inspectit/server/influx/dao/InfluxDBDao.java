@@ -10,7 +10,9 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
+import org.apache.commons.lang.StringUtils;
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ConsistencyLevel;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
@@ -83,6 +85,12 @@ public class InfluxDBDao implements InfluxAvailabilityListener, IExternalService
 	@Value("${influxdb.retentionPolicy}")
 	String retentionPolicy;
 
+	/**
+	 * If the request payloads should be gzip compressed.
+	 */
+	@Value("${influxdb.gzip}")
+	boolean gzip;
+
 	/**
 	 * Configured {@link InfluxDB} instance.
 	 */
@@ -135,6 +143,28 @@ public class InfluxDBDao implements InfluxAvailabilityListener, IExternalService
 		influxDB.write(database, retentionPolicy, dataPoint);
 	}
 
+	/**
+	 * Writes the given line protocol records directly to the database, without using the batching
+	 * of the client. Used by the {@link InfluxDBWriter} that does its own batching.
+	 *
+	 * @param records
+	 *            Line protocol records separated by new lines.
+	 * @return <code>true</code> if the records were written, <code>false</code> if the records are
+	 *         empty or the database is not connected.
+	 * @throws RuntimeException
+	 *             If writing fails. The cause is the
+	 *             {@link rocks.inspectit.server.influx.util.InfluxWriteRejectedException} if the
+	 *             database rejected the records.
+	 */
+	public boolean write(String records) {
+		if (StringUtils.isEmpty(records) || !isConnected()) {
+			return false;
+		}
+
+		influxDB.write(database, retentionPolicy, ConsistencyLevel.ONE, records);
+		return true;
+	}
+
 	/**
 	 * Executes the given query on the database.
 	 *
@@ -167,7 +197,7 @@ public class InfluxDBDao implements InfluxAvailabilityListener, IExternalService
 	 * Connects to the InfluxDB if the feature has been enabled.
 	 */
 	@PostConstruct
-	@PropertyUpdate(properties = { "influxdb.host", "influxdb.port", "influxdb.user", "influxdb.passwd", "influxdb.database", "influxdb.active", "influxdb.ssl" })
+	@PropertyUpdate(properties = { "influxdb.host", "influxdb.port", "influxdb.user", "influxdb.passwd", "influxdb.database", "influxdb.active", "influxdb.ssl", "influxdb.gzip" })
 	public void propertiesUpdated() {
 		reset();
 
@@ -209,7 +239,13 @@ public class InfluxDBDao implements InfluxAvailabilityListener, IExternalService
 				log.error("InfluxDB client is null. Please check your configuration settings and try again.");
 			}
 			return;
-		} else if (!executeWriteTest()) {
+		}
+
+		if (gzip) {
+			influxDB.enableGzip();
+		}
+
+		if (!executeWriteTest()) {
 			if (!isDatabaseAvailable(database)) {
 				if (!createDatabase(database)) {
 					// Connection fails, because database is not available/ visible and can't be
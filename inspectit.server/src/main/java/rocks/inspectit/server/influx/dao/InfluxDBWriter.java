@@ -0,0 +1,586 @@
+package rocks.inspectit.server.influx.dao;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.io.CharStreams;
+
+import rocks.inspectit.server.influx.util.InfluxWriteRejectedException;
+import rocks.inspectit.shared.all.externalservice.ExternalServiceStatus;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.util.ExecutorServiceUtils;
+
+/**
+ * Writer stage between the influx processor and the {@link InfluxDBDao}. Line protocol records
+ * are put into a bounded queue and written by a dedicated thread in batches, when either the
+ * configured batch size is reached or the flush interval passes. Failed writes are retried with
+ * an exponential back-off. Batches that can not be written, because the influx is down or all
+ * retries failed, are spilled as compressed files to the spill directory and replayed in the
+ * original order as soon as the influx is available again. Batches the influx rejects as not
+ * valid would fail again on every retry, thus they are logged and dropped.
+ * <p>
+ * The dropped and rejected amounts are counted in line protocol records, independently of how
+ * many records were passed with a single {@link #write(String)} call.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class InfluxDBWriter {
+
+	/**
+	 * Prefix of the spill files.
+	 */
+	static final String SPILL_FILE_PREFIX = "influx-";
+
+	/**
+	 * Suffix of the spill files.
+	 */
+	static final String SPILL_FILE_SUFFIX = ".lp.gz";
+
+	/**
+	 * Maximum back-off between two write attempts in milliseconds.
+	 */
+	private static final long MAX_RETRY_BACKOFF = 30000L;
+
+	/**
+	 * Seconds to wait for the writing thread to write the remaining records on shutdown.
+	 */
+	private static final long SHUTDOWN_TIMEOUT = 10L;
+
+	/**
+	 * Initial capacity of the batch buffer in characters.
+	 */
+	private static final int INITIAL_BATCH_CAPACITY = 64 * 1024;
+
+	/**
+	 * Logger for the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * {@link InfluxDBDao} to write to.
+	 */
+	@Autowired
+	InfluxDBDao influxDbDao;
+
+	/**
+	 * Executor running the writing thread.
+	 */
+	@Autowired
+	@Resource(name = "influxWriterExecutorService")
+	ExecutorService executorService;
+
+	/**
+	 * Maximum amount of the entries waiting in the queue.
+	 */
+	@Value("${influxdb.writer.queueCapacity}")
+	int queueCapacity;
+
+	/**
+	 * Amount of queued entries written in one batch.
+	 */
+	@Value("${influxdb.writer.batchSize}")
+	int batchSize;
+
+	/**
+	 * Maximum time in milliseconds a record waits in an incomplete batch.
+	 */
+	@Value("${influxdb.writer.flushInterval}")
+	long flushInterval;
+
+	/**
+	 * Amount of retries of a failed write.
+	 */
+	@Value("${influxdb.writer.maxRetries}")
+	int maxRetries;
+
+	/**
+	 * Back-off before the first retry in milliseconds, doubled on every next retry.
+	 */
+	@Value("${influxdb.writer.retryBackoff}")
+	long retryBackoff;
+
+	/**
+	 * Directory to spill the batches to.
+	 */
+	@Value("${influxdb.writer.spillDirectory}")
+	String spillDirectory;
+
+	/**
+	 * Maximum size of the spill directory in bytes.
+	 */
+	@Value("${influxdb.writer.maxSpillSize}")
+	long maxSpillSize;
+
+	/**
+	 * Queue of the records to write.
+	 */
+	private BlockingQueue<String> queue;
+
+	/**
+	 * If the writer is running.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Future of the writing task.
+	 */
+	private Future<?> writingFuture;
+
+	/**
+	 * Current size of the spill files in bytes.
+	 */
+	private volatile long spillSize;
+
+	/**
+	 * Sequence making the names of the spill files unique.
+	 */
+	private long spillSequence;
+
+	/**
+	 * Amount of dropped records.
+	 */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * Amount of records rejected by the influx.
+	 */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Amount of dropped records already reported in the log.
+	 */
+	private long reportedDroppedCount;
+
+	/**
+	 * Starts the writing thread.
+	 */
+	@PostConstruct
+	public void start() {
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		spillSize = calculateSpillSize();
+		running = true;
+		writingFuture = executorService.submit(new WritingTask());
+	}
+
+	/**
+	 * Queues the line protocol records for writing.
+	 *
+	 * @param records
+	 *            Line protocol records, each terminated with the new line character.
+	 * @return <code>true</code> if the records were queued, <code>false</code> if they were
+	 *         dropped because the queue is full.
+	 */
+	public boolean write(String records) {
+		if (!running || !queue.offer(records)) {
+			droppedCount.addAndGet(countRecords(records));
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns if the writer accepts records. This is the case when the influx is connected or when
+	 * it's active but disconnected and there is still space to spill the records to.
+	 *
+	 * @return If the writer accepts records.
+	 */
+	public boolean canWrite() {
+		if (!running) {
+			return false;
+		}
+
+		ExternalServiceStatus status = influxDbDao.getServiceStatus();
+		return (status == ExternalServiceStatus.CONNECTED) || ((status == ExternalServiceStatus.DISCONNECTED) && (spillSize < maxSpillSize));
+	}
+
+	/**
+	 * Returns the amount of the dropped records.
+	 *
+	 * @return Returns the amount of the dropped records.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Returns the amount of the records rejected by the influx.
+	 *
+	 * @return Returns the amount of the records rejected by the influx.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Stops the writing thread. The thread writes or spills the records still in the queue before
+	 * stopping.
+	 */
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (null != writingFuture) {
+			try {
+				writingFuture.get(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException | TimeoutException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("InfluxDB writer did not write all queued records before shutdown.", e);
+				}
+			}
+		}
+		ExecutorServiceUtils.shutdownExecutor(executorService, 5L, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Writes the batch. If the batch can not be written, it is spilled.
+	 *
+	 * @param payload
+	 *            Batch of the line protocol records.
+	 */
+	void flush(String payload) {
+		if (!send(payload)) {
+			spill(payload);
+		}
+
+		long dropped = droppedCount.get();
+		if ((dropped > reportedDroppedCount) && log.isWarnEnabled()) {
+			log.warn("|-{} records could not be written to the InfluxDB, as the writer queue was full or the spill directory exhausted.", dropped - reportedDroppedCount);
+		}
+		reportedDroppedCount = dropped;
+	}
+
+	/**
+	 * Sends the payload to the {@link InfluxDBDao}. Failed writes are retried with the back-off,
+	 * unless the writer is stopping. Payloads rejected by the influx as not valid are not retried,
+	 * but dropped.
+	 *
+	 * @param payload
+	 *            Batch of the line protocol records.
+	 * @return <code>true</code> if the payload was written or rejected, thus it must not be
+	 *         spilled or replayed again.
+	 */
+	boolean send(String payload) {
+		int retries = running ? maxRetries : 0;
+		for (int attempt = 0;; attempt++) {
+			try {
+				return influxDbDao.write(payload);
+			} catch (Exception e) { // NOPMD the client throws runtime exceptions only
+				InfluxWriteRejectedException rejectedException = getRejectedException(e);
+				if (null != rejectedException) {
+					reject(payload, rejectedException);
+					return true;
+				}
+
+				if (attempt >= retries) {
+					if (log.isWarnEnabled()) {
+						log.warn("Writing to the InfluxDB failed after " + (attempt + 1) + " attempt(s).", e);
+					}
+					return false;
+				}
+
+				if (log.isDebugEnabled()) {
+					log.debug("Writing to the InfluxDB failed, retrying.", e);
+				}
+				try {
+					Thread.sleep(getBackoff(attempt));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the {@link InfluxWriteRejectedException} in the cause chain of the exception thrown by
+	 * the client.
+	 *
+	 * @param exception
+	 *            Exception thrown by the client.
+	 * @return {@link InfluxWriteRejectedException} or <code>null</code> if the write was not
+	 *         rejected by the influx.
+	 */
+	private InfluxWriteRejectedException getRejectedException(Throwable exception) {
+		Throwable throwable = exception;
+		while (null != throwable) {
+			if (throwable instanceof InfluxWriteRejectedException) {
+				return (InfluxWriteRejectedException) throwable;
+			}
+			throwable = throwable.getCause();
+		}
+		return null;
+	}
+
+	/**
+	 * Drops the payload rejected by the influx and logs the rejection.
+	 *
+	 * @param payload
+	 *            Batch of the line protocol records.
+	 * @param rejectedException
+	 *            Exception describing the rejection.
+	 */
+	private void reject(String payload, InfluxWriteRejectedException rejectedException) {
+		int records = countRecords(payload);
+		rejectedCount.addAndGet(records);
+		if (log.isWarnEnabled()) {
+			log.warn("|-Batch of {} records was rejected by the InfluxDB with the status {} and will be dropped: {}", records, rejectedException.getStatusCode(), rejectedException.getMessage());
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("|-Rejected records:\n{}", payload);
+		}
+	}
+
+	/**
+	 * Returns the amount of line protocol records in the string.
+	 *
+	 * @param records
+	 *            Line protocol records, each terminated with the new line character.
+	 * @return Amount of records.
+	 */
+	private static int countRecords(String records) {
+		return StringUtils.countMatches(records, "\n");
+	}
+
+	/**
+	 * Returns the back-off before the retry following the given attempt.
+	 *
+	 * @param attempt
+	 *            Zero-based attempt that failed.
+	 * @return Back-off in milliseconds.
+	 */
+	long getBackoff(int attempt) {
+		return Math.min(retryBackoff << Math.min(attempt, 20), MAX_RETRY_BACKOFF);
+	}
+
+	/**
+	 * Spills the batch to a new compressed file in the spill directory. If the spill directory is
+	 * exhausted the batch is dropped.
+	 *
+	 * @param payload
+	 *            Batch of the line protocol records.
+	 */
+	void spill(String payload) {
+		if (spillSize >= maxSpillSize) {
+			droppedCount.addAndGet(countRecords(payload));
+			return;
+		}
+
+		Path file = null;
+		try {
+			Path directory = Paths.get(spillDirectory);
+			Files.createDirectories(directory);
+			file = directory.resolve(String.format("%s%019d-%09d%s", SPILL_FILE_PREFIX, System.currentTimeMillis(), spillSequence++, SPILL_FILE_SUFFIX));
+			try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)) {
+				writer.write(payload);
+			}
+			spillSize += Files.size(file);
+		} catch (IOException e) {
+			droppedCount.addAndGet(countRecords(payload));
+			if (log.isErrorEnabled()) {
+				log.error("Batch of InfluxDB records could not be spilled to " + spillDirectory + ".", e);
+			}
+			deleteQuietly(file);
+		}
+	}
+
+	/**
+	 * Returns if there are spilled batches that can be replayed.
+	 *
+	 * @return If there are spilled batches that can be replayed.
+	 */
+	boolean canReplay() {
+		return (spillSize > 0) && influxDbDao.isConnected();
+	}
+
+	/**
+	 * Replays the oldest spilled batch. The spill file is deleted if the batch was written or
+	 * rejected by the influx.
+	 */
+	void replay() {
+		List<Path> files = getSpillFiles();
+		if (files.isEmpty()) {
+			spillSize = 0;
+			return;
+		}
+
+		Path file = files.get(0);
+		try {
+			String payload;
+			try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)) {
+				payload = CharStreams.toString(reader);
+			}
+			if (send(payload)) {
+				long size = Files.size(file);
+				Files.delete(file);
+				spillSize = Math.max(0L, spillSize - size);
+			}
+		} catch (IOException e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Spilled InfluxDB records in " + file + " can not be read and will be deleted.", e);
+			}
+			deleteQuietly(file);
+			spillSize = calculateSpillSize();
+		}
+	}
+
+	/**
+	 * Returns the spill files sorted from the oldest to the newest.
+	 *
+	 * @return Spill files.
+	 */
+	List<Path> getSpillFiles() {
+		Path directory = Paths.get(spillDirectory);
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SPILL_FILE_PREFIX + "*" + SPILL_FILE_SUFFIX)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		} catch (IOException e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Spill directory " + spillDirectory + " can not be read.", e);
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Calculates the size of the existing spill files.
+	 *
+	 * @return Size in bytes.
+	 */
+	private long calculateSpillSize() {
+		long size = 0;
+		for (Path file : getSpillFiles()) {
+			try {
+				size += Files.size(file);
+			} catch (IOException e) {
+				if (log.isDebugEnabled()) {
+					log.debug("Size of the spill file " + file + " can not be read.", e);
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Deletes the file ignoring any exception.
+	 *
+	 * @param file
+	 *            File to delete, can be <code>null</code>.
+	 */
+	private void deleteQuietly(Path file) {
+		if (null != file) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) { // NOPMD nothing to do
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Task collecting the queued records into batches and writing them. A single buffer is reused
+	 * for all the batches.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private class WritingTask implements Runnable {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			StringBuilder batch = new StringBuilder(INITIAL_BATCH_CAPACITY);
+			int batchEntries = 0;
+			long batchStart = 0;
+
+			try {
+				while (running || !queue.isEmpty()) {
+					long wait;
+					if (batchEntries > 0) {
+						wait = Math.max(0L, (batchStart + flushInterval) - System.currentTimeMillis());
+					} else {
+						wait = canReplay() ? 0L : flushInterval;
+					}
+
+					String records = queue.poll(wait, TimeUnit.MILLISECONDS);
+					while (null != records) {
+						if (0 == batchEntries) {
+							batchStart = System.currentTimeMillis();
+						}
+						batch.append(records);
+						batchEntries++;
+						if (batchEntries >= batchSize) {
+							break;
+						}
+						records = queue.poll();
+					}
+
+					if ((batchEntries >= batchSize) || ((batchEntries > 0) && ((System.currentTimeMillis() - batchStart) >= flushInterval))) {
+						flush(batch.toString());
+						batch.setLength(0);
+						batchEntries = 0;
+					}
+
+					if ((0 == batchEntries) && canReplay()) {
+						replay();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				List<String> remaining = new ArrayList<>();
+				queue.drainTo(remaining);
+				for (String records : remaining) {
+					batch.append(records);
+				}
+				batchEntries += remaining.size();
+				if (batchEntries > 0) {
+					flush(batch.toString());
+				}
+			}
+		}
+	}
+}
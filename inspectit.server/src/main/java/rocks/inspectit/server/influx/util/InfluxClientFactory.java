@@ -1,11 +1,18 @@
 package rocks.inspectit.server.influx.util;
 
+import java.io.IOException;
+
 import org.apache.commons.lang.StringUtils;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
 /**
  * Factory class to create {@link InfluxDB} clients.
  *
@@ -24,6 +31,22 @@ public class InfluxClientFactory {
 	 */
 	private static final String HTTPS = "https://";
 
+	/**
+	 * Path of the write endpoint.
+	 */
+	private static final String WRITE_PATH = "/write";
+
+	/**
+	 * HTTP status of the write request with not parsable records.
+	 */
+	private static final int HTTP_BAD_REQUEST = 400;
+
+	/**
+	 * HTTP status of the write request with records the database can not accept, for example
+	 * because of a field type conflict.
+	 */
+	private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
 	/**
 	 * Host where InfluxDB is running.
 	 */
@@ -70,7 +93,39 @@ public class InfluxClientFactory {
 		}
 		String protocol = sslEnabled ? HTTPS : HTTP;
 		String influxUrl = protocol + host + ":" + port;
-		return InfluxDBFactory.connect(influxUrl, user, password);
+		OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder().addInterceptor(new WriteRejectionInterceptor());
+		return InfluxDBFactory.connect(influxUrl, user, password, clientBuilder);
+	}
+
+	/**
+	 * Interceptor failing the write requests the InfluxDB rejected as not valid (HTTP status 400 or
+	 * 422) with the {@link InfluxWriteRejectedException}. The client reports all unsuccessful
+	 * responses the same way, thus this is the only way to pass the status to the caller. Other
+	 * client errors, like 401, 403 or 404 for a missing database, are caused by the configuration
+	 * or availability of the influx and are reported by the client as usual, so that the payload is
+	 * retried.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	static class WriteRejectionInterceptor implements Interceptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Response response = chain.proceed(chain.request());
+			int code = response.code();
+			if (((HTTP_BAD_REQUEST == code) || (HTTP_UNPROCESSABLE_ENTITY == code)) && chain.request().url().encodedPath().endsWith(WRITE_PATH)) {
+				String message;
+				try (ResponseBody body = response.body()) {
+					message = body.string();
+				}
+				throw new InfluxWriteRejectedException(code, message);
+			}
+			return response;
+		}
 	}
 
 }
@@ -1,8 +1,15 @@
 package rocks.inspectit.server.influx.util;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.collections.MapUtils;
+
 import rocks.inspectit.server.alerting.state.AlertingState;
 import rocks.inspectit.server.influx.constants.Series;
 import rocks.inspectit.shared.cs.ci.AlertingDefinition;
@@ -57,6 +64,76 @@ public final class InfluxQueryFactory {
 		return builder.toString();
 	}
 
+	/**
+	 * Creates a query that retrieves the max / min value per tag group for all given alerting
+	 * states in the time range before the current time. All states must share the measurement,
+	 * field, threshold type and time range of their {@link AlertingDefinition}s, they can differ in
+	 * the tags only. The result contains one series per combination of the tag values used by the
+	 * states.
+	 *
+	 * @param alertingStates
+	 *            {@link AlertingState}s to retrieve the values for.
+	 * @param currentTime
+	 *            The current system time.
+	 * @return The influxDB query as String.
+	 */
+	public static String buildGroupedThresholdCheckQuery(Collection<AlertingState> alertingStates, long currentTime) {
+		AlertingDefinition definition = alertingStates.iterator().next().getAlertingDefinition();
+
+		String aggregationFunction;
+		if (definition.getThresholdType() == ThresholdType.UPPER_THRESHOLD) {
+			aggregationFunction = "MAX";
+		} else {
+			aggregationFunction = "MIN";
+		}
+
+		Set<String> tagKeys = new TreeSet<>();
+		StringBuilder tagFilter = new StringBuilder();
+		boolean unfiltered = false;
+		for (AlertingState alertingState : alertingStates) {
+			Map<String, String> tags = alertingState.getAlertingDefinition().getTags();
+			if (MapUtils.isEmpty(tags)) {
+				unfiltered = true;
+				continue;
+			}
+
+			tagFilter.append((tagFilter.length() == 0) ? "(" : " OR (");
+			boolean first = true;
+			for (Entry<String, String> entry : new TreeMap<>(tags).entrySet()) {
+				if (!first) {
+					tagFilter.append(" AND ");
+				}
+				tagFilter.append('"').append(entry.getKey()).append("\" = '").append(entry.getValue()).append('\'');
+				tagKeys.add(entry.getKey());
+				first = false;
+			}
+			tagFilter.append(')');
+		}
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("SELECT " + aggregationFunction + "(\"").append(definition.getField()).append("\") FROM \"").append(definition.getMeasurement()).append("\" WHERE ");
+		if (!unfiltered && (tagFilter.length() > 0)) {
+			builder.append('(').append(tagFilter).append(") AND ");
+		}
+
+		long leftCheckIntervalBorder = currentTime - definition.getTimeRange(TimeUnit.MILLISECONDS);
+		builder.append("time <= ").append(currentTime).append("ms AND time > ").append(leftCheckIntervalBorder).append("ms");
+
+		if (!tagKeys.isEmpty()) {
+			builder.append(" GROUP BY ");
+			boolean first = true;
+			for (String tagKey : tagKeys) {
+				if (!first) {
+					builder.append(',');
+				}
+				builder.append('"').append(tagKey).append('"');
+				first = false;
+			}
+		}
+
+		return builder.toString();
+	}
+
 	/**
 	 * Creates a influxDB query for the given alert id. The query retrieves the ids of the
 	 * invocation sequences that constitute the alert.
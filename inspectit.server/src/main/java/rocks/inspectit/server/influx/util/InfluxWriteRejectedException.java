@@ -0,0 +1,48 @@
+package rocks.inspectit.server.influx.util;
+
+import java.io.IOException;
+
+/**
+ * Exception signaling that the InfluxDB rejected a write request as not valid (HTTP status 400 or
+ * 422), for example because of the field type conflict or not parsable records. Such writes will
+ * fail again when retried. The client passes the exception as the cause of the runtime exception
+ * it throws.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class InfluxWriteRejectedException extends IOException {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -2730146618452396117L;
+
+	/**
+	 * HTTP status of the response.
+	 */
+	private final int statusCode;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param statusCode
+	 *            HTTP status of the response.
+	 * @param message
+	 *            Error message returned by the InfluxDB.
+	 */
+	public InfluxWriteRejectedException(int statusCode, String message) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * Gets {@link #statusCode}.
+	 *
+	 * @return {@link #statusCode}
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+}
@@ -0,0 +1,313 @@
+package rocks.inspectit.server.influx.util;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.influxdb.dto.Point;
+
+/**
+ * Encoder of the influx line protocol. Lines are appended directly to an internal buffer that can
+ * be reused after {@link #reset()}, thus no intermediate {@link Point} objects are created. Each
+ * line has to be started with {@link #measurement(String)} and completed with
+ * {@link #time(long, TimeUnit)}. Tags and fields are added in between, tags first.
+ * <p>
+ * Time stamps are written in nanoseconds, as this is the precision the influx client uses when
+ * writing line protocol records. The encoder is not thread-safe.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class LineProtocolEncoder {
+
+	/**
+	 * Default initial capacity of the buffer.
+	 */
+	private static final int DEFAULT_CAPACITY = 512;
+
+	/**
+	 * Buffer holding the encoded lines.
+	 */
+	private final StringBuilder buffer;
+
+	/**
+	 * Start of the line currently being encoded in the buffer.
+	 */
+	private int lineStart;
+
+	/**
+	 * Amount of fields written to the current line.
+	 */
+	private int fieldCount;
+
+	/**
+	 * Amount of completed lines in the buffer.
+	 */
+	private int lineCount;
+
+	/**
+	 * Creates encoder with the default initial capacity.
+	 */
+	public LineProtocolEncoder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates encoder with the given initial capacity.
+	 *
+	 * @param initialCapacity
+	 *            Initial capacity of the buffer in characters.
+	 */
+	public LineProtocolEncoder(int initialCapacity) {
+		this.buffer = new StringBuilder(initialCapacity);
+	}
+
+	/**
+	 * Starts a new line with the given measurement.
+	 *
+	 * @param measurement
+	 *            Measurement name.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder measurement(String measurement) {
+		lineStart = buffer.length();
+		fieldCount = 0;
+		escape(measurement, false, buffer);
+		return this;
+	}
+
+	/**
+	 * Adds a tag to the current line. Tags with <code>null</code> or empty values are ignored, as
+	 * influx does not support them.
+	 *
+	 * @param key
+	 *            Tag key.
+	 * @param value
+	 *            Tag value.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder tag(String key, String value) {
+		if (StringUtils.isNotEmpty(value)) {
+			buffer.append(',');
+			escape(key, true, buffer);
+			buffer.append('=');
+			escape(value, true, buffer);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the pre-escaped tag set to the current line. The tag set must be created with
+	 * {@link #tagSet(Map)}.
+	 *
+	 * @param tagSet
+	 *            Pre-escaped tag set.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder tagSet(String tagSet) {
+		buffer.append(tagSet);
+		return this;
+	}
+
+	/**
+	 * Adds a floating point field to the current line. Not finite values are ignored, as influx
+	 * does not support them.
+	 *
+	 * @param key
+	 *            Field key.
+	 * @param value
+	 *            Field value.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder field(String key, double value) {
+		if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+			fieldKey(key);
+			buffer.append(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds an integer field to the current line.
+	 *
+	 * @param key
+	 *            Field key.
+	 * @param value
+	 *            Field value.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder field(String key, long value) {
+		fieldKey(key);
+		buffer.append(value).append('i');
+		return this;
+	}
+
+	/**
+	 * Adds a boolean field to the current line.
+	 *
+	 * @param key
+	 *            Field key.
+	 * @param value
+	 *            Field value.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder field(String key, boolean value) {
+		fieldKey(key);
+		buffer.append(value);
+		return this;
+	}
+
+	/**
+	 * Adds a string field to the current line. <code>null</code> values are ignored.
+	 *
+	 * @param key
+	 *            Field key.
+	 * @param value
+	 *            Field value.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder field(String key, String value) {
+		if (null != value) {
+			fieldKey(key);
+			buffer.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if ((c == '"') || (c == '\\')) {
+					buffer.append('\\');
+				}
+				buffer.append(c);
+			}
+			buffer.append('"');
+		}
+		return this;
+	}
+
+	/**
+	 * Completes the current line with the given time stamp. If no field was added to the line, the
+	 * line is removed from the buffer, as influx does not accept points without fields.
+	 *
+	 * @param time
+	 *            Time stamp.
+	 * @param timeUnit
+	 *            Unit of the time stamp.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder time(long time, TimeUnit timeUnit) {
+		if (0 == fieldCount) {
+			buffer.setLength(lineStart);
+		} else {
+			buffer.append(' ').append(timeUnit.toNanos(time)).append('\n');
+			lineCount++;
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the complete point as a line.
+	 *
+	 * @param point
+	 *            Point to add.
+	 * @return This encoder.
+	 */
+	public LineProtocolEncoder point(Point point) {
+		buffer.append(point.lineProtocol()).append('\n');
+		lineCount++;
+		return this;
+	}
+
+	/**
+	 * Returns if no line has been completed in this encoder.
+	 *
+	 * @return If no line has been completed in this encoder.
+	 */
+	public boolean isEmpty() {
+		return 0 == lineCount;
+	}
+
+	/**
+	 * Returns the amount of completed lines.
+	 *
+	 * @return Amount of completed lines.
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Clears the encoded lines, keeping the allocated buffer.
+	 */
+	public void reset() {
+		buffer.setLength(0);
+		lineStart = 0;
+		fieldCount = 0;
+		lineCount = 0;
+	}
+
+	/**
+	 * Returns the encoded lines, each terminated with the new line character.
+	 *
+	 * @return Returns the encoded lines.
+	 */
+	@Override
+	public String toString() {
+		return buffer.toString();
+	}
+
+	/**
+	 * Writes the field separator and the escaped key.
+	 *
+	 * @param key
+	 *            Field key.
+	 */
+	private void fieldKey(String key) {
+		buffer.append((0 == fieldCount) ? ' ' : ',');
+		escape(key, true, buffer);
+		buffer.append('=');
+		fieldCount++;
+	}
+
+	/**
+	 * Creates the pre-escaped tag set that can be passed to {@link #tagSet(String)}. Tags are
+	 * sorted by the key as influx recommends. Tags with <code>null</code> or empty values are
+	 * ignored.
+	 *
+	 * @param tags
+	 *            Tags.
+	 * @return Pre-escaped tag set.
+	 */
+	public static String tagSet(Map<String, String> tags) {
+		StringBuilder tagSet = new StringBuilder();
+		for (Entry<String, String> entry : new TreeMap<>(tags).entrySet()) {
+			if (StringUtils.isNotEmpty(entry.getValue())) {
+				tagSet.append(',');
+				escape(entry.getKey(), true, tagSet);
+				tagSet.append('=');
+				escape(entry.getValue(), true, tagSet);
+			}
+		}
+		return tagSet.toString();
+	}
+
+	/**
+	 * Escapes the given name. Measurements need escaping of the commas and spaces, tag keys, tag
+	 * values and field keys additionally of the equal signs.
+	 *
+	 * @param name
+	 *            Name to escape.
+	 * @param escapeEquals
+	 *            If equal signs should be escaped.
+	 * @param target
+	 *            Builder to append the escaped name to.
+	 */
+	private static void escape(String name, boolean escapeEquals, StringBuilder target) {
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if ((c == ',') || (c == ' ') || (escapeEquals && (c == '='))) {
+				target.append('\\');
+			}
+			target.append(c);
+		}
+	}
+}
@@ -0,0 +1,356 @@
+package rocks.inspectit.server.influx.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parser of the influx line protocol records as created by the {@link LineProtocolEncoder}. Either
+ * all lines or only the lines of the requested measurements are parsed, all others are skipped
+ * without creating any objects. Of the fields only the numeric ones are kept, integer fields are
+ * returned as doubles. Malformed lines are skipped.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class LineProtocolParser {
+
+	/**
+	 * Private constructor.
+	 */
+	private LineProtocolParser() {
+	}
+
+	/**
+	 * Parses all lines from the records.
+	 *
+	 * @param records
+	 *            Line protocol records, separated by the new line character.
+	 * @return Parsed lines in the order of the records.
+	 */
+	public static List<ParsedLine> parse(String records) {
+		if ((null == records) || records.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return parse(records, null, true);
+	}
+
+	/**
+	 * Parses the lines of the given measurements from the records.
+	 *
+	 * @param records
+	 *            Line protocol records, separated by the new line character.
+	 * @param measurements
+	 *            Measurements to parse.
+	 * @return Parsed lines in the order of the records.
+	 */
+	public static List<ParsedLine> parse(String records, Set<String> measurements) {
+		if ((null == records) || records.isEmpty() || (null == measurements) || measurements.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return parse(records, measurements, false);
+	}
+
+	/**
+	 * Parses the lines of the given measurements or all lines from the records.
+	 *
+	 * @param records
+	 *            Line protocol records, separated by the new line character.
+	 * @param measurements
+	 *            Measurements to parse.
+	 * @param all
+	 *            If all lines should be parsed, regardless of the measurement.
+	 * @return Parsed lines in the order of the records.
+	 */
+	private static List<ParsedLine> parse(String records, Set<String> measurements, boolean all) {
+		List<ParsedLine> lines = new ArrayList<>();
+		StringBuilder token = new StringBuilder();
+		int position = 0;
+		while (position < records.length()) {
+			int lineEnd = lineEnd(records, position);
+			if (lineEnd > position) {
+				int measurementEnd = readName(records, position, lineEnd, token, false);
+				if (all || measurements.contains(token.toString())) {
+					ParsedLine line = parseLine(records, measurementEnd, lineEnd, token.toString(), token);
+					if (null != line) {
+						lines.add(line);
+					}
+				}
+			}
+			position = lineEnd + 1;
+		}
+		return lines;
+	}
+
+	/**
+	 * Parses tags, fields and the time stamp of one line.
+	 *
+	 * @param records
+	 *            Records.
+	 * @param start
+	 *            Position after the measurement.
+	 * @param end
+	 *            End of the line.
+	 * @param measurement
+	 *            Measurement of the line.
+	 * @param token
+	 *            Builder to reuse for reading the tokens.
+	 * @return Parsed line or <code>null</code> if the line is malformed or has no numeric field.
+	 */
+	private static ParsedLine parseLine(String records, int start, int end, String measurement, StringBuilder token) {
+		int position = start;
+		Map<String, String> tags = new HashMap<>();
+		while ((position < end) && (records.charAt(position) == ',')) {
+			position = readName(records, position + 1, end, token, true);
+			if ((position >= end) || (records.charAt(position) != '=')) {
+				return null;
+			}
+			String key = token.toString();
+			position = readName(records, position + 1, end, token, false);
+			tags.put(key, token.toString());
+		}
+		if ((position >= end) || (records.charAt(position) != ' ')) {
+			return null;
+		}
+
+		Map<String, Double> fields = new HashMap<>();
+		do {
+			position = readName(records, position + 1, end, token, true);
+			if ((position >= end) || (records.charAt(position) != '=')) {
+				return null;
+			}
+			String key = token.toString();
+			position++;
+			if ((position < end) && (records.charAt(position) == '"')) {
+				position = skipString(records, position, end);
+			} else {
+				int valueStart = position;
+				while ((position < end) && (records.charAt(position) != ',') && (records.charAt(position) != ' ')) {
+					position++;
+				}
+				Double value = toNumber(records.substring(valueStart, position));
+				if (null != value) {
+					fields.put(key, value);
+				}
+			}
+		} while ((position < end) && (records.charAt(position) == ','));
+
+		long time = -1L;
+		if ((position < end) && (records.charAt(position) == ' ')) {
+			try {
+				time = Long.parseLong(records.substring(position + 1, end).trim());
+			} catch (NumberFormatException e) { // NOPMD
+				return null;
+			}
+		}
+
+		if (fields.isEmpty()) {
+			return null;
+		}
+		return new ParsedLine(measurement, tags, fields, time);
+	}
+
+	/**
+	 * Reads the escaped measurement, tag key, tag value or field key starting at the given
+	 * position. Reading stops at the first not escaped comma or space, and if requested also at the
+	 * equal sign.
+	 *
+	 * @param records
+	 *            Records.
+	 * @param start
+	 *            Position to start reading.
+	 * @param end
+	 *            End of the line.
+	 * @param token
+	 *            Builder to read the unescaped name to. It is cleared first.
+	 * @param stopAtEquals
+	 *            If reading should stop at the equal sign.
+	 * @return Position of the character that stopped the reading.
+	 */
+	private static int readName(String records, int start, int end, StringBuilder token, boolean stopAtEquals) {
+		token.setLength(0);
+		int position = start;
+		while (position < end) {
+			char c = records.charAt(position);
+			if ((c == '\\') && ((position + 1) < end)) {
+				position++;
+				token.append(records.charAt(position));
+			} else if ((c == ',') || (c == ' ') || (stopAtEquals && (c == '='))) {
+				break;
+			} else {
+				token.append(c);
+			}
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * Skips the quoted string field value starting at the given position.
+	 *
+	 * @param records
+	 *            Records.
+	 * @param start
+	 *            Position of the opening quote.
+	 * @param end
+	 *            End of the line.
+	 * @return Position after the closing quote.
+	 */
+	private static int skipString(String records, int start, int end) {
+		int position = start + 1;
+		while (position < end) {
+			char c = records.charAt(position);
+			if (c == '\\') {
+				position++;
+			} else if (c == '"') {
+				return position + 1;
+			}
+			position++;
+		}
+		return end;
+	}
+
+	/**
+	 * Returns the end of the line starting at the given position, thus the position of the new
+	 * line character or the end of the records. New lines in quoted string field values do not end
+	 * the line.
+	 *
+	 * @param records
+	 *            Records.
+	 * @param start
+	 *            Start of the line.
+	 * @return End of the line.
+	 */
+	private static int lineEnd(String records, int start) {
+		boolean fieldSet = false;
+		boolean quoted = false;
+		int position = start;
+		while (position < records.length()) {
+			char c = records.charAt(position);
+			if (c == '\\') {
+				position++;
+			} else if (quoted) {
+				if (c == '"') {
+					quoted = false;
+				}
+			} else if (c == '\n') {
+				return position;
+			} else if (c == ' ') {
+				fieldSet = !fieldSet;
+			} else if (fieldSet && (c == '"')) {
+				quoted = true;
+			}
+			position++;
+		}
+		return records.length();
+	}
+
+	/**
+	 * Converts the field value to a number. Integer values have the <code>i</code> suffix.
+	 *
+	 * @param value
+	 *            Field value.
+	 * @return Number or <code>null</code> if the value is not numeric.
+	 */
+	private static Double toNumber(String value) {
+		if (value.isEmpty()) {
+			return null;
+		}
+		try {
+			if (value.charAt(value.length() - 1) == 'i') {
+				return Double.valueOf(Long.parseLong(value.substring(0, value.length() - 1)));
+			}
+			char first = value.charAt(0);
+			if (Character.isDigit(first) || (first == '-') || (first == '.') || (first == '+')) {
+				return Double.valueOf(value);
+			}
+		} catch (NumberFormatException e) { // NOPMD
+			return null;
+		}
+		return null;
+	}
+
+	/**
+	 * One parsed line.
+	 */
+	public static final class ParsedLine {
+
+		/**
+		 * Measurement.
+		 */
+		private final String measurement;
+
+		/**
+		 * Tags.
+		 */
+		private final Map<String, String> tags;
+
+		/**
+		 * Numeric fields.
+		 */
+		private final Map<String, Double> fields;
+
+		/**
+		 * Time stamp in nanoseconds or <code>-1</code> if the line has no time stamp.
+		 */
+		private final long time;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param measurement
+		 *            Measurement.
+		 * @param tags
+		 *            Tags.
+		 * @param fields
+		 *            Numeric fields.
+		 * @param time
+		 *            Time stamp in nanoseconds or <code>-1</code> if the line has no time stamp.
+		 */
+		ParsedLine(String measurement, Map<String, String> tags, Map<String, Double> fields, long time) {
+			this.measurement = measurement;
+			this.tags = tags;
+			this.fields = fields;
+			this.time = time;
+		}
+
+		/**
+		 * Gets {@link #measurement}.
+		 *
+		 * @return {@link #measurement}
+		 */
+		public String getMeasurement() {
+			return this.measurement;
+		}
+
+		/**
+		 * Gets {@link #tags}.
+		 *
+		 * @return {@link #tags}
+		 */
+		public Map<String, String> getTags() {
+			return this.tags;
+		}
+
+		/**
+		 * Gets {@link #fields}.
+		 *
+		 * @return {@link #fields}
+		 */
+		public Map<String, Double> getFields() {
+			return this.fields;
+		}
+
+		/**
+		 * Gets {@link #time}.
+		 *
+		 * @return {@link #time}
+		 */
+		public long getTime() {
+			return this.time;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package rocks.inspectit.server.jetty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+
+import rocks.inspectit.shared.cs.storage.transfer.ChunkedTransferUtil;
+
+/**
+ * Servlet for the chunked download of the storage files. Each request returns one chunk of the
+ * file defined by the {@value ChunkedTransferUtil#PARAM_FILE}, {@value ChunkedTransferUtil#PARAM_OFFSET}
+ * and {@value ChunkedTransferUtil#PARAM_LENGTH} parameters, together with the CRC32 checksum of the
+ * chunk in the {@value ChunkedTransferUtil#HEADER_CHUNK_CHECKSUM} header. The file path is relative
+ * to the storage directory, as the paths served by the default servlet.
+ * <p>
+ * Since every chunk is a separate request, the GZip filter compresses chunks independently and the
+ * compression of several chunks requested in parallel runs in parallel.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class FileChunkServlet extends HttpServlet {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -2379040478720934154L;
+
+	/**
+	 * Content type of the chunk.
+	 */
+	private static final String CONTENT_TYPE = "application/octet-stream";
+
+	/**
+	 * Directory that files are served from.
+	 */
+	private String directory;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String fileName = req.getParameter(ChunkedTransferUtil.PARAM_FILE);
+		long offset = NumberUtils.toLong(req.getParameter(ChunkedTransferUtil.PARAM_OFFSET), -1);
+		int length = NumberUtils.toInt(req.getParameter(ChunkedTransferUtil.PARAM_LENGTH), -1);
+		if (StringUtils.isEmpty(fileName) || (offset < 0) || (length < 0) || (length > (ChunkedTransferUtil.DEFAULT_CHUNK_SIZE * 4))) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "File, offset and length of the chunk must be provided.");
+			return;
+		}
+
+		Path root = Paths.get(directory).toAbsolutePath().normalize();
+		Path file = root.resolve(StringUtils.removeStart(fileName, "/")).normalize();
+		if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND, "File " + fileName + " does not exist.");
+			return;
+		}
+		long fileSize = Files.size(file);
+		if ((offset + length) > fileSize) {
+			resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, "Chunk exceeds the file size " + fileSize + ".");
+			return;
+		}
+
+		byte[] chunk = ChunkedTransferUtil.readChunk(file, offset, length);
+		resp.setContentType(CONTENT_TYPE);
+		resp.setHeader(ChunkedTransferUtil.HEADER_CHUNK_CHECKSUM, String.valueOf(ChunkedTransferUtil.checksum(chunk, 0, length)));
+		resp.setContentLength(length);
+		resp.getOutputStream().write(chunk);
+	}
+
+	/**
+	 * Sets {@link #directory}.
+	 *
+	 * @param directory
+	 *            New value for {@link #directory}
+	 */
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+}
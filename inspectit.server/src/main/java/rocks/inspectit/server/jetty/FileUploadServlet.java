@@ -2,19 +2,31 @@ package rocks.inspectit.server.jetty;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.springframework.beans.factory.InitializingBean;
 
+import rocks.inspectit.shared.cs.storage.transfer.ChunkedTransferUtil;
+import rocks.inspectit.shared.cs.storage.transfer.TransferState;
+
 /**
  * A simple file upload servlet that depends on the the org.mortbay.servlet.MultiPartFilter. The
  * filter should prepare the files that are sent in the "multipart/form-data" encoding as a list of
@@ -23,6 +35,13 @@ import org.springframework.beans.factory.InitializingBean;
  * This servlet can be used for uploading any number files in one request. The file has to be
  * uploaded with the name that represents the relative path to the upload folder where file will be
  * saved.
+ * <p>
+ * Big files can also be uploaded in chunks, where each chunk is posted as the request body with
+ * the {@link ChunkedTransferUtil} headers describing the file and the chunk. Chunks are verified
+ * with their checksum, can be GZip compressed and can arrive in parallel and in any order. The
+ * state of the chunked upload is persisted next to the file, so the GET request with the
+ * {@value ChunkedTransferUtil#HEADER_FILE} header returns the already uploaded chunks and the
+ * interrupted upload can be resumed with the missing chunks only.
  *
  * @author Ivan Senic
  *
@@ -45,11 +64,44 @@ public class FileUploadServlet extends HttpServlet implements InitializingBean {
 	 */
 	private String directoryToStore;
 
+	/**
+	 * States of the chunked uploads in progress.
+	 */
+	private final transient ConcurrentMap<Path, TransferState> transferStates = new ConcurrentHashMap<>();
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		if (null != req.getHeader(ChunkedTransferUtil.HEADER_FILE)) {
+			sendChunkedUploadStatus(req, resp);
+		} else {
+			moveMultiPartFiles(req);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		if (null != req.getHeader(ChunkedTransferUtil.HEADER_CHUNK_INDEX)) {
+			uploadChunk(req, resp);
+		} else {
+			doGet(req, resp);
+		}
+	}
+
+	/**
+	 * Moves the files prepared by the multi-part filter to the upload directory.
+	 *
+	 * @param req
+	 *            Request.
+	 * @throws IOException
+	 *             If file already exists or can not be moved.
+	 */
+	private void moveMultiPartFiles(HttpServletRequest req) throws IOException {
 		List<?> files = (List<?>) req.getAttribute(MULTI_PART_FILTER_FILES);
 
 		if (null != files) {
@@ -86,11 +138,157 @@ public class FileUploadServlet extends HttpServlet implements InitializingBean {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Writes the indexes of the already uploaded chunks of the file to the response. If the file is
+	 * already completely uploaded, all chunks are reported.
+	 *
+	 * @param req
+	 *            Request.
+	 * @param resp
+	 *            Response.
+	 * @throws IOException
+	 *             If response can not be written.
 	 */
-	@Override
-	protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-		doGet(req, resp);
+	private void sendChunkedUploadStatus(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		Path file = getUploadFile(req.getHeader(ChunkedTransferUtil.HEADER_FILE));
+		long fileSize = NumberUtils.toLong(req.getHeader(ChunkedTransferUtil.HEADER_FILE_SIZE), -1);
+		int chunkSize = NumberUtils.toInt(req.getHeader(ChunkedTransferUtil.HEADER_CHUNK_SIZE), -1);
+		if ((null == file) || (fileSize < 0) || (chunkSize <= 0)) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "File, file size and chunk size must be provided.");
+			return;
+		}
+
+		List<Integer> completedChunks;
+		if (Files.exists(file) && (Files.size(file) == fileSize) && Files.notExists(ChunkedTransferUtil.getPartFile(file))) {
+			completedChunks = new ArrayList<>();
+			for (int i = 0; i < ChunkedTransferUtil.getChunkCount(fileSize, chunkSize); i++) {
+				completedChunks.add(i);
+			}
+		} else {
+			completedChunks = getTransferState(file, fileSize, chunkSize).getCompletedChunks();
+		}
+		resp.setContentType("text/plain");
+		resp.getWriter().write(ChunkedTransferUtil.formatChunks(completedChunks));
+	}
+
+	/**
+	 * Writes one uploaded chunk to the part file. When all chunks are uploaded the part file is
+	 * renamed to the uploaded file.
+	 *
+	 * @param req
+	 *            Request.
+	 * @param resp
+	 *            Response.
+	 * @throws IOException
+	 *             If chunk can not be written.
+	 */
+	private void uploadChunk(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		Path file = getUploadFile(req.getHeader(ChunkedTransferUtil.HEADER_FILE));
+		long fileSize = NumberUtils.toLong(req.getHeader(ChunkedTransferUtil.HEADER_FILE_SIZE), -1);
+		int chunkSize = NumberUtils.toInt(req.getHeader(ChunkedTransferUtil.HEADER_CHUNK_SIZE), -1);
+		int index = NumberUtils.toInt(req.getHeader(ChunkedTransferUtil.HEADER_CHUNK_INDEX), -1);
+		long checksum = NumberUtils.toLong(req.getHeader(ChunkedTransferUtil.HEADER_CHUNK_CHECKSUM), -1);
+		if ((null == file) || (fileSize < 0) || (chunkSize <= 0) || (index < 0) || (index >= ChunkedTransferUtil.getChunkCount(fileSize, chunkSize)) || (checksum < 0)) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "File, file size, chunk size, chunk index and checksum must be provided.");
+			return;
+		}
+
+		int length = ChunkedTransferUtil.getChunkLength(fileSize, chunkSize, index);
+		byte[] chunk;
+		try (InputStream inputStream = getChunkInputStream(req)) {
+			chunk = ChunkedTransferUtil.readChunk(inputStream, length);
+		} catch (IOException e) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+			return;
+		}
+		if (ChunkedTransferUtil.checksum(chunk, 0, length) != checksum) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Checksum of the chunk " + index + " does not match.");
+			return;
+		}
+
+		if (Files.notExists(file.getParent())) {
+			Files.createDirectories(file.getParent());
+		}
+		Path partFile = ChunkedTransferUtil.getPartFile(file);
+		ChunkedTransferUtil.writeChunk(partFile, ChunkedTransferUtil.getChunkOffset(chunkSize, index), chunk);
+
+		TransferState transferState = getTransferState(file, fileSize, chunkSize);
+		synchronized (transferState) {
+			transferState.markCompleted(index);
+			if (transferState.isComplete() && transferStates.remove(file, transferState)) {
+				if (Files.exists(file)) {
+					throw new IOException("Upload file already exists. Aborting the upload.");
+				}
+				Files.move(partFile, file, StandardCopyOption.ATOMIC_MOVE);
+				transferState.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the state of the chunked upload of the file. State is loaded from the disk if the
+	 * upload is not in progress.
+	 *
+	 * @param file
+	 *            Uploaded file.
+	 * @param fileSize
+	 *            Size of the file.
+	 * @param chunkSize
+	 *            Chunk size.
+	 * @return {@link TransferState}.
+	 */
+	private TransferState getTransferState(Path file, long fileSize, int chunkSize) {
+		TransferState transferState = transferStates.get(file);
+		if ((null == transferState) || (transferState.getFileSize() != fileSize) || (transferState.getChunkSize() != chunkSize)) {
+			TransferState newState = TransferState.open(ChunkedTransferUtil.getStateFile(file), fileSize, chunkSize);
+			if (null == transferState) {
+				transferState = transferStates.putIfAbsent(file, newState);
+				if (null == transferState) {
+					transferState = newState;
+				}
+			} else {
+				transferStates.put(file, newState);
+				transferState = newState;
+			}
+		}
+		return transferState;
+	}
+
+	/**
+	 * Returns the stream of the chunk content, de-compressing it if it was sent with the GZip
+	 * encoding.
+	 *
+	 * @param req
+	 *            Request.
+	 * @return Chunk stream.
+	 * @throws IOException
+	 *             If stream can not be opened.
+	 */
+	private InputStream getChunkInputStream(HttpServletRequest req) throws IOException {
+		InputStream inputStream = req.getInputStream();
+		if ("gzip".equalsIgnoreCase(req.getHeader("Content-Encoding"))) {
+			inputStream = new GZIPInputStream(inputStream);
+		}
+		return inputStream;
+	}
+
+	/**
+	 * Resolves the relative file name in the upload directory.
+	 *
+	 * @param fileName
+	 *            Relative file name.
+	 * @return Path in the upload directory or <code>null</code> if the name is empty or points
+	 *         outside of the upload directory.
+	 */
+	private Path getUploadFile(String fileName) {
+		if (StringUtils.isBlank(fileName)) {
+			return null;
+		}
+		Path root = Paths.get(directoryToStore).toAbsolutePath().normalize();
+		Path file = root.resolve(fileName).normalize();
+		if (!file.startsWith(root) || file.equals(root)) {
+			return null;
+		}
+		return file;
 	}
 
 	/**
@@ -12,8 +12,11 @@ import org.influxdb.dto.Point.Builder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.CollectionUtils;
 
+import rocks.inspectit.server.influx.ILineProtocolListener;
+import rocks.inspectit.server.influx.builder.ILineProtocolPointBuilder;
 import rocks.inspectit.server.influx.builder.IPointBuilder;
-import rocks.inspectit.server.influx.dao.InfluxDBDao;
+import rocks.inspectit.server.influx.dao.InfluxDBWriter;
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
@@ -22,8 +25,12 @@ import rocks.inspectit.shared.all.communication.data.TimerData;
 
 /**
  * The simple influx processor. Processor knows all available influx point builders. When the
- * default data comes the processor with check if influx is online and if point builder exists for
- * the given data type. If so an influx point will be created and inserted to {@link #influxDbDao}.
+ * default data comes the processor with check if influx writer accepts data or a listener is
+ * listening and if point builder exists for the given data type. If so the data will be encoded
+ * to the line protocol and passed to the {@link #influxDbWriter}, if it accepts data, and to all
+ * listening {@link ILineProtocolListener}s. Builders implementing the
+ * {@link ILineProtocolPointBuilder} encode the data directly, for all others the created points
+ * are encoded.
  *
  * @author Ivan Senic
  *
@@ -31,26 +38,48 @@ import rocks.inspectit.shared.all.communication.data.TimerData;
 public class InfluxProcessor extends AbstractCmrDataProcessor {
 
 	/**
-	 * {@link InfluxDBDao} to write to.
+	 * Encoder per processing thread, reused for all data.
 	 */
-	private InfluxDBDao influxDbDao;
+	private static final ThreadLocal<LineProtocolEncoder> ENCODER = new ThreadLocal<LineProtocolEncoder>() {
+		@Override
+		protected LineProtocolEncoder initialValue() {
+			return new LineProtocolEncoder();
+		}
+	};
+
+	/**
+	 * {@link InfluxDBWriter} to write to.
+	 */
+	private InfluxDBWriter influxDbWriter;
 
 	/**
 	 * Map of all builders.
 	 */
 	private Map<Class<? extends DefaultData>, IPointBuilder<DefaultData>> builderMap;
 
+	/**
+	 * Listeners to notify about the written records.
+	 */
+	private List<ILineProtocolListener> listeners;
+
 	/**
 	 * Default constructor.
 	 *
-	 * @param influxDbDao
-	 *            {@link InfluxDBDao}
+	 * @param influxDbWriter
+	 *            {@link InfluxDBWriter}
 	 * @param builders
 	 *            All available influx point builders.
+	 * @param listeners
+	 *            Listeners to notify about the written records.
 	 */
 	@Autowired
-	public InfluxProcessor(InfluxDBDao influxDbDao, List<IPointBuilder<DefaultData>> builders) {
-		this.influxDbDao = influxDbDao;
+	public InfluxProcessor(InfluxDBWriter influxDbWriter, List<IPointBuilder<DefaultData>> builders, List<ILineProtocolListener> listeners) {
+		this.influxDbWriter = influxDbWriter;
+		if (CollectionUtils.isEmpty(listeners)) {
+			this.listeners = Collections.emptyList();
+		} else {
+			this.listeners = listeners;
+		}
 		if (CollectionUtils.isEmpty(builders)) {
 			builderMap = Collections.emptyMap();
 		} else {
@@ -67,11 +96,31 @@ public class InfluxProcessor extends AbstractCmrDataProcessor {
 	 * {@inheritDoc}
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	protected void processData(DefaultData defaultData, EntityManager entityManager) {
 		IPointBuilder<DefaultData> defaultDataPointBuilder = builderMap.get(defaultData.getClass());
-		Collection<Builder> builders = defaultDataPointBuilder.createBuilders(defaultData);
-		for (Builder builder : builders) {
-			influxDbDao.insert(builder.build());
+		LineProtocolEncoder encoder = ENCODER.get();
+		encoder.reset();
+
+		if (defaultDataPointBuilder instanceof ILineProtocolPointBuilder) {
+			((ILineProtocolPointBuilder<DefaultData>) defaultDataPointBuilder).encode(defaultData, encoder);
+		} else {
+			Collection<Builder> builders = defaultDataPointBuilder.createBuilders(defaultData);
+			for (Builder builder : builders) {
+				encoder.point(builder.build());
+			}
+		}
+
+		if (!encoder.isEmpty()) {
+			String records = encoder.toString();
+			if (influxDbWriter.canWrite()) {
+				influxDbWriter.write(records);
+			}
+			for (ILineProtocolListener listener : listeners) {
+				if (listener.isListening()) {
+					listener.onRecords(records);
+				}
+			}
 		}
 	}
 
@@ -80,7 +129,21 @@ public class InfluxProcessor extends AbstractCmrDataProcessor {
 	 */
 	@Override
 	public boolean canBeProcessed(DefaultData defaultData) {
-		return influxDbDao.isConnected() && builderMap.containsKey(defaultData.getClass()) && isValidData(defaultData);
+		return (influxDbWriter.canWrite() || isListened()) && builderMap.containsKey(defaultData.getClass()) && isValidData(defaultData);
+	}
+
+	/**
+	 * Returns if at least one of the listeners is listening.
+	 *
+	 * @return If at least one of the listeners is listening.
+	 */
+	private boolean isListened() {
+		for (ILineProtocolListener listener : listeners) {
+			if (listener.isListening()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
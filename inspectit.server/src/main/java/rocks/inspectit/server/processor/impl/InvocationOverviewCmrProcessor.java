@@ -0,0 +1,37 @@
+package rocks.inspectit.server.processor.impl;
+
+import javax.persistence.EntityManager;
+
+import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+
+/**
+ * Processor that creates the overview projection of the root invocation sequences. The projection
+ * is then returned by the invocation overview queries, thus no objects need to be created on every
+ * query. Must be executed after all processors that change the data displayed in the overview
+ * (business context, nested data flags).
+ *
+ * @author Ivan Senic
+ *
+ */
+public class InvocationOverviewCmrProcessor extends AbstractCmrDataProcessor {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processData(DefaultData defaultData, EntityManager entityManager) {
+		((InvocationSequenceData) defaultData).updateOverviewProjection();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canBeProcessed(DefaultData defaultData) {
+		// only root invocations are displayed in the overview
+		return (defaultData instanceof InvocationSequenceData) && (null == ((InvocationSequenceData) defaultData).getParentSequence());
+	}
+
+}
@@ -1,17 +1,22 @@
 package rocks.inspectit.server.processor.impl;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import rocks.inspectit.server.dao.jdbc.JdbcBatchWriter;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.shared.all.communication.DefaultData;
 
 /**
- * Processor that saves objects to database via {@link EntityManager}.
+ * Processor that saves objects to database. Objects are passed to the {@link JdbcBatchWriter} and
+ * only persisted via {@link EntityManager} if the writer rejects them.
  *
  * @author Ivan Senic
  *
@@ -26,9 +31,15 @@ public class PersistingCmrProcessor extends AbstractCmrDataProcessor {
 	boolean influxActive;
 
 	/**
-	 * List of classes that should be saved by this simple saver.
+	 * {@link JdbcBatchWriter} writing the objects asynchronously.
 	 */
-	private List<Class<? extends DefaultData>> classes;
+	@Autowired
+	JdbcBatchWriter jdbcBatchWriter;
+
+	/**
+	 * Set of classes that should be saved by this simple saver.
+	 */
+	private Set<Class<? extends DefaultData>> classes;
 
 	/**
 	 * Default constructor.
@@ -37,9 +48,10 @@ public class PersistingCmrProcessor extends AbstractCmrDataProcessor {
 	 *            List of classes that should be saved by this simple saver.
 	 */
 	public PersistingCmrProcessor(List<Class<? extends DefaultData>> classes) {
-		this.classes = classes;
-		if (null == this.classes) {
-			this.classes = Collections.emptyList();
+		if (null == classes) {
+			this.classes = Collections.emptySet();
+		} else {
+			this.classes = new HashSet<>(classes);
 		}
 	}
 
@@ -48,8 +60,10 @@ public class PersistingCmrProcessor extends AbstractCmrDataProcessor {
 	 */
 	@Override
 	protected void processData(DefaultData defaultData, EntityManager entityManager) {
-		defaultData.setId(0);
-		entityManager.persist(defaultData);
+		if (!jdbcBatchWriter.write(defaultData)) {
+			defaultData.setId(0);
+			entityManager.persist(defaultData);
+		}
 	}
 
 	/**
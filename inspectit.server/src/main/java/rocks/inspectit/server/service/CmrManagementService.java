@@ -132,6 +132,8 @@ public class CmrManagementService implements ICmrManagementService {
 		if (null != newestElement) {
 			cmrStatusData.setBufferNewestElementDate(new Date(newestElement.getTimeStamp().getTime()));
 		}
+		cmrStatusData.setBufferIndexingLagElements(buffer.getIndexingLagElements());
+		cmrStatusData.setBufferIndexingLagMillis(buffer.getIndexingLagMillis());
 		cmrStatusData.setStorageDataSpaceLeft(storageManager.getBytesHardDriveOccupancyLeft());
 		cmrStatusData.setStorageMaxDataSpace(storageManager.getMaxBytesHardDriveOccupancy());
 		cmrStatusData.setWarnSpaceLeftActive(storageManager.isSpaceWarnActive());
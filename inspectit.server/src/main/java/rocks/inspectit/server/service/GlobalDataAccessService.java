@@ -29,6 +29,7 @@ import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.exception.enumeration.AgentManagementErrorCodeEnum;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.cmr.service.IGlobalDataAccessService;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
 
 /**
  * @author Patrice Bouillet
@@ -180,6 +181,50 @@ public class GlobalDataAccessService implements IGlobalDataAccessService {
 		return result;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the data of the template class can be rolled up, the data is aggregated on the CMR in the
+	 * buckets of the resolution length, the same way the storage rollup tiers are created. Only
+	 * complete buckets, thus buckets starting and ending in the given time range, are returned. This
+	 * way the ranges loaded one after another never return the same bucket twice and a bucket is
+	 * never returned before all of its data could be loaded.
+	 */
+	@Override
+	@MethodLog
+	public List<? extends DefaultData> getDataObjectsFromToDate(DefaultData template, Date fromDate, Date toDate, long resolution) {
+		if ((resolution <= StorageRollupUtil.NO_ROLLUP) || (null == StorageRollupUtil.getAggregator(template.getClass()))) {
+			return this.getDataObjectsFromToDate(template, fromDate, toDate);
+		}
+
+		Date bucketsFromDate = new Date(StorageRollupUtil.getFirstPeriodStartFrom(fromDate.getTime(), resolution));
+		Date bucketsToDate = new Date(StorageRollupUtil.getPeriodStart(toDate.getTime() + 1, resolution) - 1);
+		if (bucketsFromDate.after(bucketsToDate)) {
+			return Collections.emptyList();
+		}
+
+		List<DefaultData> data = defaultDataDao.findByExampleFromToDate(template, bucketsFromDate, bucketsToDate);
+		return StorageRollupUtil.rollup(data, resolution);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public List<? extends DefaultData> getTemplatesDataObjectsFromToDate(Collection<DefaultData> templates, Date fromDate, Date toDate, long resolution) {
+		if (fromDate.after(toDate)) {
+			return Collections.emptyList();
+		}
+
+		List<DefaultData> result = new ArrayList<>();
+		for (DefaultData template : templates) {
+			result.addAll(this.getDataObjectsFromToDate(template, fromDate, toDate, resolution));
+		}
+
+		return result;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -12,11 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import rocks.inspectit.server.influx.dao.InfluxDBDao;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.cmr.service.IInfluxDBService;
 
 /**
- * Service to query details from the CMR's InfluxDB.
+ * Service to query details from the CMR's InfluxDB. If the InfluxDB is not connected and the
+ * embedded {@link TimeSeriesStore} is active, the details are provided by the store.
  *
  * @author Marius Oehler
  *
@@ -36,11 +38,20 @@ public class InfluxDBService implements IInfluxDBService {
 	@Autowired
 	InfluxDBDao influxDbDao;
 
+	/**
+	 * {@link TimeSeriesStore} to read from if the influxDB is not connected.
+	 */
+	@Autowired
+	TimeSeriesStore timeSeriesStore;
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public List<String> getMeasurements() {
+		if (isStoreUsed()) {
+			return timeSeriesStore.getMeasurements();
+		}
 		QueryResult queryResult = influxDbDao.query("SHOW MEASUREMENTS;");
 		return extractStringList(queryResult, 0);
 	}
@@ -50,6 +61,9 @@ public class InfluxDBService implements IInfluxDBService {
 	 */
 	@Override
 	public List<String> getTags(String measurement) {
+		if (isStoreUsed()) {
+			return timeSeriesStore.getTagKeys(measurement);
+		}
 		String query = "SHOW TAG KEYS FROM \"" + measurement + "\";";
 		QueryResult queryResult = influxDbDao.query(query);
 		return extractStringList(queryResult, 0);
@@ -60,6 +74,9 @@ public class InfluxDBService implements IInfluxDBService {
 	 */
 	@Override
 	public List<String> getTagValues(String measurement, String tagKey) {
+		if (isStoreUsed()) {
+			return timeSeriesStore.getTagValues(measurement, tagKey);
+		}
 		String query = "SHOW TAG VALUES FROM \"" + measurement + "\" WITH KEY = \"" + tagKey + "\";";
 		QueryResult queryResult = influxDbDao.query(query);
 		return extractStringList(queryResult, 1);
@@ -70,6 +87,9 @@ public class InfluxDBService implements IInfluxDBService {
 	 */
 	@Override
 	public List<String> getFields(String measurement) {
+		if (isStoreUsed()) {
+			return timeSeriesStore.getFieldKeys(measurement);
+		}
 		String query = "SHOW FIELD KEYS FROM \"" + measurement + "\";";
 		try {
 			QueryResult queryResult = influxDbDao.query(query);
@@ -80,6 +100,16 @@ public class InfluxDBService implements IInfluxDBService {
 		}
 	}
 
+	/**
+	 * Returns if the details are provided by the embedded {@link TimeSeriesStore}, as the influxDB
+	 * is not connected.
+	 *
+	 * @return If the {@link TimeSeriesStore} is used.
+	 */
+	private boolean isStoreUsed() {
+		return !influxDbDao.isConnected() && timeSeriesStore.isActive();
+	}
+
 	/**
 	 * Extracts the queried values of the given {@link QueryResult} and creates a list comprising
 	 * them.
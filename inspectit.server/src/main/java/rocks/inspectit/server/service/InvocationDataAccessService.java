@@ -20,6 +20,7 @@ import rocks.inspectit.server.influx.dao.InfluxDBDao;
 import rocks.inspectit.server.influx.util.InfluxQueryFactory;
 import rocks.inspectit.server.influx.util.QueryResultWrapper;
 import rocks.inspectit.server.spring.aop.MethodLog;
+import rocks.inspectit.server.util.QueryCursorRegistry;
 import rocks.inspectit.shared.all.cmr.service.ICachedDataService;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.exception.BusinessException;
@@ -28,6 +29,8 @@ import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.cmr.service.IInvocationDataAccessService;
 import rocks.inspectit.shared.cs.communication.comparator.ResultComparator;
 import rocks.inspectit.shared.cs.communication.data.cmr.Alert;
+import rocks.inspectit.shared.cs.indexing.cursor.IQueryCursor;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
 
 /**
  * @author Patrice Bouillet
@@ -64,6 +67,12 @@ public class InvocationDataAccessService implements IInvocationDataAccessService
 	@Autowired
 	private InfluxDBDao influxDBDao;
 
+	/**
+	 * Registry of the open query cursors.
+	 */
+	@Autowired
+	private QueryCursorRegistry queryCursorRegistry;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -161,6 +170,37 @@ public class InvocationDataAccessService implements IInvocationDataAccessService
 		return getInvocationSequenceOverview(0, invocationSequenceIds, limit, resultComparator);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public QueryResultPage<InvocationSequenceData> getInvocationSequenceOverviewPage(long platformId, long methodId, int limit, Date fromDate, Date toDate, // NOCHK
+			ResultComparator<InvocationSequenceData> resultComparator, int pageSize) {
+		if (null != resultComparator) {
+			resultComparator.setCachedDataService(cachedDataService);
+		}
+		IQueryCursor<InvocationSequenceData> cursor = invocationDataDao.getInvocationSequenceOverviewCursor(platformId, methodId, limit, fromDate, toDate, resultComparator);
+		return queryCursorRegistry.open(cursor, pageSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public QueryResultPage<InvocationSequenceData> getNextInvocationSequenceOverviewPage(long cursorId, int pageSize) throws BusinessException {
+		return queryCursorRegistry.next(cursorId, pageSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void closeInvocationSequenceOverviewCursor(long cursorId) {
+		queryCursorRegistry.close(cursorId);
+	}
+
 	/**
 	 * Returns a list of {@link Long} invocation sequences id's belonging to an alert defined by the
 	 * passed alert id.
@@ -3,6 +3,8 @@ package rocks.inspectit.server.service;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import rocks.inspectit.server.dao.StorageDataDao;
 import rocks.inspectit.server.spring.aop.MethodLog;
 import rocks.inspectit.server.storage.CmrStorageManager;
+import rocks.inspectit.server.storage.StorageQueryExecutor;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.exception.TechnicalException;
@@ -25,7 +28,12 @@ import rocks.inspectit.shared.all.exception.enumeration.StorageErrorCodeEnum;
 import rocks.inspectit.shared.all.serializer.SerializationException;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.cmr.service.IStorageService;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
 import rocks.inspectit.shared.cs.communication.data.cmr.RecordingData;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus;
+import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
 import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageFileType;
@@ -62,6 +70,12 @@ public class StorageService implements IStorageService {
 	@Autowired
 	private StorageDataDao storageLabelDataDao;
 
+	/**
+	 * Executor of the queries on the finalized storages.
+	 */
+	@Autowired
+	private StorageQueryExecutor storageQueryExecutor;
+
 	/**
 	 * Creates the new storage on the CMR with information given in {@link StorageData} object.
 	 *
@@ -140,6 +154,7 @@ public class StorageService implements IStorageService {
 	public void deleteStorage(StorageData storageData) throws BusinessException {
 		try {
 			storageManager.deleteStorage(storageData);
+			storageQueryExecutor.evictIndexingTree(storageData);
 		} catch (IOException e) {
 			throw new TechnicalException("Delete the storage " + storageData + ".", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
 		}
@@ -243,6 +258,7 @@ public class StorageService implements IStorageService {
 			}
 			recordingData.setRecordingStorage(storageManager.getRecordingStorage());
 			recordingData.setRecordingWritingStatus(storageManager.getRecordingStatus());
+			recordingData.setRecordingStatistics(storageManager.getRecordingStatistics());
 			return recordingData;
 		} else {
 			return null;
@@ -307,7 +323,11 @@ public class StorageService implements IStorageService {
 			throw new BusinessException("Load index files locations for the storage " + storageData + ".", StorageErrorCodeEnum.STORAGE_DOES_NOT_EXIST);
 		}
 		try {
-			return storageManager.getFilesHttpLocation(storageData, StorageFileType.INDEX_FILE.getExtension());
+			// leaf files and rollup tier index files are needed together with the index files
+			Map<String, Long> locations = new HashMap<>(storageManager.getFilesHttpLocation(storageData, StorageFileType.INDEX_FILE.getExtension()));
+			locations.putAll(storageManager.getFilesHttpLocation(storageData, StorageFileType.INDEX_LEAF_FILE.getExtension()));
+			locations.putAll(storageManager.getFilesHttpLocation(storageData, StorageFileType.ROLLUP_INDEX_FILE.getExtension()));
+			return locations;
 		} catch (IOException e) {
 			throw new TechnicalException("Load index files locations for the storage " + storageData + ".", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
 		}
@@ -673,6 +693,100 @@ public class StorageService implements IStorageService {
 		return storageManager.getCachedStorageDataFileLocation(storageData, hash);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public <E extends DefaultData> List<E> executeStorageQuery(StorageData storageData, StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator, Comparator<? super E> comparator, int limit)
+			throws BusinessException {
+		if (!storageManager.isStorageExisting(storageData)) {
+			throw new BusinessException("Execute query on the storage " + storageData + ".", StorageErrorCodeEnum.STORAGE_DOES_NOT_EXIST);
+		}
+		if (!storageManager.isStorageClosed(storageData)) {
+			throw new BusinessException("Execute query on the storage " + storageData + ".", StorageErrorCodeEnum.STORAGE_IS_NOT_CLOSED);
+		}
+		try {
+			return storageQueryExecutor.executeQuery(storageManager.getStorageData(storageData.getId()), storageIndexQuery, aggregator, comparator, limit);
+		} catch (SerializationException e) {
+			throw new TechnicalException("Execute query on the storage " + storageData + ".", StorageErrorCodeEnum.SERIALIZATION_FAILED, e);
+		} catch (IOException e) {
+			throw new TechnicalException("Execute query on the storage " + storageData + ".", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public StorageCompactionStatus compactStorages(Collection<StorageData> sourceStorages, StorageData targetStorage) throws BusinessException {
+		try {
+			return storageManager.compactStorages(sourceStorages, targetStorage);
+		} catch (SerializationException e) {
+			throw new TechnicalException("Compact storages into the storage " + targetStorage + ".", StorageErrorCodeEnum.SERIALIZATION_FAILED, e);
+		} catch (IOException e) {
+			throw new TechnicalException("Compact storages into the storage " + targetStorage + ".", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public StorageCompactionStatus getStorageCompactionStatus(StorageData targetStorage) {
+		return storageManager.getCompactionStatus(targetStorage);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public ColumnarExportStatus exportBufferColumnar(ColumnarExportRequest request) throws BusinessException {
+		try {
+			return storageManager.exportBufferColumnar(request);
+		} catch (IOException e) {
+			throw new TechnicalException("Export buffer data to the columnar format.", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public ColumnarExportStatus exportStorageColumnar(StorageData storageData, ColumnarExportRequest request) throws BusinessException {
+		try {
+			return storageManager.exportStorageColumnar(storageData, request);
+		} catch (IOException e) {
+			throw new TechnicalException("Export the storage " + storageData + " to the columnar format.", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public ColumnarExportStatus getColumnarExportStatus(String exportId) {
+		return storageManager.getColumnarExportStatus(exportId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public void deleteColumnarExport(String exportId) throws BusinessException {
+		try {
+			storageManager.deleteColumnarExport(exportId);
+		} catch (IOException e) {
+			throw new TechnicalException("Delete the columnar export " + exportId + ".", StorageErrorCodeEnum.INPUT_OUTPUT_OPERATION_FAILED, e);
+		}
+	}
+
 	/**
 	 * Is executed after dependency injection is done to perform any initialization.
 	 *
@@ -3,6 +3,7 @@ package rocks.inspectit.server.storage;
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,9 +23,11 @@ import rocks.inspectit.shared.cs.indexing.query.provider.impl.StorageIndexQueryP
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
 import rocks.inspectit.shared.cs.storage.processor.write.AbstractWriteDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.write.impl.QueryCachingDataProcessor;
+import rocks.inspectit.shared.cs.storage.processor.write.impl.RollupTierDataProcessor;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
 
 /**
- * Configuration class for specifying the caching processors for the storage writer.
+ * Configuration class for specifying the caching and rollup processors for the storage writer.
  * <p>
  * These will be autowired to each storage writer.
  *
@@ -40,6 +43,12 @@ public class CachingWriteDataProcessorProvider {
 	@Autowired
 	private StorageIndexQueryProvider storageIndexQueryProvider;
 
+	/**
+	 * Comma separated periods of the rollup tiers.
+	 */
+	@Value("${storage.rollupPeriods}")
+	private String rollupPeriods;
+
 	/**
 	 * {@link TimerDataQueryFactory}.
 	 */
@@ -93,6 +102,16 @@ public class CachingWriteDataProcessorProvider {
 		return new QueryCachingDataProcessor<>(query, aggregator);
 	}
 
+	/**
+	 * @return Returns {@link AbstractWriteDataProcessor} for writing the rollup tiers.
+	 */
+	@Bean
+	@Lazy
+	@Scope(value = ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+	public AbstractWriteDataProcessor getRollupTierDataProcessor() {
+		return new RollupTierDataProcessor(StorageRollupUtil.parsePeriods(rollupPeriods));
+	}
+
 	/**
 	 * Init.
 	 */
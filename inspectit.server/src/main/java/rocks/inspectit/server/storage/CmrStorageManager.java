@@ -2,6 +2,7 @@ package rocks.inspectit.server.storage;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -9,20 +10,25 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
@@ -30,6 +36,7 @@ import org.apache.commons.lang.mutable.MutableLong;
 import org.apache.commons.lang.mutable.MutableObject;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -48,13 +55,21 @@ import rocks.inspectit.shared.all.serializer.SerializationException;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.all.version.VersionService;
 import rocks.inspectit.shared.cs.cmr.service.IServerStatusService;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
+import rocks.inspectit.shared.cs.communication.data.cmr.RecordingStatistics;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus;
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
+import rocks.inspectit.shared.cs.indexing.query.provider.impl.StorageIndexQueryProvider;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
 import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageData.StorageState;
 import rocks.inspectit.shared.cs.storage.StorageFileType;
+import rocks.inspectit.shared.cs.storage.StorageFormatVersion;
 import rocks.inspectit.shared.cs.storage.StorageManager;
 import rocks.inspectit.shared.cs.storage.StorageWriter;
+import rocks.inspectit.shared.cs.storage.export.ColumnarDataType;
 import rocks.inspectit.shared.cs.storage.label.AbstractStorageLabel;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.impl.TimeFrameDataProcessor;
@@ -84,6 +99,11 @@ public class CmrStorageManager extends StorageManager implements ApplicationList
 	 */
 	private static final int UPDATE_RATE = 30000;
 
+	/**
+	 * Folder in the storage directory where the columnar exports are written to.
+	 */
+	private static final String EXPORT_FOLDER = "export";
+
 	/**
 	 * {@link DefaultDataDaoImpl}.
 	 */
@@ -140,6 +160,52 @@ public class CmrStorageManager extends StorageManager implements ApplicationList
 	 */
 	private String cmrVersion;
 
+	/**
+	 * {@link StorageQueryExecutor} used to read the storages being compacted.
+	 */
+	@Autowired
+	StorageQueryExecutor storageQueryExecutor;
+
+	/**
+	 * {@link StorageIndexQueryProvider}.
+	 */
+	@Autowired
+	StorageIndexQueryProvider storageIndexQueryProvider;
+
+	/**
+	 * Executor service running the compaction jobs one after another.
+	 */
+	@Resource(name = "storageCompactionExecutorService")
+	ExecutorService compactionExecutorService;
+
+	/**
+	 * Desired amount of objects read at once when compacting the storages.
+	 */
+	@Value("${storage.compactionSliceSize}")
+	long compactionSliceSize;
+
+	/**
+	 * Status of the compaction jobs, key is the id of the target storage.
+	 */
+	private Map<String, StorageCompactionStatus> compactionStatusMap = new ConcurrentHashMap<>(8, 0.75f, 1);
+
+	/**
+	 * Executor service running the columnar export jobs.
+	 */
+	@Resource(name = "storageExportExecutorService")
+	ExecutorService exportExecutorService;
+
+	/**
+	 * Time in milliseconds the columnar export files are kept.
+	 */
+	@Value("${storage.columnarExportRetention}")
+	long exportRetentionTime;
+
+	/**
+	 * Status of the columnar export jobs, key is the id of the export.
+	 */
+	private Map<String, ColumnarExportStatus> exportStatusMap = new ConcurrentHashMap<>(8, 0.75f, 1);
+
 	/**
 	 * Creates new storage.
 	 *
@@ -158,6 +224,7 @@ public class CmrStorageManager extends StorageManager implements ApplicationList
 		}
 		storageData.setId(getRandomUUIDString());
 		storageData.setCmrVersion(cmrVersion);
+		storageData.setFormatVersion(StorageFormatVersion.CURRENT);
 		writeStorageDataToDisk(storageData);
 		existingStoragesSet.add(storageData);
 	}
@@ -298,6 +365,16 @@ public class CmrStorageManager extends StorageManager implements ApplicationList
 		}
 	}
 
+	/**
+	 * Returns the {@link RecordingStatistics} of the current recording or <code>null</code> if the
+	 * recording is not active.
+	 *
+	 * @return {@link RecordingStatistics} if recording is active. <code>Null</code> otherwise.
+	 */
+	public RecordingStatistics getRecordingStatistics() {
+		return storageRecorder.getRecordingStatistics();
+	}
+
 	/**
 	 * Starts recording on the provided storage if recording is not active. If storage is not
 	 * created it will be. If it is not open, it will be.
@@ -534,6 +611,288 @@ public class CmrStorageManager extends StorageManager implements ApplicationList
 		updateExistingStorageSize(local);
 	}
 
+	/**
+	 * Starts the background job that compacts the given finalized storages into the new target
+	 * storage. The data of all sources is written to the target sorted by platform, sensor type
+	 * and time, duplicated data is written only once. The target storage is created and opened
+	 * before the job starts and closed by the job when all data is written, thus the target
+	 * indexes are built from the sorted data.
+	 *
+	 * @param sourceStorages
+	 *            Finalized storages to compact. Storages stay unchanged.
+	 * @param targetStorage
+	 *            Storage to create and write the data to.
+	 * @return {@link StorageCompactionStatus} that is updated as the job progresses.
+	 * @throws BusinessException
+	 *             If no source is given, if any of the sources does not exist or is not closed or
+	 *             if the target storage can not be created.
+	 * @throws IOException
+	 *             If {@link IOException} occurs creating the target storage.
+	 * @throws SerializationException
+	 *             If serialization fails creating the target storage.
+	 */
+	public StorageCompactionStatus compactStorages(Collection<StorageData> sourceStorages, StorageData targetStorage) throws BusinessException, IOException, SerializationException {
+		if (CollectionUtils.isEmpty(sourceStorages)) {
+			throw new BusinessException("Compact storages into the storage " + targetStorage + ".", StorageErrorCodeEnum.STORAGE_DOES_NOT_EXIST);
+		}
+		Set<StorageData> localSources = new HashSet<>();
+		for (StorageData sourceStorage : sourceStorages) {
+			StorageData local = getLocalStorageDataObject(sourceStorage);
+			if (!isStorageClosed(local)) {
+				throw new BusinessException("Compact the storage " + local + ".", StorageErrorCodeEnum.STORAGE_IS_NOT_CLOSED);
+			}
+			localSources.add(local);
+		}
+
+		createStorage(targetStorage);
+		openStorage(targetStorage);
+		StorageData localTarget = getLocalStorageDataObject(targetStorage);
+
+		StorageCompactionStatus status = new StorageCompactionStatus(localTarget);
+		compactionStatusMap.put(localTarget.getId(), status);
+		compactionExecutorService.submit(new StorageCompactionJob(this, storageQueryExecutor, storageIndexQueryProvider, localSources, localTarget, status, compactionSliceSize));
+		return status;
+	}
+
+	/**
+	 * Returns the status of the compaction job writing to the given storage.
+	 *
+	 * @param targetStorage
+	 *            Target storage of the compaction.
+	 * @return {@link StorageCompactionStatus} or <code>null</code> if no compaction has been
+	 *         started for the storage.
+	 */
+	public StorageCompactionStatus getCompactionStatus(StorageData targetStorage) {
+		if ((null == targetStorage) || (null == targetStorage.getId())) {
+			return null;
+		}
+		return compactionStatusMap.get(targetStorage.getId());
+	}
+
+	/**
+	 * Starts the background job that exports the data currently in the buffer to a new file in
+	 * the columnar format. Only data matching the request is written. Data is streamed from the
+	 * buffer to the file, thus the memory needed is bounded by the row group size of the request.
+	 *
+	 * @param request
+	 *            {@link ColumnarExportRequest} defining the data to export.
+	 * @return {@link ColumnarExportStatus} that is updated as the job progresses.
+	 * @throws IOException
+	 *             If export folder can not be created.
+	 */
+	public ColumnarExportStatus exportBufferColumnar(ColumnarExportRequest request) throws IOException {
+		ColumnarExportStatus status = new ColumnarExportStatus(getRandomUUIDString(), null);
+		Path exportPath = createExportPath("buffer", status.getId());
+		submitExport(status, new ColumnarExportJob(status, exportPath, getPathAsHttp(exportPath), request) {
+			@Override
+			protected void export() {
+				buffer.forEachElement(new Consumer<DefaultData>() {
+					@Override
+					public void accept(DefaultData data) {
+						write(data);
+					}
+				});
+			}
+		});
+		return status;
+	}
+
+	/**
+	 * Starts the background job that exports the data of the finalized storage to a new file in
+	 * the columnar format. Data types, platform, method and time restrictions of the request are
+	 * pushed down to the storage index query, so that only the matching parts of the storage files
+	 * are read. Data is read and written in chunks, thus the memory needed does not depend on the
+	 * storage size.
+	 *
+	 * @param storageData
+	 *            Storage to export. Storage must be closed.
+	 * @param request
+	 *            {@link ColumnarExportRequest} defining the data to export.
+	 * @return {@link ColumnarExportStatus} that is updated as the job progresses.
+	 * @throws BusinessException
+	 *             If storage does not exist or is not closed.
+	 * @throws IOException
+	 *             If export folder can not be created.
+	 */
+	public ColumnarExportStatus exportStorageColumnar(StorageData storageData, ColumnarExportRequest request) throws BusinessException, IOException {
+		final StorageData local = getLocalStorageDataObject(storageData);
+		if (!isStorageClosed(local)) {
+			throw new BusinessException("Export the storage " + local + " to the columnar format.", StorageErrorCodeEnum.STORAGE_IS_NOT_CLOSED);
+		}
+
+		final StorageIndexQuery query = storageIndexQueryProvider.createNewStorageIndexQuery();
+		query.setMinId(Long.MIN_VALUE);
+		List<Class<?>> objectClasses = new ArrayList<>();
+		for (ColumnarDataType type : request.getEffectiveDataTypes()) {
+			objectClasses.add(type.getDataClass());
+		}
+		query.setObjectClasses(objectClasses);
+		query.setPlatformIdent(request.getPlatformIdent());
+		if (request.getMethodIdents().size() == 1) {
+			query.setMethodIdent(request.getMethodIdents().iterator().next().longValue());
+		}
+		if (null != request.getFromDate()) {
+			query.setFromDate(new Timestamp(request.getFromDate().getTime()));
+		}
+		if (null != request.getToDate()) {
+			query.setToDate(new Timestamp(request.getToDate().getTime()));
+		}
+
+		ColumnarExportStatus status = new ColumnarExportStatus(getRandomUUIDString(), local);
+		Path exportPath = createExportPath(local.getId(), status.getId());
+		submitExport(status, new ColumnarExportJob(status, exportPath, getPathAsHttp(exportPath), request) {
+			@Override
+			protected void export() throws IOException, SerializationException {
+				storageQueryExecutor.executeQuery(local, query, new Consumer<List<DefaultData>>() {
+					@Override
+					public void accept(List<DefaultData> chunk) {
+						for (DefaultData data : chunk) {
+							write(data);
+						}
+					}
+				});
+			}
+		});
+		return status;
+	}
+
+	/**
+	 * Returns the status of the columnar export with the given id.
+	 *
+	 * @param exportId
+	 *            Id of the export.
+	 * @return {@link ColumnarExportStatus} or <code>null</code> if the export is not known.
+	 */
+	public ColumnarExportStatus getColumnarExportStatus(String exportId) {
+		if (null == exportId) {
+			return null;
+		}
+		return exportStatusMap.get(exportId);
+	}
+
+	/**
+	 * Deletes the file of the finished or failed columnar export and forgets its status.
+	 *
+	 * @param exportId
+	 *            Id of the export.
+	 * @throws BusinessException
+	 *             If the export is not known or is still running.
+	 * @throws IOException
+	 *             If the file can not be deleted.
+	 */
+	public void deleteColumnarExport(String exportId) throws BusinessException, IOException {
+		ColumnarExportStatus status = getColumnarExportStatus(exportId);
+		if (null == status) {
+			throw new BusinessException("Delete the columnar export " + exportId + ".", StorageErrorCodeEnum.FILE_DOES_NOT_EXIST);
+		}
+		if (!status.isDone()) {
+			throw new BusinessException("Delete the columnar export " + exportId + ".", StorageErrorCodeEnum.EXPORT_IS_RUNNING);
+		}
+		deleteExportFiles(exportId);
+		exportStatusMap.remove(exportId);
+	}
+
+	/**
+	 * Deletes the columnar exports that are older than the export retention time, together with
+	 * their status. Running exports are never deleted.
+	 *
+	 * @throws IOException
+	 *             If export folder can not be read.
+	 */
+	@Scheduled(fixedRate = UPDATE_RATE)
+	protected void deleteExpiredColumnarExports() throws IOException {
+		long deleteBefore = System.currentTimeMillis() - exportRetentionTime;
+		Set<String> runningExports = new HashSet<>();
+		for (Iterator<ColumnarExportStatus> it = exportStatusMap.values().iterator(); it.hasNext();) {
+			ColumnarExportStatus status = it.next();
+			if (!status.isDone()) {
+				runningExports.add(status.getId());
+			} else if (status.getEndDate().getTime() < deleteBefore) {
+				it.remove();
+			}
+		}
+
+		Path exportDir = getDefaultStorageDirPath().resolve(EXPORT_FOLDER);
+		if (!Files.isDirectory(exportDir)) {
+			return;
+		}
+		try (DirectoryStream<Path> exportFiles = Files.newDirectoryStream(exportDir, "*" + StorageFileType.COLUMNAR_EXPORT_FILE.getExtension())) {
+			for (Path exportFile : exportFiles) {
+				if (runningExports.contains(getExportId(exportFile)) || (Files.getLastModifiedTime(exportFile).toMillis() >= deleteBefore)) {
+					continue;
+				}
+				Files.deleteIfExists(exportFile);
+				if (log.isDebugEnabled()) {
+					log.debug("Columnar export file " + exportFile + " deleted as the retention time passed.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers the status and submits the export job.
+	 *
+	 * @param status
+	 *            Status of the export.
+	 * @param job
+	 *            Job to submit.
+	 */
+	private void submitExport(ColumnarExportStatus status, ColumnarExportJob job) {
+		exportStatusMap.put(status.getId(), status);
+		exportExecutorService.submit(job);
+	}
+
+	/**
+	 * Deletes the files of the export with the given id.
+	 *
+	 * @param exportId
+	 *            Id of the export.
+	 * @throws IOException
+	 *             If files can not be deleted.
+	 */
+	private void deleteExportFiles(String exportId) throws IOException {
+		Path exportDir = getDefaultStorageDirPath().resolve(EXPORT_FOLDER);
+		if (!Files.isDirectory(exportDir)) {
+			return;
+		}
+		try (DirectoryStream<Path> exportFiles = Files.newDirectoryStream(exportDir, "*-" + exportId + StorageFileType.COLUMNAR_EXPORT_FILE.getExtension())) {
+			for (Path exportFile : exportFiles) {
+				Files.deleteIfExists(exportFile);
+			}
+		}
+	}
+
+	/**
+	 * Creates the path of the new columnar export file in the export folder. The file name ends
+	 * with the id of the export.
+	 *
+	 * @param prefix
+	 *            Prefix of the file name.
+	 * @param exportId
+	 *            Id of the export.
+	 * @return Path to the file.
+	 * @throws IOException
+	 *             If export folder can not be created.
+	 */
+	private Path createExportPath(String prefix, String exportId) throws IOException {
+		Path exportDir = getDefaultStorageDirPath().resolve(EXPORT_FOLDER);
+		Files.createDirectories(exportDir);
+		return exportDir.resolve(prefix + "-" + System.currentTimeMillis() + "-" + exportId + StorageFileType.COLUMNAR_EXPORT_FILE.getExtension());
+	}
+
+	/**
+	 * Returns the id of the export from the export file name.
+	 *
+	 * @param exportFile
+	 *            Export file.
+	 * @return Id of the export, the last 36 characters before the extension.
+	 */
+	private String getExportId(Path exportFile) {
+		String fileName = exportFile.getFileName().toString();
+		int end = fileName.length() - StorageFileType.COLUMNAR_EXPORT_FILE.getExtension().length();
+		return fileName.substring(Math.max(0, end - 36), end);
+	}
+
 	/**
 	 * Closes all opened storages. This method should only be called when the CMR shutdown hook is
 	 * activated to ensure that no data is lost.
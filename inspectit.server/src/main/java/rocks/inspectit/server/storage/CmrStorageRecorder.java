@@ -15,15 +15,18 @@ import javax.annotation.Resource;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import rocks.inspectit.server.dao.StorageDataDao;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.SystemInformationData;
 import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.cs.communication.data.cmr.RecordingStatistics;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageWriter;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
+import rocks.inspectit.shared.cs.storage.recording.RecordingBackpressurePolicy;
 import rocks.inspectit.shared.cs.storage.recording.RecordingProperties;
 import rocks.inspectit.shared.cs.storage.recording.RecordingState;
 
@@ -62,6 +65,25 @@ public class CmrStorageRecorder {
 	@Resource(name = "scheduledExecutorService")
 	ScheduledExecutorService executorService;
 
+	/**
+	 * {@link ExecutorService} for processing the {@link RecordingQueue}.
+	 */
+	@Resource(name = "recordingExecutorService")
+	ExecutorService recordingExecutorService;
+
+	/**
+	 * Capacity of the recording queue.
+	 */
+	@Value("${storage.recordingQueueCapacity}")
+	long recordingQueueCapacity;
+
+	/**
+	 * Name of the default {@link RecordingBackpressurePolicy}, used when the recording properties
+	 * do not define one.
+	 */
+	@Value("${storage.recordingBackpressurePolicy}")
+	String recordingBackpressurePolicy;
+
 	/**
 	 * Future for the task of recording stop.
 	 */
@@ -87,6 +109,11 @@ public class CmrStorageRecorder {
 	 */
 	private RecordingProperties recordingProperties;
 
+	/**
+	 * Queue the recorded data is passed through to the processors.
+	 */
+	private RecordingQueue recordingQueue;
+
 	/**
 	 * Recording state. By default is not active.
 	 */
@@ -97,21 +124,21 @@ public class CmrStorageRecorder {
 	 * {@link AbstractDataProcessor}s that are defined in the {@link RecordingProperties} for this
 	 * {@link StorageWriter}. Processor define which data will be stored, when and in which format.
 	 * <p>
-	 * If the processors are not set, then the normal write will be executed.
+	 * The object is passed to the processors asynchronously via the bounded
+	 * {@link RecordingQueue}. If the queue is full the {@link RecordingBackpressurePolicy} of the
+	 * recording defines if the object is dropped or if the calling thread waits.
 	 *
 	 * @param defaultData
 	 *            Object to be processed.
 	 */
 	public void record(DefaultData defaultData) {
-		if (isRecordingOn() && storageWriter.isWritingOn()) {
-			Collection<AbstractDataProcessor> recordingDataProcessors = recordingProperties.getRecordingDataProcessors();
-			if (CollectionUtils.isNotEmpty(recordingDataProcessors)) {
-				for (AbstractDataProcessor dataProcessor : recordingDataProcessors) {
-					dataProcessor.process(defaultData);
+		RecordingQueue queue = recordingQueue;
+		if (isRecordingOn() && (null != queue) && storageWriter.isWritingOn()) {
+			if (queue.offer(defaultData)) {
+				synchronized (involvedAgentsSet) {
+					involvedAgentsSet.add(defaultData.getPlatformIdent());
 				}
 			}
-			involvedAgentsSet.add(defaultData.getPlatformIdent());
-
 		}
 	}
 
@@ -182,6 +209,10 @@ public class CmrStorageRecorder {
 				}
 			}
 
+			// start the queue
+			recordingQueue = new RecordingQueue(getQueueCapacity(), getBackpressurePolicy(recordingProperties), recordingDataProcessors, storageWriter);
+			recordingQueue.start(recordingExecutorService);
+
 			// update state
 			recordingState = RecordingState.ON;
 
@@ -225,21 +256,41 @@ public class CmrStorageRecorder {
 				stopRecordingFuture = null; // NOPMD
 			}
 
+			// process all queued data before the processors are flushed
+			recordingQueue.stop();
+			RecordingStatistics recordingStatistics = recordingQueue.getStatistics();
+			if (recordingStatistics.getLostCount() > 0) {
+				log.warn("Recording for the storage " + getStorageData() + " lost " + recordingStatistics.getLostCount() + " objects (" + recordingStatistics.getDroppedCount() + " dropped, "
+						+ recordingStatistics.getSampledOutCount() + " sampled out, " + recordingStatistics.getFailedWriteCount() + " failed writes).");
+			}
+			recordingQueue = null; // NOPMD
+
+			// save system info data if necessary, directly to the processors so that the back
+			// pressure policy of the queue can not drop it
+			Set<Long> involvedAgents;
+			synchronized (involvedAgentsSet) {
+				involvedAgents = new HashSet<>(involvedAgentsSet);
+				involvedAgentsSet.clear();
+			}
 			Collection<AbstractDataProcessor> recordingDataProcessors = recordingProperties.getRecordingDataProcessors();
-			if (null != recordingDataProcessors) {
-				for (AbstractDataProcessor abstractDataProcessor : recordingDataProcessors) {
-					abstractDataProcessor.flush();
+			if (!involvedAgents.isEmpty() && (null != recordingDataProcessors)) {
+				List<SystemInformationData> toRecord = storageDataDao.getSystemInformationData(involvedAgents);
+				for (SystemInformationData defaultData : toRecord) {
+					for (AbstractDataProcessor abstractDataProcessor : recordingDataProcessors) {
+						try {
+							abstractDataProcessor.process(defaultData);
+						} catch (Exception e) { // NOPMD
+							log.error("Exception occurred processing the system information data with the recording data processor " + abstractDataProcessor.getClass().getName(), e);
+						}
+					}
 				}
 			}
 
-			// save system info data if necessary
-			if (!involvedAgentsSet.isEmpty()) {
-				List<SystemInformationData> toRecord = storageDataDao.getSystemInformationData(involvedAgentsSet);
-				for (SystemInformationData defaultData : toRecord) {
-					record(defaultData);
+			if (null != recordingDataProcessors) {
+				for (AbstractDataProcessor abstractDataProcessor : recordingDataProcessors) {
+					abstractDataProcessor.flush();
 				}
 			}
-			involvedAgentsSet.clear();
 
 			if (log.isDebugEnabled()) {
 				log.info("Recording stopped for storage: " + getStorageData());
@@ -258,6 +309,51 @@ public class CmrStorageRecorder {
 		recordingState = RecordingState.OFF;
 	}
 
+	/**
+	 * Returns the statistics of the active recording.
+	 *
+	 * @return Returns the statistics of the active recording or <code>null</code> if recording is
+	 *         not active.
+	 */
+	public RecordingStatistics getRecordingStatistics() {
+		RecordingQueue queue = recordingQueue;
+		if (isRecordingOn() && (null != queue)) {
+			return queue.getStatistics();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the capacity of the recording queue, bounded to the valid int range.
+	 *
+	 * @return Capacity of the recording queue.
+	 */
+	private int getQueueCapacity() {
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, recordingQueueCapacity));
+	}
+
+	/**
+	 * Returns the back-pressure policy to use. Policy from the recording properties has priority
+	 * over the configured default one.
+	 *
+	 * @param recProperties
+	 *            {@link RecordingProperties} used during the recording.
+	 * @return {@link RecordingBackpressurePolicy} to use.
+	 */
+	private RecordingBackpressurePolicy getBackpressurePolicy(RecordingProperties recProperties) {
+		if (null != recProperties.getBackpressurePolicy()) {
+			return recProperties.getBackpressurePolicy();
+		}
+		if (null != recordingBackpressurePolicy) {
+			try {
+				return RecordingBackpressurePolicy.valueOf(recordingBackpressurePolicy.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				log.warn("Recording back-pressure policy " + recordingBackpressurePolicy + " is not valid, using " + RecordingBackpressurePolicy.DROP_OLDEST + ".");
+			}
+		}
+		return RecordingBackpressurePolicy.DROP_OLDEST;
+	}
+
 	/**
 	 * Is recording active. The recording is active only when the {@link #storageWriter}
 	 * {@link #recordingProperties} are set.
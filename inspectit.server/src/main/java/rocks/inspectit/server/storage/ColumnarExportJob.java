@@ -0,0 +1,139 @@
+package rocks.inspectit.server.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportResult;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
+import rocks.inspectit.shared.cs.storage.export.ColumnarExportWriter;
+
+/**
+ * Job that exports data to a file in the columnar format. Sub-classes define the source of the
+ * data by passing all the data to {@link #write(DefaultData)}, the data not matching the request
+ * is skipped.
+ * <p>
+ * The progress is reported in the given {@link ColumnarExportStatus}. If the job fails, the export
+ * file is deleted.
+ *
+ * @author Ivan Senic
+ *
+ */
+public abstract class ColumnarExportJob implements Runnable {
+
+	/**
+	 * The log of this class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(ColumnarExportJob.class);
+
+	/**
+	 * Status to report the progress to.
+	 */
+	private final ColumnarExportStatus status;
+
+	/**
+	 * Path of the file to write to.
+	 */
+	private final Path exportPath;
+
+	/**
+	 * HTTP location of the export file.
+	 */
+	private final String fileLocation;
+
+	/**
+	 * Request defining the data to export.
+	 */
+	private final ColumnarExportRequest request;
+
+	/**
+	 * Writer, available while the job runs.
+	 */
+	private ColumnarExportWriter writer;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param status
+	 *            Status to report the progress to.
+	 * @param exportPath
+	 *            Path of the file to write to.
+	 * @param fileLocation
+	 *            HTTP location of the export file.
+	 * @param request
+	 *            Request defining the data to export.
+	 */
+	public ColumnarExportJob(ColumnarExportStatus status, Path exportPath, String fileLocation, ColumnarExportRequest request) {
+		this.status = status;
+		this.exportPath = exportPath;
+		this.fileLocation = fileLocation;
+		this.request = request;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run() {
+		long startTime = System.currentTimeMillis();
+		try (ColumnarExportWriter columnarWriter = new ColumnarExportWriter(Files.newOutputStream(exportPath), request.getRowGroupSize())) {
+			writer = columnarWriter;
+			export();
+		} catch (Exception e) { // NOPMD
+			Throwable cause = (e instanceof UncheckedIOException) ? e.getCause() : e;
+			LOG.error("Columnar export " + status.getId() + " failed.", cause);
+			status.markFailed(cause.getMessage());
+			try {
+				Files.deleteIfExists(exportPath);
+			} catch (IOException deleteException) {
+				LOG.warn("Export file " + exportPath + " could not be deleted after the failed export.", deleteException);
+			}
+			return;
+		}
+
+		// writer is closed, so the counts include the last row group
+		ColumnarExportResult result = new ColumnarExportResult();
+		result.setFileLocation(fileLocation);
+		result.setRowCount(writer.getRowCount());
+		result.setRowGroupCount(writer.getRowGroupCount());
+		result.setFileSize(writer.getBytesWritten());
+		result.setDuration(System.currentTimeMillis() - startTime);
+		status.markFinished(result);
+		if (LOG.isInfoEnabled()) {
+			LOG.info("Columnar export " + status.getId() + " finished: " + result);
+		}
+	}
+
+	/**
+	 * Passes all the data to export to {@link #write(DefaultData)}.
+	 *
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	protected abstract void export() throws Exception;
+
+	/**
+	 * Writes the data if it matches the request. The {@link IOException} is converted to the
+	 * unchecked one so that the method can be used in consumers.
+	 *
+	 * @param data
+	 *            Data to write.
+	 */
+	protected void write(DefaultData data) {
+		if (!request.isMatching(data)) {
+			return;
+		}
+		try {
+			writer.write(data);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		status.setWrittenRows(writer.getRowCount());
+	}
+}
@@ -0,0 +1,399 @@
+package rocks.inspectit.server.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.cs.communication.data.cmr.RecordingStatistics;
+import rocks.inspectit.shared.cs.storage.StorageWriter;
+import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
+import rocks.inspectit.shared.cs.storage.recording.RecordingBackpressurePolicy;
+
+/**
+ * Bounded queue between the threads recording the data and the recording data processors. The
+ * recorded data is taken from the queue in batches by a single thread and passed to the
+ * processors. Size of the batch adapts to the amount of queued data. Before each batch is
+ * processed the queue waits until the storage writer has less pending tasks than the queue
+ * capacity, thus the writer is never flooded with the tasks.
+ * <p>
+ * When the queue is full the {@link RecordingBackpressurePolicy} defines what happens with the
+ * new data. All data that is not recorded is counted, so that the {@link RecordingStatistics}
+ * can report exactly how much was lost.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class RecordingQueue implements Runnable {
+
+	/**
+	 * Min size of the batch taken from the queue.
+	 */
+	static final int MIN_BATCH_SIZE = 16;
+
+	/**
+	 * Max size of the batch taken from the queue.
+	 */
+	static final int MAX_BATCH_SIZE = 4096;
+
+	/**
+	 * Queue occupancy from which on the sampling starts with {@link RecordingBackpressurePolicy#SAMPLE}.
+	 */
+	private static final double SAMPLING_START_OCCUPANCY = 0.5d;
+
+	/**
+	 * Max sampling step, thus at most every n-th object is recorded when queue is almost full.
+	 */
+	private static final int MAX_SAMPLING_STEP = 16;
+
+	/**
+	 * Time in milliseconds to wait for data in the queue or for the space in the queue.
+	 */
+	private static final long POLL_TIMEOUT = 100;
+
+	/**
+	 * Time in milliseconds to wait for the storage writer to process pending tasks.
+	 */
+	private static final long WRITER_WAIT_TIME = 10;
+
+	/**
+	 * The log of this class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(RecordingQueue.class);
+
+	/**
+	 * Queued data.
+	 */
+	private final BlockingQueue<QueuedData> queue;
+
+	/**
+	 * Capacity of the queue.
+	 */
+	private final int capacity;
+
+	/**
+	 * Policy used when queue is full.
+	 */
+	private final RecordingBackpressurePolicy backpressurePolicy;
+
+	/**
+	 * Processors to pass the data to.
+	 */
+	private final Collection<AbstractDataProcessor> dataProcessors;
+
+	/**
+	 * Writer processors write to.
+	 */
+	private final StorageWriter storageWriter;
+
+	/**
+	 * If queue accepts new data.
+	 */
+	private volatile boolean accepting = true;
+
+	/**
+	 * Future of the processing task.
+	 */
+	private Future<?> processingFuture;
+
+	/**
+	 * Amount of recorded objects.
+	 */
+	private final AtomicLong recordedCount = new AtomicLong();
+
+	/**
+	 * Amount of dropped objects.
+	 */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * Amount of objects not recorded due to the sampling.
+	 */
+	private final AtomicLong sampledOutCount = new AtomicLong();
+
+	/**
+	 * Counter used for the sampling.
+	 */
+	private final AtomicLong samplingCounter = new AtomicLong();
+
+	/**
+	 * Amount of objects passed to the processors. Only changed by the processing thread.
+	 */
+	private volatile long processedCount;
+
+	/**
+	 * Time the last processed object waited in the queue.
+	 */
+	private volatile long lag;
+
+	/**
+	 * Objects processed per second.
+	 */
+	private volatile long throughput;
+
+	/**
+	 * Current batch size.
+	 */
+	private volatile int batchSize = MIN_BATCH_SIZE;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param capacity
+	 *            Capacity of the queue.
+	 * @param backpressurePolicy
+	 *            Policy used when queue is full.
+	 * @param dataProcessors
+	 *            Processors to pass the data to.
+	 * @param storageWriter
+	 *            Writer processors write to.
+	 */
+	public RecordingQueue(int capacity, RecordingBackpressurePolicy backpressurePolicy, Collection<AbstractDataProcessor> dataProcessors, StorageWriter storageWriter) {
+		this.capacity = capacity;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.backpressurePolicy = backpressurePolicy;
+		this.dataProcessors = dataProcessors;
+		this.storageWriter = storageWriter;
+	}
+
+	/**
+	 * Starts the processing of the queued data.
+	 *
+	 * @param executorService
+	 *            Executor to run the processing in.
+	 */
+	public void start(ExecutorService executorService) {
+		processingFuture = executorService.submit(this);
+	}
+
+	/**
+	 * Stops accepting the new data and waits until all queued data is processed.
+	 */
+	public void stop() {
+		accepting = false;
+		if (null != processingFuture) {
+			try {
+				processingFuture.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				LOG.error("Processing of the recording queue failed.", e);
+			}
+		}
+
+		if (LOG.isInfoEnabled()) {
+			LOG.info("Recording queue stopped for the storage " + storageWriter.getStorageData() + ": " + getStatistics());
+		}
+	}
+
+	/**
+	 * Queues the data for recording, applying the {@link #backpressurePolicy} if queue is full.
+	 *
+	 * @param defaultData
+	 *            Data to record.
+	 * @return If data was queued.
+	 */
+	public boolean offer(DefaultData defaultData) {
+		if (!accepting) {
+			droppedCount.incrementAndGet();
+			return false;
+		}
+
+		QueuedData queuedData = new QueuedData(defaultData);
+		switch (backpressurePolicy) {
+		case BLOCK:
+			try {
+				while (!queue.offer(queuedData, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					if (!accepting) {
+						droppedCount.incrementAndGet();
+						return false;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				droppedCount.incrementAndGet();
+				return false;
+			}
+			break;
+		case SAMPLE:
+			int step = getSamplingStep();
+			if ((step > 1) && ((samplingCounter.incrementAndGet() % step) != 0)) {
+				sampledOutCount.incrementAndGet();
+				return false;
+			}
+			if (!queue.offer(queuedData)) {
+				droppedCount.incrementAndGet();
+				return false;
+			}
+			break;
+		case DROP_OLDEST:
+		default:
+			while (!queue.offer(queuedData)) {
+				if (null != queue.poll()) {
+					droppedCount.incrementAndGet();
+				}
+			}
+			break;
+		}
+		recordedCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Returns the current sampling step. Step is 1 (all data recorded) until the queue occupancy
+	 * reaches {@link #SAMPLING_START_OCCUPANCY}, and then doubles with each 10% of occupancy up to
+	 * {@link #MAX_SAMPLING_STEP}.
+	 *
+	 * @return Sampling step.
+	 */
+	int getSamplingStep() {
+		double occupancy = (double) queue.size() / capacity;
+		if (occupancy < SAMPLING_START_OCCUPANCY) {
+			return 1;
+		}
+		int exponent = (int) ((occupancy - SAMPLING_START_OCCUPANCY) * 10);
+		return Math.min(MAX_SAMPLING_STEP, 1 << exponent);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Processes the queued data in batches until the queue is stopped and empty.
+	 */
+	@Override
+	public void run() {
+		List<QueuedData> batch = new ArrayList<>(MIN_BATCH_SIZE);
+		long throughputTime = System.currentTimeMillis();
+		long throughputCount = 0;
+		try {
+			while (accepting || !queue.isEmpty()) {
+				QueuedData first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+				if (null != first) {
+					batch.add(first);
+					queue.drainTo(batch, batchSize - 1);
+					waitForWriter();
+					process(batch);
+					adaptBatchSize();
+					batch.clear();
+				} else {
+					lag = 0;
+				}
+
+				long now = System.currentTimeMillis();
+				if ((now - throughputTime) >= 1000) {
+					throughput = ((processedCount - throughputCount) * 1000) / (now - throughputTime);
+					throughputTime = now;
+					throughputCount = processedCount;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Passes the batch to the processors.
+	 *
+	 * @param batch
+	 *            Batch of data.
+	 */
+	private void process(List<QueuedData> batch) {
+		for (QueuedData queuedData : batch) {
+			for (AbstractDataProcessor dataProcessor : dataProcessors) {
+				try {
+					dataProcessor.process(queuedData.defaultData);
+				} catch (Exception e) { // NOPMD
+					LOG.error("Exception occurred processing the data with the recording data processor " + dataProcessor.getClass().getName(), e);
+				}
+			}
+		}
+		processedCount += batch.size();
+		lag = System.currentTimeMillis() - batch.get(batch.size() - 1).queuedTime;
+	}
+
+	/**
+	 * Doubles the batch size if more data than the batch size is queued, halves it when the queue
+	 * is empty.
+	 */
+	private void adaptBatchSize() {
+		int queued = queue.size();
+		if (queued > batchSize) {
+			batchSize = Math.min(MAX_BATCH_SIZE, batchSize * 2);
+		} else if (0 == queued) {
+			batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+		}
+	}
+
+	/**
+	 * Waits until the storage writer has less pending tasks than the queue capacity.
+	 *
+	 * @throws InterruptedException
+	 *             If thread is interrupted.
+	 */
+	private void waitForWriter() throws InterruptedException {
+		while (storageWriter.isWritingOn() && (storageWriter.getQueuedTaskCount() > capacity)) {
+			Thread.sleep(WRITER_WAIT_TIME);
+		}
+	}
+
+	/**
+	 * Returns the current statistics.
+	 *
+	 * @return {@link RecordingStatistics}.
+	 */
+	public RecordingStatistics getStatistics() {
+		RecordingStatistics statistics = new RecordingStatistics();
+		statistics.setBackpressurePolicy(backpressurePolicy);
+		statistics.setRecordedCount(recordedCount.get());
+		statistics.setProcessedCount(processedCount);
+		statistics.setDroppedCount(droppedCount.get());
+		statistics.setSampledOutCount(sampledOutCount.get());
+		statistics.setFailedWriteCount(storageWriter.getFailedWriteCount());
+		statistics.setQueuedCount(queue.size());
+		statistics.setQueueCapacity(capacity);
+		statistics.setPendingWriteTasks(storageWriter.getQueuedTaskCount());
+		statistics.setLag(lag);
+		statistics.setThroughput(throughput);
+		statistics.setBatchSize(batchSize);
+		statistics.setWriterThreads(storageWriter.getWritingThreadCount());
+		return statistics;
+	}
+
+	/**
+	 * Queued data with the time it was queued.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private static class QueuedData {
+
+		/**
+		 * Data.
+		 */
+		private final DefaultData defaultData;
+
+		/**
+		 * Time data was queued.
+		 */
+		private final long queuedTime;
+
+		/**
+		 * @param defaultData
+		 *            Data.
+		 */
+		QueuedData(DefaultData defaultData) {
+			this.defaultData = defaultData;
+			this.queuedTime = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package rocks.inspectit.server.storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.util.TimeFrame;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus;
+import rocks.inspectit.shared.cs.indexing.query.provider.impl.StorageIndexQueryProvider;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+import rocks.inspectit.shared.cs.storage.label.AbstractStorageLabel;
+import rocks.inspectit.shared.cs.storage.label.type.impl.DataTimeFrameLabelType;
+
+/**
+ * Job that merges one or more finalized storages into the already opened target storage. The
+ * complete time frame of the source storages is divided into slices, so that each slice holds
+ * approximately the configured amount of objects. For each slice the data of all sources is read,
+ * duplicates are removed and the data is sorted by platform, sensor type and time before it is
+ * written. Thus the target storage has the data written in the time order and the indexing tree
+ * created when the target is closed is not shaped by the order the sources were written in.
+ * <p>
+ * The progress is reported in the given {@link StorageCompactionStatus}. If the job fails, the
+ * target storage is deleted.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class StorageCompactionJob implements Runnable {
+
+	/**
+	 * Comparator that sorts the data by platform, sensor type, time and id.
+	 */
+	private static final Comparator<DefaultData> COMPACTION_ORDER = new Comparator<DefaultData>() {
+		@Override
+		public int compare(DefaultData o1, DefaultData o2) {
+			int result = Long.compare(o1.getPlatformIdent(), o2.getPlatformIdent());
+			if (0 != result) {
+				return result;
+			}
+			result = Long.compare(o1.getSensorTypeIdent(), o2.getSensorTypeIdent());
+			if (0 != result) {
+				return result;
+			}
+			long time1 = (null != o1.getTimeStamp()) ? o1.getTimeStamp().getTime() : 0L;
+			long time2 = (null != o2.getTimeStamp()) ? o2.getTimeStamp().getTime() : 0L;
+			result = Long.compare(time1, time2);
+			if (0 != result) {
+				return result;
+			}
+			return Long.compare(o1.getId(), o2.getId());
+		}
+	};
+
+	/**
+	 * The log of this class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(StorageCompactionJob.class);
+
+	/**
+	 * Storage manager.
+	 */
+	private final CmrStorageManager storageManager;
+
+	/**
+	 * Executor used to read the source storages.
+	 */
+	private final StorageQueryExecutor storageQueryExecutor;
+
+	/**
+	 * Provider of the queries.
+	 */
+	private final StorageIndexQueryProvider storageIndexQueryProvider;
+
+	/**
+	 * Finalized storages to read from.
+	 */
+	private final Collection<StorageData> sourceStorages;
+
+	/**
+	 * Opened storage to write to.
+	 */
+	private final StorageData targetStorage;
+
+	/**
+	 * Status to report the progress to.
+	 */
+	private final StorageCompactionStatus status;
+
+	/**
+	 * Desired amount of objects in one time slice.
+	 */
+	private final long sliceSize;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param storageManager
+	 *            Storage manager.
+	 * @param storageQueryExecutor
+	 *            Executor used to read the source storages.
+	 * @param storageIndexQueryProvider
+	 *            Provider of the queries.
+	 * @param sourceStorages
+	 *            Finalized storages to read from.
+	 * @param targetStorage
+	 *            Opened storage to write to.
+	 * @param status
+	 *            Status to report the progress to.
+	 * @param sliceSize
+	 *            Desired amount of objects in one time slice.
+	 */
+	public StorageCompactionJob(CmrStorageManager storageManager, StorageQueryExecutor storageQueryExecutor, StorageIndexQueryProvider storageIndexQueryProvider,
+			Collection<StorageData> sourceStorages, StorageData targetStorage, StorageCompactionStatus status, long sliceSize) {
+		this.storageManager = storageManager;
+		this.storageQueryExecutor = storageQueryExecutor;
+		this.storageIndexQueryProvider = storageIndexQueryProvider;
+		this.sourceStorages = sourceStorages;
+		this.targetStorage = targetStorage;
+		this.status = status;
+		this.sliceSize = Math.max(1, sliceSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run() {
+		try {
+			compact();
+			status.markFinished();
+			if (LOG.isInfoEnabled()) {
+				LOG.info("Storages " + sourceStorages + " compacted into the storage " + targetStorage + " (" + status.getWrittenObjects() + " objects written, " + status.getDuplicatesRemoved()
+						+ " duplicates removed).");
+			}
+		} catch (Exception e) { // NOPMD
+			LOG.error("Compaction of the storages " + sourceStorages + " into the storage " + targetStorage + " failed.", e);
+			status.markFailed(e.getMessage());
+			try {
+				storageManager.deleteStorage(targetStorage);
+			} catch (Exception deleteException) { // NOPMD
+				LOG.warn("Storage " + targetStorage + " could not be deleted after the failed compaction.", deleteException);
+			}
+		}
+	}
+
+	/**
+	 * Reads all the sources slice by slice, writes the data to the target and closes the target.
+	 *
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	private void compact() throws Exception {
+		Map<StorageData, IStorageTreeComponent<DefaultData>> indexingTrees = new LinkedHashMap<>();
+		long totalObjects = 0;
+		for (StorageData sourceStorage : sourceStorages) {
+			IStorageTreeComponent<DefaultData> indexingTree = storageManager.loadIndexingTree(sourceStorage);
+			if (null != indexingTree) {
+				indexingTrees.put(sourceStorage, indexingTree);
+				totalObjects += countObjects(sourceStorage);
+			}
+		}
+		status.setTotalObjects(totalObjects);
+
+		for (long[] slice : getTimeSlices(totalObjects)) {
+			List<DefaultData> sliceData = new ArrayList<>();
+			for (Map.Entry<StorageData, IStorageTreeComponent<DefaultData>> entry : indexingTrees.entrySet()) {
+				StorageIndexQuery query = createQuery();
+				if (null != slice) {
+					query.setFromDate(new Timestamp(slice[0]));
+					query.setToDate(new Timestamp(slice[1]));
+				}
+				List<DefaultData> data = storageQueryExecutor.executeQuery(entry.getKey(), entry.getValue(), query, null, null, -1);
+				sliceData.addAll(data);
+				status.setProcessedObjects(status.getProcessedObjects() + data.size());
+			}
+
+			List<DefaultData> toWrite = removeDuplicates(sliceData);
+			status.setDuplicatesRemoved(status.getDuplicatesRemoved() + (sliceData.size() - toWrite.size()));
+			if (!toWrite.isEmpty()) {
+				Collections.sort(toWrite, COMPACTION_ORDER);
+				storageManager.writeToStorage(targetStorage, toWrite, null, true);
+				status.setWrittenObjects(status.getWrittenObjects() + toWrite.size());
+			}
+		}
+
+		storageManager.closeStorage(targetStorage);
+		copyAgentFiles();
+	}
+
+	/**
+	 * Counts the objects in the source storage. The descriptors of the indexing tree can not be
+	 * used for counting, as the leafs without descriptors hold one descriptor for many objects,
+	 * thus the data is streamed through once.
+	 *
+	 * @param sourceStorage
+	 *            Source storage.
+	 * @return Amount of objects in the storage.
+	 * @throws IOException
+	 *             If {@link IOException} occurs reading the storage files.
+	 * @throws SerializationException
+	 *             If the storage files can not be de-serialized.
+	 */
+	private long countObjects(StorageData sourceStorage) throws IOException, SerializationException {
+		return storageQueryExecutor.executeQuery(sourceStorage, createQuery(), new Consumer<List<DefaultData>>() {
+			@Override
+			public void accept(List<DefaultData> chunk) {
+				// only counting
+			}
+		});
+	}
+
+	/**
+	 * Creates the query that matches all data in the storage.
+	 *
+	 * @return {@link StorageIndexQuery}.
+	 */
+	private StorageIndexQuery createQuery() {
+		StorageIndexQuery query = storageIndexQueryProvider.createNewStorageIndexQuery();
+		// ids are not checked, data must not be lost
+		query.setMinId(Long.MIN_VALUE);
+		return query;
+	}
+
+	/**
+	 * Returns the time slices to process. Each slice is an array with inclusive from and to time.
+	 * Slices do not overlap, thus every object is read in exactly one slice. If the time frame of
+	 * any source storage is not known, a single <code>null</code> slice is returned, denoting that
+	 * all data should be read at once.
+	 *
+	 * @param totalObjects
+	 *            Total amount of objects in the sources.
+	 * @return Time slices.
+	 */
+	private List<long[]> getTimeSlices(long totalObjects) {
+		long oldest = Long.MAX_VALUE;
+		long newest = Long.MIN_VALUE;
+		for (StorageData sourceStorage : sourceStorages) {
+			List<AbstractStorageLabel<TimeFrame>> labels = sourceStorage.getLabels(new DataTimeFrameLabelType());
+			if (labels.isEmpty() || (null == labels.get(0).getValue())) {
+				return Collections.singletonList(null);
+			}
+			TimeFrame timeFrame = labels.get(0).getValue();
+			oldest = Math.min(oldest, timeFrame.getFrom().getTime());
+			newest = Math.max(newest, timeFrame.getTo().getTime());
+		}
+
+		long span = newest - oldest;
+		long sliceCount = Math.max(1, (totalObjects + sliceSize - 1) / sliceSize);
+		if ((oldest > newest) || (span < 0) || (1 == sliceCount)) {
+			// no time frame or the span overflows
+			return Collections.singletonList(null);
+		}
+
+		long sliceLength = (span / sliceCount) + 1;
+		List<long[]> slices = new ArrayList<>();
+		for (long i = 0; i < sliceCount; i++) {
+			long from = oldest + (i * sliceLength);
+			if (from > newest) {
+				break;
+			}
+			long to = (i == (sliceCount - 1)) ? newest : Math.min(newest, (from + sliceLength) - 1);
+			slices.add(new long[] { from, to });
+		}
+		return slices;
+	}
+
+	/**
+	 * Removes the duplicated objects. Objects are considered equal if they have the same class,
+	 * id, platform ident, sensor type ident and time stamp, same as in
+	 * {@link DefaultData#equals(Object)}. The id alone is not enough, as the ids are generated
+	 * starting from the same value on every CMR start, thus the storages created in different CMR
+	 * runs or on different CMRs can hold different objects with the same id.
+	 *
+	 * @param data
+	 *            Data read from all sources.
+	 * @return Data without duplicates.
+	 */
+	private List<DefaultData> removeDuplicates(List<DefaultData> data) {
+		Set<Object> keys = new HashSet<>(data.size());
+		List<DefaultData> result = new ArrayList<>(data.size());
+		for (DefaultData defaultData : data) {
+			Object key = Arrays.asList(defaultData.getClass(), defaultData.getId(), defaultData.getPlatformIdent(), defaultData.getSensorTypeIdent(), defaultData.getTimeStamp());
+			if (keys.add(key)) {
+				result.add(defaultData);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the agent files of the sources that the target storage does not have. The target
+	 * writes the agent files only for the agents that are still known to the CMR.
+	 *
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private void copyAgentFiles() throws IOException {
+		Path targetPath = storageManager.getStoragePath(targetStorage);
+		for (StorageData sourceStorage : sourceStorages) {
+			Path sourcePath = storageManager.getStoragePath(sourceStorage);
+			if (!Files.isDirectory(sourcePath)) {
+				continue;
+			}
+			try (DirectoryStream<Path> agentFiles = Files.newDirectoryStream(sourcePath, "*" + StorageFileType.AGENT_FILE.getExtension())) {
+				for (Path agentFile : agentFiles) {
+					Path targetFile = targetPath.resolve(agentFile.getFileName());
+					if (Files.notExists(targetFile)) {
+						Files.copy(agentFile, targetFile);
+					}
+				}
+			}
+		}
+	}
+}
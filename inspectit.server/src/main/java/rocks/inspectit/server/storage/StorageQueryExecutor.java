@@ -0,0 +1,399 @@
+package rocks.inspectit.server.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.esotericsoftware.kryo.io.Input;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.serializer.ISerializer;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.serializer.util.KryoUtil;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.AggregationPerformer;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageFormatVersion;
+import rocks.inspectit.shared.cs.storage.nio.stream.InputStreamProvider;
+import rocks.inspectit.shared.cs.storage.util.RangeDescriptor;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
+
+/**
+ * Executes the storage index queries directly against the files of the finalized storages on the
+ * CMR. The storage is opened read-only: the indexing tree is loaded from the index files, the
+ * described data is read from the data files, filtered by the query restrictions, aggregated,
+ * sorted and limited. Thus only the result rows have to be transfered to the client.
+ * <p>
+ * Loaded indexing trees are kept for the last few queried storages, as the trees of the finalized
+ * storages do not change.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class StorageQueryExecutor {
+
+	/**
+	 * Max amount of data that is read from the storage files at once. 10MB.
+	 */
+	private static final int MAX_READ_SIZE = 1024 * 1024 * 10;
+
+	/**
+	 * Amount of indexing trees kept in memory.
+	 */
+	private static final int MAX_CACHED_TREES = 4;
+
+	/**
+	 * Comparator that sorts the descriptors by channel and position in order to optimize the read
+	 * operations.
+	 */
+	private static final Comparator<IStorageDescriptor> DESCRIPTOR_COMPARATOR = new Comparator<IStorageDescriptor>() {
+		@Override
+		public int compare(IStorageDescriptor o1, IStorageDescriptor o2) {
+			int channelCompare = Integer.compare(o1.getChannelId(), o2.getChannelId());
+			if (channelCompare != 0) {
+				return channelCompare;
+			} else {
+				return Long.compare(o1.getPosition(), o2.getPosition());
+			}
+		}
+	};
+
+	/**
+	 * The log of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * {@link CmrStorageManager}.
+	 */
+	@Autowired
+	CmrStorageManager storageManager;
+
+	/**
+	 * {@link SerializationManagerProvider}.
+	 */
+	@Autowired
+	SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * {@link InputStreamProvider}.
+	 */
+	@Autowired
+	InputStreamProvider inputStreamProvider;
+
+	/**
+	 * Loaded indexing trees, key is the storage id. Access ordered, so that the least recently
+	 * queried tree is removed first.
+	 */
+	private final Map<String, IStorageTreeComponent<DefaultData>> indexingTreeCache = new LinkedHashMap<String, IStorageTreeComponent<DefaultData>>(MAX_CACHED_TREES + 1, 0.75f, true) {
+
+		/**
+		 * Generated UID.
+		 */
+		private static final long serialVersionUID = -2478374936528519318L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, IStorageTreeComponent<DefaultData>> eldest) {
+			return size() > MAX_CACHED_TREES;
+		}
+	};
+
+	/**
+	 * Executes the query on the storage. If the {@link IAggregator} is not <code>null</code> then
+	 * the results will be aggregated. Results are sorted if comparator is given and limited if
+	 * limit is not <code>-1</code>.
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 * @param storageData
+	 *            Storage to query. Storage must be closed.
+	 * @param storageIndexQuery
+	 *            Query.
+	 * @param aggregator
+	 *            {@link IAggregator}. Pass <code>null</code> if no aggregation is needed.
+	 * @param comparator
+	 *            If supplied the final result list will be sorted by this comparator.
+	 * @param limit
+	 *            Limit the number of results by given number. Value <code>-1</code> means no limit.
+	 * @return Result list.
+	 * @throws IOException
+	 *             If {@link IOException} occurs reading the storage files.
+	 * @throws SerializationException
+	 *             If the storage files can not be de-serialized.
+	 */
+	public <E extends DefaultData> List<E> executeQuery(StorageData storageData, StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator, Comparator<? super E> comparator, int limit)
+			throws IOException, SerializationException {
+		IStorageTreeComponent<DefaultData> indexingTree = getIndexingTree(storageData);
+		if (null == indexingTree) {
+			return new ArrayList<>(0);
+		}
+		return executeQuery(storageData, indexingTree, storageIndexQuery, aggregator, comparator, limit);
+	}
+
+	/**
+	 * Executes the query on the already loaded indexing tree of the storage. The loaded tree is
+	 * not cached, thus this method should be used when the caller keeps the tree for several
+	 * queries. Aggregation, sorting and limit are same as in
+	 * {@link #executeQuery(StorageData, StorageIndexQuery, IAggregator, Comparator, int)}.
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 * @param storageData
+	 *            Storage to query. Storage must be closed.
+	 * @param indexingTree
+	 *            Indexing tree of the storage.
+	 * @param storageIndexQuery
+	 *            Query.
+	 * @param aggregator
+	 *            {@link IAggregator}. Pass <code>null</code> if no aggregation is needed.
+	 * @param comparator
+	 *            If supplied the final result list will be sorted by this comparator.
+	 * @param limit
+	 *            Limit the number of results by given number. Value <code>-1</code> means no limit.
+	 * @return Result list.
+	 * @throws IOException
+	 *             If {@link IOException} occurs reading the storage files.
+	 * @throws SerializationException
+	 *             If the storage files can not be de-serialized.
+	 */
+	public <E extends DefaultData> List<E> executeQuery(StorageData storageData, IStorageTreeComponent<DefaultData> indexingTree, StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator,
+			Comparator<? super E> comparator, int limit) throws IOException, SerializationException {
+		final AggregationPerformer<E> aggregationPerformer;
+		if (null != aggregator) {
+			aggregationPerformer = new AggregationPerformer<>(aggregator);
+		} else {
+			aggregationPerformer = null;
+		}
+		final List<E> passedData = new ArrayList<>();
+
+		executeQuery(storageData, indexingTree, storageIndexQuery, new Consumer<List<E>>() {
+			@Override
+			public void accept(List<E> chunk) {
+				if (null != aggregationPerformer) {
+					aggregationPerformer.processCollection(chunk);
+				} else {
+					passedData.addAll(chunk);
+				}
+			}
+		});
+
+		List<E> returnList = passedData;
+		if (null != aggregationPerformer) {
+			returnList = new ArrayList<>(aggregationPerformer.getResultList());
+		}
+
+		if (null != comparator) {
+			Collections.sort(returnList, comparator);
+		}
+
+		if ((limit > -1) && (returnList.size() > limit)) {
+			returnList = new ArrayList<>(returnList.subList(0, limit));
+		}
+
+		return returnList;
+	}
+
+	/**
+	 * Executes the query on the storage and passes the results to the consumer in chunks, as they
+	 * are read from the storage files. At most {@link #MAX_READ_SIZE} bytes of data is read at
+	 * once, thus the memory needed does not depend on the amount of data matching the query.
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 * @param storageData
+	 *            Storage to query. Storage must be closed.
+	 * @param storageIndexQuery
+	 *            Query.
+	 * @param consumer
+	 *            Consumer to receive the chunks of results. Never receives an empty list.
+	 * @return Amount of objects passed to the consumer.
+	 * @throws IOException
+	 *             If {@link IOException} occurs reading the storage files.
+	 * @throws SerializationException
+	 *             If the storage files can not be de-serialized.
+	 */
+	public <E extends DefaultData> long executeQuery(StorageData storageData, StorageIndexQuery storageIndexQuery, Consumer<List<E>> consumer) throws IOException, SerializationException {
+		IStorageTreeComponent<DefaultData> indexingTree = getIndexingTree(storageData);
+		if (null == indexingTree) {
+			return 0;
+		}
+
+		return executeQuery(storageData, indexingTree, storageIndexQuery, consumer);
+	}
+
+	/**
+	 * Executes the query on the loaded indexing tree and passes the results to the consumer in
+	 * chunks. The descriptors are sorted by channel and position and read in batches of at most
+	 * {@link #MAX_READ_SIZE} bytes. Only the objects complying to the query are passed.
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 * @param storageData
+	 *            Storage to query.
+	 * @param indexingTree
+	 *            Indexing tree of the storage.
+	 * @param storageIndexQuery
+	 *            Query.
+	 * @param consumer
+	 *            Consumer to receive the chunks of results. Never receives an empty list.
+	 * @return Amount of objects passed to the consumer.
+	 * @throws IOException
+	 *             If {@link IOException} occurs reading the storage files.
+	 * @throws SerializationException
+	 *             If the storage files can not be de-serialized.
+	 */
+	private <E extends DefaultData> long executeQuery(StorageData storageData, IStorageTreeComponent<DefaultData> indexingTree, StorageIndexQuery storageIndexQuery, Consumer<List<E>> consumer)
+			throws IOException, SerializationException {
+		List<IStorageDescriptor> descriptors = indexingTree.query(storageIndexQuery);
+		Collections.sort(descriptors, DESCRIPTOR_COMPARATOR);
+
+		ISerializer serializer = serializationManagerProvider.createSerializer();
+		long count = 0;
+		long size = 0;
+		IStorageDescriptor previous = null;
+		List<IStorageDescriptor> limitedDescriptors = new ArrayList<>();
+		for (int i = 0; i < descriptors.size(); i++) {
+			IStorageDescriptor storageDescriptor = descriptors.get(i);
+			// objects of one block share the same position, count the block only once
+			if ((null == previous) || (previous.getChannelId() != storageDescriptor.getChannelId()) || (previous.getPosition() != storageDescriptor.getPosition())) {
+				size += storageDescriptor.getSize();
+			}
+			limitedDescriptors.add(storageDescriptor);
+			previous = storageDescriptor;
+
+			if ((size > MAX_READ_SIZE) || (i == (descriptors.size() - 1))) {
+				List<E> allData = readData(storageData, limitedDescriptors, serializer);
+				List<E> passedData = new ArrayList<>(allData.size());
+				for (E element : allData) {
+					if ((null != element) && element.isQueryComplied(storageIndexQuery)) {
+						passedData.add(element);
+					}
+				}
+				if (!passedData.isEmpty()) {
+					consumer.accept(passedData);
+					count += passedData.size();
+				}
+
+				size = 0;
+				limitedDescriptors.clear();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes the cached indexing tree of the storage. Should be called when storage is deleted.
+	 *
+	 * @param storageData
+	 *            Storage.
+	 */
+	public void evictIndexingTree(StorageData storageData) {
+		synchronized (indexingTreeCache) {
+			indexingTreeCache.remove(storageData.getId());
+		}
+	}
+
+	/**
+	 * Reads the data described by the descriptors. Descriptors must be sorted by channel and
+	 * position.
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 * @param storageData
+	 *            Storage.
+	 * @param descriptors
+	 *            Descriptors to read.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return Read objects.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 */
+	@SuppressWarnings("unchecked")
+	private <E extends DefaultData> List<E> readData(StorageData storageData, List<IStorageDescriptor> descriptors, ISerializer serializer) throws IOException, SerializationException {
+		List<E> result = new ArrayList<>(descriptors.size());
+		if (StorageFormatVersion.isCompressedBlocks(storageData)) {
+			int start = 0;
+			while (start < descriptors.size()) {
+				int channelId = descriptors.get(start).getChannelId();
+				int end = start;
+				while ((end < descriptors.size()) && (descriptors.get(end).getChannelId() == channelId)) {
+					end++;
+				}
+				List<IStorageDescriptor> channelDescriptors = descriptors.subList(start, end);
+				List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(channelDescriptors);
+				List<IStorageDescriptor> rangeDescriptors = new ArrayList<>(ranges.size());
+				for (RangeDescriptor range : ranges) {
+					rangeDescriptors.add(new StorageDescriptor(channelId, range.getStart(), (range.getEnd() - range.getStart()) + 1));
+				}
+				try (InputStream inputStream = inputStreamProvider.getExtendedByteBufferInputStream(storageData, rangeDescriptors)) {
+					result.addAll(StorageBlockUtil.<E> deserialize(channelDescriptors, ranges, inputStream, serializer));
+				}
+				start = end;
+			}
+		} else {
+			List<IStorageDescriptor> joinedDescriptors = new ArrayList<>();
+			StorageDescriptor current = null;
+			for (IStorageDescriptor descriptor : descriptors) {
+				if ((null == current) || !current.join(descriptor)) {
+					current = new StorageDescriptor(descriptor.getChannelId(), descriptor.getPosition(), descriptor.getSize());
+					joinedDescriptors.add(current);
+				}
+			}
+			try (Input input = new Input(inputStreamProvider.getExtendedByteBufferInputStream(storageData, joinedDescriptors))) {
+				while (KryoUtil.hasMoreBytes(input)) {
+					result.add((E) serializer.deserialize(input));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the indexing tree of the storage, loading it from the index files if it is not
+	 * cached.
+	 *
+	 * @param storageData
+	 *            Storage.
+	 * @return Indexing tree or <code>null</code> if storage has no index files.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If index files can not be de-serialized.
+	 */
+	private IStorageTreeComponent<DefaultData> getIndexingTree(StorageData storageData) throws IOException, SerializationException {
+		synchronized (indexingTreeCache) {
+			IStorageTreeComponent<DefaultData> indexingTree = indexingTreeCache.get(storageData.getId());
+			if (null == indexingTree) {
+				indexingTree = storageManager.loadIndexingTree(storageData);
+				if (null != indexingTree) {
+					indexingTreeCache.put(storageData.getId(), indexingTree);
+					if (log.isDebugEnabled()) {
+						log.debug("Indexing tree for the storage " + storageData + " loaded.");
+					}
+				}
+			}
+			return indexingTree;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package rocks.inspectit.server.tsdb;
+
+/**
+ * Aggregations supported by the {@link TimeSeriesStore} queries, named as the influxDB functions.
+ *
+ * @author Ivan Senic
+ *
+ */
+public enum Aggregation {
+
+	/**
+	 * Arithmetic mean of the values.
+	 */
+	MEAN,
+
+	/**
+	 * Smallest value.
+	 */
+	MIN,
+
+	/**
+	 * Largest value.
+	 */
+	MAX,
+
+	/**
+	 * Sum of the values.
+	 */
+	SUM,
+
+	/**
+	 * Amount of values.
+	 */
+	COUNT;
+
+	/**
+	 * Aggregates the values of one interval.
+	 *
+	 * @param count
+	 *            Amount of values.
+	 * @param sum
+	 *            Sum of the values.
+	 * @param min
+	 *            Smallest value.
+	 * @param max
+	 *            Largest value.
+	 * @return Aggregated value.
+	 */
+	public double aggregate(long count, double sum, double min, double max) {
+		switch (this) {
+		case MIN:
+			return min;
+		case MAX:
+			return max;
+		case SUM:
+			return sum;
+		case COUNT:
+			return count;
+		case MEAN:
+		default:
+			return sum / count;
+		}
+	}
+}
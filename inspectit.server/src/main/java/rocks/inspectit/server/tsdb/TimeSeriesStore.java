@@ -0,0 +1,688 @@
+package rocks.inspectit.server.tsdb;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.collections.MapUtils;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.server.influx.ILineProtocolListener;
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
+import rocks.inspectit.server.influx.util.LineProtocolParser;
+import rocks.inspectit.server.influx.util.LineProtocolParser.ParsedLine;
+import rocks.inspectit.server.tsdb.chunk.TimeSeriesChunk;
+import rocks.inspectit.server.tsdb.chunk.TimeSeriesChunk.PointVisitor;
+import rocks.inspectit.server.tsdb.segment.ChunkReference;
+import rocks.inspectit.server.tsdb.segment.ChunkSegment;
+import rocks.inspectit.server.tsdb.segment.ChunkSegment.RecoveryVisitor;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Embedded, append-only time series store. The store receives the same line protocol records as
+ * the influxDB and keeps the numeric fields of each series in compressed {@link TimeSeriesChunk}s.
+ * Full chunks are appended to memory mapped {@link ChunkSegment} files in the store directory.
+ * Segments older than the retention are deleted. The chunks of the existing segments are indexed
+ * again on start, points of not yet full chunks are persisted on shutdown.
+ * <p>
+ * The store can be queried for aggregated values of a field per time interval and for the
+ * measurements, tags and fields it holds. Results are returned in the structure of the influxDB
+ * query results, so that they can be consumed the same way.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class TimeSeriesStore implements ILineProtocolListener {
+
+	/**
+	 * Prefix of the segment files.
+	 */
+	private static final String SEGMENT_FILE_PREFIX = "segment-";
+
+	/**
+	 * Suffix of the segment files.
+	 */
+	private static final String SEGMENT_FILE_SUFFIX = ".tsdb";
+
+	/**
+	 * Maximum time span of the points in one chunk. Chunks of rarely reported series are sealed
+	 * when the span is exceeded, even if they are not full.
+	 */
+	private static final long MAX_CHUNK_SPAN = TimeUnit.HOURS.toMillis(1);
+
+	/**
+	 * Logger for the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * If the store is active.
+	 */
+	@Value("${tsdb.active}")
+	boolean active;
+
+	/**
+	 * Directory of the segment files.
+	 */
+	@Value("${tsdb.directory}")
+	String directory;
+
+	/**
+	 * Retention of the data in hours.
+	 */
+	@Value("${tsdb.retention}")
+	long retention;
+
+	/**
+	 * Capacity of one segment file in bytes.
+	 */
+	@Value("${tsdb.segmentSize}")
+	int segmentSize;
+
+	/**
+	 * Amount of points after which a chunk is sealed and written to the segment.
+	 */
+	@Value("${tsdb.pointsPerChunk}")
+	int pointsPerChunk;
+
+	/**
+	 * All series by the measurement and tag set.
+	 */
+	private final ConcurrentMap<String, SeriesEntry> seriesMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Segments, oldest first. Guarded by itself.
+	 */
+	private final List<ChunkSegment> segments = new ArrayList<>();
+
+	/**
+	 * Sequence for the segment file names.
+	 */
+	private long segmentSequence;
+
+	/**
+	 * If the store has been started.
+	 */
+	private volatile boolean started;
+
+	/**
+	 * Opens the existing segments and starts the store if it's active.
+	 */
+	@PostConstruct
+	public void start() {
+		if (!active) {
+			return;
+		}
+
+		try {
+			Path path = Paths.get(directory);
+			Files.createDirectories(path);
+
+			List<Path> files = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_SUFFIX)) {
+				for (Path file : stream) {
+					files.add(file);
+				}
+			}
+			Collections.sort(files);
+
+			RecoveryVisitor visitor = new RecoveryVisitor() {
+				@Override
+				public void recovered(String measurement, Map<String, String> tags, String field, ChunkReference reference) {
+					getSeries(measurement, tags).getField(field).addReference(reference);
+				}
+			};
+			synchronized (segments) {
+				for (Path file : files) {
+					segments.add(ChunkSegment.open(file, visitor));
+				}
+				segmentSequence = files.size();
+			}
+
+			started = true;
+			if (log.isInfoEnabled()) {
+				log.info("|-Embedded time series store started with " + files.size() + " segment(s) in " + path.toAbsolutePath() + ".");
+			}
+		} catch (IOException e) {
+			if (log.isErrorEnabled()) {
+				log.error("Embedded time series store could not be started.", e);
+			}
+		}
+	}
+
+	/**
+	 * Persists the points of all not yet full chunks and stops the store.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (!started) {
+			return;
+		}
+		started = false;
+
+		for (SeriesEntry seriesEntry : seriesMap.values()) {
+			for (Entry<String, FieldEntry> fieldEntry : seriesEntry.fields.entrySet()) {
+				TimeSeriesChunk chunk = fieldEntry.getValue().seal();
+				if (null != chunk) {
+					persist(seriesEntry, fieldEntry.getKey(), fieldEntry.getValue(), chunk);
+				}
+			}
+		}
+
+		synchronized (segments) {
+			for (ChunkSegment segment : segments) {
+				segment.force();
+			}
+		}
+	}
+
+	/**
+	 * Returns if the store is active and started.
+	 *
+	 * @return If the store is active and started.
+	 */
+	public boolean isActive() {
+		return started;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isListening() {
+		return started;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onRecords(String records) {
+		if (!started) {
+			return;
+		}
+
+		for (ParsedLine line : LineProtocolParser.parse(records)) {
+			long time = (line.getTime() >= 0) ? TimeUnit.NANOSECONDS.toMillis(line.getTime()) : System.currentTimeMillis();
+			SeriesEntry seriesEntry = getSeries(line.getMeasurement(), line.getTags());
+			for (Entry<String, Double> field : line.getFields().entrySet()) {
+				FieldEntry fieldEntry = seriesEntry.getField(field.getKey());
+				TimeSeriesChunk sealed = fieldEntry.add(time, field.getValue().doubleValue(), pointsPerChunk);
+				if (null != sealed) {
+					persist(seriesEntry, field.getKey(), fieldEntry, sealed);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queries the aggregated values of a field in the given time range. All series of the
+	 * measurement having the given tags are included. If the interval is positive, one value per
+	 * interval starting at the range start is returned, otherwise a single value for the complete
+	 * range. Intervals without values are omitted.
+	 * <p>
+	 * The result has the structure of the influxDB result of
+	 * <code>SELECT aggregation(field) FROM measurement WHERE tags AND time >= from AND time <= to GROUP BY time(interval)</code>
+	 * with the time column holding the interval start in milliseconds.
+	 *
+	 * @param measurement
+	 *            Measurement.
+	 * @param field
+	 *            Field.
+	 * @param tags
+	 *            Tags the series must have, can be <code>null</code>.
+	 * @param from
+	 *            Start of the time range in milliseconds, inclusive.
+	 * @param to
+	 *            End of the time range in milliseconds, inclusive.
+	 * @param aggregation
+	 *            Aggregation of the values.
+	 * @param interval
+	 *            Interval length in milliseconds.
+	 * @return Query result.
+	 */
+	public QueryResult query(String measurement, String field, Map<String, String> tags, final long from, final long to, Aggregation aggregation, final long interval) {
+		final TreeMap<Long, double[]> buckets = new TreeMap<>();
+		PointVisitor visitor = new PointVisitor() {
+			@Override
+			public void visit(long time, double value) {
+				if ((time < from) || (time > to)) {
+					return;
+				}
+				long bucketStart = (interval > 0) ? (from + (((time - from) / interval) * interval)) : from;
+				double[] bucket = buckets.get(bucketStart);
+				if (null == bucket) {
+					bucket = new double[] { 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+					buckets.put(bucketStart, bucket);
+				}
+				bucket[0]++;
+				bucket[1] += value;
+				bucket[2] = Math.min(bucket[2], value);
+				bucket[3] = Math.max(bucket[3], value);
+			}
+		};
+
+		for (SeriesEntry seriesEntry : seriesMap.values()) {
+			if (seriesEntry.measurement.equals(measurement) && seriesEntry.matches(tags)) {
+				FieldEntry fieldEntry = seriesEntry.fields.get(field);
+				if (null != fieldEntry) {
+					fieldEntry.visit(from, to, visitor);
+				}
+			}
+		}
+
+		List<List<Object>> values = new ArrayList<>(buckets.size());
+		for (Entry<Long, double[]> bucket : buckets.entrySet()) {
+			double[] aggregate = bucket.getValue();
+			values.add(Arrays.<Object> asList(bucket.getKey(), aggregation.aggregate((long) aggregate[0], aggregate[1], aggregate[2], aggregate[3])));
+		}
+
+		if (values.isEmpty()) {
+			return createResult(Collections.<Series> emptyList());
+		}
+		return createResult(Collections.singletonList(createSeries(measurement, Arrays.asList("time", aggregation.name().toLowerCase()), values)));
+	}
+
+	/**
+	 * Returns all measurements in the store.
+	 *
+	 * @return Sorted measurements.
+	 */
+	public List<String> getMeasurements() {
+		Set<String> measurements = new TreeSet<>();
+		for (SeriesEntry seriesEntry : seriesMap.values()) {
+			measurements.add(seriesEntry.measurement);
+		}
+		return new ArrayList<>(measurements);
+	}
+
+	/**
+	 * Returns all tag keys of the measurement.
+	 *
+	 * @param measurement
+	 *            Measurement.
+	 * @return Sorted tag keys.
+	 */
+	public List<String> getTagKeys(String measurement) {
+		Set<String> tagKeys = new TreeSet<>();
+		for (SeriesEntry seriesEntry : seriesMap.values()) {
+			if (seriesEntry.measurement.equals(measurement)) {
+				tagKeys.addAll(seriesEntry.tags.keySet());
+			}
+		}
+		return new ArrayList<>(tagKeys);
+	}
+
+	/**
+	 * Returns all values of the tag in the measurement.
+	 *
+	 * @param measurement
+	 *            Measurement.
+	 * @param tagKey
+	 *            Tag key.
+	 * @return Sorted tag values.
+	 */
+	public List<String> getTagValues(String measurement, String tagKey) {
+		Set<String> tagValues = new TreeSet<>();
+		for (SeriesEntry seriesEntry : seriesMap.values()) {
+			if (seriesEntry.measurement.equals(measurement) && seriesEntry.tags.containsKey(tagKey)) {
+				tagValues.add(seriesEntry.tags.get(tagKey));
+			}
+		}
+		return new ArrayList<>(tagValues);
+	}
+
+	/**
+	 * Returns all field keys of the measurement.
+	 *
+	 * @param measurement
+	 *            Measurement.
+	 * @return Sorted field keys.
+	 */
+	public List<String> getFieldKeys(String measurement) {
+		Set<String> fieldKeys = new TreeSet<>();
+		for (SeriesEntry seriesEntry : seriesMap.values()) {
+			if (seriesEntry.measurement.equals(measurement)) {
+				fieldKeys.addAll(seriesEntry.fields.keySet());
+			}
+		}
+		return new ArrayList<>(fieldKeys);
+	}
+
+	/**
+	 * Returns the series with the given measurement and tags, creating it if it does not exist.
+	 *
+	 * @param measurement
+	 *            Measurement.
+	 * @param tags
+	 *            Tags.
+	 * @return The series.
+	 */
+	private SeriesEntry getSeries(String measurement, Map<String, String> tags) {
+		String key = measurement + LineProtocolEncoder.tagSet(tags);
+		SeriesEntry seriesEntry = seriesMap.get(key);
+		if (null == seriesEntry) {
+			seriesEntry = new SeriesEntry(measurement, tags);
+			SeriesEntry existing = seriesMap.putIfAbsent(key, seriesEntry);
+			if (null != existing) {
+				seriesEntry = existing;
+			}
+		}
+		return seriesEntry;
+	}
+
+	/**
+	 * Appends the sealed chunk to the current segment, rolling over to a new segment if the
+	 * current one is full.
+	 *
+	 * @param seriesEntry
+	 *            Series of the chunk.
+	 * @param field
+	 *            Field of the chunk.
+	 * @param fieldEntry
+	 *            Field entry to add the reference to.
+	 * @param chunk
+	 *            Sealed chunk.
+	 */
+	private void persist(SeriesEntry seriesEntry, String field, FieldEntry fieldEntry, TimeSeriesChunk chunk) {
+		ChunkReference reference = null;
+		synchronized (segments) {
+			if (!segments.isEmpty()) {
+				reference = segments.get(segments.size() - 1).append(seriesEntry.measurement, seriesEntry.tags, field, chunk);
+			}
+			if (null == reference) {
+				try {
+					Path file = Paths.get(directory).resolve(String.format("%s%019d-%09d%s", SEGMENT_FILE_PREFIX, System.currentTimeMillis(), segmentSequence++, SEGMENT_FILE_SUFFIX));
+					ChunkSegment segment = ChunkSegment.create(file, segmentSize);
+					segments.add(segment);
+					reference = segment.append(seriesEntry.measurement, seriesEntry.tags, field, chunk);
+				} catch (IOException e) {
+					if (log.isErrorEnabled()) {
+						log.error("Segment of the embedded time series store could not be created.", e);
+					}
+				}
+				removeExpiredSegments();
+			}
+		}
+
+		if (null != reference) {
+			fieldEntry.addReference(reference);
+		} else if (log.isWarnEnabled()) {
+			log.warn("Chunk of " + chunk.getCount() + " points could not be stored in the embedded time series store.");
+		}
+	}
+
+	/**
+	 * Deletes all segments, except the current one, having only chunks older than the retention.
+	 * Must be called while holding the lock of the {@link #segments}.
+	 */
+	private void removeExpiredSegments() {
+		long border = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retention);
+		Iterator<ChunkSegment> iterator = segments.iterator();
+		while (iterator.hasNext()) {
+			ChunkSegment segment = iterator.next();
+			if (!iterator.hasNext() || (segment.getMaxTime() >= border)) {
+				break;
+			}
+
+			try {
+				segment.delete();
+			} catch (IOException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("Segment " + segment.getFile() + " of the embedded time series store could not be deleted.", e);
+				}
+			}
+			iterator.remove();
+			for (SeriesEntry seriesEntry : seriesMap.values()) {
+				for (FieldEntry fieldEntry : seriesEntry.fields.values()) {
+					fieldEntry.removeReferences(segment);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the query result holding the given series.
+	 *
+	 * @param series
+	 *            Series.
+	 * @return Query result.
+	 */
+	private static QueryResult createResult(List<Series> series) {
+		Result result = new Result();
+		result.setSeries(series);
+		QueryResult queryResult = new QueryResult();
+		queryResult.setResults(Collections.singletonList(result));
+		return queryResult;
+	}
+
+	/**
+	 * Creates a result series.
+	 *
+	 * @param name
+	 *            Name of the series.
+	 * @param columns
+	 *            Columns.
+	 * @param values
+	 *            Rows.
+	 * @return Series.
+	 */
+	private static Series createSeries(String name, List<String> columns, List<List<Object>> values) {
+		Series series = new Series();
+		series.setName(name);
+		series.setColumns(columns);
+		series.setValues(values);
+		return series;
+	}
+
+	/**
+	 * One series, identified by the measurement and the tags.
+	 */
+	private static class SeriesEntry {
+
+		/**
+		 * Measurement.
+		 */
+		private final String measurement;
+
+		/**
+		 * Sorted tags.
+		 */
+		private final Map<String, String> tags;
+
+		/**
+		 * Fields by the key.
+		 */
+		private final ConcurrentMap<String, FieldEntry> fields = new ConcurrentHashMap<>();
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param measurement
+		 *            Measurement.
+		 * @param tags
+		 *            Tags.
+		 */
+		SeriesEntry(String measurement, Map<String, String> tags) {
+			this.measurement = measurement;
+			this.tags = Collections.unmodifiableMap(new TreeMap<>(tags));
+		}
+
+		/**
+		 * Returns the field, creating it if it does not exist.
+		 *
+		 * @param field
+		 *            Field key.
+		 * @return The field.
+		 */
+		FieldEntry getField(String field) {
+			FieldEntry fieldEntry = fields.get(field);
+			if (null == fieldEntry) {
+				fieldEntry = new FieldEntry();
+				FieldEntry existing = fields.putIfAbsent(field, fieldEntry);
+				if (null != existing) {
+					fieldEntry = existing;
+				}
+			}
+			return fieldEntry;
+		}
+
+		/**
+		 * Returns if the series has all given tags.
+		 *
+		 * @param requiredTags
+		 *            Tags, can be <code>null</code>.
+		 * @return If the series has all given tags.
+		 */
+		boolean matches(Map<String, String> requiredTags) {
+			if (MapUtils.isEmpty(requiredTags)) {
+				return true;
+			}
+			for (Entry<String, String> entry : requiredTags.entrySet()) {
+				if (!Objects.equals(entry.getValue(), tags.get(entry.getKey()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Points of one field of a series: the chunk currently being filled and the references to the
+	 * sealed chunks.
+	 */
+	private static class FieldEntry {
+
+		/**
+		 * Chunk currently being filled.
+		 */
+		private TimeSeriesChunk activeChunk = new TimeSeriesChunk();
+
+		/**
+		 * References to the sealed chunks.
+		 */
+		private final List<ChunkReference> references = new ArrayList<>();
+
+		/**
+		 * Adds the point to the active chunk.
+		 *
+		 * @param time
+		 *            Time stamp in milliseconds.
+		 * @param value
+		 *            Value.
+		 * @param pointsPerChunk
+		 *            Amount of points after which the chunk is sealed.
+		 * @return The sealed chunk or <code>null</code> if the chunk has not been sealed.
+		 */
+		synchronized TimeSeriesChunk add(long time, double value, int pointsPerChunk) {
+			activeChunk.add(time, value);
+			if ((activeChunk.getCount() >= pointsPerChunk) || ((activeChunk.getMaxTime() - activeChunk.getMinTime()) > MAX_CHUNK_SPAN)) {
+				return seal();
+			}
+			return null;
+		}
+
+		/**
+		 * Seals the active chunk and starts a new one.
+		 *
+		 * @return The sealed chunk or <code>null</code> if the active chunk is empty.
+		 */
+		synchronized TimeSeriesChunk seal() {
+			if (0 == activeChunk.getCount()) {
+				return null;
+			}
+			TimeSeriesChunk sealed = activeChunk;
+			activeChunk = new TimeSeriesChunk();
+			return sealed;
+		}
+
+		/**
+		 * Adds the reference to a sealed chunk.
+		 *
+		 * @param reference
+		 *            Reference.
+		 */
+		synchronized void addReference(ChunkReference reference) {
+			references.add(reference);
+		}
+
+		/**
+		 * Removes the references to the chunks of the segment.
+		 *
+		 * @param segment
+		 *            Segment.
+		 */
+		synchronized void removeReferences(ChunkSegment segment) {
+			Iterator<ChunkReference> iterator = references.iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().getSegment() == segment) {
+					iterator.remove();
+				}
+			}
+		}
+
+		/**
+		 * Passes the points of all chunks overlapping the time range to the visitor. The visitor
+		 * must filter the points by the time range.
+		 *
+		 * @param from
+		 *            Start of the time range, inclusive.
+		 * @param to
+		 *            End of the time range, inclusive.
+		 * @param visitor
+		 *            Visitor.
+		 */
+		void visit(long from, long to, PointVisitor visitor) {
+			List<ChunkReference> overlapping = new ArrayList<>();
+			byte[] activeData = null;
+			int activeCount = 0;
+			synchronized (this) {
+				for (ChunkReference reference : references) {
+					if (reference.overlaps(from, to)) {
+						overlapping.add(reference);
+					}
+				}
+				if ((activeChunk.getCount() > 0) && (activeChunk.getMinTime() <= to) && (activeChunk.getMaxTime() >= from)) {
+					activeData = activeChunk.toByteArray();
+					activeCount = activeChunk.getCount();
+				}
+			}
+
+			for (ChunkReference reference : overlapping) {
+				byte[] data = reference.read();
+				if (null != data) {
+					TimeSeriesChunk.decode(data, reference.getCount(), visitor);
+				}
+			}
+			if (null != activeData) {
+				TimeSeriesChunk.decode(activeData, activeCount, visitor);
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package rocks.inspectit.server.tsdb.chunk;
+
+/**
+ * Input of single bits, reading bits written by the {@link BitOutput}. The input is not
+ * thread-safe.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class BitInput {
+
+	/**
+	 * Bytes to read from.
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * Position of the next bit to read.
+	 */
+	private long position;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param bytes
+	 *            Bytes to read from.
+	 */
+	public BitInput(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Reads a single bit.
+	 *
+	 * @return The bit.
+	 * @throws IndexOutOfBoundsException
+	 *             If all bits have been read.
+	 */
+	public boolean readBit() {
+		int index = (int) (position >>> 3);
+		if (index >= bytes.length) {
+			throw new IndexOutOfBoundsException("No more bits to read.");
+		}
+		boolean bit = (bytes[index] & (0x80 >>> (position & 7))) != 0;
+		position++;
+		return bit;
+	}
+
+	/**
+	 * Reads the given amount of bits, the most significant first.
+	 *
+	 * @param bits
+	 *            Amount of bits to read, from 0 to 64.
+	 * @return The bits as the lowest bits of the returned value.
+	 */
+	public long readBits(int bits) {
+		long value = 0;
+		for (int i = 0; i < bits; i++) {
+			value <<= 1;
+			if (readBit()) {
+				value |= 1L;
+			}
+		}
+		return value;
+	}
+}
@@ -0,0 +1,94 @@
+package rocks.inspectit.server.tsdb.chunk;
+
+import java.util.Arrays;
+
+/**
+ * Growable output of single bits. Bits are written from the most significant bit of each byte.
+ * The output is not thread-safe.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class BitOutput {
+
+	/**
+	 * Default initial capacity in bytes.
+	 */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * Written bytes, the last one possibly only partially.
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Amount of written bits.
+	 */
+	private long bitCount;
+
+	/**
+	 * Creates output with the default initial capacity.
+	 */
+	public BitOutput() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates output with the given initial capacity.
+	 *
+	 * @param initialCapacity
+	 *            Initial capacity in bytes.
+	 */
+	public BitOutput(int initialCapacity) {
+		this.bytes = new byte[Math.max(1, initialCapacity)];
+	}
+
+	/**
+	 * Writes a single bit.
+	 *
+	 * @param bit
+	 *            Bit to write.
+	 */
+	public void writeBit(boolean bit) {
+		int index = (int) (bitCount >>> 3);
+		if (index >= bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length << 1);
+		}
+		if (bit) {
+			bytes[index] |= 0x80 >>> (bitCount & 7);
+		}
+		bitCount++;
+	}
+
+	/**
+	 * Writes the given amount of the lowest bits of the value, the most significant first.
+	 *
+	 * @param value
+	 *            Value to write.
+	 * @param bits
+	 *            Amount of bits to write, from 0 to 64.
+	 */
+	public void writeBits(long value, int bits) {
+		for (int i = bits - 1; i >= 0; i--) {
+			writeBit(((value >>> i) & 1L) == 1L);
+		}
+	}
+
+	/**
+	 * Gets {@link #bitCount}.
+	 *
+	 * @return {@link #bitCount}
+	 */
+	public long getBitCount() {
+		return this.bitCount;
+	}
+
+	/**
+	 * Returns the written bits, padded with zeros to the full byte.
+	 *
+	 * @return Returns the written bits.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, (int) ((bitCount + 7) >>> 3));
+	}
+}
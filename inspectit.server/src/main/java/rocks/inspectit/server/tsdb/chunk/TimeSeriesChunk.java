@@ -0,0 +1,276 @@
+package rocks.inspectit.server.tsdb.chunk;
+
+/**
+ * Compressed chunk of the points of one field of a series. Time stamps are encoded as delta of
+ * deltas and values as XOR with the previous value, following the Gorilla time series compression
+ * of Facebook. Regularly reported values, as the ones of the agent sensors, thus need only a few
+ * bits per point.
+ * <p>
+ * Time stamps are in milliseconds and do not need to be ordered, though out of order points cost
+ * more bits. The chunk is not thread-safe.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class TimeSeriesChunk {
+
+	/**
+	 * Amount of bits of the delta of deltas in the buckets for which a control prefix exists.
+	 */
+	private static final int[] DELTA_BUCKET_BITS = { 7, 9, 12 };
+
+	/**
+	 * Compressed points.
+	 */
+	private final BitOutput output;
+
+	/**
+	 * Amount of points in the chunk.
+	 */
+	private int count;
+
+	/**
+	 * Smallest time stamp in the chunk.
+	 */
+	private long minTime = Long.MAX_VALUE;
+
+	/**
+	 * Largest time stamp in the chunk.
+	 */
+	private long maxTime = Long.MIN_VALUE;
+
+	/**
+	 * Time stamp of the last point.
+	 */
+	private long lastTime;
+
+	/**
+	 * Delta between the time stamps of the last two points.
+	 */
+	private long lastDelta;
+
+	/**
+	 * Bits of the value of the last point.
+	 */
+	private long lastValueBits;
+
+	/**
+	 * Leading zeros of the last written XOR, <code>-1</code> if none written.
+	 */
+	private int lastLeadingZeros = -1;
+
+	/**
+	 * Trailing zeros of the last written XOR.
+	 */
+	private int lastTrailingZeros;
+
+	/**
+	 * Creates an empty chunk.
+	 */
+	public TimeSeriesChunk() {
+		this.output = new BitOutput();
+	}
+
+	/**
+	 * Adds the point to the chunk.
+	 *
+	 * @param time
+	 *            Time stamp in milliseconds.
+	 * @param value
+	 *            Value.
+	 */
+	public void add(long time, double value) {
+		long valueBits = Double.doubleToRawLongBits(value);
+		if (0 == count) {
+			output.writeBits(time, 64);
+			output.writeBits(valueBits, 64);
+		} else {
+			long delta = time - lastTime;
+			writeDeltaOfDelta(delta - lastDelta);
+			writeValue(valueBits ^ lastValueBits);
+			lastDelta = delta;
+		}
+
+		lastTime = time;
+		lastValueBits = valueBits;
+		minTime = Math.min(minTime, time);
+		maxTime = Math.max(maxTime, time);
+		count++;
+	}
+
+	/**
+	 * Writes the delta of deltas with the smallest fitting control prefix.
+	 *
+	 * @param deltaOfDelta
+	 *            Delta of deltas.
+	 */
+	private void writeDeltaOfDelta(long deltaOfDelta) {
+		if (0 == deltaOfDelta) {
+			output.writeBit(false);
+			return;
+		}
+		for (int bits : DELTA_BUCKET_BITS) {
+			output.writeBit(true);
+			long limit = 1L << (bits - 1);
+			if ((deltaOfDelta >= -limit) && (deltaOfDelta < limit)) {
+				output.writeBit(false);
+				output.writeBits(deltaOfDelta, bits);
+				return;
+			}
+		}
+		output.writeBit(true);
+		output.writeBits(deltaOfDelta, 64);
+	}
+
+	/**
+	 * Writes the XOR of the value with the previous value.
+	 *
+	 * @param xor
+	 *            XOR of the value bits.
+	 */
+	private void writeValue(long xor) {
+		if (0 == xor) {
+			output.writeBit(false);
+			return;
+		}
+
+		output.writeBit(true);
+		int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+		int trailingZeros = Long.numberOfTrailingZeros(xor);
+		if ((lastLeadingZeros >= 0) && (leadingZeros >= lastLeadingZeros) && (trailingZeros >= lastTrailingZeros)) {
+			output.writeBit(false);
+			output.writeBits(xor >>> lastTrailingZeros, 64 - lastLeadingZeros - lastTrailingZeros);
+		} else {
+			int significantBits = 64 - leadingZeros - trailingZeros;
+			output.writeBit(true);
+			output.writeBits(leadingZeros, 5);
+			output.writeBits(significantBits - 1, 6);
+			output.writeBits(xor >>> trailingZeros, significantBits);
+			lastLeadingZeros = leadingZeros;
+			lastTrailingZeros = trailingZeros;
+		}
+	}
+
+	/**
+	 * Gets {@link #count}.
+	 *
+	 * @return {@link #count}
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Gets {@link #minTime}.
+	 *
+	 * @return {@link #minTime}
+	 */
+	public long getMinTime() {
+		return this.minTime;
+	}
+
+	/**
+	 * Gets {@link #maxTime}.
+	 *
+	 * @return {@link #maxTime}
+	 */
+	public long getMaxTime() {
+		return this.maxTime;
+	}
+
+	/**
+	 * Returns the compressed points.
+	 *
+	 * @return Returns the compressed points.
+	 */
+	public byte[] toByteArray() {
+		return output.toByteArray();
+	}
+
+	/**
+	 * Decodes the given amount of points from the compressed data and passes them to the visitor.
+	 *
+	 * @param data
+	 *            Compressed points as returned by {@link #toByteArray()}.
+	 * @param count
+	 *            Amount of points in the data.
+	 * @param visitor
+	 *            Visitor to pass the points to.
+	 */
+	public static void decode(byte[] data, int count, PointVisitor visitor) {
+		if (count <= 0) {
+			return;
+		}
+
+		BitInput input = new BitInput(data);
+		long time = input.readBits(64);
+		long valueBits = input.readBits(64);
+		visitor.visit(time, Double.longBitsToDouble(valueBits));
+
+		long delta = 0;
+		int leadingZeros = 0;
+		int trailingZeros = 0;
+		for (int i = 1; i < count; i++) {
+			delta += readDeltaOfDelta(input);
+			time += delta;
+
+			if (input.readBit()) {
+				if (input.readBit()) {
+					leadingZeros = (int) input.readBits(5);
+					int significantBits = (int) input.readBits(6) + 1;
+					trailingZeros = 64 - leadingZeros - significantBits;
+				}
+				valueBits ^= input.readBits(64 - leadingZeros - trailingZeros) << trailingZeros;
+			}
+			visitor.visit(time, Double.longBitsToDouble(valueBits));
+		}
+	}
+
+	/**
+	 * Reads the delta of deltas.
+	 *
+	 * @param input
+	 *            Input to read from.
+	 * @return Delta of deltas.
+	 */
+	private static long readDeltaOfDelta(BitInput input) {
+		if (!input.readBit()) {
+			return 0;
+		}
+		for (int bits : DELTA_BUCKET_BITS) {
+			if (!input.readBit()) {
+				return signExtend(input.readBits(bits), bits);
+			}
+		}
+		return input.readBits(64);
+	}
+
+	/**
+	 * Sign extends the value of the given amount of bits.
+	 *
+	 * @param value
+	 *            Value.
+	 * @param bits
+	 *            Amount of bits of the value.
+	 * @return Sign extended value.
+	 */
+	private static long signExtend(long value, int bits) {
+		return (value << (64 - bits)) >> (64 - bits);
+	}
+
+	/**
+	 * Visitor of the decoded points.
+	 */
+	public interface PointVisitor {
+
+		/**
+		 * Visits one point.
+		 *
+		 * @param time
+		 *            Time stamp in milliseconds.
+		 * @param value
+		 *            Value.
+		 */
+		void visit(long time, double value);
+	}
+}
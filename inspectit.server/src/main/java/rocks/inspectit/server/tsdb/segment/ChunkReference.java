@@ -0,0 +1,123 @@
+package rocks.inspectit.server.tsdb.segment;
+
+/**
+ * Reference to a chunk stored in a {@link ChunkSegment}.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ChunkReference {
+
+	/**
+	 * Segment holding the chunk.
+	 */
+	private final ChunkSegment segment;
+
+	/**
+	 * Position of the compressed points in the segment.
+	 */
+	private final int position;
+
+	/**
+	 * Length of the compressed points in bytes.
+	 */
+	private final int length;
+
+	/**
+	 * Amount of points in the chunk.
+	 */
+	private final int count;
+
+	/**
+	 * Smallest time stamp in the chunk.
+	 */
+	private final long minTime;
+
+	/**
+	 * Largest time stamp in the chunk.
+	 */
+	private final long maxTime;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param segment
+	 *            Segment holding the chunk.
+	 * @param position
+	 *            Position of the compressed points in the segment.
+	 * @param length
+	 *            Length of the compressed points in bytes.
+	 * @param count
+	 *            Amount of points in the chunk.
+	 * @param minTime
+	 *            Smallest time stamp in the chunk.
+	 * @param maxTime
+	 *            Largest time stamp in the chunk.
+	 */
+	public ChunkReference(ChunkSegment segment, int position, int length, int count, long minTime, long maxTime) {
+		this.segment = segment;
+		this.position = position;
+		this.length = length;
+		this.count = count;
+		this.minTime = minTime;
+		this.maxTime = maxTime;
+	}
+
+	/**
+	 * Returns if the chunk has points in the given time range.
+	 *
+	 * @param from
+	 *            Start of the range, inclusive.
+	 * @param to
+	 *            End of the range, inclusive.
+	 * @return If the chunk has points in the given time range.
+	 */
+	public boolean overlaps(long from, long to) {
+		return (minTime <= to) && (maxTime >= from);
+	}
+
+	/**
+	 * Reads the compressed points from the segment.
+	 *
+	 * @return The compressed points or <code>null</code> if the segment has been deleted.
+	 */
+	public byte[] read() {
+		return segment.read(position, length);
+	}
+
+	/**
+	 * Gets {@link #segment}.
+	 *
+	 * @return {@link #segment}
+	 */
+	public ChunkSegment getSegment() {
+		return this.segment;
+	}
+
+	/**
+	 * Gets {@link #count}.
+	 *
+	 * @return {@link #count}
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Gets {@link #minTime}.
+	 *
+	 * @return {@link #minTime}
+	 */
+	public long getMinTime() {
+		return this.minTime;
+	}
+
+	/**
+	 * Gets {@link #maxTime}.
+	 *
+	 * @return {@link #maxTime}
+	 */
+	public long getMaxTime() {
+		return this.maxTime;
+	}
+}
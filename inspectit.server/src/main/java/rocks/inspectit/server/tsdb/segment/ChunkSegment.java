@@ -0,0 +1,329 @@
+package rocks.inspectit.server.tsdb.segment;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import rocks.inspectit.server.tsdb.chunk.TimeSeriesChunk;
+import rocks.inspectit.shared.all.util.MappedByteBufferUtils;
+
+/**
+ * Append-only segment file holding compressed chunks. The file is memory mapped with its complete
+ * capacity, chunks are appended until the capacity is exhausted. Each chunk is stored as a record
+ * with the measurement, tags and field of the series, the time range and the compressed points.
+ * The length of a record is written last, so that a record interrupted by a crash is ignored when
+ * the segment is opened again.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ChunkSegment {
+
+	/**
+	 * Mapped file.
+	 */
+	private final Path file;
+
+	/**
+	 * Mapped content of the file.
+	 */
+	private MappedByteBuffer buffer;
+
+	/**
+	 * Position where the next record is appended.
+	 */
+	private int position;
+
+	/**
+	 * Largest time stamp of all chunks in the segment.
+	 */
+	private long maxTime = Long.MIN_VALUE;
+
+	/**
+	 * If the segment has been deleted.
+	 */
+	private boolean deleted;
+
+	/**
+	 * Maps the file.
+	 *
+	 * @param file
+	 *            File.
+	 * @param capacity
+	 *            Capacity to map.
+	 * @throws IOException
+	 *             If the file can not be mapped.
+	 */
+	private ChunkSegment(Path file, long capacity) throws IOException {
+		this.file = file;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			this.buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+		}
+	}
+
+	/**
+	 * Creates a new empty segment.
+	 *
+	 * @param file
+	 *            File of the segment, must not exist.
+	 * @param capacity
+	 *            Capacity of the segment in bytes.
+	 * @return The segment.
+	 * @throws IOException
+	 *             If the file can not be created.
+	 */
+	public static ChunkSegment create(Path file, int capacity) throws IOException {
+		Files.createFile(file);
+		return new ChunkSegment(file, capacity);
+	}
+
+	/**
+	 * Opens an existing segment and passes all complete chunks to the visitor. New chunks are
+	 * appended after the last complete chunk.
+	 *
+	 * @param file
+	 *            File of the segment.
+	 * @param visitor
+	 *            Visitor for the stored chunks.
+	 * @return The segment.
+	 * @throws IOException
+	 *             If the file can not be read.
+	 */
+	public static ChunkSegment open(Path file, RecoveryVisitor visitor) throws IOException {
+		ChunkSegment segment = new ChunkSegment(file, Math.min(Files.size(file), Integer.MAX_VALUE));
+		segment.recover(visitor);
+		return segment;
+	}
+
+	/**
+	 * Reads all complete records from the start of the segment.
+	 *
+	 * @param visitor
+	 *            Visitor for the stored chunks.
+	 */
+	private synchronized void recover(RecoveryVisitor visitor) {
+		ByteBuffer reader = buffer.duplicate();
+		int recordStart = 0;
+		while ((recordStart + 4) <= reader.limit()) {
+			reader.position(recordStart);
+			int recordLength = reader.getInt();
+			if ((recordLength <= 0) || (recordLength > (reader.limit() - reader.position()))) {
+				break;
+			}
+
+			try {
+				String measurement = readString(reader);
+				int tagCount = reader.getShort();
+				Map<String, String> tags = new TreeMap<>();
+				for (int i = 0; i < tagCount; i++) {
+					tags.put(readString(reader), readString(reader));
+				}
+				String field = readString(reader);
+				int count = reader.getInt();
+				long minTime = reader.getLong();
+				long chunkMaxTime = reader.getLong();
+				int length = reader.getInt();
+
+				maxTime = Math.max(maxTime, chunkMaxTime);
+				visitor.recovered(measurement, tags, field, new ChunkReference(this, reader.position(), length, count, minTime, chunkMaxTime));
+			} catch (BufferUnderflowException | IllegalArgumentException e) { // NOPMD
+				break;
+			}
+			recordStart += 4 + recordLength;
+		}
+		position = recordStart;
+	}
+
+	/**
+	 * Appends the chunk to the segment.
+	 *
+	 * @param measurement
+	 *            Measurement of the series.
+	 * @param tags
+	 *            Tags of the series.
+	 * @param field
+	 *            Field of the series.
+	 * @param chunk
+	 *            Chunk to append.
+	 * @return Reference to the appended chunk or <code>null</code> if the segment has not enough
+	 *         space left or has been deleted.
+	 */
+	public synchronized ChunkReference append(String measurement, Map<String, String> tags, String field, TimeSeriesChunk chunk) {
+		if (deleted) {
+			return null;
+		}
+
+		byte[] data = chunk.toByteArray();
+		byte[] measurementBytes = measurement.getBytes(StandardCharsets.UTF_8);
+		byte[] fieldBytes = field.getBytes(StandardCharsets.UTF_8);
+		int recordLength = 2 + measurementBytes.length + 2 + 2 + fieldBytes.length + 4 + 8 + 8 + 4 + data.length;
+		for (Entry<String, String> tag : tags.entrySet()) {
+			recordLength += 2 + tag.getKey().getBytes(StandardCharsets.UTF_8).length + 2 + tag.getValue().getBytes(StandardCharsets.UTF_8).length;
+		}
+		if ((position + 4 + recordLength + 4) > buffer.capacity()) {
+			return null;
+		}
+
+		ByteBuffer writer = buffer.duplicate();
+		writer.position(position + 4);
+		writeString(writer, measurementBytes);
+		writer.putShort((short) tags.size());
+		for (Entry<String, String> tag : tags.entrySet()) {
+			writeString(writer, tag.getKey().getBytes(StandardCharsets.UTF_8));
+			writeString(writer, tag.getValue().getBytes(StandardCharsets.UTF_8));
+		}
+		writeString(writer, fieldBytes);
+		writer.putInt(chunk.getCount());
+		writer.putLong(chunk.getMinTime());
+		writer.putLong(chunk.getMaxTime());
+		writer.putInt(data.length);
+		int dataPosition = writer.position();
+		writer.put(data);
+		writer.putInt(writer.position(), 0);
+		writer.putInt(position, recordLength);
+
+		position += 4 + recordLength;
+		maxTime = Math.max(maxTime, chunk.getMaxTime());
+		return new ChunkReference(this, dataPosition, data.length, chunk.getCount(), chunk.getMinTime(), chunk.getMaxTime());
+	}
+
+	/**
+	 * Reads the bytes at the given position.
+	 *
+	 * @param dataPosition
+	 *            Position.
+	 * @param length
+	 *            Amount of bytes.
+	 * @return The bytes or <code>null</code> if the segment has been deleted.
+	 */
+	synchronized byte[] read(int dataPosition, int length) {
+		if (deleted) {
+			return null;
+		}
+		byte[] data = new byte[length];
+		ByteBuffer reader = buffer.duplicate();
+		reader.position(dataPosition);
+		reader.get(data);
+		return data;
+	}
+
+	/**
+	 * Forces the written chunks to the disk.
+	 */
+	public synchronized void force() {
+		if (!deleted) {
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Deletes the segment file. References to the chunks of the segment can not be read anymore.
+	 * The mapping is explicitly unmapped before the file is deleted, as operating systems like
+	 * Windows lock the mapped files. The buffer is only accessed while holding the segment lock
+	 * and the deleted flag is checked, thus the unmapped buffer is never read.
+	 *
+	 * @throws IOException
+	 *             If the file can not be deleted.
+	 */
+	public synchronized void delete() throws IOException {
+		deleted = true;
+		if (null != buffer) {
+			MappedByteBufferUtils.unmap(buffer);
+			buffer = null;
+		}
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Returns the amount of bytes used by the chunks.
+	 *
+	 * @return Returns the amount of bytes used by the chunks.
+	 */
+	public synchronized int getSize() {
+		return position;
+	}
+
+	/**
+	 * Gets {@link #maxTime}.
+	 *
+	 * @return {@link #maxTime}
+	 */
+	public synchronized long getMaxTime() {
+		return this.maxTime;
+	}
+
+	/**
+	 * Gets {@link #deleted}.
+	 *
+	 * @return {@link #deleted}
+	 */
+	public synchronized boolean isDeleted() {
+		return this.deleted;
+	}
+
+	/**
+	 * Gets {@link #file}.
+	 *
+	 * @return {@link #file}
+	 */
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Writes the string bytes prefixed with the length.
+	 *
+	 * @param writer
+	 *            Buffer to write to.
+	 * @param bytes
+	 *            String bytes.
+	 */
+	private static void writeString(ByteBuffer writer, byte[] bytes) {
+		writer.putShort((short) bytes.length);
+		writer.put(bytes);
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(ByteBuffer, byte[])}.
+	 *
+	 * @param reader
+	 *            Buffer to read from.
+	 * @return The string.
+	 */
+	private static String readString(ByteBuffer reader) {
+		int length = reader.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		reader.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Visitor of the chunks stored in a segment.
+	 */
+	public interface RecoveryVisitor {
+
+		/**
+		 * Visits one stored chunk.
+		 *
+		 * @param measurement
+		 *            Measurement of the series.
+		 * @param tags
+		 *            Tags of the series.
+		 * @param field
+		 *            Field of the series.
+		 * @param reference
+		 *            Reference to the chunk.
+		 */
+		void recovered(String measurement, Map<String, String> tags, String field, ChunkReference reference);
+	}
+}
@@ -32,4 +32,18 @@ public class CacheIdGenerator {
 		long id = nextId.incrementAndGet();
 		defaultData.setId(id);
 	}
+
+	/**
+	 * Makes sure that all IDs generated from now on are bigger than the given one. Needed when
+	 * objects with already assigned IDs are brought back into the cache.
+	 *
+	 * @param id
+	 *            ID that must not be generated again.
+	 */
+	public void ensureNextIdAbove(long id) {
+		long current = nextId.get();
+		while ((current < id) && !nextId.compareAndSet(current, id)) {
+			current = nextId.get();
+		}
+	}
 }
@@ -0,0 +1,190 @@
+package rocks.inspectit.server.util;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.all.exception.enumeration.QueryCursorErrorCodeEnum;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.cs.indexing.cursor.IQueryCursor;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
+
+/**
+ * Registry of the open {@link IQueryCursor}s. The services return only the first page of the
+ * query results and register the cursor here, so that the clients can read the next pages with the
+ * returned cursor id. Cursors that are completely read are removed automatically, cursors that are
+ * not read for longer than {@link #CURSOR_TIMEOUT} are periodically removed.
+ *
+ * @author Ivan Senic
+ *
+ */
+@Component
+public class QueryCursorRegistry {
+
+	/**
+	 * Time in milliseconds after which a cursor that has not been read is removed.
+	 */
+	static final long CURSOR_TIMEOUT = 300000;
+
+	/**
+	 * The rate of checking for expired cursors.
+	 */
+	private static final int CLEANUP_RATE = 60000;
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * Open cursors mapped by the cursor id.
+	 */
+	private final Map<Long, RegisteredCursor> cursors = new ConcurrentHashMap<>();
+
+	/**
+	 * Id generator for the cursors. Zero is reserved for the pages of closed cursors.
+	 */
+	private final AtomicLong idGenerator = new AtomicLong();
+
+	/**
+	 * Reads the first page from the given cursor. If the cursor has more elements it is
+	 * registered and the id of the cursor is set to the returned page.
+	 *
+	 * @param <E>
+	 *            Type of the elements.
+	 * @param cursor
+	 *            Cursor to read from.
+	 * @param pageSize
+	 *            Maximum amount of elements in the page.
+	 * @return First {@link QueryResultPage}.
+	 */
+	public <E> QueryResultPage<E> open(IQueryCursor<E> cursor, int pageSize) {
+		int offset = cursor.getPosition();
+		List<E> elements = cursor.next(pageSize);
+		long cursorId = 0;
+		if (cursor.hasNext()) {
+			cursorId = idGenerator.incrementAndGet();
+			cursors.put(Long.valueOf(cursorId), new RegisteredCursor(cursor));
+		}
+		return new QueryResultPage<>(cursorId, offset, cursor.getTotalSize(), elements);
+	}
+
+	/**
+	 * Reads the next page from the cursor with the given id. When the last page is read the cursor
+	 * is removed and the returned page has the cursor id <code>0</code>.
+	 *
+	 * @param <E>
+	 *            Type of the elements.
+	 * @param cursorId
+	 *            Id of the cursor.
+	 * @param pageSize
+	 *            Maximum amount of elements in the page.
+	 * @return Next {@link QueryResultPage}.
+	 * @throws BusinessException
+	 *             If the cursor with given id does not exist.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> QueryResultPage<E> next(long cursorId, int pageSize) throws BusinessException {
+		RegisteredCursor registeredCursor = cursors.get(Long.valueOf(cursorId));
+		if (null == registeredCursor) {
+			throw new BusinessException("Reading next page of the query cursor with id " + cursorId + ".", QueryCursorErrorCodeEnum.UNKNOWN_CURSOR);
+		}
+
+		registeredCursor.lastAccessTime = System.currentTimeMillis();
+		IQueryCursor<E> cursor = (IQueryCursor<E>) registeredCursor.cursor;
+		int offset;
+		List<E> elements;
+		synchronized (cursor) {
+			offset = cursor.getPosition();
+			elements = cursor.next(pageSize);
+		}
+		if (!cursor.hasNext()) {
+			cursors.remove(Long.valueOf(cursorId));
+			cursorId = 0;
+		}
+		return new QueryResultPage<>(cursorId, offset, cursor.getTotalSize(), elements);
+	}
+
+	/**
+	 * Closes the cursor with the given id. Does nothing if the cursor does not exist.
+	 *
+	 * @param cursorId
+	 *            Id of the cursor.
+	 */
+	public void close(long cursorId) {
+		cursors.remove(Long.valueOf(cursorId));
+	}
+
+	/**
+	 * Returns the amount of currently open cursors.
+	 *
+	 * @return Returns the amount of currently open cursors.
+	 */
+	public int getOpenCursorsCount() {
+		return cursors.size();
+	}
+
+	/**
+	 * Removes all cursors that have not been read for longer than {@link #CURSOR_TIMEOUT}.
+	 */
+	@Scheduled(fixedRate = CLEANUP_RATE)
+	public void removeExpiredCursors() {
+		removeCursorsNotAccessedSince(System.currentTimeMillis() - CURSOR_TIMEOUT);
+	}
+
+	/**
+	 * Removes all cursors that have not been read since the given time.
+	 *
+	 * @param time
+	 *            Time in milliseconds.
+	 */
+	void removeCursorsNotAccessedSince(long time) {
+		int removed = 0;
+		for (Iterator<RegisteredCursor> it = cursors.values().iterator(); it.hasNext();) {
+			if (it.next().lastAccessTime < time) {
+				it.remove();
+				removed++;
+			}
+		}
+		if ((removed > 0) && log.isDebugEnabled()) {
+			log.debug("|-Removed " + removed + " expired query cursor(s).");
+		}
+	}
+
+	/**
+	 * Holder of the registered cursor and its last access time.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private static class RegisteredCursor {
+
+		/**
+		 * Cursor.
+		 */
+		private final IQueryCursor<?> cursor;
+
+		/**
+		 * Last time the cursor has been read.
+		 */
+		private volatile long lastAccessTime;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param cursor
+		 *            Cursor.
+		 */
+		RegisteredCursor(IQueryCursor<?> cursor) {
+			this.cursor = cursor;
+			this.lastAccessTime = System.currentTimeMillis();
+		}
+	}
+
+}
@@ -4,7 +4,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -15,6 +16,7 @@ import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -24,9 +26,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.server.alerting.state.AlertingState;
@@ -80,12 +81,12 @@ public class AlertingSchedulerTest extends TestBase {
 		@SuppressWarnings({ "rawtypes", "unchecked" })
 		public void activate() {
 			ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
-			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES)).thenReturn(future);
+			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS)).thenReturn(future);
 			alertingScheduler.active = true;
 
 			alertingScheduler.updateState();
 
-			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES);
+			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS);
 			verifyNoMoreInteractions(executorService);
 			verifyZeroInteractions(thresholdChecker);
 			verifyZeroInteractions(future);
@@ -96,13 +97,13 @@ public class AlertingSchedulerTest extends TestBase {
 		public void activateWhenActive() {
 			ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
 			when(future.isDone()).thenReturn(false);
-			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES)).thenReturn(future);
+			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS)).thenReturn(future);
 			alertingScheduler.active = true;
 			alertingScheduler.updateState();
 
 			alertingScheduler.updateState();
 
-			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES);
+			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS);
 			verifyNoMoreInteractions(executorService);
 			verify(future).isDone();
 			verifyNoMoreInteractions(future);
@@ -114,13 +115,13 @@ public class AlertingSchedulerTest extends TestBase {
 		public void activateWhenInactive() {
 			ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
 			when(future.isDone()).thenReturn(true);
-			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES)).thenReturn(future);
+			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS)).thenReturn(future);
 			alertingScheduler.active = true;
 			alertingScheduler.updateState();
 
 			alertingScheduler.updateState();
 
-			verify(executorService, times(2)).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES);
+			verify(executorService, times(2)).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS);
 			verifyNoMoreInteractions(executorService);
 			verify(future).isDone();
 			verifyNoMoreInteractions(future);
@@ -132,14 +133,14 @@ public class AlertingSchedulerTest extends TestBase {
 		public void deactivateWhenActive() {
 			ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
 			when(future.isDone()).thenReturn(false);
-			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES)).thenReturn(future);
+			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS)).thenReturn(future);
 			alertingScheduler.active = true;
 			alertingScheduler.updateState();
 			alertingScheduler.active = false;
 
 			alertingScheduler.updateState();
 
-			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES);
+			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS);
 			verifyNoMoreInteractions(executorService);
 			verify(future).isDone();
 			verify(future).cancel(false);
@@ -152,7 +153,7 @@ public class AlertingSchedulerTest extends TestBase {
 		public void deactivateWhenInactive() {
 			ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
 			when(future.isDone()).thenReturn(false, true);
-			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES)).thenReturn(future);
+			when(executorService.scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS)).thenReturn(future);
 			alertingScheduler.active = true;
 			alertingScheduler.updateState();
 			alertingScheduler.active = false;
@@ -160,7 +161,7 @@ public class AlertingSchedulerTest extends TestBase {
 
 			alertingScheduler.updateState();
 
-			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.MINUTES);
+			verify(executorService).scheduleAtFixedRate(alertingScheduler, 0L, AlertingScheduler.CHECK_INTERVAL, TimeUnit.SECONDS);
 			verifyNoMoreInteractions(executorService);
 			verify(future, times(2)).isDone();
 			verify(future).cancel(false);
@@ -178,29 +179,21 @@ public class AlertingSchedulerTest extends TestBase {
 		public void checkExistingAlertingStates() throws Exception {
 			AlertingDefinition definitionOne = mock(AlertingDefinition.class);
 			AlertingDefinition definitionTwo = mock(AlertingDefinition.class);
-			when(definitionOne.getTimeRange(any(TimeUnit.class))).thenReturn(1L);
-			when(definitionTwo.getTimeRange(any(TimeUnit.class))).thenReturn(3600000L);
 			alertingScheduler.onApplicationEvent(new AlertingDefinitionCreatedEvent(this, definitionOne));
 			alertingScheduler.onApplicationEvent(new AlertingDefinitionCreatedEvent(this, definitionTwo));
-			doAnswer(new Answer<Void>() {
-				@Override
-				public Void answer(InvocationOnMock invocation) throws Throwable {
-					((AlertingState) invocation.getArguments()[0]).setLastCheckTime(System.currentTimeMillis());
-					return null;
-				}
-			}).when(thresholdChecker).checkThreshold(any(AlertingState.class));
-
-			alertingScheduler.run(); // both are checked
-			Thread.sleep(10);
-			alertingScheduler.run(); // only first is checked
+
+			alertingScheduler.run();
+			alertingScheduler.run();
 
 			ArgumentCaptor<AlertingState> stateCaptor = ArgumentCaptor.forClass(AlertingState.class);
-			verify(thresholdChecker, times(3)).checkThreshold(stateCaptor.capture());
+			verify(thresholdChecker, times(2)).seedThresholds(anyCollectionOf(AlertingState.class));
+			verify(thresholdChecker, times(4)).checkThreshold(stateCaptor.capture());
 			verifyNoMoreInteractions(thresholdChecker);
 			verifyZeroInteractions(executorService);
 			assertThat(stateCaptor.getAllValues().get(0).getAlertingDefinition(), equalTo(definitionOne));
 			assertThat(stateCaptor.getAllValues().get(1).getAlertingDefinition(), equalTo(definitionTwo));
 			assertThat(stateCaptor.getAllValues().get(2).getAlertingDefinition(), equalTo(definitionOne));
+			assertThat(stateCaptor.getAllValues().get(3).getAlertingDefinition(), equalTo(definitionTwo));
 		}
 
 		@Test
@@ -211,6 +204,20 @@ public class AlertingSchedulerTest extends TestBase {
 			verifyZeroInteractions(executorService);
 		}
 
+		@Test
+		public void seedingThrowsException() throws Exception {
+			AlertingDefinition definitionOne = mock(AlertingDefinition.class);
+			alertingScheduler.onApplicationEvent(new AlertingDefinitionCreatedEvent(this, definitionOne));
+			doThrow(RuntimeException.class).when(thresholdChecker).seedThresholds(anyCollectionOf(AlertingState.class));
+
+			alertingScheduler.run();
+
+			verify(thresholdChecker).seedThresholds(anyCollectionOf(AlertingState.class));
+			verify(thresholdChecker).checkThreshold(any(AlertingState.class));
+			verifyNoMoreInteractions(thresholdChecker);
+			verifyZeroInteractions(executorService);
+		}
+
 		@Test
 		public void thresholdCheckerThrowsException() throws Exception {
 			AlertingDefinition definitionOne = mock(AlertingDefinition.class);
@@ -219,12 +226,97 @@ public class AlertingSchedulerTest extends TestBase {
 
 			alertingScheduler.run();
 
+			verify(thresholdChecker).seedThresholds(anyCollectionOf(AlertingState.class));
 			verify(thresholdChecker).checkThreshold(any(AlertingState.class));
 			verifyNoMoreInteractions(thresholdChecker);
 			verifyZeroInteractions(executorService);
 		}
 	}
 
+	/**
+	 * Test the {@link AlertingScheduler#onRecords(String)} method.
+	 */
+	public static class OnRecords extends AlertingSchedulerTest {
+
+		@Mock
+		AlertingDefinition definition;
+
+		@BeforeMethod
+		public void init() {
+			when(definition.getMeasurement()).thenReturn("measurement");
+			when(definition.getField()).thenReturn("field");
+			when(definition.getTags()).thenReturn(Collections.singletonMap("tag", "value"));
+			alertingScheduler.active = true;
+			alertingScheduler.onApplicationEvent(new AlertingDefinitionCreatedEvent(this, definition));
+		}
+
+		@Test
+		public void valueAdded() {
+			alertingScheduler.onRecords("measurement,other=x,tag=value field=3i,second=1.0 1\n");
+
+			ArgumentCaptor<AlertingState> stateCaptor = ArgumentCaptor.forClass(AlertingState.class);
+			verify(thresholdChecker).addValue(stateCaptor.capture(), eq(3d));
+			verifyNoMoreInteractions(thresholdChecker);
+			assertThat(stateCaptor.getValue().getAlertingDefinition(), equalTo(definition));
+		}
+
+		@Test
+		public void multipleLines() {
+			alertingScheduler.onRecords("other field=1i 1\nmeasurement,tag=value field=2.5 1\nmeasurement,tag=value field=4i 2\n");
+
+			verify(thresholdChecker).addValue(any(AlertingState.class), eq(2.5d));
+			verify(thresholdChecker).addValue(any(AlertingState.class), eq(4d));
+			verifyNoMoreInteractions(thresholdChecker);
+		}
+
+		@Test
+		public void tagNotMatching() {
+			alertingScheduler.onRecords("measurement,tag=other field=3i 1\n");
+
+			verifyZeroInteractions(thresholdChecker);
+		}
+
+		@Test
+		public void tagMissing() {
+			alertingScheduler.onRecords("measurement field=3i 1\n");
+
+			verifyZeroInteractions(thresholdChecker);
+		}
+
+		@Test
+		public void fieldMissing() {
+			alertingScheduler.onRecords("measurement,tag=value other=3i 1\n");
+
+			verifyZeroInteractions(thresholdChecker);
+		}
+
+		@Test
+		public void otherMeasurement() {
+			alertingScheduler.onRecords("other,tag=value field=3i 1\n");
+
+			verifyZeroInteractions(thresholdChecker);
+		}
+
+		@Test
+		public void definitionDeleted() {
+			when(definition.getId()).thenReturn("id");
+			alertingScheduler.onApplicationEvent(new AlertingDefinitionDeletedEvent(this, definition));
+
+			alertingScheduler.onRecords("measurement,tag=value field=3i 1\n");
+
+			verifyZeroInteractions(thresholdChecker);
+		}
+
+		@Test
+		public void inactive() {
+			alertingScheduler.active = false;
+
+			alertingScheduler.onRecords("measurement,tag=value field=3i 1\n");
+
+			verifyZeroInteractions(thresholdChecker);
+		}
+	}
+
 	/**
 	 * Test the
 	 * {@link AlertingScheduler#onApplicationEvent(rocks.inspectit.server.ci.event.AbstractAlertingDefinitionEvent)}
@@ -263,7 +355,10 @@ public class AlertingSchedulerTest extends TestBase {
 
 			alertingScheduler.onApplicationEvent(event);
 
-			verifyZeroInteractions(thresholdChecker, executorService, definitionOne, definitionTwo);
+			verify(definitionOne).getMeasurement();
+			verify(definitionTwo).getMeasurement();
+			verifyNoMoreInteractions(definitionOne, definitionTwo);
+			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(2));
 			assertThat(getAlertingStates().get(0).getAlertingDefinition(), equalTo(definitionOne));
 			assertThat(getAlertingStates().get(1).getAlertingDefinition(), equalTo(definitionTwo));
@@ -275,7 +370,9 @@ public class AlertingSchedulerTest extends TestBase {
 
 			alertingScheduler.onApplicationEvent(event);
 
-			verifyZeroInteractions(thresholdChecker, executorService, definitionOne);
+			verify(definitionOne).getMeasurement();
+			verifyNoMoreInteractions(definitionOne);
+			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(1));
 			assertThat(getAlertingStates().get(0).getAlertingDefinition(), equalTo(definitionOne));
 		}
@@ -290,6 +387,7 @@ public class AlertingSchedulerTest extends TestBase {
 			alertingScheduler.onApplicationEvent(event);
 
 			verify(definitionOne, times(2)).getId();
+			verify(definitionOne).getMeasurement();
 			verifyNoMoreInteractions(definitionOne);
 			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(0));
@@ -310,6 +408,7 @@ public class AlertingSchedulerTest extends TestBase {
 			ArgumentCaptor<AlertClosingReason> reasonCapture = ArgumentCaptor.forClass(AlertClosingReason.class);
 			verify(alertMock, times(1)).close(any(Long.class), reasonCapture.capture());
 			verify(definitionOne, times(2)).getId();
+			verify(definitionOne).getMeasurement();
 			verifyNoMoreInteractions(definitionOne);
 			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(0));
@@ -327,6 +426,7 @@ public class AlertingSchedulerTest extends TestBase {
 
 			verify(definitionOne).getId();
 			verify(definitionTwo).getId();
+			verify(definitionOne, times(2)).getMeasurement();
 			verifyNoMoreInteractions(definitionOne, definitionTwo);
 			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(1));
@@ -344,6 +444,8 @@ public class AlertingSchedulerTest extends TestBase {
 
 			verify(definitionOne).getId();
 			verify(definitionTwo).getId();
+			verify(definitionOne).getMeasurement();
+			verify(definitionTwo).getMeasurement();
 			verifyNoMoreInteractions(definitionOne, definitionTwo);
 			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(1));
@@ -364,6 +466,7 @@ public class AlertingSchedulerTest extends TestBase {
 
 			verify(alertMock, times(1)).setAlertingDefinition(definitionOne);
 			verify(definitionOne, times(2)).getId();
+			verify(definitionOne, times(2)).getMeasurement();
 			verifyNoMoreInteractions(definitionOne);
 			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(1));
@@ -382,6 +485,7 @@ public class AlertingSchedulerTest extends TestBase {
 			assertThat(getAlertingStates().get(0).getAlertingDefinition(), equalTo(definitionOne));
 			verify(definitionOne).getId();
 			verify(definitionTwo).getId();
+			verify(definitionOne, times(2)).getMeasurement();
 			verifyNoMoreInteractions(definitionOne, definitionTwo);
 			verifyZeroInteractions(thresholdChecker, executorService);
 			assertThat(getAlertingStates(), hasSize(1));
@@ -2,7 +2,12 @@ package rocks.inspectit.server.alerting;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -10,12 +15,13 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import org.influxdb.dto.QueryResult;
 import org.influxdb.dto.QueryResult.Result;
 import org.influxdb.dto.QueryResult.Series;
-import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.slf4j.Logger;
@@ -24,7 +30,10 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.server.alerting.state.AlertingState;
 import rocks.inspectit.server.influx.dao.InfluxDBDao;
+import rocks.inspectit.server.tsdb.Aggregation;
+import rocks.inspectit.server.tsdb.TimeSeriesStore;
 import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.all.externalservice.ExternalServiceStatus;
 import rocks.inspectit.shared.all.testbase.TestBase;
 import rocks.inspectit.shared.cs.ci.AlertingDefinition;
 import rocks.inspectit.shared.cs.ci.AlertingDefinition.ThresholdType;
@@ -50,6 +59,9 @@ public class ThresholdCheckerTest extends TestBase {
 	@Mock
 	AlertingStateLifecycleManager stateManager;
 
+	@Mock
+	TimeSeriesStore timeSeriesStore;
+
 	/**
 	 * Tests the
 	 * {@link ThresholdChecker#checkThreshold(rocks.inspectit.server.alerting.state.AlertingState)}
@@ -59,12 +71,11 @@ public class ThresholdCheckerTest extends TestBase {
 		@Mock
 		AlertingDefinition alertingDefinition;
 
-		@Mock
-		AlertingState alertingState;
-
 		@Mock
 		QueryResult queryResult;
 
+		AlertingState alertingState;
+
 		@BeforeMethod
 		public void buildQueryResult() {
 			Object[] values = { "12:00", 10D };
@@ -74,182 +85,292 @@ public class ThresholdCheckerTest extends TestBase {
 			Result result = new Result();
 			result.setSeries(Arrays.asList(series));
 			when(queryResult.getResults()).thenReturn(Arrays.asList(result));
+			when(alertingDefinition.getTimeRange(TimeUnit.MILLISECONDS)).thenReturn(60000L);
+			when(alertingDefinition.getTags()).thenReturn(Collections.<String, String> emptyMap());
+			alertingState = new AlertingState(alertingDefinition);
 		}
 
 		@Test
-		public void noData() throws BusinessException, Exception {
+		public void seedNoData() throws BusinessException, Exception {
 			long time = System.currentTimeMillis();
 			when(influxDao.isConnected()).thenReturn(true);
 			when(influxDao.query(any(String.class))).thenReturn(new QueryResult());
-			when(alertingState.getAlertingDefinition()).thenReturn(alertingDefinition);
 
 			thresholdChecker.checkThreshold(alertingState);
 
-			ArgumentCaptor<Long> timeCaptor = ArgumentCaptor.forClass(Long.class);
-			verify(alertingState, times(2)).getLastCheckTime();
-			verify(alertingState).setLastCheckTime(timeCaptor.capture());
-			verify(alertingState).getAlertingDefinition();
-			assertThat(timeCaptor.getValue(), greaterThanOrEqualTo(time));
 			verify(influxDao).query(any(String.class));
-			verify(influxDao).isConnected();
 			verify(stateManager).noData(alertingState);
-			verify(alertingDefinition).getThresholdType();
-			verify(alertingDefinition).getField();
-			verify(alertingDefinition).getTags();
-			verify(alertingDefinition).getMeasurement();
-			verify(alertingDefinition).getTimeRange(TimeUnit.MILLISECONDS);
-			verifyNoMoreInteractions(influxDao, alertingState, stateManager, alertingDefinition);
+			verifyNoMoreInteractions(stateManager);
+			assertThat(alertingState.getLastCheckTime(), greaterThanOrEqualTo(time));
 		}
 
 		@Test
-		public void noViolationUpperThreshold() throws BusinessException, Exception {
-			long time = System.currentTimeMillis();
+		public void seedNoViolationUpperThreshold() throws BusinessException, Exception {
 			when(influxDao.isConnected()).thenReturn(true);
 			when(influxDao.query(any(String.class))).thenReturn(queryResult);
-			when(alertingState.getAlertingDefinition()).thenReturn(alertingDefinition);
 			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.UPPER_THRESHOLD);
 			when(alertingDefinition.getThreshold()).thenReturn(15D);
 
 			thresholdChecker.checkThreshold(alertingState);
 
-			ArgumentCaptor<Long> timeCaptor = ArgumentCaptor.forClass(Long.class);
-			verify(alertingState, times(2)).getLastCheckTime();
-			verify(alertingState).setLastCheckTime(timeCaptor.capture());
-			verify(alertingState, times(2)).getAlertingDefinition();
-			assertThat(timeCaptor.getValue(), greaterThanOrEqualTo(time));
-			verify(influxDao).query(any(String.class));
-			verify(influxDao).isConnected();
 			verify(stateManager).valid(alertingState);
-			verify(alertingDefinition, times(2)).getThresholdType();
-			verify(alertingDefinition).getThreshold();
-			verify(alertingDefinition).getField();
-			verify(alertingDefinition).getTags();
-			verify(alertingDefinition).getMeasurement();
-			verify(alertingDefinition).getTimeRange(TimeUnit.MILLISECONDS);
-			verifyNoMoreInteractions(influxDao, alertingState, stateManager, alertingDefinition);
+			verifyNoMoreInteractions(stateManager);
 		}
 
 		@Test
-		public void noViolationLowerThreshold() throws BusinessException, Exception {
-			long time = System.currentTimeMillis();
+		public void seedNoViolationLowerThreshold() throws BusinessException, Exception {
 			when(influxDao.isConnected()).thenReturn(true);
 			when(influxDao.query(any(String.class))).thenReturn(queryResult);
-			when(alertingState.getAlertingDefinition()).thenReturn(alertingDefinition);
 			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.LOWER_THRESHOLD);
 			when(alertingDefinition.getThreshold()).thenReturn(5D);
 
 			thresholdChecker.checkThreshold(alertingState);
 
-			ArgumentCaptor<Long> timeCaptor = ArgumentCaptor.forClass(Long.class);
-			verify(alertingState, times(2)).getLastCheckTime();
-			verify(alertingState).setLastCheckTime(timeCaptor.capture());
-			verify(alertingState, times(2)).getAlertingDefinition();
-			assertThat(timeCaptor.getValue(), greaterThanOrEqualTo(time));
-			verify(influxDao).query(any(String.class));
-			verify(influxDao).isConnected();
 			verify(stateManager).valid(alertingState);
-			verify(alertingDefinition, times(2)).getThresholdType();
-			verify(alertingDefinition).getThreshold();
-			verify(alertingDefinition).getField();
-			verify(alertingDefinition).getTags();
-			verify(alertingDefinition).getMeasurement();
-			verify(alertingDefinition).getTimeRange(TimeUnit.MILLISECONDS);
-			verifyNoMoreInteractions(influxDao, alertingState, stateManager, alertingDefinition);
+			verifyNoMoreInteractions(stateManager);
 		}
 
 		@Test
-		public void violationUpperThreshold() throws BusinessException, Exception {
-			long time = System.currentTimeMillis();
+		public void seedViolationUpperThreshold() throws BusinessException, Exception {
 			when(influxDao.isConnected()).thenReturn(true);
 			when(influxDao.query(any(String.class))).thenReturn(queryResult);
-			when(alertingState.getAlertingDefinition()).thenReturn(alertingDefinition);
 			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.UPPER_THRESHOLD);
 			when(alertingDefinition.getThreshold()).thenReturn(5D);
 
 			thresholdChecker.checkThreshold(alertingState);
 
-			ArgumentCaptor<Long> timeCaptor = ArgumentCaptor.forClass(Long.class);
-			verify(alertingState, times(2)).getLastCheckTime();
-			verify(alertingState).setLastCheckTime(timeCaptor.capture());
-			verify(alertingState, times(2)).getAlertingDefinition();
-			assertThat(timeCaptor.getValue(), greaterThanOrEqualTo(time));
-			verify(influxDao).query(any(String.class));
-			verify(influxDao).isConnected();
 			verify(stateManager).violation(alertingState, 10D);
-			verify(alertingDefinition, times(2)).getThresholdType();
-			verify(alertingDefinition).getThreshold();
-			verify(alertingDefinition).getField();
-			verify(alertingDefinition).getTags();
-			verify(alertingDefinition).getMeasurement();
-			verify(alertingDefinition).getTimeRange(TimeUnit.MILLISECONDS);
-			verifyNoMoreInteractions(influxDao, alertingState, stateManager, alertingDefinition);
+			verifyNoMoreInteractions(stateManager);
 		}
 
 		@Test
-		public void violationLowerThreshold() throws BusinessException, Exception {
-			long time = System.currentTimeMillis();
+		public void seedViolationLowerThreshold() throws BusinessException, Exception {
 			when(influxDao.isConnected()).thenReturn(true);
 			when(influxDao.query(any(String.class))).thenReturn(queryResult);
-			when(alertingState.getAlertingDefinition()).thenReturn(alertingDefinition);
 			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.LOWER_THRESHOLD);
 			when(alertingDefinition.getThreshold()).thenReturn(15D);
 
 			thresholdChecker.checkThreshold(alertingState);
 
-			ArgumentCaptor<Long> timeCaptor = ArgumentCaptor.forClass(Long.class);
-			verify(alertingState).setLastCheckTime(timeCaptor.capture());
-			verify(alertingState, times(2)).getLastCheckTime();
-			verify(alertingState, times(2)).getAlertingDefinition();
-			assertThat(timeCaptor.getValue(), greaterThanOrEqualTo(time));
-			verify(influxDao).query(any(String.class));
-			verify(influxDao).isConnected();
 			verify(stateManager).violation(alertingState, 10D);
-			verify(alertingDefinition, times(2)).getThresholdType();
-			verify(alertingDefinition).getThreshold();
-			verify(alertingDefinition).getField();
-			verify(alertingDefinition).getTags();
-			verify(alertingDefinition).getMeasurement();
-			verify(alertingDefinition).getTimeRange(TimeUnit.MILLISECONDS);
-			verifyNoMoreInteractions(influxDao, alertingState, stateManager, alertingDefinition);
+			verifyNoMoreInteractions(stateManager);
 		}
 
 		@Test
-		public void neverChecked() throws BusinessException, Exception {
-			long time = System.currentTimeMillis();
+		public void seededOnlyOnce() throws BusinessException, Exception {
 			when(influxDao.isConnected()).thenReturn(true);
 			when(influxDao.query(any(String.class))).thenReturn(new QueryResult());
-			when(alertingState.getAlertingDefinition()).thenReturn(alertingDefinition);
-			when(alertingState.getLastCheckTime()).thenReturn(-1L);
 
+			thresholdChecker.checkThreshold(alertingState);
 			thresholdChecker.checkThreshold(alertingState);
 
-			ArgumentCaptor<Long> currentTimeCaptor = ArgumentCaptor.forClass(Long.class);
-			verify(alertingState, times(2)).getLastCheckTime();
-			verify(alertingState, times(2)).setLastCheckTime(currentTimeCaptor.capture());
-			verify(alertingState, times(2)).getAlertingDefinition();
-			assertThat(currentTimeCaptor.getValue(), greaterThanOrEqualTo(time));
-			verify(alertingDefinition, times(2)).getTimeRange(TimeUnit.MILLISECONDS);
-			verify(influxDao).query(any(String.class));
+			verify(influxDao, times(2)).getServiceStatus();
 			verify(influxDao).isConnected();
+			verify(influxDao).query(any(String.class));
+			verifyNoMoreInteractions(influxDao);
 			verify(stateManager).noData(alertingState);
-			verify(alertingDefinition).getThresholdType();
-			verify(alertingDefinition).getField();
-			verify(alertingDefinition).getTags();
-			verify(alertingDefinition).getMeasurement();
-			verify(alertingDefinition, times(2)).getTimeRange(TimeUnit.MILLISECONDS);
-			verifyNoMoreInteractions(influxDao, alertingState, stateManager, alertingDefinition);
+			verifyNoMoreInteractions(stateManager);
+		}
+
+		@Test
+		public void seedFromStoreInfluxDisconnected() throws BusinessException, Exception {
+			when(influxDao.isConnected()).thenReturn(false);
+			when(timeSeriesStore.isActive()).thenReturn(true);
+			when(timeSeriesStore.query(any(String.class), any(String.class), eq(Collections.<String, String> emptyMap()), anyLong(), anyLong(), eq(Aggregation.MAX), eq(0L))).thenReturn(queryResult);
+			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.UPPER_THRESHOLD);
+			when(alertingDefinition.getThreshold()).thenReturn(5D);
+
+			thresholdChecker.checkThreshold(alertingState);
+
+			verify(influxDao, never()).query(any(String.class));
+			verify(stateManager).violation(alertingState, 10D);
+			verifyNoMoreInteractions(stateManager);
+		}
+
+		@Test
+		public void streamedViolationReportedOnce() throws BusinessException, Exception {
+			when(influxDao.isConnected()).thenReturn(false);
+			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.UPPER_THRESHOLD);
+			when(alertingDefinition.getThreshold()).thenReturn(5D);
+			thresholdChecker.checkThreshold(alertingState);
+
+			thresholdChecker.addValue(alertingState, 3D);
+			thresholdChecker.addValue(alertingState, 20D);
+			thresholdChecker.addValue(alertingState, 8D);
+			thresholdChecker.checkThreshold(alertingState);
+			thresholdChecker.addValue(alertingState, 30D);
+			thresholdChecker.checkThreshold(alertingState);
+
+			verify(influxDao, times(3)).getServiceStatus();
+			verify(influxDao).isConnected();
+			verifyNoMoreInteractions(influxDao);
+			verify(stateManager).violation(alertingState, 20D);
+			verifyNoMoreInteractions(stateManager);
+		}
+
+		@Test
+		public void streamedViolationLowerThreshold() throws BusinessException, Exception {
+			when(influxDao.isConnected()).thenReturn(false);
+			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.LOWER_THRESHOLD);
+			when(alertingDefinition.getThreshold()).thenReturn(5D);
+			thresholdChecker.checkThreshold(alertingState);
+
+			thresholdChecker.addValue(alertingState, 6D);
+			thresholdChecker.addValue(alertingState, 2D);
+			thresholdChecker.addValue(alertingState, 1D);
+			thresholdChecker.checkThreshold(alertingState);
+
+			verify(stateManager).violation(alertingState, 1D);
+			verifyNoMoreInteractions(stateManager);
 		}
 
 		@Test
-		public void influxDisconnected() throws BusinessException, Exception {
+		public void streamedNoViolationWaitsForInterval() throws BusinessException, Exception {
 			when(influxDao.isConnected()).thenReturn(false);
+			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.UPPER_THRESHOLD);
+			when(alertingDefinition.getThreshold()).thenReturn(5D);
+			thresholdChecker.checkThreshold(alertingState);
+
+			thresholdChecker.addValue(alertingState, 3D);
+			thresholdChecker.checkThreshold(alertingState);
+
+			verifyZeroInteractions(stateManager);
+			assertThat(alertingState.getLastCheckTime(), is(-1L));
+		}
 
+		@Test
+		public void streamedIntervalCompleted() throws BusinessException, Exception {
+			long time = System.currentTimeMillis();
+			when(influxDao.isConnected()).thenReturn(false);
+			when(alertingDefinition.getTimeRange(TimeUnit.MILLISECONDS)).thenReturn(0L);
+			when(alertingDefinition.getThresholdType()).thenReturn(ThresholdType.UPPER_THRESHOLD);
+			when(alertingDefinition.getThreshold()).thenReturn(5D);
+
+			thresholdChecker.addValue(alertingState, 3D);
+			thresholdChecker.checkThreshold(alertingState);
+			thresholdChecker.checkThreshold(alertingState);
+			thresholdChecker.addValue(alertingState, 7D);
 			thresholdChecker.checkThreshold(alertingState);
 
+			InOrder inOrder = inOrder(stateManager);
+			inOrder.verify(stateManager).valid(alertingState);
+			inOrder.verify(stateManager).noData(alertingState);
+			inOrder.verify(stateManager).violation(alertingState, 7D);
+			verifyNoMoreInteractions(stateManager);
+			assertThat(alertingState.getLastCheckTime(), greaterThanOrEqualTo(time));
+		}
+
+		@Test
+		public void influxDisabled() throws BusinessException, Exception {
+			when(influxDao.getServiceStatus()).thenReturn(ExternalServiceStatus.DISABLED);
+
+			thresholdChecker.checkThreshold(alertingState);
+
+			verify(influxDao).getServiceStatus();
+			verifyNoMoreInteractions(influxDao);
+			verifyZeroInteractions(stateManager);
+			assertThat(alertingState.getThresholdWindow().isStarted(), is(false));
+		}
+
+	}
+
+	/**
+	 * Tests the {@link ThresholdChecker#seedThresholds(java.util.Collection)} method.
+	 */
+	public static class SeedThresholds extends ThresholdCheckerTest {
+
+		static AlertingState createState(String field, String... tags) throws BusinessException {
+			AlertingDefinition alertingDefinition = new AlertingDefinition();
+			alertingDefinition.setMeasurement("m");
+			alertingDefinition.setField(field);
+			alertingDefinition.setThresholdType(ThresholdType.UPPER_THRESHOLD);
+			alertingDefinition.setThreshold(5D);
+			alertingDefinition.setTimeRange(10L, TimeUnit.MINUTES);
+			for (int i = 0; i < tags.length; i += 2) {
+				alertingDefinition.putTag(tags[i], tags[i + 1]);
+			}
+			return new AlertingState(alertingDefinition);
+		}
+
+		static Series createSeries(String tagValue, double value) {
+			Series series = new Series();
+			series.setTags(Collections.singletonMap("a", tagValue));
+			series.setColumns(Arrays.asList("time", "value"));
+			series.setValues(Arrays.asList(Arrays.<Object> asList("12:00", value)));
+			return series;
+		}
+
+		@Test
+		public void groupedAndFannedOut() throws BusinessException {
+			AlertingState one = createState("f", "a", "1");
+			AlertingState two = createState("f", "a", "2");
+			AlertingState all = createState("f");
+			AlertingState unknown = createState("f", "a", "3");
+			AlertingState otherField = createState("g", "a", "1");
+			Result result = new Result();
+			result.setSeries(Arrays.asList(createSeries("1", 10D), createSeries("2", 3D)));
+			QueryResult queryResult = new QueryResult();
+			queryResult.setResults(Arrays.asList(result));
+			when(influxDao.isConnected()).thenReturn(true);
+			when(influxDao.query(any(String.class))).thenReturn(queryResult);
+
+			thresholdChecker.seedThresholds(Arrays.asList(one, two, all, unknown, otherField));
+
 			verify(influxDao).isConnected();
+			verify(influxDao, times(2)).query(any(String.class));
 			verifyNoMoreInteractions(influxDao);
-			verifyZeroInteractions(stateManager, alertingState);
+			for (AlertingState state : Arrays.asList(one, two, all, unknown, otherField)) {
+				assertThat(state.getThresholdWindow().isStarted(), is(true));
+				thresholdChecker.checkThreshold(state);
+			}
+			verify(stateManager).violation(one, 10D);
+			verify(stateManager).valid(two);
+			verify(stateManager).violation(all, 10D);
+			verify(stateManager).noData(unknown);
+			verify(stateManager).violation(otherField, 10D);
+			verifyNoMoreInteractions(stateManager);
+		}
+
+		@Test
+		public void startedNotSeeded() throws BusinessException {
+			AlertingState one = createState("f", "a", "1");
+			one.getThresholdWindow().start(System.currentTimeMillis());
+
+			thresholdChecker.seedThresholds(Collections.singletonList(one));
+
+			verifyZeroInteractions(influxDao, stateManager);
 		}
 
+		@Test
+		public void seededFromStore() throws BusinessException {
+			AlertingState one = createState("f", "a", "1");
+			Result result = new Result();
+			result.setSeries(Arrays.asList(createSeries("1", 10D)));
+			QueryResult queryResult = new QueryResult();
+			queryResult.setResults(Arrays.asList(result));
+			when(influxDao.isConnected()).thenReturn(false);
+			when(timeSeriesStore.isActive()).thenReturn(true);
+			when(timeSeriesStore.query(eq("m"), eq("f"), eq(Collections.singletonMap("a", "1")), anyLong(), anyLong(), eq(Aggregation.MAX), eq(0L))).thenReturn(queryResult);
+
+			thresholdChecker.seedThresholds(Collections.singletonList(one));
+			thresholdChecker.checkThreshold(one);
+
+			verify(influxDao, never()).query(any(String.class));
+			verify(stateManager).violation(one, 10D);
+			verifyNoMoreInteractions(stateManager);
+		}
+
+		@Test
+		public void influxDisconnected() throws BusinessException {
+			AlertingState one = createState("f", "a", "1");
+			when(influxDao.isConnected()).thenReturn(false);
+
+			thresholdChecker.seedThresholds(Collections.singletonList(one));
+
+			verify(influxDao).isConnected();
+			verifyNoMoreInteractions(influxDao);
+			verifyZeroInteractions(stateManager);
+			assertThat(one.getThresholdWindow().isStarted(), is(false));
+		}
 	}
 }
@@ -1,7 +1,11 @@
 package rocks.inspectit.server.cache.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.atLeast;
@@ -10,6 +14,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 
@@ -60,6 +66,7 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 		buffer = new AtomicBuffer<>();
 		buffer.bufferProperties = bufferProperties;
 		buffer.objectSizes = objectSizes;
+		buffer.sizeEstimator = new ObjectSizesBufferSizeEstimator(objectSizes);
 		buffer.indexingTree = indexingTree;
 		buffer.log = LoggerFactory.getLogger(AtomicBuffer.class);
 		when(bufferProperties.getIndexingTreeCleaningThreads()).thenReturn(1);
@@ -82,6 +89,25 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 		assertThat(element1.getNextElement(), is(equalTo(element2)));
 	}
 
+	/**
+	 * Tests that iteration passes all elements from the oldest to the newest one.
+	 */
+	@Test
+	public void forEachElement() {
+		DefaultData defaultData1 = mock(DefaultData.class);
+		DefaultData defaultData2 = mock(DefaultData.class);
+		final List<DefaultData> iterated = new ArrayList<>();
+
+		buffer.forEachElement(iterated::add);
+		assertThat(iterated, is(empty()));
+
+		buffer.put(new BufferElement<>(defaultData1));
+		buffer.put(new BufferElement<>(defaultData2));
+		buffer.forEachElement(iterated::add);
+
+		assertThat(iterated, contains(defaultData1, defaultData2));
+	}
+
 	/**
 	 * Tests that eviction will remove right amount of elements.
 	 *
@@ -131,6 +157,48 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 		assertThat(buffer.getEvictedElemenets(), is(elements / 2));
 	}
 
+	/**
+	 * Tests that the eviction waits instead of returning immediately when the oldest element is
+	 * not analyzed yet, and that it continues once the element is analyzed.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void evictionWaitsForAnalysis() throws Exception {
+		long elements = 100;
+		when(bufferProperties.getInitialBufferSize()).thenReturn(elements);
+		when(bufferProperties.getEvictionOccupancyPercentage()).thenReturn(0.1f);
+		when(bufferProperties.getEvictionFragmentSizePercentage()).thenReturn(0.5f);
+		buffer.postConstruct();
+
+		DefaultData defaultData = mock(DefaultData.class);
+		when(defaultData.getObjectSize(objectSizes)).thenReturn(1L);
+		for (int i = 0; i < elements; i++) {
+			buffer.put(new BufferElement<>(defaultData));
+		}
+		// nothing analyzed, but eviction is needed
+		buffer.addToCurrentSize(elements, false);
+		assertThat(buffer.shouldEvict(), is(true));
+
+		long start = System.currentTimeMillis();
+		buffer.evict();
+
+		assertThat(System.currentTimeMillis() - start, is(greaterThanOrEqualTo(50L)));
+		assertThat(buffer.getEvictedElemenets(), is(0L));
+
+		BufferAnalyzer bufferAnalyzer = new BufferAnalyzer(buffer);
+		bufferAnalyzer.start();
+		try {
+			for (int i = 0; (i < 50) && (buffer.getEvictedElemenets() == 0); i++) {
+				buffer.evict();
+			}
+		} finally {
+			bufferAnalyzer.interrupt();
+		}
+
+		assertThat(buffer.getEvictedElemenets(), is(greaterThan(0L)));
+	}
+
 	/**
 	 * Tests that size of the elements is correctly analyzed and added to the buffer size.
 	 *
@@ -311,6 +379,68 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 		verify(indexingTree, times((int) elements)).put(defaultData);
 	}
 
+	/**
+	 * Test that elements are correctly analyzed and indexed when several threads are processing
+	 * chunks of elements in parallel.
+	 *
+	 * @throws Exception
+	 */
+	@Test(invocationCount = 5)
+	public void parallelChunkProcessing() throws Exception {
+		Random random = new Random();
+		long elements = 1 + random.nextInt(10000);
+		int chunkSize = 1 + random.nextInt(128);
+		int analyzers = 1 + random.nextInt(3);
+		int indexers = 1 + random.nextInt(3);
+
+		when(bufferProperties.getIndexingWaitTime()).thenReturn(10L);
+		when(bufferProperties.getProcessingChunkSize()).thenReturn(chunkSize);
+
+		DefaultData defaultData = mock(DefaultData.class);
+		when(defaultData.getObjectSize(objectSizes)).thenReturn(1L);
+
+		BufferWorker[] workers = new BufferWorker[analyzers + indexers];
+		for (int i = 0; i < analyzers; i++) {
+			workers[i] = new BufferAnalyzer(buffer);
+		}
+		for (int i = 0; i < indexers; i++) {
+			workers[analyzers + i] = new BufferIndexer(buffer);
+		}
+		for (BufferWorker worker : workers) {
+			worker.start();
+		}
+
+		IBufferElement<DefaultData> first = null;
+		for (int i = 0; i < elements; i++) {
+			IBufferElement<DefaultData> bufferElement = new BufferElement<>(defaultData);
+			if (0 == i) {
+				first = bufferElement;
+			}
+			buffer.put(bufferElement);
+		}
+
+		// wait for the elements to be analyzed and indexed
+		while ((buffer.getAnalyzedElements() < elements) || (buffer.getIndexedElements() < elements)) {
+			Thread.sleep(50);
+		}
+
+		for (BufferWorker worker : workers) {
+			worker.interrupt();
+		}
+
+		for (int i = 0; i < elements; i++) {
+			assertThat(first.isIndexed(), is(true));
+			first = first.getNextElement();
+		}
+
+		assertThat(buffer.getCurrentSize(), is(elements));
+		assertThat(buffer.getAnalyzedElements(), is(elements));
+		assertThat(buffer.getIndexedElements(), is(elements));
+		assertThat(buffer.getIndexingLagElements(), is(0L));
+		assertThat(buffer.getIndexingLagMillis(), is(0L));
+		verify(indexingTree, times((int) elements)).put(defaultData);
+	}
+
 	/**
 	 * Tests that the tree size calculations and maintenance is done.
 	 *
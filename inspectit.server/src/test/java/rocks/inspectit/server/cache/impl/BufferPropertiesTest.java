@@ -46,6 +46,9 @@ public class BufferPropertiesTest extends AbstractTestNGLogSupport {
 		bufferProperties.evictionOccupancyPercentage = 0.8f;
 		bufferProperties.indexingTreeCleaningThreads = 1;
 		bufferProperties.indexingWaitTime = 500l;
+		bufferProperties.processingChunkSize = 64;
+		bufferProperties.analyzingThreads = 1;
+		bufferProperties.indexingThreads = 2;
 		bufferProperties.maxObjectExpansionRate = 0.05f;
 		bufferProperties.maxObjectExpansionRateActiveTillBufferSize = 10;
 		bufferProperties.maxObjectExpansionRateActiveFromOccupancy = 0.75f;
@@ -0,0 +1,114 @@
+package rocks.inspectit.server.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.cache.IBufferSizeEstimator;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link BufferSizeEstimationCheck}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class BufferSizeEstimationCheckTest extends TestBase {
+
+	@InjectMocks
+	BufferSizeEstimationCheck check;
+
+	@Mock
+	IBuffer<?> buffer;
+
+	@Mock
+	IBufferSizeEstimator bufferSizeEstimator;
+
+	@Mock
+	BufferProperties bufferProperties;
+
+	@Mock
+	MemoryPoolMXBean oldGenPool;
+
+	@Mock
+	Logger log;
+
+	@BeforeMethod
+	public void init() {
+		when(bufferProperties.getOldGenMemoryPool()).thenReturn(oldGenPool);
+	}
+
+	public class Check extends BufferSizeEstimationCheckTest {
+
+		@Test
+		public void calibrateAgainstBaseline() {
+			heapUsage(1000L);
+			when(buffer.getCurrentSize()).thenReturn(0L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0f);
+			check.check();
+
+			heapUsage(1400L);
+			when(buffer.getCurrentSize()).thenReturn(500L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0.5f);
+			check.check();
+
+			verify(bufferSizeEstimator).calibrate(500L, 400L);
+			assertThat(check.getLastDivergence(), is(closeTo(0.25d, 0.0001d)));
+		}
+
+		@Test
+		public void noCalibrationWithoutEmptyBufferBaseline() {
+			heapUsage(1400L);
+			when(buffer.getCurrentSize()).thenReturn(500L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0.5f);
+			check.check();
+
+			heapUsage(1600L);
+			when(buffer.getCurrentSize()).thenReturn(600L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0.6f);
+			check.check();
+
+			verify(bufferSizeEstimator, never()).calibrate(anyLong(), anyLong());
+			assertThat(check.getLastDivergence(), is(0d));
+		}
+
+		@Test
+		public void calibrateAfterBufferWasEmptied() {
+			heapUsage(1400L);
+			when(buffer.getCurrentSize()).thenReturn(500L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0.5f);
+			check.check();
+
+			heapUsage(1010L);
+			when(buffer.getCurrentSize()).thenReturn(10L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0.005f);
+			check.check();
+
+			heapUsage(1800L);
+			when(buffer.getCurrentSize()).thenReturn(1000L);
+			when(buffer.getOccupancyPercentage()).thenReturn(0.5f);
+			check.check();
+
+			verify(bufferSizeEstimator).calibrate(1000L, 800L);
+		}
+
+		private void heapUsage(long used) {
+			when(oldGenPool.getCollectionUsage()).thenReturn(new MemoryUsage(0L, used, used, used));
+		}
+	}
+}
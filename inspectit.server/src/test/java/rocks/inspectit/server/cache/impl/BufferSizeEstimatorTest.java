@@ -0,0 +1,166 @@
+package rocks.inspectit.server.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests for the {@link rocks.inspectit.server.cache.IBufferSizeEstimator} implementations.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class BufferSizeEstimatorTest extends TestBase {
+
+	@Mock
+	IObjectSizes objectSizes;
+
+	@Mock
+	DefaultData defaultData;
+
+	@Mock
+	SerializationManagerProvider serializationManagerProvider;
+
+	@Mock
+	SerializationManager serializationManager;
+
+	@BeforeMethod
+	public void init() {
+		when(objectSizes.getSizeOfObjectHeader()).thenReturn(0L);
+		when(objectSizes.getPrimitiveTypesSize(2, 0, 0, 0, 1, 0)).thenReturn(0L);
+		when(objectSizes.getObjectSecurityExpansionRate()).thenReturn(0f);
+		when(defaultData.getObjectSize(objectSizes)).thenReturn(100L);
+		when(serializationManagerProvider.createSerializer()).thenReturn(serializationManager);
+	}
+
+	public class ObjectSizes extends BufferSizeEstimatorTest {
+
+		@Test
+		public void estimate() {
+			ObjectSizesBufferSizeEstimator estimator = new ObjectSizesBufferSizeEstimator(objectSizes);
+			IBufferElement<DefaultData> element = new BufferElement<>(defaultData);
+
+			long size = estimator.estimateSize(element);
+
+			assertThat(size, is(100L));
+			assertThat(element.getBufferElementSize(), is(100L));
+		}
+
+		@Test
+		public void calibrationIgnored() {
+			ObjectSizesBufferSizeEstimator estimator = new ObjectSizesBufferSizeEstimator(objectSizes);
+
+			estimator.calibrate(100L, 200L);
+
+			assertThat(estimator.getCorrectionFactor(), is(1d));
+			assertThat(estimator.estimateSize(new BufferElement<>(defaultData)), is(100L));
+		}
+	}
+
+	public class HeapCalibrated extends BufferSizeEstimatorTest {
+
+		@Test
+		public void calibrateUp() {
+			HeapCalibratedBufferSizeEstimator estimator = new HeapCalibratedBufferSizeEstimator(objectSizes);
+
+			// measured is double of the estimation, with smoothing factor goes to 1.5
+			estimator.calibrate(100L, 200L);
+
+			assertThat(estimator.getCorrectionFactor(), is(closeTo(1.5d, 0.0001d)));
+			assertThat(estimator.estimateSize(new BufferElement<>(defaultData)), is(150L));
+		}
+
+		@Test
+		public void calibrateDown() {
+			HeapCalibratedBufferSizeEstimator estimator = new HeapCalibratedBufferSizeEstimator(objectSizes);
+
+			estimator.calibrate(200L, 100L);
+
+			assertThat(estimator.getCorrectionFactor(), is(closeTo(0.75d, 0.0001d)));
+		}
+
+		@Test
+		public void calibrationBounded() {
+			HeapCalibratedBufferSizeEstimator estimator = new HeapCalibratedBufferSizeEstimator(objectSizes);
+
+			for (int i = 0; i < 100; i++) {
+				estimator.calibrate(1L, 1000L);
+			}
+
+			assertThat(estimator.getCorrectionFactor(), is(3d));
+		}
+
+		@Test
+		public void invalidMeasurement() {
+			HeapCalibratedBufferSizeEstimator estimator = new HeapCalibratedBufferSizeEstimator(objectSizes);
+
+			estimator.calibrate(100L, 0L);
+
+			assertThat(estimator.getCorrectionFactor(), is(1d));
+		}
+	}
+
+	public class Serialized extends BufferSizeEstimatorTest {
+
+		@Test
+		public void estimate() throws SerializationException {
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					((Output) invocation.getArguments()[1]).writeBytes(new byte[10]);
+					return null;
+				}
+			}).when(serializationManager).serialize(eq(defaultData), any(Output.class));
+			SerializedBufferSizeEstimator estimator = new SerializedBufferSizeEstimator(objectSizes, serializationManagerProvider, 3d);
+			IBufferElement<DefaultData> element = new BufferElement<>(defaultData);
+
+			long size = estimator.estimateSize(element);
+
+			assertThat(size, is(30L));
+			// size is set to the element by the analyzing processor
+			assertThat(element.getBufferElementSize(), is(0L));
+		}
+
+		@Test
+		public void serializationFails() throws SerializationException {
+			doThrow(new SerializationException()).when(serializationManager).serialize(eq(defaultData), any(Output.class));
+			SerializedBufferSizeEstimator estimator = new SerializedBufferSizeEstimator(objectSizes, serializationManagerProvider, 3d);
+
+			long size = estimator.estimateSize(new BufferElement<>(defaultData));
+
+			assertThat(size, is(100L));
+		}
+
+		@Test
+		public void calibrate() {
+			SerializedBufferSizeEstimator estimator = new SerializedBufferSizeEstimator(objectSizes, serializationManagerProvider, 4d);
+
+			estimator.calibrate(100L, 50L);
+
+			assertThat(estimator.getSerializedSizeFactor(), is(closeTo(3d, 0.0001d)));
+			assertThat(estimator.getCorrectionFactor(), is(closeTo(0.75d, 0.0001d)));
+		}
+	}
+}
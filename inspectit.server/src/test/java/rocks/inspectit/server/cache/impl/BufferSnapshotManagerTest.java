@@ -0,0 +1,231 @@
+package rocks.inspectit.server.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.server.util.CacheIdGenerator;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+
+/**
+ * Tests the {@link BufferSnapshotManager}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class BufferSnapshotManagerTest extends TestBase {
+
+	BufferSnapshotManager snapshotManager;
+
+	@Mock
+	IBuffer<MethodSensorData> buffer;
+
+	@Mock
+	IBufferTreeComponent<DefaultData> indexingTree;
+
+	@Mock
+	CacheIdGenerator cacheIdGenerator;
+
+	@Mock
+	SerializationManagerProvider serializationManagerProvider;
+
+	@Mock
+	Logger log;
+
+	Path snapshotFolder;
+
+	List<MethodSensorData> bufferContent;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		snapshotFolder = Files.createTempDirectory("buffer-snapshot");
+		bufferContent = new ArrayList<>();
+
+		final ClassSchemaManager schemaManager = new ClassSchemaManager();
+		schemaManager.setLog(log);
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		when(serializationManagerProvider.createSerializer()).thenAnswer(new Answer<SerializationManager>() {
+			@Override
+			public SerializationManager answer(InvocationOnMock invocation) throws Throwable {
+				SerializationManager serializationManager = new SerializationManager();
+				serializationManager.setSchemaManager(schemaManager);
+				serializationManager.setKryoNetNetwork(new KryoNetNetwork());
+				serializationManager.initKryo();
+				return serializationManager;
+			}
+		});
+		doAnswer(new Answer<Void>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Consumer<MethodSensorData> consumer = (Consumer<MethodSensorData>) invocation.getArguments()[0];
+				for (MethodSensorData data : bufferContent) {
+					consumer.accept(data);
+				}
+				return null;
+			}
+		}).when(buffer).forEachElement(any(Consumer.class));
+
+		snapshotManager = new BufferSnapshotManager();
+		snapshotManager.log = log;
+		snapshotManager.snapshotActive = true;
+		snapshotManager.snapshotFolder = snapshotFolder.toString();
+		snapshotManager.buffer = buffer;
+		snapshotManager.indexingTree = indexingTree;
+		snapshotManager.cacheIdGenerator = cacheIdGenerator;
+		snapshotManager.serializationManagerProvider = serializationManagerProvider;
+	}
+
+	@AfterMethod
+	public void deleteSnapshotFolder() throws IOException {
+		FileUtils.deleteDirectory(snapshotFolder.toFile());
+	}
+
+	public class RestoreSnapshot extends BufferSnapshotManagerTest {
+
+		@SuppressWarnings("unchecked")
+		@Test
+		public void writeAndRestore() throws Exception {
+			TimerData timerData = new TimerData(new Timestamp(1L), 1L, 2L, 3L);
+			timerData.setId(10L);
+			SqlStatementData sqlStatementData = new SqlStatementData(new Timestamp(2L), 1L, 2L, 3L);
+			sqlStatementData.setId(25L);
+			sqlStatementData.setCount(1L);
+			sqlStatementData.addInvocationParentId(20L);
+			InvocationSequenceData child = new InvocationSequenceData(new Timestamp(2L), 1L, 2L, 3L);
+			child.setSqlStatementData(sqlStatementData);
+			InvocationSequenceData invocation = new InvocationSequenceData(new Timestamp(2L), 1L, 2L, 3L);
+			invocation.setId(20L);
+			invocation.setNestedSequences(new ArrayList<>(Collections.singletonList(child)));
+			invocation.setChildCount(1L);
+			bufferContent.addAll(Arrays.asList(timerData, invocation));
+
+			int written = snapshotManager.writeSnapshot();
+			int restored = snapshotManager.restoreSnapshot();
+
+			assertThat(written, is(2));
+			assertThat(restored, is(2));
+			ArgumentCaptor<IBufferElement> captor = ArgumentCaptor.forClass(IBufferElement.class);
+			verify(buffer, times(2)).put(captor.capture());
+			TimerData restoredTimer = (TimerData) captor.getAllValues().get(0).getObject();
+			assertThat(restoredTimer.getId(), is(10L));
+			InvocationSequenceData restoredInvocation = (InvocationSequenceData) captor.getAllValues().get(1).getObject();
+			assertThat(restoredInvocation.getId(), is(20L));
+			assertThat(restoredInvocation.getNestedSequences(), hasSize(1));
+			assertThat(restoredInvocation.getOverviewProjection(), is(notNullValue()));
+			ArgumentCaptor<DefaultData> indexCaptor = ArgumentCaptor.forClass(DefaultData.class);
+			verify(indexingTree).put(indexCaptor.capture());
+			assertThat(indexCaptor.getValue().getId(), is(25L));
+			verify(cacheIdGenerator).ensureNextIdAbove(25L);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Test
+		public void noSnapshot() throws Exception {
+			int restored = snapshotManager.restoreSnapshot();
+
+			assertThat(restored, is(0));
+			verify(buffer, never()).put(any(IBufferElement.class));
+		}
+
+		@SuppressWarnings("unchecked")
+		@Test
+		public void incompleteSnapshotIgnored() throws Exception {
+			TimerData timerData = new TimerData(new Timestamp(1L), 1L, 2L, 3L);
+			bufferContent.add(timerData);
+			snapshotManager.writeSnapshot();
+			for (File folder : snapshotFolder.toFile().listFiles()) {
+				Files.delete(folder.toPath().resolve(BufferSnapshotManager.INDEX_FILE_NAME));
+			}
+
+			int restored = snapshotManager.restoreSnapshot();
+
+			assertThat(restored, is(0));
+			verify(buffer, never()).put(any(IBufferElement.class));
+		}
+	}
+
+	public class WriteSnapshot extends BufferSnapshotManagerTest {
+
+		@Test
+		public void olderSnapshotDeleted() throws Exception {
+			bufferContent.add(new TimerData(new Timestamp(1L), 1L, 2L, 3L));
+
+			snapshotManager.writeSnapshot();
+			Thread.sleep(5L);
+			snapshotManager.writeSnapshot();
+
+			File[] folders = snapshotFolder.toFile().listFiles();
+			assertThat(folders.length, is(1));
+			assertThat(Arrays.asList(folders[0].list()), containsInAnyOrder(BufferSnapshotManager.SEGMENT_FILE_PREFIX + "0.itdata", BufferSnapshotManager.INDEX_FILE_NAME));
+		}
+
+		@Test
+		public void otherFoldersNotDeleted() throws Exception {
+			bufferContent.add(new TimerData(new Timestamp(1L), 1L, 2L, 3L));
+			Path otherFolder = Files.createDirectory(snapshotFolder.resolve("other"));
+			Path otherFile = Files.createFile(otherFolder.resolve("data.txt"));
+
+			snapshotManager.writeSnapshot();
+			Thread.sleep(5L);
+			snapshotManager.writeSnapshot();
+
+			assertThat(Files.exists(otherFile), is(true));
+			assertThat(snapshotFolder.toFile().listFiles().length, is(2));
+			assertThat(snapshotManager.restoreSnapshot(), is(1));
+		}
+
+		@Test
+		public void emptyBuffer() throws Exception {
+			int written = snapshotManager.writeSnapshot();
+
+			assertThat(written, is(0));
+			assertThat(snapshotManager.restoreSnapshot(), is(0));
+		}
+	}
+
+}
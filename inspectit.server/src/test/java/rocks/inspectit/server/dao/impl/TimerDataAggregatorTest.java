@@ -4,6 +4,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
@@ -30,7 +31,9 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import rocks.inspectit.server.dao.jdbc.JdbcBatchWriter;
 import rocks.inspectit.server.test.AbstractTestNGLogSupport;
+import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.DatabaseAggregatedTimerData;
 import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
@@ -55,6 +58,9 @@ public class TimerDataAggregatorTest extends AbstractTestNGLogSupport {
 	@Mock
 	private PlatformTransactionManager transactionManager;
 
+	@Mock
+	private JdbcBatchWriter jdbcBatchWriter;
+
 	/**
 	 * Initialize.
 	 */
@@ -67,6 +73,7 @@ public class TimerDataAggregatorTest extends AbstractTestNGLogSupport {
 		aggregator.cacheCleanSleepingPeriod = 10;
 		aggregator.maxElements = 100;
 		aggregator.entityManager = entityManager;
+		aggregator.jdbcBatchWriter = jdbcBatchWriter;
 	}
 
 	/**
@@ -129,6 +136,28 @@ public class TimerDataAggregatorTest extends AbstractTestNGLogSupport {
 		assertThat(argument.getValue().getMethodIdent(), is(timerData1.getMethodIdent()));
 	}
 
+	/**
+	 * Tests that data accepted by the batch writer is not persisted with the entity manager.
+	 */
+	@Test
+	public void saveAllInPersistListWithBatchWriter() {
+		aggregator.maxElements = 1;
+		when(jdbcBatchWriter.write(any(DefaultData.class))).thenReturn(true);
+
+		TimerData timerData1 = new TimerData(new Timestamp(System.currentTimeMillis()), 10L, 20L, 30L);
+		TimerData timerData2 = new TimerData(new Timestamp(System.currentTimeMillis()), 100L, 200L, 300L);
+
+		aggregator.processTimerData(timerData1);
+		aggregator.processTimerData(timerData2);
+
+		aggregator.saveAllInPersistList();
+
+		ArgumentCaptor<DatabaseAggregatedTimerData> argument = ArgumentCaptor.forClass(DatabaseAggregatedTimerData.class);
+		verify(jdbcBatchWriter, times(1)).write(argument.capture());
+		assertThat(argument.getValue().getMethodIdent(), is(timerData1.getMethodIdent()));
+		verifyZeroInteractions(entityManager);
+	}
+
 	/**
 	 * Test for the validity of aggregation.
 	 */
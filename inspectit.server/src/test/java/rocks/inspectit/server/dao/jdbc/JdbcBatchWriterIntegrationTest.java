@@ -0,0 +1,220 @@
+package rocks.inspectit.server.dao.jdbc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.dao.DefaultDataDao;
+import rocks.inspectit.server.test.AbstractTransactionalTestNGLogSupport;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.SystemSensorData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.DatabaseAggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.MemoryInformationData;
+import rocks.inspectit.shared.all.communication.data.ParameterContentData;
+
+/**
+ * Tests that the {@link JdbcBatchWriter} writes the rows that are read back unchanged by the DAOs.
+ * The insert statements are generated from the real Hibernate mapping, thus any mistake in the
+ * column order or in the binding of the values would be visible here.
+ *
+ * @author Ivan Senic
+ *
+ */
+@ContextConfiguration(locations = { "classpath:spring/spring-context-global.xml", "classpath:spring/spring-context-database.xml", "classpath:spring/spring-context-beans.xml",
+		"classpath:spring/spring-context-processors.xml", "classpath:spring/spring-context-storage-test.xml" })
+@SuppressWarnings("PMD")
+public class JdbcBatchWriterIntegrationTest extends AbstractTransactionalTestNGLogSupport {
+
+	@Autowired
+	JdbcBatchWriter jdbcBatchWriter;
+
+	@Autowired
+	DefaultDataDao defaultDataDao;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * Platform ident not used by any other test.
+	 */
+	private long platformIdent;
+
+	@BeforeMethod
+	public void init() {
+		platformIdent = System.nanoTime();
+	}
+
+	/**
+	 * Rows are written outside of the test transaction, thus they must be deleted explicitly.
+	 */
+	@AfterMethod
+	public void deleteWritten() {
+		StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			session.getNamedQuery(DefaultData.DELETE_FOR_PLATFORM_ID).setParameter("platformIdent", platformIdent).executeUpdate();
+			transaction.commit();
+		} finally {
+			session.close();
+		}
+	}
+
+	@Test
+	public void writeCpuData() throws Exception {
+		CpuInformationData first = fill(new CpuInformationData(new Timestamp(10000L), platformIdent, 1L), 1);
+		CpuInformationData second = fill(new CpuInformationData(new Timestamp(20000L), platformIdent, 1L), 100);
+
+		List<DefaultData> read = writeAndRead(Arrays.<DefaultData> asList(first, second), new CpuInformationData(null, platformIdent, 1L));
+
+		assertThat(read, contains((DefaultData) first, second));
+	}
+
+	@Test
+	public void writeMemoryData() throws Exception {
+		MemoryInformationData first = fill(new MemoryInformationData(new Timestamp(10000L), platformIdent, 2L), 1);
+		MemoryInformationData second = fill(new MemoryInformationData(new Timestamp(20000L), platformIdent, 2L), 100);
+
+		List<DefaultData> read = writeAndRead(Arrays.<DefaultData> asList(first, second), new MemoryInformationData(null, platformIdent, 2L));
+
+		assertThat(read, contains((DefaultData) first, second));
+	}
+
+	@Test
+	public void writeAggregatedTimerData() throws Exception {
+		DatabaseAggregatedTimerData first = fill(new DatabaseAggregatedTimerData(new Timestamp(10000L), platformIdent, 3L, 30L), 1);
+		DatabaseAggregatedTimerData second = fill(new DatabaseAggregatedTimerData(new Timestamp(20000L), platformIdent, 3L, 30L), 100);
+		// the DAO loads the parameters as an empty collection
+		first.setParameterContentData(new HashSet<ParameterContentData>());
+		second.setParameterContentData(new HashSet<ParameterContentData>());
+
+		List<DefaultData> read = writeAndRead(Arrays.<DefaultData> asList(first, second), new DatabaseAggregatedTimerData(null, platformIdent, 3L, 30L));
+
+		assertThat(read, contains((DefaultData) first, second));
+	}
+
+	@Test
+	public void writeMixedBatch() throws Exception {
+		CpuInformationData cpu = fill(new CpuInformationData(new Timestamp(10000L), platformIdent, 1L), 1);
+		MemoryInformationData memory = fill(new MemoryInformationData(new Timestamp(10000L), platformIdent, 2L), 100);
+		DatabaseAggregatedTimerData timer = fill(new DatabaseAggregatedTimerData(new Timestamp(10000L), platformIdent, 3L, 30L), 1000);
+		timer.setParameterContentData(new HashSet<ParameterContentData>());
+		List<DefaultData> batch = Arrays.<DefaultData> asList(cpu, memory, timer);
+
+		for (DefaultData defaultData : batch) {
+			assertThat(jdbcBatchWriter.getMapping(defaultData.getClass()), is(notNullValue()));
+		}
+		jdbcBatchWriter.flush(batch);
+
+		List<DefaultData> read = new ArrayList<>();
+		read.addAll(read(new CpuInformationData(null, platformIdent, 1L)));
+		read.addAll(read(new MemoryInformationData(null, platformIdent, 2L)));
+		read.addAll(read(new DatabaseAggregatedTimerData(null, platformIdent, 3L, 30L)));
+		assertThat(read, hasSize(3));
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).setId(read.get(i).getId());
+		}
+		assertThat(read, contains((DefaultData) cpu, memory, timer));
+	}
+
+	/**
+	 * Writes the data with one flush and reads all data of the template class back.
+	 *
+	 * @param batch
+	 *            Data to write, all of the template class.
+	 * @param template
+	 *            Template to read with.
+	 * @return Read data ordered by time stamp. The ids of the written objects are set to the
+	 *         generated ones, as the writer does not update the written objects.
+	 */
+	private List<DefaultData> writeAndRead(List<DefaultData> batch, DefaultData template) {
+		assertThat(jdbcBatchWriter.getMapping(template.getClass()), is(notNullValue()));
+		jdbcBatchWriter.flush(batch);
+
+		List<DefaultData> read = read(template);
+		assertThat(read, hasSize(batch.size()));
+		for (int i = 0; i < batch.size(); i++) {
+			assertThat(read.get(i).getId(), is(greaterThan(0L)));
+			batch.get(i).setId(read.get(i).getId());
+		}
+		return read;
+	}
+
+	/**
+	 * Reads the data of the template class with the DAO.
+	 *
+	 * @param template
+	 *            Template.
+	 * @return Read data ordered by time stamp.
+	 */
+	private List<DefaultData> read(DefaultData template) {
+		List<DefaultData> read = new ArrayList<>(defaultDataDao.findByExampleFromToDate(template, new Date(0L), new Date(100000L)));
+		Collections.sort(read, new Comparator<DefaultData>() {
+			@Override
+			public int compare(DefaultData o1, DefaultData o2) {
+				return o1.getTimeStamp().compareTo(o2.getTimeStamp());
+			}
+		});
+		return read;
+	}
+
+	/**
+	 * Sets all numeric fields declared in the data class and its super-classes below the sensor
+	 * data class to distinct values, so that any two swapped columns result in a different
+	 * object. The idents are not changed.
+	 *
+	 * @param data
+	 *            Data to fill.
+	 * @param start
+	 *            Value of the first field.
+	 * @return Same data object.
+	 */
+	private static <E extends DefaultData> E fill(E data, int start) throws IllegalAccessException {
+		int value = start;
+		for (Class<?> clazz = data.getClass(); !MethodSensorData.class.equals(clazz) && !SystemSensorData.class.equals(clazz); clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+					continue;
+				}
+				field.setAccessible(true);
+				Class<?> type = field.getType();
+				if (int.class.equals(type)) {
+					field.setInt(data, value++);
+				} else if (long.class.equals(type)) {
+					field.setLong(data, value++);
+				} else if (float.class.equals(type)) {
+					field.setFloat(data, value++ + 0.5f);
+				} else if (double.class.equals(type)) {
+					field.setDouble(data, value++ + 0.25d);
+				}
+			}
+		}
+		return data;
+	}
+}
@@ -0,0 +1,209 @@
+package rocks.inspectit.server.dao.jdbc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.MemoryInformationData;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link JdbcBatchWriter}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class JdbcBatchWriterTest extends TestBase {
+
+	@InjectMocks
+	JdbcBatchWriter writer;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	EntityManagerFactory entityManagerFactory;
+
+	@Mock
+	ExecutorService executorService;
+
+	@Mock
+	SessionFactoryImplementor sessionFactory;
+
+	@Mock
+	JdbcInsertMapping cpuMapping;
+
+	@Mock
+	JdbcInsertMapping memoryMapping;
+
+	@BeforeMethod
+	public void init() {
+		writer.active = true;
+		writer.queueCapacity = 2;
+		writer.batchSize = 10;
+		writer.flushInterval = 1000L;
+		writer.mappings.put(CpuInformationData.class, cpuMapping);
+		writer.mappings.put(MemoryInformationData.class, memoryMapping);
+		when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+		when(cpuMapping.canInsert(any())).thenReturn(true);
+		when(memoryMapping.canInsert(any())).thenReturn(true);
+		when(cpuMapping.getSql()).thenReturn("insert cpu");
+		when(memoryMapping.getSql()).thenReturn("insert memory");
+	}
+
+	public static class Write extends JdbcBatchWriterTest {
+
+		@Test
+		public void queued() {
+			writer.start();
+
+			boolean written = writer.write(new CpuInformationData());
+
+			assertThat(written, is(true));
+			assertThat(writer.getQueueSize(), is(1));
+		}
+
+		@Test
+		public void notActive() {
+			writer.active = false;
+			writer.start();
+
+			boolean written = writer.write(new CpuInformationData());
+
+			assertThat(written, is(false));
+			assertThat(writer.isRunning(), is(false));
+		}
+
+		@Test
+		public void notInsertable() {
+			when(cpuMapping.canInsert(any())).thenReturn(false);
+			writer.start();
+
+			boolean written = writer.write(new CpuInformationData());
+
+			assertThat(written, is(false));
+			assertThat(writer.getQueueSize(), is(0));
+		}
+
+		@Test
+		public void notMapped() {
+			writer.start();
+
+			boolean written = writer.write(new DefaultData() {
+				private static final long serialVersionUID = 1L;
+			});
+
+			assertThat(written, is(false));
+			assertThat(writer.getQueueSize(), is(0));
+		}
+
+		@Test
+		public void queueFull() {
+			writer.start();
+			writer.write(new CpuInformationData());
+			writer.write(new CpuInformationData());
+
+			boolean written = writer.write(new CpuInformationData());
+
+			assertThat(written, is(false));
+			assertThat(writer.getRejectedCount(), is(1L));
+		}
+	}
+
+	public static class Flush extends JdbcBatchWriterTest {
+
+		@Mock
+		Transaction transaction;
+
+		@Mock
+		Connection connection;
+
+		@Mock
+		PreparedStatement cpuStatement;
+
+		@Mock
+		PreparedStatement memoryStatement;
+
+		StatelessSession session;
+
+		@BeforeMethod
+		public void initSession() throws SQLException {
+			session = mock(StatelessSession.class, withSettings().extraInterfaces(SessionImplementor.class));
+			when(sessionFactory.openStatelessSession()).thenReturn(session);
+			when(session.beginTransaction()).thenReturn(transaction);
+			when(((SessionImplementor) session).connection()).thenReturn(connection);
+			when(connection.prepareStatement("insert cpu")).thenReturn(cpuStatement);
+			when(connection.prepareStatement("insert memory")).thenReturn(memoryStatement);
+			writer.start();
+		}
+
+		@Test
+		public void groupedByTable() throws SQLException {
+			CpuInformationData cpu1 = new CpuInformationData(new Timestamp(1L), 1L, 2L);
+			MemoryInformationData memory = new MemoryInformationData(new Timestamp(1L), 1L, 3L);
+			CpuInformationData cpu2 = new CpuInformationData(new Timestamp(2L), 1L, 2L);
+
+			writer.flush(Arrays.<DefaultData> asList(cpu1, memory, cpu2));
+
+			verify(connection, times(1)).prepareStatement("insert cpu");
+			verify(connection, times(1)).prepareStatement("insert memory");
+			verify(cpuMapping).bind(cpuStatement, cpu1, (SessionImplementor) session);
+			verify(cpuMapping).bind(cpuStatement, cpu2, (SessionImplementor) session);
+			verify(memoryMapping).bind(memoryStatement, memory, (SessionImplementor) session);
+			verify(cpuStatement, times(2)).addBatch();
+			verify(cpuStatement).executeBatch();
+			verify(memoryStatement, times(1)).addBatch();
+			verify(memoryStatement).executeBatch();
+			verify(transaction).commit();
+			verify(session).close();
+			assertThat(writer.getWrittenCount(), is(3L));
+			assertThat(writer.getBatchCount(), is(1L));
+			assertThat(writer.getFailedCount(), is(0L));
+		}
+
+		@Test
+		public void failed() throws SQLException {
+			when(log.isWarnEnabled()).thenReturn(true);
+			doThrow(new SQLException()).when(memoryStatement).executeBatch();
+
+			writer.flush(Arrays.<DefaultData> asList(new CpuInformationData(), new MemoryInformationData()));
+
+			verify(transaction, never()).commit();
+			verify(transaction).rollback();
+			verify(session).close();
+			verify(log).warn(anyString(), any(SQLException.class));
+			assertThat(writer.getWrittenCount(), is(0L));
+			assertThat(writer.getFailedCount(), is(2L));
+		}
+	}
+}
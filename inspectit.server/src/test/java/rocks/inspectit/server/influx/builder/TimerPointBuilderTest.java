@@ -1,10 +1,13 @@
 package rocks.inspectit.server.influx.builder;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.Timestamp;
@@ -19,6 +22,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.server.influx.constants.Series;
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
 import rocks.inspectit.shared.all.cmr.model.MethodIdent;
 import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.cmr.service.ICachedDataService;
@@ -149,4 +153,71 @@ public class TimerPointBuilderTest extends AbstractPointBuilderTest {
 
 	}
 
+	public class Encode extends TimerPointBuilderTest {
+
+		static final long PLATFORM_ID = 1L;
+		static final long METHOD_ID = 2L;
+		static final String AGENT_NAME = "My Agent";
+		static final String FQN = "class_fqn";
+		static final String METHOD = "method";
+		static final String METHOD_SIG = "void method(int, long)";
+
+		LineProtocolEncoder encoder;
+
+		@BeforeMethod
+		public void setup() {
+			encoder = new LineProtocolEncoder();
+			when(platformIdent.getAgentName()).thenReturn(AGENT_NAME);
+			when(methodIdent.getFQN()).thenReturn(FQN);
+			when(methodIdent.getMethodName()).thenReturn(METHOD);
+			when(methodIdent.getFullyQualifiedMethodSignature()).thenReturn(METHOD_SIG);
+			when(data.getPlatformIdent()).thenReturn(PLATFORM_ID);
+			when(data.getMethodIdent()).thenReturn(METHOD_ID);
+			when(data.getTimeStamp()).thenReturn(new Timestamp(1234L));
+			when(data.getMin()).thenReturn(1.5d);
+			when(data.getMax()).thenReturn(10.25d);
+			when(data.getAverage()).thenReturn(4.75d);
+			when(data.getCpuMin()).thenReturn(0.5d);
+			when(data.getCpuMax()).thenReturn(2.5d);
+			when(data.getCpuAverage()).thenReturn(1.125d);
+			when(data.getCount()).thenReturn(7L);
+		}
+
+		@Test
+		public void sameAsPoint() throws Exception {
+			when(cachedDataService.getPlatformIdentForId(PLATFORM_ID)).thenReturn(platformIdent);
+			when(cachedDataService.getMethodIdentForId(METHOD_ID)).thenReturn(methodIdent);
+
+			builder.encode(data, encoder);
+
+			Builder pointBuilder = builder.createBuilders(data).iterator().next();
+			assertThat(encoder.toString(), is(pointBuilder.build().lineProtocol() + "\n"));
+		}
+
+		@Test
+		public void tagSetCached() throws Exception {
+			when(cachedDataService.getPlatformIdentForId(PLATFORM_ID)).thenReturn(platformIdent);
+			when(cachedDataService.getMethodIdentForId(METHOD_ID)).thenReturn(methodIdent);
+
+			builder.encode(data, encoder);
+			builder.encode(data, encoder);
+
+			assertThat(encoder.getLineCount(), is(2));
+			verify(cachedDataService, times(1)).getPlatformIdentForId(PLATFORM_ID);
+			verify(cachedDataService, times(1)).getMethodIdentForId(METHOD_ID);
+		}
+
+		@Test
+		public void noMethodIdentNotCached() throws Exception {
+			when(cachedDataService.getPlatformIdentForId(PLATFORM_ID)).thenReturn(platformIdent);
+			when(cachedDataService.getMethodIdentForId(METHOD_ID)).thenReturn(null);
+
+			builder.encode(data, encoder);
+			builder.encode(data, encoder);
+
+			assertThat(encoder.toString(), not(containsString(Series.Methods.TAG_METHOD_NAME)));
+			verify(cachedDataService, times(2)).getMethodIdentForId(METHOD_ID);
+		}
+	}
+
 }
@@ -4,7 +4,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -17,6 +19,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ConsistencyLevel;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Query;
 import org.mockito.ArgumentCaptor;
@@ -143,6 +146,65 @@ public class InfluxDBDaoTest extends TestBase {
 		}
 	}
 
+	/**
+	 * Test the {@link InfluxDBDao#write(String)} method.
+	 */
+	public static class Write extends InfluxDBDaoTest {
+
+		@Test
+		public void writeRecords() {
+			influxDao.active = true;
+			influxDao.propertiesUpdated();
+
+			boolean written = influxDao.write("m f=1i 1\n");
+
+			assertThat(written, is(true));
+			verify(influxDb).write(influxDao.database, influxDao.retentionPolicy, ConsistencyLevel.ONE, "m f=1i 1\n");
+			verify(influxDb, never()).enableGzip();
+		}
+
+		@Test
+		public void writeEmpty() {
+			influxDao.active = true;
+			influxDao.propertiesUpdated();
+
+			boolean written = influxDao.write("");
+
+			assertThat(written, is(false));
+			verify(influxDb, never()).write(any(String.class), any(String.class), any(ConsistencyLevel.class), any(String.class));
+		}
+
+		@Test
+		public void notConnected() {
+			influxDao.active = true;
+
+			boolean written = influxDao.write("m f=1i 1\n");
+
+			assertThat(written, is(false));
+			verifyZeroInteractions(influxDb);
+		}
+
+		@Test(expectedExceptions = RuntimeException.class)
+		public void writeFails() {
+			influxDao.active = true;
+			influxDao.propertiesUpdated();
+			doThrow(RuntimeException.class).when(influxDb).write(any(String.class), any(String.class), any(ConsistencyLevel.class), any(String.class));
+
+			influxDao.write("m f=1i 1\n");
+		}
+
+		@Test
+		public void gzipEnabled() {
+			influxDao.active = true;
+			influxDao.gzip = true;
+			influxDao.propertiesUpdated();
+
+			influxDao.write("m f=1i 1\n");
+
+			verify(influxDb).enableGzip();
+		}
+	}
+
 	/**
 	 * Test the {@link InfluxDBDao#query(String)} method.
 	 */
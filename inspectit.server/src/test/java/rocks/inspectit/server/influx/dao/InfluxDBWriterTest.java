@@ -0,0 +1,342 @@
+package rocks.inspectit.server.influx.dao;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.influx.util.InfluxWriteRejectedException;
+import rocks.inspectit.shared.all.externalservice.ExternalServiceStatus;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link InfluxDBWriter}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class InfluxDBWriterTest extends TestBase {
+
+	static final String RECORD = "m f=1i 1\n";
+
+	@InjectMocks
+	InfluxDBWriter writer;
+
+	@Mock
+	InfluxDBDao influxDbDao;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	ExecutorService executorService;
+
+	Path spillDirectory;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		spillDirectory = Files.createTempDirectory("influx-writer-test");
+		writer.queueCapacity = 10;
+		writer.batchSize = 2;
+		writer.flushInterval = 50L;
+		writer.maxRetries = 2;
+		writer.retryBackoff = 1L;
+		writer.spillDirectory = spillDirectory.toString();
+		writer.maxSpillSize = 1024 * 1024;
+	}
+
+	@AfterMethod
+	public void cleanUp() throws IOException {
+		writer.stop();
+		FileUtils.deleteDirectory(spillDirectory.toFile());
+	}
+
+	public static class Write extends InfluxDBWriterTest {
+
+		@BeforeMethod
+		public void start() {
+			writer.executorService = Executors.newSingleThreadExecutor();
+			writer.start();
+		}
+
+		@Test
+		public void batchSizeReached() {
+			when(influxDbDao.write(anyString())).thenReturn(true);
+
+			writer.write(RECORD);
+			writer.write(RECORD);
+
+			verify(influxDbDao, timeout(5000)).write(RECORD + RECORD);
+		}
+
+		@Test
+		public void flushIntervalPassed() {
+			when(influxDbDao.write(anyString())).thenReturn(true);
+
+			writer.write(RECORD);
+
+			verify(influxDbDao, timeout(5000)).write(RECORD);
+		}
+
+		@Test
+		public void remainingWrittenOnStop() {
+			writer.flushInterval = 60000L;
+			when(influxDbDao.write(anyString())).thenReturn(true);
+
+			writer.write(RECORD);
+			writer.stop();
+
+			verify(influxDbDao).write(RECORD);
+		}
+
+		@Test
+		public void droppedCountedInRecords() {
+			writer.stop();
+
+			boolean written = writer.write(RECORD + RECORD);
+
+			assertThat(written, is(false));
+			assertThat(writer.getDroppedCount(), is(2L));
+		}
+
+		@Test
+		public void stopped() {
+			writer.stop();
+
+			boolean written = writer.write(RECORD);
+
+			assertThat(written, is(false));
+			assertThat(writer.getDroppedCount(), is(1L));
+		}
+	}
+
+	public static class Queue extends InfluxDBWriterTest {
+
+		@Test
+		public void queueFull() {
+			writer.start();
+			for (int i = 0; i < writer.queueCapacity; i++) {
+				assertThat(writer.write(RECORD), is(true));
+			}
+
+			boolean written = writer.write(RECORD);
+
+			assertThat(written, is(false));
+			assertThat(writer.getDroppedCount(), is(1L));
+		}
+	}
+
+	public static class Send extends InfluxDBWriterTest {
+
+		@Test
+		public void retried() {
+			when(influxDbDao.write(RECORD)).thenThrow(new RuntimeException()).thenReturn(true);
+			writer.start();
+
+			boolean sent = writer.send(RECORD);
+
+			assertThat(sent, is(true));
+			verify(influxDbDao, times(2)).write(RECORD);
+		}
+
+		@Test
+		public void retriesExhausted() {
+			when(influxDbDao.write(RECORD)).thenThrow(new RuntimeException());
+			writer.start();
+
+			boolean sent = writer.send(RECORD);
+
+			assertThat(sent, is(false));
+			verify(influxDbDao, times(3)).write(RECORD);
+		}
+
+		@Test
+		public void rejectedNotRetried() {
+			when(influxDbDao.write(RECORD + RECORD)).thenThrow(new RuntimeException(new InfluxWriteRejectedException(400, "field type conflict")));
+			writer.start();
+
+			boolean sent = writer.send(RECORD + RECORD);
+
+			assertThat(sent, is(true));
+			assertThat(writer.getRejectedCount(), is(2L));
+			verify(influxDbDao, times(1)).write(RECORD + RECORD);
+		}
+
+		@Test
+		public void notConnectedNotRetried() {
+			when(influxDbDao.write(RECORD)).thenReturn(false);
+			writer.start();
+
+			boolean sent = writer.send(RECORD);
+
+			assertThat(sent, is(false));
+			verify(influxDbDao, times(1)).write(RECORD);
+		}
+
+		@Test
+		public void backoff() {
+			writer.retryBackoff = 100L;
+
+			assertThat(writer.getBackoff(0), is(100L));
+			assertThat(writer.getBackoff(3), is(800L));
+			assertThat(writer.getBackoff(30), is(30000L));
+		}
+	}
+
+	public static class SpillAndReplay extends InfluxDBWriterTest {
+
+		@Test
+		public void spilledWhenNotWritten() {
+			when(influxDbDao.write(anyString())).thenReturn(false);
+
+			writer.flush(RECORD);
+
+			assertThat(writer.getSpillFiles(), hasSize(1));
+			assertThat(writer.getDroppedCount(), is(0L));
+		}
+
+		@Test
+		public void replayedInOrder() {
+			writer.spill("first\n");
+			writer.spill("second\n");
+			when(influxDbDao.isConnected()).thenReturn(true);
+			when(influxDbDao.write(anyString())).thenReturn(true);
+
+			assertThat(writer.canReplay(), is(true));
+			writer.replay();
+
+			verify(influxDbDao).write("first\n");
+			verify(influxDbDao, never()).write("second\n");
+			assertThat(writer.getSpillFiles(), hasSize(1));
+
+			writer.replay();
+
+			verify(influxDbDao).write("second\n");
+			assertThat(writer.getSpillFiles(), is(empty()));
+			assertThat(writer.canReplay(), is(false));
+		}
+
+		@Test
+		public void rejectedNotSpilled() {
+			when(influxDbDao.write(anyString())).thenThrow(new RuntimeException(new InfluxWriteRejectedException(400, "field type conflict")));
+
+			writer.flush(RECORD);
+
+			assertThat(writer.getSpillFiles(), is(empty()));
+			assertThat(writer.getRejectedCount(), is(1L));
+		}
+
+		@Test
+		public void replayRejectedDeletesFile() {
+			writer.spill(RECORD);
+			writer.spill("second\n");
+			when(influxDbDao.isConnected()).thenReturn(true);
+			when(influxDbDao.write(RECORD)).thenThrow(new RuntimeException(new InfluxWriteRejectedException(400, "field type conflict")));
+			writer.start();
+
+			writer.replay();
+
+			verify(influxDbDao, times(1)).write(RECORD);
+			assertThat(writer.getSpillFiles(), hasSize(1));
+			assertThat(writer.getRejectedCount(), is(1L));
+			assertThat(writer.canReplay(), is(true));
+		}
+
+		@Test
+		public void replayFailedKeepsFile() {
+			writer.spill(RECORD);
+			when(influxDbDao.write(anyString())).thenReturn(false);
+
+			writer.replay();
+
+			assertThat(writer.getSpillFiles(), hasSize(1));
+		}
+
+		@Test
+		public void spillExhausted() {
+			writer.maxSpillSize = 0;
+			when(influxDbDao.write(anyString())).thenReturn(false);
+
+			writer.flush(RECORD + RECORD + RECORD);
+
+			assertThat(writer.getSpillFiles(), is(empty()));
+			assertThat(writer.getDroppedCount(), is(3L));
+		}
+
+		@Test
+		public void existingSpillFilesReplayedAfterStart() {
+			writer.spill(RECORD);
+			when(influxDbDao.isConnected()).thenReturn(true);
+			when(influxDbDao.write(anyString())).thenReturn(true);
+			writer.executorService = Executors.newSingleThreadExecutor();
+
+			writer.start();
+
+			verify(influxDbDao, timeout(5000)).write(RECORD);
+		}
+	}
+
+	public static class CanWrite extends InfluxDBWriterTest {
+
+		@Test
+		public void connected() {
+			when(influxDbDao.getServiceStatus()).thenReturn(ExternalServiceStatus.CONNECTED);
+			writer.start();
+
+			assertThat(writer.canWrite(), is(true));
+		}
+
+		@Test
+		public void disconnectedWithSpillSpace() {
+			when(influxDbDao.getServiceStatus()).thenReturn(ExternalServiceStatus.DISCONNECTED);
+			writer.start();
+
+			assertThat(writer.canWrite(), is(true));
+		}
+
+		@Test
+		public void disconnectedWithoutSpillSpace() {
+			writer.maxSpillSize = 0;
+			when(influxDbDao.getServiceStatus()).thenReturn(ExternalServiceStatus.DISCONNECTED);
+			writer.start();
+
+			assertThat(writer.canWrite(), is(false));
+		}
+
+		@Test
+		public void disabled() {
+			when(influxDbDao.getServiceStatus()).thenReturn(ExternalServiceStatus.DISABLED);
+			writer.start();
+
+			assertThat(writer.canWrite(), is(false));
+		}
+
+		@Test
+		public void notStarted() {
+			when(influxDbDao.getServiceStatus()).thenReturn(ExternalServiceStatus.CONNECTED);
+
+			assertThat(writer.canWrite(), is(false));
+		}
+	}
+}
@@ -1,13 +1,28 @@
 package rocks.inspectit.server.influx.util;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ConsistencyLevel;
 import org.mockito.InjectMocks;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 import rocks.inspectit.shared.all.testbase.TestBase;
 
 /**
@@ -92,4 +107,116 @@ public class InfluxClientFactoryTest extends TestBase {
 			clientFactory.createClient();
 		}
 	}
+
+	/**
+	 * Tests that the writes rejected by the InfluxDB are reported with the
+	 * {@link InfluxWriteRejectedException}.
+	 */
+	public static class WriteRejection extends InfluxClientFactoryTest {
+
+		HttpServer server;
+
+		volatile int status;
+
+		@BeforeMethod
+		public void startServer() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/", new HttpHandler() {
+				@Override
+				public void handle(HttpExchange exchange) throws IOException {
+					byte[] buffer = new byte[1024];
+					try (InputStream in = exchange.getRequestBody()) {
+						while (in.read(buffer) >= 0) { // NOPMD discard
+						}
+					}
+					byte[] response = "{\"error\":\"field type conflict\"}".getBytes(StandardCharsets.UTF_8);
+					exchange.sendResponseHeaders(status, response.length);
+					try (OutputStream out = exchange.getResponseBody()) {
+						out.write(response);
+					}
+				}
+			});
+			server.start();
+			clientFactory.host = "127.0.0.1";
+			clientFactory.port = server.getAddress().getPort();
+			clientFactory.user = "user";
+		}
+
+		@AfterMethod
+		public void stopServer() {
+			server.stop(0);
+		}
+
+		@Test
+		public void clientError() {
+			status = 400;
+			InfluxDB client = clientFactory.createClient();
+
+			try {
+				client.write("db", "autogen", ConsistencyLevel.ONE, "m f=1i 1\n");
+			} catch (RuntimeException e) {
+				assertThat(e.getCause(), is(instanceOf(InfluxWriteRejectedException.class)));
+				assertThat(((InfluxWriteRejectedException) e.getCause()).getStatusCode(), is(400));
+				return;
+			}
+			throw new AssertionError("Write must fail.");
+		}
+
+		@Test
+		public void unprocessableEntity() {
+			status = 422;
+			InfluxDB client = clientFactory.createClient();
+
+			try {
+				client.write("db", "autogen", ConsistencyLevel.ONE, "m f=1i 1\n");
+			} catch (RuntimeException e) {
+				assertThat(e.getCause(), is(instanceOf(InfluxWriteRejectedException.class)));
+				assertThat(((InfluxWriteRejectedException) e.getCause()).getStatusCode(), is(422));
+				return;
+			}
+			throw new AssertionError("Write must fail.");
+		}
+
+		@Test
+		public void unauthorized() {
+			status = 401;
+			InfluxDB client = clientFactory.createClient();
+
+			try {
+				client.write("db", "autogen", ConsistencyLevel.ONE, "m f=1i 1\n");
+			} catch (RuntimeException e) {
+				assertThat(e.getCause(), is(nullValue()));
+				return;
+			}
+			throw new AssertionError("Write must fail.");
+		}
+
+		@Test
+		public void databaseNotFound() {
+			status = 404;
+			InfluxDB client = clientFactory.createClient();
+
+			try {
+				client.write("db", "autogen", ConsistencyLevel.ONE, "m f=1i 1\n");
+			} catch (RuntimeException e) {
+				assertThat(e.getCause(), is(nullValue()));
+				return;
+			}
+			throw new AssertionError("Write must fail.");
+		}
+
+		@Test
+		public void serverError() {
+			status = 500;
+			InfluxDB client = clientFactory.createClient();
+
+			try {
+				client.write("db", "autogen", ConsistencyLevel.ONE, "m f=1i 1\n");
+			} catch (RuntimeException e) {
+				assertThat(e.getCause(), is(nullValue()));
+				return;
+			}
+			throw new AssertionError("Write must fail.");
+		}
+	}
 }
@@ -6,6 +6,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import org.testng.annotations.BeforeMethod;
@@ -160,4 +162,65 @@ public class InfluxQueryFactoryTest extends TestBase {
 
 		}
 	}
+
+	/**
+	 * Tests the
+	 * {@link InfluxQueryFactory#buildGroupedThresholdCheckQuery(java.util.Collection, long)}
+	 * method.
+	 */
+	public static class BuildGroupedThresholdCheckQuery extends InfluxQueryFactoryTest {
+		private static final long CURRENT_TIME = System.currentTimeMillis();
+		private static final long TIMERANGE_MS = TimeUnit.MINUTES.toMillis(10);
+
+		static AlertingState createState(ThresholdType type, String... tags) throws BusinessException {
+			AlertingDefinition alertingDefinition = new AlertingDefinition();
+			alertingDefinition.setMeasurement("m");
+			alertingDefinition.setField("f");
+			alertingDefinition.setThresholdType(type);
+			alertingDefinition.setTimeRange(10L, TimeUnit.MINUTES);
+			for (int i = 0; i < tags.length; i += 2) {
+				alertingDefinition.putTag(tags[i], tags[i + 1]);
+			}
+			return new AlertingState(alertingDefinition);
+		}
+
+		@Test
+		public void groupedByAllTagKeys() throws BusinessException {
+			AlertingState one = createState(ThresholdType.UPPER_THRESHOLD, "b", "1");
+			AlertingState two = createState(ThresholdType.UPPER_THRESHOLD, "b", "2", "a", "x");
+
+			String query = InfluxQueryFactory.buildGroupedThresholdCheckQuery(Arrays.asList(one, two), CURRENT_TIME);
+
+			assertThat(query, is("SELECT MAX(\"f\") FROM \"m\" WHERE ((\"b\" = '1') OR (\"a\" = 'x' AND \"b\" = '2')) AND time <= " + CURRENT_TIME + "ms AND time > " + (CURRENT_TIME - TIMERANGE_MS)
+					+ "ms GROUP BY \"a\",\"b\""));
+		}
+
+		@Test
+		public void lowerThreshold() throws BusinessException {
+			AlertingState one = createState(ThresholdType.LOWER_THRESHOLD, "a", "1");
+
+			String query = InfluxQueryFactory.buildGroupedThresholdCheckQuery(Collections.singletonList(one), CURRENT_TIME);
+
+			assertThat(query, is("SELECT MIN(\"f\") FROM \"m\" WHERE ((\"a\" = '1')) AND time <= " + CURRENT_TIME + "ms AND time > " + (CURRENT_TIME - TIMERANGE_MS) + "ms GROUP BY \"a\""));
+		}
+
+		@Test
+		public void stateWithoutTags() throws BusinessException {
+			AlertingState one = createState(ThresholdType.UPPER_THRESHOLD, "a", "1");
+			AlertingState two = createState(ThresholdType.UPPER_THRESHOLD);
+
+			String query = InfluxQueryFactory.buildGroupedThresholdCheckQuery(Arrays.asList(one, two), CURRENT_TIME);
+
+			assertThat(query, is("SELECT MAX(\"f\") FROM \"m\" WHERE time <= " + CURRENT_TIME + "ms AND time > " + (CURRENT_TIME - TIMERANGE_MS) + "ms GROUP BY \"a\""));
+		}
+
+		@Test
+		public void noTags() throws BusinessException {
+			AlertingState one = createState(ThresholdType.UPPER_THRESHOLD);
+
+			String query = InfluxQueryFactory.buildGroupedThresholdCheckQuery(Collections.singletonList(one), CURRENT_TIME);
+
+			assertThat(query, is("SELECT MAX(\"f\") FROM \"m\" WHERE time <= " + CURRENT_TIME + "ms AND time > " + (CURRENT_TIME - TIMERANGE_MS) + "ms"));
+		}
+	}
 }
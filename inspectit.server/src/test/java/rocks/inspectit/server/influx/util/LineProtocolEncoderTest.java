@@ -0,0 +1,111 @@
+package rocks.inspectit.server.influx.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.Point;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link LineProtocolEncoder}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class LineProtocolEncoderTest extends TestBase {
+
+	LineProtocolEncoder encoder;
+
+	@BeforeMethod
+	public void init() {
+		encoder = new LineProtocolEncoder();
+	}
+
+	public static class Encode extends LineProtocolEncoderTest {
+
+		@Test
+		public void sameAsPoint() {
+			Point point = Point.measurement("measurement").tag("tag", "value").addField("double", 1.5d).addField("long", 3L).addField("bool", true).addField("string", "text")
+					.time(5, TimeUnit.MILLISECONDS).build();
+
+			encoder.measurement("measurement").tag("tag", "value").field("bool", true).field("double", 1.5d).field("long", 3L).field("string", "text").time(5, TimeUnit.MILLISECONDS);
+
+			assertThat(encoder.toString(), is(point.lineProtocol() + "\n"));
+			assertThat(encoder.getLineCount(), is(1));
+		}
+
+		@Test
+		public void escaping() {
+			encoder.measurement("m e,a").tag("t k=", "v a,l=").field("f k", "q\"u\\o").time(1, TimeUnit.NANOSECONDS);
+
+			assertThat(encoder.toString(), is("m\\ e\\,a,t\\ k\\==v\\ a\\,l\\= f\\ k=\"q\\\"u\\\\o\" 1\n"));
+		}
+
+		@Test
+		public void emptyTagIgnored() {
+			encoder.measurement("m").tag("empty", "").tag("null", null).field("f", 1L).time(1, TimeUnit.NANOSECONDS);
+
+			assertThat(encoder.toString(), is("m f=1i 1\n"));
+		}
+
+		@Test
+		public void notFiniteFieldIgnored() {
+			encoder.measurement("m").field("nan", Double.NaN).field("inf", Double.POSITIVE_INFINITY).field("f", 2d).time(1, TimeUnit.NANOSECONDS);
+
+			assertThat(encoder.toString(), is("m f=2.0 1\n"));
+		}
+
+		@Test
+		public void lineWithoutFieldsRemoved() {
+			encoder.measurement("m").field("f", 1L).time(1, TimeUnit.NANOSECONDS);
+			encoder.measurement("n").tag("t", "v").field("nan", Double.NaN).time(2, TimeUnit.NANOSECONDS);
+
+			assertThat(encoder.toString(), is("m f=1i 1\n"));
+			assertThat(encoder.getLineCount(), is(1));
+		}
+
+		@Test
+		public void multipleLines() {
+			encoder.measurement("m").field("f", 1L).time(1, TimeUnit.MILLISECONDS);
+			encoder.point(Point.measurement("n").addField("f", 2L).time(2, TimeUnit.MILLISECONDS).build());
+
+			assertThat(encoder.toString(), is("m f=1i 1000000\nn f=2i 2000000\n"));
+			assertThat(encoder.getLineCount(), is(2));
+		}
+
+		@Test
+		public void reset() {
+			encoder.measurement("m").field("f", 1L).time(1, TimeUnit.NANOSECONDS);
+
+			encoder.reset();
+
+			assertThat(encoder.isEmpty(), is(true));
+			assertThat(encoder.toString(), is(""));
+		}
+	}
+
+	public static class TagSet extends LineProtocolEncoderTest {
+
+		@Test
+		public void sortedAndEscaped() {
+			Map<String, String> tags = new HashMap<>();
+			tags.put("b", "v 2");
+			tags.put("a", "v1");
+			tags.put("c", null);
+
+			String tagSet = LineProtocolEncoder.tagSet(tags);
+			encoder.measurement("m").tagSet(tagSet).field("f", 1L).time(1, TimeUnit.NANOSECONDS);
+
+			assertThat(tagSet, is(",a=v1,b=v\\ 2"));
+			assertThat(encoder.toString(), is("m,a=v1,b=v\\ 2 f=1i 1\n"));
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package rocks.inspectit.server.influx.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.influx.util.LineProtocolParser.ParsedLine;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link LineProtocolParser}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class LineProtocolParserTest extends TestBase {
+
+	static final Set<String> MEASUREMENTS = Collections.singleton("m");
+
+	public static class Parse extends LineProtocolParserTest {
+
+		@Test
+		public void numericFields() {
+			List<ParsedLine> lines = LineProtocolParser.parse("m,a=1,b=2 d=1.5,l=-3i,b=true,s=\"text\" 100\n", MEASUREMENTS);
+
+			assertThat(lines, hasSize(1));
+			ParsedLine line = lines.get(0);
+			assertThat(line.getMeasurement(), is("m"));
+			assertThat(line.getTags().size(), is(2));
+			assertThat(line.getTags(), hasEntry("a", "1"));
+			assertThat(line.getTags(), hasEntry("b", "2"));
+			assertThat(line.getFields().size(), is(2));
+			assertThat(line.getFields(), hasEntry("d", 1.5d));
+			assertThat(line.getFields(), hasEntry("l", -3d));
+			assertThat(line.getTime(), is(100L));
+		}
+
+		@Test
+		public void encoded() {
+			LineProtocolEncoder encoder = new LineProtocolEncoder();
+			encoder.measurement("m e,a").tag("t k=", "v a,l=").field("s", "q \"u\\o\nx").field("f k", 2d).time(1, TimeUnit.NANOSECONDS);
+			encoder.measurement("m").field("f", 3L).time(2, TimeUnit.NANOSECONDS);
+			Set<String> measurements = new HashSet<>();
+			measurements.add("m e,a");
+			measurements.add("m");
+
+			List<ParsedLine> lines = LineProtocolParser.parse(encoder.toString(), measurements);
+
+			assertThat(lines, hasSize(2));
+			assertThat(lines.get(0).getMeasurement(), is("m e,a"));
+			assertThat(lines.get(0).getTags(), hasEntry("t k=", "v a,l="));
+			assertThat(lines.get(0).getFields().size(), is(1));
+			assertThat(lines.get(0).getFields(), hasEntry("f k", 2d));
+			assertThat(lines.get(0).getTime(), is(1L));
+			assertThat(lines.get(1).getMeasurement(), is("m"));
+			assertThat(lines.get(1).getFields(), hasEntry("f", 3d));
+			assertThat(lines.get(1).getTime(), is(2L));
+		}
+
+		@Test
+		public void otherMeasurementsSkipped() {
+			List<ParsedLine> lines = LineProtocolParser.parse("n f=\"a\nm f=9i\" 1\nmm f=1i 2\nm f=2i 3\n", MEASUREMENTS);
+
+			assertThat(lines, hasSize(1));
+			assertThat(lines.get(0).getFields(), hasEntry("f", 2d));
+		}
+
+		@Test
+		public void noTimeStamp() {
+			List<ParsedLine> lines = LineProtocolParser.parse("m f=2i", MEASUREMENTS);
+
+			assertThat(lines, hasSize(1));
+			assertThat(lines.get(0).getTime(), is(-1L));
+		}
+
+		@Test
+		public void malformedSkipped() {
+			List<ParsedLine> lines = LineProtocolParser.parse("m,t f=1i 1\nm f 1\nm s=\"x\" 1\nm f=1i x\nm f=4i 5\n", MEASUREMENTS);
+
+			assertThat(lines, hasSize(1));
+			assertThat(lines.get(0).getFields(), hasEntry("f", 4d));
+		}
+
+		@Test
+		public void allMeasurements() {
+			List<ParsedLine> lines = LineProtocolParser.parse("n f=1i 1\nm,t=v f=2i 2\n");
+
+			assertThat(lines, hasSize(2));
+			assertThat(lines.get(0).getMeasurement(), is("n"));
+			assertThat(lines.get(1).getMeasurement(), is("m"));
+			assertThat(lines.get(1).getTags(), hasEntry("t", "v"));
+		}
+
+		@Test
+		public void nothingToParse() {
+			assertThat(LineProtocolParser.parse("", MEASUREMENTS), hasSize(0));
+			assertThat(LineProtocolParser.parse(""), hasSize(0));
+			assertThat(LineProtocolParser.parse("m f=1i 1\n", Collections.<String> emptySet()), hasSize(0));
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package rocks.inspectit.server.jetty;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.storage.transfer.ChunkedTransferUtil;
+
+/**
+ * Tests the {@link FileChunkServlet}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class FileChunkServletTest extends TestBase {
+
+	FileChunkServlet servlet;
+
+	Path directory;
+
+	@Mock
+	HttpServletRequest request;
+
+	@Mock
+	HttpServletResponse response;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		directory = Files.createTempDirectory("chunk-servlet");
+		Files.createDirectories(directory.resolve("storage"));
+		Files.write(directory.resolve("storage").resolve("file"), new byte[] { 1, 2, 3, 4, 5, 6 });
+		servlet = new FileChunkServlet();
+		servlet.setDirectory(directory.toString());
+	}
+
+	@AfterMethod
+	public void delete() {
+		FileUtils.deleteQuietly(directory.toFile());
+	}
+
+	public class DoGet extends FileChunkServletTest {
+
+		@Test
+		public void chunk() throws Exception {
+			ByteArrayServletOutputStream outputStream = new ByteArrayServletOutputStream();
+			when(response.getOutputStream()).thenReturn(outputStream);
+			mockParameters("/storage/file", "2", "3");
+
+			servlet.doGet(request, response);
+
+			byte[] expected = new byte[] { 3, 4, 5 };
+			assertThat(outputStream.toByteArray(), is(expected));
+			verify(response).setHeader(ChunkedTransferUtil.HEADER_CHUNK_CHECKSUM, String.valueOf(ChunkedTransferUtil.checksum(expected, 0, 3)));
+			verify(response).setContentLength(3);
+		}
+
+		@Test
+		public void chunkExceedsFile() throws Exception {
+			mockParameters("/storage/file", "4", "3");
+
+			servlet.doGet(request, response);
+
+			verify(response).sendError(eq(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE), anyString());
+		}
+
+		@Test
+		public void fileOutsideDirectory() throws Exception {
+			Files.write(directory.resolveSibling(directory.getFileName() + "-outside"), new byte[1]);
+			try {
+				mockParameters("/../" + directory.getFileName() + "-outside", "0", "1");
+
+				servlet.doGet(request, response);
+
+				verify(response).sendError(eq(HttpServletResponse.SC_NOT_FOUND), anyString());
+			} finally {
+				Files.deleteIfExists(directory.resolveSibling(directory.getFileName() + "-outside"));
+			}
+		}
+
+		@Test
+		public void missingParameters() throws Exception {
+			mockParameters("/storage/file", null, "3");
+
+			servlet.doGet(request, response);
+
+			verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+		}
+	}
+
+	void mockParameters(String file, String offset, String length) {
+		when(request.getParameter(ChunkedTransferUtil.PARAM_FILE)).thenReturn(file);
+		when(request.getParameter(ChunkedTransferUtil.PARAM_OFFSET)).thenReturn(offset);
+		when(request.getParameter(ChunkedTransferUtil.PARAM_LENGTH)).thenReturn(length);
+	}
+
+	/**
+	 * Servlet output stream writing to the byte array.
+	 */
+	static class ByteArrayServletOutputStream extends ServletOutputStream {
+
+		private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		@Override
+		public void write(int b) throws IOException {
+			outputStream.write(b);
+		}
+
+		byte[] toByteArray() {
+			return outputStream.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package rocks.inspectit.server.jetty;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.storage.transfer.ChunkedTransferUtil;
+
+/**
+ * Tests the chunked upload of the {@link FileUploadServlet}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class FileUploadServletTest extends TestBase {
+
+	static final byte[] CONTENT = new byte[] { 1, 2, 3, 4, 5, 6 };
+
+	static final int CHUNK_SIZE = 4;
+
+	FileUploadServlet servlet;
+
+	Path directory;
+
+	@Mock
+	HttpServletRequest request;
+
+	@Mock
+	HttpServletResponse response;
+
+	@BeforeMethod
+	public void init() throws Exception {
+		directory = Files.createTempDirectory("upload-servlet");
+		servlet = new FileUploadServlet();
+		servlet.setDirectoryToStore(directory.toString());
+		servlet.afterPropertiesSet();
+	}
+
+	@AfterMethod
+	public void delete() {
+		FileUtils.deleteQuietly(directory.toFile());
+	}
+
+	public class UploadChunk extends FileUploadServletTest {
+
+		@Test
+		public void chunksInAnyOrder() throws Exception {
+			postChunk("dir/file", 1, Arrays.copyOfRange(CONTENT, 4, 6), false);
+
+			Path file = directory.resolve("dir").resolve("file");
+			assertThat(Files.exists(file), is(false));
+			assertThat(Files.exists(ChunkedTransferUtil.getStateFile(file)), is(true));
+
+			postChunk("dir/file", 0, Arrays.copyOfRange(CONTENT, 0, 4), true);
+
+			assertThat(Files.readAllBytes(file), is(CONTENT));
+			assertThat(Files.exists(ChunkedTransferUtil.getPartFile(file)), is(false));
+			assertThat(Files.exists(ChunkedTransferUtil.getStateFile(file)), is(false));
+			verify(response, never()).sendError(anyInt(), anyString());
+		}
+
+		@Test
+		public void checksumNotMatching() throws Exception {
+			mockChunkHeaders("file", 0, 1L);
+			when(request.getInputStream()).thenReturn(new ByteArrayServletInputStream(Arrays.copyOfRange(CONTENT, 0, 4)));
+
+			servlet.doPost(request, response);
+
+			verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+			assertThat(Files.exists(ChunkedTransferUtil.getPartFile(directory.resolve("file"))), is(false));
+		}
+
+		@Test
+		public void chunkTooShort() throws Exception {
+			byte[] chunk = Arrays.copyOfRange(CONTENT, 0, 3);
+			mockChunkHeaders("file", 0, ChunkedTransferUtil.checksum(chunk, 0, chunk.length));
+			when(request.getInputStream()).thenReturn(new ByteArrayServletInputStream(chunk));
+
+			servlet.doPost(request, response);
+
+			verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+		}
+
+		@Test
+		public void fileOutsideUploadDirectory() throws Exception {
+			mockChunkHeaders("../file", 0, 0L);
+
+			servlet.doPost(request, response);
+
+			verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+			assertThat(Files.exists(directory.resolveSibling("file" + ChunkedTransferUtil.PART_EXTENSION)), is(false));
+		}
+	}
+
+	public class Status extends FileUploadServletTest {
+
+		@Test
+		public void completedChunks() throws Exception {
+			postChunk("file", 1, Arrays.copyOfRange(CONTENT, 4, 6), false);
+
+			assertThat(getStatus("file"), is("1"));
+		}
+
+		@Test
+		public void nothingUploaded() throws Exception {
+			assertThat(getStatus("file"), is(""));
+		}
+
+		@Test
+		public void fileAlreadyUploaded() throws Exception {
+			postChunk("file", 0, Arrays.copyOfRange(CONTENT, 0, 4), false);
+			postChunk("file", 1, Arrays.copyOfRange(CONTENT, 4, 6), false);
+
+			assertThat(getStatus("file"), is("0,1"));
+		}
+	}
+
+	void postChunk(String fileName, int index, byte[] chunk, boolean gzip) throws Exception {
+		mockChunkHeaders(fileName, index, ChunkedTransferUtil.checksum(chunk, 0, chunk.length));
+		byte[] body = chunk;
+		if (gzip) {
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+				gzipOutputStream.write(chunk);
+			}
+			body = byteArrayOutputStream.toByteArray();
+		}
+		when(request.getHeader("Content-Encoding")).thenReturn(gzip ? "gzip" : null);
+		when(request.getInputStream()).thenReturn(new ByteArrayServletInputStream(body));
+
+		servlet.doPost(request, response);
+	}
+
+	void mockChunkHeaders(String fileName, int index, long checksum) {
+		when(request.getHeader(ChunkedTransferUtil.HEADER_FILE)).thenReturn(fileName);
+		when(request.getHeader(ChunkedTransferUtil.HEADER_FILE_SIZE)).thenReturn(String.valueOf(CONTENT.length));
+		when(request.getHeader(ChunkedTransferUtil.HEADER_CHUNK_SIZE)).thenReturn(String.valueOf(CHUNK_SIZE));
+		when(request.getHeader(ChunkedTransferUtil.HEADER_CHUNK_INDEX)).thenReturn(String.valueOf(index));
+		when(request.getHeader(ChunkedTransferUtil.HEADER_CHUNK_CHECKSUM)).thenReturn(String.valueOf(checksum));
+	}
+
+	String getStatus(String fileName) throws Exception {
+		when(request.getHeader(ChunkedTransferUtil.HEADER_FILE)).thenReturn(fileName);
+		when(request.getHeader(ChunkedTransferUtil.HEADER_FILE_SIZE)).thenReturn(String.valueOf(CONTENT.length));
+		when(request.getHeader(ChunkedTransferUtil.HEADER_CHUNK_SIZE)).thenReturn(String.valueOf(CHUNK_SIZE));
+		when(request.getHeader(ChunkedTransferUtil.HEADER_CHUNK_INDEX)).thenReturn(null);
+		StringWriter stringWriter = new StringWriter();
+		when(response.getWriter()).thenReturn(new PrintWriter(stringWriter));
+
+		servlet.doGet(request, response);
+
+		return stringWriter.toString();
+	}
+
+	/**
+	 * Servlet input stream reading from the byte array.
+	 */
+	static class ByteArrayServletInputStream extends ServletInputStream {
+
+		private final ByteArrayInputStream inputStream;
+
+		ByteArrayServletInputStream(byte[] bytes) {
+			this.inputStream = new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public int read() throws IOException {
+			return inputStream.read();
+		}
+	}
+}
@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -34,6 +35,7 @@ import org.testng.annotations.Test;
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.dao.impl.TimerDataAggregator;
+import rocks.inspectit.server.dao.jdbc.JdbcBatchWriter;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
 import rocks.inspectit.server.storage.CmrStorageManager;
 import rocks.inspectit.server.util.CacheIdGenerator;
@@ -91,6 +93,9 @@ public class CmrDataProcessorsTest {
 	@Mock
 	private EntityManager entityManager;
 
+	@Mock
+	private JdbcBatchWriter jdbcBatchWriter;
+
 	@BeforeMethod
 	public void init() {
 		MockitoAnnotations.initMocks(this);
@@ -259,6 +264,7 @@ public class CmrDataProcessorsTest {
 	public void persistingCmrProcessor() {
 		// only Timer Data
 		PersistingCmrProcessor processor = new PersistingCmrProcessor(Collections.<Class<? extends DefaultData>> singletonList(TimerData.class));
+		processor.jdbcBatchWriter = jdbcBatchWriter;
 
 		// don't fail on null
 		processor.process((DefaultData) null, entityManager);
@@ -274,10 +280,16 @@ public class CmrDataProcessorsTest {
 		processor.process(timerData, entityManager);
 		verify(entityManager, times(1)).persist(timerData);
 
+		// no when written by the batch writer
+		when(jdbcBatchWriter.write(timerData)).thenReturn(true);
+		processor.process(timerData, entityManager);
+		verify(jdbcBatchWriter, times(2)).write(timerData);
+		verifyNoMoreInteractions(entityManager);
+
 		// no when influx is active
 		processor.influxActive = true;
 		processor.process(timerData, entityManager);
-		verifyNoMoreInteractions(entityManager);
+		verifyNoMoreInteractions(entityManager, jdbcBatchWriter);
 	}
 
 	/**
@@ -287,6 +299,7 @@ public class CmrDataProcessorsTest {
 	public void SystemInformationPersistingCmrProcessor() {
 		// only Timer Data
 		SystemInformationPersistingCmrProcessor processor = new SystemInformationPersistingCmrProcessor();
+		processor.jdbcBatchWriter = jdbcBatchWriter;
 
 		// don't fail on null
 		processor.process((DefaultData) null, entityManager);
@@ -334,6 +347,39 @@ public class CmrDataProcessorsTest {
 		verifyZeroInteractions(entityManager);
 	}
 
+	/**
+	 * Tests the {@link InvocationOverviewCmrProcessor}.
+	 */
+	@Test
+	public void invocationOverviewProcessor() {
+		InvocationOverviewCmrProcessor processor = new InvocationOverviewCmrProcessor();
+
+		// don't fail on null
+		processor.process((DefaultData) null, entityManager);
+
+		// only invocations
+		assertThat(processor.canBeProcessed(new TimerData()), is(false));
+
+		// only root invocations
+		InvocationSequenceData parent = new InvocationSequenceData();
+		InvocationSequenceData child = new InvocationSequenceData();
+		child.setParentSequence(parent);
+		assertThat(processor.canBeProcessed(child), is(false));
+		assertThat(processor.canBeProcessed(parent), is(true));
+
+		// projection is kept
+		parent.setId(10L);
+		parent.setBusinessTransactionId(5);
+		processor.process(parent, entityManager);
+
+		InvocationSequenceData projection = parent.getOverviewProjection();
+		assertThat(parent.getOverviewProjection(), is(sameInstance(projection)));
+		assertThat(projection.getId(), is(10L));
+		assertThat(projection.getBusinessTransactionId(), is(5));
+
+		verifyZeroInteractions(entityManager);
+	}
+
 	/**
 	 * Tests the {@link TimerDataChartingCmrProcessor}.
 	 */
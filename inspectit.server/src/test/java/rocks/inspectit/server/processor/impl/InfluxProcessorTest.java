@@ -1,8 +1,11 @@
 package rocks.inspectit.server.processor.impl;
 
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -15,12 +18,16 @@ import javax.persistence.EntityManager;
 
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Point.Builder;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.Test;
 
+import rocks.inspectit.server.influx.ILineProtocolListener;
+import rocks.inspectit.server.influx.builder.ILineProtocolPointBuilder;
 import rocks.inspectit.server.influx.builder.IPointBuilder;
-import rocks.inspectit.server.influx.dao.InfluxDBDao;
+import rocks.inspectit.server.influx.dao.InfluxDBWriter;
+import rocks.inspectit.server.influx.util.LineProtocolEncoder;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.HttpTimerData;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
@@ -38,7 +45,7 @@ public class InfluxProcessorTest extends TestBase {
 	InfluxProcessor processor;
 
 	@Mock
-	InfluxDBDao influxDBDao;
+	InfluxDBWriter influxDBWriter;
 
 	@Mock
 	EntityManager entityManager;
@@ -46,6 +53,12 @@ public class InfluxProcessorTest extends TestBase {
 	@Mock
 	IPointBuilder<DefaultData> pointBuilder;
 
+	@Mock
+	ILineProtocolPointBuilder<DefaultData> lineProtocolPointBuilder;
+
+	@Mock
+	ILineProtocolListener listener;
+
 	Builder builder = Point.measurement("test").addField("test", 1).time(1, TimeUnit.MILLISECONDS);
 
 	public class Process extends InfluxProcessorTest {
@@ -53,59 +66,74 @@ public class InfluxProcessorTest extends TestBase {
 		@Test
 		public void processed() {
 			InvocationSequenceData invocationData = new InvocationSequenceData();
-			when(influxDBDao.isConnected()).thenReturn(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
 			doReturn(Collections.singleton(InvocationSequenceData.class)).when(pointBuilder).getDataClasses();
 			when(pointBuilder.createBuilders(invocationData)).thenReturn(Collections.singleton(builder));
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
 
 			processor.process(invocationData, entityManager);
 
-			verify(influxDBDao).isConnected();
-			ArgumentCaptor<Point> pointCaptor = ArgumentCaptor.forClass(Point.class);
-			verify(influxDBDao).insert(pointCaptor.capture());
-			assertThat(pointCaptor.getValue().lineProtocol(), is(builder.build().lineProtocol()));
+			verify(influxDBWriter, times(2)).canWrite();
+			verify(influxDBWriter).write(builder.build().lineProtocol() + "\n");
 			verifyZeroInteractions(entityManager);
 		}
 
 		@Test
 		public void noBuilders() {
 			InvocationSequenceData invocationData = new InvocationSequenceData();
-			when(influxDBDao.isConnected()).thenReturn(true);
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> emptyList());
+			when(influxDBWriter.canWrite()).thenReturn(true);
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> emptyList(), Collections.singletonList(listener));
 
 			processor.process(invocationData, entityManager);
 
-			verify(influxDBDao).isConnected();
-			verifyNoMoreInteractions(influxDBDao);
+			verify(influxDBWriter).canWrite();
+			verifyNoMoreInteractions(influxDBWriter);
 			verifyZeroInteractions(entityManager);
 		}
 
 		@Test
 		public void influxOffline() {
 			InvocationSequenceData invocationData = new InvocationSequenceData();
-			when(influxDBDao.isConnected()).thenReturn(false);
+			when(influxDBWriter.canWrite()).thenReturn(false);
+			doReturn(Collections.singleton(InvocationSequenceData.class)).when(pointBuilder).getDataClasses();
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
+
+			processor.process(invocationData, entityManager);
+
+			verify(influxDBWriter).canWrite();
+			verifyNoMoreInteractions(influxDBWriter);
+			verifyZeroInteractions(entityManager);
+		}
+
+		@Test
+		public void influxOfflineListened() {
+			InvocationSequenceData invocationData = new InvocationSequenceData();
+			when(influxDBWriter.canWrite()).thenReturn(false);
+			when(listener.isListening()).thenReturn(true);
 			doReturn(Collections.singleton(InvocationSequenceData.class)).when(pointBuilder).getDataClasses();
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			when(pointBuilder.createBuilders(invocationData)).thenReturn(Collections.singleton(builder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
 
 			processor.process(invocationData, entityManager);
 
-			verify(influxDBDao).isConnected();
-			verifyNoMoreInteractions(influxDBDao);
+			verify(influxDBWriter, times(2)).canWrite();
+			verifyNoMoreInteractions(influxDBWriter);
+			verify(listener).onRecords(builder.build().lineProtocol() + "\n");
 			verifyZeroInteractions(entityManager);
 		}
 
 		@Test
 		public void builderForClassDoesNotExist() {
 			InvocationSequenceData invocationData = new InvocationSequenceData();
-			when(influxDBDao.isConnected()).thenReturn(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
 			doReturn(Collections.singleton(HttpTimerData.class)).when(pointBuilder).getDataClasses();
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
 
 			processor.process(invocationData, entityManager);
 
-			verify(influxDBDao).isConnected();
+			verify(influxDBWriter).canWrite();
 			verify(pointBuilder).getDataClasses();
-			verifyNoMoreInteractions(influxDBDao, pointBuilder);
+			verifyNoMoreInteractions(influxDBWriter, pointBuilder);
 			verifyZeroInteractions(entityManager);
 		}
 
@@ -113,15 +141,15 @@ public class InfluxProcessorTest extends TestBase {
 		public void timerNotCharting() {
 			TimerData data = new TimerData();
 			data.setCharting(false);
-			when(influxDBDao.isConnected()).thenReturn(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
 			doReturn(Collections.singleton(TimerData.class)).when(pointBuilder).getDataClasses();
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
 
 			processor.process(data, entityManager);
 
-			verify(influxDBDao).isConnected();
+			verify(influxDBWriter).canWrite();
 			verify(pointBuilder).getDataClasses();
-			verifyNoMoreInteractions(influxDBDao, pointBuilder);
+			verifyNoMoreInteractions(influxDBWriter, pointBuilder);
 			verifyZeroInteractions(entityManager);
 		}
 
@@ -129,17 +157,15 @@ public class InfluxProcessorTest extends TestBase {
 		public void timerCharting() {
 			TimerData data = new TimerData();
 			data.setCharting(true);
-			when(influxDBDao.isConnected()).thenReturn(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
 			doReturn(Collections.singleton(TimerData.class)).when(pointBuilder).getDataClasses();
 			when(pointBuilder.createBuilders(data)).thenReturn(Collections.singleton(builder));
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
 
 			processor.process(data, entityManager);
 
-			verify(influxDBDao).isConnected();
-			ArgumentCaptor<Point> pointCaptor = ArgumentCaptor.forClass(Point.class);
-			verify(influxDBDao).insert(pointCaptor.capture());
-			assertThat(pointCaptor.getValue().lineProtocol(), is(builder.build().lineProtocol()));
+			verify(influxDBWriter, times(2)).canWrite();
+			verify(influxDBWriter).write(builder.build().lineProtocol() + "\n");
 			verifyZeroInteractions(entityManager);
 		}
 
@@ -147,15 +173,15 @@ public class InfluxProcessorTest extends TestBase {
 		public void jmxNotNumeric() {
 			JmxSensorValueData data = new JmxSensorValueData();
 			data.setValue("string value");
-			when(influxDBDao.isConnected()).thenReturn(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
 			doReturn(Collections.singleton(JmxSensorValueData.class)).when(pointBuilder).getDataClasses();
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
 
 			processor.process(data, entityManager);
 
-			verify(influxDBDao).isConnected();
+			verify(influxDBWriter).canWrite();
 			verify(pointBuilder).getDataClasses();
-			verifyNoMoreInteractions(influxDBDao, pointBuilder);
+			verifyNoMoreInteractions(influxDBWriter, pointBuilder);
 			verifyZeroInteractions(entityManager);
 		}
 
@@ -163,19 +189,60 @@ public class InfluxProcessorTest extends TestBase {
 		public void jmxNumeric() {
 			JmxSensorValueData data = new JmxSensorValueData();
 			data.setValue("1");
-			when(influxDBDao.isConnected()).thenReturn(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
 			doReturn(Collections.singleton(JmxSensorValueData.class)).when(pointBuilder).getDataClasses();
 			when(pointBuilder.createBuilders(data)).thenReturn(Collections.singleton(builder));
-			processor = new InfluxProcessor(influxDBDao, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
+
+			processor.process(data, entityManager);
+
+			verify(influxDBWriter, times(2)).canWrite();
+			verify(influxDBWriter).write(builder.build().lineProtocol() + "\n");
+			verifyZeroInteractions(entityManager);
+		}
+
+	
+		@Test
+		public void lineProtocolBuilder() {
+			TimerData data = new TimerData();
+			data.setCharting(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
+			when(listener.isListening()).thenReturn(true);
+			doReturn(Collections.singleton(TimerData.class)).when(lineProtocolPointBuilder).getDataClasses();
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					LineProtocolEncoder encoder = (LineProtocolEncoder) invocation.getArguments()[1];
+					encoder.measurement("test").field("test", 1L).time(1, TimeUnit.MILLISECONDS);
+					return null;
+				}
+			}).when(lineProtocolPointBuilder).encode(eq(data), any(LineProtocolEncoder.class));
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(lineProtocolPointBuilder), Collections.singletonList(listener));
 
 			processor.process(data, entityManager);
 
-			verify(influxDBDao).isConnected();
-			ArgumentCaptor<Point> pointCaptor = ArgumentCaptor.forClass(Point.class);
-			verify(influxDBDao).insert(pointCaptor.capture());
-			assertThat(pointCaptor.getValue().lineProtocol(), is(builder.build().lineProtocol()));
+			verify(influxDBWriter, times(2)).canWrite();
+			verify(influxDBWriter).write(builder.build().lineProtocol() + "\n");
+			verify(listener).onRecords(builder.build().lineProtocol() + "\n");
+			verify(lineProtocolPointBuilder, never()).createBuilders(data);
 			verifyZeroInteractions(entityManager);
 		}
 
+		@Test
+		public void nothingEncoded() {
+			TimerData data = new TimerData();
+			data.setCharting(true);
+			when(influxDBWriter.canWrite()).thenReturn(true);
+			doReturn(Collections.singleton(TimerData.class)).when(pointBuilder).getDataClasses();
+			when(pointBuilder.createBuilders(data)).thenReturn(Collections.<Builder> emptyList());
+			processor = new InfluxProcessor(influxDBWriter, Collections.<IPointBuilder<DefaultData>> singletonList(pointBuilder), Collections.singletonList(listener));
+
+			processor.process(data, entityManager);
+
+			verify(influxDBWriter).canWrite();
+			verifyNoMoreInteractions(influxDBWriter);
+			verifyZeroInteractions(entityManager, listener);
+		}
+
 	}
 }
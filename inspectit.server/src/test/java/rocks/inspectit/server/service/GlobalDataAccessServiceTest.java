@@ -1,17 +1,30 @@
 package rocks.inspectit.server.service;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
@@ -22,6 +35,10 @@ import rocks.inspectit.server.dao.PlatformIdentDao;
 import rocks.inspectit.server.event.AgentDeletedEvent;
 import rocks.inspectit.server.util.AgentStatusDataProvider;
 import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.AggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.all.communication.data.cmr.AgentStatusData;
 import rocks.inspectit.shared.all.communication.data.cmr.AgentStatusData.AgentConnection;
 import rocks.inspectit.shared.all.exception.BusinessException;
@@ -111,4 +128,111 @@ public class GlobalDataAccessServiceTest extends TestBase {
 			assertThat(event.getPlatformId(), is(platformId));
 		}
 	}
+
+	/**
+	 * Tests the
+	 * {@link GlobalDataAccessService#getDataObjectsFromToDate(rocks.inspectit.shared.all.communication.DefaultData, Date, Date, long)}
+	 * method.
+	 */
+	public static class GetDataObjectsFromToDateWithResolution extends GlobalDataAccessServiceTest {
+
+		TimerData timerData(long time, double duration) {
+			TimerData timerData = new TimerData(new Timestamp(time), 1L, 2L, 3L);
+			timerData.calculateMin(duration);
+			timerData.calculateMax(duration);
+			timerData.addDuration(duration);
+			timerData.increaseCount();
+			return timerData;
+		}
+
+		@Test
+		public void aggregated() {
+			TimerData template = new TimerData(null, 1L, 2L, 3L);
+			when(defaultDataDao.findByExampleFromToDate(eq(template), any(Date.class), any(Date.class))).thenReturn(Arrays.<DefaultData> asList(timerData(61000L, 1d), timerData(65000L, 3d), timerData(71000L, 5d)));
+
+			List<? extends DefaultData> result = globalDataAccessService.getDataObjectsFromToDate(template, new Date(55000L), new Date(80000L), 10000L);
+
+			ArgumentCaptor<Date> fromCaptor = ArgumentCaptor.forClass(Date.class);
+			verify(defaultDataDao).findByExampleFromToDate(eq(template), fromCaptor.capture(), eq(new Date(79999L)));
+			assertThat(fromCaptor.getValue().getTime(), is(60000L));
+			assertThat(result, hasSize(2));
+			AggregatedTimerData first = (AggregatedTimerData) result.get(0);
+			assertThat(first.getTimeStamp().getTime(), is(60000L));
+			assertThat(first.getCount(), is(2L));
+			assertThat(first.getMax(), is(3d));
+			assertThat(result.get(1).getTimeStamp().getTime(), is(70000L));
+		}
+
+		@Test
+		public void incompleteBucketNotReturned() {
+			TimerData template = new TimerData(null, 1L, 2L, 3L);
+
+			globalDataAccessService.getDataObjectsFromToDate(template, new Date(55000L), new Date(75000L), 10000L);
+
+			verify(defaultDataDao).findByExampleFromToDate(template, new Date(60000L), new Date(69999L));
+		}
+
+		@Test
+		public void incrementalLoads() {
+			TimerData template = new TimerData(null, 1L, 2L, 3L);
+			final List<DefaultData> stored = Arrays.<DefaultData> asList(timerData(61000L, 1d), timerData(65000L, 3d), timerData(71000L, 5d), timerData(75000L, 7d));
+			when(defaultDataDao.findByExampleFromToDate(eq(template), any(Date.class), any(Date.class))).thenAnswer(new Answer<List<DefaultData>>() {
+				@Override
+				public List<DefaultData> answer(InvocationOnMock invocation) throws Throwable {
+					Date from = (Date) invocation.getArguments()[1];
+					Date to = (Date) invocation.getArguments()[2];
+					List<DefaultData> result = new ArrayList<>();
+					for (DefaultData defaultData : stored) {
+						if (!defaultData.getTimeStamp().before(from) && !defaultData.getTimeStamp().after(to)) {
+							result.add(defaultData);
+						}
+					}
+					return result;
+				}
+			});
+
+			List<? extends DefaultData> first = globalDataAccessService.getDataObjectsFromToDate(template, new Date(55000L), new Date(73000L), 10000L);
+			long newestDate = first.get(first.size() - 1).getTimeStamp().getTime();
+			List<? extends DefaultData> second = globalDataAccessService.getDataObjectsFromToDate(template, new Date(newestDate + 1), new Date(85000L), 10000L);
+
+			assertThat(first, hasSize(1));
+			assertThat(((AggregatedTimerData) first.get(0)).getCount(), is(2L));
+			assertThat(second, hasSize(1));
+			assertThat(second.get(0).getTimeStamp().getTime(), is(70000L));
+			assertThat(((AggregatedTimerData) second.get(0)).getCount(), is(2L));
+			assertThat(((AggregatedTimerData) second.get(0)).getMax(), is(7d));
+		}
+
+		@Test
+		public void noBucketInRange() {
+			TimerData template = new TimerData(null, 1L, 2L, 3L);
+
+			List<? extends DefaultData> result = globalDataAccessService.getDataObjectsFromToDate(template, new Date(61000L), new Date(65000L), 10000L);
+
+			assertThat(result, is(empty()));
+			verifyZeroInteractions(defaultDataDao);
+		}
+
+		@Test
+		public void rawWithoutResolution() {
+			TimerData template = new TimerData(null, 1L, 2L, 3L);
+			List<DefaultData> raw = Arrays.<DefaultData> asList(timerData(61000L, 1d), timerData(65000L, 3d));
+			when(defaultDataDao.findByExampleFromToDate(template, new Date(55000L), new Date(80000L))).thenReturn(raw);
+
+			List<? extends DefaultData> result = globalDataAccessService.getDataObjectsFromToDate(template, new Date(55000L), new Date(80000L), 0L);
+
+			assertThat(result, is((Object) raw));
+		}
+
+		@Test
+		public void rawNotRolledUp() {
+			InvocationSequenceData template = new InvocationSequenceData(null, 1L, 2L, 3L);
+			List<DefaultData> raw = Collections.<DefaultData> singletonList(new InvocationSequenceData(new Timestamp(61000L), 1L, 2L, 3L));
+			when(defaultDataDao.findByExampleFromToDate(template, new Date(55000L), new Date(80000L))).thenReturn(raw);
+
+			List<? extends DefaultData> result = globalDataAccessService.getDataObjectsFromToDate(template, new Date(55000L), new Date(80000L), 10000L);
+
+			assertThat(result, is((Object) raw));
+		}
+	}
 }
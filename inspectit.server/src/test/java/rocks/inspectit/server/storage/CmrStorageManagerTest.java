@@ -5,8 +5,11 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -15,15 +18,23 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+import org.apache.commons.io.FileUtils;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -40,15 +51,23 @@ import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.dao.StorageDataDao;
 import rocks.inspectit.server.test.AbstractTestNGLogSupport;
 import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.serializer.SerializationException;
 import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
 import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
 import rocks.inspectit.shared.all.version.VersionService;
 import rocks.inspectit.shared.cs.cmr.service.IServerStatusService;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportResult;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus.ExportState;
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.export.ColumnarExportReader;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 import rocks.inspectit.shared.cs.storage.recording.RecordingProperties;
 import rocks.inspectit.shared.cs.storage.recording.RecordingState;
@@ -96,6 +115,9 @@ public class CmrStorageManagerTest extends AbstractTestNGLogSupport {
 	@Mock
 	IBuffer<DefaultData> buffer;
 
+	@Mock
+	ExecutorService exportExecutorService;
+
 	private StorageData storageData;
 
 	/**
@@ -116,6 +138,15 @@ public class CmrStorageManagerTest extends AbstractTestNGLogSupport {
 		storageManager.serverStatusService = serverStatusService;
 		storageManager.log = LoggerFactory.getLogger(CmrStorageManager.class);
 		storageManager.versionService = versionService;
+		storageManager.exportExecutorService = exportExecutorService;
+		storageManager.exportRetentionTime = 86400000L;
+		doAnswer(new Answer<Future<?>>() {
+			@Override
+			public Future<?> answer(InvocationOnMock invocation) throws Throwable {
+				((Runnable) invocation.getArguments()[0]).run();
+				return null;
+			}
+		}).when(exportExecutorService).submit(Matchers.any(Runnable.class));
 		when(storageWriterProvider.getCmrStorageWriter()).thenReturn(storageWriter);
 		when(serializationManagerProvider.createSerializer()).thenReturn(serializer);
 		when(versionService.getVersionAsString()).thenReturn(CMR_VERSION);
@@ -442,6 +473,168 @@ public class CmrStorageManagerTest extends AbstractTestNGLogSupport {
 		assertThat(storageManager.isStorageClosed(storageData), is(true));
 	}
 
+	/**
+	 * Tests that the matching buffer data is exported to the columnar file.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void exportBufferColumnar() throws IOException {
+		final List<DefaultData> data = new ArrayList<>();
+		data.add(new TimerData(new Timestamp(1000L), 10L, 1L, 100L));
+		data.add(new TimerData(new Timestamp(2000L), 20L, 1L, 100L));
+		data.add(new SqlStatementData(new Timestamp(3000L), 10L, 2L, 200L, "SELECT 1"));
+		data.add(new InvocationSequenceData(new Timestamp(4000L), 10L, 3L, 300L));
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Consumer<DefaultData> consumer = (Consumer<DefaultData>) invocation.getArguments()[0];
+				for (DefaultData defaultData : data) {
+					consumer.accept(defaultData);
+				}
+				return null;
+			}
+		}).when(buffer).forEachElement(Matchers.<Consumer<DefaultData>> any());
+		ColumnarExportRequest request = new ColumnarExportRequest();
+		request.setPlatformIdent(10L);
+
+		try {
+			ColumnarExportStatus status = storageManager.exportBufferColumnar(request);
+
+			assertThat(status.getState(), is(ExportState.FINISHED));
+			assertThat(storageManager.getColumnarExportStatus(status.getId()), is(status));
+			assertThat(status.getWrittenRows(), is(2L));
+			ColumnarExportResult result = status.getResult();
+			assertThat(result.getRowCount(), is(2L));
+			assertThat(result.getRowGroupCount(), is(2));
+			assertThat(result.getFileLocation(), startsWith("/export/buffer-"));
+			Path exportFile = getExportFile(result);
+			assertThat(Files.size(exportFile), is(result.getFileSize()));
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				assertThat(reader.getRowGroups(), hasSize(2));
+			}
+		} finally {
+			FileUtils.deleteDirectory(Paths.get(storageManager.getStorageDefaultFolder()).resolve("export").toFile());
+		}
+	}
+
+	/**
+	 * Tests that the file of the failed export is deleted.
+	 */
+	@Test
+	public void exportBufferColumnarFailed() throws IOException {
+		doThrow(new RuntimeException("Buffer failure")).when(buffer).forEachElement(Matchers.<Consumer<DefaultData>> any());
+
+		try {
+			ColumnarExportStatus status = storageManager.exportBufferColumnar(new ColumnarExportRequest());
+
+			assertThat(status.getState(), is(ExportState.FAILED));
+			assertThat(status.getFailureMessage(), is("Buffer failure"));
+			assertThat(status.getResult(), is(nullValue()));
+			assertThat(getExportFiles(), is(empty()));
+		} finally {
+			FileUtils.deleteDirectory(Paths.get(storageManager.getStorageDefaultFolder()).resolve("export").toFile());
+		}
+	}
+
+	/**
+	 * Tests that the export file and status are deleted on request.
+	 */
+	@Test
+	public void deleteColumnarExport() throws IOException, BusinessException {
+		try {
+			ColumnarExportStatus status = storageManager.exportBufferColumnar(new ColumnarExportRequest());
+			assertThat(Files.exists(getExportFile(status.getResult())), is(true));
+
+			storageManager.deleteColumnarExport(status.getId());
+
+			assertThat(Files.exists(getExportFile(status.getResult())), is(false));
+			assertThat(storageManager.getColumnarExportStatus(status.getId()), is(nullValue()));
+		} finally {
+			FileUtils.deleteDirectory(Paths.get(storageManager.getStorageDefaultFolder()).resolve("export").toFile());
+		}
+	}
+
+	/**
+	 * Running export can not be deleted.
+	 */
+	@Test(expectedExceptions = { BusinessException.class })
+	public void deleteRunningColumnarExport() throws IOException, BusinessException {
+		storageManager.exportExecutorService = mock(ExecutorService.class);
+		try {
+			ColumnarExportStatus status = storageManager.exportBufferColumnar(new ColumnarExportRequest());
+
+			storageManager.deleteColumnarExport(status.getId());
+		} finally {
+			FileUtils.deleteDirectory(Paths.get(storageManager.getStorageDefaultFolder()).resolve("export").toFile());
+		}
+	}
+
+	/**
+	 * Tests that only the exports older than the retention time are deleted.
+	 */
+	@Test
+	public void deleteExpiredColumnarExports() throws IOException {
+		storageManager.exportRetentionTime = 60000L;
+		try {
+			ColumnarExportStatus expired = storageManager.exportBufferColumnar(new ColumnarExportRequest());
+			ColumnarExportStatus recent = storageManager.exportBufferColumnar(new ColumnarExportRequest());
+			long expiredTime = System.currentTimeMillis() - 120000L;
+			expired.setEndDate(new Date(expiredTime));
+			Files.setLastModifiedTime(getExportFile(expired.getResult()), FileTime.fromMillis(expiredTime));
+
+			storageManager.deleteExpiredColumnarExports();
+
+			assertThat(Files.exists(getExportFile(expired.getResult())), is(false));
+			assertThat(storageManager.getColumnarExportStatus(expired.getId()), is(nullValue()));
+			assertThat(Files.exists(getExportFile(recent.getResult())), is(true));
+			assertThat(storageManager.getColumnarExportStatus(recent.getId()), is(recent));
+		} finally {
+			FileUtils.deleteDirectory(Paths.get(storageManager.getStorageDefaultFolder()).resolve("export").toFile());
+		}
+	}
+
+	/**
+	 * Returns the path of the exported file.
+	 *
+	 * @param result
+	 *            Export result.
+	 * @return Path of the file.
+	 */
+	private Path getExportFile(ColumnarExportResult result) {
+		return Paths.get(storageManager.getStorageDefaultFolder()).resolve(result.getFileLocation().substring(1));
+	}
+
+	/**
+	 * Returns all files in the export folder.
+	 *
+	 * @return Files in the export folder.
+	 */
+	private List<Path> getExportFiles() throws IOException {
+		List<Path> files = new ArrayList<>();
+		Path exportDir = Paths.get(storageManager.getStorageDefaultFolder()).resolve("export");
+		if (Files.isDirectory(exportDir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(exportDir)) {
+				for (Path path : stream) {
+					files.add(path);
+				}
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Storage that is not closed can not be exported.
+	 */
+	@Test(expectedExceptions = { BusinessException.class })
+	public void exportStorageColumnarNotClosed() throws IOException, SerializationException, BusinessException {
+		storageData = new StorageData();
+		storageData.setName("Test");
+		storageManager.createStorage(storageData);
+		storageManager.openStorage(storageData);
+
+		storageManager.exportStorageColumnar(storageData, new ColumnarExportRequest());
+	}
+
 	/**
 	 * After processing to delete storage that might be created in the test.
 	 */
@@ -2,9 +2,14 @@ package rocks.inspectit.server.storage;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -12,13 +17,17 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -28,8 +37,10 @@ import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.SystemInformationData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.cs.communication.data.cmr.RecordingStatistics;
 import rocks.inspectit.shared.cs.storage.StorageWriter;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
+import rocks.inspectit.shared.cs.storage.recording.RecordingBackpressurePolicy;
 import rocks.inspectit.shared.cs.storage.recording.RecordingProperties;
 
 /**
@@ -64,6 +75,8 @@ public class CmrStorageRecorderTest extends AbstractTestNGLogSupport {
 	@Mock
 	private RecordingProperties recordingProperties;
 
+	private ExecutorService recordingExecutorService;
+
 	/**
 	 * Init method.
 	 */
@@ -74,10 +87,22 @@ public class CmrStorageRecorderTest extends AbstractTestNGLogSupport {
 		cmrStorageRecorder.storageDataDao = storageDataDao;
 		cmrStorageRecorder.cmrStorageManager = cmrStorageManager;
 		cmrStorageRecorder.executorService = executorService;
+		recordingExecutorService = Executors.newSingleThreadExecutor();
+		cmrStorageRecorder.recordingExecutorService = recordingExecutorService;
+		cmrStorageRecorder.recordingQueueCapacity = 100;
+		cmrStorageRecorder.recordingBackpressurePolicy = RecordingBackpressurePolicy.BLOCK.name();
 		cmrStorageRecorder.log = LoggerFactory.getLogger(CmrStorageRecorder.class);
 		when(storageWriter.isWritingOn()).thenReturn(true);
 	}
 
+	/**
+	 * Shuts down the recording executor.
+	 */
+	@AfterMethod
+	public void shutdown() {
+		recordingExecutorService.shutdownNow();
+	}
+
 	/**
 	 * Test that start of recording and processing of data is correct.
 	 */
@@ -91,10 +116,32 @@ public class CmrStorageRecorderTest extends AbstractTestNGLogSupport {
 		cmrStorageRecorder.record(defaultData);
 
 		verify(dataProcessor, times(1)).setStorageWriter(storageWriter);
-		verify(dataProcessor, times(1)).process(defaultData);
+		verify(dataProcessor, timeout(1000).times(1)).process(defaultData);
 		verifyNoMoreInteractions(dataProcessor);
 	}
 
+	/**
+	 * Tests that the statistics of the active recording are reported.
+	 */
+	@Test
+	public void recordingStatistics() throws BusinessException {
+		when(recordingProperties.getRecordingDataProcessors()).thenReturn(Collections.singleton(dataProcessor));
+		when(recordingProperties.getBackpressurePolicy()).thenReturn(RecordingBackpressurePolicy.SAMPLE);
+		assertThat(cmrStorageRecorder.getRecordingStatistics(), is(nullValue()));
+
+		cmrStorageRecorder.startOrScheduleRecording(storageWriter, recordingProperties);
+		DefaultData defaultData = mock(DefaultData.class);
+		cmrStorageRecorder.record(defaultData);
+		verify(dataProcessor, timeout(1000).times(1)).process(defaultData);
+
+		RecordingStatistics recordingStatistics = cmrStorageRecorder.getRecordingStatistics();
+		assertThat(recordingStatistics, is(notNullValue()));
+		assertThat(recordingStatistics.getBackpressurePolicy(), is(RecordingBackpressurePolicy.SAMPLE));
+		assertThat(recordingStatistics.getRecordedCount(), is(1L));
+		assertThat(recordingStatistics.getQueueCapacity(), is(100));
+		assertThat(recordingStatistics.getLostCount(), is(0L));
+	}
+
 	/**
 	 * Tests that no data will be processed if recording is off and storage writer is turned off.
 	 */
@@ -173,10 +220,42 @@ public class CmrStorageRecorderTest extends AbstractTestNGLogSupport {
 
 		cmrStorageRecorder.stopRecording();
 
-		verify(dataProcessor, times(1)).flush();
-		verify(cmrStorageRecorder, times(1)).record(systemInformationData);
+		InOrder inOrder = inOrder(dataProcessor);
+		inOrder.verify(dataProcessor, times(1)).process(defaultData);
+		inOrder.verify(dataProcessor, times(1)).process(systemInformationData);
+		inOrder.verify(dataProcessor, times(1)).flush();
+		verify(cmrStorageRecorder, never()).record(systemInformationData);
 
 		assertThat(cmrStorageRecorder.isRecordingOn(), is(false));
 	}
 
+	/**
+	 * Tests that the system information data is recorded on stop even if the queue is full and
+	 * would drop the data.
+	 */
+	@Test
+	public void stopRecordingQueueFull() throws BusinessException {
+		cmrStorageRecorder.recordingExecutorService = mock(ExecutorService.class);
+		cmrStorageRecorder.recordingQueueCapacity = 1;
+		cmrStorageRecorder.recordingBackpressurePolicy = RecordingBackpressurePolicy.DROP_OLDEST.name();
+		when(recordingProperties.getRecordingDataProcessors()).thenReturn(Collections.singleton(dataProcessor));
+		cmrStorageRecorder.startOrScheduleRecording(storageWriter, recordingProperties);
+
+		long platformId = 10L;
+		DefaultData defaultData = mock(DefaultData.class);
+		when(defaultData.getPlatformIdent()).thenReturn(platformId);
+		cmrStorageRecorder.record(defaultData);
+		cmrStorageRecorder.record(defaultData);
+
+		SystemInformationData systemInformationData = mock(SystemInformationData.class);
+		when(storageDataDao.getSystemInformationData(Collections.singleton(platformId))).thenReturn(Collections.singletonList(systemInformationData));
+
+		cmrStorageRecorder.stopRecording();
+
+		InOrder inOrder = inOrder(dataProcessor);
+		inOrder.verify(dataProcessor, times(1)).process(systemInformationData);
+		inOrder.verify(dataProcessor, times(1)).flush();
+		verify(dataProcessor, never()).process(defaultData);
+	}
+
 }
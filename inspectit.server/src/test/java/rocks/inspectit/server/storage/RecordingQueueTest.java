@@ -0,0 +1,190 @@
+package rocks.inspectit.server.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.test.AbstractTestNGLogSupport;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.cs.communication.data.cmr.RecordingStatistics;
+import rocks.inspectit.shared.cs.storage.StorageWriter;
+import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
+import rocks.inspectit.shared.cs.storage.recording.RecordingBackpressurePolicy;
+
+/**
+ * Test for the {@link RecordingQueue}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class RecordingQueueTest extends AbstractTestNGLogSupport {
+
+	/**
+	 * Class under test.
+	 */
+	private RecordingQueue recordingQueue;
+
+	@Mock
+	private AbstractDataProcessor dataProcessor;
+
+	@Mock
+	private StorageWriter storageWriter;
+
+	private ExecutorService executorService;
+
+	/**
+	 * Init method.
+	 */
+	@BeforeMethod
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		executorService = Executors.newSingleThreadExecutor();
+		when(storageWriter.isWritingOn()).thenReturn(true);
+	}
+
+	/**
+	 * Shuts down the executor.
+	 */
+	@AfterMethod
+	public void shutdown() {
+		executorService.shutdownNow();
+	}
+
+	/**
+	 * Tests that the oldest data is dropped when the queue is full.
+	 */
+	@Test
+	public void dropOldest() {
+		recordingQueue = new RecordingQueue(10, RecordingBackpressurePolicy.DROP_OLDEST, Collections.singleton(dataProcessor), storageWriter);
+		List<DefaultData> data = createData(15);
+		for (DefaultData defaultData : data) {
+			assertThat(recordingQueue.offer(defaultData), is(true));
+		}
+
+		recordingQueue.start(executorService);
+		recordingQueue.stop();
+
+		for (int i = 0; i < 5; i++) {
+			verify(dataProcessor, never()).process(data.get(i));
+		}
+		for (int i = 5; i < 15; i++) {
+			verify(dataProcessor, times(1)).process(data.get(i));
+		}
+		RecordingStatistics statistics = recordingQueue.getStatistics();
+		assertThat(statistics.getRecordedCount(), is(15L));
+		assertThat(statistics.getDroppedCount(), is(5L));
+		assertThat(statistics.getProcessedCount(), is(10L));
+		assertThat(statistics.getLostCount(), is(5L));
+		assertThat(statistics.getQueuedCount(), is(0));
+	}
+
+	/**
+	 * Tests that sampling starts when the queue is half full.
+	 */
+	@Test
+	public void sample() {
+		recordingQueue = new RecordingQueue(10, RecordingBackpressurePolicy.SAMPLE, Collections.singleton(dataProcessor), storageWriter);
+		for (int i = 0; i < 5; i++) {
+			assertThat(recordingQueue.getSamplingStep(), is(1));
+			assertThat(recordingQueue.offer(mock(DefaultData.class)), is(true));
+		}
+		assertThat(recordingQueue.getSamplingStep(), is(1));
+		for (int i = 0; i < 95; i++) {
+			recordingQueue.offer(mock(DefaultData.class));
+		}
+
+		RecordingStatistics statistics = recordingQueue.getStatistics();
+		assertThat(statistics.getSampledOutCount(), is(greaterThan(0L)));
+		assertThat(statistics.getRecordedCount() + statistics.getSampledOutCount() + statistics.getDroppedCount(), is(100L));
+		assertThat(statistics.getQueuedCount(), is((int) statistics.getRecordedCount()));
+		assertThat(recordingQueue.getSamplingStep(), is(greaterThan(1)));
+	}
+
+	/**
+	 * Tests that no data is lost with the blocking policy.
+	 */
+	@Test
+	public void block() {
+		recordingQueue = new RecordingQueue(2, RecordingBackpressurePolicy.BLOCK, Collections.singleton(dataProcessor), storageWriter);
+		recordingQueue.start(executorService);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(recordingQueue.offer(mock(DefaultData.class)), is(true));
+		}
+		recordingQueue.stop();
+
+		verify(dataProcessor, times(1000)).process(any(DefaultData.class));
+		RecordingStatistics statistics = recordingQueue.getStatistics();
+		assertThat(statistics.getRecordedCount(), is(1000L));
+		assertThat(statistics.getProcessedCount(), is(1000L));
+		assertThat(statistics.getLostCount(), is(0L));
+	}
+
+	/**
+	 * Tests that data is not processed while the storage writer has too many pending tasks.
+	 */
+	@Test
+	public void writerBackpressure() throws InterruptedException {
+		when(storageWriter.getQueuedTaskCount()).thenReturn(100L);
+		recordingQueue = new RecordingQueue(10, RecordingBackpressurePolicy.DROP_OLDEST, Collections.singleton(dataProcessor), storageWriter);
+		recordingQueue.start(executorService);
+		DefaultData defaultData = mock(DefaultData.class);
+		recordingQueue.offer(defaultData);
+
+		Thread.sleep(200);
+		verify(dataProcessor, never()).process(defaultData);
+
+		when(storageWriter.getQueuedTaskCount()).thenReturn(0L);
+		recordingQueue.stop();
+
+		verify(dataProcessor, times(1)).process(defaultData);
+	}
+
+	/**
+	 * Tests that data offered after the queue has been stopped is not processed.
+	 */
+	@Test
+	public void notAcceptingAfterStop() {
+		recordingQueue = new RecordingQueue(10, RecordingBackpressurePolicy.BLOCK, Collections.singleton(dataProcessor), storageWriter);
+		recordingQueue.start(executorService);
+		recordingQueue.stop();
+
+		assertThat(recordingQueue.offer(mock(DefaultData.class)), is(false));
+
+		verify(dataProcessor, never()).process(any(DefaultData.class));
+		assertThat(recordingQueue.getStatistics().getDroppedCount(), is(1L));
+	}
+
+	/**
+	 * Creates the given amount of data mocks.
+	 *
+	 * @param count
+	 *            Amount of data.
+	 * @return List of data.
+	 */
+	private List<DefaultData> createData(int count) {
+		List<DefaultData> data = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			data.add(mock(DefaultData.class));
+		}
+		return data;
+	}
+}
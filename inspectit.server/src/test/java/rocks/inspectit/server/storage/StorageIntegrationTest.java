@@ -1,13 +1,16 @@
 package rocks.inspectit.server.storage;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -23,11 +26,17 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.testng.annotations.AfterTest;
@@ -40,21 +49,35 @@ import rocks.inspectit.server.test.AbstractTransactionalTestNGLogSupport;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.serializer.ISerializer;
 import rocks.inspectit.shared.all.serializer.SerializationException;
-import rocks.inspectit.shared.all.serializer.util.KryoUtil;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportResult;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus.ExportState;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus.CompactionState;
+import rocks.inspectit.shared.cs.indexing.query.provider.impl.StorageIndexQueryProvider;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageFileType;
 import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.export.ColumnarDataType;
+import rocks.inspectit.shared.cs.storage.export.ColumnarExportReader;
+import rocks.inspectit.shared.cs.storage.export.ColumnarRowGroup;
+import rocks.inspectit.shared.cs.storage.export.ColumnarRowGroupMetadata;
 import rocks.inspectit.shared.cs.storage.label.StringStorageLabel;
 import rocks.inspectit.shared.cs.storage.label.type.impl.RatingLabelType;
 import rocks.inspectit.shared.cs.storage.nio.stream.InputStreamProvider;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.impl.DataSaverProcessor;
+import rocks.inspectit.shared.cs.storage.util.RangeDescriptor;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
 
 /**
  * Tests the complete CMR storage functionality.
@@ -85,6 +108,18 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 	@Autowired
 	private ISerializer serializer;
 
+	/**
+	 * {@link StorageQueryExecutor}.
+	 */
+	@Autowired
+	private StorageQueryExecutor storageQueryExecutor;
+
+	/**
+	 * {@link StorageIndexQueryProvider}.
+	 */
+	@Autowired
+	private StorageIndexQueryProvider storageIndexQueryProvider;
+
 	/**
 	 * Storage data to be used in testing.
 	 */
@@ -248,7 +283,15 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 		Object indexingTree = serializer.deserialize(input);
 		assertThat(indexingTree, is(instanceOf(IStorageTreeComponent.class)));
 
-		storageIndexingTree = (IStorageTreeComponent<?>) indexingTree;
+		File[] leafFiles = storageFolder.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(StorageFileType.INDEX_LEAF_FILE.getExtension());
+			}
+		});
+		assertThat(leafFiles.length, is(equalTo(1)));
+
+		storageIndexingTree = storageManager.loadIndexingTree(storageData);
 
 		assertThat(storageManager.getReadableStorages(), hasItem(storageData));
 	}
@@ -311,14 +354,30 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 			assertThat("Size of the descriptor is wrong.", descriptor.getSize(), is(greaterThan(0L)));
 		}
 
+		Map<Integer, List<IStorageDescriptor>> channelDescriptors = new HashMap<>();
+		for (IStorageDescriptor descriptor : descriptors) {
+			List<IStorageDescriptor> list = channelDescriptors.get(descriptor.getChannelId());
+			if (null == list) {
+				list = new ArrayList<>();
+				channelDescriptors.put(descriptor.getChannelId(), list);
+			}
+			list.add(descriptor);
+		}
+
 		int count = 0;
-		try (InputStream result = inputStreamProvider.getExtendedByteBufferInputStream(storageData, descriptors);) {
-			Input input = new Input(result);
-			while (KryoUtil.hasMoreBytes(input)) {
-				Object invocation = serializer.deserialize(input);
-				assertThat(invocation, is(instanceOf(InvocationSequenceData.class)));
-				assertThat(createdInvocations, hasItem((InvocationSequenceData) invocation));
-				count++;
+		for (Map.Entry<Integer, List<IStorageDescriptor>> entry : channelDescriptors.entrySet()) {
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(entry.getValue());
+			List<IStorageDescriptor> rangeDescriptors = new ArrayList<>();
+			for (RangeDescriptor range : ranges) {
+				rangeDescriptors.add(new StorageDescriptor(entry.getKey(), range.getStart(), (range.getEnd() - range.getStart()) + 1));
+			}
+			try (InputStream result = inputStreamProvider.getExtendedByteBufferInputStream(storageData, rangeDescriptors);) {
+				List<Object> objects = StorageBlockUtil.deserialize(entry.getValue(), ranges, result, serializer);
+				for (Object invocation : objects) {
+					assertThat(invocation, is(instanceOf(InvocationSequenceData.class)));
+					assertThat(createdInvocations, hasItem((InvocationSequenceData) invocation));
+					count++;
+				}
 			}
 		}
 		assertThat("Amount of de-serialize objects is less than the amount of invocations saved.", count, is(equalTo(createdInvocations.size())));
@@ -358,10 +417,11 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 
 		int count = 0;
 		for (Path path : allPaths) {
+			// complete file consists of the compressed blocks
+			List<IStorageDescriptor> fileDescriptor = Collections.<IStorageDescriptor> singletonList(new StorageDescriptor(0, 0, Files.size(path)));
 			try (InputStream result = Files.newInputStream(path, StandardOpenOption.READ)) {
-				Input input = new Input(result);
-				while (KryoUtil.hasMoreBytes(input)) {
-					Object invocation = serializer.deserialize(input);
+				List<Object> objects = StorageBlockUtil.deserialize(fileDescriptor, StorageBlockUtil.getReadRanges(fileDescriptor), result, serializer);
+				for (Object invocation : objects) {
 					assertThat(invocation, is(instanceOf(InvocationSequenceData.class)));
 					assertThat(createdInvocations, hasItem((InvocationSequenceData) invocation));
 					count++;
@@ -371,6 +431,207 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 		assertThat("Amount of de-serialize objects is less than the amount of invocations saved.", count, is(equalTo(createdInvocations.size())));
 	}
 
+	/**
+	 * Tests the compaction of the storage and its copy into the new storage. Duplicated
+	 * invocations must be written only once.
+	 *
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	@Test(dependsOnMethods = { "finalizeWriteTest" })
+	public void compactStorages() throws Exception {
+		StorageData copyStorage = new StorageData();
+		copyStorage.setName("Copy");
+		StorageData compactedStorage = new StorageData();
+		compactedStorage.setName("Compacted");
+		try {
+			storageManager.createStorage(copyStorage);
+			storageManager.openStorage(copyStorage);
+			storageManager.writeToStorage(copyStorage, createdInvocations, Collections.<AbstractDataProcessor> singletonList(dataSaverProcessor), true);
+			storageManager.closeStorage(copyStorage);
+
+			StorageCompactionStatus status = storageManager.compactStorages(Arrays.asList(storageData, copyStorage), compactedStorage);
+			long waitUntil = System.currentTimeMillis() + 60000L;
+			while (!status.isDone() && (System.currentTimeMillis() < waitUntil)) {
+				Thread.sleep(100L);
+			}
+
+			assertThat(status.getState(), is(CompactionState.FINISHED));
+			assertThat(storageManager.getCompactionStatus(compactedStorage), is(status));
+			assertThat(status.getTotalObjects(), is(2L * createdInvocations.size()));
+			assertThat(status.getWrittenObjects(), is((long) createdInvocations.size()));
+			assertThat(status.getDuplicatesRemoved(), is((long) createdInvocations.size()));
+			assertThat(status.getPercentageComplete(), is(100));
+			assertThat(storageManager.getReadableStorages(), hasItem(compactedStorage));
+
+			IStorageTreeComponent<DefaultData> compactedTree = storageManager.loadIndexingTree(compactedStorage);
+			if (createdInvocations.isEmpty()) {
+				return;
+			}
+			StorageIndexQuery query = new StorageIndexQuery();
+			List<Class<?>> searchedClasses = new ArrayList<>();
+			searchedClasses.add(InvocationSequenceData.class);
+			query.setObjectClasses(searchedClasses);
+			assertThat(compactedTree.query(query), hasSize(createdInvocations.size()));
+		} finally {
+			if (storageManager.isStorageExisting(copyStorage)) {
+				storageManager.deleteStorage(copyStorage);
+			}
+			if (storageManager.isStorageExisting(compactedStorage)) {
+				storageManager.deleteStorage(compactedStorage);
+			}
+		}
+	}
+
+	/**
+	 * Tests that the compaction of the storages from different CMRs does not remove the
+	 * different objects that only share the id. Only the objects that are really equal are
+	 * written once.
+	 *
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	@Test
+	public void compactStoragesWithCollidingIds() throws Exception {
+		StorageData firstStorage = new StorageData();
+		firstStorage.setName("First CMR");
+		StorageData secondStorage = new StorageData();
+		secondStorage.setName("Second CMR");
+		StorageData compactedStorage = new StorageData();
+		compactedStorage.setName("Compacted CMRs");
+		try {
+			List<TimerData> firstData = getTimerDataInstances(1L, 20);
+			List<TimerData> secondData = getTimerDataInstances(2L, 20);
+			// same objects also present in the second storage
+			secondData.addAll(firstData.subList(0, 5));
+			writeAndCloseStorage(firstStorage, firstData);
+			writeAndCloseStorage(secondStorage, secondData);
+
+			StorageCompactionStatus status = compactAndWait(Arrays.asList(firstStorage, secondStorage), compactedStorage);
+
+			assertThat(status.getState(), is(CompactionState.FINISHED));
+			assertThat(status.getTotalObjects(), is(45L));
+			assertThat(status.getWrittenObjects(), is(40L));
+			assertThat(status.getDuplicatesRemoved(), is(5L));
+
+			Set<TimerData> expected = new HashSet<>(firstData);
+			expected.addAll(secondData);
+			List<TimerData> compacted = readTimerData(compactedStorage);
+			assertThat(compacted, hasSize(40));
+			assertThat(new HashSet<>(compacted), is(equalTo(expected)));
+		} finally {
+			deleteStorages(firstStorage, secondStorage, compactedStorage);
+		}
+	}
+
+	/**
+	 * Tests the compaction that processes the data in several time slices. Every millisecond of
+	 * the time frame holds the data, thus the objects on the slice boundaries must be read exactly
+	 * once.
+	 *
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	@Test
+	public void compactStoragesInSlices() throws Exception {
+		StorageData firstStorage = new StorageData();
+		firstStorage.setName("Slices first");
+		StorageData secondStorage = new StorageData();
+		secondStorage.setName("Slices second");
+		StorageData compactedStorage = new StorageData();
+		compactedStorage.setName("Slices compacted");
+		long sliceSize = storageManager.compactionSliceSize;
+		try {
+			List<TimerData> data = getTimerDataInstances(1L, 50);
+			writeAndCloseStorage(firstStorage, data);
+			writeAndCloseStorage(secondStorage, data);
+
+			// 100 objects in 15 slices, each slice spans 4 milliseconds
+			storageManager.compactionSliceSize = 7L;
+			StorageCompactionStatus status = compactAndWait(Arrays.asList(firstStorage, secondStorage), compactedStorage);
+
+			assertThat(status.getState(), is(CompactionState.FINISHED));
+			assertThat(status.getTotalObjects(), is(100L));
+			assertThat(status.getProcessedObjects(), is(100L));
+			assertThat(status.getWrittenObjects(), is(50L));
+			assertThat(status.getDuplicatesRemoved(), is(50L));
+
+			List<TimerData> compacted = readTimerData(compactedStorage);
+			assertThat(compacted, hasSize(50));
+			assertThat(new HashSet<>(compacted), is(equalTo(new HashSet<>(data))));
+		} finally {
+			storageManager.compactionSliceSize = sliceSize;
+			deleteStorages(firstStorage, secondStorage, compactedStorage);
+		}
+	}
+
+	/**
+	 * Tests the columnar export of the storage with the platform and time restriction.
+	 *
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	@Test
+	public void exportStorageColumnar() throws Exception {
+		StorageData exportStorage = new StorageData();
+		exportStorage.setName("Export");
+		Path exportFile = null;
+		try {
+			storageManager.createStorage(exportStorage);
+			storageManager.openStorage(exportStorage);
+			List<DefaultData> sqlData = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				SqlStatementData sqlStatementData = new SqlStatementData(new Timestamp(i * 1000L), 1L + (i % 2), 1L, 10L + (i % 5), "SELECT " + (i % 10));
+				sqlStatementData.setId(i + 1);
+				sqlData.add(sqlStatementData);
+			}
+			List<Class<? extends DefaultData>> saverClasses = new ArrayList<>();
+			saverClasses.add(SqlStatementData.class);
+			storageManager.writeToStorage(exportStorage, sqlData, Collections.<AbstractDataProcessor> singletonList(new DataSaverProcessor(saverClasses, true)), true);
+			storageManager.closeStorage(exportStorage);
+
+			ColumnarExportRequest request = new ColumnarExportRequest();
+			request.setDataTypes(Collections.singleton(ColumnarDataType.SQL));
+			request.setPlatformIdent(2L);
+			request.setFromDate(new Date(100000L));
+			request.setToDate(new Date(299000L));
+			request.setRowGroupSize(64);
+			ColumnarExportStatus status = storageManager.exportStorageColumnar(exportStorage, request);
+			long waitUntil = System.currentTimeMillis() + 60000L;
+			while (!status.isDone() && (System.currentTimeMillis() < waitUntil)) {
+				Thread.sleep(100L);
+			}
+
+			assertThat(status.getState(), is(ExportState.FINISHED));
+			assertThat(storageManager.getColumnarExportStatus(status.getId()), is(status));
+			ColumnarExportResult result = status.getResult();
+			assertThat(result.getRowCount(), is(100L));
+			assertThat(result.getRowGroupCount(), is(2));
+			exportFile = Paths.get(storageManager.getStorageDefaultFolder()).resolve(result.getFileLocation().substring(1));
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				long rows = 0;
+				for (ColumnarRowGroupMetadata metadata : reader.getRowGroups()) {
+					ColumnarRowGroup rowGroup = reader.read(metadata);
+					long[] timeStamps = rowGroup.getLongColumn("timeStamp");
+					long[] platformIdents = rowGroup.getLongColumn("platformIdent");
+					for (int i = 0; i < rowGroup.getRowCount(); i++) {
+						assertThat(platformIdents[i], is(2L));
+						assertThat(timeStamps[i], is(both(greaterThanOrEqualTo(100000L)).and(lessThanOrEqualTo(299000L))));
+					}
+					rows += rowGroup.getRowCount();
+				}
+				assertThat(rows, is(100L));
+			}
+		} finally {
+			if (storageManager.isStorageExisting(exportStorage)) {
+				storageManager.deleteStorage(exportStorage);
+			}
+			if (null != exportFile) {
+				FileUtils.deleteDirectory(exportFile.getParent().toFile());
+			}
+		}
+	}
+
 	/**
 	 * Test adding/removing of labels to a {@link StorageData} and successful saving to the disk.
 	 *
@@ -456,6 +717,97 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 	 *
 	 * @return Returns storage folder.
 	 */
+	/**
+	 * Creates the timer data with the ids starting from 1 and the time stamps one millisecond
+	 * apart.
+	 *
+	 * @param platformIdent
+	 *            Platform ident of the data.
+	 * @param count
+	 *            Amount of objects to create.
+	 * @return List of {@link TimerData}.
+	 */
+	private static List<TimerData> getTimerDataInstances(long platformIdent, int count) {
+		List<TimerData> result = new ArrayList<>();
+		long time = 1000000000000L;
+		for (int i = 1; i <= count; i++) {
+			TimerData timerData = new TimerData(new Timestamp(time + i), platformIdent, 1L, 1L);
+			timerData.setId(i);
+			timerData.setDuration(i);
+			result.add(timerData);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the storage, writes the data to it and closes it.
+	 *
+	 * @param storage
+	 *            Storage to create.
+	 * @param data
+	 *            Data to write.
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	private void writeAndCloseStorage(StorageData storage, List<? extends DefaultData> data) throws Exception {
+		storageManager.createStorage(storage);
+		storageManager.openStorage(storage);
+		storageManager.writeToStorage(storage, data, null, true);
+		storageManager.closeStorage(storage);
+	}
+
+	/**
+	 * Starts the compaction and waits for it to be done.
+	 *
+	 * @param sourceStorages
+	 *            Storages to compact.
+	 * @param targetStorage
+	 *            Target storage.
+	 * @return Status of the compaction.
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	private StorageCompactionStatus compactAndWait(List<StorageData> sourceStorages, StorageData targetStorage) throws Exception {
+		StorageCompactionStatus status = storageManager.compactStorages(sourceStorages, targetStorage);
+		long waitUntil = System.currentTimeMillis() + 60000L;
+		while (!status.isDone() && (System.currentTimeMillis() < waitUntil)) {
+			Thread.sleep(100L);
+		}
+		return status;
+	}
+
+	/**
+	 * Reads all timer data from the storage.
+	 *
+	 * @param storage
+	 *            Storage to read from.
+	 * @return All {@link TimerData} in the storage.
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	private List<TimerData> readTimerData(StorageData storage) throws Exception {
+		StorageIndexQuery query = storageIndexQueryProvider.createNewStorageIndexQuery();
+		query.setMinId(Long.MIN_VALUE);
+		query.setObjectClasses(Collections.<Class<?>> singletonList(TimerData.class));
+		return storageQueryExecutor.executeQuery(storage, storageManager.loadIndexingTree(storage), query, null, null, -1);
+	}
+
+	/**
+	 * Deletes the given storages if they exist.
+	 *
+	 * @param storages
+	 *            Storages to delete.
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	private void deleteStorages(StorageData... storages) throws Exception {
+		for (StorageData storage : storages) {
+			if (storageManager.isStorageExisting(storage)) {
+				storageManager.deleteStorage(storage);
+			}
+		}
+	}
+
 	private File getStorageFolder() {
 		return new File(storageManager.getStorageDefaultFolder() + File.separator + storageData.getStorageFolder() + File.separator);
 	}
@@ -0,0 +1,322 @@
+package rocks.inspectit.server.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.communication.comparator.DefaultDataComparatorEnum;
+import rocks.inspectit.shared.cs.indexing.aggregation.Aggregators;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.CachingIndexQueryRestrictionProcessor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageFileType;
+import rocks.inspectit.shared.cs.storage.StorageFormatVersion;
+import rocks.inspectit.shared.cs.storage.nio.stream.ExtendedByteBufferInputStream;
+import rocks.inspectit.shared.cs.storage.nio.stream.InputStreamProvider;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
+
+/**
+ * Tests the {@link StorageQueryExecutor}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class StorageQueryExecutorTest extends TestBase {
+
+	/**
+	 * Amount of timer data in the storage, ids are 1-n, method ident is 1 for odd and 2 for even
+	 * ids.
+	 */
+	static final int DATA_COUNT = 20;
+
+	StorageQueryExecutor executor;
+
+	@Mock
+	CmrStorageManager storageManager;
+
+	@Mock
+	SerializationManagerProvider serializationManagerProvider;
+
+	@Mock
+	InputStreamProvider inputStreamProvider;
+
+	@Mock
+	Logger log;
+
+	SerializationManager serializer;
+
+	StorageData storageData;
+
+	Path storageFolder;
+
+	/**
+	 * Content of the data file.
+	 */
+	byte[] dataFile;
+
+	@BeforeMethod
+	public void init() throws Exception {
+		storageFolder = Files.createTempDirectory("storage-query");
+		storageData = new StorageData();
+		storageData.setId("storage");
+
+		final ClassSchemaManager schemaManager = new ClassSchemaManager();
+		schemaManager.setLog(log);
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		when(serializationManagerProvider.createSerializer()).thenAnswer(new Answer<SerializationManager>() {
+			@Override
+			public SerializationManager answer(InvocationOnMock invocation) throws Throwable {
+				SerializationManager serializationManager = new SerializationManager();
+				serializationManager.setSchemaManager(schemaManager);
+				serializationManager.setKryoNetNetwork(new KryoNetNetwork());
+				serializationManager.initKryo();
+				return serializationManager;
+			}
+		});
+		serializer = serializationManagerProvider.createSerializer();
+
+		when(storageManager.getStoragePath(storageData)).thenReturn(storageFolder);
+		when(storageManager.getSerializationManagerProvider()).thenReturn(serializationManagerProvider);
+		when(storageManager.loadIndexingTree(storageData)).thenCallRealMethod();
+		when(inputStreamProvider.getExtendedByteBufferInputStream(any(StorageData.class), anyListOf(IStorageDescriptor.class))).thenAnswer(new Answer<ExtendedByteBufferInputStream>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public ExtendedByteBufferInputStream answer(InvocationOnMock invocation) throws Throwable {
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				for (IStorageDescriptor descriptor : (List<IStorageDescriptor>) invocation.getArguments()[1]) {
+					content.write(dataFile, (int) descriptor.getPosition(), (int) descriptor.getSize());
+				}
+				return new ByteArrayExtendedInputStream(content.toByteArray());
+			}
+		});
+
+		executor = new StorageQueryExecutor();
+		executor.log = log;
+		executor.storageManager = storageManager;
+		executor.serializationManagerProvider = serializationManagerProvider;
+		executor.inputStreamProvider = inputStreamProvider;
+	}
+
+	@AfterMethod
+	public void deleteStorageFolder() throws IOException {
+		FileUtils.deleteDirectory(storageFolder.toFile());
+	}
+
+	public class ExecuteQuery extends StorageQueryExecutorTest {
+
+		@Test
+		public void singleObjects() throws Exception {
+			writeSingleObjectsStorage();
+			StorageIndexQuery query = query();
+			query.setMinId(11L);
+
+			List<TimerData> result = executor.executeQuery(storageData, query, null, null, -1);
+
+			assertThat(result, hasSize(10));
+		}
+
+		@Test
+		public void aggregated() throws Exception {
+			writeSingleObjectsStorage();
+
+			List<TimerData> result = executor.executeQuery(storageData, query(), Aggregators.TIMER_DATA_AGGREGATOR, null, -1);
+
+			assertThat(result, hasSize(2));
+			assertThat(result.get(0).getCount() + result.get(1).getCount(), is((long) DATA_COUNT));
+		}
+
+		@Test
+		public void sortedAndLimited() throws Exception {
+			writeBlockStorage();
+
+			List<TimerData> result = executor.executeQuery(storageData, query(), null, DefaultDataComparatorEnum.ID, 3);
+
+			assertThat(ids(result), contains(1L, 2L, 3L));
+		}
+
+		@Test
+		public void blocks() throws Exception {
+			writeBlockStorage();
+			StorageIndexQuery query = query();
+			query.setMinId(16L);
+
+			List<TimerData> result = executor.executeQuery(storageData, query, Aggregators.TIMER_DATA_AGGREGATOR, null, -1);
+
+			assertThat(result, hasSize(2));
+			assertThat(result.get(0).getCount() + result.get(1).getCount(), is(5L));
+		}
+
+		@Test
+		public void indexingTreeCached() throws Exception {
+			writeSingleObjectsStorage();
+
+			executor.executeQuery(storageData, query(), null, null, -1);
+			List<TimerData> result = executor.executeQuery(storageData, query(), null, null, -1);
+
+			assertThat(result, hasSize(DATA_COUNT));
+			verify(storageManager, times(1)).getStoragePath(storageData);
+		}
+
+		@Test
+		public void noIndexingTree() throws Exception {
+			List<TimerData> result = executor.executeQuery(storageData, query(), null, null, -1);
+
+			assertThat(result, is(empty()));
+		}
+	}
+
+	/**
+	 * Writes the data file with one object after another and the matching index file.
+	 */
+	void writeSingleObjectsStorage() throws Exception {
+		ArrayBasedStorageLeaf<TimerData> leaf = new ArrayBasedStorageLeaf<>(1);
+		Output output = new Output(4096, -1);
+		for (TimerData timerData : createData()) {
+			int position = output.position();
+			serializer.serialize(timerData, output);
+			leaf.put(timerData).setPositionAndSize(position, output.position() - position);
+		}
+		dataFile = output.toBytes();
+		writeIndex(leaf);
+	}
+
+	/**
+	 * Writes the data file with two compressed blocks and the matching index file.
+	 */
+	void writeBlockStorage() throws Exception {
+		storageData.setFormatVersion(StorageFormatVersion.COMPRESSED_BLOCKS);
+		ArrayBasedStorageLeaf<TimerData> leaf = new ArrayBasedStorageLeaf<>(1);
+		List<TimerData> data = createData();
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		for (List<TimerData> blockData : new List[] { data.subList(0, DATA_COUNT / 2), data.subList(DATA_COUNT / 2, DATA_COUNT) }) {
+			Output output = new Output(4096, -1);
+			long[] ids = new long[blockData.size()];
+			int[] offsets = new int[blockData.size()];
+			for (int i = 0; i < blockData.size(); i++) {
+				ids[i] = blockData.get(i).getId();
+				offsets[i] = output.position();
+				serializer.serialize(blockData.get(i), output);
+			}
+			ByteBuffer frame = StorageBlockUtil.compress(ids, offsets, blockData.size(), output.getBuffer(), output.position());
+			int position = file.size();
+			for (TimerData timerData : blockData) {
+				leaf.put(timerData).setPositionAndSize(position, frame.remaining());
+			}
+			file.write(frame.array(), 0, frame.remaining());
+		}
+		dataFile = file.toByteArray();
+		writeIndex(leaf);
+	}
+
+	void writeIndex(ArrayBasedStorageLeaf<TimerData> leaf) throws Exception {
+		try (OutputStream outputStream = Files.newOutputStream(storageFolder.resolve("tree" + StorageFileType.INDEX_FILE.getExtension()))) {
+			Output output = new Output(outputStream);
+			serializer.serialize(leaf, output);
+			output.flush();
+		}
+	}
+
+	StorageIndexQuery query() {
+		StorageIndexQuery query = new StorageIndexQuery();
+		query.setRestrictionProcessor(new CachingIndexQueryRestrictionProcessor());
+		return query;
+	}
+
+	List<TimerData> createData() {
+		List<TimerData> data = new ArrayList<>();
+		for (long id = 1; id <= DATA_COUNT; id++) {
+			TimerData timerData = new TimerData(new Timestamp(id), 1L, 1L, ((id % 2) == 0) ? 2L : 1L);
+			timerData.setId(id);
+			timerData.setCount(1L);
+			timerData.setDuration(1d);
+			data.add(timerData);
+		}
+		return data;
+	}
+
+	List<Long> ids(List<TimerData> data) {
+		List<Long> ids = new ArrayList<>();
+		for (TimerData timerData : data) {
+			ids.add(timerData.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * Extended input stream over the byte array.
+	 */
+	static class ByteArrayExtendedInputStream extends ExtendedByteBufferInputStream {
+
+		final byte[] bytes;
+
+		int position;
+
+		ByteArrayExtendedInputStream(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int read() {
+			return (position < bytes.length) ? (bytes[position++] & 0xff) : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (position >= bytes.length) {
+				return -1;
+			}
+			int count = Math.min(len, bytes.length - position);
+			System.arraycopy(bytes, position, b, off, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return bytes.length - position;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
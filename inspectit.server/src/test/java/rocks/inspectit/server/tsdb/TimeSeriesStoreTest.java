@@ -0,0 +1,208 @@
+package rocks.inspectit.server.tsdb;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Series;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link TimeSeriesStore}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class TimeSeriesStoreTest extends TestBase {
+
+	static final long NANOS = 1000000L;
+
+	@InjectMocks
+	TimeSeriesStore store;
+
+	@Mock
+	Logger log;
+
+	Path directory;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		directory = Files.createTempDirectory("tsdb-test");
+		configure(store);
+	}
+
+	@AfterMethod
+	public void cleanUp() throws IOException {
+		store.stop();
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	void configure(TimeSeriesStore timeSeriesStore) {
+		timeSeriesStore.log = log;
+		timeSeriesStore.active = true;
+		timeSeriesStore.directory = directory.toString();
+		timeSeriesStore.retention = 24 * 365 * 100;
+		timeSeriesStore.segmentSize = 4096;
+		timeSeriesStore.pointsPerChunk = 4;
+	}
+
+	static List<List<Object>> values(QueryResult result) {
+		List<Series> series = result.getResults().get(0).getSeries();
+		if ((null == series) || series.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return series.get(0).getValues();
+	}
+
+	public static class Start extends TimeSeriesStoreTest {
+
+		@Test
+		public void notActive() {
+			store.active = false;
+
+			store.start();
+
+			assertThat(store.isActive(), is(false));
+			assertThat(store.isListening(), is(false));
+		}
+
+		@Test
+		public void active() {
+			store.start();
+
+			assertThat(store.isActive(), is(true));
+			assertThat(store.isListening(), is(true));
+		}
+
+		@Test
+		public void recoveredAfterRestart() {
+			store.start();
+			for (int i = 0; i < 10; i++) {
+				store.onRecords("m,host=a f=" + i + " " + (i * NANOS) + "\n");
+			}
+			store.stop();
+
+			TimeSeriesStore restarted = new TimeSeriesStore();
+			configure(restarted);
+			restarted.start();
+			List<List<Object>> values = values(restarted.query("m", "f", null, 0, 100, Aggregation.SUM, 0));
+			restarted.stop();
+
+			assertThat(values, hasSize(1));
+			assertThat((Double) values.get(0).get(1), is(45d));
+		}
+	}
+
+	public static class Query extends TimeSeriesStoreTest {
+
+		@BeforeMethod
+		public void start() {
+			store.start();
+			for (int i = 0; i < 10; i++) {
+				store.onRecords("m,host=a f=" + i + " " + (i * 10 * NANOS) + "\nm,host=b f=" + (i * 2) + "i " + (i * 10 * NANOS) + "\n");
+			}
+		}
+
+		@Test
+		public void aggregations() {
+			assertThat((Double) values(store.query("m", "f", null, 0, 1000, Aggregation.COUNT, 0)).get(0).get(1), is(20d));
+			assertThat((Double) values(store.query("m", "f", null, 0, 1000, Aggregation.SUM, 0)).get(0).get(1), is(135d));
+			assertThat((Double) values(store.query("m", "f", null, 0, 1000, Aggregation.MIN, 0)).get(0).get(1), is(0d));
+			assertThat((Double) values(store.query("m", "f", null, 0, 1000, Aggregation.MAX, 0)).get(0).get(1), is(18d));
+			assertThat((Double) values(store.query("m", "f", null, 0, 1000, Aggregation.MEAN, 0)).get(0).get(1), is(6.75d));
+		}
+
+		@Test
+		public void columns() {
+			QueryResult result = store.query("m", "f", null, 0, 1000, Aggregation.MEAN, 0);
+
+			Series series = result.getResults().get(0).getSeries().get(0);
+			assertThat(series.getName(), is("m"));
+			assertThat(series.getColumns(), contains("time", "mean"));
+		}
+
+		@Test
+		public void tags() {
+			List<List<Object>> values = values(store.query("m", "f", Collections.singletonMap("host", "a"), 0, 1000, Aggregation.MAX, 0));
+
+			assertThat((Double) values.get(0).get(1), is(9d));
+		}
+
+		@Test
+		public void timeRange() {
+			List<List<Object>> values = values(store.query("m", "f", Collections.singletonMap("host", "a"), 20, 40, Aggregation.SUM, 0));
+
+			assertThat(values, hasSize(1));
+			assertThat(values.get(0).get(0), is((Object) 20L));
+			assertThat((Double) values.get(0).get(1), is(9d));
+		}
+
+		@Test
+		public void interval() {
+			List<List<Object>> values = values(store.query("m", "f", Collections.singletonMap("host", "a"), 5, 95, Aggregation.SUM, 30));
+
+			assertThat(values, hasSize(3));
+			assertThat(values.get(0).get(0), is((Object) 5L));
+			assertThat((Double) values.get(0).get(1), is(6d));
+			assertThat(values.get(1).get(0), is((Object) 35L));
+			assertThat((Double) values.get(1).get(1), is(15d));
+			assertThat(values.get(2).get(0), is((Object) 65L));
+			assertThat((Double) values.get(2).get(1), is(24d));
+		}
+
+		@Test
+		public void noData() {
+			assertThat(values(store.query("m", "f", null, 5000, 6000, Aggregation.SUM, 0)), is(empty()));
+			assertThat(values(store.query("m", "unknown", null, 0, 1000, Aggregation.SUM, 0)), is(empty()));
+			assertThat(values(store.query("unknown", "f", null, 0, 1000, Aggregation.SUM, 0)), is(empty()));
+		}
+
+		@Test
+		public void metadata() {
+			assertThat(store.getMeasurements(), contains("m"));
+			assertThat(store.getTagKeys("m"), contains("host"));
+			assertThat(store.getTagValues("m", "host"), contains("a", "b"));
+			assertThat(store.getFieldKeys("m"), contains("f"));
+		}
+	}
+
+	public static class Retention extends TimeSeriesStoreTest {
+
+		@Test
+		public void expiredSegmentsDeleted() throws IOException {
+			store.retention = 1;
+			store.segmentSize = 128;
+			store.pointsPerChunk = 2;
+			store.start();
+			long now = System.currentTimeMillis();
+			for (int i = 0; i < 20; i++) {
+				store.onRecords("m f=" + i + " " + (i * NANOS) + "\n");
+			}
+			for (int i = 0; i < 4; i++) {
+				store.onRecords("m f=" + i + " " + ((now + i) * NANOS) + "\n");
+			}
+
+			List<List<Object>> values = values(store.query("m", "f", null, 0, 100, Aggregation.COUNT, 0));
+
+			assertThat(values, is(empty()));
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package rocks.inspectit.server.tsdb.chunk;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.tsdb.chunk.TimeSeriesChunk.PointVisitor;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link TimeSeriesChunk}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class TimeSeriesChunkTest extends TestBase {
+
+	TimeSeriesChunk chunk;
+
+	List<Long> times;
+
+	List<Double> values;
+
+	@BeforeMethod
+	public void init() {
+		chunk = new TimeSeriesChunk();
+		times = new ArrayList<>();
+		values = new ArrayList<>();
+	}
+
+	void add(long time, double value) {
+		chunk.add(time, value);
+		times.add(time);
+		values.add(value);
+	}
+
+	void assertDecoded() {
+		final List<Long> decodedTimes = new ArrayList<>();
+		final List<Double> decodedValues = new ArrayList<>();
+		TimeSeriesChunk.decode(chunk.toByteArray(), chunk.getCount(), new PointVisitor() {
+			@Override
+			public void visit(long time, double value) {
+				decodedTimes.add(time);
+				decodedValues.add(value);
+			}
+		});
+
+		assertThat(decodedTimes, is(times));
+		assertThat(decodedValues, is(values));
+		assertThat(chunk.getCount(), is(times.size()));
+	}
+
+	public static class Decode extends TimeSeriesChunkTest {
+
+		@Test
+		public void regular() {
+			for (int i = 0; i < 1000; i++) {
+				add(1500000000000L + (i * 10000L), 5d);
+			}
+
+			assertDecoded();
+			assertThat(chunk.getMinTime(), is(1500000000000L));
+			assertThat(chunk.getMaxTime(), is(1500000000000L + (999 * 10000L)));
+			// both time and value need a single bit per point after the first one
+			assertThat(chunk.toByteArray().length, lessThan(16 + 260));
+		}
+
+		@Test
+		public void random() {
+			Random random = new Random(7);
+			long time = System.currentTimeMillis();
+			for (int i = 0; i < 1000; i++) {
+				time += random.nextInt(100000) - 10000;
+				add(time, random.nextGaussian() * 1000);
+			}
+
+			assertDecoded();
+		}
+
+		@Test
+		public void deltaBuckets() {
+			long[] deltas = { 0, 1, 63, -64, 64, 255, -256, 256, 2047, -2048, 2048, Integer.MAX_VALUE, Long.MAX_VALUE / 4, -(Long.MAX_VALUE / 4) };
+			long time = 0;
+			for (long delta : deltas) {
+				time += delta;
+				add(time, 1d);
+			}
+
+			assertDecoded();
+		}
+
+		@Test
+		public void specialValues() {
+			double[] specials = { 0d, -0d, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, 1d, 1d, 1.0000001d, -1d };
+			for (int i = 0; i < specials.length; i++) {
+				add(i, specials[i]);
+			}
+
+			assertDecoded();
+		}
+
+		@Test
+		public void single() {
+			add(5L, 3.5d);
+
+			assertDecoded();
+		}
+
+		@Test
+		public void empty() {
+			assertDecoded();
+			assertThat(chunk.toByteArray().length, is(0));
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package rocks.inspectit.server.tsdb.segment;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.server.tsdb.chunk.TimeSeriesChunk;
+import rocks.inspectit.server.tsdb.segment.ChunkSegment.RecoveryVisitor;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link ChunkSegment}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class ChunkSegmentTest extends TestBase {
+
+	Path directory;
+
+	Path file;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		directory = Files.createTempDirectory("chunk-segment-test");
+		file = directory.resolve("segment.tsdb");
+	}
+
+	@AfterMethod
+	public void cleanUp() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	static TimeSeriesChunk createChunk(int count) {
+		TimeSeriesChunk chunk = new TimeSeriesChunk();
+		for (int i = 0; i < count; i++) {
+			chunk.add(1000L + i, i);
+		}
+		return chunk;
+	}
+
+	public static class Append extends ChunkSegmentTest {
+
+		@Test
+		public void readBack() throws IOException {
+			ChunkSegment segment = ChunkSegment.create(file, 4096);
+			TimeSeriesChunk chunk = createChunk(10);
+
+			ChunkReference reference = segment.append("m", Collections.singletonMap("t", "v"), "f", chunk);
+
+			assertThat(reference, is(notNullValue()));
+			assertThat(reference.read(), is(chunk.toByteArray()));
+			assertThat(reference.getCount(), is(10));
+			assertThat(reference.getMinTime(), is(1000L));
+			assertThat(reference.getMaxTime(), is(1009L));
+			assertThat(segment.getMaxTime(), is(1009L));
+		}
+
+		@Test
+		public void full() throws IOException {
+			ChunkSegment segment = ChunkSegment.create(file, 64);
+
+			ChunkReference reference = segment.append("m", Collections.<String, String> emptyMap(), "f", createChunk(100));
+
+			assertThat(reference, is(nullValue()));
+			assertThat(segment.getSize(), is(0));
+		}
+
+		@Test
+		public void deleted() throws IOException {
+			ChunkSegment segment = ChunkSegment.create(file, 4096);
+			ChunkReference reference = segment.append("m", Collections.<String, String> emptyMap(), "f", createChunk(10));
+
+			segment.delete();
+
+			assertThat(Files.exists(file), is(false));
+			assertThat(reference.read(), is(nullValue()));
+			assertThat(segment.append("m", Collections.<String, String> emptyMap(), "f", createChunk(10)), is(nullValue()));
+		}
+	}
+
+	public static class Delete extends ChunkSegmentTest {
+
+		@Test
+		public void unmapped() throws IOException {
+			// mappings of the process can only be checked on linux
+			Path maps = Paths.get("/proc/self/maps");
+			if (!Files.isReadable(maps)) {
+				return;
+			}
+			ChunkSegment segment = ChunkSegment.create(file, 4096);
+			String mappedFile = file.toRealPath().toString();
+			assertThat(new String(Files.readAllBytes(maps), StandardCharsets.UTF_8), containsString(mappedFile));
+
+			segment.delete();
+
+			assertThat(Files.exists(file), is(false));
+			assertThat(new String(Files.readAllBytes(maps), StandardCharsets.UTF_8), not(containsString(mappedFile)));
+		}
+
+		@Test
+		public void deletedTwice() throws IOException {
+			ChunkSegment segment = ChunkSegment.create(file, 4096);
+
+			segment.delete();
+			segment.delete();
+
+			assertThat(segment.isDeleted(), is(true));
+			assertThat(Files.exists(file), is(false));
+		}
+	}
+
+	public static class Open extends ChunkSegmentTest {
+
+		@Test
+		public void recovered() throws IOException {
+			ChunkSegment segment = ChunkSegment.create(file, 4096);
+			Map<String, String> tags = new TreeMap<>();
+			tags.put("a", "1");
+			tags.put("b", "2");
+			TimeSeriesChunk first = createChunk(10);
+			TimeSeriesChunk second = createChunk(5);
+			segment.append("m", tags, "f", first);
+			segment.append("n", Collections.<String, String> emptyMap(), "g", second);
+			segment.force();
+			final List<String> recovered = new ArrayList<>();
+			final List<ChunkReference> references = new ArrayList<>();
+
+			ChunkSegment opened = ChunkSegment.open(file, new RecoveryVisitor() {
+				@Override
+				public void recovered(String measurement, Map<String, String> recoveredTags, String field, ChunkReference reference) {
+					recovered.add(measurement + recoveredTags + field);
+					references.add(reference);
+				}
+			});
+
+			assertThat(recovered, hasSize(2));
+			assertThat(recovered.get(0), is("m{a=1, b=2}f"));
+			assertThat(recovered.get(1), is("n{}g"));
+			assertThat(references.get(0).read(), is(first.toByteArray()));
+			assertThat(references.get(1).read(), is(second.toByteArray()));
+			assertThat(opened.getSize(), is(segment.getSize()));
+			assertThat(opened.getMaxTime(), is(1009L));
+		}
+
+		@Test
+		public void appendAfterRecovered() throws IOException {
+			ChunkSegment segment = ChunkSegment.create(file, 4096);
+			segment.append("m", Collections.<String, String> emptyMap(), "f", createChunk(10));
+			segment.force();
+			final List<ChunkReference> references = new ArrayList<>();
+			RecoveryVisitor visitor = new RecoveryVisitor() {
+				@Override
+				public void recovered(String measurement, Map<String, String> recoveredTags, String field, ChunkReference reference) {
+					references.add(reference);
+				}
+			};
+
+			ChunkSegment opened = ChunkSegment.open(file, visitor);
+			opened.append("m", Collections.<String, String> emptyMap(), "f", createChunk(3));
+			opened.force();
+			references.clear();
+			ChunkSegment.open(file, visitor);
+
+			assertThat(references, hasSize(2));
+			assertThat(references.get(1).getCount(), is(3));
+		}
+	}
+}
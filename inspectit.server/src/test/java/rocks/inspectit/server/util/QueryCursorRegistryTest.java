@@ -0,0 +1,132 @@
+package rocks.inspectit.server.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.indexing.cursor.ListQueryCursor;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
+
+/**
+ * Tests the {@link QueryCursorRegistry}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class QueryCursorRegistryTest extends TestBase {
+
+	/**
+	 * Class under test.
+	 */
+	@InjectMocks
+	QueryCursorRegistry registry;
+
+	@Mock
+	Logger log;
+
+	public class Open extends QueryCursorRegistryTest {
+
+		@Test
+		public void singlePage() {
+			QueryResultPage<Integer> page = registry.open(new ListQueryCursor<>(Arrays.asList(1, 2, 3)), 5);
+
+			assertThat(page.getCursorId(), is(0L));
+			assertThat(page.getElements(), contains(1, 2, 3));
+			assertThat(page.getOffset(), is(0));
+			assertThat(page.getTotalSize(), is(3));
+			assertThat(page.hasMore(), is(false));
+			assertThat(registry.getOpenCursorsCount(), is(0));
+		}
+
+		@Test
+		public void morePages() {
+			QueryResultPage<Integer> page = registry.open(new ListQueryCursor<>(Arrays.asList(1, 2, 3)), 2);
+
+			assertThat(page.getCursorId(), is(greaterThan(0L)));
+			assertThat(page.getElements(), contains(1, 2));
+			assertThat(page.getTotalSize(), is(3));
+			assertThat(page.hasMore(), is(true));
+			assertThat(registry.getOpenCursorsCount(), is(1));
+		}
+
+		@Test
+		public void emptyResult() {
+			QueryResultPage<Integer> page = registry.open(new ListQueryCursor<Integer>(Arrays.<Integer> asList()), 2);
+
+			assertThat(page.getCursorId(), is(0L));
+			assertThat(page.getElements(), is(empty()));
+			assertThat(page.hasMore(), is(false));
+			assertThat(registry.getOpenCursorsCount(), is(0));
+		}
+	}
+
+	public class Next extends QueryCursorRegistryTest {
+
+		@Test
+		public void readAllPages() throws BusinessException {
+			QueryResultPage<Integer> page = registry.open(new ListQueryCursor<>(Arrays.asList(1, 2, 3, 4, 5)), 2);
+			long cursorId = page.getCursorId();
+
+			page = registry.next(cursorId, 2);
+
+			assertThat(page.getCursorId(), is(cursorId));
+			assertThat(page.getElements(), contains(3, 4));
+			assertThat(page.getOffset(), is(2));
+			assertThat(page.hasMore(), is(true));
+
+			page = registry.next(cursorId, 2);
+
+			assertThat(page.getCursorId(), is(0L));
+			assertThat(page.getElements(), contains(5));
+			assertThat(page.getOffset(), is(4));
+			assertThat(page.hasMore(), is(false));
+			assertThat(registry.getOpenCursorsCount(), is(0));
+		}
+
+		@Test(expectedExceptions = BusinessException.class)
+		public void unknownCursor() throws BusinessException {
+			registry.next(10L, 2);
+		}
+
+		@Test(expectedExceptions = BusinessException.class)
+		public void closedCursor() throws BusinessException {
+			QueryResultPage<Integer> page = registry.open(new ListQueryCursor<>(Arrays.asList(1, 2, 3)), 1);
+			registry.close(page.getCursorId());
+
+			registry.next(page.getCursorId(), 1);
+		}
+	}
+
+	public class RemoveCursorsNotAccessedSince extends QueryCursorRegistryTest {
+
+		@Test
+		public void expired() {
+			registry.open(new ListQueryCursor<>(Arrays.asList(1, 2, 3)), 1);
+
+			registry.removeCursorsNotAccessedSince(System.currentTimeMillis() + 1);
+
+			assertThat(registry.getOpenCursorsCount(), is(0));
+		}
+
+		@Test
+		public void notExpired() {
+			registry.open(new ListQueryCursor<>(Arrays.asList(1, 2, 3)), 1);
+
+			registry.removeCursorsNotAccessedSince(System.currentTimeMillis() - QueryCursorRegistry.CURSOR_TIMEOUT);
+
+			assertThat(registry.getOpenCursorsCount(), is(1));
+		}
+	}
+}
@@ -128,6 +128,13 @@ public class InvocationSequenceData extends MethodSensorData implements ISpanIde
 	@JsonSerialize(include = JsonSerialize.Inclusion.NON_DEFAULT)
 	private int businessTransactionId = 0;
 
+	/**
+	 * Compact projection of this invocation used for the overviews. Created on the CMR and never
+	 * serialized.
+	 */
+	@JsonIgnore
+	private transient InvocationSequenceData overviewProjection;
+
 	/**
 	 * Default no-args constructor.
 	 */
@@ -533,11 +540,12 @@ public class InvocationSequenceData extends MethodSensorData implements ISpanIde
 	@Override
 	public long getObjectSize(IObjectSizes objectSizes, boolean doAlign) {
 		long size = super.getObjectSize(objectSizes, doAlign);
-		size += objectSizes.getPrimitiveTypesSize(9, 0, 2, 0, 2, 3);
+		size += objectSizes.getPrimitiveTypesSize(10, 0, 2, 0, 2, 3);
 		size += objectSizes.getSizeOf(timerData);
 		size += objectSizes.getSizeOf(loggingData);
 		size += objectSizes.getSizeOf(sqlStatementData);
 		size += objectSizes.getSizeOf(spanIdent);
+		size += objectSizes.getSizeOf(overviewProjection);
 		if (nestedSequences instanceof ArrayList) {
 			size += objectSizes.getSizeOf(nestedSequences, 0);
 			for (InvocationSequenceData invocationSequenceData : nestedSequences) {
@@ -592,4 +600,69 @@ public class InvocationSequenceData extends MethodSensorData implements ISpanIde
 		return clone;
 	}
 
+
+	/**
+	 * Returns the compact overview projection of this invocation. The projection holds only the
+	 * data needed to display the invocation in the overview: identifiers, time stamp, duration,
+	 * child count, nested data flags, business context, span ident and reduced timer data. If the
+	 * projection has not been created with {@link #updateOverviewProjection()}, a new one is
+	 * created on every call.
+	 *
+	 * @return Overview projection of this invocation.
+	 */
+	public InvocationSequenceData getOverviewProjection() {
+		InvocationSequenceData projection = overviewProjection;
+		if (null == projection) {
+			projection = createOverviewProjection();
+		}
+		return projection;
+	}
+
+	/**
+	 * Creates the overview projection of this invocation and keeps it, so that overview queries
+	 * don't need to create new objects. Should be called once the overview relevant data of the
+	 * invocation is not changing any more.
+	 */
+	public void updateOverviewProjection() {
+		overviewProjection = createOverviewProjection();
+	}
+
+	/**
+	 * Creates new overview projection of this invocation.
+	 *
+	 * @return New overview projection.
+	 * @see #getOverviewProjection()
+	 */
+	private InvocationSequenceData createOverviewProjection() {
+		InvocationSequenceData projection = new InvocationSequenceData(this.getTimeStamp(), this.getPlatformIdent(), this.getSensorTypeIdent(), this.getMethodIdent());
+		projection.setId(this.getId());
+		projection.setSpanIdent(this.getSpanIdent());
+		projection.setChildCount(this.getChildCount());
+		projection.setDuration(this.getDuration());
+		projection.setStart(this.getStart());
+		projection.setEnd(this.getEnd());
+		projection.setNestedSequences(Collections.<InvocationSequenceData> emptyList());
+		projection.setNestedSqlStatements(this.isNestedSqlStatements());
+		projection.setNestedExceptions(this.isNestedExceptions());
+		projection.setApplicationId(this.getApplicationId());
+		projection.setBusinessTransactionId(this.getBusinessTransactionId());
+
+		// only duration and HTTP info of the timer data are needed in the overview
+		if (timerData instanceof HttpTimerData) {
+			HttpTimerData httpTimerData = (HttpTimerData) timerData;
+			HttpTimerData overviewTimerData = new HttpTimerData(httpTimerData.getTimeStamp(), httpTimerData.getPlatformIdent(), httpTimerData.getSensorTypeIdent(), httpTimerData.getMethodIdent());
+			overviewTimerData.setId(httpTimerData.getId());
+			overviewTimerData.setDuration(httpTimerData.getDuration());
+			overviewTimerData.setHttpInfo(httpTimerData.getHttpInfo());
+			overviewTimerData.setHttpResponseStatus(httpTimerData.getHttpResponseStatus());
+			projection.setTimerData(overviewTimerData);
+		} else if (null != timerData) {
+			TimerData overviewTimerData = new TimerData(timerData.getTimeStamp(), timerData.getPlatformIdent(), timerData.getSensorTypeIdent(), timerData.getMethodIdent());
+			overviewTimerData.setId(timerData.getId());
+			overviewTimerData.setDuration(timerData.getDuration());
+			projection.setTimerData(overviewTimerData);
+		}
+		return projection;
+	}
+
 }
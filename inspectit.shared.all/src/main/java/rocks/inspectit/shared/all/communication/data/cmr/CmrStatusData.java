@@ -41,6 +41,17 @@ public class CmrStatusData implements Serializable {
 	 */
 	private Date bufferNewestElementDate;
 
+	/**
+	 * Number of elements in the buffer that are still not indexed.
+	 */
+	private long bufferIndexingLagElements;
+
+	/**
+	 * Time difference in milliseconds between the newest and the last indexed element in the
+	 * buffer.
+	 */
+	private long bufferIndexingLagMillis;
+
 	/**
 	 * Amount of bytes that has left for storage data.
 	 */
@@ -166,6 +177,44 @@ public class CmrStatusData implements Serializable {
 		this.bufferNewestElementDate = bufferNewestElementDate;
 	}
 
+	/**
+	 * Gets {@link #bufferIndexingLagElements}.
+	 *
+	 * @return {@link #bufferIndexingLagElements}
+	 */
+	public long getBufferIndexingLagElements() {
+		return this.bufferIndexingLagElements;
+	}
+
+	/**
+	 * Sets {@link #bufferIndexingLagElements}.
+	 *
+	 * @param bufferIndexingLagElements
+	 *            New value for {@link #bufferIndexingLagElements}
+	 */
+	public void setBufferIndexingLagElements(long bufferIndexingLagElements) {
+		this.bufferIndexingLagElements = bufferIndexingLagElements;
+	}
+
+	/**
+	 * Gets {@link #bufferIndexingLagMillis}.
+	 *
+	 * @return {@link #bufferIndexingLagMillis}
+	 */
+	public long getBufferIndexingLagMillis() {
+		return this.bufferIndexingLagMillis;
+	}
+
+	/**
+	 * Sets {@link #bufferIndexingLagMillis}.
+	 *
+	 * @param bufferIndexingLagMillis
+	 *            New value for {@link #bufferIndexingLagMillis}
+	 */
+	public void setBufferIndexingLagMillis(long bufferIndexingLagMillis) {
+		this.bufferIndexingLagMillis = bufferIndexingLagMillis;
+	}
+
 	/**
 	 * Gets {@link #storageDataSpaceLeft}.
 	 *
@@ -308,6 +357,8 @@ public class CmrStatusData implements Serializable {
 		int result = 1;
 		result = (prime * result) + ((bufferNewestElementDate == null) ? 0 : bufferNewestElementDate.hashCode());
 		result = (prime * result) + ((bufferOldestElementDate == null) ? 0 : bufferOldestElementDate.hashCode());
+		result = (prime * result) + (int) (bufferIndexingLagElements ^ (bufferIndexingLagElements >>> 32));
+		result = (prime * result) + (int) (bufferIndexingLagMillis ^ (bufferIndexingLagMillis >>> 32));
 		result = (prime * result) + (canWriteMore ? 1231 : 1237);
 		result = (prime * result) + (int) (currentBufferSize ^ (currentBufferSize >>> 32));
 		result = (prime * result) + ((databaseSize == null) ? 0 : databaseSize.hashCode());
@@ -349,6 +400,12 @@ public class CmrStatusData implements Serializable {
 		} else if (!bufferOldestElementDate.equals(other.bufferOldestElementDate)) {
 			return false;
 		}
+		if (bufferIndexingLagElements != other.bufferIndexingLagElements) {
+			return false;
+		}
+		if (bufferIndexingLagMillis != other.bufferIndexingLagMillis) {
+			return false;
+		}
 		if (canWriteMore != other.canWriteMore) {
 			return false;
 		}
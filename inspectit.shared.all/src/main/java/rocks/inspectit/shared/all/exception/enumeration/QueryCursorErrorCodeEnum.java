@@ -0,0 +1,105 @@
+package rocks.inspectit.shared.all.exception.enumeration;
+
+import org.apache.commons.lang.WordUtils;
+
+import rocks.inspectit.shared.all.exception.IErrorCode;
+
+/**
+ * Error code enumeration for the paged query results.
+ *
+ * @author Ivan Senic
+ *
+ */
+public enum QueryCursorErrorCodeEnum implements IErrorCode {
+
+	/**
+	 * The cursor does not exist.
+	 */
+	UNKNOWN_CURSOR("The query cursor with the given id does not exist on the CMR.", "The cursor was closed because it was not read for too long or the CMR has been restarted.", "Execute the query again.");
+
+	/**
+	 * Name of the component.
+	 */
+	private static final String COMPONENT_NAME = "Query Cursor";
+
+	/**
+	 * Description of the error code.
+	 */
+	private final String description;
+
+	/**
+	 * Possible cause(es) for the error.
+	 */
+	private final String possibleCause;
+
+	/**
+	 * Possible solution(s) for the error.
+	 */
+	private final String possibleSolution;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param description
+	 *            Description of the error code.
+	 * @param possibleCause
+	 *            Possible cause(es) for the error.
+	 * @param possibleSolution
+	 *            Possible solution(s) for the error.
+	 */
+	QueryCursorErrorCodeEnum(String description, String possibleCause, String possibleSolution) {
+		if (null == description) {
+			throw new IllegalArgumentException("Description for the error code must not be null");
+		}
+		this.description = description;
+		this.possibleCause = possibleCause;
+		this.possibleSolution = possibleSolution;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getComponent() {
+		return COMPONENT_NAME;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return WordUtils.capitalizeFully(this.toString().replace("_", " ").toLowerCase());
+	}
+
+	/**
+	 * Gets {@link #description}.
+	 *
+	 * @return {@link #description}
+	 */
+	@Override
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Gets {@link #possibleCause}.
+	 *
+	 * @return {@link #possibleCause}
+	 */
+	@Override
+	public String getPossibleCause() {
+		return possibleCause;
+	}
+
+	/**
+	 * Gets {@link #possibleSolution}.
+	 *
+	 * @return {@link #possibleSolution}
+	 */
+	@Override
+	public String getPossibleSolution() {
+		return possibleSolution;
+	}
+
+}
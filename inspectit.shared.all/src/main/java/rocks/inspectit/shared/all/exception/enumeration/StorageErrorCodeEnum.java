@@ -90,7 +90,12 @@ public enum StorageErrorCodeEnum implements IErrorCode {
 	/**
 	 * IO operation failed.
 	 */
-	INPUT_OUTPUT_OPERATION_FAILED("IO operation failed trying to read or write the storage data bytes.", null, "Check disk status and that the write/read permissions exist.");
+	INPUT_OUTPUT_OPERATION_FAILED("IO operation failed trying to read or write the storage data bytes.", null, "Check disk status and that the write/read permissions exist."),
+
+	/**
+	 * Export still running.
+	 */
+	EXPORT_IS_RUNNING("The export to execute the selected operation on is still running.", null, "Wait for the export to finish and try again.");
 
 	/**
 	 * Name of the component.
@@ -100,6 +100,7 @@ import rocks.inspectit.shared.all.exception.enumeration.AgentManagementErrorCode
 import rocks.inspectit.shared.all.exception.enumeration.AlertErrorCodeEnum;
 import rocks.inspectit.shared.all.exception.enumeration.BusinessContextErrorCodeEnum;
 import rocks.inspectit.shared.all.exception.enumeration.ConfigurationInterfaceErrorCodeEnum;
+import rocks.inspectit.shared.all.exception.enumeration.QueryCursorErrorCodeEnum;
 import rocks.inspectit.shared.all.exception.enumeration.StorageErrorCodeEnum;
 import rocks.inspectit.shared.all.instrumentation.classcache.AnnotationType;
 import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
@@ -429,6 +430,9 @@ public class SerializationManager implements ISerializer, IKryoProvider, Initial
 		kryo.register(JSEventListenerExecution.class, new FieldSerializer<JSEventListenerExecution>(kryo, JSEventListenerExecution.class), nextRegistrationId++);
 		kryo.register(JSDomEventListenerExecution.class, new FieldSerializer<JSDomEventListenerExecution>(kryo, JSDomEventListenerExecution.class), nextRegistrationId++);
 		kryo.register(UserSessionInfo.class, new FieldSerializer<UserSessionInfo>(kryo, UserSessionInfo.class), nextRegistrationId++);
+
+		// paged query results
+		kryo.register(QueryCursorErrorCodeEnum.class, new EnumSerializer(QueryCursorErrorCodeEnum.class), nextRegistrationId++);
 	}
 
 	/**
@@ -0,0 +1,112 @@
+package rocks.inspectit.shared.all.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class for explicitly unmapping {@link MappedByteBuffer}s. The JVM unmaps a mapping only
+ * when the buffer is garbage collected and until then operating systems like Windows lock the
+ * mapped file, so it can not be deleted.
+ * <p>
+ * A buffer must not be accessed after it has been unmapped, not even through its duplicates or
+ * slices, as this crashes the JVM.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class MappedByteBufferUtils {
+
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(MappedByteBufferUtils.class);
+
+	/**
+	 * <code>sun.misc.Unsafe</code> instance used for unmapping on Java 9 and later.
+	 */
+	private static Object unsafe;
+
+	/**
+	 * <code>sun.misc.Unsafe.invokeCleaner(ByteBuffer)</code> method used for unmapping on Java 9
+	 * and later.
+	 */
+	private static Method invokeCleanerMethod;
+
+	/**
+	 * <code>sun.nio.ch.DirectBuffer.cleaner()</code> method used for unmapping on Java 8.
+	 */
+	private static Method cleanerMethod;
+
+	/**
+	 * <code>sun.misc.Cleaner.clean()</code> method used for unmapping on Java 8.
+	 */
+	private static Method cleanMethod;
+
+	static {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleanerMethod = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafe = unsafeField.get(null);
+		} catch (Exception e) { // NOPMD
+			invokeCleanerMethod = null;
+			try {
+				cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+				cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			} catch (Exception ex) { // NOPMD
+				// unmapping not possible
+				cleanerMethod = null;
+				cleanMethod = null;
+			}
+		}
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private MappedByteBufferUtils() {
+	}
+
+	/**
+	 * Returns if the buffers can be explicitly unmapped with the running JVM.
+	 *
+	 * @return Returns if the buffers can be explicitly unmapped with the running JVM.
+	 */
+	public static boolean isUnmapSupported() {
+		return (null != invokeCleanerMethod) || (null != cleanMethod);
+	}
+
+	/**
+	 * Unmaps the buffer. If this is not possible, the buffer is unmapped when garbage collected.
+	 *
+	 * @param buffer
+	 *            Buffer to unmap.
+	 * @return <code>true</code> if the buffer was unmapped.
+	 */
+	public static boolean unmap(MappedByteBuffer buffer) {
+		if (!isUnmapSupported()) {
+			return false;
+		}
+
+		try {
+			if (null != invokeCleanerMethod) {
+				invokeCleanerMethod.invoke(unsafe, buffer);
+			} else {
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (null != cleaner) {
+					cleanMethod.invoke(cleaner);
+				}
+			}
+			return true;
+		} catch (Exception e) {
+			LOG.warn("Mapped buffer could not be unmapped, it will be unmapped when garbage collected.", e);
+			return false;
+		}
+	}
+}
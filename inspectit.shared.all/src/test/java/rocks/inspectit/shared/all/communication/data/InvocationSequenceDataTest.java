@@ -0,0 +1,111 @@
+package rocks.inspectit.shared.all.communication.data;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link InvocationSequenceData}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class InvocationSequenceDataTest extends TestBase {
+
+	public class GetOverviewProjection extends InvocationSequenceDataTest {
+
+		@Test
+		public void overviewData() {
+			InvocationSequenceData invocation = new InvocationSequenceData(new Timestamp(1L), 1L, 2L, 3L);
+			invocation.setId(10L);
+			invocation.setDuration(20d);
+			invocation.setChildCount(5L);
+			invocation.setNestedExceptions(Boolean.TRUE);
+			invocation.setApplicationId(7);
+			invocation.setBusinessTransactionId(8);
+			invocation.setSqlStatementData(new SqlStatementData());
+			invocation.setNestedSequences(Collections.singletonList(new InvocationSequenceData()));
+
+			InvocationSequenceData projection = invocation.getOverviewProjection();
+
+			assertThat(projection, is(not(sameInstance(invocation))));
+			assertThat(projection.getId(), is(10L));
+			assertThat(projection.getTimeStamp(), is(invocation.getTimeStamp()));
+			assertThat(projection.getPlatformIdent(), is(1L));
+			assertThat(projection.getSensorTypeIdent(), is(2L));
+			assertThat(projection.getMethodIdent(), is(3L));
+			assertThat(projection.getDuration(), is(20d));
+			assertThat(projection.getChildCount(), is(5L));
+			assertThat(projection.isNestedExceptions(), is(Boolean.TRUE));
+			assertThat(projection.isNestedSqlStatements(), is(nullValue()));
+			assertThat(projection.getApplicationId(), is(7));
+			assertThat(projection.getBusinessTransactionId(), is(8));
+			assertThat(projection.getSqlStatementData(), is(nullValue()));
+			assertThat(projection.getNestedSequences(), is(empty()));
+		}
+
+		@Test
+		public void reducedHttpTimerData() {
+			InvocationSequenceData invocation = new InvocationSequenceData();
+			HttpTimerData httpTimerData = new HttpTimerData();
+			httpTimerData.setDuration(15d);
+			httpTimerData.setHttpResponseStatus(404);
+			httpTimerData.setHeaders(new HashMap<String, String>());
+			invocation.setTimerData(httpTimerData);
+
+			InvocationSequenceData projection = invocation.getOverviewProjection();
+
+			assertThat(projection.getTimerData(), is(instanceOf(HttpTimerData.class)));
+			HttpTimerData overviewTimerData = (HttpTimerData) projection.getTimerData();
+			assertThat(overviewTimerData, is(not(sameInstance(httpTimerData))));
+			assertThat(overviewTimerData.getDuration(), is(15d));
+			assertThat(overviewTimerData.getHttpResponseStatus(), is(404));
+			assertThat(overviewTimerData.getHttpInfo(), is(sameInstance(httpTimerData.getHttpInfo())));
+			assertThat(overviewTimerData.getHeaders(), is(nullValue()));
+		}
+
+		@Test
+		public void reducedTimerData() {
+			InvocationSequenceData invocation = new InvocationSequenceData();
+			TimerData timerData = new TimerData();
+			timerData.setDuration(15d);
+			timerData.setCpuDuration(10d);
+			invocation.setTimerData(timerData);
+
+			InvocationSequenceData projection = invocation.getOverviewProjection();
+
+			assertThat(projection.getTimerData(), is(not(instanceOf(HttpTimerData.class))));
+			assertThat(projection.getTimerData().getDuration(), is(15d));
+			assertThat(projection.getTimerData().getCpuDuration(), is(0d));
+		}
+
+		@Test
+		public void notKeptWithoutUpdate() {
+			InvocationSequenceData invocation = new InvocationSequenceData();
+
+			assertThat(invocation.getOverviewProjection(), is(not(sameInstance(invocation.getOverviewProjection()))));
+		}
+
+		@Test
+		public void keptAfterUpdate() {
+			InvocationSequenceData invocation = new InvocationSequenceData();
+			invocation.updateOverviewProjection();
+
+			assertThat(invocation.getOverviewProjection(), is(sameInstance(invocation.getOverviewProjection())));
+		}
+	}
+
+}
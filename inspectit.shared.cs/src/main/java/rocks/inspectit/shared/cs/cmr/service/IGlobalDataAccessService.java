@@ -129,4 +129,41 @@ public interface IGlobalDataAccessService {
 	 */
 	List<? extends DefaultData> getTemplatesDataObjectsFromToDate(Collection<DefaultData> templates, Date fromDate, Date toDate);
 
+	/**
+	 * All data objects from the passed template in the given time range, where the caller needs
+	 * the data only in the given resolution. Service implementations can return the data
+	 * pre-aggregated to the period not bigger than the resolution (for example from the storage
+	 * rollup tiers), or the raw data if no such aggregation is available.
+	 *
+	 * @param template
+	 *            The template data object.
+	 * @param fromDate
+	 *            The start date.
+	 * @param toDate
+	 *            The end date.
+	 * @param resolution
+	 *            Needed resolution in milliseconds. Zero or negative value means raw data.
+	 * @return List of data objects.
+	 */
+	List<? extends DefaultData> getDataObjectsFromToDate(DefaultData template, Date fromDate, Date toDate, long resolution);
+
+	/**
+	 * All data objects from the passed templates in the given time range, where the caller needs
+	 * the data only in the given resolution. Service implementations can return the data
+	 * pre-aggregated to the period not bigger than the resolution (for example from the storage
+	 * rollup tiers), or the raw data if no such aggregation is available.
+	 *
+	 * @param templates
+	 *            The templates objects. Return list will include all found data that matches the
+	 *            templates.
+	 * @param fromDate
+	 *            The start date.
+	 * @param toDate
+	 *            The end date.
+	 * @param resolution
+	 *            Needed resolution in milliseconds. Zero or negative value means raw data.
+	 * @return List of data objects.
+	 */
+	List<? extends DefaultData> getTemplatesDataObjectsFromToDate(Collection<DefaultData> templates, Date fromDate, Date toDate, long resolution);
+
 }
@@ -9,6 +9,7 @@ import rocks.inspectit.shared.all.cmr.service.ServiceInterface;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.cs.communication.comparator.ResultComparator;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
 
 /**
  * Service interface which defines the methods to retrieve data objects based on the invocation
@@ -178,6 +179,59 @@ public interface IInvocationDataAccessService {
 	 */
 	List<InvocationSequenceData> getInvocationSequenceOverview(String alertId, int limit, ResultComparator<InvocationSequenceData> resultComparator) throws BusinessException;
 
+	/**
+	 * Returns the first page of the {@link InvocationSequenceData} overview objects in given time
+	 * frame. Compared to
+	 * {@link #getInvocationSequenceOverview(long, long, int, Date, Date, ResultComparator)} only
+	 * the first <code>pageSize</code> elements are transferred. If there are more results, the
+	 * returned page holds the id of the cursor that can be used to read the next pages with
+	 * {@link #getNextInvocationSequenceOverviewPage(long, int)}.
+	 *
+	 * @param platformId
+	 *            The ID of the platform.
+	 * @param methodId
+	 *            The ID of the method. If the zero value is passed, invocations of all methods are
+	 *            included.
+	 * @param limit
+	 *            The limit/size of the complete result. Value <code>-1</code> means no limit.
+	 * @param fromDate
+	 *            Date include invocation from. Can be <code>null</code>.
+	 * @param toDate
+	 *            Date include invocation to. Can be <code>null</code>.
+	 * @param resultComparator
+	 *            Comparator that will be used to sort the results. Can be <code>null</code> and in
+	 *            that case no sorting will be done.
+	 * @param pageSize
+	 *            Maximum amount of invocation sequences in one page.
+	 * @return Returns the first page of the invocation sequences.
+	 */
+	QueryResultPage<InvocationSequenceData> getInvocationSequenceOverviewPage(long platformId, long methodId, int limit, Date fromDate, Date toDate, // NOCHK
+			ResultComparator<InvocationSequenceData> resultComparator, int pageSize);
+
+	/**
+	 * Returns the next page of the invocation sequence overview for the cursor opened with
+	 * {@link #getInvocationSequenceOverviewPage(long, long, int, Date, Date, ResultComparator, int)}.
+	 * When the last page is returned, the cursor is closed and the page cursor id is
+	 * <code>0</code>.
+	 *
+	 * @param cursorId
+	 *            Id of the cursor.
+	 * @param pageSize
+	 *            Maximum amount of invocation sequences in the page.
+	 * @return Returns the next page of the invocation sequences.
+	 * @throws BusinessException
+	 *             If cursor with given id does not exist.
+	 */
+	QueryResultPage<InvocationSequenceData> getNextInvocationSequenceOverviewPage(long cursorId, int pageSize) throws BusinessException;
+
+	/**
+	 * Closes the invocation sequence overview cursor before all pages are read.
+	 *
+	 * @param cursorId
+	 *            Id of the cursor.
+	 */
+	void closeInvocationSequenceOverviewCursor(long cursorId);
+
 	/**
 	 * This service method is used to get all the details of a specific invocation sequence.
 	 *
@@ -1,6 +1,7 @@
 package rocks.inspectit.shared.cs.cmr.service;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -9,7 +10,12 @@ import rocks.inspectit.shared.all.cmr.service.ServiceExporterType;
 import rocks.inspectit.shared.all.cmr.service.ServiceInterface;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
 import rocks.inspectit.shared.cs.communication.data.cmr.RecordingData;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus;
+import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
 import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.label.AbstractStorageLabel;
@@ -216,7 +222,8 @@ public interface IStorageService {
 	/**
 	 * Returns the map of the string/long pairs that represent the path to the index files for one
 	 * storage and their size in bytes. The paths are in form "/directory/file.extension". These
-	 * paths can be used in combination to CMR's ip and port to get the files via HTTP.
+	 * paths can be used in combination to CMR's ip and port to get the files via HTTP. Index leaf
+	 * files are included if the storage has them.
 	 * <p>
 	 * For example, if the CMR has the ip localhost and port 8080, the address for the file would
 	 * be: http://localhost:8080/directory/file.extension
@@ -544,6 +551,114 @@ public interface IStorageService {
 	 */
 	void cacheStorageData(StorageData storageData, Collection<? extends DefaultData> data, int hash) throws BusinessException;
 
+	/**
+	 * Executes the query on the finalized storage directly on the CMR, so that only the results
+	 * are transfered. If the {@link IAggregator} is not <code>null</code> then the results will be
+	 * aggregated based on the given {@link IAggregator}. Results are sorted if the comparator is
+	 * given and limited if the limit is not <code>-1</code>.
+	 * <p>
+	 * Note that the aggregator and comparator are transfered to the CMR, thus they must be
+	 * serializable.
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 * @param storageData
+	 *            Storage to query.
+	 * @param storageIndexQuery
+	 *            Query to execute.
+	 * @param aggregator
+	 *            {@link IAggregator}. Pass <code>null</code> if no aggregation is needed.
+	 * @param comparator
+	 *            If supplied the result list will be sorted by this comparator.
+	 * @param limit
+	 *            Limit the number of results by given number. Value <code>-1</code> means no limit.
+	 * @return Result list.
+	 * @throws BusinessException
+	 *             If storage does not exist or it is not finalized. If reading of the storage
+	 *             fails.
+	 */
+	<E extends DefaultData> List<E> executeStorageQuery(StorageData storageData, StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator, Comparator<? super E> comparator, int limit)
+			throws BusinessException;
+
+	/**
+	 * Starts the background compaction of the given finalized storages into the new storage. The
+	 * data of all sources is written to the new storage sorted by platform, sensor type and time
+	 * with the duplicated data removed. The new storage is closed when the compaction finishes.
+	 *
+	 * @param sourceStorages
+	 *            Finalized storages to compact.
+	 * @param targetStorage
+	 *            Storage to create. Must provide a name.
+	 * @return {@link StorageCompactionStatus} at the moment the compaction started.
+	 * @throws BusinessException
+	 *             If any of the sources does not exist or is not finalized or if the target
+	 *             storage can not be created.
+	 */
+	StorageCompactionStatus compactStorages(Collection<StorageData> sourceStorages, StorageData targetStorage) throws BusinessException;
+
+	/**
+	 * Returns the current status of the compaction writing to the given storage.
+	 *
+	 * @param targetStorage
+	 *            Storage created by the compaction.
+	 * @return {@link StorageCompactionStatus} or <code>null</code> if no compaction has been
+	 *         started for the storage.
+	 */
+	StorageCompactionStatus getStorageCompactionStatus(StorageData targetStorage);
+
+	/**
+	 * Starts the background export of the data currently in the buffer to a column-oriented
+	 * compressed file. When the export finishes, the file can be downloaded via HTTP from the
+	 * location given in the result of the status.
+	 *
+	 * @param request
+	 *            {@link ColumnarExportRequest} defining data types, platform, methods and time
+	 *            frame of the data to export.
+	 * @return {@link ColumnarExportStatus} at the moment the export started.
+	 * @throws BusinessException
+	 *             If the export file can not be created.
+	 */
+	ColumnarExportStatus exportBufferColumnar(ColumnarExportRequest request) throws BusinessException;
+
+	/**
+	 * Starts the background export of the data of the finalized storage to a column-oriented
+	 * compressed file. When the export finishes, the file can be downloaded via HTTP from the
+	 * location given in the result of the status.
+	 *
+	 * @param storageData
+	 *            Storage to export.
+	 * @param request
+	 *            {@link ColumnarExportRequest} defining data types, platform, methods and time
+	 *            frame of the data to export.
+	 * @return {@link ColumnarExportStatus} at the moment the export started.
+	 * @throws BusinessException
+	 *             If storage does not exist or it is not finalized. If the export file can not be
+	 *             created.
+	 */
+	ColumnarExportStatus exportStorageColumnar(StorageData storageData, ColumnarExportRequest request) throws BusinessException;
+
+	/**
+	 * Returns the current status of the columnar export with the given id.
+	 *
+	 * @param exportId
+	 *            Id of the export.
+	 * @return {@link ColumnarExportStatus} or <code>null</code> if the export is not known, for
+	 *         example if it has been deleted.
+	 */
+	ColumnarExportStatus getColumnarExportStatus(String exportId);
+
+	/**
+	 * Deletes the file of the finished or failed columnar export. Running exports can not be
+	 * deleted. Exports that are not deleted explicitly are deleted when the export retention time
+	 * passes.
+	 *
+	 * @param exportId
+	 *            Id of the export.
+	 * @throws BusinessException
+	 *             If the export is still running or the file can not be deleted.
+	 */
+	void deleteColumnarExport(String exportId) throws BusinessException;
+
 	/**
 	 * Returns location of the file where the cached data for given storage and hash is cached.
 	 * Returns <code>null</code> if no data is cached for given storage and hash.
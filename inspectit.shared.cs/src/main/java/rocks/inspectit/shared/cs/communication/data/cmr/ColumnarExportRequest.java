@@ -0,0 +1,241 @@
+package rocks.inspectit.shared.cs.communication.data.cmr;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.cs.storage.export.ColumnarDataType;
+import rocks.inspectit.shared.cs.storage.export.ColumnarExportWriter;
+
+/**
+ * Defines what data should be exported to the columnar format. Restrictions on the platform,
+ * methods and time are pushed down to the data source where possible.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarExportRequest implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -4526683016431470734L;
+
+	/**
+	 * Types of data to export. Empty set means all types.
+	 */
+	private Set<ColumnarDataType> dataTypes = new HashSet<>();
+
+	/**
+	 * Platform ident to export data for. Value <code>0</code> means all platforms.
+	 */
+	private long platformIdent;
+
+	/**
+	 * Method idents to export data for. Empty set means all methods.
+	 */
+	private Set<Long> methodIdents = new HashSet<>();
+
+	/**
+	 * Export data with the time stamp after or equal to this date. Can be <code>null</code>.
+	 */
+	private Date fromDate;
+
+	/**
+	 * Export data with the time stamp before or equal to this date. Can be <code>null</code>.
+	 */
+	private Date toDate;
+
+	/**
+	 * Max amount of rows in one row group, bounds the memory needed for the export.
+	 */
+	private int rowGroupSize = ColumnarExportWriter.DEFAULT_ROW_GROUP_SIZE;
+
+	/**
+	 * Returns the data types that should be exported.
+	 *
+	 * @return Data types to export, all types if none is defined.
+	 */
+	public Set<ColumnarDataType> getEffectiveDataTypes() {
+		if (CollectionUtils.isEmpty(dataTypes)) {
+			Set<ColumnarDataType> all = new HashSet<>();
+			for (ColumnarDataType type : ColumnarDataType.values()) {
+				all.add(type);
+			}
+			return all;
+		}
+		return dataTypes;
+	}
+
+	/**
+	 * Returns if the data matches all restrictions of this request.
+	 *
+	 * @param data
+	 *            Data to check.
+	 * @return <code>true</code> if data should be exported.
+	 */
+	public boolean isMatching(DefaultData data) {
+		ColumnarDataType type = ColumnarDataType.forData(data);
+		if ((null == type) || (CollectionUtils.isNotEmpty(dataTypes) && !dataTypes.contains(type))) {
+			return false;
+		}
+		if ((0 != platformIdent) && (data.getPlatformIdent() != platformIdent)) {
+			return false;
+		}
+		if (CollectionUtils.isNotEmpty(methodIdents) && !methodIdents.contains(Long.valueOf(((MethodSensorData) data).getMethodIdent()))) {
+			return false;
+		}
+		if (null != data.getTimeStamp()) {
+			long time = data.getTimeStamp().getTime();
+			if ((null != fromDate) && (time < fromDate.getTime())) {
+				return false;
+			}
+			if ((null != toDate) && (time > toDate.getTime())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets {@link #dataTypes}.
+	 *
+	 * @return {@link #dataTypes}
+	 */
+	public Set<ColumnarDataType> getDataTypes() {
+		return dataTypes;
+	}
+
+	/**
+	 * Sets {@link #dataTypes}.
+	 *
+	 * @param dataTypes
+	 *            New value for {@link #dataTypes}
+	 */
+	public void setDataTypes(Collection<ColumnarDataType> dataTypes) {
+		this.dataTypes = new HashSet<>();
+		if (null != dataTypes) {
+			this.dataTypes.addAll(dataTypes);
+		}
+	}
+
+	/**
+	 * Gets {@link #platformIdent}.
+	 *
+	 * @return {@link #platformIdent}
+	 */
+	public long getPlatformIdent() {
+		return platformIdent;
+	}
+
+	/**
+	 * Sets {@link #platformIdent}.
+	 *
+	 * @param platformIdent
+	 *            New value for {@link #platformIdent}
+	 */
+	public void setPlatformIdent(long platformIdent) {
+		this.platformIdent = platformIdent;
+	}
+
+	/**
+	 * Gets {@link #methodIdents}.
+	 *
+	 * @return {@link #methodIdents}
+	 */
+	public Set<Long> getMethodIdents() {
+		return methodIdents;
+	}
+
+	/**
+	 * Sets {@link #methodIdents}.
+	 *
+	 * @param methodIdents
+	 *            New value for {@link #methodIdents}
+	 */
+	public void setMethodIdents(Collection<Long> methodIdents) {
+		this.methodIdents = new HashSet<>();
+		if (null != methodIdents) {
+			this.methodIdents.addAll(methodIdents);
+		}
+	}
+
+	/**
+	 * Gets {@link #fromDate}.
+	 *
+	 * @return {@link #fromDate}
+	 */
+	public Date getFromDate() {
+		return fromDate;
+	}
+
+	/**
+	 * Sets {@link #fromDate}.
+	 *
+	 * @param fromDate
+	 *            New value for {@link #fromDate}
+	 */
+	public void setFromDate(Date fromDate) {
+		this.fromDate = fromDate;
+	}
+
+	/**
+	 * Gets {@link #toDate}.
+	 *
+	 * @return {@link #toDate}
+	 */
+	public Date getToDate() {
+		return toDate;
+	}
+
+	/**
+	 * Sets {@link #toDate}.
+	 *
+	 * @param toDate
+	 *            New value for {@link #toDate}
+	 */
+	public void setToDate(Date toDate) {
+		this.toDate = toDate;
+	}
+
+	/**
+	 * Gets {@link #rowGroupSize}.
+	 *
+	 * @return {@link #rowGroupSize}
+	 */
+	public int getRowGroupSize() {
+		return rowGroupSize;
+	}
+
+	/**
+	 * Sets {@link #rowGroupSize}.
+	 *
+	 * @param rowGroupSize
+	 *            New value for {@link #rowGroupSize}
+	 */
+	public void setRowGroupSize(int rowGroupSize) {
+		this.rowGroupSize = rowGroupSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("dataTypes", dataTypes);
+		toStringBuilder.append("platformIdent", platformIdent);
+		toStringBuilder.append("methodIdents", methodIdents);
+		toStringBuilder.append("fromDate", fromDate);
+		toStringBuilder.append("toDate", toDate);
+		toStringBuilder.append("rowGroupSize", rowGroupSize);
+		return toStringBuilder.toString();
+	}
+}
@@ -0,0 +1,154 @@
+package rocks.inspectit.shared.cs.communication.data.cmr;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Result of the columnar export. The exported file can be downloaded via HTTP from the given
+ * location.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarExportResult implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = 7137645296740921935L;
+
+	/**
+	 * HTTP location of the exported file relative to the CMR storage root.
+	 */
+	private String fileLocation;
+
+	/**
+	 * Amount of exported rows.
+	 */
+	private long rowCount;
+
+	/**
+	 * Amount of written row groups.
+	 */
+	private int rowGroupCount;
+
+	/**
+	 * Size of the exported file in bytes.
+	 */
+	private long fileSize;
+
+	/**
+	 * Duration of the export in milliseconds.
+	 */
+	private long duration;
+
+	/**
+	 * Gets {@link #fileLocation}.
+	 *
+	 * @return {@link #fileLocation}
+	 */
+	public String getFileLocation() {
+		return fileLocation;
+	}
+
+	/**
+	 * Sets {@link #fileLocation}.
+	 *
+	 * @param fileLocation
+	 *            New value for {@link #fileLocation}
+	 */
+	public void setFileLocation(String fileLocation) {
+		this.fileLocation = fileLocation;
+	}
+
+	/**
+	 * Gets {@link #rowCount}.
+	 *
+	 * @return {@link #rowCount}
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Sets {@link #rowCount}.
+	 *
+	 * @param rowCount
+	 *            New value for {@link #rowCount}
+	 */
+	public void setRowCount(long rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * Gets {@link #rowGroupCount}.
+	 *
+	 * @return {@link #rowGroupCount}
+	 */
+	public int getRowGroupCount() {
+		return rowGroupCount;
+	}
+
+	/**
+	 * Sets {@link #rowGroupCount}.
+	 *
+	 * @param rowGroupCount
+	 *            New value for {@link #rowGroupCount}
+	 */
+	public void setRowGroupCount(int rowGroupCount) {
+		this.rowGroupCount = rowGroupCount;
+	}
+
+	/**
+	 * Gets {@link #fileSize}.
+	 *
+	 * @return {@link #fileSize}
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Sets {@link #fileSize}.
+	 *
+	 * @param fileSize
+	 *            New value for {@link #fileSize}
+	 */
+	public void setFileSize(long fileSize) {
+		this.fileSize = fileSize;
+	}
+
+	/**
+	 * Gets {@link #duration}.
+	 *
+	 * @return {@link #duration}
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Sets {@link #duration}.
+	 *
+	 * @param duration
+	 *            New value for {@link #duration}
+	 */
+	public void setDuration(long duration) {
+		this.duration = duration;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("fileLocation", fileLocation);
+		toStringBuilder.append("rowCount", rowCount);
+		toStringBuilder.append("rowGroupCount", rowGroupCount);
+		toStringBuilder.append("fileSize", fileSize);
+		toStringBuilder.append("duration", duration);
+		return toStringBuilder.toString();
+	}
+}
@@ -0,0 +1,345 @@
+package rocks.inspectit.shared.cs.communication.data.cmr;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.cs.storage.StorageData;
+
+/**
+ * Status of the background job that exports the buffer or a storage to the columnar format. When
+ * the job finishes, the status holds the {@link ColumnarExportResult} with the location of the
+ * exported file.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarExportStatus implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -4719230371640958725L;
+
+	/**
+	 * State of the export job.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	public enum ExportState {
+
+		/**
+		 * Job is running.
+		 */
+		RUNNING,
+
+		/**
+		 * Job finished and the export file can be downloaded.
+		 */
+		FINISHED,
+
+		/**
+		 * Job failed, the export file has been deleted.
+		 */
+		FAILED;
+	}
+
+	/**
+	 * Id of the export.
+	 */
+	private String id;
+
+	/**
+	 * Storage being exported or <code>null</code> if the buffer is exported.
+	 */
+	private StorageData storageData;
+
+	/**
+	 * Current state.
+	 */
+	private volatile ExportState state;
+
+	/**
+	 * Amount of rows written so far.
+	 */
+	private volatile long writtenRows;
+
+	/**
+	 * Result of the export, available when the job is finished.
+	 */
+	private volatile ColumnarExportResult result;
+
+	/**
+	 * Failure message if the job failed.
+	 */
+	private volatile String failureMessage;
+
+	/**
+	 * Date when the job started.
+	 */
+	private Date startDate;
+
+	/**
+	 * Date when the job finished or failed.
+	 */
+	private volatile Date endDate;
+
+	/**
+	 * No-arguments constructor.
+	 */
+	public ColumnarExportStatus() {
+	}
+
+	/**
+	 * Creates the status of the running job.
+	 *
+	 * @param id
+	 *            Id of the export.
+	 * @param storageData
+	 *            Storage being exported or <code>null</code> if the buffer is exported.
+	 */
+	public ColumnarExportStatus(String id, StorageData storageData) {
+		this.id = id;
+		this.storageData = storageData;
+		this.state = ExportState.RUNNING;
+		this.startDate = new Date();
+	}
+
+	/**
+	 * Returns if the job is done, either finished or failed.
+	 *
+	 * @return Returns if the job is done, either finished or failed.
+	 */
+	public boolean isDone() {
+		return ExportState.RUNNING != state;
+	}
+
+	/**
+	 * Marks the job as finished.
+	 *
+	 * @param result
+	 *            Result of the export.
+	 */
+	public void markFinished(ColumnarExportResult result) {
+		this.result = result;
+		this.writtenRows = result.getRowCount();
+		this.state = ExportState.FINISHED;
+		this.endDate = new Date();
+	}
+
+	/**
+	 * Marks the job as failed.
+	 *
+	 * @param message
+	 *            Failure message.
+	 */
+	public void markFailed(String message) {
+		this.failureMessage = message;
+		this.state = ExportState.FAILED;
+		this.endDate = new Date();
+	}
+
+	/**
+	 * Gets {@link #id}.
+	 *
+	 * @return {@link #id}
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Sets {@link #id}.
+	 *
+	 * @param id
+	 *            New value for {@link #id}
+	 */
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	/**
+	 * Gets {@link #storageData}.
+	 *
+	 * @return {@link #storageData}
+	 */
+	public StorageData getStorageData() {
+		return storageData;
+	}
+
+	/**
+	 * Sets {@link #storageData}.
+	 *
+	 * @param storageData
+	 *            New value for {@link #storageData}
+	 */
+	public void setStorageData(StorageData storageData) {
+		this.storageData = storageData;
+	}
+
+	/**
+	 * Gets {@link #state}.
+	 *
+	 * @return {@link #state}
+	 */
+	public ExportState getState() {
+		return state;
+	}
+
+	/**
+	 * Sets {@link #state}.
+	 *
+	 * @param state
+	 *            New value for {@link #state}
+	 */
+	public void setState(ExportState state) {
+		this.state = state;
+	}
+
+	/**
+	 * Gets {@link #writtenRows}.
+	 *
+	 * @return {@link #writtenRows}
+	 */
+	public long getWrittenRows() {
+		return writtenRows;
+	}
+
+	/**
+	 * Sets {@link #writtenRows}.
+	 *
+	 * @param writtenRows
+	 *            New value for {@link #writtenRows}
+	 */
+	public void setWrittenRows(long writtenRows) {
+		this.writtenRows = writtenRows;
+	}
+
+	/**
+	 * Gets {@link #result}.
+	 *
+	 * @return {@link #result}
+	 */
+	public ColumnarExportResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Sets {@link #result}.
+	 *
+	 * @param result
+	 *            New value for {@link #result}
+	 */
+	public void setResult(ColumnarExportResult result) {
+		this.result = result;
+	}
+
+	/**
+	 * Gets {@link #failureMessage}.
+	 *
+	 * @return {@link #failureMessage}
+	 */
+	public String getFailureMessage() {
+		return failureMessage;
+	}
+
+	/**
+	 * Sets {@link #failureMessage}.
+	 *
+	 * @param failureMessage
+	 *            New value for {@link #failureMessage}
+	 */
+	public void setFailureMessage(String failureMessage) {
+		this.failureMessage = failureMessage;
+	}
+
+	/**
+	 * Gets {@link #startDate}.
+	 *
+	 * @return {@link #startDate}
+	 */
+	public Date getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * Sets {@link #startDate}.
+	 *
+	 * @param startDate
+	 *            New value for {@link #startDate}
+	 */
+	public void setStartDate(Date startDate) {
+		this.startDate = startDate;
+	}
+
+	/**
+	 * Gets {@link #endDate}.
+	 *
+	 * @return {@link #endDate}
+	 */
+	public Date getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * Sets {@link #endDate}.
+	 *
+	 * @param endDate
+	 *            New value for {@link #endDate}
+	 */
+	public void setEndDate(Date endDate) {
+		this.endDate = endDate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		HashCodeBuilder hashCodeBuilder = new HashCodeBuilder();
+		hashCodeBuilder.append(id);
+		return hashCodeBuilder.toHashCode();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		ColumnarExportStatus other = (ColumnarExportStatus) obj;
+		EqualsBuilder equalsBuilder = new EqualsBuilder();
+		equalsBuilder.append(id, other.id);
+		return equalsBuilder.isEquals();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("id", id);
+		toStringBuilder.append("storageData", storageData);
+		toStringBuilder.append("state", state);
+		toStringBuilder.append("writtenRows", writtenRows);
+		toStringBuilder.append("result", result);
+		toStringBuilder.append("failureMessage", failureMessage);
+		toStringBuilder.append("startDate", startDate);
+		toStringBuilder.append("endDate", endDate);
+		return toStringBuilder.toString();
+	}
+
+}
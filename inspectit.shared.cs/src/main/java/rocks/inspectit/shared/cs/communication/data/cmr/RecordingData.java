@@ -42,6 +42,11 @@ public class RecordingData implements Serializable {
 	 */
 	private Date recordEndDate;
 
+	/**
+	 * Throughput and lag statistics of the recording.
+	 */
+	private RecordingStatistics recordingStatistics;
+
 	/**
 	 * No-arguments constructor.
 	 */
@@ -142,6 +147,25 @@ public class RecordingData implements Serializable {
 		this.recordEndDate = recordEndDate;
 	}
 
+	/**
+	 * Gets {@link #recordingStatistics}.
+	 *
+	 * @return {@link #recordingStatistics}
+	 */
+	public RecordingStatistics getRecordingStatistics() {
+		return recordingStatistics;
+	}
+
+	/**
+	 * Sets {@link #recordingStatistics}.
+	 *
+	 * @param recordingStatistics
+	 *            New value for {@link #recordingStatistics}
+	 */
+	public void setRecordingStatistics(RecordingStatistics recordingStatistics) {
+		this.recordingStatistics = recordingStatistics;
+	}
+
 	@Override
 	public int hashCode() {
 		HashCodeBuilder hashCodeBuilder = new HashCodeBuilder();
@@ -182,6 +206,7 @@ public class RecordingData implements Serializable {
 		toStringBuilder.append("recordingStorage", recordingStorage);
 		toStringBuilder.append("recordStartDate", recordStartDate);
 		toStringBuilder.append("recordEndDate", recordEndDate);
+		toStringBuilder.append("recordingStatistics", recordingStatistics);
 		return toStringBuilder.toString();
 	}
 
@@ -0,0 +1,367 @@
+package rocks.inspectit.shared.cs.communication.data.cmr;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.cs.storage.recording.RecordingBackpressurePolicy;
+
+/**
+ * Throughput and lag statistics of the active recording. The counters describe exactly how much
+ * of the data to record was not written: dropped or sampled out because the recording queue was
+ * full or failed in the storage writer.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class RecordingStatistics implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -3617346271436935512L;
+
+	/**
+	 * Policy used when the recording queue is full.
+	 */
+	private RecordingBackpressurePolicy backpressurePolicy;
+
+	/**
+	 * Amount of objects accepted for recording.
+	 */
+	private long recordedCount;
+
+	/**
+	 * Amount of objects passed to the recording processors.
+	 */
+	private long processedCount;
+
+	/**
+	 * Amount of objects dropped because the recording queue was full.
+	 */
+	private long droppedCount;
+
+	/**
+	 * Amount of objects not recorded due to the sampling.
+	 */
+	private long sampledOutCount;
+
+	/**
+	 * Amount of objects the storage writer failed to write.
+	 */
+	private long failedWriteCount;
+
+	/**
+	 * Amount of objects waiting in the recording queue.
+	 */
+	private int queuedCount;
+
+	/**
+	 * Capacity of the recording queue.
+	 */
+	private int queueCapacity;
+
+	/**
+	 * Amount of writing tasks the storage writer still has to process.
+	 */
+	private long pendingWriteTasks;
+
+	/**
+	 * Time in milliseconds the last processed object waited in the recording queue.
+	 */
+	private long lag;
+
+	/**
+	 * Amount of objects processed per second.
+	 */
+	private long throughput;
+
+	/**
+	 * Current size of the batches taken from the recording queue.
+	 */
+	private int batchSize;
+
+	/**
+	 * Current amount of threads the storage writer uses for serialization.
+	 */
+	private int writerThreads;
+
+	/**
+	 * Returns the total amount of objects that were not recorded.
+	 *
+	 * @return Sum of dropped, sampled out and failed objects.
+	 */
+	public long getLostCount() {
+		return droppedCount + sampledOutCount + failedWriteCount;
+	}
+
+	/**
+	 * Gets {@link #backpressurePolicy}.
+	 *
+	 * @return {@link #backpressurePolicy}
+	 */
+	public RecordingBackpressurePolicy getBackpressurePolicy() {
+		return backpressurePolicy;
+	}
+
+	/**
+	 * Sets {@link #backpressurePolicy}.
+	 *
+	 * @param backpressurePolicy
+	 *            New value for {@link #backpressurePolicy}
+	 */
+	public void setBackpressurePolicy(RecordingBackpressurePolicy backpressurePolicy) {
+		this.backpressurePolicy = backpressurePolicy;
+	}
+
+	/**
+	 * Gets {@link #recordedCount}.
+	 *
+	 * @return {@link #recordedCount}
+	 */
+	public long getRecordedCount() {
+		return recordedCount;
+	}
+
+	/**
+	 * Sets {@link #recordedCount}.
+	 *
+	 * @param recordedCount
+	 *            New value for {@link #recordedCount}
+	 */
+	public void setRecordedCount(long recordedCount) {
+		this.recordedCount = recordedCount;
+	}
+
+	/**
+	 * Gets {@link #processedCount}.
+	 *
+	 * @return {@link #processedCount}
+	 */
+	public long getProcessedCount() {
+		return processedCount;
+	}
+
+	/**
+	 * Sets {@link #processedCount}.
+	 *
+	 * @param processedCount
+	 *            New value for {@link #processedCount}
+	 */
+	public void setProcessedCount(long processedCount) {
+		this.processedCount = processedCount;
+	}
+
+	/**
+	 * Gets {@link #droppedCount}.
+	 *
+	 * @return {@link #droppedCount}
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Sets {@link #droppedCount}.
+	 *
+	 * @param droppedCount
+	 *            New value for {@link #droppedCount}
+	 */
+	public void setDroppedCount(long droppedCount) {
+		this.droppedCount = droppedCount;
+	}
+
+	/**
+	 * Gets {@link #sampledOutCount}.
+	 *
+	 * @return {@link #sampledOutCount}
+	 */
+	public long getSampledOutCount() {
+		return sampledOutCount;
+	}
+
+	/**
+	 * Sets {@link #sampledOutCount}.
+	 *
+	 * @param sampledOutCount
+	 *            New value for {@link #sampledOutCount}
+	 */
+	public void setSampledOutCount(long sampledOutCount) {
+		this.sampledOutCount = sampledOutCount;
+	}
+
+	/**
+	 * Gets {@link #failedWriteCount}.
+	 *
+	 * @return {@link #failedWriteCount}
+	 */
+	public long getFailedWriteCount() {
+		return failedWriteCount;
+	}
+
+	/**
+	 * Sets {@link #failedWriteCount}.
+	 *
+	 * @param failedWriteCount
+	 *            New value for {@link #failedWriteCount}
+	 */
+	public void setFailedWriteCount(long failedWriteCount) {
+		this.failedWriteCount = failedWriteCount;
+	}
+
+	/**
+	 * Gets {@link #queuedCount}.
+	 *
+	 * @return {@link #queuedCount}
+	 */
+	public int getQueuedCount() {
+		return queuedCount;
+	}
+
+	/**
+	 * Sets {@link #queuedCount}.
+	 *
+	 * @param queuedCount
+	 *            New value for {@link #queuedCount}
+	 */
+	public void setQueuedCount(int queuedCount) {
+		this.queuedCount = queuedCount;
+	}
+
+	/**
+	 * Gets {@link #queueCapacity}.
+	 *
+	 * @return {@link #queueCapacity}
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Sets {@link #queueCapacity}.
+	 *
+	 * @param queueCapacity
+	 *            New value for {@link #queueCapacity}
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Gets {@link #pendingWriteTasks}.
+	 *
+	 * @return {@link #pendingWriteTasks}
+	 */
+	public long getPendingWriteTasks() {
+		return pendingWriteTasks;
+	}
+
+	/**
+	 * Sets {@link #pendingWriteTasks}.
+	 *
+	 * @param pendingWriteTasks
+	 *            New value for {@link #pendingWriteTasks}
+	 */
+	public void setPendingWriteTasks(long pendingWriteTasks) {
+		this.pendingWriteTasks = pendingWriteTasks;
+	}
+
+	/**
+	 * Gets {@link #lag}.
+	 *
+	 * @return {@link #lag}
+	 */
+	public long getLag() {
+		return lag;
+	}
+
+	/**
+	 * Sets {@link #lag}.
+	 *
+	 * @param lag
+	 *            New value for {@link #lag}
+	 */
+	public void setLag(long lag) {
+		this.lag = lag;
+	}
+
+	/**
+	 * Gets {@link #throughput}.
+	 *
+	 * @return {@link #throughput}
+	 */
+	public long getThroughput() {
+		return throughput;
+	}
+
+	/**
+	 * Sets {@link #throughput}.
+	 *
+	 * @param throughput
+	 *            New value for {@link #throughput}
+	 */
+	public void setThroughput(long throughput) {
+		this.throughput = throughput;
+	}
+
+	/**
+	 * Gets {@link #batchSize}.
+	 *
+	 * @return {@link #batchSize}
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets {@link #batchSize}.
+	 *
+	 * @param batchSize
+	 *            New value for {@link #batchSize}
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets {@link #writerThreads}.
+	 *
+	 * @return {@link #writerThreads}
+	 */
+	public int getWriterThreads() {
+		return writerThreads;
+	}
+
+	/**
+	 * Sets {@link #writerThreads}.
+	 *
+	 * @param writerThreads
+	 *            New value for {@link #writerThreads}
+	 */
+	public void setWriterThreads(int writerThreads) {
+		this.writerThreads = writerThreads;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("backpressurePolicy", backpressurePolicy);
+		toStringBuilder.append("recordedCount", recordedCount);
+		toStringBuilder.append("processedCount", processedCount);
+		toStringBuilder.append("droppedCount", droppedCount);
+		toStringBuilder.append("sampledOutCount", sampledOutCount);
+		toStringBuilder.append("failedWriteCount", failedWriteCount);
+		toStringBuilder.append("queuedCount", queuedCount);
+		toStringBuilder.append("queueCapacity", queueCapacity);
+		toStringBuilder.append("pendingWriteTasks", pendingWriteTasks);
+		toStringBuilder.append("lag", lag);
+		toStringBuilder.append("throughput", throughput);
+		toStringBuilder.append("batchSize", batchSize);
+		toStringBuilder.append("writerThreads", writerThreads);
+		return toStringBuilder.toString();
+	}
+
+}
@@ -0,0 +1,378 @@
+package rocks.inspectit.shared.cs.communication.data.cmr;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.cs.storage.StorageData;
+
+/**
+ * Status of the compaction job that merges one or more finalized storages into the target
+ * storage.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class StorageCompactionStatus implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = 2868421347731046237L;
+
+	/**
+	 * State of the compaction job.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	public enum CompactionState {
+
+		/**
+		 * Job is running.
+		 */
+		RUNNING,
+
+		/**
+		 * Job finished and the target storage is closed.
+		 */
+		FINISHED,
+
+		/**
+		 * Job failed, the target storage has been deleted.
+		 */
+		FAILED;
+	}
+
+	/**
+	 * Storage the data is written to.
+	 */
+	private StorageData targetStorage;
+
+	/**
+	 * Current state.
+	 */
+	private volatile CompactionState state;
+
+	/**
+	 * Amount of objects in the source storages.
+	 */
+	private volatile long totalObjects;
+
+	/**
+	 * Amount of the source objects already processed.
+	 */
+	private volatile long processedObjects;
+
+	/**
+	 * Amount of objects written to the target storage.
+	 */
+	private volatile long writtenObjects;
+
+	/**
+	 * Amount of duplicated objects that were not written.
+	 */
+	private volatile long duplicatesRemoved;
+
+	/**
+	 * Failure message if the job failed.
+	 */
+	private volatile String failureMessage;
+
+	/**
+	 * Date when the job started.
+	 */
+	private Date startDate;
+
+	/**
+	 * Date when the job finished or failed.
+	 */
+	private volatile Date endDate;
+
+	/**
+	 * No-arguments constructor.
+	 */
+	public StorageCompactionStatus() {
+	}
+
+	/**
+	 * Creates the status of the running job.
+	 *
+	 * @param targetStorage
+	 *            Storage the data is written to.
+	 */
+	public StorageCompactionStatus(StorageData targetStorage) {
+		this.targetStorage = targetStorage;
+		this.state = CompactionState.RUNNING;
+		this.startDate = new Date();
+	}
+
+	/**
+	 * Returns the progress of the job in percentages.
+	 *
+	 * @return Value between 0 and 100.
+	 */
+	public int getPercentageComplete() {
+		if (CompactionState.FINISHED == state) {
+			return 100;
+		}
+		if (totalObjects <= 0) {
+			return 0;
+		}
+		return (int) Math.min(99, (processedObjects * 100) / totalObjects);
+	}
+
+	/**
+	 * Returns if the job is done, either finished or failed.
+	 *
+	 * @return Returns if the job is done, either finished or failed.
+	 */
+	public boolean isDone() {
+		return CompactionState.RUNNING != state;
+	}
+
+	/**
+	 * Marks the job as finished.
+	 */
+	public void markFinished() {
+		this.state = CompactionState.FINISHED;
+		this.endDate = new Date();
+	}
+
+	/**
+	 * Marks the job as failed.
+	 *
+	 * @param message
+	 *            Failure message.
+	 */
+	public void markFailed(String message) {
+		this.failureMessage = message;
+		this.state = CompactionState.FAILED;
+		this.endDate = new Date();
+	}
+
+	/**
+	 * Gets {@link #targetStorage}.
+	 *
+	 * @return {@link #targetStorage}
+	 */
+	public StorageData getTargetStorage() {
+		return targetStorage;
+	}
+
+	/**
+	 * Sets {@link #targetStorage}.
+	 *
+	 * @param targetStorage
+	 *            New value for {@link #targetStorage}
+	 */
+	public void setTargetStorage(StorageData targetStorage) {
+		this.targetStorage = targetStorage;
+	}
+
+	/**
+	 * Gets {@link #state}.
+	 *
+	 * @return {@link #state}
+	 */
+	public CompactionState getState() {
+		return state;
+	}
+
+	/**
+	 * Sets {@link #state}.
+	 *
+	 * @param state
+	 *            New value for {@link #state}
+	 */
+	public void setState(CompactionState state) {
+		this.state = state;
+	}
+
+	/**
+	 * Gets {@link #totalObjects}.
+	 *
+	 * @return {@link #totalObjects}
+	 */
+	public long getTotalObjects() {
+		return totalObjects;
+	}
+
+	/**
+	 * Sets {@link #totalObjects}.
+	 *
+	 * @param totalObjects
+	 *            New value for {@link #totalObjects}
+	 */
+	public void setTotalObjects(long totalObjects) {
+		this.totalObjects = totalObjects;
+	}
+
+	/**
+	 * Gets {@link #processedObjects}.
+	 *
+	 * @return {@link #processedObjects}
+	 */
+	public long getProcessedObjects() {
+		return processedObjects;
+	}
+
+	/**
+	 * Sets {@link #processedObjects}.
+	 *
+	 * @param processedObjects
+	 *            New value for {@link #processedObjects}
+	 */
+	public void setProcessedObjects(long processedObjects) {
+		this.processedObjects = processedObjects;
+	}
+
+	/**
+	 * Gets {@link #writtenObjects}.
+	 *
+	 * @return {@link #writtenObjects}
+	 */
+	public long getWrittenObjects() {
+		return writtenObjects;
+	}
+
+	/**
+	 * Sets {@link #writtenObjects}.
+	 *
+	 * @param writtenObjects
+	 *            New value for {@link #writtenObjects}
+	 */
+	public void setWrittenObjects(long writtenObjects) {
+		this.writtenObjects = writtenObjects;
+	}
+
+	/**
+	 * Gets {@link #duplicatesRemoved}.
+	 *
+	 * @return {@link #duplicatesRemoved}
+	 */
+	public long getDuplicatesRemoved() {
+		return duplicatesRemoved;
+	}
+
+	/**
+	 * Sets {@link #duplicatesRemoved}.
+	 *
+	 * @param duplicatesRemoved
+	 *            New value for {@link #duplicatesRemoved}
+	 */
+	public void setDuplicatesRemoved(long duplicatesRemoved) {
+		this.duplicatesRemoved = duplicatesRemoved;
+	}
+
+	/**
+	 * Gets {@link #failureMessage}.
+	 *
+	 * @return {@link #failureMessage}
+	 */
+	public String getFailureMessage() {
+		return failureMessage;
+	}
+
+	/**
+	 * Sets {@link #failureMessage}.
+	 *
+	 * @param failureMessage
+	 *            New value for {@link #failureMessage}
+	 */
+	public void setFailureMessage(String failureMessage) {
+		this.failureMessage = failureMessage;
+	}
+
+	/**
+	 * Gets {@link #startDate}.
+	 *
+	 * @return {@link #startDate}
+	 */
+	public Date getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * Sets {@link #startDate}.
+	 *
+	 * @param startDate
+	 *            New value for {@link #startDate}
+	 */
+	public void setStartDate(Date startDate) {
+		this.startDate = startDate;
+	}
+
+	/**
+	 * Gets {@link #endDate}.
+	 *
+	 * @return {@link #endDate}
+	 */
+	public Date getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * Sets {@link #endDate}.
+	 *
+	 * @param endDate
+	 *            New value for {@link #endDate}
+	 */
+	public void setEndDate(Date endDate) {
+		this.endDate = endDate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		HashCodeBuilder hashCodeBuilder = new HashCodeBuilder();
+		hashCodeBuilder.append(targetStorage);
+		hashCodeBuilder.append(startDate);
+		return hashCodeBuilder.toHashCode();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		StorageCompactionStatus other = (StorageCompactionStatus) obj;
+		EqualsBuilder equalsBuilder = new EqualsBuilder();
+		equalsBuilder.append(targetStorage, other.targetStorage);
+		equalsBuilder.append(startDate, other.startDate);
+		return equalsBuilder.isEquals();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("targetStorage", targetStorage);
+		toStringBuilder.append("state", state);
+		toStringBuilder.append("totalObjects", totalObjects);
+		toStringBuilder.append("processedObjects", processedObjects);
+		toStringBuilder.append("writtenObjects", writtenObjects);
+		toStringBuilder.append("duplicatesRemoved", duplicatesRemoved);
+		toStringBuilder.append("failureMessage", failureMessage);
+		toStringBuilder.append("startDate", startDate);
+		toStringBuilder.append("endDate", endDate);
+		return toStringBuilder.toString();
+	}
+
+}
@@ -0,0 +1,49 @@
+package rocks.inspectit.shared.cs.indexing.cursor;
+
+import java.util.List;
+
+/**
+ * Cursor over the results of a query executed against an indexing tree. Instead of returning the
+ * complete result list at once, the cursor hands out the results page by page, so that the callers
+ * can transfer and process only the part of the results they currently need.
+ *
+ * @param <E>
+ *            Type of the elements in the result.
+ *
+ * @author Ivan Senic
+ *
+ */
+public interface IQueryCursor<E> {
+
+	/**
+	 * Returns the next page of the results and advances the cursor. If there are less than
+	 * <code>count</code> elements left, all remaining elements are returned.
+	 *
+	 * @param count
+	 *            Maximum amount of elements to return. Must be positive.
+	 * @return Next elements of the result or empty list if cursor is exhausted.
+	 */
+	List<E> next(int count);
+
+	/**
+	 * Returns if there are more elements to be read from the cursor.
+	 *
+	 * @return Returns if there are more elements to be read from the cursor.
+	 */
+	boolean hasNext();
+
+	/**
+	 * Returns the amount of elements that have already been read from the cursor.
+	 *
+	 * @return Returns the amount of elements that have already been read from the cursor.
+	 */
+	int getPosition();
+
+	/**
+	 * Returns the total amount of elements in the result this cursor is iterating over.
+	 *
+	 * @return Returns the total amount of elements in the result this cursor is iterating over.
+	 */
+	int getTotalSize();
+
+}
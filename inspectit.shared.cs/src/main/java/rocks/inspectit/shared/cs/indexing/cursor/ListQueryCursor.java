@@ -0,0 +1,116 @@
+package rocks.inspectit.shared.cs.indexing.cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link IQueryCursor} that iterates over an already collected (and sorted) query result. The
+ * cursor only holds the references to the elements that were returned by the indexing tree. The
+ * optional transformer (for example creating the overview clone of an invocation sequence) is
+ * applied lazily to the elements of the page being read, thus copies are only created for the
+ * elements that are really requested.
+ * <p>
+ * The cursor is thread safe, reading of the pages is synchronized.
+ *
+ * @param <E>
+ *            Type of the elements in the result.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ListQueryCursor<E> implements IQueryCursor<E> {
+
+	/**
+	 * Query result.
+	 */
+	private final List<? extends E> results;
+
+	/**
+	 * Transformer applied to each element before returning it. Can be <code>null</code>.
+	 */
+	private final Function<? super E, ? extends E> transformer;
+
+	/**
+	 * Amount of already read elements.
+	 */
+	private int position;
+
+	/**
+	 * Creates the cursor that returns the elements as they are.
+	 *
+	 * @param results
+	 *            Query result.
+	 */
+	public ListQueryCursor(List<? extends E> results) {
+		this(results, null);
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param results
+	 *            Query result.
+	 * @param transformer
+	 *            Transformer applied to each element before returning it. Can be
+	 *            <code>null</code>.
+	 */
+	public ListQueryCursor(List<? extends E> results, Function<? super E, ? extends E> transformer) {
+		if (null == results) {
+			throw new IllegalArgumentException("Query result list must not be null.");
+		}
+		this.results = results;
+		this.transformer = transformer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized List<E> next(int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Amount of elements to read must be positive.");
+		}
+
+		int end = Math.min(results.size(), position + count);
+		List<E> page = new ArrayList<>(Math.max(0, end - position));
+		if (position >= end) {
+			return page;
+		}
+
+		for (E element : results.subList(position, end)) {
+			if (null != transformer) {
+				page.add(transformer.apply(element));
+			} else {
+				page.add(element);
+			}
+		}
+		position = end;
+		return page;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized boolean hasNext() {
+		return position < results.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized int getPosition() {
+		return position;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getTotalSize() {
+		return results.size();
+	}
+
+}
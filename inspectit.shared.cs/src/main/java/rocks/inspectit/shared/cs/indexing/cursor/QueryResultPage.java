@@ -0,0 +1,180 @@
+package rocks.inspectit.shared.cs.indexing.cursor;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the query results read from a {@link IQueryCursor}. The page carries the id of the
+ * cursor on the server side, so that the client can request the next pages.
+ *
+ * @param <E>
+ *            Type of the elements in the page.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class QueryResultPage<E> implements Serializable {
+
+	/**
+	 * Generated UID.
+	 */
+	private static final long serialVersionUID = -2634096738813618466L;
+
+	/**
+	 * Id of the cursor on the server or <code>0</code> if the page is the last one and cursor is
+	 * already closed.
+	 */
+	private long cursorId;
+
+	/**
+	 * Position of the first element of this page in the complete result.
+	 */
+	private int offset;
+
+	/**
+	 * Total amount of elements in the complete result.
+	 */
+	private int totalSize;
+
+	/**
+	 * Elements in this page.
+	 */
+	private List<E> elements;
+
+	/**
+	 * No-arg constructor.
+	 */
+	public QueryResultPage() {
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param cursorId
+	 *            Id of the cursor on the server or <code>0</code> if the page is the last one.
+	 * @param offset
+	 *            Position of the first element of this page in the complete result.
+	 * @param totalSize
+	 *            Total amount of elements in the complete result.
+	 * @param elements
+	 *            Elements in this page.
+	 */
+	public QueryResultPage(long cursorId, int offset, int totalSize, List<E> elements) {
+		this.cursorId = cursorId;
+		this.offset = offset;
+		this.totalSize = totalSize;
+		this.elements = elements;
+	}
+
+	/**
+	 * Creates the page that holds the complete result. Can be used by the services that can not
+	 * keep the cursors open.
+	 *
+	 * @param <E>
+	 *            Type of the elements in the page.
+	 * @param elements
+	 *            Complete result.
+	 * @return {@link QueryResultPage} holding all elements.
+	 */
+	public static <E> QueryResultPage<E> singlePage(List<E> elements) {
+		return new QueryResultPage<>(0, 0, elements.size(), elements);
+	}
+
+	/**
+	 * Returns if more pages are available for reading from the cursor.
+	 *
+	 * @return Returns if more pages are available for reading from the cursor.
+	 */
+	public boolean hasMore() {
+		return (offset + getElements().size()) < totalSize;
+	}
+
+	/**
+	 * Gets {@link #cursorId}.
+	 *
+	 * @return {@link #cursorId}
+	 */
+	public long getCursorId() {
+		return this.cursorId;
+	}
+
+	/**
+	 * Sets {@link #cursorId}.
+	 *
+	 * @param cursorId
+	 *            New value for {@link #cursorId}
+	 */
+	public void setCursorId(long cursorId) {
+		this.cursorId = cursorId;
+	}
+
+	/**
+	 * Gets {@link #offset}.
+	 *
+	 * @return {@link #offset}
+	 */
+	public int getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * Sets {@link #offset}.
+	 *
+	 * @param offset
+	 *            New value for {@link #offset}
+	 */
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
+	/**
+	 * Gets {@link #totalSize}.
+	 *
+	 * @return {@link #totalSize}
+	 */
+	public int getTotalSize() {
+		return this.totalSize;
+	}
+
+	/**
+	 * Sets {@link #totalSize}.
+	 *
+	 * @param totalSize
+	 *            New value for {@link #totalSize}
+	 */
+	public void setTotalSize(int totalSize) {
+		this.totalSize = totalSize;
+	}
+
+	/**
+	 * Gets {@link #elements}.
+	 *
+	 * @return {@link #elements}
+	 */
+	public List<E> getElements() {
+		if (null == elements) {
+			return Collections.emptyList();
+		}
+		return this.elements;
+	}
+
+	/**
+	 * Sets {@link #elements}.
+	 *
+	 * @param elements
+	 *            New value for {@link #elements}
+	 */
+	public void setElements(List<E> elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "QueryResultPage [cursorId=" + cursorId + ", offset=" + offset + ", size=" + getElements().size() + ", totalSize=" + totalSize + "]";
+	}
+
+}
@@ -22,6 +22,16 @@ public abstract class AbstractStorageDescriptor implements IStorageDescriptor {
 		if ((this.getSize() - other.getSize()) != 0) {
 			return (int) (this.getSize() - other.getSize());
 		}
+		return Long.compare(this.getElementId(), other.getElementId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Default implementation returns zero.
+	 */
+	@Override
+	public long getElementId() {
 		return 0;
 	}
 
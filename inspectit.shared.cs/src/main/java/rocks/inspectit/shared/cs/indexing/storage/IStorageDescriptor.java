@@ -43,4 +43,13 @@ public interface IStorageDescriptor extends Comparable<IStorageDescriptor> {
 	 */
 	void setPositionAndSize(long position, long size);
 
+	/**
+	 * Returns the id of the element this descriptor points to inside of the compressed block that
+	 * is described by the position and size. Zero means that the descriptor is not pointing to a
+	 * single element and that all data described by the position and size should be read.
+	 *
+	 * @return the element id
+	 */
+	long getElementId();
+
 }
\ No newline at end of file
@@ -24,6 +24,10 @@ import rocks.inspectit.shared.cs.storage.util.StorageUtil;
  * This implementation of leaf for the {@link IStorageTreeComponent} holds
  * {@link SimpleStorageDescriptor}s and IDs of elements in separate arrays.
  * <p>
+ * With storages written in compressed blocks all elements of the leaf that are written in the same
+ * block share one {@link SimpleStorageDescriptor} describing the block. The descriptors returned
+ * by the leaf carry the element id, so that the element can be found in the block when reading.
+ * <p>
  * <b>IMPORTANT!</b>
  * <p>
  * This class might not be as effective as wanted. The remove operation in problematic, as well as
@@ -78,6 +82,13 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 	 */
 	private SimpleStorageDescriptor[] descriptorArray;
 
+	/**
+	 * Descriptor that was last set as the written position and size of an element. Elements
+	 * written to the same position with the same size (in the same compressed block) share this
+	 * descriptor.
+	 */
+	private transient SimpleStorageDescriptor lastWrittenDescriptor;
+
 	/**
 	 * Reading lock.
 	 */
@@ -125,7 +136,7 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 		} else if (0 == element.getId()) {
 			throw new IndexingException("Element to index can not have ID that is equal to zero.");
 		}
-		StorageDescriptor descriptor = new StorageDescriptor(this.id);
+		ElementDescriptor descriptor = new ElementDescriptor(element.getId());
 		if (insertIntoArrays(element.getId(), descriptor.getSimpleStorageDescriptor())) {
 			return descriptor;
 		} else {
@@ -199,6 +210,37 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 		}
 	}
 
+	/**
+	 * Sets the written position and size of the element. If the position and size are same as the
+	 * ones of the last written element, the element shares the descriptor with it, otherwise new
+	 * descriptor is created.
+	 *
+	 * @param elementId
+	 *            Id of the element.
+	 * @param position
+	 *            Written position.
+	 * @param writtenSize
+	 *            Written size.
+	 * @return {@link SimpleStorageDescriptor} now describing the element.
+	 */
+	private SimpleStorageDescriptor setPositionAndSize(long elementId, long position, long writtenSize) {
+		writeLock.lock();
+		try {
+			SimpleStorageDescriptor simpleDescriptor = lastWrittenDescriptor;
+			if ((null == simpleDescriptor) || (simpleDescriptor.getPosition() != position) || (simpleDescriptor.getSize() != writtenSize)) {
+				simpleDescriptor = new SimpleStorageDescriptor(position, (int) writtenSize);
+				lastWrittenDescriptor = simpleDescriptor;
+			}
+			int index = Arrays.binarySearch(idArray, 0, size, elementId);
+			if (index >= 0) {
+				descriptorArray[index] = simpleDescriptor;
+			}
+			return simpleDescriptor;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -210,7 +252,7 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 			if (index >= 0) {
 				SimpleStorageDescriptor simpleDescriptor = descriptorArray[index];
 				if (null != simpleDescriptor) {
-					return new StorageDescriptor(this.id, simpleDescriptor);
+					return new StorageDescriptor(this.id, simpleDescriptor, idArray[index]);
 				} else {
 					return null;
 				}
@@ -249,7 +291,7 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 					if (0 != idArray[index]) {
 						SimpleStorageDescriptor simpleDescriptor = descriptorArray[index];
 						if (null != simpleDescriptor) {
-							returnList.add(new StorageDescriptor(this.id, simpleDescriptor));
+							returnList.add(new StorageDescriptor(this.id, simpleDescriptor, idArray[index]));
 						}
 					}
 				}
@@ -298,7 +340,7 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 				if ((0 != idArray[index]) && ((query.getIncludeIds() == null) || query.getIncludeIds().contains(idArray[index]))) {
 					SimpleStorageDescriptor simpleDescriptor = descriptorArray[index];
 					if (null != simpleDescriptor) {
-						returnList.add(new StorageDescriptor(this.id, simpleDescriptor));
+						returnList.add(new StorageDescriptor(this.id, simpleDescriptor, idArray[index]));
 					}
 				}
 
@@ -318,9 +360,10 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 		// / first acquire the read lock to see if the element exists
 		readLock.lock();
 		int index;
+		long elementId = element.getId();
 		SimpleStorageDescriptor simpleDescriptor;
 		try {
-			index = Arrays.binarySearch(idArray, 0, size, element.getId());
+			index = Arrays.binarySearch(idArray, 0, size, elementId);
 			if (index < 0) {
 				return null;
 			} else {
@@ -338,7 +381,7 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 			size--;
 			idArray[size] = 0;
 			descriptorArray[size] = null; // NOPMD
-			return new StorageDescriptor(id, simpleDescriptor);
+			return new StorageDescriptor(id, simpleDescriptor, elementId);
 		} finally {
 			writeLock.unlock();
 		}
@@ -356,15 +399,29 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * Descriptors shared by the elements written in the same block are counted once.
 	 */
 	@Override
 	public long getComponentSize(IObjectSizes objectSizes) {
+		int descriptorCount = 0;
+		readLock.lock();
+		try {
+			for (int i = 0; i < size; i++) {
+				if ((null != descriptorArray[i]) && ((0 == i) || (descriptorArray[i] != descriptorArray[i - 1]))) {
+					descriptorCount++;
+				}
+			}
+		} finally {
+			readLock.unlock();
+		}
+
 		long sizeInBytes = objectSizes.getSizeOfObjectHeader();
-		sizeInBytes += objectSizes.getPrimitiveTypesSize(2, 0, 4, 0, 0, 0);
+		sizeInBytes += objectSizes.getPrimitiveTypesSize(3, 0, 4, 0, 0, 0);
 		sizeInBytes += objectSizes.getSizeOfArray(idArray.length);
 		sizeInBytes += size * objectSizes.getPrimitiveTypesSize(0, 0, 1, 0, 0, 0);
 		sizeInBytes += objectSizes.getSizeOfArray(descriptorArray.length);
-		sizeInBytes += size * (objectSizes.alignTo8Bytes(objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(0, 0, 1, 0, 1, 0)));
+		sizeInBytes += descriptorCount * (objectSizes.alignTo8Bytes(objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(0, 0, 1, 0, 1, 0)));
 		// ignore locks
 		return objectSizes.alignTo8Bytes(sizeInBytes);
 	}
@@ -378,6 +435,33 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 		return id;
 	}
 
+	/**
+	 * Gets {@link #size}.
+	 *
+	 * @return {@link #size}
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets {@link #idArray}.
+	 *
+	 * @return {@link #idArray}
+	 */
+	long[] getIdArray() {
+		return idArray;
+	}
+
+	/**
+	 * Gets {@link #descriptorArray}.
+	 *
+	 * @return {@link #descriptorArray}
+	 */
+	SimpleStorageDescriptor[] getDescriptorArray() {
+		return descriptorArray;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -386,6 +470,35 @@ public class ArrayBasedStorageLeaf<E extends DefaultData> implements IStorageTre
 		return new LeafTask<>(this, query);
 	}
 
+	/**
+	 * Descriptor returned when the element is put to the leaf. Setting the position and size
+	 * updates the descriptor of the element in the leaf.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private class ElementDescriptor extends StorageDescriptor {
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param elementId
+		 *            Id of the element.
+		 */
+		ElementDescriptor(long elementId) {
+			super(id, new SimpleStorageDescriptor(), elementId);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setPositionAndSize(long position, long size) {
+			setSimpleStorageDescriptor(ArrayBasedStorageLeaf.this.setPositionAndSize(getElementId(), position, size));
+		}
+
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
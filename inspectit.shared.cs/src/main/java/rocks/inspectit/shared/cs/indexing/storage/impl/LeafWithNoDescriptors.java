@@ -150,7 +150,9 @@ public class LeafWithNoDescriptors<E extends DefaultData> implements IStorageTre
 	}
 
 	/**
-	 * Adds the written position and size by updating the existing {@link #descriptors} list.
+	 * Adds the written position and size by updating the existing {@link #descriptors} list. If
+	 * the range is already described (as for all objects written in the same compressed block)
+	 * nothing is changed.
 	 *
 	 * @param position
 	 *            Position that was written.
@@ -158,6 +160,11 @@ public class LeafWithNoDescriptors<E extends DefaultData> implements IStorageTre
 	 *            Size.
 	 */
 	private synchronized void addPositionAndSize(long position, long size) {
+		for (SimpleStorageDescriptor storageDescriptor : descriptors) {
+			if ((storageDescriptor.getPosition() <= position) && ((position + size) <= (storageDescriptor.getPosition() + storageDescriptor.getSize()))) {
+				return;
+			}
+		}
 		for (SimpleStorageDescriptor storageDescriptor : descriptors) {
 			if (((storageDescriptor.getSize() + size) < MAX_RANGE_SIZE) && storageDescriptor.join(position, size)) {
 				return;
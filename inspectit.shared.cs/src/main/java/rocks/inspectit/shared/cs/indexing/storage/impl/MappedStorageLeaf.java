@@ -0,0 +1,321 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.LeafTask;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+
+/**
+ * Read-only leaf that replaces the {@link ArrayBasedStorageLeaf} in the indexing trees of the
+ * finalized storages. The leaf itself only holds the location of its entries in the leaf file,
+ * which is memory-mapped when the storage is opened. Entries are sorted by the element id and have
+ * a fixed size of {@link #ENTRY_SIZE} bytes: id (long) and index of the block (int). Entries are
+ * followed by the table of the blocks the elements are written in, each block has a fixed size of
+ * {@link #BLOCK_ENTRY_SIZE} bytes: position (long) and size (int). Thus, all elements written in
+ * the same compressed block share one block entry.
+ * <p>
+ * Since entries are read with absolute gets only, the leaf can be queried by many threads at the
+ * same time.
+ * <P>
+ * <b>Important:</b><br>
+ * Changing this class or the entry layout can cause the break of the backward/forward
+ * compatibility of the storage.
+ *
+ * @author Ivan Senic
+ *
+ * @param <E>
+ *            Type of the elements indexed.
+ */
+public class MappedStorageLeaf<E extends DefaultData> implements IStorageTreeComponent<E> {
+
+	/**
+	 * Size of one entry in bytes.
+	 */
+	public static final int ENTRY_SIZE = 12;
+
+	/**
+	 * Size of one block entry in bytes.
+	 */
+	public static final int BLOCK_ENTRY_SIZE = 12;
+
+	/**
+	 * Leaf id.
+	 */
+	private int id;
+
+	/**
+	 * Offset of the first entry in the leaf file.
+	 */
+	private long offset;
+
+	/**
+	 * Amount of entries.
+	 */
+	private int size;
+
+	/**
+	 * Amount of block entries following the entries.
+	 */
+	private int blockCount;
+
+	/**
+	 * Leaf file content, available after the leaf file is attached.
+	 */
+	private transient ByteBuffer leafBuffer;
+
+	/**
+	 * No-arg constructor.
+	 */
+	public MappedStorageLeaf() {
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param id
+	 *            Leaf id.
+	 * @param offset
+	 *            Offset of the first entry in the leaf file.
+	 * @param size
+	 *            Amount of entries.
+	 * @param blockCount
+	 *            Amount of block entries following the entries.
+	 */
+	public MappedStorageLeaf(int id, long offset, int size, int blockCount) {
+		this.id = id;
+		this.offset = offset;
+		this.size = size;
+		this.blockCount = blockCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Mapped leaf is read-only.
+	 */
+	@Override
+	public IStorageDescriptor put(E element) {
+		throw new UnsupportedOperationException("MappedStorageLeaf is read-only.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IStorageDescriptor get(E element) {
+		int index = binarySearch(element.getId());
+		if (index >= 0) {
+			return getDescriptor(index);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<IStorageDescriptor> query(IIndexQuery query) {
+		checkAttached();
+		int index = 0;
+		// if min id is given, we will start from the first id that is bigger or equal than min id
+		if (query.getMinId() != 0) {
+			index = binarySearch(query.getMinId());
+			if (index < 0) {
+				index = -index - 1;
+			}
+		}
+
+		List<Long> includeIds = null;
+		List<Long> excludeIds = null;
+		if (query instanceof StorageIndexQuery) {
+			includeIds = ((StorageIndexQuery) query).getIncludeIds();
+			excludeIds = ((StorageIndexQuery) query).getExcludeIds();
+		}
+
+		List<IStorageDescriptor> returnList = new ArrayList<>();
+		for (; index < size; index++) {
+			long elementId = getId(index);
+			if ((null != excludeIds) && excludeIds.contains(elementId)) {
+				continue;
+			}
+			if ((null == includeIds) || includeIds.contains(elementId)) {
+				returnList.add(getDescriptor(index));
+			}
+		}
+		return returnList;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<IStorageDescriptor> query(IIndexQuery query, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Mapped leaf is read-only.
+	 */
+	@Override
+	public IStorageDescriptor getAndRemove(E template) {
+		throw new UnsupportedOperationException("MappedStorageLeaf is read-only.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Does nothing.
+	 */
+	@Override
+	public void preWriteFinalization() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The mapped entries are not counted, as they are not on the heap.
+	 */
+	@Override
+	public long getComponentSize(IObjectSizes objectSizes) {
+		long sizeInBytes = objectSizes.getSizeOfObjectHeader();
+		sizeInBytes += objectSizes.getPrimitiveTypesSize(1, 0, 3, 0, 1, 0);
+		return objectSizes.alignTo8Bytes(sizeInBytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public RecursiveTask<List<IStorageDescriptor>> getTaskForForkJoinQuery(IIndexQuery query) {
+		return new LeafTask<>(this, query);
+	}
+
+	/**
+	 * Attaches the content of the leaf file.
+	 *
+	 * @param leafBuffer
+	 *            Leaf file content.
+	 */
+	void attach(ByteBuffer leafBuffer) {
+		this.leafBuffer = leafBuffer;
+	}
+
+	/**
+	 * Returns the id of the element on the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return Element id.
+	 */
+	private long getId(int index) {
+		return leafBuffer.getLong(getEntryPosition(index));
+	}
+
+	/**
+	 * Creates the descriptor for the entry on the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return {@link StorageDescriptor}.
+	 */
+	private StorageDescriptor getDescriptor(int index) {
+		int entryPosition = getEntryPosition(index);
+		int blockIndex = leafBuffer.getInt(entryPosition + 8);
+		if ((blockIndex < 0) || (blockIndex >= blockCount)) {
+			throw new IllegalStateException("Entry " + index + " of the mapped leaf " + id + " points to the not existing block " + blockIndex + ".");
+		}
+		int blockPosition = getEntryPosition(size) + (blockIndex * BLOCK_ENTRY_SIZE);
+		SimpleStorageDescriptor simpleDescriptor = new SimpleStorageDescriptor(leafBuffer.getLong(blockPosition), leafBuffer.getInt(blockPosition + 8));
+		return new StorageDescriptor(id, simpleDescriptor, leafBuffer.getLong(entryPosition));
+	}
+
+	/**
+	 * Binary search of the element id in the entries.
+	 *
+	 * @param elementId
+	 *            Id to search.
+	 * @return Index of the entry, or <code>(-(insertion point) - 1)</code> as in
+	 *         {@link java.util.Arrays#binarySearch(long[], long)}.
+	 */
+	private int binarySearch(long elementId) {
+		checkAttached();
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midId = getId(mid);
+			if (midId < elementId) {
+				low = mid + 1;
+			} else if (midId > elementId) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Returns position of the entry in the leaf file.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return Position in the leaf file.
+	 */
+	private int getEntryPosition(int index) {
+		return (int) (offset + ((long) index * ENTRY_SIZE));
+	}
+
+	/**
+	 * Checks that the leaf file is attached.
+	 */
+	private void checkAttached() {
+		if (null == leafBuffer) {
+			throw new IllegalStateException("Leaf file of the mapped leaf " + id + " is not attached.");
+		}
+	}
+
+	/**
+	 * Gets {@link #size}.
+	 *
+	 * @return {@link #size}
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets {@link #blockCount}.
+	 *
+	 * @return {@link #blockCount}
+	 */
+	int getBlockCount() {
+		return blockCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("id", id);
+		toStringBuilder.append("offset", offset);
+		toStringBuilder.append("size", size);
+		toStringBuilder.append("blockCount", blockCount);
+		return toStringBuilder.toString();
+	}
+}
@@ -0,0 +1,138 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.cs.indexing.ITreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+
+/**
+ * Utility for converting the storage indexing trees to the mapped layout. In the mapped layout all
+ * {@link ArrayBasedStorageLeaf}s are written as flat entries to the leaf file and replaced by the
+ * {@link MappedStorageLeaf}s. The remaining tree (branches and their keys) is small and serves as
+ * a directory to the leaf file.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class MappedStorageTreeUtil {
+
+	/**
+	 * Private constructor.
+	 */
+	private MappedStorageTreeUtil() {
+	}
+
+	/**
+	 * Writes entries of all {@link ArrayBasedStorageLeaf}s in the tree to the leaf output and
+	 * replaces them with the {@link MappedStorageLeaf}s. Note that the given tree is changed, thus
+	 * it should not be used for indexing any more.
+	 *
+	 * @param <E>
+	 *            Type of the elements indexed.
+	 * @param indexingTree
+	 *            Tree to convert.
+	 * @param leafOutput
+	 *            Output for the leaf file.
+	 * @return Tree to be written as the directory of the leaf file.
+	 * @throws IOException
+	 *             If writing to the leaf output fails or the leaf file would be too big to be
+	 *             mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends DefaultData> IStorageTreeComponent<E> toMappedTree(IStorageTreeComponent<E> indexingTree, DataOutputStream leafOutput) throws IOException {
+		if (indexingTree instanceof ArrayBasedStorageLeaf) {
+			return writeLeaf((ArrayBasedStorageLeaf<E>) indexingTree, leafOutput);
+		} else if (indexingTree instanceof StorageBranch) {
+			for (Map.Entry<Object, ITreeComponent<IStorageDescriptor, E>> entry : ((StorageBranch<E>) indexingTree).getComponentMap().entrySet()) {
+				if (entry.getValue() instanceof IStorageTreeComponent) {
+					entry.setValue(toMappedTree((IStorageTreeComponent<E>) entry.getValue(), leafOutput));
+				}
+			}
+		} else if (indexingTree instanceof CombinedStorageBranch) {
+			List<IStorageTreeComponent<E>> branches = ((CombinedStorageBranch<E>) indexingTree).getBranches();
+			for (int i = 0; i < branches.size(); i++) {
+				branches.set(i, toMappedTree(branches.get(i), leafOutput));
+			}
+		}
+		return indexingTree;
+	}
+
+	/**
+	 * Attaches the leaf file content to all {@link MappedStorageLeaf}s in the tree.
+	 *
+	 * @param indexingTree
+	 *            Tree loaded from the directory file.
+	 * @param leafBuffer
+	 *            Content of the leaf file.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static void attachLeafFile(IStorageTreeComponent<?> indexingTree, ByteBuffer leafBuffer) {
+		if (indexingTree instanceof MappedStorageLeaf) {
+			((MappedStorageLeaf<?>) indexingTree).attach(leafBuffer);
+		} else if (indexingTree instanceof StorageBranch) {
+			for (Object component : ((StorageBranch) indexingTree).getComponentMap().values()) {
+				if (component instanceof IStorageTreeComponent) {
+					attachLeafFile((IStorageTreeComponent<?>) component, leafBuffer);
+				}
+			}
+		} else if (indexingTree instanceof CombinedStorageBranch) {
+			for (Object branch : ((CombinedStorageBranch) indexingTree).getBranches()) {
+				attachLeafFile((IStorageTreeComponent<?>) branch, leafBuffer);
+			}
+		}
+	}
+
+	/**
+	 * Writes the entries of the leaf.
+	 *
+	 * @param <E>
+	 *            Type of the elements indexed.
+	 * @param leaf
+	 *            Leaf to write.
+	 * @param leafOutput
+	 *            Output for the leaf file.
+	 * @return {@link MappedStorageLeaf} describing written entries.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	private static <E extends DefaultData> MappedStorageLeaf<E> writeLeaf(ArrayBasedStorageLeaf<E> leaf, DataOutputStream leafOutput) throws IOException {
+		long offset = leafOutput.size();
+		long[] idArray = leaf.getIdArray();
+		SimpleStorageDescriptor[] descriptorArray = leaf.getDescriptorArray();
+		// elements written in the same block have equal descriptors and share one block entry
+		Map<SimpleStorageDescriptor, Integer> blockIndexes = new HashMap<>();
+		List<SimpleStorageDescriptor> blocks = new ArrayList<>();
+		int count = 0;
+		for (int i = 0; i < leaf.getSize(); i++) {
+			SimpleStorageDescriptor descriptor = descriptorArray[i];
+			if ((0 != idArray[i]) && (null != descriptor)) {
+				Integer blockIndex = blockIndexes.get(descriptor);
+				if (null == blockIndex) {
+					blockIndex = Integer.valueOf(blocks.size());
+					blockIndexes.put(descriptor, blockIndex);
+					blocks.add(descriptor);
+				}
+				leafOutput.writeLong(idArray[i]);
+				leafOutput.writeInt(blockIndex.intValue());
+				count++;
+			}
+		}
+		for (SimpleStorageDescriptor block : blocks) {
+			leafOutput.writeLong(block.getPosition());
+			leafOutput.writeInt(block.getSize());
+		}
+		// data output stream counter stops at the max integer
+		if (leafOutput.size() == Integer.MAX_VALUE) {
+			throw new IOException("Leaf file exceeds the maximum mappable size.");
+		}
+		return new MappedStorageLeaf<>(leaf.getId(), offset, count, blocks.size());
+	}
+}
@@ -25,6 +25,13 @@ public class StorageDescriptor extends AbstractStorageDescriptor {
 	 */
 	private SimpleStorageDescriptor simpleStorageDescriptor;
 
+	/**
+	 * Id of the element inside of the compressed block described by the
+	 * {@link #simpleStorageDescriptor}. Zero if the descriptor does not point to a single element
+	 * in a block.
+	 */
+	private long elementId;
+
 	/**
 	 * Default constructor. Instantiates new {@link SimpleStorageDescriptor}.
 	 */
@@ -56,6 +63,23 @@ public class StorageDescriptor extends AbstractStorageDescriptor {
 		this.simpleStorageDescriptor = simpleStorageDescriptor;
 	}
 
+	/**
+	 * Assigns the channel ID, {@link SimpleStorageDescriptor} of the compressed block and the id of
+	 * the element inside of the block.
+	 *
+	 * @param channelId
+	 *            Channel id to hold.
+	 * @param simpleStorageDescriptor
+	 *            {@link SimpleStorageDescriptor} of the block to hold.
+	 * @param elementId
+	 *            Id of the element in the block.
+	 */
+	public StorageDescriptor(int channelId, SimpleStorageDescriptor simpleStorageDescriptor, long elementId) {
+		this.channelId = channelId;
+		this.simpleStorageDescriptor = simpleStorageDescriptor;
+		this.elementId = elementId;
+	}
+
 	/**
 	 * Assigns the channel ID, position in file and size.
 	 *
@@ -165,6 +189,14 @@ public class StorageDescriptor extends AbstractStorageDescriptor {
 		simpleStorageDescriptor.setSize((int) size);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getElementId() {
+		return elementId;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -173,6 +205,7 @@ public class StorageDescriptor extends AbstractStorageDescriptor {
 		final int prime = 31;
 		int result = 1;
 		result = (prime * result) + channelId;
+		result = (prime * result) + (int) (elementId ^ (elementId >>> 32));
 		result = (prime * result) + ((simpleStorageDescriptor == null) ? 0 : simpleStorageDescriptor.hashCode());
 		return result;
 	}
@@ -185,16 +218,16 @@ public class StorageDescriptor extends AbstractStorageDescriptor {
 		if (this == obj) {
 			return true;
 		}
-		if (obj == null) {
-			return false;
-		}
-		if (getClass() != obj.getClass()) {
+		if (!(obj instanceof StorageDescriptor)) {
 			return false;
 		}
 		StorageDescriptor other = (StorageDescriptor) obj;
 		if (channelId != other.channelId) {
 			return false;
 		}
+		if (elementId != other.elementId) {
+			return false;
+		}
 		if (simpleStorageDescriptor == null) {
 			if (other.simpleStorageDescriptor != null) {
 				return false;
@@ -214,6 +247,9 @@ public class StorageDescriptor extends AbstractStorageDescriptor {
 		toStringBuilder.append("channelId", channelId);
 		toStringBuilder.append("position", simpleStorageDescriptor.getPosition());
 		toStringBuilder.append("size", simpleStorageDescriptor.getSize());
+		if (0 != elementId) {
+			toStringBuilder.append("elementId", elementId);
+		}
 		return toStringBuilder.toString();
 	}
 
@@ -40,6 +40,12 @@ public abstract class AbstractStorageData implements IStorageData, Serializable
 	 */
 	private String cmrVersion;
 
+	/**
+	 * Version of the format the data files are written in. Storages that don't define the format
+	 * are written with single objects.
+	 */
+	private int formatVersion = StorageFormatVersion.SINGLE_OBJECTS;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -146,6 +152,26 @@ public abstract class AbstractStorageData implements IStorageData, Serializable
 		this.cmrVersion = cmrVersion;
 	}
 
+	/**
+	 * Gets {@link #formatVersion}.
+	 *
+	 * @return {@link #formatVersion}
+	 */
+	@Override
+	public int getFormatVersion() {
+		return formatVersion;
+	}
+
+	/**
+	 * Sets {@link #formatVersion}.
+	 *
+	 * @param formatVersion
+	 *            New value for {@link #formatVersion}
+	 */
+	public void setFormatVersion(int formatVersion) {
+		this.formatVersion = formatVersion;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -62,4 +62,11 @@ public interface IStorageData {
 	 */
 	String getCmrVersion();
 
+	/**
+	 * Returns version of the format the storage data files are written in.
+	 *
+	 * @return One of the {@link StorageFormatVersion} constants.
+	 */
+	int getFormatVersion();
+
 }
@@ -0,0 +1,201 @@
+package rocks.inspectit.shared.cs.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rocks.inspectit.shared.cs.storage.StorageWriter.WriteTask;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
+
+/**
+ * Block of serialized objects that will be compressed and written together to one data file. The
+ * block keeps the write tasks of the appended objects, so that indexing tree can be updated with
+ * the location of the block when it is written. Ids and offsets of the appended objects are
+ * written as the directory of the block, so that single objects can be found in the block when
+ * reading.
+ * <p>
+ * Appending and closing are synchronized. Once closed, the block does not accept any more objects
+ * and its content does not change any more.
+ *
+ * @author Ivan Senic
+ *
+ */
+class StorageBlock {
+
+	/**
+	 * Initial capacity of the block bytes.
+	 */
+	private static final int INITIAL_CAPACITY = 16384;
+
+	/**
+	 * Channel id this block is written to.
+	 */
+	private final int channelId;
+
+	/**
+	 * Time the block was created.
+	 */
+	private final long creationTime;
+
+	/**
+	 * Serialized objects.
+	 */
+	private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+	/**
+	 * Amount of bytes in the block.
+	 */
+	private int size;
+
+	/**
+	 * Tasks of the appended objects.
+	 */
+	private final List<WriteTask> writeTasks = new ArrayList<>();
+
+	/**
+	 * Ids of the appended objects.
+	 */
+	private long[] elementIds = new long[64];
+
+	/**
+	 * Offsets of the appended objects in the block.
+	 */
+	private int[] offsets = new int[64];
+
+	/**
+	 * If block is closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param channelId
+	 *            Channel id this block is written to.
+	 */
+	StorageBlock(int channelId) {
+		this.channelId = channelId;
+		this.creationTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Appends the serialized object to the block.
+	 *
+	 * @param writeTask
+	 *            Task writing the object.
+	 * @param elementId
+	 *            Id of the object.
+	 * @param data
+	 *            Serialized object.
+	 * @param length
+	 *            Length of the serialized object.
+	 * @return <code>true</code> if object was appended, <code>false</code> if block was already
+	 *         closed.
+	 */
+	synchronized boolean append(WriteTask writeTask, long elementId, byte[] data, int length) {
+		if (closed) {
+			return false;
+		}
+		if ((size + length) > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+		}
+		int index = writeTasks.size();
+		if (index == offsets.length) {
+			elementIds = Arrays.copyOf(elementIds, elementIds.length * 2);
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		System.arraycopy(data, 0, bytes, size, length);
+		elementIds[index] = elementId;
+		offsets[index] = size;
+		writeTasks.add(writeTask);
+		size += length;
+		return true;
+	}
+
+	/**
+	 * Closes the block.
+	 *
+	 * @return <code>true</code> if the block was closed by this call, <code>false</code> if it was
+	 *         already closed before.
+	 */
+	synchronized boolean close() {
+		if (closed) {
+			return false;
+		}
+		closed = true;
+		return true;
+	}
+
+	/**
+	 * Returns if the block reached the {@link StorageBlockUtil#BLOCK_SIZE}.
+	 *
+	 * @return If block is full.
+	 */
+	synchronized boolean isFull() {
+		return size >= StorageBlockUtil.BLOCK_SIZE;
+	}
+
+	/**
+	 * Gets {@link #channelId}.
+	 *
+	 * @return {@link #channelId}
+	 */
+	int getChannelId() {
+		return channelId;
+	}
+
+	/**
+	 * Gets {@link #creationTime}.
+	 *
+	 * @return {@link #creationTime}
+	 */
+	long getCreationTime() {
+		return creationTime;
+	}
+
+	/**
+	 * Gets {@link #bytes}.
+	 *
+	 * @return {@link #bytes}
+	 */
+	byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets {@link #size}.
+	 *
+	 * @return {@link #size}
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets {@link #elementIds}.
+	 *
+	 * @return {@link #elementIds}
+	 */
+	long[] getElementIds() {
+		return elementIds;
+	}
+
+	/**
+	 * Gets {@link #offsets}.
+	 *
+	 * @return {@link #offsets}
+	 */
+	int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * Gets {@link #writeTasks}.
+	 *
+	 * @return {@link #writeTasks}
+	 */
+	List<WriteTask> getWriteTasks() {
+		return writeTasks;
+	}
+
+}
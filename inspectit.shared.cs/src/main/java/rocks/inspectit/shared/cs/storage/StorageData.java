@@ -55,6 +55,7 @@ public class StorageData extends AbstractStorageData {
 		setDescription(storageData.getDescription());
 		setDiskSize(storageData.getDiskSize());
 		setCmrVersion(storageData.getCmrVersion());
+		setFormatVersion(storageData.getFormatVersion());
 		labelList = new ArrayList<>(storageData.getLabelList());
 		if (storageData instanceof StorageData) {
 			state = ((StorageData) storageData).getState(); // NOPMD
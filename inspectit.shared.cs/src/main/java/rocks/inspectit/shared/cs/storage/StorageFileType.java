@@ -17,6 +17,16 @@ public enum StorageFileType {
 	 */
 	INDEX_FILE(".index"),
 
+	/**
+	 * Storage index leaf files, memory-mapped together with the index file.
+	 */
+	INDEX_LEAF_FILE(".leaf"),
+
+	/**
+	 * Storage rollup tier index files, file name starts with the period of the tier.
+	 */
+	ROLLUP_INDEX_FILE(".rollup"),
+
 	/**
 	 * Storage data files.
 	 */
@@ -47,6 +57,11 @@ public enum StorageFileType {
 	 */
 	CACHED_DATA_FILE(".cached"),
 
+	/**
+	 * Columnar export files.
+	 */
+	COLUMNAR_EXPORT_FILE(".itcol"),
+
 	/**
 	 * Business context data file.
 	 */
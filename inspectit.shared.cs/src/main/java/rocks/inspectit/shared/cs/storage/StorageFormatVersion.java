@@ -0,0 +1,62 @@
+package rocks.inspectit.shared.cs.storage;
+
+/**
+ * Versions of the format in which the data and index files of a storage are written.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class StorageFormatVersion {
+
+	/**
+	 * Every object is serialized and written on its own. Storages created before the format
+	 * version was introduced are always in this format.
+	 */
+	public static final int SINGLE_OBJECTS = 0;
+
+	/**
+	 * Objects are serialized in blocks that are compressed before writing. Descriptors point to
+	 * the block and carry the id of the object, which is located with the directory of the block.
+	 */
+	public static final int COMPRESSED_BLOCKS = 1;
+
+	/**
+	 * Data is written as in {@link #COMPRESSED_BLOCKS}. Leaves of the indexing trees are written to
+	 * the separate leaf files that are memory-mapped when the storage is opened.
+	 */
+	public static final int MAPPED_INDEX = 2;
+
+	/**
+	 * Format used for newly created storages.
+	 */
+	public static final int CURRENT = MAPPED_INDEX;
+
+	/**
+	 * Private constructor.
+	 */
+	private StorageFormatVersion() {
+	}
+
+	/**
+	 * Returns if the data of the given storage is written in compressed blocks.
+	 *
+	 * @param storageData
+	 *            Storage, can be <code>null</code>.
+	 * @return <code>true</code> if the data is written in compressed blocks.
+	 */
+	public static boolean isCompressedBlocks(IStorageData storageData) {
+		return (null != storageData) && (storageData.getFormatVersion() >= COMPRESSED_BLOCKS);
+	}
+
+	/**
+	 * Returns if the leaves of the indexing trees of the given storage are written to the leaf
+	 * files.
+	 *
+	 * @param storageData
+	 *            Storage, can be <code>null</code>.
+	 * @return <code>true</code> if the indexing trees are in the mapped layout.
+	 */
+	public static boolean isMappedIndex(IStorageData storageData) {
+		return (null != storageData) && (storageData.getFormatVersion() >= MAPPED_INDEX);
+	}
+}
@@ -31,6 +31,7 @@ import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
 import rocks.inspectit.shared.cs.storage.StorageWriter.WriteTask;
 import rocks.inspectit.shared.cs.storage.util.StorageIndexTreeProvider;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
 
 /**
  * This class provides a layer of abstraction between {@link StorageWriter} and
@@ -107,6 +108,17 @@ public class StorageIndexingTreeHandler {
 	 */
 	private AtomicReference<IStorageTreeComponent<DefaultData>> storageIndexingTreeReference;
 
+	/**
+	 * Indexing trees of the rollup tiers, mapped by the rollup period. Trees are created when the
+	 * first data is written to the tier.
+	 */
+	private ConcurrentHashMap<Long, AtomicReference<IStorageTreeComponent<DefaultData>>> rollupIndexingTreeReferences = new ConcurrentHashMap<>(4, 0.75f, 2);
+
+	/**
+	 * If the handler is finished, thus no new indexing trees can be created.
+	 */
+	private volatile boolean finished;
+
 	/**
 	 * Write tasks currently in process.
 	 */
@@ -161,7 +173,10 @@ public class StorageIndexingTreeHandler {
 		writeTasksInProcess.put(writeTask, treeDescriptorPair);
 
 		// get the descriptor from tree
-		IStorageTreeComponent<DefaultData> indexingTree = storageIndexingTreeReference.get();
+		IStorageTreeComponent<DefaultData> indexingTree = getIndexingTreeReference(writeTask.getRollupPeriod()).get();
+		if (null == indexingTree) {
+			throw new IndexingException("Indexing failed. Indexing tree handler is already finished.");
+		}
 		IStorageDescriptor storageDescriptor = indexingTree.put(data);
 		if (null == storageDescriptor) {
 			throw new IndexingException("Indexing failed. Storage descriptor was null.");
@@ -242,17 +257,18 @@ public class StorageIndexingTreeHandler {
 	 */
 	public void finish() {
 		cancelIndexingTreeSavingFuture();
-
-		IStorageTreeComponent<DefaultData> currentIndexingTree = null;
-		while (true) {
-			// try to set the indexing tree to null
-			currentIndexingTree = storageIndexingTreeReference.get();
-			if (storageIndexingTreeReference.compareAndSet(currentIndexingTree, null)) {
-				break;
+		finished = true;
+
+		IStorageTreeComponent<DefaultData> currentIndexingTree = storageIndexingTreeReference.getAndSet(null);
+		Map<Long, IStorageTreeComponent<DefaultData>> rollupIndexingTrees = new HashMap<>();
+		for (Map.Entry<Long, AtomicReference<IStorageTreeComponent<DefaultData>>> entry : rollupIndexingTreeReferences.entrySet()) {
+			IStorageTreeComponent<DefaultData> rollupIndexingTree = entry.getValue().getAndSet(null);
+			if (null != rollupIndexingTree) {
+				rollupIndexingTrees.put(entry.getKey(), rollupIndexingTree);
 			}
 		}
 
-		if (null != currentIndexingTree) {
+		if ((null != currentIndexingTree) || !rollupIndexingTrees.isEmpty()) {
 			// wait until no more data is there
 			int sleepCount = 0;
 			while (!writeTasksInProcess.isEmpty()) {
@@ -270,12 +286,63 @@ public class StorageIndexingTreeHandler {
 					Thread.interrupted();
 				}
 			}
-			currentIndexingTree.preWriteFinalization();
-			boolean written = storageWriter.writeNonDefaultDataObject(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
-			if (!written) {
-				log.error("Indexing tree saving failed. Indexing tree might be lost.");
+			if (null != currentIndexingTree) {
+				saveIndexingTree(currentIndexingTree, StorageRollupUtil.NO_ROLLUP);
+			}
+			for (Map.Entry<Long, IStorageTreeComponent<DefaultData>> entry : rollupIndexingTrees.entrySet()) {
+				saveIndexingTree(entry.getValue(), entry.getKey().longValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns the reference to the indexing tree for the given rollup period. The rollup tier
+	 * indexing tree is created if it does not exist.
+	 *
+	 * @param rollupPeriod
+	 *            Rollup period or {@link StorageRollupUtil#NO_ROLLUP} for raw data.
+	 * @return Reference to the indexing tree, holding <code>null</code> if handler is finished.
+	 */
+	private AtomicReference<IStorageTreeComponent<DefaultData>> getIndexingTreeReference(long rollupPeriod) {
+		if (StorageRollupUtil.NO_ROLLUP == rollupPeriod) {
+			return storageIndexingTreeReference;
+		}
+
+		Long key = Long.valueOf(rollupPeriod);
+		AtomicReference<IStorageTreeComponent<DefaultData>> reference = rollupIndexingTreeReferences.get(key);
+		if (null == reference) {
+			if (finished) {
+				return new AtomicReference<>();
+			}
+			reference = new AtomicReference<>(getNewStorageIndexingTree());
+			AtomicReference<IStorageTreeComponent<DefaultData>> existing = rollupIndexingTreeReferences.putIfAbsent(key, reference);
+			if (null != existing) {
+				reference = existing;
 			}
 		}
+		return reference;
+	}
+
+	/**
+	 * Saves the indexing tree with the random file name. Trees of the rollup tiers are saved to
+	 * the {@link StorageFileType#ROLLUP_INDEX_FILE} which name starts with the rollup period.
+	 *
+	 * @param indexingTree
+	 *            Indexing tree to save.
+	 * @param rollupPeriod
+	 *            Rollup period or {@link StorageRollupUtil#NO_ROLLUP} for raw data.
+	 */
+	private void saveIndexingTree(IStorageTreeComponent<DefaultData> indexingTree, long rollupPeriod) {
+		indexingTree.preWriteFinalization();
+		boolean written;
+		if (StorageRollupUtil.NO_ROLLUP == rollupPeriod) {
+			written = storageWriter.writeIndexingTree(indexingTree, getRandomFileName());
+		} else {
+			written = storageWriter.writeIndexingTree(indexingTree, StorageRollupUtil.getIndexFileName(rollupPeriod, getRandomFileName()), StorageFileType.ROLLUP_INDEX_FILE);
+		}
+		if (!written) {
+			log.error("Indexing tree saving failed. Indexing tree might be lost.");
+		}
 	}
 
 	/**
@@ -315,47 +382,58 @@ public class StorageIndexingTreeHandler {
 			// the complete run block has to be guarded against exceptions, because the executor
 			// service will throw away any rescheduling of the task if exception is thrown
 			try {
-				while (true) {
-					final IStorageTreeComponent<DefaultData> currentIndexingTree = storageIndexingTreeReference.get();
-					if (null != currentIndexingTree) {
-						long treeSize = currentIndexingTree.getComponentSize(objectSizes);
-						// check if the tree has grown enough for saving
-						if (treeSize > maximumIndexingTreeSize) {
-							IStorageTreeComponent<DefaultData> newIndexingTree = getNewStorageIndexingTree();
-							// put new fresh tree to the Atomic reference
-							if (storageIndexingTreeReference.compareAndSet(currentIndexingTree, newIndexingTree)) {
-								// collect the information about tasks currently in write
-								final Collection<WriteTask> writeTasksToWait = new HashSet<>(writeTasksInProcess.keySet());
-								// here we are safe to know that when all of the tasks in the
-								// collection is gone from the tasks in process map, we can save the
-								// tree
-								Runnable writeOldIndexingTree = new Runnable() {
-									@Override
-									public void run() {
-										boolean safeToSave = Collections.disjoint(writeTasksToWait, writeTasksInProcess.keySet());
-										if (safeToSave) {
-											currentIndexingTree.preWriteFinalization();
-											boolean written = storageWriter.writeNonDefaultDataObject(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
-											if (!written) {
-												log.error("Indexing tree saving failed. Indexing tree might be lost.");
-											}
-										} else {
-											executorService.schedule(this, WAITING_FOR_TREE_TO_BE_READY, TimeUnit.MILLISECONDS);
-										}
+				checkIndexingTree(storageIndexingTreeReference, StorageRollupUtil.NO_ROLLUP);
+				for (Map.Entry<Long, AtomicReference<IStorageTreeComponent<DefaultData>>> entry : rollupIndexingTreeReferences.entrySet()) {
+					checkIndexingTree(entry.getValue(), entry.getKey().longValue());
+				}
+			} catch (Exception e) {
+				log.error("Indexing tree saving task encountered an error.", e);
+			}
+		}
+
+		/**
+		 * Checks the size of the indexing tree in the given reference and saves it if it's too big.
+		 *
+		 * @param indexingTreeReference
+		 *            Reference holding the indexing tree.
+		 * @param rollupPeriod
+		 *            Rollup period or {@link StorageRollupUtil#NO_ROLLUP} for raw data.
+		 */
+		private void checkIndexingTree(AtomicReference<IStorageTreeComponent<DefaultData>> indexingTreeReference, final long rollupPeriod) {
+			while (true) {
+				final IStorageTreeComponent<DefaultData> currentIndexingTree = indexingTreeReference.get();
+				if (null != currentIndexingTree) {
+					long treeSize = currentIndexingTree.getComponentSize(objectSizes);
+					// check if the tree has grown enough for saving
+					if (treeSize > maximumIndexingTreeSize) {
+						IStorageTreeComponent<DefaultData> newIndexingTree = getNewStorageIndexingTree();
+						// put new fresh tree to the Atomic reference
+						if (indexingTreeReference.compareAndSet(currentIndexingTree, newIndexingTree)) {
+							// collect the information about tasks currently in write
+							final Collection<WriteTask> writeTasksToWait = new HashSet<>(writeTasksInProcess.keySet());
+							// here we are safe to know that when all of the tasks in the
+							// collection is gone from the tasks in process map, we can save the
+							// tree
+							Runnable writeOldIndexingTree = new Runnable() {
+								@Override
+								public void run() {
+									boolean safeToSave = Collections.disjoint(writeTasksToWait, writeTasksInProcess.keySet());
+									if (safeToSave) {
+										saveIndexingTree(currentIndexingTree, rollupPeriod);
+									} else {
+										executorService.schedule(this, WAITING_FOR_TREE_TO_BE_READY, TimeUnit.MILLISECONDS);
 									}
-								};
-								executorService.submit(writeOldIndexingTree);
-								break;
-							}
-						} else {
+								}
+							};
+							executorService.submit(writeOldIndexingTree);
 							break;
 						}
 					} else {
 						break;
 					}
+				} else {
+					break;
 				}
-			} catch (Exception e) {
-				log.error("Indexing tree saving task encountered an error.", e);
 			}
 		}
 	}
@@ -3,6 +3,8 @@ package rocks.inspectit.shared.cs.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.FileStore;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -12,8 +14,12 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -39,9 +45,13 @@ import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvid
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.CombinedStorageBranch;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageTreeUtil;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
 import rocks.inspectit.shared.cs.storage.util.DeleteFileVisitor;
 import rocks.inspectit.shared.cs.storage.util.StorageDeleteFileVisitor;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
 
 /**
  * Abstract class that defines basic storage functionality and properties.
@@ -484,6 +494,137 @@ public abstract class StorageManager {
 		}
 	}
 
+	/**
+	 * Loads the indexing tree of the storage from the index files. If the index file has the leaf
+	 * file with the same name, the leaf file is memory-mapped and attached to the loaded tree, so
+	 * only the small directory part of the tree is de-serialized. When there is more than one
+	 * index file, the trees are combined with the {@link CombinedStorageBranch}.
+	 *
+	 * @param storageData
+	 *            Storage to load the indexing tree for.
+	 * @return Indexing tree or <code>null</code> if the storage has no index files.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If index files can not be de-serialized.
+	 */
+	public IStorageTreeComponent<DefaultData> loadIndexingTree(IStorageData storageData) throws IOException, SerializationException {
+		List<Path> indexFiles = getIndexFiles(storageData, StorageFileType.INDEX_FILE);
+		if (indexFiles.isEmpty()) {
+			return null;
+		}
+		return loadIndexingTree(indexFiles, getSerializationManagerProvider().createSerializer());
+	}
+
+	/**
+	 * Loads the indexing trees of the rollup tiers of the storage. Trees are loaded in the same way
+	 * as in {@link #loadIndexingTree(IStorageData)}, but from the
+	 * {@link StorageFileType#ROLLUP_INDEX_FILE}s, separately for every rollup period.
+	 *
+	 * @param storageData
+	 *            Storage to load the rollup indexing trees for.
+	 * @return Map of indexing trees by the rollup period. Empty map if storage has no rollup tiers.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If index files can not be de-serialized.
+	 */
+	public Map<Long, IStorageTreeComponent<DefaultData>> loadRollupIndexingTrees(IStorageData storageData) throws IOException, SerializationException {
+		Map<Long, List<Path>> indexFilesPerPeriod = new HashMap<>();
+		for (Path indexFile : getIndexFiles(storageData, StorageFileType.ROLLUP_INDEX_FILE)) {
+			long period = StorageRollupUtil.getRollupPeriod(indexFile.getFileName().toString());
+			if (StorageRollupUtil.NO_ROLLUP == period) {
+				continue;
+			}
+			List<Path> indexFiles = indexFilesPerPeriod.get(period);
+			if (null == indexFiles) {
+				indexFiles = new ArrayList<>();
+				indexFilesPerPeriod.put(period, indexFiles);
+			}
+			indexFiles.add(indexFile);
+		}
+
+		Map<Long, IStorageTreeComponent<DefaultData>> result = new HashMap<>();
+		if (!indexFilesPerPeriod.isEmpty()) {
+			ISerializer serializer = getSerializationManagerProvider().createSerializer();
+			for (Map.Entry<Long, List<Path>> entry : indexFilesPerPeriod.entrySet()) {
+				result.put(entry.getKey(), loadIndexingTree(entry.getValue(), serializer));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all index files of the given type in the storage folder.
+	 *
+	 * @param storageData
+	 *            Storage.
+	 * @param indexFileType
+	 *            Type of the index files.
+	 * @return Index files, empty list if the storage folder does not exist.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private List<Path> getIndexFiles(IStorageData storageData, final StorageFileType indexFileType) throws IOException {
+		final List<Path> indexFiles = new ArrayList<>();
+		Path storagePath = getStoragePath(storageData);
+		if (!Files.isDirectory(storagePath)) {
+			return indexFiles;
+		}
+
+		Files.walkFileTree(storagePath, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (file.toString().endsWith(indexFileType.getExtension())) {
+					indexFiles.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return indexFiles;
+	}
+
+	/**
+	 * Loads the indexing tree from the given index files, attaching the leaf files if they exist.
+	 * When there is more than one index file, the trees are combined with the
+	 * {@link CombinedStorageBranch}.
+	 *
+	 * @param indexFiles
+	 *            Index files, must not be empty.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return Indexing tree.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If index files can not be de-serialized.
+	 */
+	@SuppressWarnings("unchecked")
+	private IStorageTreeComponent<DefaultData> loadIndexingTree(List<Path> indexFiles, ISerializer serializer) throws IOException, SerializationException {
+		List<IStorageTreeComponent<DefaultData>> indexingTrees = new ArrayList<>(indexFiles.size());
+		for (Path indexFile : indexFiles) {
+			IStorageTreeComponent<DefaultData> indexingTree;
+			try (Input input = new Input(Files.newInputStream(indexFile, StandardOpenOption.READ))) {
+				indexingTree = (IStorageTreeComponent<DefaultData>) serializer.deserialize(input);
+			}
+
+			String indexFileName = indexFile.getFileName().toString();
+			Path leafFile = indexFile.resolveSibling(indexFileName.substring(0, indexFileName.lastIndexOf('.')) + StorageFileType.INDEX_LEAF_FILE.getExtension());
+			if (Files.exists(leafFile)) {
+				try (FileChannel fileChannel = FileChannel.open(leafFile, StandardOpenOption.READ)) {
+					MappedStorageTreeUtil.attachLeafFile(indexingTree, fileChannel.map(MapMode.READ_ONLY, 0, fileChannel.size()));
+				}
+			}
+			indexingTrees.add(indexingTree);
+		}
+
+		if (indexingTrees.size() == 1) {
+			return indexingTrees.get(0);
+		} else {
+			return new CombinedStorageBranch<>(indexingTrees);
+		}
+	}
+
 	/**
 	 * Returns the {@link StorageData} object that exists in the compressed storage file.
 	 *
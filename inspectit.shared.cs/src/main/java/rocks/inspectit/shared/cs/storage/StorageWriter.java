@@ -1,8 +1,11 @@
 package rocks.inspectit.shared.cs.storage;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,6 +13,7 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +28,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
@@ -38,15 +44,20 @@ import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.serializer.ISerializer;
 import rocks.inspectit.shared.all.serializer.SerializationException;
 import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.serializer.util.KryoSerializationPreferences;
 import rocks.inspectit.shared.all.spring.logger.Log;
 import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
 import rocks.inspectit.shared.all.storage.nio.stream.StreamProvider;
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
 import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageTreeUtil;
 import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
 import rocks.inspectit.shared.cs.storage.nio.write.WritingChannelManager;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.write.AbstractWriteDataProcessor;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
 
 /**
  * {@link StorageWriter} is class that contains shared functionality for writing data on one
@@ -69,6 +80,22 @@ public class StorageWriter implements IWriter {
 	 */
 	private static final int FINALIZATION_TASKS_SLEEP_TIME = 500;
 
+	/**
+	 * Time in milliseconds after which a not full block is written anyway.
+	 */
+	private static final long BLOCK_MAX_AGE = 5000;
+
+	/**
+	 * Initial size of the output used for serializing single objects into the blocks.
+	 */
+	private static final int BLOCK_OUTPUT_SIZE = 4096;
+
+	/**
+	 * Max factor the amount of writing threads can be increased by when the writing can not keep
+	 * up.
+	 */
+	private static final int MAX_WRITING_THREADS_FACTOR = 2;
+
 	/**
 	 * Total amount of tasks submitted to {@link #writingExecutorService}.
 	 */
@@ -111,7 +138,7 @@ public class StorageWriter implements IWriter {
 	 * {@link SerializationManagerProvider}.
 	 */
 	@Autowired
-	private SerializationManagerProvider serializationManagerProvider;
+	SerializationManagerProvider serializationManagerProvider;
 
 	/**
 	 * Queue for {@link ISerializer} that are available.
@@ -119,11 +146,22 @@ public class StorageWriter implements IWriter {
 	BlockingQueue<ISerializer> serializerQueue = new LinkedBlockingQueue<>();
 
 	/**
-	 * {@link ExecutorService} for writing tasks.
+	 * Output per writing thread that is reused for serializing the objects into the blocks.
+	 */
+	private final ThreadLocal<Output> blockOutput = new ThreadLocal<Output>() {
+		@Override
+		protected Output initialValue() {
+			return new Output(BLOCK_OUTPUT_SIZE, -1);
+		}
+	};
+
+	/**
+	 * {@link ExecutorService} for writing tasks. The executor is a prototype bean owned by this
+	 * writer only, thus the writer can resize it and shuts it down when the writing is finalized.
 	 */
 	@Autowired
 	@Resource(name = "storageExecutorService")
-	private ScheduledThreadPoolExecutor writingExecutorService;
+	ScheduledThreadPoolExecutor writingExecutorService;
 
 	/**
 	 * {@link ExecutorService} for not-writing tasks.
@@ -175,6 +213,38 @@ public class StorageWriter implements IWriter {
 	 */
 	private Set<FutureTask<?>> activeWritingTasks = Collections.newSetFromMap(new ConcurrentHashMap<FutureTask<?>, Boolean>(256, 0.75f, 4));
 
+	/**
+	 * Currently open blocks per channel id. Only used when storage is written in the
+	 * {@link StorageFormatVersion#COMPRESSED_BLOCKS} format.
+	 */
+	private ConcurrentHashMap<Integer, StorageBlock> openBlocks = new ConcurrentHashMap<>(16, 0.75f, 4);
+
+	/**
+	 * Amount of blocks submitted for writing and not yet written.
+	 */
+	private AtomicInteger pendingBlockWrites = new AtomicInteger();
+
+	/**
+	 * Future for the task of writing the blocks that did not get full in time.
+	 */
+	private ScheduledFuture<?> flushBlocksFuture;
+
+	/**
+	 * Amount of objects that could not be written.
+	 */
+	private AtomicLong failedWrites = new AtomicLong();
+
+	/**
+	 * Amount of writing threads the executor was created with. Amount of threads is never
+	 * decreased below this value.
+	 */
+	private int minWritingThreads;
+
+	/**
+	 * Max amount of writing threads.
+	 */
+	int maxWritingThreads;
+
 	/**
 	 * Process the list of objects against the all the {@link AbstractDataProcessor}s that are
 	 * provided. Processor define which data will be stored, when and in which format.
@@ -290,6 +360,37 @@ public class StorageWriter implements IWriter {
 		}
 	}
 
+	/**
+	 * Writes the aggregated data to the rollup tier with the given period. The data is indexed in
+	 * the separate indexing trees of the tier and is not passed to the write data processors.
+	 * Invocation affiliation is never written for the rollup data.
+	 * <p>
+	 * This method is only submitting a new writing task, thus it is thread safe and very fast.
+	 *
+	 * @param defaultData
+	 *            Aggregated data to write.
+	 * @param rollupPeriod
+	 *            Period of the rollup tier in milliseconds.
+	 * @return {@link Future} of the writing task or <code>null</code> if writer is not accepting
+	 *         writes.
+	 */
+	public Future<Void> writeRollup(DefaultData defaultData, long rollupPeriod) {
+		if (rollupPeriod <= StorageRollupUtil.NO_ROLLUP) {
+			throw new IllegalArgumentException("Rollup period must be a positive number greater than zero.");
+		}
+		if (writingOn && storageManager.canWriteMore()) {
+			Map<String, Boolean> kryoPreferences = new HashMap<>(1);
+			kryoPreferences.put(KryoSerializationPreferences.WRITE_INVOCATION_AFFILIATION_DATA, Boolean.FALSE);
+			WriteTask writeTask = new WriteTask(defaultData, kryoPreferences, rollupPeriod);
+			WriteFutureTask writeFutureTask = new WriteFutureTask(writeTask);
+			activeWritingTasks.add(writeFutureTask);
+			writingExecutorService.submit(writeFutureTask);
+			return writeFutureTask;
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * Informs the {@link StorageWriter} to prepare for writing. The writer will perform all
 	 * necessary operations so that calls to {@link #write(DefaultData)} can be executed. The
@@ -324,6 +425,15 @@ public class StorageWriter implements IWriter {
 				}
 			}, 30, 30, TimeUnit.SECONDS);
 
+			if (StorageFormatVersion.isCompressedBlocks(storageData)) {
+				flushBlocksFuture = scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+					@Override
+					public void run() {
+						flushBlocks(false);
+					}
+				}, BLOCK_MAX_AGE, BLOCK_MAX_AGE, TimeUnit.MILLISECONDS);
+			}
+
 			for (AbstractWriteDataProcessor processor : writeDataProcessors) {
 				try {
 					processor.onPrepare(storageManager, this, storageData);
@@ -397,6 +507,17 @@ public class StorageWriter implements IWriter {
 	 */
 	private synchronized void shutdown(boolean doFinalize) {
 		if (writingOn) {
+			if (doFinalize) {
+				// processors can still write the data they hold
+				for (AbstractWriteDataProcessor processor : writeDataProcessors) {
+					try {
+						processor.beforeFinalization(storageManager, this, storageData);
+					} catch (Exception e) {
+						log.error("Exception occurred trying to process beforeFinalization of the finalization data processor " + processor.getClass().getName(), e);
+					}
+				}
+			}
+
 			// mark writing false so that no more task are created
 			writingOn = false;
 
@@ -406,6 +527,13 @@ public class StorageWriter implements IWriter {
 			// wait for pending tasks
 			waitForPendingWritingTasks();
 
+			// write all blocks that are still open
+			if (null != flushBlocksFuture) {
+				flushBlocksFuture.cancel(false);
+			}
+			flushBlocks(true);
+			waitForPendingBlockWrites();
+
 			// shut the executor
 			shutdownWritingExecutorService();
 
@@ -478,6 +606,125 @@ public class StorageWriter implements IWriter {
 		}
 	}
 
+	/**
+	 * Blocks until all blocks submitted for writing are written.
+	 */
+	private void waitForPendingBlockWrites() {
+		while (pendingBlockWrites.get() > 0) {
+			try {
+				Thread.sleep(FINALIZATION_TASKS_SLEEP_TIME);
+			} catch (InterruptedException e) {
+				Thread.interrupted();
+			}
+		}
+	}
+
+	/**
+	 * Writes the open blocks.
+	 *
+	 * @param all
+	 *            If <code>true</code> all open blocks are written, otherwise only blocks older than
+	 *            {@link #BLOCK_MAX_AGE}.
+	 */
+	void flushBlocks(boolean all) {
+		long now = System.currentTimeMillis();
+		for (StorageBlock block : openBlocks.values()) {
+			if ((all || ((now - block.getCreationTime()) > BLOCK_MAX_AGE)) && block.close()) {
+				openBlocks.remove(Integer.valueOf(block.getChannelId()), block);
+				writeBlock(block);
+			}
+		}
+	}
+
+	/**
+	 * Appends the serialized object of the write task to the open block of the channel. If the
+	 * block gets full with this object it is written.
+	 *
+	 * @param writeTask
+	 *            Task writing the object.
+	 * @param channelId
+	 *            Channel to write to.
+	 * @param elementId
+	 *            Id of the written object.
+	 * @param data
+	 *            Serialized object.
+	 * @param length
+	 *            Length of the serialized object.
+	 */
+	private void appendToBlock(WriteTask writeTask, int channelId, long elementId, byte[] data, int length) {
+		Integer key = Integer.valueOf(channelId);
+		while (true) {
+			StorageBlock block = openBlocks.get(key);
+			if (null == block) {
+				block = new StorageBlock(channelId);
+				StorageBlock existing = openBlocks.putIfAbsent(key, block);
+				if (null != existing) {
+					block = existing;
+				}
+			}
+
+			if (block.append(writeTask, elementId, data, length)) {
+				if (block.isFull() && block.close()) {
+					openBlocks.remove(key, block);
+					writeBlock(block);
+				}
+				return;
+			}
+
+			// block was closed in meantime, make sure it's not in the map any more
+			openBlocks.remove(key, block);
+		}
+	}
+
+	/**
+	 * Compresses and writes the closed block. When write is done the indexing tree is updated for
+	 * all objects in the block.
+	 *
+	 * @param block
+	 *            Closed block.
+	 */
+	private void writeBlock(final StorageBlock block) {
+		final List<WriteTask> writeTasks = block.getWriteTasks();
+		if (writeTasks.isEmpty()) {
+			return;
+		}
+
+		pendingBlockWrites.incrementAndGet();
+		try {
+			ByteBuffer frame = StorageBlockUtil.compress(block.getElementIds(), block.getOffsets(), writeTasks.size(), block.getBytes(), block.getSize());
+			WriteReadCompletionRunnable completionRunnable = new WriteReadCompletionRunnable() {
+				@Override
+				public void run() {
+					try {
+						if (isCompleted()) {
+							long position = getAttemptedWriteReadPosition();
+							long size = getAttemptedWriteReadSize();
+							for (WriteTask writeTask : writeTasks) {
+								indexingTreeHandler.writeSuccessful(writeTask, position, size);
+							}
+						} else {
+							for (WriteTask writeTask : writeTasks) {
+								writeFailed(writeTask);
+							}
+						}
+					} finally {
+						pendingBlockWrites.decrementAndGet();
+					}
+				}
+			};
+
+			Path channelPath = storageManager.getChannelPath(storageData, block.getChannelId());
+			openedChannelPaths.add(channelPath);
+			writingChannelManager.write(frame, channelPath, completionRunnable);
+		} catch (Throwable t) { // NOPMD
+			for (WriteTask writeTask : writeTasks) {
+				writeFailed(writeTask);
+			}
+			pendingBlockWrites.decrementAndGet();
+			log.error("Exception occurred while attempting to write block to disk", t);
+		}
+	}
+
 	/**
 	 * Number of queued tasks in the executor service.
 	 *
@@ -487,6 +734,49 @@ public class StorageWriter implements IWriter {
 		return activeWritingTasks.size();
 	}
 
+	/**
+	 * Writes the indexing tree to the index file with the given file name (without extension).
+	 * If the storage is in the {@link StorageFormatVersion#MAPPED_INDEX} format, leaves of the
+	 * tree are first written to the leaf file with the same name, so that they can be
+	 * memory-mapped when the storage is opened. Note that this will be a synchronus write.
+	 *
+	 * @param indexingTree
+	 *            Indexing tree to write. Tree should not be used for indexing any more.
+	 * @param fileName
+	 *            Name of the index file without extension.
+	 * @return True if the indexing tree was written successfully, otherwise false.
+	 */
+	public boolean writeIndexingTree(IStorageTreeComponent<DefaultData> indexingTree, String fileName) {
+		return writeIndexingTree(indexingTree, fileName, StorageFileType.INDEX_FILE);
+	}
+
+	/**
+	 * Writes the indexing tree to the index file of the given type. Leaves are handled in the
+	 * same way as in {@link #writeIndexingTree(IStorageTreeComponent, String)}.
+	 *
+	 * @param indexingTree
+	 *            Indexing tree to write. Tree should not be used for indexing any more.
+	 * @param fileName
+	 *            Name of the index file without extension.
+	 * @param indexFileType
+	 *            Type of the index file, either {@link StorageFileType#INDEX_FILE} or
+	 *            {@link StorageFileType#ROLLUP_INDEX_FILE}.
+	 * @return True if the indexing tree was written successfully, otherwise false.
+	 */
+	public boolean writeIndexingTree(IStorageTreeComponent<DefaultData> indexingTree, String fileName, StorageFileType indexFileType) {
+		IStorageTreeComponent<DefaultData> directory = indexingTree;
+		if (StorageFormatVersion.isMappedIndex(storageData)) {
+			Path leafPath = writingFolderPath.resolve(fileName + StorageFileType.INDEX_LEAF_FILE.getExtension());
+			try (DataOutputStream leafOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(leafPath, StandardOpenOption.CREATE_NEW)))) {
+				directory = MappedStorageTreeUtil.toMappedTree(indexingTree, leafOutput);
+			} catch (IOException e) {
+				log.error("Exception occurred while attempting to write the index leaf file " + leafPath + ".", e);
+				return false;
+			}
+		}
+		return writeNonDefaultDataObject(directory, fileName + indexFileType.getExtension());
+	}
+
 	/**
 	 * Writes any object to the file with given file name. Note that this will be a synchronus
 	 * write.
@@ -555,13 +845,83 @@ public class StorageWriter implements IWriter {
 
 			finishedTasks = completedTasks;
 			totalTasks = completedTasks + queuedTasks;
+
+			adaptWritingThreads();
 		} else {
 			writingStatus = WritingStatus.GOOD;
 		}
 	}
 
 	/**
-	 * Task for writing one {@link DefaultData} object to the disk.
+	 * Adapts the amount of threads serializing the data to the current writing speed. When the
+	 * writing can not keep up and the disk is not the bottleneck (the written blocks are not
+	 * queued up), one thread is added. When writing keeps up, one added thread is removed.
+	 */
+	private void adaptWritingThreads() {
+		int threads = writingExecutorService.getCorePoolSize();
+		if ((WritingStatus.GOOD != writingStatus) && (pendingBlockWrites.get() <= threads)) {
+			increaseWritingThreads();
+		} else if ((WritingStatus.GOOD == writingStatus) && (getQueuedTaskCount() <= threads)) {
+			decreaseWritingThreads();
+		}
+	}
+
+	/**
+	 * Adds one writing thread together with one serializer, so that the added thread does not
+	 * wait for a serializer to become available.
+	 *
+	 * @return <code>true</code> if thread was added, <code>false</code> if the max amount of
+	 *         writing threads is already reached.
+	 */
+	synchronized boolean increaseWritingThreads() {
+		int threads = writingExecutorService.getCorePoolSize();
+		if (threads >= maxWritingThreads) {
+			return false;
+		}
+
+		serializerQueue.add(serializationManagerProvider.createSerializer());
+		writingExecutorService.setCorePoolSize(threads + 1);
+		if (log.isDebugEnabled()) {
+			log.debug("Writing threads for the storage " + storageData + " increased to " + (threads + 1) + ".");
+		}
+		return true;
+	}
+
+	/**
+	 * Removes one added writing thread together with one serializer. Nothing is removed if all
+	 * serializers are currently in use.
+	 *
+	 * @return <code>true</code> if thread was removed, <code>false</code> if the amount of writing
+	 *         threads is already at the minimum or no serializer is free.
+	 */
+	synchronized boolean decreaseWritingThreads() {
+		int threads = writingExecutorService.getCorePoolSize();
+		if ((threads <= minWritingThreads) || (null == serializerQueue.poll())) {
+			return false;
+		}
+
+		writingExecutorService.setCorePoolSize(threads - 1);
+		if (log.isDebugEnabled()) {
+			log.debug("Writing threads for the storage " + storageData + " decreased to " + (threads - 1) + ".");
+		}
+		return true;
+	}
+
+	/**
+	 * Informs the indexing tree handler that the write failed and counts the failed write.
+	 *
+	 * @param writeTask
+	 *            Task that failed.
+	 */
+	private void writeFailed(WriteTask writeTask) {
+		failedWrites.incrementAndGet();
+		indexingTreeHandler.writeFailed(writeTask);
+	}
+
+	/**
+	 * Task for writing one {@link DefaultData} object to the disk. If the storage is written in
+	 * the {@link StorageFormatVersion#COMPRESSED_BLOCKS} format the task only serializes the object
+	 * to the open block of the channel, while disk writes are done per block.
 	 *
 	 * @author Ivan Senic
 	 *
@@ -578,6 +938,12 @@ public class StorageWriter implements IWriter {
 		 */
 		private Map<?, ?> kryoPreferences;
 
+		/**
+		 * Period of the rollup tier data is written to or {@link StorageRollupUtil#NO_ROLLUP} for
+		 * raw data.
+		 */
+		private long rollupPeriod;
+
 		/**
 		 * Default constructor. Object to be written.
 		 *
@@ -587,8 +953,23 @@ public class StorageWriter implements IWriter {
 		 *            Map of preferences to be passed to the serializer.
 		 */
 		public WriteTask(DefaultData data, Map<?, ?> kryoPreferences) {
+			this(data, kryoPreferences, StorageRollupUtil.NO_ROLLUP);
+		}
+
+		/**
+		 * Constructor for writing to the rollup tier.
+		 *
+		 * @param data
+		 *            Data to be written.
+		 * @param kryoPreferences
+		 *            Map of preferences to be passed to the serializer.
+		 * @param rollupPeriod
+		 *            Period of the rollup tier or {@link StorageRollupUtil#NO_ROLLUP} for raw data.
+		 */
+		public WriteTask(DefaultData data, Map<?, ?> kryoPreferences, long rollupPeriod) {
 			referenceToWriteData = new SoftReference<>(data);
 			this.kryoPreferences = kryoPreferences;
+			this.rollupPeriod = rollupPeriod;
 		}
 
 		/**
@@ -599,6 +980,7 @@ public class StorageWriter implements IWriter {
 			ExtendedByteBufferOutputStream extendedByteBufferOutputStream = null;
 			try {
 				if (!storageManager.canWriteMore()) {
+					failedWrites.incrementAndGet();
 					if (log.isWarnEnabled()) {
 						log.warn("Writing of data canceled because of limited hard disk space left for the storage.");
 					}
@@ -608,6 +990,7 @@ public class StorageWriter implements IWriter {
 				// get object from soft reference
 				final DefaultData data = referenceToWriteData.get();
 				if (null == data) {
+					failedWrites.incrementAndGet();
 					log.warn("Failed to write data to storage. The data to be written was already garbage collected due to the high amount of writing tasks.");
 					return;
 				}
@@ -617,7 +1000,7 @@ public class StorageWriter implements IWriter {
 				try {
 					channelId = indexingTreeHandler.startWrite(this);
 				} catch (IndexingException e) {
-					indexingTreeHandler.writeFailed(this);
+					writeFailed(this);
 					if (log.isDebugEnabled()) {
 						log.debug("Indexing exception occurred while attempting to write data to disk.", e);
 					}
@@ -625,7 +1008,7 @@ public class StorageWriter implements IWriter {
 				}
 
 				if (0 == channelId) {
-					indexingTreeHandler.writeFailed(this);
+					writeFailed(this);
 					log.error("Channel ID could not be obtained during attempt to write data to disk. Data will be skipped.");
 					return;
 				}
@@ -637,11 +1020,31 @@ public class StorageWriter implements IWriter {
 					Thread.interrupted();
 				}
 				if (null == serializer) {
-					indexingTreeHandler.writeFailed(this);
+					writeFailed(this);
 					log.error("Serializer instance could not be obtained.");
 					return;
 				}
 
+				if (StorageFormatVersion.isCompressedBlocks(storageData)) {
+					Output output = blockOutput.get();
+					output.clear();
+					try {
+						serializer.serialize(data, output, kryoPreferences);
+					} catch (SerializationException e) {
+						writeFailed(this);
+						if (log.isWarnEnabled()) {
+							log.warn("Serialization for the object " + data + " failed. Data will be skipped.", e);
+						}
+						return;
+					} finally {
+						serializerQueue.add(serializer);
+					}
+
+					// position and size will be set when the block is written
+					appendToBlock(this, channelId, data.getId(), output.getBuffer(), output.position());
+					return;
+				}
+
 				extendedByteBufferOutputStream = streamProvider.getExtendedByteBufferOutputStream();
 				try {
 					Output output = new Output(extendedByteBufferOutputStream);
@@ -649,7 +1052,7 @@ public class StorageWriter implements IWriter {
 					extendedByteBufferOutputStream.flush(false);
 				} catch (SerializationException e) {
 					extendedByteBufferOutputStream.close();
-					indexingTreeHandler.writeFailed(this);
+					writeFailed(this);
 					serializerQueue.add(serializer);
 					if (log.isWarnEnabled()) {
 						log.warn("Serialization for the object " + data + " failed. Data will be skipped.", e);
@@ -668,7 +1071,7 @@ public class StorageWriter implements IWriter {
 						if (isCompleted()) {
 							indexingTreeHandler.writeSuccessful(WriteTask.this, getAttemptedWriteReadPosition(), getAttemptedWriteReadSize());
 						} else {
-							indexingTreeHandler.writeFailed(WriteTask.this);
+							writeFailed(WriteTask.this);
 
 						}
 					}
@@ -683,7 +1086,7 @@ public class StorageWriter implements IWriter {
 				} catch (IOException e) {
 					// remove from indexing tree if exception occurs
 					extendedByteBufferOutputStream.close();
-					indexingTreeHandler.writeFailed(this);
+					writeFailed(this);
 					log.error("Exception occurred while attempting to write data to disk", e);
 					return;
 				}
@@ -692,7 +1095,7 @@ public class StorageWriter implements IWriter {
 				if (null != extendedByteBufferOutputStream) {
 					extendedByteBufferOutputStream.close();
 				}
-				indexingTreeHandler.writeFailed(this);
+				writeFailed(this);
 				log.error("Unknown exception occurred during data write", t);
 			}
 		}
@@ -704,6 +1107,14 @@ public class StorageWriter implements IWriter {
 			return referenceToWriteData.get();
 		}
 
+		/**
+		 * @return Returns period of the rollup tier data is written to or
+		 *         {@link StorageRollupUtil#NO_ROLLUP} for raw data.
+		 */
+		public long getRollupPeriod() {
+			return rollupPeriod;
+		}
+
 	}
 
 	/**
@@ -755,6 +1166,26 @@ public class StorageWriter implements IWriter {
 		return writingExecutorService.toString();
 	}
 
+	/**
+	 * Returns the amount of objects that could not be written, because the data was garbage
+	 * collected before it was written, because of the limited disk space or because the
+	 * serialization or write failed.
+	 *
+	 * @return Amount of failed writes.
+	 */
+	public long getFailedWriteCount() {
+		return failedWrites.get();
+	}
+
+	/**
+	 * Returns the current amount of threads serializing the data.
+	 *
+	 * @return Amount of writing threads.
+	 */
+	public int getWritingThreadCount() {
+		return (null != writingExecutorService) ? writingExecutorService.getCorePoolSize() : 0;
+	}
+
 	/**
 	 * Gets {@link #writingOn}.
 	 *
@@ -791,11 +1222,13 @@ public class StorageWriter implements IWriter {
 
 		// we create the same number of kryo instances as the size of the executor service
 		// this way every write task will not wait for a reference because one will always be
-		// available
+		// available, serializers are added and removed together with the writing threads
 		int threads = writingExecutorService.getCorePoolSize();
 		for (int i = 0; i < threads; i++) {
 			serializerQueue.add(serializationManagerProvider.createSerializer());
 		}
+		minWritingThreads = threads;
+		maxWritingThreads = Math.max(minWritingThreads, Math.min(minWritingThreads * MAX_WRITING_THREADS_FACTOR, Runtime.getRuntime().availableProcessors()));
 	}
 
 	/**
@@ -0,0 +1,261 @@
+package rocks.inspectit.shared.cs.storage.export;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Data types that can be exported in the columnar format. Every type defines its long, double and
+ * string columns and knows how to extract the column values from the data object. The first five
+ * long columns (time stamp, platform, sensor type and method ident, count) and the first five
+ * double columns (duration, min, max, CPU and exclusive duration) are the same for all types.
+ *
+ * @author Ivan Senic
+ *
+ */
+public enum ColumnarDataType {
+
+	/**
+	 * Timer data.
+	 */
+	TIMER(TimerData.class, new String[] {}, new String[] {}, new String[] {}) {
+		@Override
+		protected void extractSpecific(DefaultData data, long[] longValues, double[] doubleValues, String[] stringValues) {
+		}
+	},
+
+	/**
+	 * SQL statement data.
+	 */
+	SQL(SqlStatementData.class, new String[] { "preparedStatement" }, new String[] {}, new String[] { "sql", "databaseUrl", "databaseProductName" }) {
+		@Override
+		protected void extractSpecific(DefaultData data, long[] longValues, double[] doubleValues, String[] stringValues) {
+			SqlStatementData sqlStatementData = (SqlStatementData) data;
+			longValues[COMMON_LONG_COLUMN_COUNT] = sqlStatementData.isPreparedStatement() ? 1L : 0L;
+			stringValues[0] = sqlStatementData.getSql();
+			stringValues[1] = sqlStatementData.getDatabaseUrl();
+			stringValues[2] = sqlStatementData.getDatabaseProductName();
+		}
+	},
+
+	/**
+	 * HTTP timer data.
+	 */
+	HTTP(HttpTimerData.class, new String[] { "httpResponseStatus" }, new String[] {}, new String[] { "uri", "requestMethod" }) {
+		@Override
+		protected void extractSpecific(DefaultData data, long[] longValues, double[] doubleValues, String[] stringValues) {
+			HttpTimerData httpTimerData = (HttpTimerData) data;
+			longValues[COMMON_LONG_COLUMN_COUNT] = httpTimerData.getHttpResponseStatus();
+			HttpInfo httpInfo = httpTimerData.getHttpInfo();
+			if (null != httpInfo) {
+				stringValues[0] = httpInfo.getUri();
+				stringValues[1] = httpInfo.getRequestMethod();
+			} else {
+				stringValues[0] = null; // NOPMD
+				stringValues[1] = null; // NOPMD
+			}
+		}
+	};
+
+	/**
+	 * Amount of long columns all types have.
+	 */
+	static final int COMMON_LONG_COLUMN_COUNT = 5;
+
+	/**
+	 * Index of the time stamp column in the long columns.
+	 */
+	public static final int TIME_STAMP_COLUMN = 0;
+
+	/**
+	 * Index of the platform ident column in the long columns.
+	 */
+	public static final int PLATFORM_IDENT_COLUMN = 1;
+
+	/**
+	 * Index of the method ident column in the long columns.
+	 */
+	public static final int METHOD_IDENT_COLUMN = 3;
+
+	/**
+	 * Exact class of the data.
+	 */
+	private final Class<? extends DefaultData> dataClass;
+
+	/**
+	 * Names of the long columns.
+	 */
+	private final String[] longColumns;
+
+	/**
+	 * Names of the double columns.
+	 */
+	private final String[] doubleColumns;
+
+	/**
+	 * Names of the string columns.
+	 */
+	private final String[] stringColumns;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param dataClass
+	 *            Exact class of the data.
+	 * @param specificLongColumns
+	 *            Long columns in addition to the common ones.
+	 * @param specificDoubleColumns
+	 *            Double columns in addition to the common ones.
+	 * @param stringColumns
+	 *            String columns.
+	 */
+	ColumnarDataType(Class<? extends DefaultData> dataClass, String[] specificLongColumns, String[] specificDoubleColumns, String[] stringColumns) {
+		this.dataClass = dataClass;
+		this.longColumns = concat(new String[] { "timeStamp", "platformIdent", "sensorTypeIdent", "methodIdent", "count" }, specificLongColumns);
+		this.doubleColumns = concat(new String[] { "duration", "min", "max", "cpuDuration", "exclusiveDuration" }, specificDoubleColumns);
+		this.stringColumns = stringColumns;
+	}
+
+	/**
+	 * Returns the type for the given data or <code>null</code> if the data can not be exported.
+	 * The class of the data must be exactly the class of the type.
+	 *
+	 * @param data
+	 *            Data.
+	 * @return {@link ColumnarDataType} or <code>null</code>.
+	 */
+	public static ColumnarDataType forData(DefaultData data) {
+		if (null == data) {
+			return null;
+		}
+		Class<?> clazz = data.getClass();
+		for (ColumnarDataType type : values()) {
+			if (type.dataClass == clazz) {
+				return type;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Extracts the values of all columns.
+	 *
+	 * @param data
+	 *            Data of this type.
+	 * @param longValues
+	 *            Array to fill the long values into, size must be the amount of long columns.
+	 * @param doubleValues
+	 *            Array to fill the double values into, size must be the amount of double columns.
+	 * @param stringValues
+	 *            Array to fill the string values into, size must be the amount of string columns.
+	 */
+	public void extract(DefaultData data, long[] longValues, double[] doubleValues, String[] stringValues) {
+		TimerData timerData = (TimerData) data;
+		longValues[TIME_STAMP_COLUMN] = (null != timerData.getTimeStamp()) ? timerData.getTimeStamp().getTime() : 0L;
+		longValues[PLATFORM_IDENT_COLUMN] = timerData.getPlatformIdent();
+		longValues[2] = timerData.getSensorTypeIdent();
+		longValues[METHOD_IDENT_COLUMN] = timerData.getMethodIdent();
+		longValues[4] = timerData.getCount();
+		doubleValues[0] = timerData.getDuration();
+		doubleValues[1] = timerData.getMin();
+		doubleValues[2] = timerData.getMax();
+		doubleValues[3] = timerData.getCpuDuration();
+		doubleValues[4] = timerData.getExclusiveDuration();
+		extractSpecific(data, longValues, doubleValues, stringValues);
+	}
+
+	/**
+	 * Extracts the values of the type specific columns.
+	 *
+	 * @param data
+	 *            Data of this type.
+	 * @param longValues
+	 *            Long values, common values are already set.
+	 * @param doubleValues
+	 *            Double values, common values are already set.
+	 * @param stringValues
+	 *            String values.
+	 */
+	protected abstract void extractSpecific(DefaultData data, long[] longValues, double[] doubleValues, String[] stringValues);
+
+	/**
+	 * Gets {@link #dataClass}.
+	 *
+	 * @return {@link #dataClass}
+	 */
+	public Class<? extends DefaultData> getDataClass() {
+		return dataClass;
+	}
+
+	/**
+	 * Gets {@link #longColumns}.
+	 *
+	 * @return {@link #longColumns}
+	 */
+	public String[] getLongColumns() {
+		return longColumns.clone();
+	}
+
+	/**
+	 * Gets {@link #doubleColumns}.
+	 *
+	 * @return {@link #doubleColumns}
+	 */
+	public String[] getDoubleColumns() {
+		return doubleColumns.clone();
+	}
+
+	/**
+	 * Gets {@link #stringColumns}.
+	 *
+	 * @return {@link #stringColumns}
+	 */
+	public String[] getStringColumns() {
+		return stringColumns.clone();
+	}
+
+	/**
+	 * Returns the amount of long columns.
+	 *
+	 * @return Amount of long columns.
+	 */
+	public int getLongColumnCount() {
+		return longColumns.length;
+	}
+
+	/**
+	 * Returns the amount of double columns.
+	 *
+	 * @return Amount of double columns.
+	 */
+	public int getDoubleColumnCount() {
+		return doubleColumns.length;
+	}
+
+	/**
+	 * Returns the amount of string columns.
+	 *
+	 * @return Amount of string columns.
+	 */
+	public int getStringColumnCount() {
+		return stringColumns.length;
+	}
+
+	/**
+	 * Concatenates two arrays.
+	 *
+	 * @param first
+	 *            First.
+	 * @param second
+	 *            Second.
+	 * @return New array.
+	 */
+	private static String[] concat(String[] first, String[] second) {
+		String[] result = new String[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+}
@@ -0,0 +1,305 @@
+package rocks.inspectit.shared.cs.storage.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the files written by the {@link ColumnarExportWriter}. The footer is read when the reader
+ * is created, row groups are read and decoded one by one, thus only one row group is held in
+ * memory at a time. Row groups can be filtered with the footer statistics before they are read.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarExportReader implements Closeable {
+
+	/**
+	 * Size of the trailer: footer offset and magic bytes.
+	 */
+	private static final int TRAILER_SIZE = 8 + ColumnarExportWriter.MAGIC.length;
+
+	/**
+	 * Channel of the file.
+	 */
+	private final FileChannel fileChannel;
+
+	/**
+	 * Metadata of all row groups.
+	 */
+	private final List<ColumnarRowGroupMetadata> rowGroups;
+
+	/**
+	 * Inflater re-used for all columns.
+	 */
+	private final Inflater inflater = new Inflater();
+
+	/**
+	 * Opens the file and reads the footer.
+	 *
+	 * @param path
+	 *            Path to the file.
+	 * @throws IOException
+	 *             If file can not be read or is not a columnar export file.
+	 */
+	public ColumnarExportReader(Path path) throws IOException {
+		this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			this.rowGroups = readFooter();
+		} catch (IOException e) {
+			fileChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns metadata of all row groups.
+	 *
+	 * @return Metadata of all row groups.
+	 */
+	public List<ColumnarRowGroupMetadata> getRowGroups() {
+		return Collections.unmodifiableList(rowGroups);
+	}
+
+	/**
+	 * Returns metadata of the row groups that can contain rows matching the given restrictions.
+	 *
+	 * @param types
+	 *            Types to include, <code>null</code> or empty for all.
+	 * @param fromTime
+	 *            Min time stamp or <code>Long.MIN_VALUE</code> for no restriction.
+	 * @param toTime
+	 *            Max time stamp or <code>Long.MAX_VALUE</code> for no restriction.
+	 * @param platformIdent
+	 *            Platform ident or <code>0</code> for no restriction.
+	 * @param methodIdent
+	 *            Method ident or <code>0</code> for no restriction.
+	 * @return Metadata of the matching row groups.
+	 */
+	public List<ColumnarRowGroupMetadata> getRowGroups(Collection<ColumnarDataType> types, long fromTime, long toTime, long platformIdent, long methodIdent) {
+		List<ColumnarRowGroupMetadata> result = new ArrayList<>();
+		for (ColumnarRowGroupMetadata metadata : rowGroups) {
+			if (((null == types) || types.isEmpty() || types.contains(metadata.getType())) && metadata.mayMatch(fromTime, toTime, platformIdent, methodIdent)) {
+				result.add(metadata);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads and decodes the row group.
+	 *
+	 * @param metadata
+	 *            Metadata of the row group.
+	 * @return {@link ColumnarRowGroup}.
+	 * @throws IOException
+	 *             If row group can not be read.
+	 */
+	public ColumnarRowGroup read(ColumnarRowGroupMetadata metadata) throws IOException {
+		ByteBuffer buffer = readFully(metadata.getOffset(), (int) metadata.getLength());
+		ColumnarDataType type = metadata.getType();
+		if ((buffer.get() != type.ordinal()) || (buffer.getInt() != metadata.getRowCount())) {
+			throw new IOException("Row group at the offset " + metadata.getOffset() + " does not match the footer.");
+		}
+		int size = metadata.getRowCount();
+
+		long[][] longColumns = new long[type.getLongColumnCount()][];
+		for (int i = 0; i < longColumns.length; i++) {
+			ByteBuffer column = readColumn(buffer);
+			long[] values = new long[size];
+			long previous = 0;
+			for (int j = 0; j < size; j++) {
+				previous += unZigZag(readVarLong(column));
+				values[j] = previous;
+			}
+			longColumns[i] = values;
+		}
+
+		double[][] doubleColumns = new double[type.getDoubleColumnCount()][];
+		for (int i = 0; i < doubleColumns.length; i++) {
+			ByteBuffer column = readColumn(buffer);
+			double[] values = new double[size];
+			for (int j = 0; j < size; j++) {
+				values[j] = Double.longBitsToDouble(column.getLong());
+			}
+			doubleColumns[i] = values;
+		}
+
+		String[][] stringColumns = new String[type.getStringColumnCount()][];
+		for (int i = 0; i < stringColumns.length; i++) {
+			ByteBuffer column = readColumn(buffer);
+			String[] dictionary = new String[(int) readVarLong(column)];
+			for (int j = 0; j < dictionary.length; j++) {
+				byte[] bytes = new byte[(int) readVarLong(column)];
+				column.get(bytes);
+				dictionary[j] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			String[] values = new String[size];
+			for (int j = 0; j < size; j++) {
+				int index = (int) readVarLong(column);
+				values[j] = (0 == index) ? null : dictionary[index - 1];
+			}
+			stringColumns[i] = values;
+		}
+
+		return new ColumnarRowGroup(metadata, longColumns, doubleColumns, stringColumns);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		fileChannel.close();
+	}
+
+	/**
+	 * Reads the footer.
+	 *
+	 * @return Row groups metadata.
+	 * @throws IOException
+	 *             If footer can not be read.
+	 */
+	private List<ColumnarRowGroupMetadata> readFooter() throws IOException {
+		long fileSize = fileChannel.size();
+		int magicLength = ColumnarExportWriter.MAGIC.length;
+		if (fileSize < (magicLength + 4 + TRAILER_SIZE)) {
+			throw new IOException("File is too small to be a columnar export file.");
+		}
+		checkMagic(readFully(0, magicLength));
+		ByteBuffer trailer = readFully(fileSize - TRAILER_SIZE, TRAILER_SIZE);
+		long footerOffset = trailer.getLong();
+		checkMagic(trailer);
+		if ((footerOffset < magicLength) || (footerOffset > (fileSize - TRAILER_SIZE - 4))) {
+			throw new IOException("Footer offset " + footerOffset + " is not valid.");
+		}
+
+		ByteBuffer footer = readFully(footerOffset, (int) (fileSize - TRAILER_SIZE - footerOffset));
+		int count = footer.getInt();
+		if (footer.remaining() != (count * ColumnarRowGroupMetadata.FOOTER_ENTRY_SIZE)) {
+			throw new IOException("Footer size does not match the amount of row groups.");
+		}
+		ColumnarDataType[] types = ColumnarDataType.values();
+		List<ColumnarRowGroupMetadata> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int ordinal = footer.get();
+			if ((ordinal < 0) || (ordinal >= types.length)) {
+				throw new IOException("Unknown data type " + ordinal + " in the footer.");
+			}
+			result.add(new ColumnarRowGroupMetadata(types[ordinal], footer.getLong(), footer.getLong(), footer.getInt(), footer.getLong(), footer.getLong(), footer.getLong(), footer.getLong(),
+					footer.getLong(), footer.getLong()));
+		}
+		return result;
+	}
+
+	/**
+	 * Checks that the buffer contains the magic bytes at its current position.
+	 *
+	 * @param buffer
+	 *            Buffer.
+	 * @throws IOException
+	 *             If magic bytes are not found.
+	 */
+	private void checkMagic(ByteBuffer buffer) throws IOException {
+		byte[] magic = new byte[ColumnarExportWriter.MAGIC.length];
+		buffer.get(magic);
+		if (!Arrays.equals(magic, ColumnarExportWriter.MAGIC)) {
+			throw new IOException("File is not a columnar export file.");
+		}
+	}
+
+	/**
+	 * Reads and inflates one column from the row group buffer.
+	 *
+	 * @param buffer
+	 *            Row group buffer positioned at the column.
+	 * @return Buffer with the raw column bytes.
+	 * @throws IOException
+	 *             If column can not be inflated.
+	 */
+	private ByteBuffer readColumn(ByteBuffer buffer) throws IOException {
+		int rawLength = buffer.getInt();
+		int compressedLength = buffer.getInt();
+		byte[] raw = new byte[rawLength];
+		inflater.reset();
+		inflater.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), compressedLength);
+		try {
+			int inflated = 0;
+			while (inflated < rawLength) {
+				int count = inflater.inflate(raw, inflated, rawLength - inflated);
+				if ((0 == count) && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("Column is shorter than expected.");
+				}
+				inflated += count;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Column can not be inflated.", e);
+		}
+		buffer.position(buffer.position() + compressedLength);
+		return ByteBuffer.wrap(raw);
+	}
+
+	/**
+	 * Reads the given amount of bytes from the file.
+	 *
+	 * @param position
+	 *            Position in file.
+	 * @param size
+	 *            Amount of bytes.
+	 * @return Heap buffer positioned at 0 holding the bytes.
+	 * @throws IOException
+	 *             If bytes can not be read.
+	 */
+	private ByteBuffer readFully(long position, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		while (buffer.hasRemaining()) {
+			if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file at the position " + (position + buffer.position()) + ".");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads variable length long written by the writer.
+	 *
+	 * @param buffer
+	 *            Buffer.
+	 * @return Value.
+	 */
+	private static long readVarLong(ByteBuffer buffer) {
+		long result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			result |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+	/**
+	 * Reverts the zig-zag encoding.
+	 *
+	 * @param value
+	 *            Encoded value.
+	 * @return Decoded value.
+	 */
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,606 @@
+package rocks.inspectit.shared.cs.storage.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Writes the data in the column-oriented export format. Data is buffered per
+ * {@link ColumnarDataType} until the row group size is reached and then written as one row group,
+ * thus the memory needed is bounded by the row group size no matter how many rows are exported.
+ * <p>
+ * File layout:
+ * <ul>
+ * <li>magic bytes {@link #MAGIC}
+ * <li>row groups: type ordinal, row count, followed by all long, double and string columns of the
+ * type, each column as raw length, compressed length and the deflated column bytes
+ * <li>footer: amount of row groups and for each row group the type ordinal, offset, length, row
+ * count and min/max of the time stamp, platform ident and method ident columns
+ * <li>offset of the footer and again the magic bytes
+ * </ul>
+ * Long columns are delta encoded with zig-zag variable length longs, double columns are written as
+ * raw 8 byte values and string columns are dictionary encoded per row group. The statistics in the
+ * footer allow the reader to skip complete row groups that do not match the query.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarExportWriter implements Closeable {
+
+	/**
+	 * Magic bytes at the start and end of each file.
+	 */
+	public static final byte[] MAGIC = "ITCOL1".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Default amount of rows in one row group.
+	 */
+	public static final int DEFAULT_ROW_GROUP_SIZE = 65536;
+
+	/**
+	 * Output stream to write to.
+	 */
+	private final DataOutputStream output;
+
+	/**
+	 * Max amount of rows in one row group.
+	 */
+	private final int rowGroupSize;
+
+	/**
+	 * Buffered rows per type.
+	 */
+	private final Map<ColumnarDataType, RowGroupBuffer> buffers = new EnumMap<>(ColumnarDataType.class);
+
+	/**
+	 * Metadata of the written row groups.
+	 */
+	private final List<ColumnarRowGroupMetadata> rowGroups = new ArrayList<>();
+
+	/**
+	 * Buffer used to encode one column.
+	 */
+	private final EncodingBuffer encodingBuffer = new EncodingBuffer(1024);
+
+	/**
+	 * Buffer holding the compressed column.
+	 */
+	private byte[] compressedBuffer = new byte[1024];
+
+	/**
+	 * Deflater re-used for all columns.
+	 */
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	/**
+	 * Amount of bytes written so far.
+	 */
+	private long bytesWritten;
+
+	/**
+	 * Amount of rows written or buffered so far.
+	 */
+	private long rowCount;
+
+	/**
+	 * If writer is closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Creates writer with {@link #DEFAULT_ROW_GROUP_SIZE}.
+	 *
+	 * @param outputStream
+	 *            Output stream to write to. Stream is closed when writer is closed.
+	 * @throws IOException
+	 *             If magic bytes can not be written.
+	 */
+	public ColumnarExportWriter(OutputStream outputStream) throws IOException {
+		this(outputStream, DEFAULT_ROW_GROUP_SIZE);
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param outputStream
+	 *            Output stream to write to. Stream is closed when writer is closed.
+	 * @param rowGroupSize
+	 *            Max amount of rows in one row group.
+	 * @throws IOException
+	 *             If magic bytes can not be written.
+	 */
+	public ColumnarExportWriter(OutputStream outputStream, int rowGroupSize) throws IOException {
+		if (rowGroupSize <= 0) {
+			throw new IllegalArgumentException("Row group size must be positive.");
+		}
+		this.output = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+		this.rowGroupSize = rowGroupSize;
+		writeBytes(MAGIC, 0, MAGIC.length);
+	}
+
+	/**
+	 * Writes the data. Data that has no {@link ColumnarDataType} is ignored.
+	 *
+	 * @param data
+	 *            Data to write.
+	 * @return <code>true</code> if data was written, <code>false</code> if the type of data can not
+	 *         be exported.
+	 * @throws IOException
+	 *             If row group can not be written.
+	 */
+	public boolean write(DefaultData data) throws IOException {
+		if (closed) {
+			throw new IOException("Columnar export writer is closed.");
+		}
+		ColumnarDataType type = ColumnarDataType.forData(data);
+		if (null == type) {
+			return false;
+		}
+
+		RowGroupBuffer buffer = buffers.get(type);
+		if (null == buffer) {
+			buffer = new RowGroupBuffer(type, rowGroupSize);
+			buffers.put(type, buffer);
+		}
+		buffer.add(data);
+		rowCount++;
+		if (buffer.size == rowGroupSize) {
+			writeRowGroup(buffer);
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the buffered rows, footer and closes the output stream.
+	 *
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			for (RowGroupBuffer buffer : buffers.values()) {
+				if (buffer.size > 0) {
+					writeRowGroup(buffer);
+				}
+			}
+			buffers.clear();
+			writeFooter();
+			output.flush();
+		} finally {
+			deflater.end();
+			output.close();
+		}
+	}
+
+	/**
+	 * Writes the buffered rows as one row group and resets the buffer.
+	 *
+	 * @param buffer
+	 *            Buffer holding the rows.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	private void writeRowGroup(RowGroupBuffer buffer) throws IOException {
+		long offset = bytesWritten;
+		ColumnarDataType type = buffer.type;
+		int size = buffer.size;
+
+		output.writeByte(type.ordinal());
+		output.writeInt(size);
+		bytesWritten += 5;
+
+		for (long[] column : buffer.longColumns) {
+			encodingBuffer.reset();
+			long previous = 0;
+			for (int i = 0; i < size; i++) {
+				encodingBuffer.writeVarLong(zigZag(column[i] - previous));
+				previous = column[i];
+			}
+			writeColumn();
+		}
+		for (double[] column : buffer.doubleColumns) {
+			encodingBuffer.reset();
+			for (int i = 0; i < size; i++) {
+				encodingBuffer.writeLong(Double.doubleToRawLongBits(column[i]));
+			}
+			writeColumn();
+		}
+		for (String[] column : buffer.stringColumns) {
+			encodeStringColumn(column, size);
+			writeColumn();
+		}
+
+		long[] timeStamps = buffer.longColumns[ColumnarDataType.TIME_STAMP_COLUMN];
+		long[] platformIdents = buffer.longColumns[ColumnarDataType.PLATFORM_IDENT_COLUMN];
+		long[] methodIdents = buffer.longColumns[ColumnarDataType.METHOD_IDENT_COLUMN];
+		ColumnarRowGroupMetadata metadata = new ColumnarRowGroupMetadata(type, offset, bytesWritten - offset, size, min(timeStamps, size), max(timeStamps, size), min(platformIdents, size),
+				max(platformIdents, size), min(methodIdents, size), max(methodIdents, size));
+		rowGroups.add(metadata);
+		buffer.reset();
+	}
+
+	/**
+	 * Encodes the string column with the dictionary. Dictionary holds every distinct value once,
+	 * rows are written as dictionary index plus one, where <code>0</code> denotes
+	 * <code>null</code>.
+	 *
+	 * @param column
+	 *            Column values.
+	 * @param size
+	 *            Amount of rows.
+	 */
+	private void encodeStringColumn(String[] column, int size) {
+		Map<String, Integer> dictionary = new HashMap<>();
+		int[] indexes = new int[size];
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			String value = column[i];
+			if (null == value) {
+				indexes[i] = 0;
+			} else {
+				Integer index = dictionary.get(value);
+				if (null == index) {
+					index = Integer.valueOf(values.size() + 1);
+					dictionary.put(value, index);
+					values.add(value);
+				}
+				indexes[i] = index.intValue();
+			}
+		}
+
+		encodingBuffer.reset();
+		encodingBuffer.writeVarLong(values.size());
+		for (String value : values) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			encodingBuffer.writeVarLong(bytes.length);
+			encodingBuffer.write(bytes, 0, bytes.length);
+		}
+		for (int i = 0; i < size; i++) {
+			encodingBuffer.writeVarLong(indexes[i]);
+		}
+	}
+
+	/**
+	 * Compresses the content of the {@link #encodingBuffer} and writes it as a column.
+	 *
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	private void writeColumn() throws IOException {
+		int rawLength = encodingBuffer.length;
+		deflater.reset();
+		deflater.setInput(encodingBuffer.bytes, 0, rawLength);
+		deflater.finish();
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressedBuffer.length) {
+				compressedBuffer = Arrays.copyOf(compressedBuffer, compressedBuffer.length * 2);
+			}
+			compressedLength += deflater.deflate(compressedBuffer, compressedLength, compressedBuffer.length - compressedLength);
+		}
+
+		output.writeInt(rawLength);
+		output.writeInt(compressedLength);
+		bytesWritten += 8;
+		writeBytes(compressedBuffer, 0, compressedLength);
+	}
+
+	/**
+	 * Writes the footer and the trailer.
+	 *
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	private void writeFooter() throws IOException {
+		long footerOffset = bytesWritten;
+		output.writeInt(rowGroups.size());
+		for (ColumnarRowGroupMetadata metadata : rowGroups) {
+			output.writeByte(metadata.getType().ordinal());
+			output.writeLong(metadata.getOffset());
+			output.writeLong(metadata.getLength());
+			output.writeInt(metadata.getRowCount());
+			output.writeLong(metadata.getMinTimeStamp());
+			output.writeLong(metadata.getMaxTimeStamp());
+			output.writeLong(metadata.getMinPlatformIdent());
+			output.writeLong(metadata.getMaxPlatformIdent());
+			output.writeLong(metadata.getMinMethodIdent());
+			output.writeLong(metadata.getMaxMethodIdent());
+		}
+		bytesWritten += 4 + (rowGroups.size() * ColumnarRowGroupMetadata.FOOTER_ENTRY_SIZE);
+		output.writeLong(footerOffset);
+		bytesWritten += 8;
+		writeBytes(MAGIC, 0, MAGIC.length);
+	}
+
+	/**
+	 * Writes bytes to the output.
+	 *
+	 * @param bytes
+	 *            Bytes.
+	 * @param offset
+	 *            Offset in the array.
+	 * @param length
+	 *            Amount of bytes to write.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+		output.write(bytes, offset, length);
+		bytesWritten += length;
+	}
+
+	/**
+	 * Zig-zag encodes the value, so that small negative values need few bytes.
+	 *
+	 * @param value
+	 *            Value.
+	 * @return Encoded value.
+	 */
+	static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Returns min of the first size values.
+	 *
+	 * @param values
+	 *            Values.
+	 * @param size
+	 *            Amount of values.
+	 * @return Min value.
+	 */
+	private static long min(long[] values, int size) {
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			min = Math.min(min, values[i]);
+		}
+		return min;
+	}
+
+	/**
+	 * Returns max of the first size values.
+	 *
+	 * @param values
+	 *            Values.
+	 * @param size
+	 *            Amount of values.
+	 * @return Max value.
+	 */
+	private static long max(long[] values, int size) {
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			max = Math.max(max, values[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * Gets {@link #rowCount}.
+	 *
+	 * @return {@link #rowCount}
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns the amount of row groups written so far.
+	 *
+	 * @return Amount of row groups written so far.
+	 */
+	public int getRowGroupCount() {
+		return rowGroups.size();
+	}
+
+	/**
+	 * Gets {@link #bytesWritten}.
+	 *
+	 * @return {@link #bytesWritten}
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Rows of one type buffered in columns.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private static class RowGroupBuffer {
+
+		/**
+		 * Type.
+		 */
+		private final ColumnarDataType type;
+
+		/**
+		 * Long columns.
+		 */
+		private final long[][] longColumns;
+
+		/**
+		 * Double columns.
+		 */
+		private final double[][] doubleColumns;
+
+		/**
+		 * String columns.
+		 */
+		private final String[][] stringColumns;
+
+		/**
+		 * Row values used when extracting.
+		 */
+		private final long[] longValues;
+
+		/**
+		 * Row values used when extracting.
+		 */
+		private final double[] doubleValues;
+
+		/**
+		 * Row values used when extracting.
+		 */
+		private final String[] stringValues;
+
+		/**
+		 * Amount of buffered rows.
+		 */
+		private int size;
+
+		/**
+		 * @param type
+		 *            Type.
+		 * @param capacity
+		 *            Max amount of rows.
+		 */
+		RowGroupBuffer(ColumnarDataType type, int capacity) {
+			this.type = type;
+			this.longColumns = new long[type.getLongColumnCount()][capacity];
+			this.doubleColumns = new double[type.getDoubleColumnCount()][capacity];
+			this.stringColumns = new String[type.getStringColumnCount()][capacity];
+			this.longValues = new long[type.getLongColumnCount()];
+			this.doubleValues = new double[type.getDoubleColumnCount()];
+			this.stringValues = new String[type.getStringColumnCount()];
+		}
+
+		/**
+		 * Adds one row.
+		 *
+		 * @param data
+		 *            Data.
+		 */
+		void add(DefaultData data) {
+			type.extract(data, longValues, doubleValues, stringValues);
+			for (int i = 0; i < longValues.length; i++) {
+				longColumns[i][size] = longValues[i];
+			}
+			for (int i = 0; i < doubleValues.length; i++) {
+				doubleColumns[i][size] = doubleValues[i];
+			}
+			for (int i = 0; i < stringValues.length; i++) {
+				stringColumns[i][size] = stringValues[i];
+			}
+			size++;
+		}
+
+		/**
+		 * Resets the buffer, releasing the string references.
+		 */
+		void reset() {
+			for (String[] column : stringColumns) {
+				Arrays.fill(column, 0, size, null);
+			}
+			size = 0;
+		}
+	}
+
+	/**
+	 * Growable byte array used to encode the columns.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private static class EncodingBuffer {
+
+		/**
+		 * Bytes.
+		 */
+		private byte[] bytes;
+
+		/**
+		 * Amount of used bytes.
+		 */
+		private int length;
+
+		/**
+		 * @param initialCapacity
+		 *            Initial capacity.
+		 */
+		EncodingBuffer(int initialCapacity) {
+			this.bytes = new byte[initialCapacity];
+		}
+
+		/**
+		 * Resets the buffer.
+		 */
+		void reset() {
+			length = 0;
+		}
+
+		/**
+		 * Writes variable length long, 7 bits per byte.
+		 *
+		 * @param value
+		 *            Value treated as unsigned.
+		 */
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			long remaining = value;
+			while ((remaining & ~0x7FL) != 0) {
+				bytes[length++] = (byte) ((remaining & 0x7F) | 0x80);
+				remaining >>>= 7;
+			}
+			bytes[length++] = (byte) remaining;
+		}
+
+		/**
+		 * Writes 8 byte long.
+		 *
+		 * @param value
+		 *            Value.
+		 */
+		void writeLong(long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				bytes[length++] = (byte) (value >>> shift);
+			}
+		}
+
+		/**
+		 * Writes bytes.
+		 *
+		 * @param source
+		 *            Source.
+		 * @param offset
+		 *            Offset.
+		 * @param count
+		 *            Amount.
+		 */
+		void write(byte[] source, int offset, int count) {
+			ensureCapacity(count);
+			System.arraycopy(source, offset, bytes, length, count);
+			length += count;
+		}
+
+		/**
+		 * Ensures there is space for additional bytes.
+		 *
+		 * @param additional
+		 *            Amount of additional bytes.
+		 */
+		private void ensureCapacity(int additional) {
+			if ((length + additional) > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+			}
+		}
+	}
+}
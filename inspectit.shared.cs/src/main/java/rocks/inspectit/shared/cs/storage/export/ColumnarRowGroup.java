@@ -0,0 +1,126 @@
+package rocks.inspectit.shared.cs.storage.export;
+
+import java.util.Arrays;
+
+/**
+ * Decoded row group of the columnar export file. Columns are accessed by their names as defined in
+ * the {@link ColumnarDataType}.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarRowGroup {
+
+	/**
+	 * Metadata of the row group.
+	 */
+	private final ColumnarRowGroupMetadata metadata;
+
+	/**
+	 * Long columns.
+	 */
+	private final long[][] longColumns;
+
+	/**
+	 * Double columns.
+	 */
+	private final double[][] doubleColumns;
+
+	/**
+	 * String columns.
+	 */
+	private final String[][] stringColumns;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param metadata
+	 *            Metadata of the row group.
+	 * @param longColumns
+	 *            Long columns.
+	 * @param doubleColumns
+	 *            Double columns.
+	 * @param stringColumns
+	 *            String columns.
+	 */
+	ColumnarRowGroup(ColumnarRowGroupMetadata metadata, long[][] longColumns, double[][] doubleColumns, String[][] stringColumns) {
+		this.metadata = metadata;
+		this.longColumns = longColumns;
+		this.doubleColumns = doubleColumns;
+		this.stringColumns = stringColumns;
+	}
+
+	/**
+	 * Returns the values of the long column.
+	 *
+	 * @param name
+	 *            Name of the column.
+	 * @return Column values.
+	 * @throws IllegalArgumentException
+	 *             If the type of the row group has no such long column.
+	 */
+	public long[] getLongColumn(String name) {
+		return longColumns[indexOf(metadata.getType().getLongColumns(), name)];
+	}
+
+	/**
+	 * Returns the values of the double column.
+	 *
+	 * @param name
+	 *            Name of the column.
+	 * @return Column values.
+	 * @throws IllegalArgumentException
+	 *             If the type of the row group has no such double column.
+	 */
+	public double[] getDoubleColumn(String name) {
+		return doubleColumns[indexOf(metadata.getType().getDoubleColumns(), name)];
+	}
+
+	/**
+	 * Returns the values of the string column.
+	 *
+	 * @param name
+	 *            Name of the column.
+	 * @return Column values.
+	 * @throws IllegalArgumentException
+	 *             If the type of the row group has no such string column.
+	 */
+	public String[] getStringColumn(String name) {
+		return stringColumns[indexOf(metadata.getType().getStringColumns(), name)];
+	}
+
+	/**
+	 * Gets {@link #metadata}.
+	 *
+	 * @return {@link #metadata}
+	 */
+	public ColumnarRowGroupMetadata getMetadata() {
+		return metadata;
+	}
+
+	/**
+	 * Returns the amount of rows.
+	 *
+	 * @return Amount of rows.
+	 */
+	public int getRowCount() {
+		return metadata.getRowCount();
+	}
+
+	/**
+	 * Returns the index of the column name.
+	 *
+	 * @param columns
+	 *            Column names.
+	 * @param name
+	 *            Name to find.
+	 * @return Index.
+	 */
+	private int indexOf(String[] columns, String name) {
+		int index = Arrays.asList(columns).indexOf(name);
+		if (index < 0) {
+			throw new IllegalArgumentException("Column " + name + " does not exist for the type " + metadata.getType() + ".");
+		}
+		return index;
+	}
+}
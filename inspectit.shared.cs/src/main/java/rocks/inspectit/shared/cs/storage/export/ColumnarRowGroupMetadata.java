@@ -0,0 +1,238 @@
+package rocks.inspectit.shared.cs.storage.export;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Metadata of one row group in the columnar export file, written to the footer of the file. Holds
+ * the location of the row group and the min/max statistics used to skip the row groups that can
+ * not match the query.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class ColumnarRowGroupMetadata {
+
+	/**
+	 * Size in bytes of one row group entry in the footer.
+	 */
+	static final int FOOTER_ENTRY_SIZE = 1 + 8 + 8 + 4 + (6 * 8);
+
+	/**
+	 * Type of the data in row group.
+	 */
+	private final ColumnarDataType type;
+
+	/**
+	 * Offset of the row group in the file.
+	 */
+	private final long offset;
+
+	/**
+	 * Length of the row group in bytes.
+	 */
+	private final long length;
+
+	/**
+	 * Amount of rows.
+	 */
+	private final int rowCount;
+
+	/**
+	 * Min time stamp.
+	 */
+	private final long minTimeStamp;
+
+	/**
+	 * Max time stamp.
+	 */
+	private final long maxTimeStamp;
+
+	/**
+	 * Min platform ident.
+	 */
+	private final long minPlatformIdent;
+
+	/**
+	 * Max platform ident.
+	 */
+	private final long maxPlatformIdent;
+
+	/**
+	 * Min method ident.
+	 */
+	private final long minMethodIdent;
+
+	/**
+	 * Max method ident.
+	 */
+	private final long maxMethodIdent;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param type
+	 *            Type of the data in row group.
+	 * @param offset
+	 *            Offset of the row group in the file.
+	 * @param length
+	 *            Length of the row group in bytes.
+	 * @param rowCount
+	 *            Amount of rows.
+	 * @param minTimeStamp
+	 *            Min time stamp.
+	 * @param maxTimeStamp
+	 *            Max time stamp.
+	 * @param minPlatformIdent
+	 *            Min platform ident.
+	 * @param maxPlatformIdent
+	 *            Max platform ident.
+	 * @param minMethodIdent
+	 *            Min method ident.
+	 * @param maxMethodIdent
+	 *            Max method ident.
+	 */
+	public ColumnarRowGroupMetadata(ColumnarDataType type, long offset, long length, int rowCount, long minTimeStamp, long maxTimeStamp, long minPlatformIdent, long maxPlatformIdent,
+			long minMethodIdent, long maxMethodIdent) {
+		this.type = type;
+		this.offset = offset;
+		this.length = length;
+		this.rowCount = rowCount;
+		this.minTimeStamp = minTimeStamp;
+		this.maxTimeStamp = maxTimeStamp;
+		this.minPlatformIdent = minPlatformIdent;
+		this.maxPlatformIdent = maxPlatformIdent;
+		this.minMethodIdent = minMethodIdent;
+		this.maxMethodIdent = maxMethodIdent;
+	}
+
+	/**
+	 * Returns if the row group can contain rows matching the given restrictions.
+	 *
+	 * @param fromTime
+	 *            Min time stamp or <code>Long.MIN_VALUE</code> for no restriction.
+	 * @param toTime
+	 *            Max time stamp or <code>Long.MAX_VALUE</code> for no restriction.
+	 * @param platformIdent
+	 *            Platform ident or <code>0</code> for no restriction.
+	 * @param methodIdent
+	 *            Method ident or <code>0</code> for no restriction.
+	 * @return <code>false</code> if the row group for sure has no matching rows.
+	 */
+	public boolean mayMatch(long fromTime, long toTime, long platformIdent, long methodIdent) {
+		if ((maxTimeStamp < fromTime) || (minTimeStamp > toTime)) {
+			return false;
+		}
+		if ((0 != platformIdent) && ((platformIdent < minPlatformIdent) || (platformIdent > maxPlatformIdent))) {
+			return false;
+		}
+		if ((0 != methodIdent) && ((methodIdent < minMethodIdent) || (methodIdent > maxMethodIdent))) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets {@link #type}.
+	 *
+	 * @return {@link #type}
+	 */
+	public ColumnarDataType getType() {
+		return type;
+	}
+
+	/**
+	 * Gets {@link #offset}.
+	 *
+	 * @return {@link #offset}
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Gets {@link #length}.
+	 *
+	 * @return {@link #length}
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Gets {@link #rowCount}.
+	 *
+	 * @return {@link #rowCount}
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Gets {@link #minTimeStamp}.
+	 *
+	 * @return {@link #minTimeStamp}
+	 */
+	public long getMinTimeStamp() {
+		return minTimeStamp;
+	}
+
+	/**
+	 * Gets {@link #maxTimeStamp}.
+	 *
+	 * @return {@link #maxTimeStamp}
+	 */
+	public long getMaxTimeStamp() {
+		return maxTimeStamp;
+	}
+
+	/**
+	 * Gets {@link #minPlatformIdent}.
+	 *
+	 * @return {@link #minPlatformIdent}
+	 */
+	public long getMinPlatformIdent() {
+		return minPlatformIdent;
+	}
+
+	/**
+	 * Gets {@link #maxPlatformIdent}.
+	 *
+	 * @return {@link #maxPlatformIdent}
+	 */
+	public long getMaxPlatformIdent() {
+		return maxPlatformIdent;
+	}
+
+	/**
+	 * Gets {@link #minMethodIdent}.
+	 *
+	 * @return {@link #minMethodIdent}
+	 */
+	public long getMinMethodIdent() {
+		return minMethodIdent;
+	}
+
+	/**
+	 * Gets {@link #maxMethodIdent}.
+	 *
+	 * @return {@link #maxMethodIdent}
+	 */
+	public long getMaxMethodIdent() {
+		return maxMethodIdent;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("type", type);
+		toStringBuilder.append("offset", offset);
+		toStringBuilder.append("length", length);
+		toStringBuilder.append("rowCount", rowCount);
+		toStringBuilder.append("minTimeStamp", minTimeStamp);
+		toStringBuilder.append("maxTimeStamp", maxTimeStamp);
+		return toStringBuilder.toString();
+	}
+}
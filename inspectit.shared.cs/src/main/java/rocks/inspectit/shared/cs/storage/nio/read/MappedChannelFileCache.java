@@ -0,0 +1,350 @@
+package rocks.inspectit.shared.cs.storage.nio.read;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.util.MappedByteBufferUtils;
+
+/**
+ * Cache of the read-only memory mappings of the storage channel files. Every channel file is
+ * mapped once and the mapping is shared between all reads of the file, thus repeated reads of the
+ * same storage are served from the page cache without any system call or copy to the heap.
+ * <p>
+ * Mappings are only meant for the files that do not change any more, like the data files of the
+ * downloaded storages. If a region past the mapped size is requested, the file is mapped again.
+ * The total size of the mappings is bounded by {@link #maxMappedSize}, the least recently used
+ * mappings are released when the bound would be exceeded. Released mappings are explicitly
+ * unmapped as soon as the last {@link MappedRegion} using them is closed, so that the files can be
+ * deleted (operating systems like Windows lock the mapped files). If unmapping is not possible with
+ * the running JVM, no file is mapped and {@link #getRegion(Path, long, long)} always returns
+ * <code>null</code>, thus the callers read the data from the channels.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class MappedChannelFileCache {
+
+	/**
+	 * Default maximum size of all mappings in bytes.
+	 */
+	private static final long DEFAULT_MAX_MAPPED_SIZE = 512L * 1024 * 1024;
+
+	/**
+	 * The log of this class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Maximum size of all mappings in bytes.
+	 */
+	long maxMappedSize = DEFAULT_MAX_MAPPED_SIZE;
+
+	/**
+	 * Mapped files in the access order. Guarded by this cache.
+	 */
+	private final Map<Path, MappedFile> mappedFiles = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Size of all mappings that are not unmapped yet, including the released ones still in use.
+	 * Guarded by this cache.
+	 */
+	private long mappedSize;
+
+	/**
+	 * Returns the read-only region of the channel file. The buffer of the returned region is
+	 * positioned at 0 and has the limit equal to the size of the region. It is not shared with
+	 * other callers, thus it can be consumed without any synchronization. The region must be closed
+	 * when it is not used any more, after that its buffer must not be accessed.
+	 *
+	 * @param channelPath
+	 *            Path to the channel file.
+	 * @param position
+	 *            Position of the region in the file.
+	 * @param size
+	 *            Size of the region.
+	 * @return {@link MappedRegion} holding the region or <code>null</code> if the file can not be
+	 *         mapped because it is too big, the file does not have the complete region or the
+	 *         mappings can not be unmapped with the running JVM.
+	 * @throws IOException
+	 *             If the file can not be mapped.
+	 */
+	public synchronized MappedRegion getRegion(Path channelPath, long position, long size) throws IOException {
+		long end = position + size;
+		if ((position < 0) || (size < 0) || (end > Integer.MAX_VALUE) || (end > maxMappedSize) || !isUnmapSupported()) {
+			return null;
+		}
+
+		MappedFile mappedFile = mappedFiles.get(channelPath);
+		if ((null == mappedFile) || (mappedFile.buffer.capacity() < end)) {
+			mappedFile = map(channelPath, end);
+			if (null == mappedFile) {
+				return null;
+			}
+		}
+
+		ByteBuffer region = mappedFile.buffer.duplicate();
+		region.position((int) position);
+		region.limit((int) end);
+		mappedFile.users++;
+		return new MappedRegion(mappedFile, region.slice());
+	}
+
+	/**
+	 * Maps the channel file. The existing smaller mapping of the file and the least recently used
+	 * mappings exceeding the {@link #maxMappedSize} are released.
+	 *
+	 * @param channelPath
+	 *            Path to the channel file.
+	 * @param minimumSize
+	 *            Minimum size the mapping must have.
+	 * @return Mapping or <code>null</code> if file is too big or smaller than the needed size.
+	 * @throws IOException
+	 *             If the file can not be mapped.
+	 */
+	private MappedFile map(Path channelPath, long minimumSize) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel fileChannel = FileChannel.open(channelPath, StandardOpenOption.READ)) {
+			long fileSize = fileChannel.size();
+			if ((fileSize < minimumSize) || (fileSize > Integer.MAX_VALUE) || (fileSize > maxMappedSize)) {
+				if (log.isDebugEnabled()) {
+					log.debug("Channel file " + channelPath + " with size " + fileSize + " can not be mapped for the region ending at " + minimumSize + ".");
+				}
+				return null;
+			}
+
+			MappedFile existing = mappedFiles.remove(channelPath);
+			if (null != existing) {
+				releaseMapping(existing);
+			}
+			for (Iterator<MappedFile> it = mappedFiles.values().iterator(); it.hasNext() && ((mappedSize + fileSize) > maxMappedSize);) {
+				MappedFile eldest = it.next();
+				it.remove();
+				releaseMapping(eldest);
+			}
+
+			buffer = fileChannel.map(MapMode.READ_ONLY, 0, fileSize);
+		}
+
+		MappedFile mappedFile = new MappedFile(buffer);
+		mappedFiles.put(channelPath, mappedFile);
+		mappedSize += buffer.capacity();
+		return mappedFile;
+	}
+
+	/**
+	 * Releases all mappings of the files that are located in the given directory or any of its
+	 * sub-directories. Mappings are unmapped immediately or when the last region using them is
+	 * closed.
+	 *
+	 * @param directory
+	 *            Directory, usually the storage directory.
+	 */
+	public synchronized void release(Path directory) {
+		Path normalized = directory.toAbsolutePath().normalize();
+		for (Iterator<Map.Entry<Path, MappedFile>> it = mappedFiles.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Path, MappedFile> entry = it.next();
+			if (entry.getKey().toAbsolutePath().normalize().startsWith(normalized)) {
+				it.remove();
+				releaseMapping(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Releases all mappings.
+	 */
+	public synchronized void releaseAll() {
+		for (MappedFile mappedFile : mappedFiles.values()) {
+			releaseMapping(mappedFile);
+		}
+		mappedFiles.clear();
+	}
+
+	/**
+	 * Returns if the file is currently mapped.
+	 *
+	 * @param channelPath
+	 *            Path to the channel file.
+	 * @return Returns if the file is currently mapped.
+	 */
+	public synchronized boolean isMapped(Path channelPath) {
+		return mappedFiles.containsKey(channelPath);
+	}
+
+	/**
+	 * Returns the size of all mappings that are not unmapped yet, including the released mappings
+	 * still used by the not closed regions.
+	 *
+	 * @return Returns the size of all mappings that are not unmapped yet.
+	 */
+	public synchronized long getMappedSize() {
+		return mappedSize;
+	}
+
+	/**
+	 * Marks the mapping as released and unmaps it if it is not used.
+	 *
+	 * @param mappedFile
+	 *            Mapping to release.
+	 */
+	private void releaseMapping(MappedFile mappedFile) {
+		mappedFile.released = true;
+		if (0 == mappedFile.users) {
+			unmap(mappedFile);
+		}
+	}
+
+	/**
+	 * Closes the region of the mapping and unmaps the released mapping if no region uses it any
+	 * more.
+	 *
+	 * @param mappedFile
+	 *            Mapping of the closed region.
+	 */
+	private synchronized void closeRegion(MappedFile mappedFile) {
+		mappedFile.users--;
+		if (mappedFile.released && (0 == mappedFile.users)) {
+			unmap(mappedFile);
+		}
+	}
+
+	/**
+	 * Unmaps the mapping.
+	 *
+	 * @param mappedFile
+	 *            Mapping to unmap.
+	 */
+	private void unmap(MappedFile mappedFile) {
+		mappedSize -= mappedFile.buffer.capacity();
+		MappedByteBufferUtils.unmap(mappedFile.buffer);
+	}
+
+	/**
+	 * Returns if the mappings can be explicitly unmapped with the running JVM.
+	 *
+	 * @return Returns if the mappings can be explicitly unmapped with the running JVM.
+	 */
+	static boolean isUnmapSupported() {
+		return MappedByteBufferUtils.isUnmapSupported();
+	}
+
+	/**
+	 * Sets {@link #maxMappedSize}.
+	 *
+	 * @param maxMappedSize
+	 *            New value for {@link #maxMappedSize}
+	 */
+	public void setMaxMappedSize(long maxMappedSize) {
+		this.maxMappedSize = maxMappedSize;
+	}
+
+	/**
+	 * Mapping of one channel file together with the amount of regions using it.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private static class MappedFile {
+
+		/**
+		 * Mapped buffer.
+		 */
+		private final MappedByteBuffer buffer;
+
+		/**
+		 * Amount of not closed regions of the mapping.
+		 */
+		private int users;
+
+		/**
+		 * If the mapping was released from the cache.
+		 */
+		private boolean released;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param buffer
+		 *            Mapped buffer.
+		 */
+		MappedFile(MappedByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * Region of a mapped channel file. The mapping can not be unmapped while the region is not
+	 * closed.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	public final class MappedRegion implements Closeable {
+
+		/**
+		 * Mapping the region belongs to.
+		 */
+		private final MappedFile mappedFile;
+
+		/**
+		 * Buffer holding the region.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * If the region is closed.
+		 */
+		private boolean closed;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param mappedFile
+		 *            Mapping the region belongs to.
+		 * @param buffer
+		 *            Buffer holding the region.
+		 */
+		MappedRegion(MappedFile mappedFile, ByteBuffer buffer) {
+			this.mappedFile = mappedFile;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Gets {@link #buffer}.
+		 *
+		 * @return {@link #buffer}
+		 */
+		public ByteBuffer getBuffer() {
+			return this.buffer;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * Closing the region more than once has no effect.
+		 */
+		@Override
+		public void close() {
+			synchronized (MappedChannelFileCache.this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				closeRegion(mappedFile);
+			}
+		}
+	}
+}
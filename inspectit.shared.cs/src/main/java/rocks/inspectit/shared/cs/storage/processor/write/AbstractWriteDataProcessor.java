@@ -72,6 +72,24 @@ public abstract class AbstractWriteDataProcessor {
 	public void onPrepare(StorageManager storageManager, StorageWriter storageWriter, StorageData storageData) throws Exception {
 	}
 
+	/**
+	 * Called when the storage writer is closed, before the pending writes are awaited and the
+	 * storage is finalized. Processors can still write data to the storage writer at this point.
+	 * <p>
+	 * Subclasses may override.
+	 *
+	 * @param storageManager
+	 *            Storage manager to help in performing tasks.
+	 * @param storageWriter
+	 *            writer that is being closed
+	 * @param storageData
+	 *            {@link StorageData} that represents storage to be finalized.
+	 * @throws Exception
+	 *             If any exception occurs.
+	 */
+	public void beforeFinalization(StorageManager storageManager, StorageWriter storageWriter, StorageData storageData) throws Exception {
+	}
+
 	/**
 	 * Called on the finalization of the storage.
 	 * <p>
@@ -0,0 +1,228 @@
+package rocks.inspectit.shared.cs.storage.processor.write.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.IIdsAwareAggregatedData;
+import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.StorageWriter;
+import rocks.inspectit.shared.cs.storage.processor.write.AbstractWriteDataProcessor;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
+
+/**
+ * Processor that creates the rollup tiers of the storage. For each configured period the data is
+ * aggregated in the buckets of the period length and the buckets are written to the rollup tier
+ * once no more data is expected for them. Data classes that are rolled up are defined in the
+ * {@link StorageRollupUtil}.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class RollupTierDataProcessor extends AbstractWriteDataProcessor {
+
+	/**
+	 * Default max amount of open buckets in one tier.
+	 */
+	public static final int DEFAULT_MAX_OPEN_BUCKETS = 10000;
+
+	/**
+	 * The log of this class.
+	 */
+	private static final Logger LOG = LoggerFactory.getLogger(RollupTierDataProcessor.class);
+
+	/**
+	 * Tiers to create.
+	 */
+	private final List<RollupTier> tiers;
+
+	/**
+	 * Max amount of open buckets in one tier, when reached the oldest buckets are written.
+	 */
+	private final int maxOpenBuckets;
+
+	/**
+	 * Writer to write the rollups with.
+	 */
+	private volatile StorageWriter storageWriter;
+
+	/**
+	 * Creates the processor with {@link #DEFAULT_MAX_OPEN_BUCKETS}.
+	 *
+	 * @param periods
+	 *            Periods of the tiers in milliseconds.
+	 */
+	public RollupTierDataProcessor(long[] periods) {
+		this(periods, DEFAULT_MAX_OPEN_BUCKETS);
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param periods
+	 *            Periods of the tiers in milliseconds. Non-positive periods are ignored.
+	 * @param maxOpenBuckets
+	 *            Max amount of open buckets in one tier.
+	 */
+	public RollupTierDataProcessor(long[] periods, int maxOpenBuckets) {
+		this.maxOpenBuckets = maxOpenBuckets;
+		this.tiers = new ArrayList<>(periods.length);
+		for (long period : periods) {
+			if (period > StorageRollupUtil.NO_ROLLUP) {
+				tiers.add(new RollupTier(period));
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processData(DefaultData defaultData, Map<?, ?> kryoPreferences) {
+		for (RollupTier tier : tiers) {
+			tier.process(defaultData);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canBeProcessed(DefaultData defaultData) {
+		return (null != defaultData) && (null != defaultData.getTimeStamp()) && (null != StorageRollupUtil.getAggregator(defaultData.getClass()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onPrepare(StorageManager storageManager, StorageWriter storageWriter, StorageData storageData) throws Exception {
+		this.storageWriter = storageWriter;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Writes all open buckets.
+	 */
+	@Override
+	public void beforeFinalization(StorageManager storageManager, StorageWriter storageWriter, StorageData storageData) throws Exception {
+		for (RollupTier tier : tiers) {
+			tier.flush();
+		}
+	}
+
+	/**
+	 * Writes one bucket to the tier.
+	 *
+	 * @param rollup
+	 *            Aggregated data of the bucket.
+	 * @param period
+	 *            Tier period.
+	 */
+	private void write(DefaultData rollup, long period) {
+		// ids of the raw data are not needed in the tier
+		if (rollup instanceof IIdsAwareAggregatedData) {
+			((IIdsAwareAggregatedData<?>) rollup).clearAggregatedIds();
+		}
+
+		StorageWriter writer = storageWriter;
+		if (null == writer) {
+			LOG.warn("Rollup of the period " + period + " can not be written because the processor is not prepared.");
+			return;
+		}
+		writer.writeRollup(rollup, period);
+	}
+
+	/**
+	 * One rollup tier holding the open buckets.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private class RollupTier {
+
+		/**
+		 * Tier period.
+		 */
+		private final long period;
+
+		/**
+		 * Open buckets in the order of creation.
+		 */
+		private final Map<List<Object>, IAggregatedData<DefaultData>> openBuckets = new LinkedHashMap<>();
+
+		/**
+		 * Newest time stamp of the processed data.
+		 */
+		private long newestTime;
+
+		/**
+		 * @param period
+		 *            Tier period.
+		 */
+		RollupTier(long period) {
+			this.period = period;
+		}
+
+		/**
+		 * Aggregates the data to the bucket it belongs to and writes the closed buckets.
+		 *
+		 * @param defaultData
+		 *            Data to process.
+		 */
+		synchronized void process(DefaultData defaultData) {
+			IAggregator<DefaultData> aggregator = StorageRollupUtil.getAggregator(defaultData.getClass());
+			long time = defaultData.getTimeStamp().getTime();
+			long bucketStart = StorageRollupUtil.getPeriodStart(time, period);
+			List<Object> key = StorageRollupUtil.getBucketKey(defaultData, aggregator, bucketStart);
+
+			IAggregatedData<DefaultData> bucket = openBuckets.get(key);
+			if (null == bucket) {
+				bucket = StorageRollupUtil.createBucket(defaultData, aggregator, bucketStart);
+				openBuckets.put(key, bucket);
+			}
+			aggregator.aggregate(bucket, defaultData);
+
+			newestTime = Math.max(newestTime, time);
+			writeClosedBuckets();
+		}
+
+		/**
+		 * Writes the buckets from the oldest on as long as they are closed. Bucket is closed when
+		 * data newer than the period after the bucket has been processed or when there are too many
+		 * open buckets.
+		 */
+		private void writeClosedBuckets() {
+			Iterator<IAggregatedData<DefaultData>> iterator = openBuckets.values().iterator();
+			while (iterator.hasNext()) {
+				DefaultData rollup = iterator.next().getData();
+				if ((openBuckets.size() > maxOpenBuckets) || ((rollup.getTimeStamp().getTime() + (2 * period)) <= newestTime)) {
+					iterator.remove();
+					write(rollup, period);
+				} else {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Writes all open buckets.
+		 */
+		synchronized void flush() {
+			for (IAggregatedData<DefaultData> bucket : openBuckets.values()) {
+				write(bucket.getData(), period);
+			}
+			openBuckets.clear();
+		}
+	}
+}
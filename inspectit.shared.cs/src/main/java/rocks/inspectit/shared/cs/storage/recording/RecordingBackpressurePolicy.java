@@ -0,0 +1,27 @@
+package rocks.inspectit.shared.cs.storage.recording;
+
+/**
+ * Defines what happens with the recorded data when the recording queue is full, thus when the
+ * storage writing can not keep up with the amount of data to record.
+ *
+ * @author Ivan Senic
+ */
+public enum RecordingBackpressurePolicy {
+
+	/**
+	 * Thread recording the data waits until there is space in the queue. No data is lost, but the
+	 * processing of the incoming data on the CMR is slowed down.
+	 */
+	BLOCK,
+
+	/**
+	 * When queue gets filled only every n-th object is recorded, where n grows with the queue
+	 * occupancy. Data is lost evenly over the time.
+	 */
+	SAMPLE,
+
+	/**
+	 * Oldest queued data is removed to make space for the new data.
+	 */
+	DROP_OLDEST;
+}
@@ -52,6 +52,11 @@ public class RecordingProperties implements Serializable {
 	 */
 	private boolean autoFinalize;
 
+	/**
+	 * Policy to use when the recording queue is full. If not set the CMR default policy is used.
+	 */
+	private RecordingBackpressurePolicy backpressurePolicy;
+
 	/**
 	 * Gets {@link #recordStartDate}.
 	 *
@@ -166,6 +171,25 @@ public class RecordingProperties implements Serializable {
 		this.autoFinalize = autoFinalize;
 	}
 
+	/**
+	 * Gets {@link #backpressurePolicy}.
+	 *
+	 * @return {@link #backpressurePolicy}
+	 */
+	public RecordingBackpressurePolicy getBackpressurePolicy() {
+		return backpressurePolicy;
+	}
+
+	/**
+	 * Sets {@link #backpressurePolicy}.
+	 *
+	 * @param backpressurePolicy
+	 *            New value for {@link #backpressurePolicy}
+	 */
+	public void setBackpressurePolicy(RecordingBackpressurePolicy backpressurePolicy) {
+		this.backpressurePolicy = backpressurePolicy;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -177,6 +201,7 @@ public class RecordingProperties implements Serializable {
 		toStringBuilder.append("recordingDataProcessors", recordingDataProcessors);
 		toStringBuilder.append("startDelay", startDelay);
 		toStringBuilder.append("autoFinalize", autoFinalize);
+		toStringBuilder.append("backpressurePolicy", backpressurePolicy);
 		return toStringBuilder.toString();
 	}
 
@@ -128,12 +128,20 @@ import rocks.inspectit.shared.cs.communication.comparator.SqlStatementDataCompar
 import rocks.inspectit.shared.cs.communication.comparator.TimerDataComparatorEnum;
 import rocks.inspectit.shared.cs.communication.data.cmr.Alert;
 import rocks.inspectit.shared.cs.communication.data.cmr.AlertClosingReason;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportRequest;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportResult;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus;
+import rocks.inspectit.shared.cs.communication.data.cmr.ColumnarExportStatus.ExportState;
 import rocks.inspectit.shared.cs.communication.data.cmr.RecordingData;
+import rocks.inspectit.shared.cs.communication.data.cmr.RecordingStatistics;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus;
+import rocks.inspectit.shared.cs.communication.data.cmr.StorageCompactionStatus.CompactionState;
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
 import rocks.inspectit.shared.cs.indexing.aggregation.impl.ExceptionDataAggregator;
 import rocks.inspectit.shared.cs.indexing.aggregation.impl.HttpTimerDataAggregator;
 import rocks.inspectit.shared.cs.indexing.aggregation.impl.SqlStatementDataAggregator;
 import rocks.inspectit.shared.cs.indexing.aggregation.impl.TimerDataAggregator;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.InvocationChildrenIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.MethodIdentIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.ObjectTypeIndexer;
@@ -149,6 +157,7 @@ import rocks.inspectit.shared.cs.indexing.storage.impl.StorageBranchIndexer;
 import rocks.inspectit.shared.cs.storage.LocalStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageData.StorageState;
+import rocks.inspectit.shared.cs.storage.export.ColumnarDataType;
 import rocks.inspectit.shared.cs.storage.label.BooleanStorageLabel;
 import rocks.inspectit.shared.cs.storage.label.DateStorageLabel;
 import rocks.inspectit.shared.cs.storage.label.NumberStorageLabel;
@@ -174,6 +183,7 @@ import rocks.inspectit.shared.cs.storage.processor.impl.InvocationClonerDataProc
 import rocks.inspectit.shared.cs.storage.processor.impl.InvocationExtractorDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.impl.TimeFrameDataProcessor;
 import rocks.inspectit.shared.cs.storage.recording.RecordingProperties;
+import rocks.inspectit.shared.cs.storage.recording.RecordingBackpressurePolicy;
 import rocks.inspectit.shared.cs.storage.recording.RecordingState;
 import rocks.inspectit.shared.cs.storage.serializer.impl.ServerStatusSerializer;
 import rocks.inspectit.shared.cs.tracing.comparator.SpanComparator;
@@ -460,6 +470,24 @@ public class SerializationManagerPostProcessor implements BeanPostProcessor {
 		// INSPECTIT-2458
 		kryo.register(RemoteAsyncApacheHttpClientSensorConfig.class, new FieldSerializer<>(kryo, RemoteAsyncApacheHttpClientSensorConfig.class), nextRegistrationId++);
 		kryo.register(ApacheClientExchangeHandlerSensorConfig.class, new FieldSerializer<>(kryo, ApacheClientExchangeHandlerSensorConfig.class), nextRegistrationId++);
+
+		// paged query results
+		kryo.register(QueryResultPage.class, new FieldSerializer<>(kryo, QueryResultPage.class), nextRegistrationId++);
+
+		// storage compaction
+		kryo.register(StorageCompactionStatus.class, new FieldSerializer<>(kryo, StorageCompactionStatus.class), nextRegistrationId++);
+		kryo.register(CompactionState.class, new EnumSerializer(CompactionState.class), nextRegistrationId++);
+
+		// recording backpressure
+		kryo.register(RecordingBackpressurePolicy.class, new EnumSerializer(RecordingBackpressurePolicy.class), nextRegistrationId++);
+		kryo.register(RecordingStatistics.class, new FieldSerializer<>(kryo, RecordingStatistics.class), nextRegistrationId++);
+
+		// columnar export
+		kryo.register(ColumnarDataType.class, new EnumSerializer(ColumnarDataType.class), nextRegistrationId++);
+		kryo.register(ColumnarExportRequest.class, new FieldSerializer<>(kryo, ColumnarExportRequest.class), nextRegistrationId++);
+		kryo.register(ColumnarExportResult.class, new FieldSerializer<>(kryo, ColumnarExportResult.class), nextRegistrationId++);
+		kryo.register(ColumnarExportStatus.class, new FieldSerializer<>(kryo, ColumnarExportStatus.class), nextRegistrationId++);
+		kryo.register(ExportState.class, new EnumSerializer(ExportState.class), nextRegistrationId++);
 	}
 
 }
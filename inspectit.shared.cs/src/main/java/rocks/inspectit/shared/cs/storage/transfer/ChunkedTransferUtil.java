@@ -0,0 +1,283 @@
+package rocks.inspectit.shared.cs.storage.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Utility and protocol constants for the chunked transfer of the storage files between the UI and
+ * the CMR. A file is split into the chunks of the fixed size, where each chunk is transfered with a
+ * separate HTTP request and verified with its CRC32 checksum. Chunks can be transfered in parallel
+ * and in any order, and already transfered chunks don't have to be transfered again when the
+ * transfer is resumed (see {@link TransferState}).
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class ChunkedTransferUtil {
+
+	/**
+	 * Default chunk size (8MB).
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Header holding the relative path of the file being transfered.
+	 */
+	public static final String HEADER_FILE = "X-Transfer-File";
+
+	/**
+	 * Header holding the complete size of the file being transfered.
+	 */
+	public static final String HEADER_FILE_SIZE = "X-Transfer-File-Size";
+
+	/**
+	 * Header holding the chunk size used in the transfer.
+	 */
+	public static final String HEADER_CHUNK_SIZE = "X-Transfer-Chunk-Size";
+
+	/**
+	 * Header holding the index of the chunk transfered.
+	 */
+	public static final String HEADER_CHUNK_INDEX = "X-Transfer-Chunk-Index";
+
+	/**
+	 * Header holding the CRC32 checksum of the (uncompressed) chunk content.
+	 */
+	public static final String HEADER_CHUNK_CHECKSUM = "X-Transfer-Chunk-Checksum";
+
+	/**
+	 * Request parameter for the file to download a chunk from.
+	 */
+	public static final String PARAM_FILE = "file";
+
+	/**
+	 * Request parameter for the offset of the chunk to download.
+	 */
+	public static final String PARAM_OFFSET = "offset";
+
+	/**
+	 * Request parameter for the length of the chunk to download.
+	 */
+	public static final String PARAM_LENGTH = "length";
+
+	/**
+	 * Extension added to the file while its chunks are being transfered.
+	 */
+	public static final String PART_EXTENSION = ".part";
+
+	/**
+	 * Extension of the file holding the {@link TransferState}.
+	 */
+	public static final String STATE_EXTENSION = ".transfer";
+
+	/**
+	 * Separator of the chunk indexes in the transfer status.
+	 */
+	private static final char CHUNK_SEPARATOR = ',';
+
+	/**
+	 * Private constructor.
+	 */
+	private ChunkedTransferUtil() {
+	}
+
+	/**
+	 * Returns the amount of chunks the file of the given size is split into. Empty file has one
+	 * empty chunk, so that its transfer is also tracked.
+	 *
+	 * @param fileSize
+	 *            Size of the file.
+	 * @param chunkSize
+	 *            Chunk size.
+	 * @return Amount of chunks.
+	 */
+	public static int getChunkCount(long fileSize, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive.");
+		}
+		if (fileSize <= 0) {
+			return 1;
+		}
+		return (int) (((fileSize - 1) / chunkSize) + 1);
+	}
+
+	/**
+	 * Returns the position of the chunk in the file.
+	 *
+	 * @param chunkSize
+	 *            Chunk size.
+	 * @param index
+	 *            Chunk index.
+	 * @return Position of the first byte of the chunk.
+	 */
+	public static long getChunkOffset(int chunkSize, int index) {
+		return (long) index * chunkSize;
+	}
+
+	/**
+	 * Returns the length of the chunk. All chunks except the last one have the length equal to
+	 * the chunk size.
+	 *
+	 * @param fileSize
+	 *            Size of the file.
+	 * @param chunkSize
+	 *            Chunk size.
+	 * @param index
+	 *            Chunk index.
+	 * @return Length of the chunk.
+	 */
+	public static int getChunkLength(long fileSize, int chunkSize, int index) {
+		long offset = getChunkOffset(chunkSize, index);
+		return (int) Math.max(0, Math.min(chunkSize, fileSize - offset));
+	}
+
+	/**
+	 * Calculates the CRC32 checksum of the bytes.
+	 *
+	 * @param bytes
+	 *            Bytes.
+	 * @param offset
+	 *            Offset in the array.
+	 * @param length
+	 *            Amount of bytes.
+	 * @return Checksum.
+	 */
+	public static long checksum(byte[] bytes, int offset, int length) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(bytes, offset, length);
+		return crc32.getValue();
+	}
+
+	/**
+	 * Reads exactly the given amount of bytes of the chunk from the stream.
+	 *
+	 * @param inputStream
+	 *            Stream to read from.
+	 * @param length
+	 *            Expected chunk length.
+	 * @return Chunk bytes.
+	 * @throws IOException
+	 *             If stream can not be read or it does not hold exactly the given amount of bytes.
+	 */
+	public static byte[] readChunk(InputStream inputStream, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		int read = 0;
+		while (read < length) {
+			int count = inputStream.read(bytes, read, length - read);
+			if (count < 0) {
+				throw new IOException("Chunk is shorter than expected, received " + read + " bytes out of " + length + ".");
+			}
+			read += count;
+		}
+		if (inputStream.read() >= 0) {
+			throw new IOException("Chunk is longer than expected " + length + " bytes.");
+		}
+		return bytes;
+	}
+
+	/**
+	 * Reads the chunk from the file.
+	 *
+	 * @param file
+	 *            File.
+	 * @param offset
+	 *            Position of the chunk.
+	 * @param length
+	 *            Length of the chunk.
+	 * @return Chunk bytes.
+	 * @throws IOException
+	 *             If file can not be read or is shorter than expected.
+	 */
+	public static byte[] readChunk(Path file, long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (buffer.hasRemaining()) {
+				if (fileChannel.read(buffer, offset + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of file " + file + " at the position " + (offset + buffer.position()) + ".");
+				}
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Writes the chunk to its position in the file. File is created if it does not exist. Several
+	 * chunks of the same file can be written in parallel.
+	 *
+	 * @param file
+	 *            File.
+	 * @param offset
+	 *            Position of the chunk.
+	 * @param bytes
+	 *            Chunk bytes.
+	 * @throws IOException
+	 *             If writing fails.
+	 */
+	public static void writeChunk(Path file, long offset, byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				fileChannel.write(buffer, offset + buffer.position());
+			}
+		}
+	}
+
+	/**
+	 * Returns the path of the file that holds the content while it's being transfered.
+	 *
+	 * @param file
+	 *            Target file.
+	 * @return Path of the part file.
+	 */
+	public static Path getPartFile(Path file) {
+		return file.resolveSibling(file.getFileName() + PART_EXTENSION);
+	}
+
+	/**
+	 * Returns the path of the file that holds the {@link TransferState}.
+	 *
+	 * @param file
+	 *            Target file.
+	 * @return Path of the state file.
+	 */
+	public static Path getStateFile(Path file) {
+		return file.resolveSibling(file.getFileName() + STATE_EXTENSION);
+	}
+
+	/**
+	 * Formats the chunk indexes for the transfer status.
+	 *
+	 * @param chunks
+	 *            Chunk indexes.
+	 * @return Indexes separated with comma.
+	 */
+	public static String formatChunks(List<Integer> chunks) {
+		return StringUtils.join(chunks, CHUNK_SEPARATOR);
+	}
+
+	/**
+	 * Parses the chunk indexes of the transfer status.
+	 *
+	 * @param chunks
+	 *            Indexes separated with comma, can be <code>null</code> or empty.
+	 * @return Chunk indexes.
+	 */
+	public static List<Integer> parseChunks(String chunks) {
+		List<Integer> result = new ArrayList<>();
+		if (StringUtils.isNotBlank(chunks)) {
+			for (String chunk : StringUtils.split(chunks.trim(), CHUNK_SEPARATOR)) {
+				result.add(Integer.valueOf(chunk.trim()));
+			}
+		}
+		return result;
+	}
+}
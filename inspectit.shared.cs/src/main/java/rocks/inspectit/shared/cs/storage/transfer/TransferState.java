@@ -0,0 +1,244 @@
+package rocks.inspectit.shared.cs.storage.transfer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Persistent state of one chunked file transfer. Holds the chunks that are already transfered and
+ * saves them to the state file after each completed chunk, so that the interrupted transfer can be
+ * resumed with the missing chunks only.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class TransferState {
+
+	/**
+	 * Version of the state file format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * File where state is saved.
+	 */
+	private final Path stateFile;
+
+	/**
+	 * Size of the transfered file.
+	 */
+	private final long fileSize;
+
+	/**
+	 * Chunk size.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * Amount of chunks.
+	 */
+	private final int chunkCount;
+
+	/**
+	 * Completed chunks.
+	 */
+	private final BitSet completedChunks;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param stateFile
+	 *            File where state is saved.
+	 * @param fileSize
+	 *            Size of the transfered file.
+	 * @param chunkSize
+	 *            Chunk size.
+	 * @param completedChunks
+	 *            Completed chunks.
+	 */
+	private TransferState(Path stateFile, long fileSize, int chunkSize, BitSet completedChunks) {
+		this.stateFile = stateFile;
+		this.fileSize = fileSize;
+		this.chunkSize = chunkSize;
+		this.chunkCount = ChunkedTransferUtil.getChunkCount(fileSize, chunkSize);
+		this.completedChunks = completedChunks;
+	}
+
+	/**
+	 * Opens the transfer state. If the state file exists and describes the transfer of the file
+	 * with the same size and chunk size, the completed chunks are loaded from it. Otherwise a new
+	 * state with no completed chunks is returned.
+	 *
+	 * @param stateFile
+	 *            File where state is saved.
+	 * @param fileSize
+	 *            Size of the transfered file.
+	 * @param chunkSize
+	 *            Chunk size.
+	 * @return {@link TransferState}.
+	 */
+	public static TransferState open(Path stateFile, long fileSize, int chunkSize) {
+		BitSet completedChunks = null;
+		if (Files.exists(stateFile)) {
+			completedChunks = load(stateFile, fileSize, chunkSize);
+		}
+		if (null == completedChunks) {
+			completedChunks = new BitSet();
+		}
+		return new TransferState(stateFile, fileSize, chunkSize, completedChunks);
+	}
+
+	/**
+	 * Marks the chunk as completed and saves the state.
+	 *
+	 * @param index
+	 *            Chunk index.
+	 * @throws IOException
+	 *             If state can not be saved.
+	 */
+	public synchronized void markCompleted(int index) throws IOException {
+		if ((index < 0) || (index >= chunkCount)) {
+			throw new IllegalArgumentException("Chunk index " + index + " is out of bounds, file has " + chunkCount + " chunks.");
+		}
+		completedChunks.set(index);
+		save();
+	}
+
+	/**
+	 * Returns if the chunk is completed.
+	 *
+	 * @param index
+	 *            Chunk index.
+	 * @return <code>true</code> if chunk was already transfered.
+	 */
+	public synchronized boolean isCompleted(int index) {
+		return completedChunks.get(index);
+	}
+
+	/**
+	 * Returns if all chunks are completed.
+	 *
+	 * @return <code>true</code> if all chunks were transfered.
+	 */
+	public synchronized boolean isComplete() {
+		return completedChunks.cardinality() == chunkCount;
+	}
+
+	/**
+	 * Returns the indexes of the completed chunks.
+	 *
+	 * @return Indexes of the completed chunks.
+	 */
+	public synchronized List<Integer> getCompletedChunks() {
+		List<Integer> result = new ArrayList<>(completedChunks.cardinality());
+		for (int i = completedChunks.nextSetBit(0); i >= 0; i = completedChunks.nextSetBit(i + 1)) {
+			result.add(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the indexes of the chunks that still have to be transfered.
+	 *
+	 * @return Indexes of the missing chunks.
+	 */
+	public synchronized List<Integer> getMissingChunks() {
+		List<Integer> result = new ArrayList<>(chunkCount - completedChunks.cardinality());
+		for (int i = completedChunks.nextClearBit(0); i < chunkCount; i = completedChunks.nextClearBit(i + 1)) {
+			result.add(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the state file.
+	 *
+	 * @throws IOException
+	 *             If file can not be deleted.
+	 */
+	public void delete() throws IOException {
+		Files.deleteIfExists(stateFile);
+	}
+
+	/**
+	 * Saves the state to the temporary file that then replaces the state file, so that the state
+	 * file is never left half written.
+	 *
+	 * @throws IOException
+	 *             If state can not be saved.
+	 */
+	private void save() throws IOException {
+		Path tmpFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+		try (DataOutputStream dataOutputStream = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+			dataOutputStream.writeInt(VERSION);
+			dataOutputStream.writeLong(fileSize);
+			dataOutputStream.writeInt(chunkSize);
+			long[] words = completedChunks.toLongArray();
+			dataOutputStream.writeInt(words.length);
+			for (long word : words) {
+				dataOutputStream.writeLong(word);
+			}
+		}
+		Files.move(tmpFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads the completed chunks from the state file.
+	 *
+	 * @param stateFile
+	 *            File where state is saved.
+	 * @param fileSize
+	 *            Expected size of the transfered file.
+	 * @param chunkSize
+	 *            Expected chunk size.
+	 * @return Completed chunks or <code>null</code> if the file can not be read or describes a
+	 *         different transfer.
+	 */
+	private static BitSet load(Path stateFile, long fileSize, int chunkSize) {
+		try (DataInputStream dataInputStream = new DataInputStream(Files.newInputStream(stateFile))) {
+			if ((dataInputStream.readInt() != VERSION) || (dataInputStream.readLong() != fileSize) || (dataInputStream.readInt() != chunkSize)) {
+				return null;
+			}
+			long[] words = new long[dataInputStream.readInt()];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = dataInputStream.readLong();
+			}
+			return BitSet.valueOf(words);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets {@link #fileSize}.
+	 *
+	 * @return {@link #fileSize}
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Gets {@link #chunkSize}.
+	 *
+	 * @return {@link #chunkSize}
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Gets {@link #chunkCount}.
+	 *
+	 * @return {@link #chunkCount}
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+}
@@ -0,0 +1,341 @@
+package rocks.inspectit.shared.cs.storage.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.esotericsoftware.kryo.io.Input;
+
+import rocks.inspectit.shared.all.serializer.ISerializer;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.util.KryoUtil;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.storage.StorageFormatVersion;
+
+/**
+ * Utility for writing and reading the data files of the storages that are in the
+ * {@link StorageFormatVersion#COMPRESSED_BLOCKS} format.
+ * <p>
+ * Every block is written to the data file as one frame that consists of the compressed length
+ * (int), de-compressed length (int) and the compressed bytes. The de-compressed block starts with
+ * the directory holding the amount of objects (int), the ids of the objects (long each) and the
+ * offsets of the objects (int each, relative to the end of the directory), followed by the
+ * serialized objects. Descriptors of the objects point to the frame with position and size and
+ * carry the id of the object, thus all objects written in one block can share the same position
+ * and size in the indexing tree. Descriptors without the element id describe one or more complete
+ * frames.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class StorageBlockUtil {
+
+	/**
+	 * Size of the de-compressed block after which the block is closed and written (128KB).
+	 */
+	public static final int BLOCK_SIZE = 131072;
+
+	/**
+	 * Size of the frame header in bytes.
+	 */
+	public static final int FRAME_HEADER_SIZE = 8;
+
+	/**
+	 * Size of the block directory header (amount of objects) in bytes.
+	 */
+	public static final int DIRECTORY_HEADER_SIZE = 4;
+
+	/**
+	 * Size of the block directory entry (id and offset) in bytes.
+	 */
+	public static final int DIRECTORY_ENTRY_SIZE = 12;
+
+	/**
+	 * Size of the buffer used when reading the frames.
+	 */
+	private static final int FRAME_BUFFER_SIZE = 65536;
+
+	/**
+	 * Comparator that sorts descriptors by the position.
+	 */
+	private static final Comparator<IStorageDescriptor> POSITION_COMPARATOR = new Comparator<IStorageDescriptor>() {
+		@Override
+		public int compare(IStorageDescriptor o1, IStorageDescriptor o2) {
+			return Long.compare(o1.getPosition(), o2.getPosition());
+		}
+	};
+
+	/**
+	 * Private constructor.
+	 */
+	private StorageBlockUtil() {
+	}
+
+	/**
+	 * Compresses the directory of the objects and the given block bytes and returns the complete
+	 * frame to be written to the file.
+	 *
+	 * @param elementIds
+	 *            Ids of the objects in the block.
+	 * @param offsets
+	 *            Offsets of the objects in the block bytes.
+	 * @param count
+	 *            Amount of objects in the block.
+	 * @param bytes
+	 *            Block bytes.
+	 * @param length
+	 *            Amount of bytes in the block.
+	 * @return Frame ready to be written (position set to zero, limit to the frame size).
+	 */
+	public static ByteBuffer compress(long[] elementIds, int[] offsets, int count, byte[] bytes, int length) {
+		ByteBuffer directory = ByteBuffer.allocate(DIRECTORY_HEADER_SIZE + (count * DIRECTORY_ENTRY_SIZE));
+		directory.putInt(count);
+		for (int i = 0; i < count; i++) {
+			directory.putLong(elementIds[i]);
+		}
+		for (int i = 0; i < count; i++) {
+			directory.putInt(offsets[i]);
+		}
+		int blockLength = directory.capacity() + length;
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			byte[] frame = new byte[FRAME_HEADER_SIZE + blockLength + (blockLength >>> 4) + 64];
+			int compressedLength = 0;
+			deflater.setInput(directory.array());
+			while (!deflater.needsInput()) {
+				frame = ensureFrameSpace(frame, compressedLength);
+				compressedLength += deflater.deflate(frame, FRAME_HEADER_SIZE + compressedLength, frame.length - FRAME_HEADER_SIZE - compressedLength);
+			}
+			deflater.setInput(bytes, 0, length);
+			deflater.finish();
+			while (!deflater.finished()) {
+				frame = ensureFrameSpace(frame, compressedLength);
+				compressedLength += deflater.deflate(frame, FRAME_HEADER_SIZE + compressedLength, frame.length - FRAME_HEADER_SIZE - compressedLength);
+			}
+			ByteBuffer frameBuffer = ByteBuffer.wrap(frame, 0, FRAME_HEADER_SIZE + compressedLength);
+			frameBuffer.putInt(0, compressedLength);
+			frameBuffer.putInt(4, blockLength);
+			return frameBuffer;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Returns the frame array with space for more compressed bytes, enlarging it if it is full.
+	 *
+	 * @param frame
+	 *            Frame array.
+	 * @param compressedLength
+	 *            Amount of compressed bytes already in the frame.
+	 * @return Frame array to continue with.
+	 */
+	private static byte[] ensureFrameSpace(byte[] frame, int compressedLength) {
+		if ((FRAME_HEADER_SIZE + compressedLength) == frame.length) {
+			return Arrays.copyOf(frame, frame.length * 2);
+		}
+		return frame;
+	}
+
+	/**
+	 * Returns the ranges of one data file that need to be read in order to retrieve the data
+	 * described by the given descriptors. The ranges are sorted, do not contain duplicates and
+	 * adjacent ranges are joined.
+	 *
+	 * @param channelDescriptors
+	 *            Descriptors all pointing to the same data file.
+	 * @return Ranges to read.
+	 */
+	public static List<RangeDescriptor> getReadRanges(List<IStorageDescriptor> channelDescriptors) {
+		List<IStorageDescriptor> sorted = new ArrayList<>(channelDescriptors);
+		Collections.sort(sorted, POSITION_COMPARATOR);
+
+		List<RangeDescriptor> ranges = new ArrayList<>();
+		RangeDescriptor current = null;
+		for (IStorageDescriptor descriptor : sorted) {
+			long end = (descriptor.getPosition() + descriptor.getSize()) - 1;
+			if ((null != current) && (descriptor.getPosition() <= (current.getEnd() + 1))) {
+				current.setEnd(Math.max(current.getEnd(), end));
+			} else {
+				current = new RangeDescriptor(descriptor.getPosition(), end);
+				ranges.add(current);
+			}
+		}
+		return ranges;
+	}
+
+	/**
+	 * De-serializes the objects described by the given descriptors from the content of the read
+	 * ranges. The content must be the concatenation of the ranges returned by the
+	 * {@link #getReadRanges(List)} for the same descriptors.
+	 *
+	 * @param <E>
+	 *            Type of the objects.
+	 * @param channelDescriptors
+	 *            Descriptors all pointing to the same data file.
+	 * @param ranges
+	 *            Ranges that were read.
+	 * @param content
+	 *            Concatenated content of the ranges.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return De-serialized objects.
+	 * @throws IOException
+	 *             If content can not be read or is corrupted.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> List<E> deserialize(List<IStorageDescriptor> channelDescriptors, List<RangeDescriptor> ranges, InputStream content, ISerializer serializer)
+			throws IOException, SerializationException {
+		// ids of the objects to read per block, other descriptors describe complete frames
+		Map<Long, Set<Long>> blockElementIds = new HashMap<>();
+		List<IStorageDescriptor> frameDescriptors = new ArrayList<>();
+		for (IStorageDescriptor descriptor : channelDescriptors) {
+			if (0 != descriptor.getElementId()) {
+				Long key = Long.valueOf(descriptor.getPosition());
+				Set<Long> elementIds = blockElementIds.get(key);
+				if (null == elementIds) {
+					elementIds = new HashSet<>();
+					blockElementIds.put(key, elementIds);
+				}
+				elementIds.add(Long.valueOf(descriptor.getElementId()));
+			} else {
+				frameDescriptors.add(descriptor);
+			}
+		}
+
+		List<E> result = new ArrayList<>(channelDescriptors.size());
+		// buffered so that frame headers are not read byte by byte from the underlying stream
+		DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(content, FRAME_BUFFER_SIZE));
+		Inflater inflater = new Inflater();
+		try {
+			byte[] compressed = new byte[0];
+			byte[] block = new byte[0];
+			for (RangeDescriptor range : ranges) {
+				long position = range.getStart();
+				while (position <= range.getEnd()) {
+					int compressedLength = dataInputStream.readInt();
+					int length = dataInputStream.readInt();
+					if ((compressedLength < 0) || (length < 0)) {
+						throw new IOException("Corrupted block frame at position " + position + ".");
+					}
+					if (compressed.length < compressedLength) {
+						compressed = new byte[compressedLength];
+					}
+					dataInputStream.readFully(compressed, 0, compressedLength);
+
+					boolean wholeFrame = isDescribedByFrameDescriptor(frameDescriptors, position);
+					Set<Long> elementIds = blockElementIds.get(Long.valueOf(position));
+					if (wholeFrame || (null != elementIds)) {
+						if (block.length < length) {
+							block = new byte[length];
+						}
+						inflate(inflater, compressed, compressedLength, block, length);
+						ByteBuffer blockBuffer = ByteBuffer.wrap(block, 0, length);
+						int count = (length >= DIRECTORY_HEADER_SIZE) ? blockBuffer.getInt(0) : -1;
+						if ((count < 0) || (count > ((length - DIRECTORY_HEADER_SIZE) / DIRECTORY_ENTRY_SIZE))) {
+							throw new IOException("Corrupted block directory at position " + position + ".");
+						}
+						int dataStart = DIRECTORY_HEADER_SIZE + (count * DIRECTORY_ENTRY_SIZE);
+						if (wholeFrame) {
+							Input input = new Input(block, dataStart, length - dataStart);
+							while (KryoUtil.hasMoreBytes(input)) {
+								result.add((E) serializer.deserialize(input));
+							}
+						} else {
+							int offsetsStart = DIRECTORY_HEADER_SIZE + (count * 8);
+							for (int i = 0; i < count; i++) {
+								if (elementIds.contains(Long.valueOf(blockBuffer.getLong(DIRECTORY_HEADER_SIZE + (i * 8))))) {
+									int offset = blockBuffer.getInt(offsetsStart + (i * 4));
+									int end = ((i + 1) < count) ? blockBuffer.getInt(offsetsStart + ((i + 1) * 4)) : length - dataStart;
+									if ((offset < 0) || (end < offset) || (end > (length - dataStart))) {
+										throw new IOException("Corrupted block directory at position " + position + ".");
+									}
+									Input input = new Input(block, dataStart + offset, end - offset);
+									result.add((E) serializer.deserialize(input));
+								}
+							}
+						}
+					}
+					position += FRAME_HEADER_SIZE + compressedLength;
+				}
+			}
+		} finally {
+			inflater.end();
+		}
+		return result;
+	}
+
+	/**
+	 * Inflates the compressed bytes into the block.
+	 *
+	 * @param inflater
+	 *            Inflater to use, will be reset.
+	 * @param compressed
+	 *            Compressed bytes.
+	 * @param compressedLength
+	 *            Amount of compressed bytes.
+	 * @param block
+	 *            Array to inflate to.
+	 * @param length
+	 *            Expected de-compressed length.
+	 * @throws IOException
+	 *             If data can not be inflated.
+	 */
+	private static void inflate(Inflater inflater, byte[] compressed, int compressedLength, byte[] block, int length) throws IOException {
+		inflater.reset();
+		inflater.setInput(compressed, 0, compressedLength);
+		try {
+			int inflated = 0;
+			while ((inflated < length) && !inflater.finished()) {
+				int count = inflater.inflate(block, inflated, length - inflated);
+				if ((0 == count) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += count;
+			}
+			if ((inflated == length) && !inflater.finished() && ((inflater.inflate(new byte[1]) > 0) || !inflater.finished())) {
+				throw new IOException("Block de-compressed to more than expected " + length + " bytes.");
+			}
+			if (inflated != length) {
+				throw new IOException("Block de-compressed to " + inflated + " bytes, expected " + length + ".");
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Block can not be de-compressed.", e);
+		}
+	}
+
+	/**
+	 * Returns if the frame on the given position is described by one of the frame descriptors.
+	 *
+	 * @param frameDescriptors
+	 *            Descriptors describing complete frames.
+	 * @param position
+	 *            Frame position.
+	 * @return <code>true</code> if all objects in the frame should be read.
+	 */
+	private static boolean isDescribedByFrameDescriptor(List<IStorageDescriptor> frameDescriptors, long position) {
+		for (IStorageDescriptor descriptor : frameDescriptors) {
+			if ((descriptor.getPosition() <= position) && (position < (descriptor.getPosition() + descriptor.getSize()))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
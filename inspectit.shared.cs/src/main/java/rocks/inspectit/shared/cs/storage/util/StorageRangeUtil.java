@@ -0,0 +1,168 @@
+package rocks.inspectit.shared.cs.storage.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.esotericsoftware.kryo.io.Input;
+
+import rocks.inspectit.shared.all.serializer.ISerializer;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.util.KryoUtil;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+
+/**
+ * Utility for reading the data files of the storages in ranges. Ranges that are close to each
+ * other can be coalesced into one bigger range, so that the data is read with less requests. The
+ * bytes in the gaps are skipped when the content is de-serialized.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class StorageRangeUtil {
+
+	/**
+	 * Default max gap between two ranges that will be coalesced (64KB).
+	 */
+	public static final long DEFAULT_MAX_GAP = 65536;
+
+	/**
+	 * Size of the buffer used when reading the content.
+	 */
+	private static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Comparator that sorts descriptors by the position.
+	 */
+	private static final Comparator<IStorageDescriptor> POSITION_COMPARATOR = new Comparator<IStorageDescriptor>() {
+		@Override
+		public int compare(IStorageDescriptor o1, IStorageDescriptor o2) {
+			return Long.compare(o1.getPosition(), o2.getPosition());
+		}
+	};
+
+	/**
+	 * Private constructor.
+	 */
+	private StorageRangeUtil() {
+	}
+
+	/**
+	 * Coalesces the sorted ranges that are separated by the gap not bigger than the given max gap.
+	 * Passed ranges are not changed.
+	 *
+	 * @param ranges
+	 *            Sorted, non-overlapping ranges, as returned by the
+	 *            {@link StorageBlockUtil#getReadRanges(List)}.
+	 * @param maxGap
+	 *            Max amount of bytes between two ranges that can be read additionally in order to
+	 *            join them.
+	 * @return Coalesced ranges.
+	 */
+	public static List<RangeDescriptor> coalesce(List<RangeDescriptor> ranges, long maxGap) {
+		List<RangeDescriptor> coalesced = new ArrayList<>();
+		RangeDescriptor current = null;
+		for (RangeDescriptor range : ranges) {
+			if ((null != current) && ((range.getStart() - current.getEnd() - 1) <= maxGap)) {
+				current.setEnd(Math.max(current.getEnd(), range.getEnd()));
+			} else {
+				current = new RangeDescriptor(range.getStart(), range.getEnd());
+				coalesced.add(current);
+			}
+		}
+		return coalesced;
+	}
+
+	/**
+	 * De-serializes the objects described by the given descriptors from the content of the read
+	 * ranges. This method is intended for storages where objects are written one after another,
+	 * for the {@link rocks.inspectit.shared.cs.storage.StorageFormatVersion#COMPRESSED_BLOCKS}
+	 * format use {@link StorageBlockUtil#deserialize(List, List, InputStream, ISerializer)}. The
+	 * content must be the concatenation of the given ranges, all descriptors must be contained in
+	 * the ranges. Bytes of the ranges that are not described by any descriptor are skipped.
+	 * <p>
+	 * The content is read as a stream, thus it can come directly from the network.
+	 *
+	 * @param <E>
+	 *            Type of the objects.
+	 * @param channelDescriptors
+	 *            Descriptors all pointing to the same data file.
+	 * @param ranges
+	 *            Sorted ranges that were read.
+	 * @param content
+	 *            Concatenated content of the ranges.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return De-serialized objects.
+	 * @throws IOException
+	 *             If content can not be read.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> List<E> deserialize(List<IStorageDescriptor> channelDescriptors, List<RangeDescriptor> ranges, InputStream content, ISerializer serializer)
+			throws IOException, SerializationException {
+		List<IStorageDescriptor> sorted = new ArrayList<>(channelDescriptors);
+		Collections.sort(sorted, POSITION_COMPARATOR);
+
+		List<E> result = new ArrayList<>(channelDescriptors.size());
+		DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(content, BUFFER_SIZE));
+		byte[] bytes = new byte[0];
+		int index = 0;
+		for (RangeDescriptor range : ranges) {
+			long position = range.getStart();
+			while ((index < sorted.size()) && (sorted.get(index).getPosition() <= range.getEnd())) {
+				IStorageDescriptor descriptor = sorted.get(index);
+				index++;
+				// duplicated descriptors are read only once
+				if (descriptor.getPosition() < position) {
+					continue;
+				}
+
+				skipFully(dataInputStream, descriptor.getPosition() - position);
+				int size = (int) descriptor.getSize();
+				if (bytes.length < size) {
+					bytes = new byte[size];
+				}
+				dataInputStream.readFully(bytes, 0, size);
+				Input input = new Input(bytes, 0, size);
+				while (KryoUtil.hasMoreBytes(input)) {
+					result.add((E) serializer.deserialize(input));
+				}
+				position = descriptor.getPosition() + size;
+			}
+			skipFully(dataInputStream, (range.getEnd() + 1) - position);
+		}
+		return result;
+	}
+
+	/**
+	 * Skips exactly the given amount of bytes in the input stream.
+	 *
+	 * @param inputStream
+	 *            Stream.
+	 * @param count
+	 *            Amount of bytes to skip.
+	 * @throws IOException
+	 *             If stream ends before given amount of bytes is skipped.
+	 */
+	private static void skipFully(InputStream inputStream, long count) throws IOException {
+		long remaining = count;
+		while (remaining > 0) {
+			long skipped = inputStream.skip(remaining);
+			if (skipped <= 0) {
+				if (inputStream.read() < 0) {
+					throw new EOFException("Content ended, " + remaining + " bytes could not be skipped.");
+				}
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package rocks.inspectit.shared.cs.storage.util;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.IAggregatedData;
+import rocks.inspectit.shared.all.communication.IIdsAwareAggregatedData;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.AggregatedHttpTimerData;
+import rocks.inspectit.shared.all.communication.data.AggregatedSqlStatementData;
+import rocks.inspectit.shared.all.communication.data.AggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.ClassLoadingInformationData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.MemoryInformationData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.ThreadInformationData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.cs.indexing.aggregation.Aggregators;
+import rocks.inspectit.shared.cs.indexing.aggregation.IAggregator;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.ClassLoadingInformationDataAggregator;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.CpuInformationDataAggregator;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.HttpTimerDataAggregator;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.MemoryInformationDataAggregator;
+import rocks.inspectit.shared.cs.indexing.aggregation.impl.ThreadInformationDataAggregator;
+
+/**
+ * Utility for the rollup tiers of the storages. A rollup tier holds the data aggregated in the
+ * fixed period, so that the charts over long time ranges don't have to load all the raw data.
+ * Each tier has its own indexing trees saved in the index files which names start with the tier
+ * period.
+ *
+ * @author Ivan Senic
+ *
+ */
+public final class StorageRollupUtil {
+
+	/**
+	 * Period denoting the raw data, thus no rollup.
+	 */
+	public static final long NO_ROLLUP = 0;
+
+	/**
+	 * Separator between the period and the rest of the rollup index file name.
+	 */
+	private static final char PERIOD_SEPARATOR = '_';
+
+	/**
+	 * Aggregators used to create rollups for each data class that is rolled up.
+	 */
+	private static final Map<Class<?>, IAggregator<?>> AGGREGATORS = new HashMap<>();
+
+	/**
+	 * Class of the objects in the rollup tier for each data class that is rolled up.
+	 */
+	private static final Map<Class<?>, Class<?>> ROLLUP_CLASSES = new HashMap<>();
+
+	static {
+		register(TimerData.class, AggregatedTimerData.class, Aggregators.TIMER_DATA_AGGREGATOR);
+		register(HttpTimerData.class, AggregatedHttpTimerData.class, new HttpTimerDataAggregator(true, true));
+		register(SqlStatementData.class, AggregatedSqlStatementData.class, Aggregators.SQL_STATEMENT_DATA_AGGREGATOR);
+		register(CpuInformationData.class, CpuInformationData.class, new CpuInformationDataAggregator());
+		register(MemoryInformationData.class, MemoryInformationData.class, new MemoryInformationDataAggregator());
+		register(ClassLoadingInformationData.class, ClassLoadingInformationData.class, new ClassLoadingInformationDataAggregator());
+		register(ThreadInformationData.class, ThreadInformationData.class, new ThreadInformationDataAggregator());
+	}
+
+	/**
+	 * Private constructor.
+	 */
+	private StorageRollupUtil() {
+	}
+
+	/**
+	 * Registers the data class that is rolled up. The rollup class is registered as well, so that
+	 * already aggregated data can also be rolled up.
+	 *
+	 * @param dataClass
+	 *            Data class.
+	 * @param rollupClass
+	 *            Class of the objects created by the aggregator.
+	 * @param aggregator
+	 *            Aggregator.
+	 */
+	private static void register(Class<?> dataClass, Class<?> rollupClass, IAggregator<?> aggregator) {
+		AGGREGATORS.put(dataClass, aggregator);
+		AGGREGATORS.put(rollupClass, aggregator);
+		ROLLUP_CLASSES.put(dataClass, rollupClass);
+		ROLLUP_CLASSES.put(rollupClass, rollupClass);
+	}
+
+	/**
+	 * Returns the aggregator to create rollups for the given data class.
+	 *
+	 * @param <E>
+	 *            Type of data.
+	 * @param dataClass
+	 *            Data class.
+	 * @return {@link IAggregator} or <code>null</code> if data of the given class is not rolled up.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends DefaultData> IAggregator<E> getAggregator(Class<?> dataClass) {
+		return (IAggregator<E>) AGGREGATORS.get(dataClass);
+	}
+
+	/**
+	 * Returns the class of the objects that represent the data of the given class in the rollup
+	 * tiers. This class should be used when querying the rollup tier indexing trees.
+	 *
+	 * @param dataClass
+	 *            Data class.
+	 * @return Rollup class or <code>null</code> if data of the given class is not rolled up.
+	 */
+	public static Class<?> getRollupClass(Class<?> dataClass) {
+		return ROLLUP_CLASSES.get(dataClass);
+	}
+
+	/**
+	 * Returns the start of the rollup period the given time belongs to.
+	 *
+	 * @param time
+	 *            Time in milliseconds.
+	 * @param period
+	 *            Rollup period in milliseconds.
+	 * @return Start of the period.
+	 */
+	public static long getPeriodStart(long time, long period) {
+		return time - (time % period);
+	}
+
+	/**
+	 * Returns the start of the first rollup period that does not start before the given time.
+	 *
+	 * @param time
+	 *            Time in milliseconds.
+	 * @param period
+	 *            Rollup period in milliseconds.
+	 * @return Start of the period.
+	 */
+	public static long getFirstPeriodStartFrom(long time, long period) {
+		long periodStart = getPeriodStart(time, period);
+		return (periodStart < time) ? periodStart + period : periodStart;
+	}
+
+	/**
+	 * Returns the key of the rollup bucket the data belongs to. Data with the same key is
+	 * aggregated into the same bucket.
+	 *
+	 * @param defaultData
+	 *            Data.
+	 * @param aggregator
+	 *            Aggregator of the data class.
+	 * @param periodStart
+	 *            Start of the rollup period the data belongs to.
+	 * @return Bucket key.
+	 */
+	public static List<Object> getBucketKey(DefaultData defaultData, IAggregator<DefaultData> aggregator, long periodStart) {
+		long methodIdent = (defaultData instanceof MethodSensorData) ? ((MethodSensorData) defaultData).getMethodIdent() : 0L;
+		return Arrays.asList(getRollupClass(defaultData.getClass()), defaultData.getPlatformIdent(), defaultData.getSensorTypeIdent(), methodIdent, aggregator.getAggregationKey(defaultData),
+				periodStart);
+	}
+
+	/**
+	 * Creates the empty rollup bucket for the given data. The data has to be aggregated to the
+	 * bucket afterwards. The bucket has the time stamp of the period start.
+	 *
+	 * @param defaultData
+	 *            Data.
+	 * @param aggregator
+	 *            Aggregator of the data class.
+	 * @param periodStart
+	 *            Start of the rollup period the data belongs to.
+	 * @return Rollup bucket.
+	 */
+	public static IAggregatedData<DefaultData> createBucket(DefaultData defaultData, IAggregator<DefaultData> aggregator, long periodStart) {
+		IAggregatedData<DefaultData> bucket = aggregator.getClone(defaultData);
+		DefaultData rollup = bucket.getData();
+		rollup.setId(defaultData.getId());
+		rollup.setTimeStamp(new Timestamp(periodStart));
+		rollup.setPlatformIdent(defaultData.getPlatformIdent());
+		rollup.setSensorTypeIdent(defaultData.getSensorTypeIdent());
+		if ((rollup instanceof MethodSensorData) && (defaultData instanceof MethodSensorData)) {
+			((MethodSensorData) rollup).setMethodIdent(((MethodSensorData) defaultData).getMethodIdent());
+		}
+		return bucket;
+	}
+
+	/**
+	 * Aggregates the data in the buckets of the given period, the same way the rollup tiers are
+	 * created. Data of classes that are not rolled up is returned as it is. The returned list is
+	 * sorted by the time stamp and the rollups don't hold the ids of the aggregated data.
+	 *
+	 * @param data
+	 *            Data to aggregate.
+	 * @param period
+	 *            Rollup period in milliseconds.
+	 * @return Aggregated data.
+	 */
+	public static List<DefaultData> rollup(Collection<? extends DefaultData> data, long period) {
+		Map<List<Object>, IAggregatedData<DefaultData>> buckets = new LinkedHashMap<>();
+		List<DefaultData> result = new ArrayList<>();
+		for (DefaultData defaultData : data) {
+			IAggregator<DefaultData> aggregator = getAggregator(defaultData.getClass());
+			if ((null == aggregator) || (null == defaultData.getTimeStamp())) {
+				result.add(defaultData);
+				continue;
+			}
+
+			long periodStart = getPeriodStart(defaultData.getTimeStamp().getTime(), period);
+			List<Object> key = getBucketKey(defaultData, aggregator, periodStart);
+			IAggregatedData<DefaultData> bucket = buckets.get(key);
+			if (null == bucket) {
+				bucket = createBucket(defaultData, aggregator, periodStart);
+				buckets.put(key, bucket);
+			}
+			aggregator.aggregate(bucket, defaultData);
+		}
+
+		for (IAggregatedData<DefaultData> bucket : buckets.values()) {
+			DefaultData rollup = bucket.getData();
+			if (rollup instanceof IIdsAwareAggregatedData) {
+				((IIdsAwareAggregatedData<?>) rollup).clearAggregatedIds();
+			}
+			result.add(rollup);
+		}
+
+		Collections.sort(result, new Comparator<DefaultData>() {
+			@Override
+			public int compare(DefaultData o1, DefaultData o2) {
+				long t1 = (null != o1.getTimeStamp()) ? o1.getTimeStamp().getTime() : 0L;
+				long t2 = (null != o2.getTimeStamp()) ? o2.getTimeStamp().getTime() : 0L;
+				return Long.compare(t1, t2);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Selects the coarsest of the available rollup periods that is not bigger than the requested
+	 * resolution.
+	 *
+	 * @param periods
+	 *            Available rollup periods.
+	 * @param resolution
+	 *            Requested resolution in milliseconds.
+	 * @return Rollup period or {@link #NO_ROLLUP} if none of the periods satisfies the resolution.
+	 */
+	public static long selectRollupPeriod(Collection<Long> periods, long resolution) {
+		long selected = NO_ROLLUP;
+		for (Long period : periods) {
+			if ((period.longValue() <= resolution) && (period.longValue() > selected)) {
+				selected = period.longValue();
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Parses the comma separated list of the rollup periods in milliseconds. Values that are not
+	 * positive numbers are ignored.
+	 *
+	 * @param periods
+	 *            Comma separated periods, can be <code>null</code>.
+	 * @return Array of periods.
+	 */
+	public static long[] parsePeriods(String periods) {
+		if (null == periods) {
+			return new long[0];
+		}
+		List<Long> parsed = new ArrayList<>();
+		for (String period : periods.split(",")) {
+			try {
+				long value = Long.parseLong(period.trim());
+				if (value > NO_ROLLUP) {
+					parsed.add(value);
+				}
+			} catch (NumberFormatException e) { // NOPMD
+				// ignore the invalid value
+			}
+		}
+		long[] result = new long[parsed.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = parsed.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index file name (without extension) for the rollup tier with the given period.
+	 *
+	 * @param period
+	 *            Rollup period.
+	 * @param name
+	 *            Unique name of the file.
+	 * @return Index file name.
+	 */
+	public static String getIndexFileName(long period, String name) {
+		return String.valueOf(period) + PERIOD_SEPARATOR + name;
+	}
+
+	/**
+	 * Returns the rollup period from the rollup index file name.
+	 *
+	 * @param fileName
+	 *            File name created with {@link #getIndexFileName(long, String)}.
+	 * @return Rollup period or {@link #NO_ROLLUP} if the file name does not start with a period.
+	 */
+	public static long getRollupPeriod(String fileName) {
+		int index = fileName.indexOf(PERIOD_SEPARATOR);
+		if (index <= 0) {
+			return NO_ROLLUP;
+		}
+		try {
+			return Long.parseLong(fileName.substring(0, index));
+		} catch (NumberFormatException e) {
+			return NO_ROLLUP;
+		}
+	}
+}
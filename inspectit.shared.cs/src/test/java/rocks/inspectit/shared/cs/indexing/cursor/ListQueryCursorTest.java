@@ -0,0 +1,62 @@
+package rocks.inspectit.shared.cs.indexing.cursor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link ListQueryCursor}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class ListQueryCursorTest extends TestBase {
+
+	public class Next extends ListQueryCursorTest {
+
+		@Test
+		public void pages() {
+			ListQueryCursor<Integer> cursor = new ListQueryCursor<>(Arrays.asList(1, 2, 3, 4, 5));
+
+			assertThat(cursor.getTotalSize(), is(5));
+			assertThat(cursor.next(2), contains(1, 2));
+			assertThat(cursor.getPosition(), is(2));
+			assertThat(cursor.hasNext(), is(true));
+			assertThat(cursor.next(2), contains(3, 4));
+			assertThat(cursor.next(2), contains(5));
+			assertThat(cursor.getPosition(), is(5));
+			assertThat(cursor.hasNext(), is(false));
+			assertThat(cursor.next(2), is(empty()));
+		}
+
+		@Test
+		public void transformerAppliedOnlyToReadElements() {
+			final AtomicInteger transformations = new AtomicInteger();
+			ListQueryCursor<Integer> cursor = new ListQueryCursor<>(Arrays.asList(1, 2, 3, 4, 5), e -> {
+				transformations.incrementAndGet();
+				return e * 10;
+			});
+
+			List<Integer> page = cursor.next(2);
+
+			assertThat(page, contains(10, 20));
+			assertThat(transformations.get(), is(2));
+		}
+
+		@Test(expectedExceptions = IllegalArgumentException.class)
+		public void nonPositiveCount() {
+			new ListQueryCursor<>(Arrays.asList(1, 2)).next(0);
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.indexing.impl.IndexQuery;
+import rocks.inspectit.shared.cs.indexing.indexer.impl.ObjectTypeIndexer;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+
+/**
+ * Tests the {@link MappedStorageLeaf} and {@link MappedStorageTreeUtil}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class MappedStorageLeafTest extends TestBase {
+
+	private static final int LEAF_ID = 1;
+
+	ArrayBasedStorageLeaf<DefaultData> arrayLeaf;
+
+	@BeforeMethod
+	public void init() throws Exception {
+		arrayLeaf = new ArrayBasedStorageLeaf<>(LEAF_ID);
+		for (long id = 1; id <= 100; id++) {
+			DefaultData element = mock(DefaultData.class);
+			when(element.getId()).thenReturn(id);
+			IStorageDescriptor descriptor = arrayLeaf.put(element);
+			// ten elements per block
+			descriptor.setPositionAndSize(((id - 1) / 10) * 1000, 1000);
+		}
+	}
+
+	public class Query extends MappedStorageLeafTest {
+
+		@Test
+		public void sameAsArrayLeaf() throws Exception {
+			IndexQuery indexQuery = mock(IndexQuery.class);
+			List<IStorageDescriptor> expected = arrayLeaf.query(indexQuery);
+
+			MappedStorageLeaf<DefaultData> mappedLeaf = toMappedLeaf(arrayLeaf);
+			List<IStorageDescriptor> result = mappedLeaf.query(indexQuery);
+
+			assertThat(result, is(equalTo(expected)));
+		}
+
+		@Test
+		public void minId() throws Exception {
+			IndexQuery indexQuery = mock(IndexQuery.class);
+			when(indexQuery.getMinId()).thenReturn(51L);
+
+			List<IStorageDescriptor> result = toMappedLeaf(arrayLeaf).query(indexQuery);
+
+			assertThat(result, hasSize(50));
+			assertThat(result.get(0).getPosition(), is(5000L));
+			assertThat(result.get(0).getSize(), is(1000L));
+			assertThat(result.get(0).getElementId(), is(51L));
+			assertThat(result.get(0).getChannelId(), is(LEAF_ID));
+		}
+
+		@Test
+		public void includeExcludeIds() throws Exception {
+			MappedStorageLeaf<DefaultData> mappedLeaf = toMappedLeaf(arrayLeaf);
+			StorageIndexQuery indexQuery = mock(StorageIndexQuery.class);
+			List<Long> includeIds = new ArrayList<>();
+			List<Long> excludeIds = new ArrayList<>();
+			when(indexQuery.getIncludeIds()).thenReturn(includeIds);
+			when(indexQuery.getExcludeIds()).thenReturn(excludeIds);
+
+			includeIds.add(50L);
+			assertThat(mappedLeaf.query(indexQuery), hasSize(1));
+
+			excludeIds.add(50L);
+			assertThat(mappedLeaf.query(indexQuery), is(empty()));
+
+			when(indexQuery.getIncludeIds()).thenReturn(null);
+			assertThat(mappedLeaf.query(indexQuery), hasSize(99));
+		}
+
+		@Test(expectedExceptions = IllegalStateException.class)
+		public void notAttached() {
+			new MappedStorageLeaf<>(LEAF_ID, 0, 10, 1).query(mock(IndexQuery.class));
+		}
+	}
+
+	public class WriteLeaf extends MappedStorageLeafTest {
+
+		@Test
+		public void oneBlockEntryPerBlock() throws Exception {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			MappedStorageLeaf<DefaultData> mappedLeaf;
+			try (DataOutputStream output = new DataOutputStream(bytes)) {
+				mappedLeaf = (MappedStorageLeaf<DefaultData>) MappedStorageTreeUtil.toMappedTree(arrayLeaf, output);
+			}
+
+			assertThat(mappedLeaf.getSize(), is(100));
+			assertThat(mappedLeaf.getBlockCount(), is(10));
+			assertThat(bytes.size(), is((100 * MappedStorageLeaf.ENTRY_SIZE) + (10 * MappedStorageLeaf.BLOCK_ENTRY_SIZE)));
+		}
+	}
+
+	public class Get extends MappedStorageLeafTest {
+
+		@Test
+		public void existing() throws Exception {
+			DefaultData element = mock(DefaultData.class);
+			when(element.getId()).thenReturn(77L);
+
+			IStorageDescriptor descriptor = toMappedLeaf(arrayLeaf).get(element);
+
+			assertThat(descriptor, is(equalTo(arrayLeaf.get(element))));
+		}
+
+		@Test
+		public void notExisting() throws Exception {
+			DefaultData element = mock(DefaultData.class);
+			when(element.getId()).thenReturn(101L);
+
+			IStorageDescriptor descriptor = toMappedLeaf(arrayLeaf).get(element);
+
+			assertThat(descriptor, is(nullValue()));
+		}
+	}
+
+	public class ToMappedTree extends MappedStorageLeafTest {
+
+		@SuppressWarnings("unchecked")
+		@Test
+		public void invocationLeafReplaced() throws Exception {
+			IStorageTreeComponent<DefaultData> rootBranch = new StorageBranch<>(new StorageBranchIndexer<>(new ObjectTypeIndexer<>(), false));
+			TimerData timerData = new TimerData();
+			timerData.setId(1L);
+			rootBranch.put(timerData).setPositionAndSize(0, 100);
+			InvocationSequenceData invocation = new InvocationSequenceData();
+			invocation.setId(2L);
+			rootBranch.put(invocation).setPositionAndSize(100, 50);
+			List<IStorageDescriptor> expected = rootBranch.query(mock(IndexQuery.class));
+			Collections.sort(expected);
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			IStorageTreeComponent<DefaultData> directory;
+			try (DataOutputStream output = new DataOutputStream(bytes)) {
+				directory = MappedStorageTreeUtil.toMappedTree(rootBranch, output);
+			}
+			MappedStorageTreeUtil.attachLeafFile(directory, ByteBuffer.wrap(bytes.toByteArray()));
+
+			// only invocations are indexed in the array based leaf
+			assertThat(bytes.size(), is(MappedStorageLeaf.ENTRY_SIZE + MappedStorageLeaf.BLOCK_ENTRY_SIZE));
+			Map<Object, ?> componentMap = ((StorageBranch<DefaultData>) directory).getComponentMap();
+			assertThat(componentMap.get(InvocationSequenceData.class), is(instanceOf(MappedStorageLeaf.class)));
+			assertThat(componentMap.get(TimerData.class), is(instanceOf(LeafWithNoDescriptors.class)));
+			List<IStorageDescriptor> result = directory.query(mock(IndexQuery.class));
+			Collections.sort(result);
+			assertThat(result, is(equalTo(expected)));
+		}
+	}
+
+	MappedStorageLeaf<DefaultData> toMappedLeaf(ArrayBasedStorageLeaf<DefaultData> leaf) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MappedStorageLeaf<DefaultData> mappedLeaf;
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			// some bytes before to check the offset
+			output.write(new byte[13]);
+			mappedLeaf = (MappedStorageLeaf<DefaultData>) MappedStorageTreeUtil.toMappedTree(leaf, output);
+		}
+		MappedStorageTreeUtil.attachLeafFile(mappedLeaf, ByteBuffer.wrap(bytes.toByteArray()));
+		return mappedLeaf;
+	}
+}
@@ -5,6 +5,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
@@ -126,9 +127,29 @@ public class StorageIndexingTreeHandlerTest {
 	@Test
 	public void treeWrittenOnFinish() {
 		when(future.isDone()).thenReturn(true);
-		when(storageWriter.writeNonDefaultDataObject(eq(indexingTree), anyString())).thenReturn(true);
+		when(storageWriter.writeIndexingTree(eq(indexingTree), anyString())).thenReturn(true);
 		indexingTreeHandler.finish();
-		verify(storageWriter, times(1)).writeNonDefaultDataObject(eq(indexingTree), anyString());
+		verify(storageWriter, times(1)).writeIndexingTree(eq(indexingTree), anyString());
+	}
+
+	@Test
+	public void rollupTreeWrittenOnFinish() throws IndexingException {
+		IStorageDescriptor storageDescriptor = mock(IStorageDescriptor.class);
+		DefaultData defaultData = mock(DefaultData.class);
+		when(indexingTree.put(defaultData)).thenReturn(storageDescriptor);
+		WriteTask writeTask = mock(WriteTask.class);
+		when(writeTask.getData()).thenReturn(defaultData);
+		when(writeTask.getRollupPeriod()).thenReturn(10000L);
+		indexingTreeHandler.startWrite(writeTask);
+		indexingTreeHandler.writeSuccessful(writeTask, 0L, 10L);
+
+		when(future.isDone()).thenReturn(true);
+		when(storageWriter.writeIndexingTree(eq(indexingTree), anyString())).thenReturn(true);
+		when(storageWriter.writeIndexingTree(eq(indexingTree), anyString(), eq(StorageFileType.ROLLUP_INDEX_FILE))).thenReturn(true);
+		indexingTreeHandler.finish();
+
+		verify(storageWriter, times(1)).writeIndexingTree(eq(indexingTree), anyString());
+		verify(storageWriter, times(1)).writeIndexingTree(eq(indexingTree), startsWith("10000_"), eq(StorageFileType.ROLLUP_INDEX_FILE));
 	}
 
 	@Test
@@ -145,8 +166,8 @@ public class StorageIndexingTreeHandlerTest {
 		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
 		verify(executorService, times(1)).submit(captor.capture());
 
-		when(storageWriter.writeNonDefaultDataObject(eq(indexingTree), anyString())).thenReturn(true);
+		when(storageWriter.writeIndexingTree(eq(indexingTree), anyString())).thenReturn(true);
 		captor.getValue().run();
-		verify(storageWriter, times(1)).writeNonDefaultDataObject(eq(indexingTree), anyString());
+		verify(storageWriter, times(1)).writeIndexingTree(eq(indexingTree), anyString());
 	}
 }
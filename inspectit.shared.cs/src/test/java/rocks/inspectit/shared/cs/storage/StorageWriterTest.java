@@ -3,11 +3,14 @@ package rocks.inspectit.shared.cs.storage;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -15,21 +18,30 @@ import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeMethod;
@@ -41,6 +53,8 @@ import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.all.serializer.ISerializer;
 import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.provider.SerializationManagerProvider;
 import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
 import rocks.inspectit.shared.all.storage.nio.stream.StreamProvider;
 import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
@@ -50,6 +64,7 @@ import rocks.inspectit.shared.cs.storage.nio.write.WritingChannelManager;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 import rocks.inspectit.shared.cs.storage.processor.write.AbstractWriteDataProcessor;
 import rocks.inspectit.shared.cs.storage.util.DeleteFileVisitor;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
 
 @SuppressWarnings("PMD")
 public class StorageWriterTest {
@@ -83,6 +98,12 @@ public class StorageWriterTest {
 	@Mock
 	private AbstractWriteDataProcessor writeDataProcessor;
 
+	@Mock
+	private SerializationManagerProvider serializationManagerProvider;
+
+	@Mock
+	private SerializationManager serializationManager;
+
 	@SuppressWarnings("rawtypes")
 	@Mock
 	private ScheduledFuture future;
@@ -246,6 +267,145 @@ public class StorageWriterTest {
 		verify(serializerQueue, times(1)).add(serializer);
 	}
 
+	@Test
+	public void writeTaskBlockWrittenOnFlush() throws Exception {
+		prepareBlockWrite(10);
+		WriteTask writeTask1 = storageWriter.new WriteTask(new TimerData(), Collections.emptyMap());
+		WriteTask writeTask2 = storageWriter.new WriteTask(new TimerData(), Collections.emptyMap());
+
+		writeTask1.run();
+		writeTask2.run();
+
+		verify(writingChannelManager, never()).write(Matchers.<ByteBuffer> anyObject(), Matchers.<Path> anyObject(), Matchers.<WriteReadCompletionRunnable> anyObject());
+		verify(serializerQueue, times(2)).add(serializer);
+		verifyZeroInteractions(streamProvider);
+
+		storageWriter.flushBlocks(true);
+
+		ArgumentCaptor<ByteBuffer> frameCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+		ArgumentCaptor<WriteReadCompletionRunnable> completionCaptor = ArgumentCaptor.forClass(WriteReadCompletionRunnable.class);
+		verify(writingChannelManager, times(1)).write(frameCaptor.capture(), Matchers.<Path> anyObject(), completionCaptor.capture());
+		// directory of two objects followed by the objects
+		assertThat(frameCaptor.getValue().getInt(4), is(StorageBlockUtil.DIRECTORY_HEADER_SIZE + (2 * StorageBlockUtil.DIRECTORY_ENTRY_SIZE) + 20));
+
+		WriteReadCompletionRunnable completionRunnable = completionCaptor.getValue();
+		completionRunnable.setAttemptedWriteReadPosition(100L);
+		completionRunnable.setAttemptedWriteReadSize(15L);
+		completionRunnable.markSuccess();
+		completionRunnable.run();
+
+		verify(storageIndexingTreeHandler, times(1)).writeSuccessful(writeTask1, 100L, 15L);
+		verify(storageIndexingTreeHandler, times(1)).writeSuccessful(writeTask2, 100L, 15L);
+	}
+
+	@Test
+	public void writeTaskFullBlockWritten() throws Exception {
+		prepareBlockWrite(StorageBlockUtil.BLOCK_SIZE);
+		WriteTask writeTask = storageWriter.new WriteTask(new TimerData(), Collections.emptyMap());
+
+		writeTask.run();
+
+		ArgumentCaptor<WriteReadCompletionRunnable> completionCaptor = ArgumentCaptor.forClass(WriteReadCompletionRunnable.class);
+		verify(writingChannelManager, times(1)).write(Matchers.<ByteBuffer> anyObject(), Matchers.<Path> anyObject(), completionCaptor.capture());
+
+		WriteReadCompletionRunnable completionRunnable = completionCaptor.getValue();
+		completionRunnable.markFailed();
+		completionRunnable.run();
+
+		verify(storageIndexingTreeHandler, times(1)).writeFailed(writeTask);
+	}
+
+	/**
+	 * Prepares the writer for the storage in the {@link StorageFormatVersion#COMPRESSED_BLOCKS}
+	 * format with serializer writing the given amount of bytes for each object.
+	 */
+	private void prepareBlockWrite(final int serializedSize) throws Exception {
+		StorageData storageData = new StorageData();
+		storageData.setFormatVersion(StorageFormatVersion.COMPRESSED_BLOCKS);
+		when(storageManager.getStoragePath(storageData)).thenReturn(testPath);
+		storageWriter.prepareForWrite(storageData);
+
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Output output = (Output) invocation.getArguments()[1];
+				output.writeBytes(new byte[serializedSize]);
+				return null;
+			}
+		}).when(serializer).serialize(anyObject(), Matchers.<Output> anyObject(), Matchers.<Map<?, ?>> anyObject());
+	}
+
+	@Test
+	public void writingThreadsAdapted() throws Exception {
+		final long serializationTime = 100L;
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				int current = running.incrementAndGet();
+				synchronized (maxRunning) {
+					maxRunning.set(Math.max(maxRunning.get(), current));
+				}
+				Thread.sleep(serializationTime);
+				running.decrementAndGet();
+				return null;
+			}
+		}).when(serializationManager).serialize(anyObject(), Matchers.<Output> anyObject(), Matchers.<Map<?, ?>> anyObject());
+		when(serializationManagerProvider.createSerializer()).thenReturn(serializationManager);
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+		try {
+			storageWriter.writingExecutorService = executor;
+			storageWriter.serializerQueue = new LinkedBlockingQueue<>();
+			storageWriter.serializationManagerProvider = serializationManagerProvider;
+			storageWriter.postConstruct();
+			storageWriter.maxWritingThreads = 2;
+			StorageData storageData = new StorageData();
+			when(storageManager.getStoragePath(storageData)).thenReturn(testPath);
+			storageWriter.prepareForWrite(storageData);
+
+			long sequentialDuration = writeAndMeasure(4);
+			assertThat(maxRunning.get(), is(1));
+
+			assertThat(storageWriter.increaseWritingThreads(), is(true));
+			assertThat(storageWriter.increaseWritingThreads(), is(false));
+			assertThat(storageWriter.getWritingThreadCount(), is(2));
+			assertThat(storageWriter.serializerQueue.size(), is(2));
+
+			long parallelDuration = writeAndMeasure(4);
+			assertThat(maxRunning.get(), is(2));
+			assertThat(sequentialDuration >= (4 * serializationTime), is(true));
+			assertThat(parallelDuration < sequentialDuration, is(true));
+
+			assertThat(storageWriter.decreaseWritingThreads(), is(true));
+			assertThat(storageWriter.decreaseWritingThreads(), is(false));
+			assertThat(storageWriter.getWritingThreadCount(), is(1));
+			assertThat(storageWriter.serializerQueue.size(), is(1));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Writes given amount of objects and returns the time in milliseconds needed until all writing
+	 * tasks are done.
+	 */
+	private long writeAndMeasure(int count) throws Exception {
+		List<TimerData> data = new ArrayList<>();
+		List<Future<Void>> futures = new ArrayList<>();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < count; i++) {
+			TimerData timerData = new TimerData();
+			data.add(timerData);
+			futures.add(storageWriter.write(timerData));
+		}
+		for (Future<Void> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		assertThat(data, hasSize(count));
+		return System.currentTimeMillis() - start;
+	}
+
 	@Test
 	public void objectWriteNoSerializerAvailable() throws InterruptedException {
 		when(serializerQueue.take()).thenReturn(null);
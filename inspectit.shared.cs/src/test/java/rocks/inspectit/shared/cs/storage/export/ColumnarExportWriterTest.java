@@ -0,0 +1,198 @@
+package rocks.inspectit.shared.cs.storage.export;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.data.HttpInfo;
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link ColumnarExportWriter} together with the {@link ColumnarExportReader}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class ColumnarExportWriterTest extends TestBase {
+
+	Path directory;
+
+	Path exportFile;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		directory = Files.createTempDirectory("columnar-export");
+		exportFile = directory.resolve("export.itcol");
+	}
+
+	@AfterMethod
+	public void delete() throws IOException {
+		FileUtils.deleteQuietly(directory.toFile());
+	}
+
+	public class Write extends ColumnarExportWriterTest {
+
+		@Test
+		public void timerRoundTrip() throws IOException {
+			try (ColumnarExportWriter writer = new ColumnarExportWriter(Files.newOutputStream(exportFile), 4)) {
+				for (int i = 0; i < 10; i++) {
+					TimerData timerData = new TimerData(new Timestamp(1000L - (i * 10)), 1L, 2L, 3L + (i % 2));
+					timerData.setCount(i);
+					timerData.setDuration(i * 1.5d);
+					timerData.calculateMin(-i);
+					timerData.calculateMax(Double.MAX_VALUE);
+					assertThat(writer.write(timerData), is(true));
+				}
+				assertThat(writer.getRowCount(), is(10L));
+				assertThat(writer.getRowGroupCount(), is(2));
+			}
+
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				List<ColumnarRowGroupMetadata> rowGroups = reader.getRowGroups();
+				assertThat(rowGroups, hasSize(3));
+				assertThat(rowGroups.get(0).getRowCount(), is(4));
+				assertThat(rowGroups.get(2).getRowCount(), is(2));
+				assertThat(rowGroups.get(0).getMinTimeStamp(), is(970L));
+				assertThat(rowGroups.get(0).getMaxTimeStamp(), is(1000L));
+				assertThat(rowGroups.get(0).getMinMethodIdent(), is(3L));
+				assertThat(rowGroups.get(0).getMaxMethodIdent(), is(4L));
+
+				int row = 0;
+				for (ColumnarRowGroupMetadata metadata : rowGroups) {
+					ColumnarRowGroup rowGroup = reader.read(metadata);
+					long[] timeStamps = rowGroup.getLongColumn("timeStamp");
+					long[] methodIdents = rowGroup.getLongColumn("methodIdent");
+					long[] counts = rowGroup.getLongColumn("count");
+					double[] durations = rowGroup.getDoubleColumn("duration");
+					double[] mins = rowGroup.getDoubleColumn("min");
+					double[] maxs = rowGroup.getDoubleColumn("max");
+					for (int i = 0; i < rowGroup.getRowCount(); i++) {
+						assertThat(timeStamps[i], is(1000L - (row * 10)));
+						assertThat(methodIdents[i], is(3L + (row % 2)));
+						assertThat(counts[i], is((long) row));
+						assertThat(durations[i], is(row * 1.5d));
+						assertThat(mins[i], is((double) -row));
+						assertThat(maxs[i], is(Double.MAX_VALUE));
+						row++;
+					}
+				}
+				assertThat(row, is(10));
+			}
+		}
+
+		@Test
+		public void stringColumns() throws IOException {
+			try (ColumnarExportWriter writer = new ColumnarExportWriter(Files.newOutputStream(exportFile))) {
+				writer.write(new SqlStatementData(new Timestamp(1L), 1L, 2L, 3L, "SELECT * FROM ÄÖÜ"));
+				writer.write(new SqlStatementData(new Timestamp(2L), 1L, 2L, 3L, null));
+				SqlStatementData prepared = new SqlStatementData(new Timestamp(3L), 1L, 2L, 3L, "SELECT * FROM ÄÖÜ");
+				prepared.setPreparedStatement(true);
+				writer.write(prepared);
+				HttpTimerData httpTimerData = new HttpTimerData(new Timestamp(4L), 1L, 2L, 3L);
+				httpTimerData.setHttpInfo(new HttpInfo("/uri", "GET", null));
+				httpTimerData.setHttpResponseStatus(404);
+				writer.write(httpTimerData);
+			}
+
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				List<ColumnarRowGroupMetadata> sql = reader.getRowGroups(Collections.singleton(ColumnarDataType.SQL), Long.MIN_VALUE, Long.MAX_VALUE, 0, 0);
+				assertThat(sql, hasSize(1));
+				ColumnarRowGroup sqlRowGroup = reader.read(sql.get(0));
+				assertThat(sqlRowGroup.getStringColumn("sql"), is(new String[] { "SELECT * FROM ÄÖÜ", null, "SELECT * FROM ÄÖÜ" }));
+				assertThat(sqlRowGroup.getLongColumn("preparedStatement"), is(new long[] { 0L, 0L, 1L }));
+
+				List<ColumnarRowGroupMetadata> http = reader.getRowGroups(Collections.singleton(ColumnarDataType.HTTP), Long.MIN_VALUE, Long.MAX_VALUE, 0, 0);
+				assertThat(http, hasSize(1));
+				ColumnarRowGroup httpRowGroup = reader.read(http.get(0));
+				assertThat(httpRowGroup.getStringColumn("uri"), is(new String[] { "/uri" }));
+				assertThat(httpRowGroup.getStringColumn("requestMethod"), is(new String[] { "GET" }));
+				assertThat(httpRowGroup.getLongColumn("httpResponseStatus"), is(new long[] { 404L }));
+			}
+		}
+
+		@Test
+		public void notExportableIgnored() throws IOException {
+			try (ColumnarExportWriter writer = new ColumnarExportWriter(Files.newOutputStream(exportFile))) {
+				assertThat(writer.write(new InvocationSequenceData(new Timestamp(1L), 1L, 2L, 3L)), is(false));
+				assertThat(writer.write(null), is(false));
+				assertThat(writer.getRowCount(), is(0L));
+			}
+
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				assertThat(reader.getRowGroups(), hasSize(0));
+			}
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void writeAfterClose() throws IOException {
+			ColumnarExportWriter writer = new ColumnarExportWriter(new ByteArrayOutputStream());
+			writer.close();
+			writer.write(new TimerData(new Timestamp(1L), 1L, 2L, 3L));
+		}
+
+		@Test(expectedExceptions = IllegalArgumentException.class)
+		public void rowGroupSizeNotPositive() throws IOException {
+			new ColumnarExportWriter(new ByteArrayOutputStream(), 0);
+		}
+	}
+
+	public class Read extends ColumnarExportWriterTest {
+
+		@Test
+		public void rowGroupsPushdown() throws IOException {
+			try (ColumnarExportWriter writer = new ColumnarExportWriter(Files.newOutputStream(exportFile), 10)) {
+				for (int i = 0; i < 30; i++) {
+					// every row group has one platform and 10 consecutive time stamps
+					writer.write(new TimerData(new Timestamp(i), 1L + (i / 10), 2L, 100L + (i / 10)));
+				}
+			}
+
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				assertThat(reader.getRowGroups(null, Long.MIN_VALUE, Long.MAX_VALUE, 0, 0), hasSize(3));
+				assertThat(reader.getRowGroups(null, 12L, 15L, 0, 0), contains(reader.getRowGroups().get(1)));
+				assertThat(reader.getRowGroups(null, 9L, 10L, 0, 0), hasSize(2));
+				assertThat(reader.getRowGroups(null, Long.MIN_VALUE, Long.MAX_VALUE, 3L, 0), contains(reader.getRowGroups().get(2)));
+				assertThat(reader.getRowGroups(null, Long.MIN_VALUE, Long.MAX_VALUE, 0, 100L), contains(reader.getRowGroups().get(0)));
+				assertThat(reader.getRowGroups(null, Long.MIN_VALUE, Long.MAX_VALUE, 4L, 0), hasSize(0));
+				assertThat(reader.getRowGroups(Collections.singleton(ColumnarDataType.SQL), Long.MIN_VALUE, Long.MAX_VALUE, 0, 0), hasSize(0));
+			}
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void notColumnarFile() throws IOException {
+			Files.write(exportFile, new byte[100]);
+
+			new ColumnarExportReader(exportFile);
+		}
+
+		@Test(expectedExceptions = IllegalArgumentException.class)
+		public void unknownColumn() throws IOException {
+			try (ColumnarExportWriter writer = new ColumnarExportWriter(Files.newOutputStream(exportFile))) {
+				writer.write(new TimerData(new Timestamp(1L), 1L, 2L, 3L));
+			}
+
+			try (ColumnarExportReader reader = new ColumnarExportReader(exportFile)) {
+				reader.read(reader.getRowGroups().get(0)).getStringColumn("sql");
+			}
+		}
+	}
+}
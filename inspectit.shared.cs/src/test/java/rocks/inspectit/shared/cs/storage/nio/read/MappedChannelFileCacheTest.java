@@ -0,0 +1,284 @@
+package rocks.inspectit.shared.cs.storage.nio.read;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.serializer.util.KryoUtil;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelFileCache.MappedRegion;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Tests the {@link MappedChannelFileCache}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class MappedChannelFileCacheTest extends TestBase {
+
+	/**
+	 * Class under test.
+	 */
+	MappedChannelFileCache mappedChannelFileCache;
+
+	Path directory;
+
+	Path channelFile;
+
+	@InjectMocks
+	ClassSchemaManager schemaManager;
+
+	@Mock
+	Logger log;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		mappedChannelFileCache = new MappedChannelFileCache();
+		mappedChannelFileCache.log = LoggerFactory.getLogger(MappedChannelFileCache.class);
+		directory = Files.createTempDirectory("mapped-channel-file-cache");
+		channelFile = directory.resolve("1.itdata");
+	}
+
+	@AfterMethod
+	public void delete() throws IOException {
+		mappedChannelFileCache.releaseAll();
+		FileUtils.deleteQuietly(directory.toFile());
+	}
+
+	public class GetRegion extends MappedChannelFileCacheTest {
+
+		@Test
+		public void region() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+
+			ByteBuffer region = mappedChannelFileCache.getRegion(channelFile, 3, 4).getBuffer();
+
+			assertThat(region.position(), is(0));
+			assertThat(region.remaining(), is(4));
+			assertThat(region.get(), is((byte) 3));
+			assertThat(region.get(3), is((byte) 6));
+			assertThat(mappedChannelFileCache.isMapped(channelFile), is(true));
+		}
+
+		@Test
+		public void regionsIndependent() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+
+			ByteBuffer first = mappedChannelFileCache.getRegion(channelFile, 0, 5).getBuffer();
+			first.get();
+			ByteBuffer second = mappedChannelFileCache.getRegion(channelFile, 0, 5).getBuffer();
+
+			assertThat(second.position(), is(0));
+			assertThat(second.get(), is((byte) 0));
+		}
+
+		@Test
+		public void regionPastFileEnd() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+
+			assertThat(mappedChannelFileCache.getRegion(channelFile, 2, 4), is(nullValue()));
+			assertThat(mappedChannelFileCache.getRegion(channelFile, -1, 2), is(nullValue()));
+		}
+
+		@Test
+		public void fileGrown() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			assertThat(mappedChannelFileCache.getRegion(channelFile, 0, 4), is(notNullValue()));
+
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 });
+			MappedRegion region = mappedChannelFileCache.getRegion(channelFile, 4, 4);
+
+			assertThat(region, is(notNullValue()));
+			assertThat(region.getBuffer().get(), is((byte) 4));
+		}
+
+		@Test
+		public void fileBiggerThanMaximum() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 });
+			mappedChannelFileCache.setMaxMappedSize(4);
+
+			assertThat(mappedChannelFileCache.getRegion(channelFile, 0, 2), is(nullValue()));
+			assertThat(mappedChannelFileCache.isMapped(channelFile), is(false));
+		}
+
+		@Test
+		public void leastRecentlyUsedReleased() throws IOException {
+			Path secondFile = directory.resolve("2.itdata");
+			Path thirdFile = directory.resolve("3.itdata");
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			Files.write(secondFile, new byte[] { 0, 1, 2, 3 });
+			Files.write(thirdFile, new byte[] { 0, 1, 2, 3 });
+			mappedChannelFileCache.setMaxMappedSize(8);
+
+			mappedChannelFileCache.getRegion(channelFile, 0, 4).close();
+			mappedChannelFileCache.getRegion(secondFile, 0, 4).close();
+			mappedChannelFileCache.getRegion(channelFile, 0, 4).close();
+			mappedChannelFileCache.getRegion(thirdFile, 0, 4).close();
+
+			assertThat(mappedChannelFileCache.isMapped(channelFile), is(true));
+			assertThat(mappedChannelFileCache.isMapped(secondFile), is(false));
+			assertThat(mappedChannelFileCache.isMapped(thirdFile), is(true));
+			assertThat(mappedChannelFileCache.getMappedSize(), is(8L));
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void fileNotExisting() throws IOException {
+			mappedChannelFileCache.getRegion(channelFile, 0, 1);
+		}
+
+		@Test
+		public void deserializeFromRegion() throws IOException, SerializationException {
+			SerializationManager serializer = createSerializer();
+			List<DefaultData> data = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				TimerData timerData = new TimerData(new Timestamp(i), i, i + 1, i + 2);
+				timerData.setDuration(i * 1.5d);
+				data.add(timerData);
+				SqlStatementData sqlStatementData = new SqlStatementData(new Timestamp(i), i, i + 1, i + 2, "SELECT * FROM TABLE_" + i + " WHERE ÄÖÜ = ?");
+				data.add(sqlStatementData);
+				InvocationSequenceData invocationSequenceData = new InvocationSequenceData(new Timestamp(i), i, i + 1, i + 2);
+				invocationSequenceData.setChildCount(i);
+				data.add(invocationSequenceData);
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			bytes.write(new byte[] { 1, 2, 3 });
+			Output output = new Output(bytes);
+			for (DefaultData defaultData : data) {
+				serializer.serialize(defaultData, output);
+			}
+			output.flush();
+			Files.write(channelFile, bytes.toByteArray());
+
+			ByteBuffer region = mappedChannelFileCache.getRegion(channelFile, 3, bytes.size() - 3).getBuffer();
+			ByteBufferInput input = new ByteBufferInput(region);
+			List<Object> deserialized = new ArrayList<>();
+			while (KryoUtil.hasMoreBytes(input)) {
+				deserialized.add(serializer.deserialize(input));
+			}
+
+			assertThat(deserialized, is(equalTo((Object) new ArrayList<Object>(data))));
+		}
+
+		private SerializationManager createSerializer() throws IOException {
+			schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+			schemaManager.loadSchemasFromLocations();
+
+			SerializationManager serializer = new SerializationManager();
+			serializer.setSchemaManager(schemaManager);
+			serializer.setKryoNetNetwork(new KryoNetNetwork());
+			serializer.initKryo();
+
+			SerializationManagerPostProcessor postProcessor = new SerializationManagerPostProcessor();
+			postProcessor.postProcessAfterInitialization(serializer, "mappedChannelFileCacheTest");
+			return serializer;
+		}
+	}
+
+	public class Release extends MappedChannelFileCacheTest {
+
+		@Test
+		public void directory() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			Path otherDirectory = Files.createTempDirectory("mapped-channel-file-cache-other");
+			Path otherFile = otherDirectory.resolve("1.itdata");
+			try {
+				Files.write(otherFile, new byte[] { 0, 1, 2, 3 });
+				mappedChannelFileCache.getRegion(channelFile, 0, 4);
+				mappedChannelFileCache.getRegion(otherFile, 0, 4);
+
+				mappedChannelFileCache.release(directory);
+
+				assertThat(mappedChannelFileCache.isMapped(channelFile), is(false));
+				assertThat(mappedChannelFileCache.isMapped(otherFile), is(true));
+			} finally {
+				mappedChannelFileCache.releaseAll();
+				FileUtils.deleteQuietly(otherDirectory.toFile());
+			}
+		}
+
+		@Test
+		public void all() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			mappedChannelFileCache.getRegion(channelFile, 0, 4);
+
+			mappedChannelFileCache.releaseAll();
+
+			assertThat(mappedChannelFileCache.isMapped(channelFile), is(false));
+		}
+
+		@Test
+		public void unmapped() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			mappedChannelFileCache.getRegion(channelFile, 0, 4).close();
+			assertThat(mappedChannelFileCache.getMappedSize(), is(4L));
+
+			mappedChannelFileCache.release(directory);
+
+			assertThat(mappedChannelFileCache.getMappedSize(), is(0L));
+			Files.delete(channelFile);
+			assertThat(Files.exists(channelFile), is(false));
+		}
+
+		@Test
+		public void unmappedWhenRegionClosed() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			MappedRegion region = mappedChannelFileCache.getRegion(channelFile, 0, 4);
+
+			mappedChannelFileCache.release(directory);
+
+			assertThat(mappedChannelFileCache.isMapped(channelFile), is(false));
+			assertThat(mappedChannelFileCache.getMappedSize(), is(4L));
+			assertThat(region.getBuffer().get(3), is((byte) 3));
+
+			region.close();
+			region.close();
+
+			assertThat(mappedChannelFileCache.getMappedSize(), is(0L));
+		}
+
+		@Test
+		public void remappedWhenFileGrown() throws IOException {
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3 });
+			mappedChannelFileCache.getRegion(channelFile, 0, 4).close();
+
+			Files.write(channelFile, new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 });
+			mappedChannelFileCache.getRegion(channelFile, 4, 4).close();
+
+			assertThat(mappedChannelFileCache.getMappedSize(), is(8L));
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package rocks.inspectit.shared.cs.storage.processor.write.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.AggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.storage.StorageData;
+import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.StorageWriter;
+
+/**
+ * Tests the {@link RollupTierDataProcessor}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class RollupTierDataProcessorTest extends TestBase {
+
+	private static final long PERIOD = 10000L;
+
+	private static final long COARSE_PERIOD = 60000L;
+
+	private static final Map<?, ?> PREFERENCES = Collections.emptyMap();
+
+	RollupTierDataProcessor processor;
+
+	@Mock
+	StorageWriter storageWriter;
+
+	@Mock
+	StorageManager storageManager;
+
+	@Mock
+	StorageData storageData;
+
+	@BeforeMethod
+	public void init() throws Exception {
+		processor = new RollupTierDataProcessor(new long[] { PERIOD, COARSE_PERIOD, 0L });
+		processor.onPrepare(storageManager, storageWriter, storageData);
+	}
+
+	public class CanBeProcessed extends RollupTierDataProcessorTest {
+
+		@Test
+		public void timerData() {
+			assertThat(processor.canBeProcessed(timerData(1L, 1000L, 1L)), is(true));
+		}
+
+		@Test
+		public void platformData() {
+			CpuInformationData cpuInformationData = new CpuInformationData(new Timestamp(1000L), 1L, 2L);
+			assertThat(processor.canBeProcessed(cpuInformationData), is(true));
+		}
+
+		@Test
+		public void invocation() {
+			InvocationSequenceData invocation = new InvocationSequenceData(new Timestamp(1000L), 1L, 2L, 3L);
+			assertThat(processor.canBeProcessed(invocation), is(false));
+		}
+
+		@Test
+		public void noTimestamp() {
+			TimerData timerData = new TimerData();
+			assertThat(processor.canBeProcessed(timerData), is(false));
+		}
+	}
+
+	public class Process extends RollupTierDataProcessorTest {
+
+		@Test
+		public void aggregatedInBucket() throws Exception {
+			processor.process(timerData(1L, 1000L, 1L), PREFERENCES);
+			processor.process(timerData(2L, 5000L, 1L), PREFERENCES);
+			processor.process(timerData(3L, 9999L, 1L), PREFERENCES);
+
+			verify(storageWriter, never()).writeRollup(any(DefaultData.class), anyLong());
+			processor.beforeFinalization(storageManager, storageWriter, storageData);
+
+			List<DefaultData> rollups = captureRollups(PERIOD, 1);
+			assertThat(rollups.get(0), is(instanceOf(AggregatedTimerData.class)));
+			AggregatedTimerData rollup = (AggregatedTimerData) rollups.get(0);
+			assertThat(rollup.getCount(), is(3L));
+			assertThat(rollup.getTimeStamp().getTime(), is(0L));
+			assertThat(rollup.getMethodIdent(), is(1L));
+			assertThat(rollup.getPlatformIdent(), is(10L));
+			assertThat(rollup.getAggregatedIds(), is(empty()));
+			captureRollups(COARSE_PERIOD, 1);
+		}
+
+		@Test
+		public void separatedByMethod() throws Exception {
+			processor.process(timerData(1L, 1000L, 1L), PREFERENCES);
+			processor.process(timerData(2L, 1000L, 2L), PREFERENCES);
+
+			processor.beforeFinalization(storageManager, storageWriter, storageData);
+
+			captureRollups(PERIOD, 2);
+		}
+
+		@Test
+		public void closedBucketWritten() throws Exception {
+			processor.process(timerData(1L, 1000L, 1L), PREFERENCES);
+			processor.process(timerData(2L, 15000L, 1L), PREFERENCES);
+
+			verify(storageWriter, never()).writeRollup(any(DefaultData.class), anyLong());
+
+			processor.process(timerData(3L, 20000L, 1L), PREFERENCES);
+
+			List<DefaultData> rollups = captureRollups(PERIOD, 1);
+			assertThat(rollups.get(0).getTimeStamp().getTime(), is(0L));
+			assertThat(((TimerData) rollups.get(0)).getCount(), is(1L));
+			verify(storageWriter, never()).writeRollup(any(DefaultData.class), eq(COARSE_PERIOD));
+		}
+
+		@Test
+		public void maxOpenBuckets() throws Exception {
+			processor = new RollupTierDataProcessor(new long[] { PERIOD }, 1);
+			processor.onPrepare(storageManager, storageWriter, storageData);
+
+			processor.process(timerData(1L, 1000L, 1L), PREFERENCES);
+			processor.process(timerData(2L, 1000L, 2L), PREFERENCES);
+
+			List<DefaultData> rollups = captureRollups(PERIOD, 1);
+			assertThat(((TimerData) rollups.get(0)).getMethodIdent(), is(1L));
+		}
+
+		@Test
+		public void finalizationWritesAllTiers() throws Exception {
+			processor.process(timerData(1L, 1000L, 1L), PREFERENCES);
+			processor.process(timerData(2L, 11000L, 1L), PREFERENCES);
+
+			processor.beforeFinalization(storageManager, storageWriter, storageData);
+
+			List<DefaultData> rollups = captureRollups(PERIOD, 2);
+			assertThat(timestamps(rollups), contains(0L, 10000L));
+			rollups = captureRollups(COARSE_PERIOD, 1);
+			assertThat(((TimerData) rollups.get(0)).getCount(), is(2L));
+		}
+	}
+
+	TimerData timerData(long id, long time, long methodIdent) {
+		TimerData timerData = new TimerData(new Timestamp(time), 10L, 20L, methodIdent);
+		timerData.setId(id);
+		timerData.setCount(1L);
+		timerData.setDuration(10d);
+		timerData.calculateMin(10d);
+		timerData.calculateMax(10d);
+		return timerData;
+	}
+
+	List<DefaultData> captureRollups(long period, int expectedCount) {
+		ArgumentCaptor<DefaultData> captor = ArgumentCaptor.forClass(DefaultData.class);
+		verify(storageWriter, times(expectedCount)).writeRollup(captor.capture(), eq(period));
+		assertThat(captor.getAllValues(), hasSize(expectedCount));
+		return captor.getAllValues();
+	}
+
+	List<Long> timestamps(List<DefaultData> data) {
+		List<Long> timestamps = new ArrayList<>();
+		for (DefaultData defaultData : data) {
+			timestamps.add(defaultData.getTimeStamp().getTime());
+		}
+		return timestamps;
+	}
+}
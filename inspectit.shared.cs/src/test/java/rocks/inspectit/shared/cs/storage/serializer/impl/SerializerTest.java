@@ -5,6 +5,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.nullValue;
 
 import java.io.IOException;
@@ -70,6 +71,8 @@ import rocks.inspectit.shared.all.serializer.schema.ClassSchemaManager;
 import rocks.inspectit.shared.all.testbase.TestBase;
 import rocks.inspectit.shared.all.util.KryoNetNetwork;
 import rocks.inspectit.shared.cs.communication.data.cmr.RecordingData;
+import rocks.inspectit.shared.cs.indexing.impl.IndexQuery;
+import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.InvocationChildrenIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.MethodIdentIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.ObjectTypeIndexer;
@@ -404,6 +407,51 @@ public class SerializerTest extends TestBase {
 		}
 	}
 
+	/**
+	 * Tests that the index of the leaf where elements written in the same compressed block share
+	 * the descriptor is much smaller than the index with one descriptor per element.
+	 */
+	@Test
+	public void storageLeafIndexSize() throws Exception {
+		// before: every element has its own descriptor
+		ArrayBasedStorageLeaf<DefaultData> perElementLeaf = createStorageLeaf(10000, 1);
+		// after: 100 elements written in the same block share the descriptor
+		ArrayBasedStorageLeaf<DefaultData> perBlockLeaf = createStorageLeaf(10000, 100);
+
+		long perElementSize = getSerializedSize(perElementLeaf);
+		long perBlockSize = getSerializedSize(perBlockLeaf);
+
+		// at least 2.5 times smaller, remaining size are the element ids and the references
+		assertThat(perBlockSize * 5, is(lessThan(perElementSize * 2)));
+		ArrayBasedStorageLeaf<DefaultData> deserialized = serializeBackAndForth(perBlockLeaf);
+		IndexQuery query = new IndexQuery();
+		assertThat(deserialized.query(query), is(equalTo(perBlockLeaf.query(query))));
+	}
+
+	/**
+	 * Creates the leaf with the given amount of elements, where the given amount of successive
+	 * elements is written in the same block.
+	 */
+	private ArrayBasedStorageLeaf<DefaultData> createStorageLeaf(int elements, int elementsPerBlock) throws IndexingException {
+		ArrayBasedStorageLeaf<DefaultData> leaf = new ArrayBasedStorageLeaf<>(1);
+		for (int i = 0; i < elements; i++) {
+			TimerData timerData = new TimerData();
+			timerData.setId(i + 1L);
+			int block = i / elementsPerBlock;
+			leaf.put(timerData).setPositionAndSize(block * 65536L, 65536L);
+		}
+		return leaf;
+	}
+
+	/**
+	 * Returns the amount of bytes the object is serialized to.
+	 */
+	private long getSerializedSize(Object object) throws SerializationException {
+		Output output = new Output(4096, -1);
+		serializer.serialize(object, output);
+		return output.total();
+	}
+
 	private void throwIOException() throws IOException {
 		throw new IOException("Just for testing");
 	}
@@ -0,0 +1,172 @@
+package rocks.inspectit.shared.cs.storage.transfer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link TransferState} and {@link ChunkedTransferUtil}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class TransferStateTest extends TestBase {
+
+	Path directory;
+
+	Path stateFile;
+
+	@BeforeMethod
+	public void init() throws IOException {
+		directory = Files.createTempDirectory("transfer-state");
+		stateFile = directory.resolve("file" + ChunkedTransferUtil.STATE_EXTENSION);
+	}
+
+	@AfterMethod
+	public void delete() throws IOException {
+		FileUtils.deleteQuietly(directory.toFile());
+	}
+
+	public class Open extends TransferStateTest {
+
+		@Test
+		public void newState() {
+			TransferState state = TransferState.open(stateFile, 25, 10);
+
+			assertThat(state.getChunkCount(), is(3));
+			assertThat(state.getCompletedChunks(), is(empty()));
+			assertThat(state.getMissingChunks(), contains(0, 1, 2));
+			assertThat(state.isComplete(), is(false));
+		}
+
+		@Test
+		public void resume() throws IOException {
+			TransferState state = TransferState.open(stateFile, 25, 10);
+			state.markCompleted(0);
+			state.markCompleted(2);
+
+			TransferState resumed = TransferState.open(stateFile, 25, 10);
+
+			assertThat(resumed.getCompletedChunks(), contains(0, 2));
+			assertThat(resumed.getMissingChunks(), contains(1));
+			assertThat(resumed.isCompleted(2), is(true));
+			assertThat(resumed.isCompleted(1), is(false));
+		}
+
+		@Test
+		public void differentTransferNotResumed() throws IOException {
+			TransferState state = TransferState.open(stateFile, 25, 10);
+			state.markCompleted(0);
+
+			assertThat(TransferState.open(stateFile, 26, 10).getCompletedChunks(), is(empty()));
+			assertThat(TransferState.open(stateFile, 25, 5).getCompletedChunks(), is(empty()));
+		}
+
+		@Test
+		public void corruptedStateNotResumed() throws IOException {
+			Files.write(stateFile, new byte[] { 1, 2, 3 });
+
+			assertThat(TransferState.open(stateFile, 25, 10).getCompletedChunks(), is(empty()));
+		}
+
+		@Test
+		public void deleteState() throws IOException {
+			TransferState state = TransferState.open(stateFile, 25, 10);
+			state.markCompleted(1);
+			state.delete();
+
+			assertThat(Files.exists(stateFile), is(false));
+		}
+	}
+
+	public class MarkCompleted extends TransferStateTest {
+
+		@Test
+		public void complete() throws IOException {
+			TransferState state = TransferState.open(stateFile, 20, 10);
+			state.markCompleted(1);
+			state.markCompleted(0);
+
+			assertThat(state.isComplete(), is(true));
+			assertThat(state.getMissingChunks(), is(empty()));
+		}
+
+		@Test
+		public void emptyFile() throws IOException {
+			TransferState state = TransferState.open(stateFile, 0, 10);
+			state.markCompleted(0);
+
+			assertThat(state.getChunkCount(), is(1));
+			assertThat(state.isComplete(), is(true));
+		}
+
+		@Test(expectedExceptions = IllegalArgumentException.class)
+		public void outOfBounds() throws IOException {
+			TransferState.open(stateFile, 20, 10).markCompleted(2);
+		}
+	}
+
+	public class Util extends TransferStateTest {
+
+		@Test
+		public void chunks() {
+			assertThat(ChunkedTransferUtil.getChunkCount(10, 10), is(1));
+			assertThat(ChunkedTransferUtil.getChunkCount(11, 10), is(2));
+			assertThat(ChunkedTransferUtil.getChunkLength(25, 10, 1), is(10));
+			assertThat(ChunkedTransferUtil.getChunkLength(25, 10, 2), is(5));
+			assertThat(ChunkedTransferUtil.getChunkOffset(10, 2), is(20L));
+			assertThat(ChunkedTransferUtil.getChunkOffset(Integer.MAX_VALUE, 2), is(2L * Integer.MAX_VALUE));
+		}
+
+		@Test
+		public void formatAndParse() {
+			assertThat(ChunkedTransferUtil.formatChunks(Arrays.asList(0, 3, 5)), is("0,3,5"));
+			assertThat(ChunkedTransferUtil.parseChunks("0,3,5\n"), contains(0, 3, 5));
+			assertThat(ChunkedTransferUtil.parseChunks(""), is(empty()));
+			assertThat(ChunkedTransferUtil.parseChunks(null), is(empty()));
+		}
+
+		@Test
+		public void writeAndReadChunks() throws IOException {
+			Path file = directory.resolve("file");
+			ChunkedTransferUtil.writeChunk(file, 4, new byte[] { 5, 6, 7 });
+			ChunkedTransferUtil.writeChunk(file, 0, new byte[] { 1, 2, 3, 4 });
+
+			assertThat(Files.readAllBytes(file), is(new byte[] { 1, 2, 3, 4, 5, 6, 7 }));
+			assertThat(ChunkedTransferUtil.readChunk(file, 2, 3), is(new byte[] { 3, 4, 5 }));
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void readChunkStreamTooShort() throws IOException {
+			ChunkedTransferUtil.readChunk(new ByteArrayInputStream(new byte[2]), 3);
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void readChunkStreamTooLong() throws IOException {
+			ChunkedTransferUtil.readChunk(new ByteArrayInputStream(new byte[4]), 3);
+		}
+
+		@Test
+		public void checksum() {
+			byte[] bytes = new byte[] { 1, 2, 3 };
+
+			assertThat(ChunkedTransferUtil.checksum(bytes, 0, 3), is(ChunkedTransferUtil.checksum(new byte[] { 0, 1, 2, 3 }, 1, 3)));
+			assertThat(ChunkedTransferUtil.checksum(bytes, 0, 3) == ChunkedTransferUtil.checksum(new byte[] { 1, 2, 4 }, 0, 3), is(false));
+		}
+	}
+}
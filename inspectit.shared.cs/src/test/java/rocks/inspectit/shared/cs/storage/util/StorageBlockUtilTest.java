@@ -0,0 +1,263 @@
+package rocks.inspectit.shared.cs.storage.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.SimpleStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+
+/**
+ * Tests the {@link StorageBlockUtil}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class StorageBlockUtilTest extends TestBase {
+
+	SerializationManager serializer;
+
+	@InjectMocks
+	ClassSchemaManager schemaManager;
+
+	@Mock
+	Logger log;
+
+	/**
+	 * Bytes of the file holding two blocks.
+	 */
+	byte[] file;
+
+	/**
+	 * Frame size of the first block.
+	 */
+	int firstFrameSize;
+
+	/**
+	 * Frame size of the second block.
+	 */
+	int secondFrameSize;
+
+	@BeforeMethod
+	public void init() throws IOException, SerializationException {
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		serializer = new SerializationManager();
+		serializer.setSchemaManager(schemaManager);
+		serializer.setKryoNetNetwork(new KryoNetNetwork());
+		serializer.initKryo();
+
+		// first block has timer data with ids 1-100, second 101-200
+		ByteBuffer first = compress(1, 100);
+		ByteBuffer second = compress(101, 200);
+		firstFrameSize = first.remaining();
+		secondFrameSize = second.remaining();
+
+		ByteArrayOutputStream fileStream = new ByteArrayOutputStream();
+		fileStream.write(first.array(), 0, first.remaining());
+		fileStream.write(second.array(), 0, second.remaining());
+		file = fileStream.toByteArray();
+	}
+
+	public class Compress extends StorageBlockUtilTest {
+
+		@Test
+		public void smallerThanBlock() throws Exception {
+			List<Integer> offsets = new ArrayList<>();
+			byte[] bytes = serialize(1, 100, offsets);
+			int length = offsets.get(offsets.size() - 1);
+
+			ByteBuffer frame = StorageBlockUtil.compress(ids(1, 100), toArray(offsets), 100, bytes, length);
+
+			int blockLength = StorageBlockUtil.DIRECTORY_HEADER_SIZE + (100 * StorageBlockUtil.DIRECTORY_ENTRY_SIZE) + length;
+			assertThat(frame.remaining(), is(lessThan(length)));
+			assertThat(frame.getInt(0), is(frame.remaining() - StorageBlockUtil.FRAME_HEADER_SIZE));
+			assertThat(frame.getInt(4), is(blockLength));
+		}
+	}
+
+	public class GetReadRanges extends StorageBlockUtilTest {
+
+		@Test
+		public void duplicatesAndAdjacentJoined() {
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(blockDescriptor(100, 50, 3L));
+			descriptors.add(blockDescriptor(0, 100, 1L));
+			descriptors.add(blockDescriptor(0, 100, 2L));
+			descriptors.add(blockDescriptor(300, 20, 4L));
+
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(descriptors);
+
+			assertThat(ranges, hasSize(2));
+			assertThat(ranges.get(0).getStart(), is(0L));
+			assertThat(ranges.get(0).getEnd(), is(149L));
+			assertThat(ranges.get(1).getStart(), is(300L));
+			assertThat(ranges.get(1).getEnd(), is(319L));
+		}
+	}
+
+	public class Deserialize extends StorageBlockUtilTest {
+
+		@Test
+		public void singleObjects() throws Exception {
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(blockDescriptor(0, firstFrameSize, 50L));
+			descriptors.add(blockDescriptor(0, firstFrameSize, 5L));
+			descriptors.add(blockDescriptor(0, firstFrameSize, 100L));
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(descriptors);
+
+			List<TimerData> result = StorageBlockUtil.deserialize(descriptors, ranges, new ByteArrayInputStream(file, 0, firstFrameSize), serializer);
+
+			assertThat(result, hasSize(3));
+			assertThat(ids(result), contains(5L, 50L, 100L));
+		}
+
+		@Test
+		public void singleObjectsInBothBlocks() throws Exception {
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(blockDescriptor(0, firstFrameSize, 1L));
+			descriptors.add(blockDescriptor(firstFrameSize, secondFrameSize, 200L));
+			// not in the block
+			descriptors.add(blockDescriptor(firstFrameSize, secondFrameSize, 300L));
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(descriptors);
+
+			List<TimerData> result = StorageBlockUtil.deserialize(descriptors, ranges, new ByteArrayInputStream(file), serializer);
+
+			assertThat(result, hasSize(2));
+			assertThat(ids(result), contains(1L, 200L));
+		}
+
+		@Test
+		public void completeFrames() throws Exception {
+			StorageDescriptor descriptor = new StorageDescriptor(1, 0, firstFrameSize + secondFrameSize);
+			List<IStorageDescriptor> descriptors = Collections.<IStorageDescriptor> singletonList(descriptor);
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(descriptors);
+
+			List<TimerData> result = StorageBlockUtil.deserialize(descriptors, ranges, new ByteArrayInputStream(file), serializer);
+
+			assertThat(result, hasSize(200));
+			assertThat(result.get(0).getId(), is(1L));
+			assertThat(result.get(199).getId(), is(200L));
+		}
+
+		@Test
+		public void onlySecondBlock() throws Exception {
+			StorageDescriptor descriptor = new StorageDescriptor(1, firstFrameSize, secondFrameSize);
+			List<IStorageDescriptor> descriptors = Collections.<IStorageDescriptor> singletonList(descriptor);
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(descriptors);
+
+			List<TimerData> result = StorageBlockUtil.deserialize(descriptors, ranges, new ByteArrayInputStream(file, firstFrameSize, secondFrameSize), serializer);
+
+			assertThat(result, hasSize(100));
+			assertThat(result.get(0).getId(), is(101L));
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void corruptedFrame() throws Exception {
+			byte[] corrupted = Arrays.copyOf(file, firstFrameSize);
+			// de-compressed length in header does not match
+			ByteBuffer.wrap(corrupted).putInt(4, 10);
+			StorageDescriptor descriptor = new StorageDescriptor(1, 0, firstFrameSize);
+			List<IStorageDescriptor> descriptors = Collections.<IStorageDescriptor> singletonList(descriptor);
+
+			StorageBlockUtil.deserialize(descriptors, StorageBlockUtil.getReadRanges(descriptors), new ByteArrayInputStream(corrupted), serializer);
+		}
+
+		@Test(expectedExceptions = IOException.class)
+		public void corruptedDirectory() throws Exception {
+			List<Integer> offsets = new ArrayList<>();
+			byte[] bytes = serialize(1, 10, offsets);
+			int[] directoryOffsets = toArray(offsets);
+			// offset of the last object points outside of the block
+			directoryOffsets[9] = Integer.MAX_VALUE;
+			ByteBuffer frame = StorageBlockUtil.compress(ids(1, 10), directoryOffsets, 10, bytes, offsets.get(offsets.size() - 1));
+			List<IStorageDescriptor> descriptors = Collections.<IStorageDescriptor> singletonList(blockDescriptor(0, frame.remaining(), 10L));
+
+			StorageBlockUtil.deserialize(descriptors, StorageBlockUtil.getReadRanges(descriptors), new ByteArrayInputStream(frame.array(), 0, frame.remaining()), serializer);
+		}
+	}
+
+	/**
+	 * Serializes timer data with given id range one after another. Offsets of each object are
+	 * added to the list, the last element in the list is the total length.
+	 */
+	byte[] serialize(long fromId, long toId, List<Integer> offsets) throws SerializationException {
+		Output output = new Output(4096, -1);
+		for (long id = fromId; id <= toId; id++) {
+			TimerData timerData = new TimerData(new Timestamp(id), 1L, 2L, 3L);
+			timerData.setId(id);
+			timerData.setCount(1L);
+			offsets.add(output.position());
+			serializer.serialize(timerData, output);
+		}
+		offsets.add(output.position());
+		return output.getBuffer();
+	}
+
+	/**
+	 * Serializes and compresses timer data with given id range to one block frame.
+	 */
+	ByteBuffer compress(long fromId, long toId) throws SerializationException {
+		List<Integer> offsets = new ArrayList<>();
+		byte[] bytes = serialize(fromId, toId, offsets);
+		int count = (int) ((toId - fromId) + 1);
+		return StorageBlockUtil.compress(ids(fromId, toId), toArray(offsets), count, bytes, offsets.get(count));
+	}
+
+	StorageDescriptor blockDescriptor(long position, long size, long elementId) {
+		return new StorageDescriptor(1, new SimpleStorageDescriptor(position, (int) size), elementId);
+	}
+
+	long[] ids(long fromId, long toId) {
+		long[] ids = new long[(int) ((toId - fromId) + 1)];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = fromId + i;
+		}
+		return ids;
+	}
+
+	int[] toArray(List<Integer> offsets) {
+		int[] array = new int[offsets.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = offsets.get(i);
+		}
+		return array;
+	}
+
+	List<Long> ids(List<TimerData> data) {
+		List<Long> ids = new ArrayList<>();
+		for (TimerData timerData : data) {
+			ids.add(timerData.getId());
+		}
+		return ids;
+	}
+}
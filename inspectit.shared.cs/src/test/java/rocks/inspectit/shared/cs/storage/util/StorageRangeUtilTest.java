@@ -0,0 +1,231 @@
+package rocks.inspectit.shared.cs.storage.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.serializer.SerializationException;
+import rocks.inspectit.shared.all.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.impl.StorageDescriptor;
+
+/**
+ * Tests the {@link StorageRangeUtil}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class StorageRangeUtilTest extends TestBase {
+
+	SerializationManager serializer;
+
+	@InjectMocks
+	ClassSchemaManager schemaManager;
+
+	@Mock
+	Logger log;
+
+	/**
+	 * Bytes of the file holding timer data with ids 1-100 one after another.
+	 */
+	byte[] file;
+
+	/**
+	 * Offsets of the objects in the file, the last element is the file length.
+	 */
+	List<Integer> offsets;
+
+	@BeforeMethod
+	public void init() throws IOException, SerializationException {
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		serializer = new SerializationManager();
+		serializer.setSchemaManager(schemaManager);
+		serializer.setKryoNetNetwork(new KryoNetNetwork());
+		serializer.initKryo();
+
+		offsets = new ArrayList<>();
+		file = serialize(1, 100, offsets);
+	}
+
+	public class Coalesce extends StorageRangeUtilTest {
+
+		@Test
+		public void gapInThreshold() {
+			List<RangeDescriptor> ranges = Arrays.asList(new RangeDescriptor(0, 99), new RangeDescriptor(150, 199), new RangeDescriptor(1000, 1099));
+
+			List<RangeDescriptor> coalesced = StorageRangeUtil.coalesce(ranges, 50);
+
+			assertThat(coalesced, hasSize(2));
+			assertThat(coalesced.get(0).getStart(), is(0L));
+			assertThat(coalesced.get(0).getEnd(), is(199L));
+			assertThat(coalesced.get(1).getStart(), is(1000L));
+			assertThat(coalesced.get(1).getEnd(), is(1099L));
+			// original not changed
+			assertThat(ranges.get(0).getEnd(), is(99L));
+		}
+
+		@Test
+		public void noGap() {
+			List<RangeDescriptor> ranges = Arrays.asList(new RangeDescriptor(0, 99), new RangeDescriptor(101, 199));
+
+			List<RangeDescriptor> coalesced = StorageRangeUtil.coalesce(ranges, 0);
+
+			assertThat(coalesced, hasSize(2));
+		}
+	}
+
+	public class Deserialize extends StorageRangeUtilTest {
+
+		@Test
+		public void gapsSkipped() throws Exception {
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(descriptor(50));
+			descriptors.add(descriptor(2));
+			descriptors.add(descriptor(10));
+			descriptors.add(descriptor(11));
+			List<RangeDescriptor> ranges = StorageRangeUtil.coalesce(StorageBlockUtil.getReadRanges(descriptors), Long.MAX_VALUE);
+
+			List<TimerData> result = StorageRangeUtil.deserialize(descriptors, ranges, content(ranges), serializer);
+
+			assertThat(ranges, hasSize(1));
+			assertThat(ids(result), contains(2L, 10L, 11L, 50L));
+		}
+
+		@Test
+		public void notCoalesced() throws Exception {
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(descriptor(1));
+			descriptors.add(descriptor(5));
+			descriptors.add(descriptor(100));
+			List<RangeDescriptor> ranges = StorageRangeUtil.coalesce(StorageBlockUtil.getReadRanges(descriptors), 0);
+
+			List<TimerData> result = StorageRangeUtil.deserialize(descriptors, ranges, content(ranges), serializer);
+
+			assertThat(ranges, hasSize(3));
+			assertThat(ids(result), contains(1L, 5L, 100L));
+		}
+
+		@Test
+		public void joinedDescriptor() throws Exception {
+			StorageDescriptor descriptor = new StorageDescriptor(1, offsets.get(10), offsets.get(20) - offsets.get(10));
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(descriptor);
+			descriptors.add(descriptor);
+			List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(descriptors);
+
+			List<TimerData> result = StorageRangeUtil.deserialize(descriptors, ranges, content(ranges), serializer);
+
+			assertThat(result, hasSize(10));
+			assertThat(result.get(0).getId(), is(11L));
+		}
+
+		@Test(expectedExceptions = EOFException.class)
+		public void contentTooShort() throws Exception {
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(descriptor(1));
+			descriptors.add(descriptor(100));
+			List<RangeDescriptor> ranges = StorageRangeUtil.coalesce(StorageBlockUtil.getReadRanges(descriptors), Long.MAX_VALUE);
+
+			StorageRangeUtil.deserialize(descriptors, ranges, new ByteArrayInputStream(file, 0, offsets.get(50)), serializer);
+		}
+
+		@Test
+		public void blocksWithSkippedFrame() throws Exception {
+			ByteArrayOutputStream blockFile = new ByteArrayOutputStream();
+			List<Integer> framePositions = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				List<Integer> blockOffsets = new ArrayList<>();
+				byte[] bytes = serialize((i * 10) + 1, (i * 10) + 10, blockOffsets);
+				long[] ids = new long[10];
+				int[] objectOffsets = new int[10];
+				for (int j = 0; j < 10; j++) {
+					ids[j] = (i * 10) + j + 1;
+					objectOffsets[j] = blockOffsets.get(j);
+				}
+				ByteBuffer frame = StorageBlockUtil.compress(ids, objectOffsets, 10, bytes, blockOffsets.get(blockOffsets.size() - 1));
+				framePositions.add(blockFile.size());
+				blockFile.write(frame.array(), 0, frame.remaining());
+			}
+			framePositions.add(blockFile.size());
+			List<IStorageDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(new StorageDescriptor(1, framePositions.get(0), framePositions.get(1) - framePositions.get(0)));
+			descriptors.add(new StorageDescriptor(1, framePositions.get(2), framePositions.get(3) - framePositions.get(2)));
+			List<RangeDescriptor> ranges = StorageRangeUtil.coalesce(StorageBlockUtil.getReadRanges(descriptors), Long.MAX_VALUE);
+
+			List<TimerData> result = StorageBlockUtil.deserialize(descriptors, ranges, new ByteArrayInputStream(blockFile.toByteArray()), serializer);
+
+			assertThat(ranges, hasSize(1));
+			assertThat(result, hasSize(20));
+			assertThat(result.get(10).getId(), is(21L));
+		}
+	}
+
+	/**
+	 * Serializes timer data with given id range one after another. Offsets of each object are
+	 * added to the list, the last element in the list is the total length.
+	 */
+	byte[] serialize(long fromId, long toId, List<Integer> objectOffsets) throws SerializationException {
+		Output output = new Output(4096, -1);
+		for (long id = fromId; id <= toId; id++) {
+			TimerData timerData = new TimerData(new Timestamp(id), 1L, 2L, 3L);
+			timerData.setId(id);
+			timerData.setCount(1L);
+			objectOffsets.add(output.position());
+			serializer.serialize(timerData, output);
+		}
+		objectOffsets.add(output.position());
+		return output.toBytes();
+	}
+
+	/**
+	 * Descriptor of the timer data with given id in the {@link #file}.
+	 */
+	StorageDescriptor descriptor(int id) {
+		return new StorageDescriptor(1, offsets.get(id - 1), offsets.get(id) - offsets.get(id - 1));
+	}
+
+	/**
+	 * Concatenated content of the ranges in the {@link #file}.
+	 */
+	ByteArrayInputStream content(List<RangeDescriptor> ranges) {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		for (RangeDescriptor range : ranges) {
+			content.write(file, (int) range.getStart(), (int) ((range.getEnd() - range.getStart()) + 1));
+		}
+		return new ByteArrayInputStream(content.toByteArray());
+	}
+
+	List<Long> ids(List<TimerData> data) {
+		List<Long> ids = new ArrayList<>();
+		for (TimerData timerData : data) {
+			ids.add(timerData.getId());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,179 @@
+package rocks.inspectit.shared.cs.storage.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.AggregatedTimerData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Tests the {@link StorageRollupUtil}.
+ *
+ * @author Ivan Senic
+ *
+ */
+@SuppressWarnings("PMD")
+public class StorageRollupUtilTest extends TestBase {
+
+	public class GetRollupClass extends StorageRollupUtilTest {
+
+		@Test
+		public void timerData() {
+			assertThat(StorageRollupUtil.getRollupClass(TimerData.class), is(equalTo((Object) AggregatedTimerData.class)));
+			assertThat(StorageRollupUtil.getRollupClass(AggregatedTimerData.class), is(equalTo((Object) AggregatedTimerData.class)));
+		}
+
+		@Test
+		public void platformData() {
+			assertThat(StorageRollupUtil.getRollupClass(CpuInformationData.class), is(equalTo((Object) CpuInformationData.class)));
+		}
+
+		@Test
+		public void notRolledUp() {
+			assertThat(StorageRollupUtil.getRollupClass(InvocationSequenceData.class), is(nullValue()));
+			assertThat(StorageRollupUtil.getAggregator(InvocationSequenceData.class), is(nullValue()));
+		}
+	}
+
+	public class SelectRollupPeriod extends StorageRollupUtilTest {
+
+		@Test
+		public void coarsestNotBiggerThanResolution() {
+			long period = StorageRollupUtil.selectRollupPeriod(Arrays.asList(10000L, 600000L, 60000L), 100000L);
+
+			assertThat(period, is(60000L));
+		}
+
+		@Test
+		public void resolutionTooFine() {
+			long period = StorageRollupUtil.selectRollupPeriod(Arrays.asList(10000L, 60000L), 5000L);
+
+			assertThat(period, is(StorageRollupUtil.NO_ROLLUP));
+		}
+
+		@Test
+		public void noPeriods() {
+			long period = StorageRollupUtil.selectRollupPeriod(Collections.<Long> emptyList(), 5000L);
+
+			assertThat(period, is(StorageRollupUtil.NO_ROLLUP));
+		}
+	}
+
+	public class ParsePeriods extends StorageRollupUtilTest {
+
+		@Test
+		public void valid() {
+			long[] periods = StorageRollupUtil.parsePeriods(" 10000, 60000,600000");
+
+			assertThat(periods, is(new long[] { 10000L, 60000L, 600000L }));
+		}
+
+		@Test
+		public void invalidIgnored() {
+			long[] periods = StorageRollupUtil.parsePeriods("10000,abc,-5,0,");
+
+			assertThat(periods, is(new long[] { 10000L }));
+		}
+
+		@Test
+		public void empty() {
+			assertThat(StorageRollupUtil.parsePeriods("").length, is(0));
+			assertThat(StorageRollupUtil.parsePeriods(null).length, is(0));
+		}
+	}
+
+	public class IndexFileName extends StorageRollupUtilTest {
+
+		@Test
+		public void periodParsed() {
+			String fileName = StorageRollupUtil.getIndexFileName(60000L, "2a3b_c");
+
+			assertThat(StorageRollupUtil.getRollupPeriod(fileName), is(60000L));
+		}
+
+		@Test
+		public void noPeriod() {
+			assertThat(StorageRollupUtil.getRollupPeriod("2a3b-c"), is(StorageRollupUtil.NO_ROLLUP));
+			assertThat(StorageRollupUtil.getRollupPeriod("abc_def"), is(StorageRollupUtil.NO_ROLLUP));
+		}
+	}
+
+	public class PeriodStart extends StorageRollupUtilTest {
+
+		@Test
+		public void aligned() {
+			assertThat(StorageRollupUtil.getPeriodStart(65432L, 10000L), is(60000L));
+			assertThat(StorageRollupUtil.getPeriodStart(60000L, 10000L), is(60000L));
+		}
+
+		@Test
+		public void firstFrom() {
+			assertThat(StorageRollupUtil.getFirstPeriodStartFrom(65432L, 10000L), is(70000L));
+			assertThat(StorageRollupUtil.getFirstPeriodStartFrom(60000L, 10000L), is(60000L));
+		}
+	}
+
+	public class Rollup extends StorageRollupUtilTest {
+
+		TimerData timerData(long time, long methodIdent, double duration) {
+			TimerData timerData = new TimerData(new Timestamp(time), 1L, 2L, methodIdent);
+			timerData.setId(time);
+			timerData.calculateMin(duration);
+			timerData.calculateMax(duration);
+			timerData.addDuration(duration);
+			timerData.increaseCount();
+			return timerData;
+		}
+
+		@Test
+		public void aggregatedInBuckets() {
+			List<TimerData> data = Arrays.asList(timerData(15000L, 3L, 5d), timerData(1000L, 3L, 1d), timerData(9000L, 3L, 3d), timerData(12000L, 4L, 7d));
+
+			List<DefaultData> result = StorageRollupUtil.rollup(data, 10000L);
+
+			assertThat(result, hasSize(3));
+			AggregatedTimerData first = (AggregatedTimerData) result.get(0);
+			assertThat(first.getTimeStamp().getTime(), is(0L));
+			assertThat(first.getCount(), is(2L));
+			assertThat(first.getMin(), is(1d));
+			assertThat(first.getMax(), is(3d));
+			assertThat(first.getMethodIdent(), is(3L));
+			assertThat(first.getPlatformIdent(), is(1L));
+			assertThat(first.getSensorTypeIdent(), is(2L));
+			for (DefaultData rollup : result.subList(1, 3)) {
+				assertThat(rollup.getTimeStamp().getTime(), is(10000L));
+				assertThat(((AggregatedTimerData) rollup).getCount(), is(1L));
+			}
+		}
+
+		@Test
+		public void notRolledUpUnchanged() {
+			InvocationSequenceData invocation = new InvocationSequenceData(new Timestamp(5000L), 1L, 2L, 3L);
+
+			List<DefaultData> result = StorageRollupUtil.rollup(Collections.singletonList(invocation), 10000L);
+
+			assertThat(result, contains((DefaultData) invocation));
+		}
+
+		@Test
+		public void noData() {
+			assertThat(StorageRollupUtil.rollup(Collections.<DefaultData> emptyList(), 10000L), is(empty()));
+		}
+	}
+}
@@ -106,6 +106,23 @@ public abstract class AbstractPlotController implements PlotController {
 		return samplingRateMode.adjustSamplingRate(dataObjects, from, to, sensitivity.getValue(), aggregator);
 	}
 
+	/**
+	 * Returns the resolution the data is needed in for the given time range. The resolution is
+	 * the time range divided by the amount of points the sampling rate sensitivity defines.
+	 *
+	 * @param from
+	 *            The start time.
+	 * @param to
+	 *            The end time.
+	 * @return Resolution in milliseconds or <code>0</code> if the raw data is needed.
+	 */
+	protected long getResolution(Date from, Date to) {
+		if ((null == sensitivity) || (0 == sensitivity.getValue())) {
+			return 0;
+		}
+		return Math.max(0, (to.getTime() - from.getTime()) / sensitivity.getValue());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -104,6 +104,11 @@ public class DefaultClassesPlotController extends AbstractPlotController {
 	 */
 	private Date newestDate = new Date(0);
 
+	/**
+	 * Resolution of the old data in milliseconds.
+	 */
+	private long dataResolution = 0;
+
 	/**
 	 * {@link IAggregator}.
 	 */
@@ -218,13 +223,15 @@ public class DefaultClassesPlotController extends AbstractPlotController {
 		// boolean rightAppend = to.after(dataNewestDate) &&
 		// (to.equals(newestDate) || to.after(newestDate));
 		boolean rightAppend = to.after(newestDate) || oldToDate.before(to);
+		long resolution = getResolution(from, to);
 
 		List<ClassLoadingInformationData> adjustedClassLoadingData = Collections.emptyList();
 
-		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate)) {
-			// the old data is empty or the range does not fit, thus we need
+		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate) || (resolution < dataResolution)) {
+			// the old data is empty, the range does not fit or the old data is
+			// coarser than needed, thus we need
 			// to access the whole range
-			List<ClassLoadingInformationData> data = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, to);
+			List<ClassLoadingInformationData> data = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, to, resolution);
 
 			if (!data.isEmpty()) {
 				adjustedClassLoadingData = adjustSamplingRate(data, from, to, aggregator);
@@ -237,22 +244,25 @@ public class DefaultClassesPlotController extends AbstractPlotController {
 				}
 			}
 			oldData = data;
+			dataResolution = resolution;
 		} else if (leftAppend && rightAppend) {
 			// we have some data in between, but we need to append something
 			// to the start and to the end
 			Date rightDate = new Date(newestDate.getTime() + 1);
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<ClassLoadingInformationData> rightData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to);
-			List<ClassLoadingInformationData> leftData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate);
+			List<ClassLoadingInformationData> rightData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to, resolution);
+			List<ClassLoadingInformationData> leftData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate, resolution);
 
 			if (!leftData.isEmpty()) {
 				oldData.addAll(0, leftData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
 			if (!rightData.isEmpty()) {
 				oldData.addAll(rightData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(rightData.get(rightData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(rightData.get(rightData.size() - 1).getTimeStamp().getTime());
@@ -264,10 +274,11 @@ public class DefaultClassesPlotController extends AbstractPlotController {
 			// just append something on the right
 			Date rightDate = new Date(newestDate.getTime() + 1);
 
-			List<ClassLoadingInformationData> timerData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to);
+			List<ClassLoadingInformationData> timerData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(timerData.get(timerData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(timerData.get(timerData.size() - 1).getTimeStamp().getTime());
@@ -279,10 +290,11 @@ public class DefaultClassesPlotController extends AbstractPlotController {
 			// just append something on the left
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<ClassLoadingInformationData> timerData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate);
+			List<ClassLoadingInformationData> timerData = (List<ClassLoadingInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
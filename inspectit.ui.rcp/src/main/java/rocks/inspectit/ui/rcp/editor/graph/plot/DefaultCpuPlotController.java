@@ -101,6 +101,11 @@ public class DefaultCpuPlotController extends AbstractPlotController {
 	 */
 	private Date newestDate = new Date(0);
 
+	/**
+	 * Resolution of the old data in milliseconds.
+	 */
+	private long dataResolution = 0;
+
 	/**
 	 * {@link IAggregator}.
 	 */
@@ -208,13 +213,15 @@ public class DefaultCpuPlotController extends AbstractPlotController {
 		// boolean rightAppend = to.after(dataNewestDate) &&
 		// (to.equals(newestDate) || to.after(newestDate));
 		boolean rightAppend = to.after(newestDate) || oldToDate.before(to);
+		long resolution = getResolution(from, to);
 
 		List<CpuInformationData> adjustedCpuData = Collections.emptyList();
 
-		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate)) {
-			// the old data is empty or the range does not fit, thus we need
+		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate) || (resolution < dataResolution)) {
+			// the old data is empty, the range does not fit or the old data is
+			// coarser than needed, thus we need
 			// to access the whole range
-			List<CpuInformationData> data = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, to);
+			List<CpuInformationData> data = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, to, resolution);
 
 			if (!data.isEmpty()) {
 				adjustedCpuData = adjustSamplingRate(data, from, to, aggregator);
@@ -227,22 +234,25 @@ public class DefaultCpuPlotController extends AbstractPlotController {
 				}
 			}
 			oldData = data;
+			dataResolution = resolution;
 		} else if (leftAppend && rightAppend) {
 			// we have some data in between, but we need to append something
 			// to the start and to the end
 			Date rightDate = new Date(newestDate.getTime() + 1);
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<CpuInformationData> rightData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to);
-			List<CpuInformationData> leftData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate);
+			List<CpuInformationData> rightData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to, resolution);
+			List<CpuInformationData> leftData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate, resolution);
 
 			if (!leftData.isEmpty()) {
 				oldData.addAll(0, leftData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
 			if (!rightData.isEmpty()) {
 				oldData.addAll(rightData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(rightData.get(rightData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(rightData.get(rightData.size() - 1).getTimeStamp().getTime());
@@ -254,10 +264,11 @@ public class DefaultCpuPlotController extends AbstractPlotController {
 			// just append something on the right
 			Date rightDate = new Date(newestDate.getTime() + 1);
 
-			List<CpuInformationData> timerData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to);
+			List<CpuInformationData> timerData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(timerData.get(timerData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(timerData.get(timerData.size() - 1).getTimeStamp().getTime());
@@ -269,10 +280,11 @@ public class DefaultCpuPlotController extends AbstractPlotController {
 			// just append something on the left
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<CpuInformationData> timerData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate);
+			List<CpuInformationData> timerData = (List<CpuInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
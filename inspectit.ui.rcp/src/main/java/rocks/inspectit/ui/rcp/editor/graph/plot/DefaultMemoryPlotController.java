@@ -119,6 +119,11 @@ public class DefaultMemoryPlotController extends AbstractPlotController {
 	 */
 	private Date newestDate = new Date(0);
 
+	/**
+	 * Resolution of the old data in milliseconds.
+	 */
+	private long dataResolution = 0;
+
 	/**
 	 * {@link IAggregator}.
 	 */
@@ -326,13 +331,15 @@ public class DefaultMemoryPlotController extends AbstractPlotController {
 		// boolean rightAppend = to.after(dataNewestDate) &&
 		// (to.equals(newestDate) || to.after(newestDate));
 		boolean rightAppend = to.after(newestDate) || oldToDate.before(to);
+		long resolution = getResolution(from, to);
 
 		List<MemoryInformationData> adjustedMemoryInformationData = Collections.emptyList();
 
-		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate)) {
-			// the old data is empty or the range does not fit, thus we need
+		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate) || (resolution < dataResolution)) {
+			// the old data is empty, the range does not fit or the old data is
+			// coarser than needed, thus we need
 			// to access the whole range
-			List<MemoryInformationData> data = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, from, to);
+			List<MemoryInformationData> data = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, from, to, resolution);
 
 			if (!data.isEmpty()) {
 				adjustedMemoryInformationData = adjustSamplingRate(data, from, to, aggregator);
@@ -345,22 +352,25 @@ public class DefaultMemoryPlotController extends AbstractPlotController {
 				}
 			}
 			oldData = data;
+			dataResolution = resolution;
 		} else if (leftAppend && rightAppend) {
 			// we have some data in between, but we need to append something
 			// to the start and to the end
 			Date rightDate = new Date(newestDate.getTime() + 1);
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<MemoryInformationData> rightData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, rightDate, to);
-			List<MemoryInformationData> leftData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, from, leftDate);
+			List<MemoryInformationData> rightData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, rightDate, to, resolution);
+			List<MemoryInformationData> leftData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, from, leftDate, resolution);
 
 			if (!leftData.isEmpty()) {
 				oldData.addAll(0, leftData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
 			if (!rightData.isEmpty()) {
 				oldData.addAll(rightData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(rightData.get(rightData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(rightData.get(rightData.size() - 1).getTimeStamp().getTime());
@@ -372,10 +382,11 @@ public class DefaultMemoryPlotController extends AbstractPlotController {
 			// just append something on the right
 			Date rightDate = new Date(newestDate.getTime() + 1);
 
-			List<MemoryInformationData> timerData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, rightDate, to);
+			List<MemoryInformationData> timerData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, rightDate, to, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(timerData.get(timerData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(timerData.get(timerData.size() - 1).getTimeStamp().getTime());
@@ -387,10 +398,11 @@ public class DefaultMemoryPlotController extends AbstractPlotController {
 			// just append something on the left
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<MemoryInformationData> timerData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, from, leftDate);
+			List<MemoryInformationData> timerData = (List<MemoryInformationData>) dataAccessService.getDataObjectsFromToDate(memoryTemplate, from, leftDate, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
@@ -118,6 +118,11 @@ public class DefaultThreadsPlotController extends AbstractPlotController {
 	 */
 	private Date newestDate = new Date(0);
 
+	/**
+	 * Resolution of the old data in milliseconds.
+	 */
+	private long dataResolution = 0;
+
 	/**
 	 * {@link IAggregator}.
 	 */
@@ -290,13 +295,15 @@ public class DefaultThreadsPlotController extends AbstractPlotController {
 		// boolean rightAppend = to.after(dataNewestDate) &&
 		// (to.equals(newestDate) || to.after(newestDate));
 		boolean rightAppend = to.after(newestDate) || oldToDate.before(to);
+		long resolution = getResolution(from, to);
 
 		List<ThreadInformationData> adjustedThreadData = Collections.emptyList();
 
-		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate)) {
-			// the old data is empty or the range does not fit, thus we need
+		if (oldData.isEmpty() || to.before(oldFromDate) || from.after(dataNewestDate) || (resolution < dataResolution)) {
+			// the old data is empty, the range does not fit or the old data is
+			// coarser than needed, thus we need
 			// to access the whole range
-			List<ThreadInformationData> data = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, to);
+			List<ThreadInformationData> data = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, to, resolution);
 
 			if (!data.isEmpty()) {
 				adjustedThreadData = adjustSamplingRate(data, from, to, aggregator);
@@ -309,22 +316,25 @@ public class DefaultThreadsPlotController extends AbstractPlotController {
 				}
 			}
 			oldData = data;
+			dataResolution = resolution;
 		} else if (leftAppend && rightAppend) {
 			// we have some data in between, but we need to append something
 			// to the start and to the end
 			Date rightDate = new Date(newestDate.getTime() + 1);
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<ThreadInformationData> rightData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to);
-			List<ThreadInformationData> leftData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate);
+			List<ThreadInformationData> rightData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to, resolution);
+			List<ThreadInformationData> leftData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate, resolution);
 
 			if (!leftData.isEmpty()) {
 				oldData.addAll(0, leftData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
 			if (!rightData.isEmpty()) {
 				oldData.addAll(rightData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(rightData.get(rightData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(rightData.get(rightData.size() - 1).getTimeStamp().getTime());
@@ -336,10 +346,11 @@ public class DefaultThreadsPlotController extends AbstractPlotController {
 			// just append something on the right
 			Date rightDate = new Date(newestDate.getTime() + 1);
 
-			List<ThreadInformationData> timerData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to);
+			List<ThreadInformationData> timerData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, rightDate, to, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldToDate = (Date) to.clone();
 				if (newestDate.before(timerData.get(timerData.size() - 1).getTimeStamp())) {
 					newestDate = new Date(timerData.get(timerData.size() - 1).getTimeStamp().getTime());
@@ -351,10 +362,11 @@ public class DefaultThreadsPlotController extends AbstractPlotController {
 			// just append something on the left
 			Date leftDate = new Date(oldFromDate.getTime() - 1);
 
-			List<ThreadInformationData> timerData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate);
+			List<ThreadInformationData> timerData = (List<ThreadInformationData>) dataAccessService.getDataObjectsFromToDate(template, from, leftDate, resolution);
 
 			if (!timerData.isEmpty()) {
 				oldData.addAll(timerData);
+				dataResolution = Math.max(dataResolution, resolution);
 				oldFromDate = (Date) from.clone();
 			}
 
@@ -73,6 +73,11 @@ public class TimerPlotController extends AbstractTimerDataPlotController<TimerDa
 	 */
 	Date latestDataDate = new Date(0);
 
+	/**
+	 * Resolution of the displayed data in milliseconds.
+	 */
+	long dataResolution = 0;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -113,8 +118,10 @@ public class TimerPlotController extends AbstractTimerDataPlotController<TimerDa
 	@Override
 	public void update(Date from, Date to) {
 		List<DefaultData> templates = new ArrayList<DefaultData>(this.templates);
+		long resolution = getResolution(from, to);
 		// complete load if we have no data, or wanted time range is completely outside the current
-		boolean completeLoad = CollectionUtils.isEmpty(displayedData) || fromDate.after(to) || toDate.before(from);
+		// or the displayed data is coarser than needed
+		boolean completeLoad = CollectionUtils.isEmpty(displayedData) || fromDate.after(to) || toDate.before(from) || (resolution < dataResolution);
 		// left append if currently displayed from date is after the new from date
 		boolean leftAppend = fromDate.after(from);
 		// right append if the currently displayed to date is before new to date or the date of the
@@ -122,27 +129,30 @@ public class TimerPlotController extends AbstractTimerDataPlotController<TimerDa
 		boolean rightAppend = toDate.before(to) || latestDataDate.before(to);
 
 		if (completeLoad) {
-			List<TimerData> timerDatas = (List<TimerData>) dataAccessService.getTemplatesDataObjectsFromToDate(templates, from, to);
+			List<TimerData> timerDatas = (List<TimerData>) dataAccessService.getTemplatesDataObjectsFromToDate(templates, from, to, resolution);
 			if (CollectionUtils.isNotEmpty(timerDatas)) {
 				fromDate = (Date) from.clone();
 				toDate = (Date) to.clone();
 			}
 			displayedData = timerDatas;
+			dataResolution = resolution;
 		} else {
 			if (rightAppend) {
 				Date startingFrom = new Date(latestDataDate.getTime() + 1);
-				List<TimerData> timerDatas = (List<TimerData>) dataAccessService.getTemplatesDataObjectsFromToDate(templates, startingFrom, to);
+				List<TimerData> timerDatas = (List<TimerData>) dataAccessService.getTemplatesDataObjectsFromToDate(templates, startingFrom, to, resolution);
 				if (CollectionUtils.isNotEmpty(timerDatas)) {
 					displayedData.addAll(timerDatas);
 					toDate = (Date) to.clone();
+					dataResolution = Math.max(dataResolution, resolution);
 				}
 			}
 			if (leftAppend) {
 				Date endingTo = new Date(fromDate.getTime() - 1);
-				List<TimerData> timerDatas = (List<TimerData>) dataAccessService.getTemplatesDataObjectsFromToDate(templates, from, endingTo);
+				List<TimerData> timerDatas = (List<TimerData>) dataAccessService.getTemplatesDataObjectsFromToDate(templates, from, endingTo, resolution);
 				if (CollectionUtils.isNotEmpty(timerDatas)) {
 					displayedData.addAll(0, timerDatas);
 					fromDate = (Date) from.clone();
+					dataResolution = Math.max(dataResolution, resolution);
 				}
 			}
 		}
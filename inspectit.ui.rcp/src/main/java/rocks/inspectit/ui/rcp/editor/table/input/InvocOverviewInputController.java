@@ -38,6 +38,7 @@ import rocks.inspectit.shared.all.communication.data.HttpTimerDataHelper;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.communication.data.cmr.ApplicationData;
 import rocks.inspectit.shared.all.communication.data.cmr.BusinessTransactionData;
+import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.cs.cmr.service.IInvocationDataAccessService;
 import rocks.inspectit.shared.cs.cmr.service.ISpanService;
 import rocks.inspectit.shared.cs.communication.comparator.DefaultDataComparatorEnum;
@@ -49,10 +50,10 @@ import rocks.inspectit.shared.cs.communication.data.InvocationSequenceDataHelper
 import rocks.inspectit.shared.cs.data.invocationtree.InvocationTreeBuilder;
 import rocks.inspectit.shared.cs.data.invocationtree.InvocationTreeBuilder.Mode;
 import rocks.inspectit.shared.cs.data.invocationtree.InvocationTreeElement;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
 import rocks.inspectit.ui.rcp.InspectIT;
 import rocks.inspectit.ui.rcp.InspectITImages;
 import rocks.inspectit.ui.rcp.editor.inputdefinition.InputDefinition;
-import rocks.inspectit.ui.rcp.editor.inputdefinition.InputDefinition.IdDefinition;
 import rocks.inspectit.ui.rcp.editor.preferences.PreferenceEventCallback.PreferenceEvent;
 import rocks.inspectit.ui.rcp.editor.preferences.PreferenceId;
 import rocks.inspectit.ui.rcp.editor.preferences.PreferenceId.LiveMode;
@@ -80,6 +81,11 @@ public class InvocOverviewInputController extends AbstractTableInputController {
 	 */
 	public static final String ID = "inspectit.subview.table.invocoverview";
 
+	/**
+	 * Amount of invocations loaded from the service in one request.
+	 */
+	private static final int PAGE_SIZE = 500;
+
 	/**
 	 * The private inner enumeration used to define the used IDs which are mapped into the columns.
 	 * The order in this enumeration represents the order of the columns. If it is reordered,
@@ -412,22 +418,29 @@ public class InvocOverviewInputController extends AbstractTableInputController {
 	}
 
 	/**
-	 * Reloads the data from the service.
+	 * Reloads the data from the service. Data is loaded page by page, so that the single response
+	 * from the CMR does not have to hold the complete result.
 	 */
 	private void loadDataFromService() {
-		List<InvocationSequenceData> invocData;
-
+		Date from = null;
+		Date to = null;
 		if (!autoUpdate) {
-			if (template.getMethodIdent() != IdDefinition.ID_NOT_USED) {
-				invocData = dataAccessService.getInvocationSequenceOverview(template.getPlatformIdent(), template.getMethodIdent(), limit, fromDate, toDate, resultComparator);
-			} else {
-				invocData = dataAccessService.getInvocationSequenceOverview(template.getPlatformIdent(), limit, fromDate, toDate, resultComparator);
-			}
-		} else {
-			if (template.getMethodIdent() != IdDefinition.ID_NOT_USED) {
-				invocData = dataAccessService.getInvocationSequenceOverview(template.getPlatformIdent(), template.getMethodIdent(), limit, resultComparator);
-			} else {
-				invocData = dataAccessService.getInvocationSequenceOverview(template.getPlatformIdent(), limit, resultComparator);
+			from = fromDate;
+			to = toDate;
+		}
+
+		// not used method ident is zero, thus all invocations of the platform are returned then
+		QueryResultPage<InvocationSequenceData> page = dataAccessService.getInvocationSequenceOverviewPage(template.getPlatformIdent(), template.getMethodIdent(), limit, from, to, resultComparator,
+				PAGE_SIZE);
+		List<InvocationSequenceData> invocData = new ArrayList<>(page.getTotalSize());
+		invocData.addAll(page.getElements());
+		while (page.hasMore() && (0 != page.getCursorId())) {
+			try {
+				page = dataAccessService.getNextInvocationSequenceOverviewPage(page.getCursorId(), PAGE_SIZE);
+				invocData.addAll(page.getElements());
+			} catch (BusinessException e) {
+				InspectIT.getDefault().createErrorDialog("Failed loading the complete invocation sequence overview, only the first " + invocData.size() + " invocations will be displayed.", e, -1);
+				break;
 			}
 		}
 
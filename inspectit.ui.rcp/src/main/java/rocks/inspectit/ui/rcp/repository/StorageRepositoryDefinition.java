@@ -2,6 +2,7 @@ package rocks.inspectit.ui.rcp.repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.base.Objects;
 
@@ -108,6 +109,11 @@ public class StorageRepositoryDefinition implements RepositoryDefinition {
 	 */
 	private IStorageTreeComponent<? extends DefaultData> indexingTree;
 
+	/**
+	 * Indexing trees of the rollup tiers by the rollup period.
+	 */
+	private Map<Long, IStorageTreeComponent<DefaultData>> rollupIndexingTrees;
+
 	/**
 	 * Involved agents.
 	 */
@@ -228,7 +234,8 @@ public class StorageRepositoryDefinition implements RepositoryDefinition {
 	@SuppressWarnings("unchecked")
 	public void initServices() {
 		// init services
-		globalDataAccessService = storageServiceProvider.createStorageGlobalDataAccessService(this, localStorageData, (IStorageTreeComponent<DefaultData>) indexingTree, agents);
+		globalDataAccessService = storageServiceProvider.createStorageGlobalDataAccessService(this, localStorageData, (IStorageTreeComponent<DefaultData>) indexingTree, rollupIndexingTrees,
+				agents);
 		exceptionDataAccessService = storageServiceProvider.createStorageExceptionDataAccessService(this, localStorageData, (IStorageTreeComponent<ExceptionSensorData>) indexingTree);
 		invocationDataAccessService = storageServiceProvider.createStorageInvocationDataAccessService(this, localStorageData, (IStorageTreeComponent<InvocationSequenceData>) indexingTree);
 		sqlDataAccessService = storageServiceProvider.createStorageSqlDataAccessService(this, localStorageData, (IStorageTreeComponent<SqlStatementData>) indexingTree);
@@ -287,6 +294,14 @@ public class StorageRepositoryDefinition implements RepositoryDefinition {
 		this.indexingTree = indexingTree;
 	}
 
+	/**
+	 * @param rollupIndexingTrees
+	 *            the rollupIndexingTrees to set
+	 */
+	public void setRollupIndexingTrees(Map<Long, IStorageTreeComponent<DefaultData>> rollupIndexingTrees) {
+		this.rollupIndexingTrees = rollupIndexingTrees;
+	}
+
 	/**
 	 * @param agents
 	 *            the agents to set
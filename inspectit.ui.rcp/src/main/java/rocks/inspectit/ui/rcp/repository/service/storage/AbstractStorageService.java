@@ -35,7 +35,7 @@ import rocks.inspectit.ui.rcp.storage.util.DataRetriever;
 public abstract class AbstractStorageService<E extends DefaultData> {
 
 	/**
-	 * Default amount of data that will be requested by one HTTP request. 10MB.
+	 * Amount of data that will be read from the downloaded storage at once. 10MB.
 	 */
 	private static final int MAX_QUERY_SIZE = 1024 * 1024 * 10;
 
@@ -204,8 +204,11 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 				}
 
 				if (null == returnList) {
-					// if not we load data regular way
-					returnList = loadData(storageIndexQuery, aggregator);
+					// if not we let the CMR execute the query or load data regular way
+					returnList = loadDataOnCmr(storageData, storageIndexQuery, aggregator, null, -1);
+					if (null == returnList) {
+						returnList = loadData(storageIndexQuery, aggregator, getIndexingTree());
+					}
 
 					// and cache it on the CMR if we get something
 					if (CollectionUtils.isNotEmpty(returnList)) {
@@ -221,7 +224,7 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 
 				if (null == returnList) {
 					// if not we load data regular way
-					returnList = loadData(storageIndexQuery, aggregator);
+					returnList = loadData(storageIndexQuery, aggregator, getIndexingTree());
 
 					// and cache it locally if we get something
 					if (CollectionUtils.isNotEmpty(returnList)) {
@@ -230,7 +233,12 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 				}
 			}
 		} else {
-			returnList = loadData(storageIndexQuery, aggregator);
+			if (!localStorageData.isFullyDownloaded()) {
+				returnList = loadDataOnCmr(new StorageData(localStorageData), storageIndexQuery, aggregator, comparator, limit);
+			}
+			if (null == returnList) {
+				returnList = loadData(storageIndexQuery, aggregator, getIndexingTree());
+			}
 		}
 
 		// sort if needed
@@ -246,6 +254,50 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 		return returnList;
 	}
 
+	/**
+	 * Executes the query on the given indexing tree of the storage rollup tier. Rollup tiers are
+	 * small, thus the data is always loaded directly without caching or execution on the CMR.
+	 *
+	 * @param storageIndexQuery
+	 *            Query.
+	 * @param rollupIndexingTree
+	 *            Indexing tree of the rollup tier.
+	 * @return Return results of a query.
+	 */
+	protected List<E> executeRollupQuery(StorageIndexQuery storageIndexQuery, IStorageTreeComponent<E> rollupIndexingTree) {
+		return loadData(storageIndexQuery, null, rollupIndexingTree);
+	}
+
+	/**
+	 * Executes the query directly on the CMR where the storage is located, so that only the
+	 * results are transfered. The comparator is passed to the CMR only if it's one of the
+	 * enumeration comparators, other comparators can reference UI services and are applied
+	 * locally afterwards.
+	 *
+	 * @param storageData
+	 *            {@link StorageData}
+	 * @param storageIndexQuery
+	 *            Query.
+	 * @param aggregator
+	 *            {@link IAggregator}
+	 * @param comparator
+	 *            If supplied the result list will be sorted by this comparator.
+	 * @param limit
+	 *            Limit the number of results by given number. Value <code>-1</code> means no limit.
+	 * @return Results or <code>null</code> if the CMR could not execute the query.
+	 */
+	private List<E> loadDataOnCmr(StorageData storageData, StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator, Comparator<? super E> comparator, int limit) {
+		boolean transferComparator = comparator instanceof Enum;
+		try {
+			return getCmrRepositoryDefinition().getStorageService().executeStorageQuery(storageData, storageIndexQuery, aggregator, transferComparator ? comparator : null,
+					transferComparator || (null == comparator) ? limit : -1);
+		} catch (Exception e) { // NOPMD NOCHK
+			// ignore cause we can still load results in other way (older CMR, not transferable
+			// aggregator)
+			return null;
+		}
+	}
+
 	/**
 	 * Caches result set on the CMR for the given storage under given hash.
 	 *
@@ -291,16 +343,19 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 	 * returned not aggregated.
 	 * <P>
 	 * This method should be used by all subclasses, because it guards against massive data loading
-	 * that can make out of memory exceptions on the UI.
+	 * that can make out of memory exceptions on the UI. Data loaded via HTTP is filtered and
+	 * aggregated part by part as the parallel requests complete.
 	 *
 	 * @param storageIndexQuery
 	 *            Query.
 	 * @param aggregator
 	 *            {@link IAggregator}
+	 * @param indexingTree
+	 *            Indexing tree to query.
 	 * @return Return results of a query.
 	 */
-	private List<E> loadData(StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator) {
-		List<IStorageDescriptor> descriptors = getIndexingTree().query(storageIndexQuery);
+	private List<E> loadData(final StorageIndexQuery storageIndexQuery, IAggregator<E> aggregator, IStorageTreeComponent<E> indexingTree) {
+		List<IStorageDescriptor> descriptors = indexingTree.query(storageIndexQuery);
 		// sort the descriptors to optimize the number of read operations
 		Collections.sort(descriptors, new Comparator<IStorageDescriptor>() {
 			@Override
@@ -320,36 +375,43 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 		}
 		List<E> returnList = new ArrayList<>();
 
-		int size = 0;
-		int count = 0;
-		List<IStorageDescriptor> limitedDescriptors = new ArrayList<>();
-		for (IStorageDescriptor storageDescriptor : descriptors) {
-			// increase count, add descriptor size and update current list
-			count++;
-			size += storageDescriptor.getSize();
-			limitedDescriptors.add(storageDescriptor);
-
-			// if the size is already to big, or we reached end do query
-			if ((size > MAX_QUERY_SIZE) || (count == descriptors.size())) {
-				// load data and filter with restrictions
-				List<E> allData;
-				if (localStorageData.isFullyDownloaded()) {
-					try {
-						allData = dataRetriever.getDataLocally(localStorageData, descriptors);
-					} catch (SerializationException e) {
-						String msg = "Data in the downloaded storage " + localStorageData + " can not be loaded with this version of the inspectIT. Version of the CMR where storage was created is "
-								+ localStorageData.getCmrVersion() + ".";
-						InspectIT.getDefault().createErrorDialog(msg, e, -1);
-						return Collections.emptyList();
-					} catch (IOException e) {
-						InspectIT.getDefault().createErrorDialog("Exception occurred trying to load the data.", e, -1);
-						return Collections.emptyList();
+		if (!localStorageData.isFullyDownloaded()) {
+			final AggregationPerformer<E> partAggregationPerformer = aggregationPerformer;
+			final List<E> partReturnList = returnList;
+			try {
+				dataRetriever.getDataViaHttp(getCmrRepositoryDefinition(), localStorageData, descriptors, new DataRetriever.IDataConsumer<E>() {
+					@Override
+					public void consume(List<E> data) {
+						processLoadedData(data, storageIndexQuery, partAggregationPerformer, partReturnList);
 					}
-				} else {
+				});
+			} catch (SerializationException e) {
+				String msg = "Data in the remote storage " + localStorageData + " can not be loaded with this version of the inspectIT. Version of the CMR where storage was created is "
+						+ localStorageData.getCmrVersion() + ".";
+				InspectIT.getDefault().createErrorDialog(msg, e, -1);
+				return Collections.emptyList();
+			} catch (IOException e) {
+				InspectIT.getDefault().createErrorDialog("Exception occurred trying to load the data.", e, -1);
+				return Collections.emptyList();
+			}
+		} else {
+			int size = 0;
+			int count = 0;
+			List<IStorageDescriptor> limitedDescriptors = new ArrayList<>();
+			for (IStorageDescriptor storageDescriptor : descriptors) {
+				// increase count, add descriptor size and update current list
+				count++;
+				size += storageDescriptor.getSize();
+				limitedDescriptors.add(storageDescriptor);
+
+				// if the size is already to big, or we reached end do query
+				if ((size > MAX_QUERY_SIZE) || (count == descriptors.size())) {
+					// load data and filter with restrictions
+					List<E> allData;
 					try {
-						allData = dataRetriever.getDataViaHttp(getCmrRepositoryDefinition(), localStorageData, limitedDescriptors);
+						allData = dataRetriever.getDataLocally(localStorageData, limitedDescriptors);
 					} catch (SerializationException e) {
-						String msg = "Data in the remote storage " + localStorageData + " can not be loaded with this version of the inspectIT. Version of the CMR where storage was created is "
+						String msg = "Data in the downloaded storage " + localStorageData + " can not be loaded with this version of the inspectIT. Version of the CMR where storage was created is "
 								+ localStorageData.getCmrVersion() + ".";
 						InspectIT.getDefault().createErrorDialog(msg, e, -1);
 						return Collections.emptyList();
@@ -357,19 +419,12 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 						InspectIT.getDefault().createErrorDialog("Exception occurred trying to load the data.", e, -1);
 						return Collections.emptyList();
 					}
-				}
-				List<E> passedData = getRestrictionsPassedList(allData, storageIndexQuery);
+					processLoadedData(allData, storageIndexQuery, aggregationPerformer, returnList);
 
-				// if we need to aggregate then do so, otherwise just add to result list
-				if (null != aggregationPerformer) {
-					aggregationPerformer.processCollection(passedData);
-				} else {
-					returnList.addAll(passedData);
+					// reset the size and current list
+					size = 0;
+					limitedDescriptors.clear();
 				}
-
-				// reset the size and current list
-				size = 0;
-				limitedDescriptors.clear();
 			}
 		}
 
@@ -381,6 +436,30 @@ public abstract class AbstractStorageService<E extends DefaultData> {
 		return returnList;
 	}
 
+	/**
+	 * Filters the loaded data with the query restrictions and aggregates it if the aggregation
+	 * performer is given, otherwise adds it to the result list.
+	 *
+	 * @param loadedData
+	 *            Loaded data.
+	 * @param storageIndexQuery
+	 *            {@link StorageIndexQuery}.
+	 * @param aggregationPerformer
+	 *            {@link AggregationPerformer} or <code>null</code> if data is not aggregated.
+	 * @param returnList
+	 *            Result list.
+	 */
+	private void processLoadedData(List<E> loadedData, StorageIndexQuery storageIndexQuery, AggregationPerformer<E> aggregationPerformer, List<E> returnList) {
+		List<E> passedData = getRestrictionsPassedList(loadedData, storageIndexQuery);
+
+		// if we need to aggregate then do so, otherwise just add to result list
+		if (null != aggregationPerformer) {
+			aggregationPerformer.processCollection(passedData);
+		} else {
+			returnList.addAll(passedData);
+		}
+	}
+
 	/**
 	 * This utility method is used to create a list of elements that pass all the restrictions in
 	 * the {@link StorageIndexQuery}.
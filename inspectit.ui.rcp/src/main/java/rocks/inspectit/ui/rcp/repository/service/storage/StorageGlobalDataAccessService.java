@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 
 import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -26,6 +27,7 @@ import rocks.inspectit.shared.cs.indexing.query.provider.impl.StorageIndexQueryP
 import rocks.inspectit.shared.cs.indexing.restriction.impl.IndexQueryRestrictionFactory;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
+import rocks.inspectit.shared.cs.storage.util.StorageRollupUtil;
 
 /**
  * {@link IGlobalDataAccessService} for storage purposes. This class indirectly uses the
@@ -46,6 +48,11 @@ public class StorageGlobalDataAccessService extends AbstractStorageService<Defau
 	 */
 	private IStorageTreeComponent<DefaultData> indexingTree;
 
+	/**
+	 * Indexing trees of the rollup tiers by the rollup period.
+	 */
+	private Map<Long, IStorageTreeComponent<DefaultData>> rollupIndexingTrees;
+
 	/**
 	 * {@link StorageIndexQueryProvider}.
 	 */
@@ -92,7 +99,7 @@ public class StorageGlobalDataAccessService extends AbstractStorageService<Defau
 	public List<DefaultData> getLastDataObjects(DefaultData template, long timeInterval) {
 		Timestamp toDate = new Timestamp(new Date().getTime());
 		Timestamp fromDate = new Timestamp(toDate.getTime() - timeInterval);
-		return this.getDataObjectsInInterval(template, fromDate, toDate);
+		return this.getDataObjectsInInterval(template, template.getClass(), fromDate, toDate, null);
 	}
 
 	/**
@@ -170,7 +177,32 @@ public class StorageGlobalDataAccessService extends AbstractStorageService<Defau
 			return Collections.emptyList();
 		}
 
-		return this.getDataObjectsInInterval(template, new Timestamp(fromDate.getTime()), new Timestamp(toDate.getTime()));
+		return this.getDataObjectsInInterval(template, template.getClass(), new Timestamp(fromDate.getTime()), new Timestamp(toDate.getTime()), null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the storage has the rollup tier with the period not bigger than the resolution, the data
+	 * is loaded from the coarsest of such tiers. Each object of the tier has the time stamp of the
+	 * period start, thus only periods starting in the given time range are returned and the ranges
+	 * loaded one after another never return the same period twice.
+	 */
+	@Override
+	public List<? extends DefaultData> getDataObjectsFromToDate(DefaultData template, Date fromDate, Date toDate, long resolution) {
+		if (fromDate.after(toDate)) {
+			return Collections.emptyList();
+		}
+
+		Class<?> rollupClass = StorageRollupUtil.getRollupClass(template.getClass());
+		if (MapUtils.isNotEmpty(rollupIndexingTrees) && (null != rollupClass)) {
+			long period = StorageRollupUtil.selectRollupPeriod(rollupIndexingTrees.keySet(), resolution);
+			if (StorageRollupUtil.NO_ROLLUP != period) {
+				return this.getDataObjectsInInterval(template, rollupClass, new Timestamp(fromDate.getTime()), new Timestamp(toDate.getTime()), rollupIndexingTrees.get(period));
+			}
+		}
+
+		return this.getDataObjectsFromToDate(template, fromDate, toDate);
 	}
 
 	/**
@@ -189,21 +221,42 @@ public class StorageGlobalDataAccessService extends AbstractStorageService<Defau
 		return result;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<? extends DefaultData> getTemplatesDataObjectsFromToDate(Collection<DefaultData> templates, Date fromDate, Date toDate, long resolution) {
+		if (fromDate.after(toDate)) {
+			return Collections.emptyList();
+		}
+
+		List<DefaultData> result = new ArrayList<>();
+		for (DefaultData template : templates) {
+			result.addAll(this.getDataObjectsFromToDate(template, fromDate, toDate, resolution));
+		}
+		return result;
+	}
+
 	/**
 	 * Returns data objects in wanted interval based on the wanted template.
 	 *
 	 * @param template
 	 *            Template to base search on.
+	 * @param searchClass
+	 *            Class of the objects to search for.
 	 * @param fromDate
 	 *            From date as Timestamp.
 	 * @param toDate
 	 *            To date as Timestamp.
+	 * @param rollupIndexingTree
+	 *            Indexing tree of the rollup tier to query or <code>null</code> to query the raw
+	 *            data.
 	 * @return List of {@link DefaultData} objects.
 	 */
-	private List<DefaultData> getDataObjectsInInterval(DefaultData template, Timestamp fromDate, Timestamp toDate) {
+	private List<DefaultData> getDataObjectsInInterval(DefaultData template, Class<?> searchClass, Timestamp fromDate, Timestamp toDate, IStorageTreeComponent<DefaultData> rollupIndexingTree) {
 		StorageIndexQuery query = storageIndexQueryProvider.createNewStorageIndexQuery();
 		ArrayList<Class<?>> searchClasses = new ArrayList<>();
-		searchClasses.add(template.getClass());
+		searchClasses.add(searchClass);
 		query.setObjectClasses(searchClasses);
 		query.setPlatformIdent(template.getPlatformIdent());
 		query.setSensorTypeIdent(template.getSensorTypeIdent());
@@ -219,7 +272,12 @@ public class StorageGlobalDataAccessService extends AbstractStorageService<Defau
 			query.addIndexingRestriction(IndexQueryRestrictionFactory.equal("jmxSensorDefinitionDataIdentId", ((JmxSensorValueData) template).getJmxSensorDefinitionDataIdentId()));
 		}
 
-		List<DefaultData> returnList = super.executeQuery(query);
+		List<DefaultData> returnList;
+		if (null != rollupIndexingTree) {
+			returnList = super.executeRollupQuery(query, rollupIndexingTree);
+		} else {
+			returnList = super.executeQuery(query);
+		}
 		Collections.sort(returnList, new Comparator<DefaultData>() {
 
 			@Override
@@ -255,6 +313,14 @@ public class StorageGlobalDataAccessService extends AbstractStorageService<Defau
 		this.indexingTree = indexingTree;
 	}
 
+	/**
+	 * @param rollupIndexingTrees
+	 *            the rollupIndexingTrees to set
+	 */
+	public void setRollupIndexingTrees(Map<Long, IStorageTreeComponent<DefaultData>> rollupIndexingTrees) {
+		this.rollupIndexingTrees = rollupIndexingTrees;
+	}
+
 	/**
 	 * @param storageIndexQueryProvider
 	 *            the storageIndexQueryProvider to set
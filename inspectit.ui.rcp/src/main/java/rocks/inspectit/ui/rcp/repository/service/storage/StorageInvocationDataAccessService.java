@@ -7,9 +7,11 @@ import java.util.List;
 
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
 import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.all.exception.enumeration.QueryCursorErrorCodeEnum;
 import rocks.inspectit.shared.cs.cmr.service.IInvocationDataAccessService;
 import rocks.inspectit.shared.cs.communication.comparator.DefaultDataComparatorEnum;
 import rocks.inspectit.shared.cs.communication.comparator.ResultComparator;
+import rocks.inspectit.shared.cs.indexing.cursor.QueryResultPage;
 import rocks.inspectit.shared.cs.indexing.query.factory.impl.InvocationSequenceDataQueryFactory;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
@@ -105,6 +107,33 @@ public class StorageInvocationDataAccessService extends AbstractStorageService<I
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Storage data is read locally, thus complete result is always returned in one page.
+	 */
+	@Override
+	public QueryResultPage<InvocationSequenceData> getInvocationSequenceOverviewPage(long platformId, long methodId, int limit, Date fromDate, Date toDate, // NOCHK
+			ResultComparator<InvocationSequenceData> resultComparator, int pageSize) {
+		return QueryResultPage.singlePage(this.getInvocationSequenceOverview(platformId, methodId, limit, fromDate, toDate, resultComparator));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public QueryResultPage<InvocationSequenceData> getNextInvocationSequenceOverviewPage(long cursorId, int pageSize) throws BusinessException {
+		throw new BusinessException("Reading next page of the query cursor with id " + cursorId + ".", QueryCursorErrorCodeEnum.UNKNOWN_CURSOR);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void closeInvocationSequenceOverviewCursor(long cursorId) {
+		// nothing to close, all results are returned in first page
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -2,6 +2,7 @@ package rocks.inspectit.ui.rcp.repository.service.storage;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -168,16 +169,19 @@ public abstract class StorageServiceProvider {
 	 *            {@link LocalStorageData}.
 	 * @param storageTreeComponent
 	 *            Indexing tree.
+	 * @param rollupTreeComponents
+	 *            Indexing trees of the rollup tiers by the rollup period, can be <code>null</code>.
 	 * @param platformIdents
 	 *            Agents related to storage.
 	 * @return Properly initialized {@link StorageGlobalDataAccessService}.
 	 */
 	public StorageGlobalDataAccessService createStorageGlobalDataAccessService(StorageRepositoryDefinition storageRepositoryDefinition, LocalStorageData localStorageData,
-			IStorageTreeComponent<DefaultData> storageTreeComponent, List<PlatformIdent> platformIdents) {
+			IStorageTreeComponent<DefaultData> storageTreeComponent, Map<Long, IStorageTreeComponent<DefaultData>> rollupTreeComponents, List<PlatformIdent> platformIdents) {
 		StorageGlobalDataAccessService storageGlobalDataAccessService = createStorageGlobalDataAccessService();
 		storageGlobalDataAccessService.setStorageRepositoryDefinition(storageRepositoryDefinition);
 		storageGlobalDataAccessService.setLocalStorageData(localStorageData);
 		storageGlobalDataAccessService.setIndexingTree(storageTreeComponent);
+		storageGlobalDataAccessService.setRollupIndexingTrees(rollupTreeComponents);
 		storageGlobalDataAccessService.setAgents(platformIdents);
 		return storageGlobalDataAccessService;
 	}
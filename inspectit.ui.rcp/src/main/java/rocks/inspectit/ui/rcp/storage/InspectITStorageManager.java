@@ -17,7 +17,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
@@ -40,7 +39,6 @@ import rocks.inspectit.shared.all.serializer.SerializationException;
 import rocks.inspectit.shared.all.util.ObjectUtils;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
 import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
-import rocks.inspectit.shared.cs.indexing.storage.impl.CombinedStorageBranch;
 import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.LocalStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
@@ -48,6 +46,7 @@ import rocks.inspectit.shared.cs.storage.StorageFileType;
 import rocks.inspectit.shared.cs.storage.StorageManager;
 import rocks.inspectit.shared.cs.storage.label.StringStorageLabel;
 import rocks.inspectit.shared.cs.storage.label.type.impl.ExploredByLabelType;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelFileCache;
 import rocks.inspectit.ui.rcp.InspectIT;
 import rocks.inspectit.ui.rcp.job.BlockingJob;
 import rocks.inspectit.ui.rcp.repository.CmrRepositoryChangeListener;
@@ -101,6 +100,11 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	 */
 	private DataUploader dataUploader;
 
+	/**
+	 * Cache of the mapped channel files, mappings must be released before the files are deleted.
+	 */
+	private MappedChannelFileCache mappedChannelFileCache;
+
 	/**
 	 * {@link StorageRepositoryDefinitionProvider}.
 	 */
@@ -162,7 +166,7 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		if (fullyDownload) {
 			try {
 				subMonitor.setTaskName("Downloading storage files for storage '" + storageData.getName() + "'..");
-				dataRetriever.downloadAndSaveStorageFiles(cmrRepositoryDefinition, storageData, directory, compressBefore, true, subMonitor, StorageFileType.values());
+				dataRetriever.downloadAndSaveStorageFiles(cmrRepositoryDefinition, storageData, directory, compressBefore, subMonitor, StorageFileType.values());
 				downloadedStorages.add(localStorageData);
 				localStorageData.setFullyDownloaded(true);
 			} catch (Exception e) {
@@ -172,7 +176,7 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		} else {
 			try {
 				subMonitor.setTaskName("Downloading agent and indexing files for storage '" + storageData.getName() + "'..");
-				dataRetriever.downloadAndSaveStorageFiles(cmrRepositoryDefinition, storageData, directory, compressBefore, true, subMonitor, StorageFileType.AGENT_FILE, StorageFileType.INDEX_FILE,
+				dataRetriever.downloadAndSaveStorageFiles(cmrRepositoryDefinition, storageData, directory, compressBefore, subMonitor, StorageFileType.AGENT_FILE, StorageFileType.INDEX_FILE,
 						StorageFileType.BUSINESS_CONTEXT_FILE);
 			} catch (Exception e) {
 				deleteLocalStorageData(localStorageData, false);
@@ -256,7 +260,7 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 
 		Path directory = getStoragePath(localStorageData);
 		subMonitor.setTaskName("Downloading storage data files for storage '" + storageData.getName() + "'..");
-		dataRetriever.downloadAndSaveStorageFiles(cmrRepositoryDefinition, storageData, directory, compressBefore, true, subMonitor, StorageFileType.DATA_FILE, StorageFileType.CACHED_DATA_FILE);
+		dataRetriever.downloadAndSaveStorageFiles(cmrRepositoryDefinition, storageData, directory, compressBefore, subMonitor, StorageFileType.DATA_FILE, StorageFileType.CACHED_DATA_FILE);
 		downloadedStorages.add(localStorageData);
 		localStorageData.setFullyDownloaded(true);
 		writeLocalStorageDataToDisk(localStorageData);
@@ -292,6 +296,9 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	private void deleteLocalStorageData(LocalStorageData localStorageData, boolean informListeners) throws IOException, SerializationException {
 		localStorageData.setFullyDownloaded(false);
 		downloadedStorages.remove(localStorageData);
+		if (null != mappedChannelFileCache) {
+			mappedChannelFileCache.release(getStoragePath(localStorageData));
+		}
 		if (mountedAvailableStorages.containsKey(localStorageData) || mountedNotAvailableStorages.contains(localStorageData)) {
 			super.deleteStorageDataFromDisk(localStorageData, StorageFileType.DATA_FILE);
 			writeLocalStorageDataToDisk(localStorageData);
@@ -495,11 +502,14 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		}
 
 		// get indexing tree
-		IStorageTreeComponent<? extends DefaultData> indexingTree = getIndexingTree(localStorageData);
+		IStorageTreeComponent<? extends DefaultData> indexingTree = loadIndexingTree(localStorageData);
 		if (null == indexingTree) {
 			indexingTree = new ArrayBasedStorageLeaf<>();
 		}
 
+		// get indexing trees of the rollup tiers
+		Map<Long, IStorageTreeComponent<DefaultData>> rollupIndexingTrees = loadRollupIndexingTrees(localStorageData);
+
 		// get business context
 		Collection<BusinessTransactionData> businessTransactions = getBusinessContextLocally(localStorageData);
 
@@ -508,6 +518,7 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		storageRepositoryDefinition.setAgents(platformIdents);
 		storageRepositoryDefinition.setBusinessTransactions(businessTransactions);
 		storageRepositoryDefinition.setIndexingTree(indexingTree);
+		storageRepositoryDefinition.setRollupIndexingTrees(rollupIndexingTrees);
 		storageRepositoryDefinition.setCmrRepositoryDefinition(cmrRepositoryDefinition);
 		storageRepositoryDefinition.setLocalStorageData(localStorageData);
 		storageRepositoryDefinition.initServices();
@@ -592,7 +603,8 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	public void uploadZippedStorage(String fileName, CmrRepositoryDefinition cmrRepositoryDefinition, SubMonitor subMonitor) throws IOException {
 		Path file = Paths.get(fileName);
 		Path relativizePath = file.getParent();
-		String tmpDir = "tmp" + UUID.randomUUID().hashCode();
+		// same upload directory for the same file, so that interrupted upload can be resumed
+		String tmpDir = "tmp" + file.toAbsolutePath().toString().hashCode();
 		subMonitor.setTaskName("Uploading storage file..");
 		// no compressing since it is already zipped
 		dataUploader.uploadFileToStorageUploads(file, relativizePath, tmpDir, cmrRepositoryDefinition, subMonitor);
@@ -618,7 +630,8 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 			throw new BusinessException("Uploading the storage " + localStorageData + ".", StorageErrorCodeEnum.STORAGE_IS_NOT_DOWNLOADED);
 		}
 
-		String tmpDir = "tmp" + UUID.randomUUID().hashCode();
+		// same upload directory for the same storage, so that interrupted upload can be resumed
+		String tmpDir = "tmp" + localStorageData.getId().hashCode();
 		Path storageDir = getStoragePath(localStorageData);
 		final List<Path> toUpload = new ArrayList<>();
 		Files.walkFileTree(storageDir, new SimpleFileVisitor<Path>() {
@@ -694,7 +707,7 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		try (final ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE))) {
 			// download and pack at the same time
 			subMonitor.setTaskName("Downloading and packing storage files..");
-			dataRetriever.downloadAndZipStorageFiles(cmrRepositoryDefinition, storageData, zos, compressBefore, false, subMonitor, StorageFileType.values());
+			dataRetriever.downloadAndZipStorageFiles(cmrRepositoryDefinition, storageData, zos, compressBefore, subMonitor, StorageFileType.values());
 
 			// add local storage data info
 			LocalStorageData localStorageData = new LocalStorageData(storageData);
@@ -931,32 +944,6 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		return realResult;
 	}
 
-	/**
-	 * Loads indexing tree from a disk for a storage.
-	 *
-	 * @param storageData
-	 *            {@link IStorageData}
-	 * @return Indexing tree or null if it can not be found.
-	 * @throws IOException
-	 *             If {@link IOException} occurs.
-	 * @throws SerializationException
-	 *             If data can not be deserialized.
-	 */
-	private IStorageTreeComponent<DefaultData> getIndexingTree(final IStorageData storageData) throws IOException, SerializationException {
-		Path storagePath = getStoragePath(storageData);
-		List<IStorageTreeComponent<DefaultData>> indexingTrees = this.getObjectsByFileTreeWalk(storagePath, StorageFileType.INDEX_FILE.getExtension());
-		if (!indexingTrees.isEmpty()) {
-			if (indexingTrees.size() == 1) {
-				return indexingTrees.get(0);
-			} else {
-				CombinedStorageBranch<DefaultData> combinedStorageBranch = new CombinedStorageBranch<>(indexingTrees);
-				return combinedStorageBranch;
-			}
-		} else {
-			return null;
-		}
-	}
-
 	/**
 	 * Returns all storages that have been mounted locally.
 	 *
@@ -1095,6 +1082,16 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 		this.dataUploader = dataUploader;
 	}
 
+	/**
+	 * Sets {@link #mappedChannelFileCache}.
+	 *
+	 * @param mappedChannelFileCache
+	 *            New value for {@link #mappedChannelFileCache}
+	 */
+	public void setMappedChannelFileCache(MappedChannelFileCache mappedChannelFileCache) {
+		this.mappedChannelFileCache = mappedChannelFileCache;
+	}
+
 	/**
 	 * Sets {@link #storageRepositoryDefinitionProvider}.
 	 *
@@ -12,7 +12,8 @@ import rocks.inspectit.ui.rcp.formatter.NumberFormatter;
 
 /**
  * Transfer monitor class that collects {@link DataSample}s during the transfer and provides
- * informations about the average transfer rate, total bytes transfered, etc.
+ * informations about the average transfer rate, total bytes transfered, etc. Samples can be
+ * reported from several threads when one file is transfered in parallel chunks.
  *
  * @author Ivan Senic
  *
@@ -132,7 +133,7 @@ public class TransferDataMonitor {
 	 * @param fileName
 	 *            Name of the file that is downloaded.
 	 */
-	public void startTransfer(String fileName) {
+	public synchronized void startTransfer(String fileName) {
 		if (0 == filesCount) {
 			downloadStartTime = System.currentTimeMillis();
 		}
@@ -148,7 +149,7 @@ public class TransferDataMonitor {
 	 * @param fileName
 	 *            Name of the file that has been downloaded.
 	 */
-	public void endTransfer(String fileName) {
+	public synchronized void endTransfer(String fileName) {
 		// if the file is smaller than expected (can happen with gzip) add remaining expected size
 		// to the submonitor
 		filesCount++;
@@ -175,7 +176,7 @@ public class TransferDataMonitor {
 	 * @param byteCount
 	 *            Bytes transfered.
 	 */
-	public void addSample(long byteCount) {
+	public synchronized void addSample(long byteCount) {
 		// transfer rate
 		totalBytesTransfered += byteCount;
 
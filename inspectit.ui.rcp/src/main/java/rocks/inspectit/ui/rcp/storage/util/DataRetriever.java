@@ -1,10 +1,13 @@
 package rocks.inspectit.ui.rcp.storage.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
@@ -14,14 +17,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.fileupload.MultipartStream;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
@@ -34,12 +40,15 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.eclipse.core.runtime.SubMonitor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatus.Series;
 
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.ByteBufferInputStream;
 import com.esotericsoftware.kryo.io.Input;
 
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -55,9 +64,16 @@ import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.LocalStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageFileType;
+import rocks.inspectit.shared.cs.storage.StorageFormatVersion;
 import rocks.inspectit.shared.cs.storage.StorageManager;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelFileCache;
+import rocks.inspectit.shared.cs.storage.nio.read.MappedChannelFileCache.MappedRegion;
 import rocks.inspectit.shared.cs.storage.nio.stream.InputStreamProvider;
+import rocks.inspectit.shared.cs.storage.transfer.ChunkedTransferUtil;
+import rocks.inspectit.shared.cs.storage.transfer.TransferState;
 import rocks.inspectit.shared.cs.storage.util.RangeDescriptor;
+import rocks.inspectit.shared.cs.storage.util.StorageBlockUtil;
+import rocks.inspectit.shared.cs.storage.util.StorageRangeUtil;
 import rocks.inspectit.ui.rcp.repository.CmrRepositoryDefinition;
 import rocks.inspectit.ui.rcp.storage.http.TransferDataMonitor;
 
@@ -70,10 +86,42 @@ import rocks.inspectit.ui.rcp.storage.http.TransferDataMonitor;
 public class DataRetriever {
 
 	/**
-	 * Amount of serializers to be available to this class.
+	 * Max amount of ranges requested with one HTTP request.
+	 */
+	private static final int MAX_RANGES_PER_REQUEST = 100;
+
+	/**
+	 * Amount of data after which no more ranges are added to one HTTP request. 10MB.
+	 */
+	private static final long MAX_REQUEST_SIZE = 1024 * 1024 * 10;
+
+	/**
+	 * Chunk servlet mapping.
+	 */
+	private static final String CHUNK_SERVLET = "/filechunk";
+
+	/**
+	 * Name of the directory in the temporary directory where files are downloaded before zipping.
+	 */
+	private static final String DOWNLOAD_TMP_DIRECTORY = "inspectit-download";
+
+	/**
+	 * How many times the download of one chunk is attempted before the download fails.
+	 */
+	private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+	/**
+	 * Amount of serializers to be available to this class. This is also the max amount of
+	 * parallel HTTP connections.
 	 */
 	private int serializerCount = 3;
 
+	/**
+	 * Max amount of bytes between two ranges of the data file that will be additionally retrieved
+	 * in order to coalesce them into one range.
+	 */
+	private long rangeGapThreshold = StorageRangeUtil.DEFAULT_MAX_GAP;
+
 	/**
 	 * {@link StorageManager}.
 	 */
@@ -94,6 +142,37 @@ public class DataRetriever {
 	 */
 	private InputStreamProvider streamProvider;
 
+	/**
+	 * Cache of the mapped channel files used for local data reading. If not set, local data is
+	 * read with the {@link #streamProvider}.
+	 */
+	private MappedChannelFileCache mappedChannelFileCache;
+
+	/**
+	 * Executor service for the parallel data retrieval.
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * HTTP client with the pooled connections used for the data retrieval.
+	 */
+	private HttpClient httpClient;
+
+	/**
+	 * Executor service for the parallel chunk downloads.
+	 */
+	private ExecutorService transferExecutorService;
+
+	/**
+	 * Max amount of parallel HTTP connections used for downloading the storage files.
+	 */
+	private int transferConnections = 4;
+
+	/**
+	 * Size of the chunks storage files are downloaded in.
+	 */
+	private int chunkSize = ChunkedTransferUtil.DEFAULT_CHUNK_SIZE;
+
 	/**
 	 * Initializes the retriever.
 	 *
@@ -104,6 +183,18 @@ public class DataRetriever {
 		for (int i = 0; i < serializerCount; i++) {
 			serializerQueue.add(serializationManagerProvider.createSerializer());
 		}
+
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+		connectionManager.setMaxTotal(serializerCount);
+		connectionManager.setDefaultMaxPerRoute(serializerCount);
+		httpClient = new DefaultHttpClient(connectionManager);
+	}
+
+	/**
+	 * Closes the pooled connections.
+	 */
+	protected void destroy() {
+		httpClient.getConnectionManager().shutdown();
 	}
 
 	/**
@@ -111,7 +202,8 @@ public class DataRetriever {
 	 * {@link CmrRepositoryDefinition}. This method will try to invoke as less as possible HTTP
 	 * requests for all descriptors.
 	 * <p>
-	 * The method will execute the HTTP requests sequentially.
+	 * The HTTP requests are executed in parallel, see
+	 * {@link #getDataViaHttp(CmrRepositoryDefinition, IStorageData, List, IDataConsumer)}.
 	 * <p>
 	 * It is not guaranteed that amount of returned objects in the list is same as the amount of
 	 * provided descriptors. If some of the descriptors are pointing to the wrong files or files
@@ -134,84 +226,217 @@ public class DataRetriever {
 	 * @throws IOException
 	 *             If {@link IOException} occurs.
 	 */
-	@SuppressWarnings("unchecked")
 	public <E extends DefaultData> List<E> getDataViaHttp(CmrRepositoryDefinition cmrRepositoryDefinition, IStorageData storageData, List<IStorageDescriptor> descriptors)
 			throws IOException, SerializationException {
+		final List<E> receivedData = new ArrayList<>();
+		this.getDataViaHttp(cmrRepositoryDefinition, storageData, descriptors, new IDataConsumer<E>() {
+			@Override
+			public void consume(List<E> data) {
+				receivedData.addAll(data);
+			}
+		});
+		return receivedData;
+	}
+
+	/**
+	 * Retrieves the wanted data described in the {@link StorageDescriptor} from the desired
+	 * {@link CmrRepositoryDefinition} and passes it to the consumer as soon as it is received.
+	 * <p>
+	 * Ranges of each data file that are separated by less than {@link #rangeGapThreshold} bytes
+	 * are coalesced into one range. The ranges are requested with at most
+	 * {@link #MAX_RANGES_PER_REQUEST} ranges or {@link #MAX_REQUEST_SIZE} bytes per request and
+	 * the requests are executed in parallel using the pooled connections. The response content is
+	 * de-serialized directly from the response stream. Results of the requests are passed to the
+	 * consumer in the order of the data files and positions, thus the order does not depend on
+	 * the order the responses are received.
+	 * <p>
+	 * It is not guaranteed that amount of consumed objects is same as the amount of provided
+	 * descriptors. If some of the descriptors are pointing to the wrong files or files positions,
+	 * it can happen that this influences the rest of the descriptor that point to the same file.
+	 * Thus, a special care needs to be taken that the data in descriptors is correct.
+	 *
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param cmrRepositoryDefinition
+	 *            {@link CmrRepositoryDefinition}.
+	 * @param storageData
+	 *            {@link StorageData} that points to the wanted storage.
+	 * @param descriptors
+	 *            Descriptors.
+	 * @param dataConsumer
+	 *            Consumer that receives the data of each request in the calling thread.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	public <E extends DefaultData> void getDataViaHttp(CmrRepositoryDefinition cmrRepositoryDefinition, IStorageData storageData, List<IStorageDescriptor> descriptors, IDataConsumer<E> dataConsumer)
+			throws IOException, SerializationException {
 		Map<Integer, List<IStorageDescriptor>> separateFilesGroup = createFilesGroup(descriptors);
-		List<E> receivedData = new ArrayList<>();
 		String serverUri = getServerUri(cmrRepositoryDefinition);
+		final boolean compressedBlocks = StorageFormatVersion.isCompressedBlocks(storageData);
 
-		HttpClient httpClient = new DefaultHttpClient();
-		for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
-			HttpGet httpGet = new HttpGet(serverUri + storageManager.getHttpFileLocation(storageData, entry.getKey()));
-			StringBuilder rangeHeader = new StringBuilder("bytes=");
+		List<Future<List<E>>> futures = new ArrayList<>();
+		try {
+			for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
+				final String fileUri = serverUri + storageManager.getHttpFileLocation(storageData, entry.getKey());
+				List<IStorageDescriptor> channelDescriptors = entry.getValue();
+				List<RangeDescriptor> ranges = StorageRangeUtil.coalesce(StorageBlockUtil.getReadRanges(channelDescriptors), rangeGapThreshold);
 
-			RangeDescriptor rangeDescriptor = null;
-			for (IStorageDescriptor descriptor : entry.getValue()) {
-				if (null == rangeDescriptor) {
-					rangeDescriptor = new RangeDescriptor(descriptor);
-				} else {
-					if ((rangeDescriptor.getEnd() + 1) == descriptor.getPosition()) {
-						rangeDescriptor.setEnd((descriptor.getPosition() + descriptor.getSize()) - 1);
-					} else {
-						rangeHeader.append(rangeDescriptor.toString());
-						rangeHeader.append(',');
-						rangeDescriptor = new RangeDescriptor(descriptor);
+				int start = 0;
+				while (start < ranges.size()) {
+					int end = start;
+					long size = 0;
+					while ((end < ranges.size()) && ((end - start) < MAX_RANGES_PER_REQUEST) && ((end == start) || (size < MAX_REQUEST_SIZE))) {
+						size += (ranges.get(end).getEnd() - ranges.get(end).getStart()) + 1;
+						end++;
 					}
+					final List<RangeDescriptor> requestRanges = ranges.subList(start, end);
+					final List<IStorageDescriptor> requestDescriptors = getDescriptorsInRanges(channelDescriptors, requestRanges);
+					futures.add(executorService.submit(new Callable<List<E>>() {
+						@Override
+						public List<E> call() throws Exception {
+							return DataRetriever.this.<E> getRangesViaHttp(fileUri, requestRanges, requestDescriptors, compressedBlocks);
+						}
+					}));
+					start = end;
 				}
 			}
-			rangeHeader.append(rangeDescriptor);
 
-			httpGet.addHeader("Range", rangeHeader.toString());
-			ISerializer serializer = null;
-			try {
-				serializer = serializerQueue.take();
-			} catch (InterruptedException e) {
-				Thread.interrupted();
+			for (Future<List<E>> future : futures) {
+				dataConsumer.consume(getResult(future));
 			}
-			InputStream inputStream = null;
-			Input input = null;
-			try {
-				HttpResponse response = httpClient.execute(httpGet);
-				HttpEntity entity = response.getEntity();
-				if (MultipartEntityUtil.isMultipart(entity)) {
-					inputStream = entity.getContent();
-					@SuppressWarnings("deprecation")
-					// all non-deprecated constructors have default modifier
-					MultipartStream multipartStream = new MultipartStream(inputStream, MultipartEntityUtil.getBoundary(entity).getBytes());
-					ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-					boolean nextPart = multipartStream.skipPreamble();
-					while (nextPart) {
-						multipartStream.readHeaders();
-						multipartStream.readBodyData(byteArrayOutputStream);
-						input = new Input(byteArrayOutputStream.toByteArray());
-						while (KryoUtil.hasMoreBytes(input)) {
-							Object object = serializer.deserialize(input);
-							E element = (E) object;
-							receivedData.add(element);
-						}
-						nextPart = multipartStream.readBoundary();
-					}
-				} else {
-					// when kryo changes the visibility of optional() method, we can really stream
-					input = new Input(EntityUtils.toByteArray(entity));
-					while (KryoUtil.hasMoreBytes(input)) {
-						Object object = serializer.deserialize(input);
-						E element = (E) object;
-						receivedData.add(element);
-					}
-				}
-			} finally {
-				if (null != inputStream) {
-					inputStream.close();
-				}
-				if (null != input) {
-					input.close();
-				}
-				serializerQueue.add(serializer);
+		} finally {
+			for (Future<List<E>> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the given ranges of one data file with single HTTP request and de-serializes the
+	 * objects described by the descriptors from the response stream.
+	 *
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param fileUri
+	 *            URI of the data file.
+	 * @param ranges
+	 *            Sorted ranges to request.
+	 * @param descriptors
+	 *            Descriptors contained in the ranges.
+	 * @param compressedBlocks
+	 *            If storage is in the {@link StorageFormatVersion#COMPRESSED_BLOCKS} format.
+	 * @return List of objects in the supplied generic type.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private <E extends DefaultData> List<E> getRangesViaHttp(String fileUri, List<RangeDescriptor> ranges, List<IStorageDescriptor> descriptors, boolean compressedBlocks)
+			throws IOException, SerializationException {
+		StringBuilder rangeHeader = new StringBuilder("bytes=");
+		for (int i = 0; i < ranges.size(); i++) {
+			if (i > 0) {
+				rangeHeader.append(',');
+			}
+			rangeHeader.append(ranges.get(i));
+		}
+		HttpGet httpGet = new HttpGet(fileUri);
+		httpGet.addHeader("Range", rangeHeader.toString());
+
+		ISerializer serializer = null;
+		try {
+			serializer = serializerQueue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the serializer.");
+		}
+		InputStream inputStream = null;
+		try {
+			HttpResponse response = httpClient.execute(httpGet);
+			HttpEntity entity = response.getEntity();
+			int statusCode = response.getStatusLine().getStatusCode();
+			if (HttpStatus.PARTIAL_CONTENT.value() != statusCode) {
+				EntityUtils.consume(entity);
+				throw new IOException("Ranges of the file " + fileUri + " can not be retrieved, HTTP status is " + statusCode + ".");
+			}
+
+			inputStream = entity.getContent();
+			if (MultipartEntityUtil.isMultipart(entity)) {
+				inputStream = new MultipartByteRangesInputStream(inputStream, MultipartEntityUtil.getBoundary(entity), ranges);
+			}
+			if (compressedBlocks) {
+				return StorageBlockUtil.deserialize(descriptors, ranges, inputStream, serializer);
+			} else {
+				return StorageRangeUtil.deserialize(descriptors, ranges, inputStream, serializer);
+			}
+		} catch (IOException | SerializationException | RuntimeException e) {
+			// don't return the connection with the unread content to the pool
+			httpGet.abort();
+			throw e;
+		} finally {
+			if (null != inputStream) {
+				inputStream.close();
+			}
+			serializerQueue.add(serializer);
+		}
+	}
+
+	/**
+	 * Returns the descriptors that are contained in the given ranges.
+	 *
+	 * @param channelDescriptors
+	 *            Descriptors of one data file sorted by position.
+	 * @param ranges
+	 *            Sorted ranges.
+	 * @return Descriptors contained in the ranges.
+	 */
+	private List<IStorageDescriptor> getDescriptorsInRanges(List<IStorageDescriptor> channelDescriptors, List<RangeDescriptor> ranges) {
+		long start = ranges.get(0).getStart();
+		long end = ranges.get(ranges.size() - 1).getEnd();
+		List<IStorageDescriptor> result = new ArrayList<>();
+		for (IStorageDescriptor descriptor : channelDescriptors) {
+			if ((descriptor.getPosition() >= start) && (descriptor.getPosition() <= end)) {
+				result.add(descriptor);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Waits for the result of the retrieval task.
+	 *
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param future
+	 *            Future of the task.
+	 * @return Retrieved objects.
+	 * @throws SerializationException
+	 *             If task failed with the {@link SerializationException}.
+	 * @throws IOException
+	 *             If task failed with the {@link IOException} or the waiting is interrupted.
+	 */
+	private <E> List<E> getResult(Future<List<E>> future) throws IOException, SerializationException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the storage data.");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof SerializationException) {
+				throw (SerializationException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IOException("Storage data can not be retrieved.", cause);
 			}
 		}
-		return receivedData;
 	}
 
 	/**
@@ -240,6 +465,9 @@ public class DataRetriever {
 	@SuppressWarnings("unchecked")
 	public <E extends DefaultData> List<E> getDataLocally(LocalStorageData localStorageData, List<IStorageDescriptor> descriptors) throws IOException, SerializationException {
 		Map<Integer, List<IStorageDescriptor>> separateFilesGroup = createFilesGroup(descriptors);
+		if (StorageFormatVersion.isCompressedBlocks(localStorageData)) {
+			return getBlocksLocally(localStorageData, separateFilesGroup);
+		}
 		List<IStorageDescriptor> optimizedDescriptors = new ArrayList<>();
 		for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
 			StorageDescriptor storageDescriptor = null;
@@ -258,6 +486,15 @@ public class DataRetriever {
 			optimizedDescriptors.add(storageDescriptor);
 		}
 
+		List<MappedRegion> mappedRegions = getMappedRegions(localStorageData, optimizedDescriptors);
+		if (null != mappedRegions) {
+			try {
+				return getDataFromMappedRegions(mappedRegions, descriptors.size());
+			} finally {
+				closeMappedRegions(mappedRegions);
+			}
+		}
+
 		List<E> receivedData = new ArrayList<>(descriptors.size());
 
 		ISerializer serializer = null;
@@ -286,6 +523,159 @@ public class DataRetriever {
 		return receivedData;
 	}
 
+	/**
+	 * Retrieves the data from the offline-available storage written in the
+	 * {@link StorageFormatVersion#COMPRESSED_BLOCKS} format.
+	 *
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param localStorageData
+	 *            {@link LocalStorageData} that points to the wanted storage.
+	 * @param separateFilesGroup
+	 *            Descriptors grouped by the data file.
+	 * @return List of objects in the supplied generic type.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private <E extends DefaultData> List<E> getBlocksLocally(LocalStorageData localStorageData, Map<Integer, List<IStorageDescriptor>> separateFilesGroup) throws IOException, SerializationException {
+		List<E> receivedData = new ArrayList<>();
+
+		ISerializer serializer = null;
+		try {
+			serializer = serializerQueue.take();
+		} catch (InterruptedException e) {
+			Thread.interrupted();
+		}
+		try {
+			for (Map.Entry<Integer, List<IStorageDescriptor>> entry : separateFilesGroup.entrySet()) {
+				List<RangeDescriptor> ranges = StorageBlockUtil.getReadRanges(entry.getValue());
+				List<IStorageDescriptor> rangeDescriptors = new ArrayList<>(ranges.size());
+				for (RangeDescriptor range : ranges) {
+					rangeDescriptors.add(new StorageDescriptor(entry.getKey(), range.getStart(), (range.getEnd() - range.getStart()) + 1));
+				}
+				List<MappedRegion> mappedRegions = getMappedRegions(localStorageData, rangeDescriptors);
+				try (InputStream inputStream = (null != mappedRegions) ? getMappedRegionsInputStream(mappedRegions)
+						: streamProvider.getExtendedByteBufferInputStream(localStorageData, rangeDescriptors)) {
+					receivedData.addAll(StorageBlockUtil.<E> deserialize(entry.getValue(), ranges, inputStream, serializer));
+				} finally {
+					closeMappedRegions(mappedRegions);
+				}
+			}
+		} finally {
+			serializerQueue.add(serializer);
+		}
+		return receivedData;
+	}
+
+	/**
+	 * Returns the memory-mapped regions of the local channel files described by the given
+	 * descriptors. The mapping of each channel file is shared between all queries, thus repeated
+	 * queries are served from the page cache without reading the files again.
+	 *
+	 * @param localStorageData
+	 *            {@link LocalStorageData} that points to the wanted storage.
+	 * @param descriptors
+	 *            Descriptors describing the regions.
+	 * @return Regions in the same order as the descriptors or <code>null</code> if the mapped read
+	 *         is not possible and the data should be read with the {@link #streamProvider}. The
+	 *         regions must be closed with {@link #closeMappedRegions(List)} after reading.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private List<MappedRegion> getMappedRegions(LocalStorageData localStorageData, List<IStorageDescriptor> descriptors) throws IOException {
+		if (null == mappedChannelFileCache) {
+			return null;
+		}
+
+		List<MappedRegion> regions = new ArrayList<>(descriptors.size());
+		boolean complete = false;
+		try {
+			for (IStorageDescriptor descriptor : descriptors) {
+				MappedRegion region = mappedChannelFileCache.getRegion(storageManager.getChannelPath(localStorageData, descriptor), descriptor.getPosition(), descriptor.getSize());
+				if (null == region) {
+					return null;
+				}
+				regions.add(region);
+			}
+			complete = true;
+			return regions;
+		} finally {
+			if (!complete) {
+				closeMappedRegions(regions);
+			}
+		}
+	}
+
+	/**
+	 * Closes the mapped regions, so that the released mappings can be unmapped.
+	 *
+	 * @param mappedRegions
+	 *            Regions to close, can be <code>null</code>.
+	 */
+	private void closeMappedRegions(List<MappedRegion> mappedRegions) {
+		if (null != mappedRegions) {
+			for (MappedRegion region : mappedRegions) {
+				region.close();
+			}
+		}
+	}
+
+	/**
+	 * De-serializes all objects from the mapped regions. Kryo reads directly from the mapped
+	 * memory, so no bytes are copied to the intermediate buffers.
+	 *
+	 * @param <E>
+	 *            Type of the objects are wanted.
+	 * @param mappedRegions
+	 *            Regions to read from.
+	 * @param expectedSize
+	 *            Expected amount of objects.
+	 * @return List of objects in the supplied generic type.
+	 * @throws SerializationException
+	 *             If {@link SerializationException} occurs.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	@SuppressWarnings("unchecked")
+	private <E extends DefaultData> List<E> getDataFromMappedRegions(List<MappedRegion> mappedRegions, int expectedSize) throws SerializationException, IOException {
+		List<E> receivedData = new ArrayList<>(expectedSize);
+
+		ISerializer serializer = null;
+		try {
+			serializer = serializerQueue.take();
+		} catch (InterruptedException e) {
+			Thread.interrupted();
+		}
+		try {
+			for (MappedRegion region : mappedRegions) {
+				Input input = new ByteBufferInput(region.getBuffer());
+				while (KryoUtil.hasMoreBytes(input)) {
+					receivedData.add((E) serializer.deserialize(input));
+				}
+			}
+		} finally {
+			serializerQueue.add(serializer);
+		}
+		return receivedData;
+	}
+
+	/**
+	 * Returns the input stream that reads the given mapped regions one after another.
+	 *
+	 * @param mappedRegions
+	 *            Regions to read.
+	 * @return {@link InputStream}.
+	 */
+	private InputStream getMappedRegionsInputStream(List<MappedRegion> mappedRegions) {
+		List<InputStream> streams = new ArrayList<>(mappedRegions.size());
+		for (MappedRegion region : mappedRegions) {
+			streams.add(new ByteBufferInputStream(region.getBuffer()));
+		}
+		return new SequenceInputStream(Collections.enumeration(streams));
+	}
+
 	/**
 	 * Returns cached data for the storage from the CMR if the cached data exists for given hash. If
 	 * data does not exist <code>null</code> is returned.
@@ -314,7 +704,6 @@ public class DataRetriever {
 		if (null == cachedFileLocation) {
 			return null;
 		} else {
-			HttpClient httpClient = new DefaultHttpClient();
 			HttpGet httpGet = new HttpGet(getServerUri(cmrRepositoryDefinition) + cachedFileLocation);
 			ISerializer serializer = null;
 			try {
@@ -394,21 +783,19 @@ public class DataRetriever {
 	 * Downloads and saves locally wanted files associated with given {@link StorageData}. Files
 	 * will be saved in passed directory. The caller can specify the type of the files to download
 	 * by passing the proper {@link StorageFileType}s to the method.
+	 * <p>
+	 * Files are downloaded in chunks in parallel. Interrupted download can be resumed by calling
+	 * this method again with the same directory, files that are already downloaded are skipped
+	 * and for the partly downloaded files only the missing chunks are downloaded.
 	 *
 	 * @param cmrRepositoryDefinition
 	 *            {@link CmrRepositoryDefinition}.
 	 * @param storageData
 	 *            {@link StorageData}.
 	 * @param directory
-	 *            Directory to save objects. compressBefore Should data files be compressed on the
-	 *            fly before sent.
+	 *            Directory to save objects.
 	 * @param compressBefore
 	 *            Should data files be compressed on the fly before sent.
-	 * @param decompressContent
-	 *            If the useGzipCompression is <code>true</code>, this parameter will define if the
-	 *            received content will be de-compressed. If false is passed content will be saved
-	 *            to file in the same format as received, but the path of the file will be altered
-	 *            with additional '.gzip' extension at the end.
 	 * @param subMonitor
 	 *            {@link SubMonitor} for process reporting.
 	 * @param fileTypes
@@ -419,8 +806,8 @@ public class DataRetriever {
 	 * @throws IOException
 	 *             If {@link IOException} occurs.
 	 */
-	public void downloadAndSaveStorageFiles(CmrRepositoryDefinition cmrRepositoryDefinition, StorageData storageData, final Path directory, boolean compressBefore, boolean decompressContent,
-			SubMonitor subMonitor, StorageFileType... fileTypes) throws BusinessException, IOException {
+	public void downloadAndSaveStorageFiles(CmrRepositoryDefinition cmrRepositoryDefinition, StorageData storageData, final Path directory, boolean compressBefore, SubMonitor subMonitor,
+			StorageFileType... fileTypes) throws BusinessException, IOException {
 		if (!Files.isDirectory(directory)) {
 			throw new BusinessException("Download and save storage files for storage " + storageData + " to the path " + directory.toString() + ".", StorageErrorCodeEnum.FILE_DOES_NOT_EXIST);
 		}
@@ -430,7 +817,7 @@ public class DataRetriever {
 		if (MapUtils.isNotEmpty(allFiles)) {
 			PostDownloadRunnable postDownloadRunnable = new PostDownloadRunnable() {
 				@Override
-				public void process(InputStream content, String fileName) throws IOException {
+				public Path getTargetFile(String fileName) throws IOException {
 					String[] splittedFileName = fileName.split("/");
 					Path writePath = directory;
 					// first part is empty, second is storage id, we don't need it
@@ -441,10 +828,15 @@ public class DataRetriever {
 					if (Files.notExists(writePath.getParent())) {
 						Files.createDirectories(writePath.getParent());
 					}
-					Files.copy(content, writePath, StandardCopyOption.REPLACE_EXISTING);
+					return writePath;
+				}
+
+				@Override
+				public void process(Path file, String fileName) throws IOException {
+					// file is already in place
 				}
 			};
-			this.downloadAndSaveObjects(cmrRepositoryDefinition, allFiles, postDownloadRunnable, compressBefore, decompressContent, subMonitor);
+			this.downloadAndSaveObjects(cmrRepositoryDefinition, allFiles, postDownloadRunnable, compressBefore, subMonitor);
 		}
 	}
 
@@ -452,6 +844,10 @@ public class DataRetriever {
 	 * Downloads and saves locally wanted files associated with given {@link StorageData}. Files
 	 * will be saved in passed directory. The caller can specify the type of the files to download
 	 * by passing the proper {@link StorageFileType}s to the method.
+	 * <p>
+	 * Files are downloaded in chunks in parallel to the temporary directory and then placed to the
+	 * zip. If the download is interrupted, the temporary files are kept, so that repeating the
+	 * download of the same storage only downloads the missing chunks.
 	 *
 	 * @param cmrRepositoryDefinition
 	 *            {@link CmrRepositoryDefinition}.
@@ -461,11 +857,6 @@ public class DataRetriever {
 	 *            {@link ZipOutputStream} to place files to.
 	 * @param compressBefore
 	 *            Should data files be compressed on the fly before sent.
-	 * @param decompressContent
-	 *            If the useGzipCompression is <code>true</code>, this parameter will define if the
-	 *            received content will be de-compressed. If false is passed content will be saved
-	 *            to file in the same format as received, but the path of the file will be altered
-	 *            with additional '.gzip' extension at the end.
 	 * @param subMonitor
 	 *            {@link SubMonitor} for process reporting.
 	 * @param fileTypes
@@ -476,22 +867,34 @@ public class DataRetriever {
 	 * @throws IOException
 	 *             If {@link IOException} occurs.
 	 */
-	public void downloadAndZipStorageFiles(CmrRepositoryDefinition cmrRepositoryDefinition, StorageData storageData, final ZipOutputStream zos, boolean compressBefore, boolean decompressContent,
-			SubMonitor subMonitor, StorageFileType... fileTypes) throws BusinessException, IOException {
+	public void downloadAndZipStorageFiles(CmrRepositoryDefinition cmrRepositoryDefinition, StorageData storageData, final ZipOutputStream zos, boolean compressBefore, SubMonitor subMonitor,
+			StorageFileType... fileTypes) throws BusinessException, IOException {
 		Map<String, Long> allFiles = getFilesFromCmr(cmrRepositoryDefinition, storageData, fileTypes);
+		final Path tmpDirectory = Paths.get(System.getProperty("java.io.tmpdir"), DOWNLOAD_TMP_DIRECTORY, storageData.getId());
+		Files.createDirectories(tmpDirectory);
 
 		PostDownloadRunnable postDownloadRunnable = new PostDownloadRunnable() {
 			@Override
-			public void process(InputStream content, String fileName) throws IOException {
-				String[] splittedFileName = fileName.split("/");
-				String originalFileName = splittedFileName[splittedFileName.length - 1];
-				ZipEntry zipEntry = new ZipEntry(originalFileName);
+			public Path getTargetFile(String fileName) throws IOException {
+				return tmpDirectory.resolve(getOriginalFileName(fileName));
+			}
+
+			@Override
+			public void process(Path file, String fileName) throws IOException {
+				ZipEntry zipEntry = new ZipEntry(getOriginalFileName(fileName));
 				zos.putNextEntry(zipEntry);
-				IOUtils.copy(content, zos);
+				Files.copy(file, zos);
 				zos.closeEntry();
+				Files.delete(file);
+			}
+
+			private String getOriginalFileName(String fileName) {
+				String[] splittedFileName = fileName.split("/");
+				return splittedFileName[splittedFileName.length - 1];
 			}
 		};
-		this.downloadAndSaveObjects(cmrRepositoryDefinition, allFiles, postDownloadRunnable, compressBefore, decompressContent, subMonitor);
+		this.downloadAndSaveObjects(cmrRepositoryDefinition, allFiles, postDownloadRunnable, compressBefore, subMonitor);
+		FileUtils.deleteQuietly(tmpDirectory.toFile());
 	}
 
 	/**
@@ -545,62 +948,127 @@ public class DataRetriever {
 	}
 
 	/**
-	 * Down-loads and saves the file from a {@link CmrRepositoryDefinition}. Files will be saved in
-	 * the directory that is denoted as the given Path object. Original file names will be used.
+	 * Down-loads and saves the files from a {@link CmrRepositoryDefinition}. Files are
+	 * down-loaded one after another, where the chunks of one file are down-loaded in parallel with
+	 * the {@link #transferExecutorService}. Every chunk is verified with its checksum and retried
+	 * if the download fails. Chunks are written to the part file and the completed chunks are
+	 * persisted in the {@link TransferState}, so that the download can be resumed. Files that
+	 * already exist with the expected size and have no transfer state are not down-loaded again.
 	 *
 	 * @param cmrRepositoryDefinition
 	 *            Repository.
 	 * @param files
 	 *            Map with file names and sizes.
 	 * @param postDownloadRunnable
-	 *            {@link PostDownloadRunnable} that will be executed after successful request.
+	 *            {@link PostDownloadRunnable} that defines the target files and is executed after
+	 *            each file is down-loaded.
 	 * @param useGzipCompression
-	 *            If the GZip compression should be used when files are downloaded.
-	 * @param decompressContent
-	 *            If the useGzipCompression is <code>true</code>, this parameter will define if the
-	 *            received content will be de-compressed. If false is passed content will be saved
-	 *            to file in the same format as received, but the path of the file will be altered
-	 *            with additional '.gzip' extension at the end.
+	 *            If the GZip compression should be used when chunks are downloaded. Chunks are
+	 *            compressed independently, so the compression runs in parallel on the server.
 	 * @param subMonitor
 	 *            {@link SubMonitor} for process reporting.
 	 * @throws IOException
-	 *             If {@link IOException} occurs.
-	 * @throws BusinessException
-	 *             If status of HTTP response is not successful (codes 2xx).
+	 *             If {@link IOException} occurs or chunk can not be downloaded.
 	 */
 	private void downloadAndSaveObjects(CmrRepositoryDefinition cmrRepositoryDefinition, Map<String, Long> files, PostDownloadRunnable postDownloadRunnable, boolean useGzipCompression,
-			boolean decompressContent, final SubMonitor subMonitor) throws IOException, BusinessException {
-		DefaultHttpClient httpClient = new DefaultHttpClient();
+			final SubMonitor subMonitor) throws IOException {
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+		connectionManager.setMaxTotal(transferConnections);
+		connectionManager.setDefaultMaxPerRoute(transferConnections);
+		DefaultHttpClient transferHttpClient = new DefaultHttpClient(connectionManager);
 		final TransferDataMonitor transferDataMonitor = new TransferDataMonitor(subMonitor, files, useGzipCompression);
-		httpClient.addResponseInterceptor(new HttpResponseInterceptor() {
+		transferHttpClient.addResponseInterceptor(new HttpResponseInterceptor() {
 			@Override
 			public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
 				response.setEntity(new DownloadHttpEntityWrapper(response.getEntity(), transferDataMonitor));
 			}
 		});
+		transferHttpClient.addResponseInterceptor(new GzipHttpResponseInterceptor());
 
-		if (useGzipCompression && decompressContent) {
-			httpClient.addResponseInterceptor(new GzipHttpResponseInterceptor());
-		}
+		try {
+			for (Map.Entry<String, Long> fileEntry : files.entrySet()) {
+				String fileName = fileEntry.getKey();
+				long fileSize = fileEntry.getValue().longValue();
+				Path file = postDownloadRunnable.getTargetFile(fileName);
+				Path stateFile = ChunkedTransferUtil.getStateFile(file);
 
-		for (Map.Entry<String, Long> fileEntry : files.entrySet()) {
-			String fileName = fileEntry.getKey();
-			String fileLocation = getServerUri(cmrRepositoryDefinition) + fileName;
-			HttpGet httpGet = new HttpGet(fileLocation);
-			if (useGzipCompression) {
-				httpGet.addHeader("accept-encoding", "gzip");
+				transferDataMonitor.startTransfer(fileName);
+				if (!(Files.exists(file) && (Files.size(file) == fileSize) && Files.notExists(stateFile))) {
+					downloadFileInChunks(transferHttpClient, cmrRepositoryDefinition, fileName, fileSize, file, useGzipCompression);
+				}
+				postDownloadRunnable.process(file, fileName);
+				transferDataMonitor.endTransfer(fileName);
 			}
+		} finally {
+			transferHttpClient.getConnectionManager().shutdown();
+		}
+	}
 
-			transferDataMonitor.startTransfer(fileName);
-			HttpResponse response = httpClient.execute(httpGet);
-			StatusLine statusLine = response.getStatusLine();
-			if (HttpStatus.valueOf(statusLine.getStatusCode()).series().equals(Series.SUCCESSFUL)) {
-				HttpEntity entity = response.getEntity();
-				try (InputStream is = entity.getContent()) {
-					postDownloadRunnable.process(is, fileName);
-				}
+	/**
+	 * Down-loads the missing chunks of one file in parallel. When all chunks are down-loaded the
+	 * part file is moved to the target file.
+	 *
+	 * @param transferHttpClient
+	 *            HTTP client to use.
+	 * @param cmrRepositoryDefinition
+	 *            Repository.
+	 * @param fileName
+	 *            File name on the server.
+	 * @param fileSize
+	 *            File size.
+	 * @param file
+	 *            Target file.
+	 * @param useGzipCompression
+	 *            If the GZip compression should be used.
+	 * @throws IOException
+	 *             If chunk can not be downloaded or written.
+	 */
+	private void downloadFileInChunks(HttpClient transferHttpClient, CmrRepositoryDefinition cmrRepositoryDefinition, String fileName, long fileSize, Path file, boolean useGzipCompression)
+			throws IOException {
+		Path partFile = ChunkedTransferUtil.getPartFile(file);
+		TransferState transferState = TransferState.open(ChunkedTransferUtil.getStateFile(file), fileSize, chunkSize);
+		if (Files.notExists(partFile)) {
+			// state is useless without the content
+			transferState.delete();
+			transferState = TransferState.open(ChunkedTransferUtil.getStateFile(file), fileSize, chunkSize);
+			Files.createFile(partFile);
+		}
+
+		String chunkUri = getServerUri(cmrRepositoryDefinition) + CHUNK_SERVLET + "?" + ChunkedTransferUtil.PARAM_FILE + "=" + URLEncoder.encode(fileName, "UTF-8");
+		List<Future<Void>> futures = new ArrayList<>();
+		for (Integer index : transferState.getMissingChunks()) {
+			futures.add(transferExecutorService.submit(new ChunkDownloadCallable(transferHttpClient, chunkUri, partFile, transferState, index.intValue(), useGzipCompression)));
+		}
+		waitForChunks(futures, fileName);
+
+		Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING);
+		transferState.delete();
+	}
+
+	/**
+	 * Waits for all chunk transfers to finish. If one fails, the rest is canceled.
+	 *
+	 * @param futures
+	 *            Futures of the chunk transfers.
+	 * @param fileName
+	 *            Name of the transfered file for the exception message.
+	 * @throws IOException
+	 *             If any chunk transfer failed or waiting is interrupted.
+	 */
+	private void waitForChunks(List<Future<Void>> futures, String fileName) throws IOException {
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Download of the file " + fileName + " interrupted.");
+		} catch (ExecutionException e) {
+			throw new IOException("Download of the file " + fileName + " failed.", e.getCause());
+		} finally {
+			for (Future<Void> future : futures) {
+				future.cancel(true);
 			}
-			transferDataMonitor.endTransfer(fileName);
 		}
 	}
 
@@ -691,6 +1159,16 @@ public class DataRetriever {
 		this.serializerCount = serializerCount;
 	}
 
+	/**
+	 * Sets {@link #rangeGapThreshold}.
+	 *
+	 * @param rangeGapThreshold
+	 *            New value for {@link #rangeGapThreshold}
+	 */
+	public void setRangeGapThreshold(long rangeGapThreshold) {
+		this.rangeGapThreshold = rangeGapThreshold;
+	}
+
 	/**
 	 * Sets {@link #serializationManagerProvider}.
 	 *
@@ -711,6 +1189,75 @@ public class DataRetriever {
 		this.streamProvider = streamProvider;
 	}
 
+	/**
+	 * Sets {@link #mappedChannelFileCache}.
+	 *
+	 * @param mappedChannelFileCache
+	 *            New value for {@link #mappedChannelFileCache}
+	 */
+	public void setMappedChannelFileCache(MappedChannelFileCache mappedChannelFileCache) {
+		this.mappedChannelFileCache = mappedChannelFileCache;
+	}
+
+	/**
+	 * Sets {@link #executorService}.
+	 *
+	 * @param executorService
+	 *            New value for {@link #executorService}
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Sets {@link #transferExecutorService}.
+	 *
+	 * @param transferExecutorService
+	 *            New value for {@link #transferExecutorService}
+	 */
+	public void setTransferExecutorService(ExecutorService transferExecutorService) {
+		this.transferExecutorService = transferExecutorService;
+	}
+
+	/**
+	 * Sets {@link #transferConnections}.
+	 *
+	 * @param transferConnections
+	 *            New value for {@link #transferConnections}
+	 */
+	public void setTransferConnections(int transferConnections) {
+		this.transferConnections = transferConnections;
+	}
+
+	/**
+	 * Sets {@link #chunkSize}.
+	 *
+	 * @param chunkSize
+	 *            New value for {@link #chunkSize}
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Consumer of the data that is retrieved in several parts.
+	 *
+	 * @author Ivan Senic
+	 *
+	 * @param <E>
+	 *            Type of the data.
+	 */
+	public interface IDataConsumer<E> {
+
+		/**
+		 * Consumes one part of the retrieved data.
+		 *
+		 * @param data
+		 *            Retrieved data.
+		 */
+		void consume(List<E> data);
+	}
+
 	/**
 	 * A wrapper for the {@link HttpEntity} that will surround the entity's input stream with the
 	 * {@link GZIPInputStream}. *
@@ -776,7 +1323,142 @@ public class DataRetriever {
 	}
 
 	/**
-	 * Simple interface to enable multiple operations after file download.
+	 * Callable that downloads one chunk of the file, verifies its checksum and writes it to the
+	 * part file. Download is retried up to {@value #MAX_CHUNK_ATTEMPTS} times.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private static class ChunkDownloadCallable implements Callable<Void> {
+
+		/**
+		 * HTTP client to use.
+		 */
+		private final HttpClient transferHttpClient;
+
+		/**
+		 * URI of the chunk servlet with the file parameter.
+		 */
+		private final String chunkUri;
+
+		/**
+		 * Part file to write the chunk to.
+		 */
+		private final Path partFile;
+
+		/**
+		 * State of the file transfer.
+		 */
+		private final TransferState transferState;
+
+		/**
+		 * Index of the chunk.
+		 */
+		private final int index;
+
+		/**
+		 * If the GZip compression should be requested.
+		 */
+		private final boolean useGzipCompression;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param transferHttpClient
+		 *            HTTP client to use.
+		 * @param chunkUri
+		 *            URI of the chunk servlet with the file parameter.
+		 * @param partFile
+		 *            Part file to write the chunk to.
+		 * @param transferState
+		 *            State of the file transfer.
+		 * @param index
+		 *            Index of the chunk.
+		 * @param useGzipCompression
+		 *            If the GZip compression should be requested.
+		 */
+		ChunkDownloadCallable(HttpClient transferHttpClient, String chunkUri, Path partFile, TransferState transferState, int index, boolean useGzipCompression) {
+			this.transferHttpClient = transferHttpClient;
+			this.chunkUri = chunkUri;
+			this.partFile = partFile;
+			this.transferState = transferState;
+			this.index = index;
+			this.useGzipCompression = useGzipCompression;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Void call() throws Exception {
+			int chunkSize = transferState.getChunkSize();
+			long offset = ChunkedTransferUtil.getChunkOffset(chunkSize, index);
+			int length = ChunkedTransferUtil.getChunkLength(transferState.getFileSize(), chunkSize, index);
+			String uri = chunkUri + "&" + ChunkedTransferUtil.PARAM_OFFSET + "=" + offset + "&" + ChunkedTransferUtil.PARAM_LENGTH + "=" + length;
+
+			IOException lastException = null;
+			for (int attempt = 0; attempt < MAX_CHUNK_ATTEMPTS; attempt++) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException("Download of the chunk " + index + " interrupted.");
+				}
+				try {
+					byte[] chunk = download(uri, length);
+					ChunkedTransferUtil.writeChunk(partFile, offset, chunk);
+					transferState.markCompleted(index);
+					return null;
+				} catch (InterruptedIOException e) {
+					throw e;
+				} catch (IOException e) {
+					lastException = e;
+				}
+			}
+			throw lastException;
+		}
+
+		/**
+		 * Executes the request for the chunk and verifies the received chunk.
+		 *
+		 * @param uri
+		 *            Chunk URI.
+		 * @param length
+		 *            Expected length of the chunk.
+		 * @return Chunk bytes.
+		 * @throws IOException
+		 *             If request fails or the chunk is not valid.
+		 */
+		private byte[] download(String uri, int length) throws IOException {
+			HttpGet httpGet = new HttpGet(uri);
+			if (useGzipCompression) {
+				httpGet.addHeader("accept-encoding", "gzip");
+			}
+			HttpResponse response = transferHttpClient.execute(httpGet);
+			HttpEntity entity = response.getEntity();
+			try {
+				StatusLine statusLine = response.getStatusLine();
+				if (!HttpStatus.valueOf(statusLine.getStatusCode()).series().equals(Series.SUCCESSFUL)) {
+					throw new IOException("Download of the chunk " + index + " failed with status " + statusLine + ".");
+				}
+				Header checksumHeader = response.getFirstHeader(ChunkedTransferUtil.HEADER_CHUNK_CHECKSUM);
+				if (null == checksumHeader) {
+					throw new IOException("Checksum of the chunk " + index + " not provided.");
+				}
+				byte[] chunk;
+				try (InputStream inputStream = entity.getContent()) {
+					chunk = ChunkedTransferUtil.readChunk(inputStream, length);
+				}
+				if (ChunkedTransferUtil.checksum(chunk, 0, length) != Long.parseLong(checksumHeader.getValue())) {
+					throw new IOException("Checksum of the chunk " + index + " does not match.");
+				}
+				return chunk;
+			} finally {
+				EntityUtils.consume(entity);
+			}
+		}
+	}
+
+	/**
+	 * Simple interface to define the target of the downloaded files and to enable multiple
+	 * operations after file download.
 	 *
 	 * @author Ivan Senic
 	 *
@@ -784,16 +1466,27 @@ public class DataRetriever {
 	private interface PostDownloadRunnable {
 
 		/**
-		 * Process the input stream. If stream is not closed, it will be after exiting this method.
+		 * Returns the file the downloaded file should be saved to.
+		 *
+		 * @param fileName
+		 *            Name of the file being downloaded.
+		 * @return Local file.
+		 * @throws IOException
+		 *             If {@link IOException} occurs.
+		 */
+		Path getTargetFile(String fileName) throws IOException;
+
+		/**
+		 * Process the downloaded file.
 		 *
-		 * @param content
-		 *            {@link InputStream} that represents content of downloaded file.
+		 * @param file
+		 *            Local file holding the complete content of the downloaded file.
 		 * @param fileName
 		 *            Name of the file being downloaded.
 		 * @throws IOException
 		 *             If {@link IOException} occurs.
 		 */
-		void process(InputStream content, String fileName) throws IOException;
+		void process(Path file, String fileName) throws IOException;
 	}
 
 }
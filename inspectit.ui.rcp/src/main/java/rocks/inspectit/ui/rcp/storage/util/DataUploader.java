@@ -1,26 +1,43 @@
 package rocks.inspectit.ui.rcp.storage.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.mime.HttpMultipartMode;
-import org.apache.http.entity.mime.MultipartEntity;
-import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.util.EntityUtils;
 import org.eclipse.core.runtime.SubMonitor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatus.Series;
 
+import rocks.inspectit.shared.cs.storage.transfer.ChunkedTransferUtil;
 import rocks.inspectit.ui.rcp.repository.CmrRepositoryDefinition;
 import rocks.inspectit.ui.rcp.storage.http.TransferDataMonitor;
 
 /**
- * Utility class for uploading data.
+ * Utility class for uploading data. Files are uploaded in chunks, where chunks of one file are
+ * uploaded in parallel, compressed and verified with the checksum on the CMR. Chunks already
+ * uploaded in an interrupted upload are not uploaded again.
  *
  * @author Ivan Senic
  *
@@ -32,6 +49,26 @@ public class DataUploader {
 	 */
 	private static final String UPLOAD_SERVLET = "/fileupload";
 
+	/**
+	 * How many times the upload of one chunk is attempted before the upload fails.
+	 */
+	private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+	/**
+	 * Executor service for the parallel chunk uploads.
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * Max amount of parallel HTTP connections used for uploading.
+	 */
+	private int transferConnections = 4;
+
+	/**
+	 * Size of the chunks files are uploaded in.
+	 */
+	private int chunkSize = ChunkedTransferUtil.DEFAULT_CHUNK_SIZE;
+
 	/**
 	 * Uploads the file to the {@link CmrRepositoryDefinition} storage upload folder.
 	 * <p>
@@ -88,38 +125,107 @@ public class DataUploader {
 		// prepare uri
 		String uri = getServerUri(cmrRepositoryDefinition) + UPLOAD_SERVLET;
 
-		// execute post for each file
-		for (Path file : filesToUpload) {
-			DefaultHttpClient httpClient = null;
-			try {
-				httpClient = new DefaultHttpClient();
-				HttpPost httpPost = new HttpPost(uri);
-				// create entity
-				MultipartEntity entity = new MultipartEntity(HttpMultipartMode.BROWSER_COMPATIBLE);
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+		connectionManager.setMaxTotal(transferConnections);
+		connectionManager.setDefaultMaxPerRoute(transferConnections);
+		DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
+		try {
+			// upload chunks of each file
+			for (Path file : filesToUpload) {
 				if (Files.notExists(file)) {
 					throw new IOException("File to upload (" + file + ") does not exist.");
 				}
-				FileBody bin = new FileBody(file.toFile());
 				StringBuilder pathString = new StringBuilder(relativizePath.relativize(file).toString());
 				if (null != tmpDir) {
 					pathString.insert(0, tmpDir + File.separator);
 				}
-				entity.addPart(pathString.toString(), bin);
-				// wrap entity
-				UploadHttpEntityWrapper entityWrapper = new UploadHttpEntityWrapper(entity, transferDataMonitor);
-				httpPost.setEntity(entityWrapper);
+				String uploadName = pathString.toString().replace(File.separatorChar, '/');
+				long fileSize = files.get(file.toString()).longValue();
 
-				// execute upload
 				transferDataMonitor.startTransfer(file.toString());
-				httpClient.execute(httpPost);
-				transferDataMonitor.endTransfer(file.toString());
-			} finally {
-				if (null != httpClient) {
-					httpClient.getConnectionManager().shutdown();
+				List<Integer> uploadedChunks = getUploadedChunks(httpClient, uri, uploadName, fileSize);
+				List<Future<Void>> futures = new ArrayList<>();
+				for (int i = 0; i < ChunkedTransferUtil.getChunkCount(fileSize, chunkSize); i++) {
+					if (!uploadedChunks.contains(i)) {
+						futures.add(executorService.submit(new ChunkUploadCallable(httpClient, uri, file, uploadName, fileSize, i, transferDataMonitor)));
+					}
 				}
+				waitForChunks(futures, file);
+				transferDataMonitor.endTransfer(file.toString());
 			}
+		} finally {
+			httpClient.getConnectionManager().shutdown();
 		}
+	}
 
+	/**
+	 * Returns the chunks of the file that are already uploaded.
+	 *
+	 * @param httpClient
+	 *            HTTP client to use.
+	 * @param uri
+	 *            Upload servlet URI.
+	 * @param uploadName
+	 *            Upload name of the file.
+	 * @param fileSize
+	 *            File size.
+	 * @return Indexes of the uploaded chunks.
+	 * @throws IOException
+	 *             If status can not be retrieved.
+	 */
+	private List<Integer> getUploadedChunks(HttpClient httpClient, String uri, String uploadName, long fileSize) throws IOException {
+		HttpGet httpGet = new HttpGet(uri);
+		httpGet.addHeader(ChunkedTransferUtil.HEADER_FILE, uploadName);
+		httpGet.addHeader(ChunkedTransferUtil.HEADER_FILE_SIZE, String.valueOf(fileSize));
+		httpGet.addHeader(ChunkedTransferUtil.HEADER_CHUNK_SIZE, String.valueOf(chunkSize));
+		HttpResponse response = httpClient.execute(httpGet);
+		String status = EntityUtils.toString(response.getEntity());
+		checkResponse(response, "Retrieving the upload status of the file " + uploadName);
+		return ChunkedTransferUtil.parseChunks(status);
+	}
+
+	/**
+	 * Waits for all chunk uploads to finish. If one fails, the rest is canceled.
+	 *
+	 * @param futures
+	 *            Futures of the chunk uploads.
+	 * @param file
+	 *            Uploaded file for the exception message.
+	 * @throws IOException
+	 *             If any chunk upload failed or waiting is interrupted.
+	 */
+	private void waitForChunks(List<Future<Void>> futures, Path file) throws IOException {
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Upload of the file " + file + " interrupted.");
+		} catch (ExecutionException e) {
+			throw new IOException("Upload of the file " + file + " failed.", e.getCause());
+		} finally {
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Checks that the response status is successful.
+	 *
+	 * @param response
+	 *            Response.
+	 * @param action
+	 *            Action description for the exception message.
+	 * @throws IOException
+	 *             If status is not successful.
+	 */
+	private static void checkResponse(HttpResponse response, String action) throws IOException {
+		StatusLine statusLine = response.getStatusLine();
+		if (!HttpStatus.valueOf(statusLine.getStatusCode()).series().equals(Series.SUCCESSFUL)) {
+			throw new IOException(action + " failed with status " + statusLine + ".");
+		}
 	}
 
 	/**
@@ -133,4 +239,154 @@ public class DataUploader {
 		return "http://" + repositoryDefinition.getIp() + ":" + repositoryDefinition.getPort();
 	}
 
+	/**
+	 * Sets {@link #executorService}.
+	 *
+	 * @param executorService
+	 *            New value for {@link #executorService}
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Sets {@link #transferConnections}.
+	 *
+	 * @param transferConnections
+	 *            New value for {@link #transferConnections}
+	 */
+	public void setTransferConnections(int transferConnections) {
+		this.transferConnections = transferConnections;
+	}
+
+	/**
+	 * Sets {@link #chunkSize}.
+	 *
+	 * @param chunkSize
+	 *            New value for {@link #chunkSize}
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Callable that reads one chunk of the file, compresses it if that pays off and posts it to
+	 * the upload servlet. Upload is retried up to {@value #MAX_CHUNK_ATTEMPTS} times.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	private class ChunkUploadCallable implements Callable<Void> {
+
+		/**
+		 * HTTP client to use.
+		 */
+		private final HttpClient httpClient;
+
+		/**
+		 * Upload servlet URI.
+		 */
+		private final String uri;
+
+		/**
+		 * File to upload.
+		 */
+		private final Path file;
+
+		/**
+		 * Upload name of the file.
+		 */
+		private final String uploadName;
+
+		/**
+		 * File size.
+		 */
+		private final long fileSize;
+
+		/**
+		 * Index of the chunk.
+		 */
+		private final int index;
+
+		/**
+		 * {@link TransferDataMonitor} to report to.
+		 */
+		private final TransferDataMonitor transferDataMonitor;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param httpClient
+		 *            HTTP client to use.
+		 * @param uri
+		 *            Upload servlet URI.
+		 * @param file
+		 *            File to upload.
+		 * @param uploadName
+		 *            Upload name of the file.
+		 * @param fileSize
+		 *            File size.
+		 * @param index
+		 *            Index of the chunk.
+		 * @param transferDataMonitor
+		 *            {@link TransferDataMonitor} to report to.
+		 */
+		ChunkUploadCallable(HttpClient httpClient, String uri, Path file, String uploadName, long fileSize, int index, TransferDataMonitor transferDataMonitor) {
+			this.httpClient = httpClient;
+			this.uri = uri;
+			this.file = file;
+			this.uploadName = uploadName;
+			this.fileSize = fileSize;
+			this.index = index;
+			this.transferDataMonitor = transferDataMonitor;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Void call() throws Exception {
+			int length = ChunkedTransferUtil.getChunkLength(fileSize, chunkSize, index);
+			byte[] chunk = ChunkedTransferUtil.readChunk(file, ChunkedTransferUtil.getChunkOffset(chunkSize, index), length);
+			long checksum = ChunkedTransferUtil.checksum(chunk, 0, length);
+
+			// compress in this thread, so that chunks are compressed in parallel
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2);
+			try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+				gzipOutputStream.write(chunk);
+			}
+			boolean gzip = compressed.size() < length;
+
+			IOException lastException = null;
+			for (int attempt = 0; attempt < MAX_CHUNK_ATTEMPTS; attempt++) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException("Upload of the chunk " + index + " interrupted.");
+				}
+				HttpPost httpPost = new HttpPost(uri);
+				httpPost.addHeader(ChunkedTransferUtil.HEADER_FILE, uploadName);
+				httpPost.addHeader(ChunkedTransferUtil.HEADER_FILE_SIZE, String.valueOf(fileSize));
+				httpPost.addHeader(ChunkedTransferUtil.HEADER_CHUNK_SIZE, String.valueOf(chunkSize));
+				httpPost.addHeader(ChunkedTransferUtil.HEADER_CHUNK_INDEX, String.valueOf(index));
+				httpPost.addHeader(ChunkedTransferUtil.HEADER_CHUNK_CHECKSUM, String.valueOf(checksum));
+				ByteArrayEntity entity = new ByteArrayEntity(gzip ? compressed.toByteArray() : chunk);
+				entity.setContentType("application/octet-stream");
+				if (gzip) {
+					entity.setContentEncoding("gzip");
+				}
+				httpPost.setEntity(new UploadHttpEntityWrapper(entity, transferDataMonitor));
+				try {
+					HttpResponse response = httpClient.execute(httpPost);
+					EntityUtils.consume(response.getEntity());
+					checkResponse(response, "Upload of the chunk " + index + " of the file " + uploadName);
+					return null;
+				} catch (InterruptedIOException e) {
+					throw e;
+				} catch (IOException e) {
+					lastException = e;
+				}
+			}
+			throw lastException;
+		}
+	}
+
 }
@@ -0,0 +1,242 @@
+package rocks.inspectit.ui.rcp.storage.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import rocks.inspectit.shared.cs.storage.util.RangeDescriptor;
+
+/**
+ * Input stream that reads the multipart/byteranges HTTP response and provides the concatenated
+ * bodies of all parts. The parts are read directly from the response stream as the bytes are
+ * consumed, thus the complete response never has to be held in memory.
+ * <p>
+ * The content range of each part is checked against the requested ranges, parts must be received
+ * in the order the ranges were requested.
+ *
+ * @author Ivan Senic
+ *
+ */
+public class MultipartByteRangesInputStream extends InputStream {
+
+	/**
+	 * Content range header name in lower case.
+	 */
+	private static final String CONTENT_RANGE_HEADER = "content-range:";
+
+	/**
+	 * Unit prefix in the content range header value.
+	 */
+	private static final String BYTES_UNIT = "bytes";
+
+	/**
+	 * Size of the buffer used when reading the response.
+	 */
+	private static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Buffered response stream.
+	 */
+	private final InputStream inputStream;
+
+	/**
+	 * Delimiter line that starts each part.
+	 */
+	private final String delimiter;
+
+	/**
+	 * Iterator over the requested ranges.
+	 */
+	private final Iterator<RangeDescriptor> expectedRanges;
+
+	/**
+	 * Bytes of the current part that are not yet read.
+	 */
+	private long partRemaining;
+
+	/**
+	 * If the closing delimiter was read.
+	 */
+	private boolean finished;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param inputStream
+	 *            Response stream.
+	 * @param boundary
+	 *            Boundary defined in the response Content-Type header.
+	 * @param expectedRanges
+	 *            Ranges that were requested in the order they were requested.
+	 */
+	public MultipartByteRangesInputStream(InputStream inputStream, String boundary, List<RangeDescriptor> expectedRanges) {
+		this.inputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+		this.delimiter = "--" + boundary;
+		this.expectedRanges = expectedRanges.iterator();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+		if (!nextPartAvailable()) {
+			return -1;
+		}
+		int read = inputStream.read();
+		if (read < 0) {
+			throw new EOFException("Multipart response ended in the middle of the part.");
+		}
+		partRemaining--;
+		return read;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (0 == len) {
+			return 0;
+		}
+		if (!nextPartAvailable()) {
+			return -1;
+		}
+		int read = inputStream.read(b, off, (int) Math.min(len, partRemaining));
+		if (read < 0) {
+			throw new EOFException("Multipart response ended in the middle of the part.");
+		}
+		partRemaining -= read;
+		return read;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(inputStream.available(), partRemaining);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		inputStream.close();
+	}
+
+	/**
+	 * Moves to the next part if current one is completely read.
+	 *
+	 * @return <code>false</code> if there are no more parts.
+	 * @throws IOException
+	 *             If {@link IOException} occurs or the response is not as expected.
+	 */
+	private boolean nextPartAvailable() throws IOException {
+		while (0 == partRemaining) {
+			if (finished) {
+				return false;
+			}
+			readPartHeaders();
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the delimiter and the headers of the next part.
+	 *
+	 * @throws IOException
+	 *             If {@link IOException} occurs or the response is not as expected.
+	 */
+	private void readPartHeaders() throws IOException {
+		// skip the preamble or the line break after the previous part
+		String line = readLine();
+		while ((null != line) && !line.startsWith(delimiter)) {
+			line = readLine();
+		}
+
+		if ((null == line) || line.startsWith(delimiter + "--")) {
+			finished = true;
+			if (expectedRanges.hasNext()) {
+				throw new EOFException("Multipart response ended before all requested ranges were received.");
+			}
+			return;
+		}
+
+		RangeDescriptor received = null;
+		line = readLine();
+		while ((null != line) && !line.isEmpty()) {
+			if (line.toLowerCase(Locale.ENGLISH).startsWith(CONTENT_RANGE_HEADER)) {
+				received = parseContentRange(line.substring(CONTENT_RANGE_HEADER.length()));
+			}
+			line = readLine();
+		}
+
+		if (null == received) {
+			throw new IOException("Part of the multipart response does not define the content range.");
+		}
+		if (!expectedRanges.hasNext()) {
+			throw new IOException("Multipart response contains more parts than requested ranges.");
+		}
+		RangeDescriptor expected = expectedRanges.next();
+		if ((expected.getStart() != received.getStart()) || (expected.getEnd() != received.getEnd())) {
+			throw new IOException("Received range " + received + " does not match the requested range " + expected + ".");
+		}
+		partRemaining = (received.getEnd() - received.getStart()) + 1;
+	}
+
+	/**
+	 * Parses the content range header value in format <code>bytes start-end/length</code>.
+	 *
+	 * @param value
+	 *            Header value.
+	 * @return {@link RangeDescriptor}.
+	 * @throws IOException
+	 *             If value can not be parsed.
+	 */
+	private RangeDescriptor parseContentRange(String value) throws IOException {
+		String range = value.trim();
+		if (range.startsWith(BYTES_UNIT)) {
+			range = range.substring(BYTES_UNIT.length()).trim();
+		}
+		int dashIndex = range.indexOf('-');
+		int slashIndex = range.indexOf('/');
+		if ((dashIndex <= 0) || (slashIndex <= dashIndex)) {
+			throw new IOException("Content range " + value + " can not be parsed.");
+		}
+		try {
+			return new RangeDescriptor(Long.parseLong(range.substring(0, dashIndex).trim()), Long.parseLong(range.substring(dashIndex + 1, slashIndex).trim()));
+		} catch (NumberFormatException e) {
+			throw new IOException("Content range " + value + " can not be parsed.", e);
+		}
+	}
+
+	/**
+	 * Reads one line of the response.
+	 *
+	 * @return Line without the line break or <code>null</code> if stream ended.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int read = inputStream.read();
+		if (read < 0) {
+			return null;
+		}
+		while ((read >= 0) && (read != '\n')) {
+			if (read != '\r') {
+				line.write(read);
+			}
+			read = inputStream.read();
+		}
+		return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+}